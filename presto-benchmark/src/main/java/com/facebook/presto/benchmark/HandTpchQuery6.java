@@ -92,6 +92,20 @@ public class HandTpchQuery6
             return position;
         }
 
+        @Override
+        public int filterPositions(ConnectorSession session, Page page, int[] selectedPositions)
+        {
+            Block discountBlock = page.getBlock(1);
+            int selectedCount = 0;
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                if (filter(position, discountBlock, page.getBlock(2), page.getBlock(3))) {
+                    selectedPositions[selectedCount] = position;
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
         private static void project(int position, PageBuilder pageBuilder, Block extendedPriceBlock, Block discountBlock)
         {
             if (discountBlock.isNull(position) || extendedPriceBlock.isNull(position)) {
@@ -18,10 +18,12 @@ import com.facebook.presto.hive.util.ResumableTask;
 import com.facebook.presto.hive.util.ResumableTasks;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileStatus;
@@ -51,12 +53,14 @@ import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.facebook.presto.hadoop.HadoopFileStatus.isDirectory;
 import static com.facebook.presto.hadoop.HadoopFileStatus.isFile;
 import static com.facebook.presto.hive.HiveBucketing.HiveBucket;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_BUCKET_FILES;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_PARTITION_VALUE;
 import static com.facebook.presto.hive.HiveUtil.checkCondition;
@@ -64,6 +68,8 @@ import static com.facebook.presto.hive.HiveUtil.getInputFormat;
 import static com.facebook.presto.hive.HiveUtil.isSplittable;
 import static com.facebook.presto.hive.UnpartitionedPartition.isUnpartitioned;
 import static com.google.common.base.Preconditions.checkState;
+import static java.lang.String.format;
+import static java.util.Comparator.comparing;
 
 public class BackgroundHiveSplitLoader
         implements HiveSplitLoader
@@ -73,11 +79,12 @@ public class BackgroundHiveSplitLoader
     private final String connectorId;
     private final Table table;
     private final Optional<HiveBucket> bucket;
+    private final boolean bucketExecution;
     private final HdfsEnvironment hdfsEnvironment;
     private final NamenodeStats namenodeStats;
     private final DirectoryLister directoryLister;
     private final DataSize maxSplitSize;
-    private final int maxPartitionBatchSize;
+    private final int loaderConcurrency;
     private final DataSize maxInitialSplitSize;
     private final boolean recursiveDirWalkerEnabled;
     private final Executor executor;
@@ -85,6 +92,9 @@ public class BackgroundHiveSplitLoader
     private final ConcurrentLazyQueue<HivePartitionMetadata> partitions;
     private final Deque<HiveFileIterator> fileIterators = new ConcurrentLinkedDeque<>();
     private final AtomicInteger remainingInitialSplits;
+    private final HiveSplitLoaderStats stats;
+    private final AtomicBoolean firstSplitAdded = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
 
     // Purpose of this lock:
     // * When write lock is acquired, except the holder, no one can do any of the following:
@@ -101,28 +111,32 @@ public class BackgroundHiveSplitLoader
 
     private HiveSplitSource hiveSplitSource;
     private volatile boolean stopped;
+    private volatile long startNanos;
 
     public BackgroundHiveSplitLoader(
             String connectorId,
             Table table,
             Iterable<HivePartitionMetadata> partitions,
             Optional<HiveBucket> bucket,
+            boolean bucketExecution,
             DataSize maxSplitSize,
             ConnectorSession session,
             HdfsEnvironment hdfsEnvironment,
             NamenodeStats namenodeStats,
             DirectoryLister directoryLister,
             Executor executor,
-            int maxPartitionBatchSize,
+            int loaderConcurrency,
             DataSize maxInitialSplitSize,
             int maxInitialSplits,
-            boolean recursiveDirWalkerEnabled)
+            boolean recursiveDirWalkerEnabled,
+            HiveSplitLoaderStats stats)
     {
         this.connectorId = connectorId;
         this.table = table;
         this.bucket = bucket;
+        this.bucketExecution = bucketExecution;
         this.maxSplitSize = maxSplitSize;
-        this.maxPartitionBatchSize = maxPartitionBatchSize;
+        this.loaderConcurrency = loaderConcurrency;
         this.session = session;
         this.hdfsEnvironment = hdfsEnvironment;
         this.namenodeStats = namenodeStats;
@@ -132,13 +146,15 @@ public class BackgroundHiveSplitLoader
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
         this.executor = executor;
         this.partitions = new ConcurrentLazyQueue<>(partitions);
+        this.stats = stats;
     }
 
     @Override
     public void start(HiveSplitSource splitSource)
     {
         this.hiveSplitSource = splitSource;
-        for (int i = 0; i < maxPartitionBatchSize; i++) {
+        this.startNanos = System.nanoTime();
+        for (int i = 0; i < loaderConcurrency; i++) {
             ResumableTasks.submit(executor, new HiveSplitLoaderTask());
         }
     }
@@ -190,6 +206,9 @@ public class BackgroundHiveSplitLoader
                     // It is legal to call `finished` multiple times or after `stop` was called.
                     // Nothing bad will happen if `finished` implementation calls methods that will try to obtain a read lock because the lock is re-entrant.
                     hiveSplitSource.finished();
+                    if (finished.compareAndSet(false, true)) {
+                        stats.getSplitLoading().add(Duration.nanosSince(startNanos));
+                    }
                 }
             }
             finally {
@@ -231,7 +250,7 @@ public class BackgroundHiveSplitLoader
             else {
                 boolean splittable = isSplittable(files.getInputFormat(), hdfsEnvironment.getFileSystem(file.getPath()), file.getPath());
 
-                CompletableFuture<?> future = hiveSplitSource.addToQueue(createHiveSplits(
+                CompletableFuture<?> future = addToQueue(createHiveSplits(
                         files.getPartitionName(),
                         file.getPath().toString(),
                         file.getBlockLocations(),
@@ -277,7 +296,7 @@ public class BackgroundHiveSplitLoader
                 // get the filesystem for the target path -- it may be a different hdfs instance
                 FileSystem targetFilesystem = hdfsEnvironment.getFileSystem(split.getPath());
                 FileStatus file = targetFilesystem.getFileStatus(split.getPath());
-                hiveSplitSource.addToQueue(createHiveSplits(
+                addToQueue(createHiveSplits(
                         partitionName,
                         file.getPath().toString(),
                         targetFilesystem.getFileBlockLocations(file, split.getStart(), split.getLength()),
@@ -296,6 +315,33 @@ public class BackgroundHiveSplitLoader
         }
 
         FileSystem fs = hdfsEnvironment.getFileSystem(path);
+        if (bucketExecution) {
+            // the splits must not straddle bucket files, so that all rows with the same values
+            // of the bucketing columns are read by the same split. The plan relies on this, so
+            // a partition whose files do not match the bucketing of the table fails the query.
+            List<FileStatus> bucketFiles = getBucketFiles(fs, path, getBucketCount(table, partition.getPartition()), partitionName);
+            if (bucket.isPresent() && bucket.get().getBucketCount() == bucketFiles.size()) {
+                bucketFiles = ImmutableList.of(bucketFiles.get(bucket.get().getBucketNumber()));
+            }
+            for (FileStatus file : bucketFiles) {
+                addToQueue(createHiveSplits(
+                        partitionName,
+                        file.getPath().toString(),
+                        fs.getFileBlockLocations(file, 0, file.getLen()),
+                        0,
+                        file.getLen(),
+                        schema,
+                        partitionKeys,
+                        false,
+                        session,
+                        effectivePredicate));
+                if (stopped) {
+                    return;
+                }
+            }
+            return;
+        }
+
         if (bucket.isPresent()) {
             Optional<FileStatus> bucketFile = getBucketFile(bucket.get(), fs, path);
             if (bucketFile.isPresent()) {
@@ -303,7 +349,7 @@ public class BackgroundHiveSplitLoader
                 BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
                 boolean splittable = isSplittable(inputFormat, fs, file.getPath());
 
-                hiveSplitSource.addToQueue(createHiveSplits(
+                addToQueue(createHiveSplits(
                         partitionName,
                         file.getPath().toString(),
                         blockLocations,
@@ -322,6 +368,52 @@ public class BackgroundHiveSplitLoader
         fileIterators.addLast(iterator);
     }
 
+    private CompletableFuture<?> addToQueue(List<HiveSplit> splits)
+    {
+        if (!splits.isEmpty() && firstSplitAdded.compareAndSet(false, true)) {
+            stats.getTimeToFirstSplit().add(Duration.nanosSince(startNanos));
+        }
+        return hiveSplitSource.addToQueue(splits);
+    }
+
+    private List<FileStatus> getBucketFiles(FileSystem fs, Path path, int bucketCount, String partitionName)
+    {
+        List<FileStatus> files = new ArrayList<>();
+        for (FileStatus status : listStatus(fs, path)) {
+            if (!isFile(status)) {
+                throw new PrestoException(HIVE_INVALID_BUCKET_FILES, format("Hive table '%s.%s' is corrupt. Found a directory in the bucket directory of partition '%s': %s",
+                        table.getDbName(),
+                        table.getTableName(),
+                        partitionName,
+                        status.getPath()));
+            }
+            files.add(status);
+        }
+
+        if (files.size() != bucketCount) {
+            throw new PrestoException(HIVE_INVALID_BUCKET_FILES, format("Hive table '%s.%s' is corrupt. The number of files in the directory of partition '%s' (%s) does not match the declared bucket count (%s). " +
+                            "Set the session property bucket_execution_enabled to false to read the table.",
+                    table.getDbName(),
+                    table.getTableName(),
+                    partitionName,
+                    files.size(),
+                    bucketCount));
+        }
+
+        // Hive sorts the paths as strings lexicographically
+        files.sort(comparing(file -> file.getPath().toString()));
+        return files;
+    }
+
+    private static int getBucketCount(Table table, Partition partition)
+    {
+        // partitions keep the bucket count they were written with when the table bucket count changes
+        if (!isUnpartitioned(partition) && partition.getSd().isSetNumBuckets() && partition.getSd().getNumBuckets() > 0) {
+            return partition.getSd().getNumBuckets();
+        }
+        return table.getSd().getNumBuckets();
+    }
+
     private static Optional<FileStatus> getBucketFile(HiveBucket bucket, FileSystem fs, Path path)
     {
         FileStatus[] statuses = listStatus(fs, path);
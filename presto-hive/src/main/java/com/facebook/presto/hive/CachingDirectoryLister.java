@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Directory lister that keeps the listings of directories for a limited time,
+ * so queries over the same partitions in quick succession do not list them again.
+ * Files added to a directory while its listing is cached are not seen until the
+ * listing expires.
+ */
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final boolean enabled;
+    private final Cache<Path, List<LocatedFileStatus>> cache;
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig)
+    {
+        this(new HadoopDirectoryLister(), hiveClientConfig.getFileStatusCacheExpireTime(), hiveClientConfig.getFileStatusCacheSize());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, Duration expireTime, long maxFileStatuses)
+    {
+        this(delegate, expireTime, maxFileStatuses, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    CachingDirectoryLister(DirectoryLister delegate, Duration expireTime, long maxFileStatuses, Ticker ticker)
+    {
+        requireNonNull(ticker, "ticker is null");
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(expireTime, "expireTime is null");
+        this.enabled = expireTime.toMillis() > 0 && maxFileStatuses > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxFileStatuses)
+                .weigher((Path path, List<LocatedFileStatus> files) -> max(1, files.size()))
+                .expireAfterWrite(expireTime.toMillis(), MILLISECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        if (!enabled) {
+            return delegate.list(fs, path);
+        }
+
+        List<LocatedFileStatus> files = cache.getIfPresent(path);
+        if (files != null) {
+            hits.update(1);
+            return new SimpleRemoteIterator(files.iterator());
+        }
+        misses.update(1);
+
+        ImmutableList.Builder<LocatedFileStatus> builder = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = delegate.list(fs, path);
+        while (iterator.hasNext()) {
+            builder.add(iterator.next());
+        }
+        files = builder.build();
+        cache.put(path, files);
+        return new SimpleRemoteIterator(files.iterator());
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getCachedDirectories()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    private static class SimpleRemoteIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        public SimpleRemoteIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = requireNonNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+                throws IOException
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+                throws IOException
+        {
+            return iterator.next();
+        }
+    }
+}
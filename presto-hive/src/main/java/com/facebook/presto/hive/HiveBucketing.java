@@ -41,6 +41,7 @@ import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.hive.HiveUtil.getTableStructFields;
+import static com.facebook.presto.hive.HiveUtil.hiveColumnHandles;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -53,6 +54,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Maps.immutableEntry;
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static java.lang.Double.doubleToLongBits;
+import static java.util.Locale.ENGLISH;
 import static java.util.Map.Entry;
 import static org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredJavaObject;
 import static org.apache.hadoop.hive.ql.udf.generic.GenericUDF.DeferredObject;
@@ -172,11 +174,41 @@ final class HiveBucketing
         return result;
     }
 
+    /**
+     * Returns the handles of the bucketing columns of the table, or empty if the table is not bucketed
+     * or a bucketing column is not readable by Presto.
+     */
+    public static Optional<List<HiveColumnHandle>> getBucketColumns(String connectorId, Table table)
+    {
+        if (!isBucketed(table)) {
+            return Optional.empty();
+        }
+
+        Map<String, HiveColumnHandle> columns = new HashMap<>();
+        for (HiveColumnHandle column : hiveColumnHandles(connectorId, table)) {
+            columns.put(column.getName().toLowerCase(ENGLISH), column);
+        }
+
+        ImmutableList.Builder<HiveColumnHandle> bucketColumns = ImmutableList.builder();
+        for (String name : table.getSd().getBucketCols()) {
+            HiveColumnHandle column = columns.get(name.toLowerCase(ENGLISH));
+            if (column == null || column.isPartitionKey()) {
+                return Optional.empty();
+            }
+            bucketColumns.add(column);
+        }
+        return Optional.of(bucketColumns.build());
+    }
+
+    private static boolean isBucketed(Table table)
+    {
+        return table.getSd().isSetBucketCols() && !table.getSd().getBucketCols().isEmpty() &&
+                table.getSd().isSetNumBuckets() && (table.getSd().getNumBuckets() > 0);
+    }
+
     public static Optional<HiveBucket> getHiveBucket(Table table, Map<ColumnHandle, NullableValue> bindings)
     {
-        if (!table.getSd().isSetBucketCols() || table.getSd().getBucketCols().isEmpty() ||
-                !table.getSd().isSetNumBuckets() || (table.getSd().getNumBuckets() <= 0) ||
-                bindings.isEmpty()) {
+        if (!isBucketed(table) || bindings.isEmpty()) {
             return Optional.empty();
         }
 
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 @DefunctConfig({
@@ -52,10 +53,15 @@ public class HiveClientConfig
     private int maxSplitIteratorThreads = 1_000;
     private int minPartitionBatchSize = 10;
     private int maxPartitionBatchSize = 100;
+    private int splitLoaderConcurrency = 100;
+    private int partitionBatchPrefetchCount = 2;
+    private Duration fileStatusCacheExpireTime = new Duration(0, TimeUnit.SECONDS);
+    private long fileStatusCacheSize = 1_000_000;
     private int maxInitialSplits = 200;
     private DataSize maxInitialSplitSize;
     private int domainCompactionThreshold = 100;
     private boolean forceLocalScheduling;
+    private boolean bucketExecutionEnabled;
     private boolean recursiveDirWalkerEnabled;
 
     private int maxConcurrentFileRenames = 20;
@@ -106,6 +112,7 @@ public class HiveClientConfig
 
     private boolean optimizedReaderEnabled = true;
     private boolean parquetOptimizedReaderEnabled;
+    private boolean rcfileOptimizedReaderEnabled;
 
     private boolean parquetPredicatePushdownEnabled;
 
@@ -114,6 +121,13 @@ public class HiveClientConfig
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
+    private boolean orcNativeWriterEnabled = true;
+    private DataSize orcMetadataCacheSize = new DataSize(16, MEGABYTE);
+
+    private boolean fileCacheEnabled;
+    private File fileCacheDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-file-cache");
+    private DataSize fileCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize fileCacheBlockSize = new DataSize(1, MEGABYTE);
 
     public int getMaxInitialSplits()
     {
@@ -168,6 +182,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isBucketExecutionEnabled()
+    {
+        return bucketExecutionEnabled;
+    }
+
+    @Config("hive.bucket-execution.enabled")
+    @ConfigDescription("Read each bucket of bucketed tables as a single split, so that aggregations on the bucketing columns need no data exchange")
+    public HiveClientConfig setBucketExecutionEnabled(boolean bucketExecutionEnabled)
+    {
+        this.bucketExecutionEnabled = bucketExecutionEnabled;
+        return this;
+    }
+
     @Min(1)
     public int getMaxConcurrentFileRenames()
     {
@@ -407,6 +434,62 @@ public class HiveClientConfig
         return this;
     }
 
+    @Min(1)
+    public int getSplitLoaderConcurrency()
+    {
+        return splitLoaderConcurrency;
+    }
+
+    @Config("hive.split-loader-concurrency")
+    @ConfigDescription("Number of concurrent tasks listing the files of the partitions of a single query")
+    public HiveClientConfig setSplitLoaderConcurrency(int splitLoaderConcurrency)
+    {
+        this.splitLoaderConcurrency = splitLoaderConcurrency;
+        return this;
+    }
+
+    @Min(0)
+    public int getPartitionBatchPrefetchCount()
+    {
+        return partitionBatchPrefetchCount;
+    }
+
+    @Config("hive.metastore.partition-batch-prefetch-count")
+    @ConfigDescription("Number of partition batches fetched from the metastore ahead of the split loader, zero disables prefetching")
+    public HiveClientConfig setPartitionBatchPrefetchCount(int partitionBatchPrefetchCount)
+    {
+        this.partitionBatchPrefetchCount = partitionBatchPrefetchCount;
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireTime()
+    {
+        return fileStatusCacheExpireTime;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    @ConfigDescription("How long directory listings are cached, zero disables the cache")
+    public HiveClientConfig setFileStatusCacheExpireTime(Duration fileStatusCacheExpireTime)
+    {
+        this.fileStatusCacheExpireTime = fileStatusCacheExpireTime;
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheSize()
+    {
+        return fileStatusCacheSize;
+    }
+
+    @Config("hive.file-status-cache-size")
+    @ConfigDescription("Maximum number of file statuses in the cached directory listings")
+    public HiveClientConfig setFileStatusCacheSize(long fileStatusCacheSize)
+    {
+        this.fileStatusCacheSize = fileStatusCacheSize;
+        return this;
+    }
+
     public List<String> getResourceConfigFiles()
     {
         return resourceConfigFiles;
@@ -798,6 +881,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @Deprecated
+    public boolean isRcfileOptimizedReaderEnabled()
+    {
+        return rcfileOptimizedReaderEnabled;
+    }
+
+    @Deprecated
+    @Config("hive.rcfile-optimized-reader.enabled")
+    public HiveClientConfig setRcfileOptimizedReaderEnabled(boolean rcfileOptimizedReaderEnabled)
+    {
+        this.rcfileOptimizedReaderEnabled = rcfileOptimizedReaderEnabled;
+        return this;
+    }
+
     @NotNull
     public DataSize getOrcMaxMergeDistance()
     {
@@ -837,6 +934,33 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcNativeWriterEnabled()
+    {
+        return orcNativeWriterEnabled;
+    }
+
+    @Config("hive.orc.native-writer.enabled")
+    @ConfigDescription("Write ORC files with the Presto ORC writer instead of the Hive writer")
+    public HiveClientConfig setOrcNativeWriterEnabled(boolean orcNativeWriterEnabled)
+    {
+        this.orcNativeWriterEnabled = orcNativeWriterEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getOrcMetadataCacheSize()
+    {
+        return orcMetadataCacheSize;
+    }
+
+    @Config("hive.orc.metadata-cache-size")
+    @ConfigDescription("Maximum estimated heap size of the cached ORC file footers and stripe footers, zero disables the cache")
+    public HiveClientConfig setOrcMetadataCacheSize(DataSize orcMetadataCacheSize)
+    {
+        this.orcMetadataCacheSize = orcMetadataCacheSize;
+        return this;
+    }
+
     public boolean isAssumeCanonicalPartitionKeys()
     {
         return assumeCanonicalPartitionKeys;
@@ -861,4 +985,60 @@ public class HiveClientConfig
         this.useParquetColumnNames = useParquetColumnNames;
         return this;
     }
+
+    public boolean isFileCacheEnabled()
+    {
+        return fileCacheEnabled;
+    }
+
+    @Config("hive.file-cache.enabled")
+    @ConfigDescription("Cache ranges of ORC and Parquet files read from HDFS or S3 on the local disk of the workers")
+    public HiveClientConfig setFileCacheEnabled(boolean fileCacheEnabled)
+    {
+        this.fileCacheEnabled = fileCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public File getFileCacheDirectory()
+    {
+        return fileCacheDirectory;
+    }
+
+    @Config("hive.file-cache.directory")
+    @ConfigDescription("Local directory for the file cache, ideally on an SSD")
+    public HiveClientConfig setFileCacheDirectory(File fileCacheDirectory)
+    {
+        this.fileCacheDirectory = fileCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFileCacheMaxSize()
+    {
+        return fileCacheMaxSize;
+    }
+
+    @Config("hive.file-cache.max-size")
+    @ConfigDescription("Maximum size of the file cache on the local disk")
+    public HiveClientConfig setFileCacheMaxSize(DataSize fileCacheMaxSize)
+    {
+        this.fileCacheMaxSize = fileCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    public DataSize getFileCacheBlockSize()
+    {
+        return fileCacheBlockSize;
+    }
+
+    @Config("hive.file-cache.block-size")
+    @ConfigDescription("Size of the aligned file ranges cached as one entry")
+    public HiveClientConfig setFileCacheBlockSize(DataSize fileCacheBlockSize)
+    {
+        this.fileCacheBlockSize = fileCacheBlockSize;
+        return this;
+    }
 }
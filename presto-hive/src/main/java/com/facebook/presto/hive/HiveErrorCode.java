@@ -41,7 +41,8 @@ public enum HiveErrorCode
     HIVE_SERDE_NOT_FOUND(0x0100_0012),
     HIVE_UNSUPPORTED_FORMAT(0x0100_0013),
     HIVE_PARTITION_READ_ONLY(0x0100_00014),
-    HIVE_TOO_MANY_OPEN_PARTITIONS(0x0000_0015);
+    HIVE_TOO_MANY_OPEN_PARTITIONS(0x0000_0015),
+    HIVE_INVALID_BUCKET_FILES(0x0100_0016);
 
     private final ErrorCode errorCode;
 
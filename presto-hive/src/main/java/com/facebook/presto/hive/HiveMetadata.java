@@ -35,6 +35,8 @@ import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -52,7 +54,12 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.metastore.api.BooleanColumnStatsData;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsData;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
+import org.apache.hadoop.hive.metastore.api.DoubleColumnStatsData;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.LongColumnStatsData;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
 import org.apache.hadoop.hive.metastore.api.PrincipalType;
@@ -73,6 +80,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
@@ -110,6 +118,7 @@ import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.StandardErrorCode.PERMISSION_DENIED;
 import static com.facebook.presto.spi.StandardErrorCode.USER_ERROR;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -121,12 +130,15 @@ import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
+import static org.apache.hadoop.hive.common.StatsSetupConst.ROW_COUNT;
 import static org.apache.hadoop.hive.serde.serdeConstants.STRING_TYPE_NAME;
 
 public class HiveMetadata
         implements ConnectorMetadata
 {
     private static final Logger log = Logger.get(HiveMetadata.class);
+    // the row count of more partitions is extrapolated from a sample of this size
+    private static final int PARTITION_STATISTICS_SAMPLE_SIZE = 100;
     private static final int PARTITION_COMMIT_BATCH_SIZE = 8;
 
     private final String connectorId;
@@ -288,6 +300,166 @@ public class HiveMetadata
         return new ConnectorTableMetadata(tableName, columns.build(), properties.build(), table.get().getOwner(), sampled);
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        SchemaTableName tableName = schemaTableName(tableHandle);
+        Optional<Table> table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName());
+        if (!table.isPresent()) {
+            throw new TableNotFoundException(tableName);
+        }
+
+        // Hive only keeps column statistics for each partition, which are too expensive to merge during planning
+        if (!table.get().getPartitionKeys().isEmpty()) {
+            Optional<List<String>> partitionNames = metastore.getPartitionNames(tableName.getSchemaName(), tableName.getTableName());
+            if (!partitionNames.isPresent()) {
+                return TableStatistics.empty();
+            }
+            return new TableStatistics(getPartitionsRowCount(tableName, partitionNames.get()), ImmutableMap.of());
+        }
+
+        OptionalLong rowCount = getRowCount(table.get().getParameters());
+        Map<String, ColumnStatisticsObj> hiveColumnStatistics;
+        try {
+            hiveColumnStatistics = metastore.getTableColumnStatistics(tableName.getSchemaName(), tableName.getTableName()).orElse(ImmutableMap.of());
+        }
+        catch (PrestoException e) {
+            // statistics are only used to improve the plan, so they must not fail the query
+            log.warn(e, "Failed to load column statistics for %s", tableName);
+            hiveColumnStatistics = ImmutableMap.of();
+        }
+
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (HiveColumnHandle columnHandle : hiveColumnHandles(connectorId, table.get())) {
+            ColumnStatisticsObj statistics = hiveColumnStatistics.get(columnHandle.getName());
+            if (statistics != null) {
+                columnStatistics.put(columnHandle, toColumnStatistics(columnHandle, statistics.getStatsData(), rowCount));
+            }
+        }
+        return new TableStatistics(rowCount, columnStatistics.build());
+    }
+
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle layoutHandle)
+    {
+        HiveTableLayoutHandle hiveLayoutHandle = checkType(layoutHandle, HiveTableLayoutHandle.class, "layoutHandle");
+        if (!hiveLayoutHandle.getPartitions().isPresent()) {
+            return getTableStatistics(session, tableHandle);
+        }
+
+        List<String> partitionNames = hiveLayoutHandle.getPartitions().get().stream()
+                .map(HivePartition::getPartitionId)
+                .collect(toList());
+        if (partitionNames.contains(HivePartition.UNPARTITIONED_ID)) {
+            return getTableStatistics(session, tableHandle);
+        }
+
+        // the statistics of the partitions that remain after pruning
+        return new TableStatistics(getPartitionsRowCount(schemaTableName(tableHandle), partitionNames), ImmutableMap.of());
+    }
+
+    private OptionalLong getPartitionsRowCount(SchemaTableName tableName, List<String> partitionNames)
+    {
+        if (partitionNames.isEmpty()) {
+            return OptionalLong.of(0);
+        }
+
+        // loading every partition during planning is too expensive, so the row count is extrapolated from evenly spaced partitions
+        List<String> sample = partitionNames;
+        if (partitionNames.size() > PARTITION_STATISTICS_SAMPLE_SIZE) {
+            ImmutableList.Builder<String> builder = ImmutableList.builder();
+            for (int i = 0; i < PARTITION_STATISTICS_SAMPLE_SIZE; i++) {
+                builder.add(partitionNames.get((int) ((long) i * partitionNames.size() / PARTITION_STATISTICS_SAMPLE_SIZE)));
+            }
+            sample = builder.build();
+        }
+
+        Optional<Map<String, Partition>> partitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), sample);
+        if (!partitions.isPresent() || partitions.get().isEmpty()) {
+            return OptionalLong.empty();
+        }
+
+        long rowCount = 0;
+        for (Partition partition : partitions.get().values()) {
+            // a single partition without statistics makes the total meaningless
+            OptionalLong partitionRowCount = getRowCount(partition.getParameters());
+            if (!partitionRowCount.isPresent()) {
+                return OptionalLong.empty();
+            }
+            rowCount += partitionRowCount.getAsLong();
+        }
+        return OptionalLong.of(Math.round((double) rowCount * partitionNames.size() / partitions.get().size()));
+    }
+
+    private static OptionalLong getRowCount(Map<String, String> parameters)
+    {
+        if (parameters == null) {
+            return OptionalLong.empty();
+        }
+        String value = parameters.get(ROW_COUNT);
+        if (value == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            long rowCount = Long.parseLong(value);
+            // Hive records -1 when the statistics have not been computed
+            return rowCount < 0 ? OptionalLong.empty() : OptionalLong.of(rowCount);
+        }
+        catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static ColumnStatistics toColumnStatistics(HiveColumnHandle columnHandle, ColumnStatisticsData statistics, OptionalLong rowCount)
+    {
+        OptionalLong distinctValuesCount = OptionalLong.empty();
+        OptionalLong nullsCount = OptionalLong.empty();
+        Optional<Object> min = Optional.empty();
+        Optional<Object> max = Optional.empty();
+
+        if (statistics.isSetLongStats()) {
+            LongColumnStatsData longStatistics = statistics.getLongStats();
+            distinctValuesCount = OptionalLong.of(longStatistics.getNumDVs());
+            nullsCount = OptionalLong.of(longStatistics.getNumNulls());
+            if (columnHandle.getTypeSignature().equals(BIGINT.getTypeSignature()) && longStatistics.isSetLowValue() && longStatistics.isSetHighValue()) {
+                min = Optional.of(longStatistics.getLowValue());
+                max = Optional.of(longStatistics.getHighValue());
+            }
+        }
+        else if (statistics.isSetDoubleStats()) {
+            DoubleColumnStatsData doubleStatistics = statistics.getDoubleStats();
+            distinctValuesCount = OptionalLong.of(doubleStatistics.getNumDVs());
+            nullsCount = OptionalLong.of(doubleStatistics.getNumNulls());
+            if (columnHandle.getTypeSignature().equals(DOUBLE.getTypeSignature()) && doubleStatistics.isSetLowValue() && doubleStatistics.isSetHighValue()) {
+                min = Optional.of(doubleStatistics.getLowValue());
+                max = Optional.of(doubleStatistics.getHighValue());
+            }
+        }
+        else if (statistics.isSetStringStats()) {
+            distinctValuesCount = OptionalLong.of(statistics.getStringStats().getNumDVs());
+            nullsCount = OptionalLong.of(statistics.getStringStats().getNumNulls());
+        }
+        else if (statistics.isSetBooleanStats()) {
+            BooleanColumnStatsData booleanStatistics = statistics.getBooleanStats();
+            distinctValuesCount = OptionalLong.of((booleanStatistics.getNumTrues() > 0 ? 1 : 0) + (booleanStatistics.getNumFalses() > 0 ? 1 : 0));
+            nullsCount = OptionalLong.of(booleanStatistics.getNumNulls());
+        }
+        else if (statistics.isSetBinaryStats()) {
+            nullsCount = OptionalLong.of(statistics.getBinaryStats().getNumNulls());
+        }
+
+        // the metastore only estimates the number of distinct values, so the estimate can exceed the row count
+        if (distinctValuesCount.isPresent() && rowCount.isPresent()) {
+            distinctValuesCount = OptionalLong.of(Math.min(distinctValuesCount.getAsLong(), rowCount.getAsLong()));
+        }
+
+        OptionalDouble nullsFraction = OptionalDouble.empty();
+        if (nullsCount.isPresent() && rowCount.isPresent() && rowCount.getAsLong() > 0) {
+            nullsFraction = OptionalDouble.of(Math.min((double) nullsCount.getAsLong() / rowCount.getAsLong(), 1.0));
+        }
+        return new ColumnStatistics(distinctValuesCount, nullsFraction, min, max);
+    }
+
     @Override
     public List<SchemaTableName> listTables(ConnectorSession session, String schemaNameOrNull)
     {
@@ -1242,9 +1414,23 @@ public class HiveMetadata
 
         HivePartitionResult hivePartitionResult = partitionManager.getPartitions(session, metastore, tableHandle, constraint.getSummary());
 
-        return ImmutableList.of(new ConnectorTableLayoutResult(
+        ImmutableList.Builder<ConnectorTableLayoutResult> layouts = ImmutableList.builder();
+        layouts.add(new ConnectorTableLayoutResult(
                 getTableLayout(session, new HiveTableLayoutHandle(handle.getClientId(), hivePartitionResult.getPartitions(), hivePartitionResult.getEnforcedConstraint())),
                 hivePartitionResult.getUnenforcedConstraint()));
+
+        // Reading every bucket file as a single split is less parallel, so this layout is offered
+        // after the default one and is only picked when the plan makes use of its partitioning
+        if (hivePartitionResult.getPartitioningColumns().isPresent()) {
+            layouts.add(new ConnectorTableLayoutResult(
+                    getTableLayout(session, new HiveTableLayoutHandle(
+                            handle.getClientId(),
+                            hivePartitionResult.getPartitions(),
+                            hivePartitionResult.getEnforcedConstraint(),
+                            hivePartitionResult.getPartitioningColumns())),
+                    hivePartitionResult.getUnenforcedConstraint()));
+        }
+        return layouts.build();
     }
 
     @Override
@@ -1259,7 +1445,9 @@ public class HiveMetadata
         if (!partitionDomains.isEmpty()) {
             predicate = TupleDomain.columnWiseUnion(partitionDomains);
         }
-        return new ConnectorTableLayout(hiveLayoutHandle, Optional.empty(), predicate, Optional.empty(), Optional.of(partitionDomains), ImmutableList.of());
+        Optional<Set<ColumnHandle>> partitioningColumns = hiveLayoutHandle.getPartitioningColumns()
+                .map(columns -> ImmutableSet.<ColumnHandle>copyOf(columns));
+        return new ConnectorTableLayout(hiveLayoutHandle, Optional.empty(), predicate, partitioningColumns, Optional.of(partitionDomains), ImmutableList.of());
     }
 
     @Override
@@ -14,8 +14,11 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.hive.metastore.HiveMetastore;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.spi.ConnectorPageSink;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PageIndexer;
 import com.facebook.presto.spi.PageIndexerFactory;
 import com.facebook.presto.spi.PrestoException;
@@ -26,11 +29,13 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
@@ -40,6 +45,8 @@ import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
 import org.apache.hadoop.hive.metastore.api.Table;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
 import org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.serde2.SerDeException;
 import org.apache.hadoop.hive.serde2.Serializer;
 import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
@@ -67,6 +74,12 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_PATH_ALREADY_EXISTS;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_TOO_MANY_OPEN_PARTITIONS;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_ERROR;
+import static com.facebook.presto.hive.HiveType.HIVE_BINARY;
+import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
+import static com.facebook.presto.hive.HiveType.HIVE_DATE;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
 import static com.facebook.presto.hive.HiveWriteUtils.getField;
 import static com.facebook.presto.hive.HiveWriteUtils.getJavaObjectInspectors;
@@ -75,6 +88,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
 import static java.util.stream.Collectors.toList;
@@ -117,6 +131,7 @@ public class HivePageSink
     private final Table table;
     private final boolean immutablePartitions;
     private final boolean respectTableFormat;
+    private final boolean orcNativeWriterEnabled;
 
     private HiveRecordWriter[] writers = new HiveRecordWriter[0];
 
@@ -136,6 +151,7 @@ public class HivePageSink
             boolean respectTableFormat,
             int maxOpenPartitions,
             boolean immutablePartitions,
+            boolean orcNativeWriterEnabled,
             JsonCodec<PartitionUpdate> partitionUpdateCodec)
     {
         this.schemaName = requireNonNull(schemaName, "schemaName is null");
@@ -158,6 +174,7 @@ public class HivePageSink
         this.respectTableFormat = respectTableFormat;
         this.maxOpenPartitions = maxOpenPartitions;
         this.immutablePartitions = immutablePartitions;
+        this.orcNativeWriterEnabled = orcNativeWriterEnabled;
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
 
         // divide input columns into partition and data columns
@@ -273,8 +290,13 @@ public class HivePageSink
                 writers[writerIndex] = writer;
             }
 
-            buildRow(dataColumnTypes, dataRow, dataBlocks, position);
-            writer.addRow(dataRow);
+            if (writer.isNativeOrcWriter()) {
+                writer.addPosition(dataBlocks, position);
+            }
+            else {
+                buildRow(dataColumnTypes, dataRow, dataBlocks, position);
+                writer.addRow(dataRow);
+            }
         }
     }
 
@@ -395,6 +417,7 @@ public class HivePageSink
                 write.toString(),
                 target.toString(),
                 typeManager,
+                orcNativeWriterEnabled,
                 conf);
     }
 
@@ -455,6 +478,10 @@ public class HivePageSink
 
     private static class HiveRecordWriter
     {
+        private static final String ORC_COMPRESSION_PROPERTY = "orc.compress";
+        // the Presto ORC writer encodes the Hive type of these columns exactly
+        private static final Set<HiveType> NATIVE_ORC_WRITER_TYPES = ImmutableSet.of(HIVE_BOOLEAN, HIVE_LONG, HIVE_DOUBLE, HIVE_STRING, HIVE_BINARY, HIVE_DATE);
+
         private final String partitionName;
         private final boolean isNew;
         private final String fileName;
@@ -468,6 +495,13 @@ public class HivePageSink
         private final List<StructField> structFields;
         private final Object row;
 
+        // set when the file is written with the Presto ORC writer, instead of the Hive serializer
+        private final Path nativeOrcPath;
+        private final OrcWriter nativeOrcWriter;
+        private final PageBuilder nativeOrcPageBuilder;
+        private final int[] nativeOrcInputIndexes;
+        private final JobConf conf;
+
         public HiveRecordWriter(
                 String schemaName,
                 String tableName,
@@ -482,9 +516,11 @@ public class HivePageSink
                 String writePath,
                 String targetPath,
                 TypeManager typeManager,
+                boolean orcNativeWriterEnabled,
                 JobConf conf)
         {
             this.partitionName = partitionName;
+            this.conf = conf;
             this.isNew = isNew;
             this.fileName = fileName;
             this.writePath = writePath;
@@ -534,6 +570,40 @@ public class HivePageSink
 
             fieldCount = fileColumnNames.size();
 
+            Optional<CompressionKind> nativeOrcCompression = Optional.empty();
+            if (orcNativeWriterEnabled && OrcOutputFormat.class.getName().equals(outputFormat) && OrcSerde.class.getName().equals(serDe)) {
+                List<HiveType> fileColumnHiveTypes = toHiveTypes(schema.getProperty(META_TABLE_COLUMN_TYPES, ""));
+                if (NATIVE_ORC_WRITER_TYPES.containsAll(fileColumnHiveTypes)) {
+                    nativeOrcCompression = getNativeOrcCompression(schema);
+                }
+            }
+
+            if (nativeOrcCompression.isPresent()) {
+                serializer = null;
+                recordWriter = null;
+                tableInspector = null;
+                structFields = null;
+                row = null;
+
+                nativeOrcPath = new Path(writePath, fileName);
+                nativeOrcPageBuilder = new PageBuilder(fileColumnTypes);
+                nativeOrcInputIndexes = fileColumnNames.stream()
+                        .mapToInt(inputColumnNames::indexOf)
+                        .toArray();
+                try {
+                    FileSystem fileSystem = nativeOrcPath.getFileSystem(conf);
+                    nativeOrcWriter = new OrcWriter(fileSystem.create(nativeOrcPath, false), fileColumnNames, fileColumnTypes, nativeOrcCompression.get());
+                }
+                catch (IOException e) {
+                    throw new PrestoException(HIVE_WRITER_ERROR, "Error creating ORC file", e);
+                }
+                return;
+            }
+            nativeOrcPath = null;
+            nativeOrcWriter = null;
+            nativeOrcPageBuilder = null;
+            nativeOrcInputIndexes = null;
+
             serializer = initializeSerializer(conf, schema, serDe);
             recordWriter = HiveWriteUtils.createRecordWriter(new Path(writePath, fileName), conf, schema, outputFormat);
 
@@ -547,6 +617,39 @@ public class HivePageSink
             row = tableInspector.create();
         }
 
+        public boolean isNativeOrcWriter()
+        {
+            return nativeOrcWriter != null;
+        }
+
+        public void addPosition(Block[] blocks, int position)
+        {
+            checkState(isNativeOrcWriter(), "Writer does not accept blocks");
+
+            nativeOrcPageBuilder.declarePosition();
+            for (int field = 0; field < fieldCount; field++) {
+                Type type = nativeOrcPageBuilder.getType(field);
+                type.appendTo(blocks[nativeOrcInputIndexes[field]], position, nativeOrcPageBuilder.getBlockBuilder(field));
+            }
+            if (nativeOrcPageBuilder.isFull()) {
+                flushNativeOrcPageBuilder();
+            }
+        }
+
+        private void flushNativeOrcPageBuilder()
+        {
+            if (nativeOrcPageBuilder.isEmpty()) {
+                return;
+            }
+            try {
+                nativeOrcWriter.write(nativeOrcPageBuilder.build());
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_WRITER_ERROR, e);
+            }
+            nativeOrcPageBuilder.reset();
+        }
+
         public void addRow(List<Object> fieldValues)
         {
             checkState(fieldValues.size() == fieldCount, "Invalid row");
@@ -566,6 +669,11 @@ public class HivePageSink
         public void commit()
         {
             try {
+                if (isNativeOrcWriter()) {
+                    flushNativeOrcPageBuilder();
+                    nativeOrcWriter.close();
+                    return;
+                }
                 recordWriter.close(false);
             }
             catch (IOException e) {
@@ -576,6 +684,15 @@ public class HivePageSink
         public void rollback()
         {
             try {
+                if (isNativeOrcWriter()) {
+                    try {
+                        nativeOrcWriter.close();
+                    }
+                    finally {
+                        nativeOrcPath.getFileSystem(conf).delete(nativeOrcPath, false);
+                    }
+                    return;
+                }
                 recordWriter.close(true);
             }
             catch (IOException e) {
@@ -583,6 +700,21 @@ public class HivePageSink
             }
         }
 
+        private static Optional<CompressionKind> getNativeOrcCompression(Properties schema)
+        {
+            // same default as the Hive writer, other codecs are left to the Hive writer
+            String compression = schema.getProperty(ORC_COMPRESSION_PROPERTY, "ZLIB").toUpperCase(ENGLISH);
+            switch (compression) {
+                case "NONE":
+                    return Optional.of(CompressionKind.UNCOMPRESSED);
+                case "ZLIB":
+                    return Optional.of(CompressionKind.ZLIB);
+                case "SNAPPY":
+                    return Optional.of(CompressionKind.SNAPPY);
+            }
+            return Optional.empty();
+        }
+
         public PartitionUpdate getPartitionUpdate()
         {
             return new PartitionUpdate(
@@ -38,6 +38,7 @@ public class HivePageSinkProvider
     private final boolean respectTableFormat;
     private final int maxOpenPartitions;
     private final boolean immutablePartitions;
+    private final boolean orcNativeWriterEnabled;
     private final LocationService locationService;
     private final JsonCodec<PartitionUpdate> partitionUpdateCodec;
 
@@ -58,6 +59,7 @@ public class HivePageSinkProvider
         this.respectTableFormat = config.isRespectTableFormat();
         this.maxOpenPartitions = config.getMaxPartitionsPerWriter();
         this.immutablePartitions = config.isImmutablePartitions();
+        this.orcNativeWriterEnabled = config.isOrcNativeWriterEnabled();
         this.locationService = requireNonNull(locationService, "locationService is null");
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
     }
@@ -94,6 +96,7 @@ public class HivePageSinkProvider
                 respectTableFormat,
                 maxOpenPartitions,
                 immutablePartitions,
+                orcNativeWriterEnabled,
                 partitionUpdateCodec);
     }
 }
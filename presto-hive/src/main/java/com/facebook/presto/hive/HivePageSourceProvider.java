@@ -18,7 +18,10 @@ import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
@@ -31,10 +34,12 @@ import org.joda.time.DateTimeZone;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Objects.requireNonNull;
@@ -69,7 +74,25 @@ public class HivePageSourceProvider
     public ConnectorPageSource createPageSource(ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
     {
         HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+        return createPageSource(session, hiveSplit, columns, hiveSplit.getEffectivePredicate());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
+
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate().intersect(dynamicFilter.transform(HiveColumnHandle::toHiveColumnHandle));
+        if (!partitionMatches(hiveSplit, effectivePredicate)) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+
+        // the file readers use the predicate to skip stripes and row groups that cannot match
+        return createPageSource(session, hiveSplit, columns, effectivePredicate);
+    }
 
+    private ConnectorPageSource createPageSource(ConnectorSession session, HiveSplit hiveSplit, List<ColumnHandle> columns, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
         String clientId = hiveSplit.getClientId();
 
         Path path = new Path(hiveSplit.getPath());
@@ -78,8 +101,6 @@ public class HivePageSourceProvider
 
         Configuration configuration = hdfsEnvironment.getConfiguration(path);
 
-        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate();
-
         Properties schema = hiveSplit.getSchema();
 
         List<HivePartitionKey> partitionKeys = hiveSplit.getPartitionKeys();
@@ -112,6 +133,26 @@ public class HivePageSourceProvider
         throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
     }
 
+    private boolean partitionMatches(HiveSplit split, TupleDomain<HiveColumnHandle> predicate)
+    {
+        if (predicate.isNone()) {
+            return false;
+        }
+
+        Map<HiveColumnHandle, Domain> domains = predicate.getDomains().get();
+        for (HivePartitionKey partitionKey : split.getPartitionKeys()) {
+            for (Map.Entry<HiveColumnHandle, Domain> entry : domains.entrySet()) {
+                if (entry.getKey().isPartitionKey() && entry.getKey().getName().equals(partitionKey.getName())) {
+                    NullableValue value = parsePartitionValue(split.getPartitionName(), partitionKey.getValue(), partitionKey.getHiveType(), hiveStorageTimeZone);
+                    if (!entry.getValue().includesNullableValue(value.getValue())) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
     protected HiveRecordCursor getHiveRecordCursor(
             String clientId,
             ConnectorSession session,
@@ -17,6 +17,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.predicate.TupleDomain;
 
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -33,12 +34,23 @@ public class HivePartitionResult
     private final List<HivePartition> partitions;
     private final TupleDomain<ColumnHandle> unenforcedConstraint;
     private final TupleDomain<ColumnHandle> enforcedConstraint;
+    private final Optional<List<HiveColumnHandle>> partitioningColumns;
 
     public HivePartitionResult(List<HivePartition> partitions, TupleDomain<ColumnHandle> unenforcedConstraint, TupleDomain<ColumnHandle> enforcedConstraint)
+    {
+        this(partitions, unenforcedConstraint, enforcedConstraint, Optional.empty());
+    }
+
+    public HivePartitionResult(
+            List<HivePartition> partitions,
+            TupleDomain<ColumnHandle> unenforcedConstraint,
+            TupleDomain<ColumnHandle> enforcedConstraint,
+            Optional<List<HiveColumnHandle>> partitioningColumns)
     {
         this.partitions = requireNonNull(partitions, "partitions is null");
         this.unenforcedConstraint = requireNonNull(unenforcedConstraint, "unenforcedConstraint is null");
         this.enforcedConstraint = requireNonNull(enforcedConstraint, "enforcedConstraint is null");
+        this.partitioningColumns = requireNonNull(partitioningColumns, "partitioningColumns is null");
     }
 
     public List<HivePartition> getPartitions()
@@ -55,4 +67,12 @@ public class HivePartitionResult
     {
         return enforcedConstraint;
     }
+
+    /**
+     * Columns on which the partitions are split, present when each bucket of a bucketed table is read as a single split.
+     */
+    public Optional<List<HiveColumnHandle>> getPartitioningColumns()
+    {
+        return partitioningColumns;
+    }
 }
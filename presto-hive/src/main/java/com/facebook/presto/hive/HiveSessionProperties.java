@@ -28,12 +28,14 @@ import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 public final class HiveSessionProperties
 {
     private static final String FORCE_LOCAL_SCHEDULING = "force_local_scheduling";
+    private static final String BUCKET_EXECUTION_ENABLED = "bucket_execution_enabled";
     private static final String OPTIMIZED_READER_ENABLED = "optimized_reader_enabled";
     private static final String ORC_MAX_MERGE_DISTANCE = "orc_max_merge_distance";
     private static final String ORC_MAX_BUFFER_SIZE = "orc_max_buffer_size";
     private static final String ORC_STREAM_BUFFER_SIZE = "orc_stream_buffer_size";
     private static final String PARQUET_PREDICATE_PUSHDOWN_ENABLED = "parquet_predicate_pushdown_enabled";
     private static final String PARQUET_OPTIMIZED_READER_ENABLED = "parquet_optimized_reader_enabled";
+    private static final String RCFILE_OPTIMIZED_READER_ENABLED = "rcfile_optimized_reader_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -46,6 +48,11 @@ public final class HiveSessionProperties
                         "Only schedule splits on workers colocated with data node",
                         config.isForceLocalScheduling(),
                         false),
+                booleanSessionProperty(
+                        BUCKET_EXECUTION_ENABLED,
+                        "Read each bucket of bucketed tables as a single split",
+                        config.isBucketExecutionEnabled(),
+                        false),
                 booleanSessionProperty(
                         OPTIMIZED_READER_ENABLED,
                         "Enable optimized readers",
@@ -75,6 +82,11 @@ public final class HiveSessionProperties
                         PARQUET_PREDICATE_PUSHDOWN_ENABLED,
                         "Experimental: Parquet: Enable predicate pushdown for Parquet",
                         config.isParquetPredicatePushdownEnabled(),
+                        false),
+                booleanSessionProperty(
+                        RCFILE_OPTIMIZED_READER_ENABLED,
+                        "Experimental: RCFile: Enable optimized reader",
+                        config.isRcfileOptimizedReaderEnabled(),
                         false));
     }
 
@@ -88,6 +100,11 @@ public final class HiveSessionProperties
         return session.getProperty(FORCE_LOCAL_SCHEDULING, Boolean.class);
     }
 
+    public static boolean isBucketExecutionEnabled(ConnectorSession session)
+    {
+        return session.getProperty(BUCKET_EXECUTION_ENABLED, Boolean.class);
+    }
+
     public static boolean isOptimizedReaderEnabled(ConnectorSession session)
     {
         return session.getProperty(OPTIMIZED_READER_ENABLED, Boolean.class);
@@ -98,6 +115,11 @@ public final class HiveSessionProperties
         return session.getProperty(PARQUET_OPTIMIZED_READER_ENABLED, Boolean.class);
     }
 
+    public static boolean isRcfileOptimizedReaderEnabled(ConnectorSession session)
+    {
+        return session.getProperty(RCFILE_OPTIMIZED_READER_ENABLED, Boolean.class);
+    }
+
     public static DataSize getOrcMaxMergeDistance(ConnectorSession session)
     {
         return session.getProperty(ORC_MAX_MERGE_DISTANCE, DataSize.class);
@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+public class HiveSplitLoaderStats
+{
+    private final TimeStat partitionBatchLoad = new TimeStat();
+    private final CounterStat partitionBatchLoadFailures = new CounterStat();
+    private final TimeStat timeToFirstSplit = new TimeStat();
+    private final TimeStat splitLoading = new TimeStat();
+
+    public TimeStat.BlockTimer timePartitionBatchLoad()
+    {
+        return partitionBatchLoad.time();
+    }
+
+    public void partitionBatchLoadFailed()
+    {
+        partitionBatchLoadFailures.update(1);
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getPartitionBatchLoad()
+    {
+        return partitionBatchLoad;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getPartitionBatchLoadFailures()
+    {
+        return partitionBatchLoadFailures;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getTimeToFirstSplit()
+    {
+        return timeToFirstSplit;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getSplitLoading()
+    {
+        return splitLoading;
+    }
+}
@@ -29,6 +29,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import io.airlift.concurrent.BoundedExecutor;
+import io.airlift.stats.TimeStat;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.hive.metastore.ProtectMode;
 import org.apache.hadoop.hive.metastore.api.FieldSchema;
@@ -51,6 +52,7 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMA
 import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
 import static com.facebook.presto.hive.HiveUtil.createPartitionName;
 import static com.facebook.presto.hive.UnpartitionedPartition.UNPARTITIONED_PARTITION;
+import static com.facebook.presto.hive.util.PrefetchingIterator.prefetch;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.SERVER_SHUTTING_DOWN;
@@ -82,6 +84,9 @@ public class HiveSplitManager
     private final DataSize maxInitialSplitSize;
     private final int maxInitialSplits;
     private final boolean recursiveDfsWalkerEnabled;
+    private final int splitLoaderConcurrency;
+    private final int partitionBatchPrefetchCount;
+    private final HiveSplitLoaderStats splitLoaderStats;
 
     @Inject
     public HiveSplitManager(
@@ -91,6 +96,7 @@ public class HiveSplitManager
             NamenodeStats namenodeStats,
             HdfsEnvironment hdfsEnvironment,
             DirectoryLister directoryLister,
+            HiveSplitLoaderStats splitLoaderStats,
             @ForHiveClient ExecutorService executorService)
     {
         this(connectorId,
@@ -105,8 +111,10 @@ public class HiveSplitManager
                 hiveClientConfig.getMaxSplitSize(),
                 hiveClientConfig.getMaxInitialSplitSize(),
                 hiveClientConfig.getMaxInitialSplits(),
-                hiveClientConfig.getRecursiveDirWalkerEnabled()
-        );
+                hiveClientConfig.getRecursiveDirWalkerEnabled(),
+                hiveClientConfig.getSplitLoaderConcurrency(),
+                hiveClientConfig.getPartitionBatchPrefetchCount(),
+                splitLoaderStats);
     }
 
     public HiveSplitManager(
@@ -122,7 +130,10 @@ public class HiveSplitManager
             DataSize maxSplitSize,
             DataSize maxInitialSplitSize,
             int maxInitialSplits,
-            boolean recursiveDfsWalkerEnabled)
+            boolean recursiveDfsWalkerEnabled,
+            int splitLoaderConcurrency,
+            int partitionBatchPrefetchCount,
+            HiveSplitLoaderStats splitLoaderStats)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null").toString();
         this.metastore = requireNonNull(metastore, "metastore is null");
@@ -138,6 +149,11 @@ public class HiveSplitManager
         this.maxInitialSplitSize = requireNonNull(maxInitialSplitSize, "maxInitialSplitSize is null");
         this.maxInitialSplits = maxInitialSplits;
         this.recursiveDfsWalkerEnabled = recursiveDfsWalkerEnabled;
+        checkArgument(splitLoaderConcurrency >= 1, "splitLoaderConcurrency must be at least 1");
+        this.splitLoaderConcurrency = splitLoaderConcurrency;
+        checkArgument(partitionBatchPrefetchCount >= 0, "partitionBatchPrefetchCount is negative");
+        this.partitionBatchPrefetchCount = partitionBatchPrefetchCount;
+        this.splitLoaderStats = requireNonNull(splitLoaderStats, "splitLoaderStats is null");
     }
 
     @Override
@@ -168,16 +184,18 @@ public class HiveSplitManager
                 table.get(),
                 hivePartitions,
                 bucket,
+                layout.getPartitioningColumns().isPresent(),
                 maxSplitSize,
                 session,
                 hdfsEnvironment,
                 namenodeStats,
                 directoryLister,
                 executor,
-                maxPartitionBatchSize,
+                splitLoaderConcurrency,
                 maxInitialSplitSize,
                 maxInitialSplits,
-                recursiveDfsWalkerEnabled);
+                recursiveDfsWalkerEnabled,
+                splitLoaderStats);
 
         HiveSplitSource splitSource = new HiveSplitSource(connectorId, maxOutstandingSplits, hiveSplitLoader, executor);
         hiveSplitLoader.start(splitSource);
@@ -199,7 +217,21 @@ public class HiveSplitManager
         }
 
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
-        Iterable<List<HivePartitionMetadata>> partitionBatches = transform(partitionNameBatches, partitionBatch -> {
+        Iterable<List<HivePartitionMetadata>> partitionBatches;
+        if (partitionBatchPrefetchCount > 0) {
+            // fetch the next batches from the metastore while the splits of the current batch are loaded
+            partitionBatches = prefetch(partitionNameBatches, partitionBatch -> loadPartitionBatch(table, tableName, partitionBatch), executor, partitionBatchPrefetchCount);
+        }
+        else {
+            partitionBatches = transform(partitionNameBatches, partitionBatch -> loadPartitionBatch(table, tableName, partitionBatch));
+        }
+        return concat(partitionBatches);
+    }
+
+    private List<HivePartitionMetadata> loadPartitionBatch(Table table, SchemaTableName tableName, List<HivePartition> partitionBatch)
+    {
+        Map<String, Partition> partitions;
+        try (TimeStat.BlockTimer ignored = splitLoaderStats.timePartitionBatchLoad()) {
             Optional<Map<String, Partition>> batch = metastore.getPartitionsByNames(
                     tableName.getSchemaName(),
                     tableName.getTableName(),
@@ -207,62 +239,65 @@ public class HiveSplitManager
             if (!batch.isPresent()) {
                 throw new PrestoException(HIVE_METASTORE_ERROR, "Partition metadata not available");
             }
-            Map<String, Partition> partitions = batch.get();
-            if (partitionBatch.size() != partitions.size()) {
-                throw new PrestoException(INTERNAL_ERROR, format("Expected %s partitions but found %s", partitionBatch.size(), partitions.size()));
-            }
+            partitions = batch.get();
+        }
+        catch (RuntimeException e) {
+            splitLoaderStats.partitionBatchLoadFailed();
+            throw e;
+        }
+        if (partitionBatch.size() != partitions.size()) {
+            throw new PrestoException(INTERNAL_ERROR, format("Expected %s partitions but found %s", partitionBatch.size(), partitions.size()));
+        }
 
-            ImmutableList.Builder<HivePartitionMetadata> results = ImmutableList.builder();
-            for (HivePartition hivePartition : partitionBatch) {
-                Partition partition = partitions.get(hivePartition.getPartitionId());
-                if (partition == null) {
-                    throw new PrestoException(INTERNAL_ERROR, "Partition not loaded: " + hivePartition);
-                }
+        ImmutableList.Builder<HivePartitionMetadata> results = ImmutableList.builder();
+        for (HivePartition hivePartition : partitionBatch) {
+            Partition partition = partitions.get(hivePartition.getPartitionId());
+            if (partition == null) {
+                throw new PrestoException(INTERNAL_ERROR, "Partition not loaded: " + hivePartition);
+            }
 
-                // verify all partition is online
-                String protectMode = partition.getParameters().get(ProtectMode.PARAMETER_NAME);
-                String partName = createPartitionName(partition, table);
-                if (protectMode != null && getProtectModeFromString(protectMode).offline) {
-                    throw new PartitionOfflineException(tableName, partName);
-                }
-                String prestoOffline = partition.getParameters().get(PRESTO_OFFLINE);
-                if (!isNullOrEmpty(prestoOffline)) {
-                    throw new PartitionOfflineException(tableName, partName, format("Partition '%s' is offline for Presto: %s", partName, prestoOffline));
-                }
+            // verify all partition is online
+            String protectMode = partition.getParameters().get(ProtectMode.PARAMETER_NAME);
+            String partName = createPartitionName(partition, table);
+            if (protectMode != null && getProtectModeFromString(protectMode).offline) {
+                throw new PartitionOfflineException(tableName, partName);
+            }
+            String prestoOffline = partition.getParameters().get(PRESTO_OFFLINE);
+            if (!isNullOrEmpty(prestoOffline)) {
+                throw new PartitionOfflineException(tableName, partName, format("Partition '%s' is offline for Presto: %s", partName, prestoOffline));
+            }
 
-                // Verify that the partition schema matches the table schema.
-                // Either adding or dropping columns from the end of the table
-                // without modifying existing partitions is allowed, but every
-                // column that exists in both the table and partition must have
-                // the same type.
-                List<FieldSchema> tableColumns = table.getSd().getCols();
-                List<FieldSchema> partitionColumns = partition.getSd().getCols();
-                if ((tableColumns == null) || (partitionColumns == null)) {
-                    throw new PrestoException(HIVE_INVALID_METADATA, format("Table '%s' or partition '%s' has null columns", tableName, partName));
-                }
-                for (int i = 0; i < min(partitionColumns.size(), tableColumns.size()); i++) {
-                    String tableType = tableColumns.get(i).getType();
-                    String partitionType = partitionColumns.get(i).getType();
-                    if (!tableType.equals(partitionType)) {
-                        throw new PrestoException(HIVE_PARTITION_SCHEMA_MISMATCH, format("" +
-                                        "There is a mismatch between the table and partition schemas. " +
-                                        "The column '%s' in table '%s' is declared as type '%s', " +
-                                        "but partition '%s' declared column '%s' as type '%s'.",
-                                tableColumns.get(i).getName(),
-                                tableName,
-                                tableType,
-                                partName,
-                                partitionColumns.get(i).getName(),
-                                partitionType));
-                    }
+            // Verify that the partition schema matches the table schema.
+            // Either adding or dropping columns from the end of the table
+            // without modifying existing partitions is allowed, but every
+            // column that exists in both the table and partition must have
+            // the same type.
+            List<FieldSchema> tableColumns = table.getSd().getCols();
+            List<FieldSchema> partitionColumns = partition.getSd().getCols();
+            if ((tableColumns == null) || (partitionColumns == null)) {
+                throw new PrestoException(HIVE_INVALID_METADATA, format("Table '%s' or partition '%s' has null columns", tableName, partName));
+            }
+            for (int i = 0; i < min(partitionColumns.size(), tableColumns.size()); i++) {
+                String tableType = tableColumns.get(i).getType();
+                String partitionType = partitionColumns.get(i).getType();
+                if (!tableType.equals(partitionType)) {
+                    throw new PrestoException(HIVE_PARTITION_SCHEMA_MISMATCH, format("" +
+                                    "There is a mismatch between the table and partition schemas. " +
+                                    "The column '%s' in table '%s' is declared as type '%s', " +
+                                    "but partition '%s' declared column '%s' as type '%s'.",
+                            tableColumns.get(i).getName(),
+                            tableName,
+                            tableType,
+                            partName,
+                            partitionColumns.get(i).getName(),
+                            partitionType));
                 }
-
-                results.add(new HivePartitionMetadata(hivePartition, partition));
             }
 
-            return results.build();
-        });
-        return concat(partitionBatches);
+            results.add(new HivePartitionMetadata(hivePartition, partition));
+        }
+
+        return results.build();
     }
 
     /**
@@ -32,20 +32,31 @@ public final class HiveTableLayoutHandle
     private final String clientId;
     private final List<HivePartition> partitions;
     private final TupleDomain<ColumnHandle> promisedPredicate;
+    private final Optional<List<HiveColumnHandle>> partitioningColumns;
 
     @JsonCreator
-    public HiveTableLayoutHandle(@JsonProperty("clientId") String clientId, @JsonProperty("promisedPredicate") TupleDomain<ColumnHandle> promisedPredicate)
+    public HiveTableLayoutHandle(
+            @JsonProperty("clientId") String clientId,
+            @JsonProperty("promisedPredicate") TupleDomain<ColumnHandle> promisedPredicate,
+            @JsonProperty("partitioningColumns") Optional<List<HiveColumnHandle>> partitioningColumns)
     {
         this.clientId = requireNonNull(clientId, "clientId is null");
         this.partitions = null;
         this.promisedPredicate = requireNonNull(promisedPredicate, "promisedPredicate is null");
+        this.partitioningColumns = requireNonNull(partitioningColumns, "partitioningColumns is null");
     }
 
     public HiveTableLayoutHandle(String clientId, List<HivePartition> partitions, TupleDomain<ColumnHandle> promisedPredicate)
+    {
+        this(clientId, partitions, promisedPredicate, Optional.empty());
+    }
+
+    public HiveTableLayoutHandle(String clientId, List<HivePartition> partitions, TupleDomain<ColumnHandle> promisedPredicate, Optional<List<HiveColumnHandle>> partitioningColumns)
     {
         this.clientId = requireNonNull(clientId, "clientId is null");
         this.partitions = requireNonNull(partitions, "partitions is null");
         this.promisedPredicate = requireNonNull(promisedPredicate, "promisedPredicate is null");
+        this.partitioningColumns = requireNonNull(partitioningColumns, "partitioningColumns is null");
     }
 
     @JsonProperty
@@ -71,6 +82,16 @@ public final class HiveTableLayoutHandle
         return promisedPredicate;
     }
 
+    /**
+     * @return the columns on which the splits are partitioned, or Optional.empty() if
+     * the splits are partitioned arbitrarily
+     */
+    @JsonProperty
+    public Optional<List<HiveColumnHandle>> getPartitioningColumns()
+    {
+        return partitioningColumns;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -82,13 +103,14 @@ public final class HiveTableLayoutHandle
         }
         HiveTableLayoutHandle that = (HiveTableLayoutHandle) o;
         return Objects.equals(clientId, that.clientId) &&
-                Objects.equals(partitions, that.partitions);
+                Objects.equals(partitions, that.partitions) &&
+                Objects.equals(partitioningColumns, that.partitioningColumns);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(clientId, partitions);
+        return Objects.hash(clientId, partitions, partitioningColumns);
     }
 
     @Override
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.google.common.primitives.Ints;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.PositionedReadable;
+import org.apache.hadoop.fs.Seekable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Input stream over a remote file that reads through a {@link FileRangeCache}.
+ */
+class CachingInputStream
+        extends InputStream
+        implements Seekable, PositionedReadable
+{
+    private final FileRangeCache cache;
+    private final FSDataInputStream remote;
+    private final String path;
+    private final long modificationTime;
+    private final long fileSize;
+    private final int blockSize;
+
+    private long position;
+
+    public CachingInputStream(FileRangeCache cache, FSDataInputStream remote, String path, long modificationTime, long fileSize)
+    {
+        this.cache = requireNonNull(cache, "cache is null");
+        this.remote = requireNonNull(remote, "remote is null");
+        this.path = requireNonNull(path, "path is null");
+        this.modificationTime = modificationTime;
+        this.fileSize = fileSize;
+        this.blockSize = cache.getBlockSize();
+    }
+
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        checkArgument(position >= 0, "position is negative");
+        if (position >= fileSize) {
+            return -1;
+        }
+        length = Ints.checkedCast(Math.min(length, fileSize - position));
+
+        int bytesRead = 0;
+        while (bytesRead < length) {
+            long current = position + bytesRead;
+            long blockOffset = current - (current % blockSize);
+            int blockLength = Ints.checkedCast(Math.min(blockSize, fileSize - blockOffset));
+            int positionInBlock = (int) (current - blockOffset);
+            int chunkLength = Math.min(length - bytesRead, blockLength - positionInBlock);
+
+            cache.readBlock(remote, path, modificationTime, blockOffset, blockLength, positionInBlock, buffer, offset + bytesRead, chunkLength);
+            bytesRead += chunkLength;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        if (position + length > fileSize) {
+            throw new EOFException("Reading past end of " + path);
+        }
+        read(position, buffer, offset, length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        byte[] buffer = new byte[1];
+        if (read(buffer, 0, 1) <= 0) {
+            return -1;
+        }
+        return buffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        if (length == 0) {
+            return 0;
+        }
+        int bytesRead = read(position, buffer, offset, length);
+        if (bytesRead > 0) {
+            position += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n)
+            throws IOException
+    {
+        long skipped = Math.max(0, Math.min(n, fileSize - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available()
+            throws IOException
+    {
+        return Ints.saturatedCast(fileSize - position);
+    }
+
+    @Override
+    public void seek(long position)
+            throws IOException
+    {
+        if (position < 0 || position > fileSize) {
+            throw new EOFException("Cannot seek to " + position + " in " + path);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPos()
+            throws IOException
+    {
+        return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPosition)
+            throws IOException
+    {
+        return false;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        remote.close();
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveConnectorId;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.weakref.jmx.Flatten;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Worker local read-through cache for ranges of remote files.
+ * <p>
+ * Files are split into aligned blocks of a fixed size. A block is read from
+ * the remote file system on the first access, written to a file in the local
+ * cache directory and read from there for subsequent reads. Concurrent misses
+ * of a block are fetched once. Blocks are not memory mapped, so the disk space
+ * and address space of an evicted block are released when it is removed instead
+ * of when the mapping is collected. Blocks are identified by the path and the
+ * modification time of the file, so a file that is replaced is never served
+ * from stale blocks. The least recently used blocks are evicted once the total
+ * size of the cached blocks exceeds the maximum size.
+ */
+public class FileRangeCache
+{
+    private static final Logger log = Logger.get(FileRangeCache.class);
+
+    private static final String BLOCK_FILE_SUFFIX = ".block";
+
+    private final boolean enabled;
+    private final File directory;
+    private final long maxSize;
+    private final int blockSize;
+    private final Cache<BlockKey, CachedBlock> cache;
+    private final ConcurrentMap<BlockKey, SettableFuture<byte[]>> loadingBlocks = new ConcurrentHashMap<>();
+    private final AtomicLong nextBlockFileId = new AtomicLong();
+    private final FileRangeCacheStats stats = new FileRangeCacheStats();
+
+    @Inject
+    public FileRangeCache(HiveConnectorId connectorId, HiveClientConfig config)
+    {
+        // each catalog owns a separate directory, since the contents are deleted on startup
+        this(config.isFileCacheEnabled(),
+                new File(config.getFileCacheDirectory(), connectorId.toString()),
+                config.getFileCacheMaxSize(),
+                config.getFileCacheBlockSize());
+    }
+
+    public FileRangeCache(boolean enabled, File directory, DataSize maxSize, DataSize blockSize)
+    {
+        this.enabled = enabled;
+        this.directory = requireNonNull(directory, "directory is null");
+        this.maxSize = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.blockSize = Ints.checkedCast(requireNonNull(blockSize, "blockSize is null").toBytes());
+        checkArgument(this.blockSize > 0, "blockSize must be greater than zero");
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(this.maxSize)
+                .weigher((BlockKey key, CachedBlock block) -> block.getSize())
+                .removalListener(this::blockRemoved)
+                .build();
+    }
+
+    public static FileRangeCache disabledFileRangeCache()
+    {
+        return new FileRangeCache(false, new File("."), new DataSize(0, BYTE), new DataSize(1, MEGABYTE));
+    }
+
+    @PostConstruct
+    public void start()
+            throws IOException
+    {
+        if (!enabled) {
+            return;
+        }
+        if (!directory.mkdirs() && !directory.isDirectory()) {
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, "Failed creating file cache directory: " + directory);
+        }
+        // blocks left behind by a previous process are not tracked by the cache
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(BLOCK_FILE_SUFFIX));
+        if (files == null) {
+            throw new IOException("Failed to list directory: " + directory);
+        }
+        for (File file : files) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        cache.invalidateAll();
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Opens the file for reading. When the cache is enabled, positioned reads of
+     * the returned stream are served from the cache.
+     */
+    public FSDataInputStream open(FileSystem fileSystem, FileStatus fileStatus)
+            throws IOException
+    {
+        FSDataInputStream inputStream = fileSystem.open(fileStatus.getPath());
+        if (!enabled) {
+            return inputStream;
+        }
+        return new FSDataInputStream(new CachingInputStream(this, inputStream, fileStatus.getPath().toString(), fileStatus.getModificationTime(), fileStatus.getLen()));
+    }
+
+    int getBlockSize()
+    {
+        return blockSize;
+    }
+
+    /**
+     * Copies {@code length} bytes of the block starting at {@code blockOffset} into
+     * the buffer, reading the whole block from the remote stream if it is not cached.
+     * Concurrent misses of the same block wait for a single remote read.
+     */
+    void readBlock(FSDataInputStream remote, String path, long modificationTime, long blockOffset, int blockLength, int positionInBlock, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        BlockKey key = new BlockKey(path, modificationTime, blockOffset);
+        if (readCachedBlock(key, positionInBlock, buffer, offset, length)) {
+            stats.hit(length);
+            return;
+        }
+
+        SettableFuture<byte[]> load = SettableFuture.create();
+        SettableFuture<byte[]> existingLoad = loadingBlocks.putIfAbsent(key, load);
+        if (existingLoad != null) {
+            byte[] data = getLoadedBlock(existingLoad);
+            if (data != null) {
+                System.arraycopy(data, positionInBlock, buffer, offset, length);
+                stats.hit(length);
+                return;
+            }
+            // the other reader found the block cached or failed to read it
+            if (readCachedBlock(key, positionInBlock, buffer, offset, length)) {
+                stats.hit(length);
+                return;
+            }
+            remote.readFully(blockOffset + positionInBlock, buffer, offset, length);
+            stats.miss(length);
+            return;
+        }
+
+        try {
+            // the block may have been stored after the first lookup and before the load was registered
+            if (readCachedBlock(key, positionInBlock, buffer, offset, length)) {
+                stats.hit(length);
+                load.set(null);
+                return;
+            }
+            byte[] data = new byte[blockLength];
+            remote.readFully(blockOffset, data, 0, blockLength);
+            stats.miss(blockLength);
+            System.arraycopy(data, positionInBlock, buffer, offset, length);
+            store(key, data);
+            load.set(data);
+        }
+        catch (Throwable t) {
+            load.setException(t);
+            throw t;
+        }
+        finally {
+            loadingBlocks.remove(key, load);
+        }
+    }
+
+    private boolean readCachedBlock(BlockKey key, int positionInBlock, byte[] buffer, int offset, int length)
+    {
+        CachedBlock block = cache.getIfPresent(key);
+        if (block == null) {
+            return false;
+        }
+        // the block can be evicted and its file deleted concurrently, in which case it is read remotely
+        try (FileChannel channel = FileChannel.open(block.getFile().toPath(), READ)) {
+            ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+            long position = positionInBlock;
+            while (target.hasRemaining()) {
+                int bytes = channel.read(target, position);
+                if (bytes < 0) {
+                    return false;
+                }
+                position += bytes;
+            }
+            return true;
+        }
+        catch (IOException e) {
+            log.debug(e, "Failed to read cached block %s", block.getFile());
+            return false;
+        }
+    }
+
+    private static byte[] getLoadedBlock(Future<byte[]> load)
+            throws InterruptedIOException
+    {
+        try {
+            return load.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a cached block");
+        }
+        catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private void store(BlockKey key, byte[] data)
+    {
+        File file = new File(directory, nextBlockFileId.getAndIncrement() + BLOCK_FILE_SUFFIX);
+        // blocks are opened for each read, as keeping them open would take a file descriptor per cached block
+        try (FileChannel channel = FileChannel.open(file.toPath(), CREATE_NEW, WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        catch (IOException e) {
+            // the data has already been read remotely, so a full or failing local disk only costs the cache entry
+            stats.storeFailure();
+            log.debug(e, "Failed to cache block of %s at offset %s in %s", key.getPath(), key.getOffset(), file);
+            deleteQuietly(file);
+            return;
+        }
+        cache.put(key, new CachedBlock(file, data.length));
+    }
+
+    private void blockRemoved(RemovalNotification<BlockKey, CachedBlock> notification)
+    {
+        if (notification.wasEvicted()) {
+            stats.eviction();
+        }
+        CachedBlock block = notification.getValue();
+        if (block != null) {
+            // readers that fail to open the deleted file read the block remotely
+            deleteQuietly(block.getFile());
+        }
+    }
+
+    private static void deleteQuietly(File file)
+    {
+        try {
+            Files.deleteIfExists(file.toPath());
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete cached block %s", file);
+        }
+    }
+
+    @Managed
+    public long getCachedBlocks()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @Managed
+    @Flatten
+    public FileRangeCacheStats getStats()
+    {
+        return stats;
+    }
+
+    private static final class BlockKey
+    {
+        private final String path;
+        private final long modificationTime;
+        private final long offset;
+
+        public BlockKey(String path, long modificationTime, long offset)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.modificationTime = modificationTime;
+            this.offset = offset;
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        public long getOffset()
+        {
+            return offset;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            BlockKey other = (BlockKey) obj;
+            return Objects.equals(this.path, other.path) &&
+                    this.modificationTime == other.modificationTime &&
+                    this.offset == other.offset;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, modificationTime, offset);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("modificationTime", modificationTime)
+                    .add("offset", offset)
+                    .toString();
+        }
+    }
+
+    private static final class CachedBlock
+    {
+        private final File file;
+        private final int size;
+
+        public CachedBlock(File file, int size)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.size = size;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import io.airlift.stats.CounterStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+public class FileRangeCacheStats
+{
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+    private final CounterStat storeFailures = new CounterStat();
+    private final CounterStat cachedBytesRead = new CounterStat();
+    private final CounterStat remoteBytesRead = new CounterStat();
+
+    public void hit(long bytes)
+    {
+        hits.update(1);
+        cachedBytesRead.update(bytes);
+    }
+
+    public void miss(long bytes)
+    {
+        misses.update(1);
+        remoteBytesRead.update(bytes);
+    }
+
+    public void eviction()
+    {
+        evictions.update(1);
+    }
+
+    public void storeFailure()
+    {
+        storeFailures.update(1);
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.getTotalCount();
+        long requestCount = hitCount + misses.getTotalCount();
+        if (requestCount == 0) {
+            return 0;
+        }
+        return (double) hitCount / requestCount;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStoreFailures()
+    {
+        return storeFailures;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCachedBytesRead()
+    {
+        return cachedBytesRead;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getRemoteBytesRead()
+    {
+        return remoteBytesRead;
+    }
+}
@@ -37,7 +37,9 @@ import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.metastore.TableType;
 import org.apache.hadoop.hive.metastore.Warehouse;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
 import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
 import org.apache.hadoop.hive.metastore.api.HiveObjectRef;
 import org.apache.hadoop.hive.metastore.api.HiveObjectType;
 import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
@@ -83,6 +85,7 @@ import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.StreamSupport.stream;
@@ -104,6 +107,7 @@ public class CachingHiveMetastore
     private final LoadingCache<String, Optional<List<String>>> viewNamesCache;
     private final LoadingCache<HiveTableName, Optional<List<String>>> partitionNamesCache;
     private final LoadingCache<HiveTableName, Optional<Table>> tableCache;
+    private final LoadingCache<HiveTableName, Optional<Map<String, ColumnStatisticsObj>>> tableColumnStatisticsCache;
     private final LoadingCache<HivePartitionName, Optional<Partition>> partitionCache;
     private final LoadingCache<PartitionFilter, Optional<List<String>>> partitionFilterCache;
     private final LoadingCache<String, Set<String>> userRolesCache;
@@ -177,6 +181,19 @@ public class CachingHiveMetastore
                     }
                 }, executor));
 
+        tableColumnStatisticsCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
+                .refreshAfterWrite(refreshMills, MILLISECONDS)
+                .build(asyncReloading(new CacheLoader<HiveTableName, Optional<Map<String, ColumnStatisticsObj>>>()
+                {
+                    @Override
+                    public Optional<Map<String, ColumnStatisticsObj>> load(HiveTableName hiveTableName)
+                            throws Exception
+                    {
+                        return loadTableColumnStatistics(hiveTableName);
+                    }
+                }, executor));
+
         viewNamesCache = CacheBuilder.newBuilder()
                 .expireAfterWrite(expiresAfterWriteMillis, MILLISECONDS)
                 .refreshAfterWrite(refreshMills, MILLISECONDS)
@@ -280,6 +297,7 @@ public class CachingHiveMetastore
         partitionNamesCache.invalidateAll();
         databaseCache.invalidateAll();
         tableCache.invalidateAll();
+        tableColumnStatisticsCache.invalidateAll();
         partitionCache.invalidateAll();
         partitionFilterCache.invalidateAll();
     }
@@ -500,6 +518,7 @@ public class CachingHiveMetastore
     protected void invalidateTable(String databaseName, String tableName)
     {
         tableCache.invalidate(new HiveTableName(databaseName, tableName));
+        tableColumnStatisticsCache.invalidate(new HiveTableName(databaseName, tableName));
         tableNamesCache.invalidate(databaseName);
         viewNamesCache.invalidate(databaseName);
         invalidatePartitionCache(databaseName, tableName);
@@ -569,6 +588,45 @@ public class CachingHiveMetastore
         }
     }
 
+    @Override
+    public Optional<Map<String, ColumnStatisticsObj>> getTableColumnStatistics(String databaseName, String tableName)
+    {
+        return get(tableColumnStatisticsCache, HiveTableName.table(databaseName, tableName));
+    }
+
+    private Optional<Map<String, ColumnStatisticsObj>> loadTableColumnStatistics(HiveTableName hiveTableName)
+            throws Exception
+    {
+        Optional<Table> table = get(tableCache, hiveTableName);
+        if (!table.isPresent()) {
+            return Optional.empty();
+        }
+        List<String> columnNames = table.get().getSd().getCols().stream()
+                .map(FieldSchema::getName)
+                .collect(toList());
+
+        try {
+            return retry()
+                    .stopOn(NoSuchObjectException.class)
+                    .stopOnIllegalExceptions()
+                    .run("getTableColumnStatistics", stats.getGetTableColumnStatistics().wrap(() -> {
+                        try (HiveMetastoreClient client = clientProvider.createMetastoreClient()) {
+                            ImmutableMap.Builder<String, ColumnStatisticsObj> columnStatistics = ImmutableMap.builder();
+                            for (ColumnStatisticsObj statistics : client.getTableColumnStatistics(hiveTableName.getDatabaseName(), hiveTableName.getTableName(), columnNames)) {
+                                columnStatistics.put(statistics.getColName(), statistics);
+                            }
+                            return Optional.of(columnStatistics.build());
+                        }
+                    }));
+        }
+        catch (NoSuchObjectException e) {
+            return Optional.empty();
+        }
+        catch (TException e) {
+            throw new PrestoException(HIVE_METASTORE_ERROR, e);
+        }
+    }
+
     @Override
     public Optional<List<String>> getPartitionNames(String databaseName, String tableName)
     {
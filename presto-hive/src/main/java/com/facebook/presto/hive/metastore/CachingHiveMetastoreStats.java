@@ -23,6 +23,7 @@ public class CachingHiveMetastoreStats
     private final HiveMetastoreApiStats getAllTables = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats getAllViews = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats getTable = new HiveMetastoreApiStats();
+    private final HiveMetastoreApiStats getTableColumnStatistics = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats getPartitionNames = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats getPartitionNamesPs = new HiveMetastoreApiStats();
     private final HiveMetastoreApiStats getPartitionByName = new HiveMetastoreApiStats();
@@ -69,6 +70,13 @@ public class CachingHiveMetastoreStats
         return getTable;
     }
 
+    @Managed
+    @Nested
+    public HiveMetastoreApiStats getGetTableColumnStatistics()
+    {
+        return getTableColumnStatistics;
+    }
+
     @Managed
     @Nested
     public HiveMetastoreApiStats getGetPartitionNames()
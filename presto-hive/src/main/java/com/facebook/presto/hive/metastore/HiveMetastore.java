@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive.metastore;
 
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.Table;
@@ -68,6 +69,12 @@ public interface HiveMetastore
 
     Optional<Table> getTable(String databaseName, String tableName);
 
+    /**
+     * Returns the table level column statistics keyed by column name.  Hive only maintains
+     * these for unpartitioned tables, and columns without statistics are not included.
+     */
+    Optional<Map<String, ColumnStatisticsObj>> getTableColumnStatistics(String databaseName, String tableName);
+
     Set<String> getRoles(String user);
 
     Set<HivePrivilege> getDatabasePrivileges(String user, String databaseName);
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive.metastore;
 
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.HiveObjectRef;
 import org.apache.hadoop.hive.metastore.api.Partition;
@@ -55,6 +56,9 @@ public interface HiveMetastoreClient
     Table getTable(String databaseName, String tableName)
             throws TException;
 
+    List<ColumnStatisticsObj> getTableColumnStatistics(String databaseName, String tableName, List<String> columnNames)
+            throws TException;
+
     List<String> getPartitionNames(String databaseName, String tableName)
             throws TException;
 
@@ -17,6 +17,8 @@ import com.facebook.hive.orc.OrcSerde;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.cache.FileRangeCache;
+import com.facebook.presto.orc.OrcMetadataCache;
 import com.facebook.presto.orc.metadata.DwrfMetadataReader;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
@@ -37,18 +39,29 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDista
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.isOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
+import static com.facebook.presto.hive.cache.FileRangeCache.disabledFileRangeCache;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactory.createOrcPageSource;
+import static com.facebook.presto.orc.OrcMetadataCache.disabledOrcMetadataCache;
 import static java.util.Objects.requireNonNull;
 
 public class DwrfPageSourceFactory
         implements HivePageSourceFactory
 {
     private final TypeManager typeManager;
+    private final FileRangeCache fileRangeCache;
+    private final OrcMetadataCache metadataCache;
 
-    @Inject
     public DwrfPageSourceFactory(TypeManager typeManager)
+    {
+        this(typeManager, disabledFileRangeCache(), disabledOrcMetadataCache());
+    }
+
+    @Inject
+    public DwrfPageSourceFactory(TypeManager typeManager, FileRangeCache fileRangeCache, OrcMetadataCache metadataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.fileRangeCache = requireNonNull(fileRangeCache, "fileRangeCache is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
     }
 
     @Override
@@ -84,6 +97,8 @@ public class DwrfPageSourceFactory
                 typeManager,
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
-                getOrcStreamBufferSize(session)));
+                getOrcStreamBufferSize(session),
+                fileRangeCache,
+                metadataCache));
     }
 }
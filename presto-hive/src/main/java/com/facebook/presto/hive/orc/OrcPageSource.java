@@ -33,6 +33,7 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.joda.time.DateTimeZone;
@@ -278,6 +279,8 @@ public class OrcPageSource
         return toStringHelper(this)
                 .add("columnNames", columnNames)
                 .add("types", types)
+                .add("rowGroupsSkippedByStatistics", recordReader.getRowGroupsSkippedByStatistics())
+                .add("rowGroupsSkippedByBloomFilter", recordReader.getRowGroupsSkippedByBloomFilter())
                 .toString();
     }
 
@@ -334,5 +337,39 @@ public class OrcPageSource
 
             loaded = true;
         }
+
+        @Override
+        public Block loadPositions(LazyBlock lazyBlock, List<Integer> positions)
+        {
+            if (loaded || !isIncreasing(positions)) {
+                return null;
+            }
+
+            checkState(batchId == expectedBatchId);
+
+            Block block;
+            try {
+                block = recordReader.readBlock(type, columnIndex, Ints.toArray(positions));
+            }
+            catch (IOException e) {
+                if (e instanceof OrcCorruptionException) {
+                    throw new PrestoException(HIVE_BAD_DATA, e);
+                }
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+
+            loaded = true;
+            return block;
+        }
+    }
+
+    private static boolean isIncreasing(List<Integer> positions)
+    {
+        for (int i = 1; i < positions.size(); i++) {
+            if (positions.get(i) <= positions.get(i - 1)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
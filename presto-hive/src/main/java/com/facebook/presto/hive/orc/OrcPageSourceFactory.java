@@ -16,7 +16,10 @@ package com.facebook.presto.hive.orc;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.cache.FileRangeCache;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcFileId;
+import com.facebook.presto.orc.OrcMetadataCache;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -36,6 +39,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
@@ -56,6 +60,8 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDista
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.isOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
+import static com.facebook.presto.hive.cache.FileRangeCache.disabledFileRangeCache;
+import static com.facebook.presto.orc.OrcMetadataCache.disabledOrcMetadataCache;
 import static com.google.common.base.Strings.nullToEmpty;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -64,11 +70,20 @@ public class OrcPageSourceFactory
         implements HivePageSourceFactory
 {
     private final TypeManager typeManager;
+    private final FileRangeCache fileRangeCache;
+    private final OrcMetadataCache metadataCache;
 
-    @Inject
     public OrcPageSourceFactory(TypeManager typeManager)
+    {
+        this(typeManager, disabledFileRangeCache(), disabledOrcMetadataCache());
+    }
+
+    @Inject
+    public OrcPageSourceFactory(TypeManager typeManager, FileRangeCache fileRangeCache, OrcMetadataCache metadataCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.fileRangeCache = requireNonNull(fileRangeCache, "fileRangeCache is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
     }
 
     @Override
@@ -105,7 +120,9 @@ public class OrcPageSourceFactory
                 typeManager,
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
-                getOrcStreamBufferSize(session)));
+                getOrcStreamBufferSize(session),
+                fileRangeCache,
+                metadataCache));
     }
 
     public static OrcPageSource createOrcPageSource(MetadataReader metadataReader,
@@ -120,14 +137,18 @@ public class OrcPageSourceFactory
             TypeManager typeManager,
             DataSize maxMergeDistance,
             DataSize maxBufferSize,
-            DataSize streamBufferSize)
+            DataSize streamBufferSize,
+            FileRangeCache fileRangeCache,
+            OrcMetadataCache metadataCache)
     {
         OrcDataSource orcDataSource;
+        OrcFileId fileId;
         try {
             FileSystem fileSystem = path.getFileSystem(configuration);
-            long size = fileSystem.getFileStatus(path).getLen();
-            FSDataInputStream inputStream = fileSystem.open(path);
-            orcDataSource = new HdfsOrcDataSource(path.toString(), size, maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            fileId = new OrcFileId(path.toString(), fileStatus.getLen(), fileStatus.getModificationTime());
+            FSDataInputStream inputStream = fileRangeCache.open(fileSystem, fileStatus);
+            orcDataSource = new HdfsOrcDataSource(path.toString(), fileStatus.getLen(), maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -152,7 +173,7 @@ public class OrcPageSourceFactory
         AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
 
         try {
-            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize);
+            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize, metadataCache, Optional.of(fileId));
             OrcRecordReader recordReader = reader.createRecordReader(
                     includedColumns.build(),
                     predicate,
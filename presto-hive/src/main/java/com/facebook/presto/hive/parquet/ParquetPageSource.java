@@ -39,7 +39,6 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.Path;
-import parquet.column.ColumnDescriptor;
 import parquet.schema.MessageType;
 
 import java.io.IOException;
@@ -51,6 +50,7 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
 import static com.facebook.presto.hive.HiveUtil.bigintPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.booleanPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.doublePartitionKey;
+import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -75,6 +75,7 @@ class ParquetPageSource
 
     private final Block[] constantBlocks;
     private final int[] hiveColumnIndexes;
+    private final parquet.schema.Type[] fields;
 
     private final long totalBytes;
     private long completedBytes;
@@ -85,6 +86,8 @@ class ParquetPageSource
     public ParquetPageSource(
             ParquetReader parquetReader,
             MessageType requestedSchema,
+            MessageType fileSchema,
+            boolean useParquetColumnNames,
             Path path,
             long totalBytes,
             Properties splitSchema,
@@ -93,6 +96,7 @@ class ParquetPageSource
             TupleDomain<HiveColumnHandle> effectivePredicate,
             TypeManager typeManager)
     {
+        requireNonNull(fileSchema, "fileSchema is null");
         requireNonNull(path, "path is null");
         checkArgument(totalBytes >= 0, "totalBytes is negative");
         requireNonNull(splitSchema, "splitSchema is null");
@@ -110,6 +114,7 @@ class ParquetPageSource
 
         this.constantBlocks = new Block[size];
         this.hiveColumnIndexes = new int[size];
+        this.fields = new parquet.schema.Type[size];
 
         ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
         ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
@@ -173,6 +178,18 @@ class ParquetPageSource
 
                 constantBlocks[columnIndex] = blockBuilder.build();
             }
+            else {
+                parquet.schema.Type field = getParquetType(column, fileSchema, useParquetColumnNames);
+                if (field == null) {
+                    // the column is missing from the file
+                    BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH);
+                    for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
+                        blockBuilder.appendNull();
+                    }
+                    constantBlocks[columnIndex] = blockBuilder.build();
+                }
+                fields[columnIndex] = field;
+            }
         }
         types = typesBuilder.build();
         columnNames = namesBuilder.build();
@@ -231,8 +248,7 @@ class ParquetPageSource
                     blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
                 }
                 else {
-                    ColumnDescriptor columnDescriptor = this.requestedSchema.getColumns().get(fieldId);
-                    blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(columnDescriptor, batchSize, type));
+                    blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(fields[fieldId], type));
                 }
             }
             Page page = new Page(batchSize, blocks);
@@ -287,15 +303,13 @@ class ParquetPageSource
             implements LazyBlockLoader<LazyBlock>
     {
         private final int expectedBatchId = batchId;
-        private final int batchSize;
-        private final ColumnDescriptor columnDescriptor;
+        private final parquet.schema.Type field;
         private final Type type;
         private boolean loaded;
 
-        public ParquetBlockLoader(ColumnDescriptor columnDescriptor, int batchSize, Type type)
+        public ParquetBlockLoader(parquet.schema.Type field, Type type)
         {
-            this.batchSize = batchSize;
-            this.columnDescriptor = columnDescriptor;
+            this.field = requireNonNull(field, "field is null");
             this.type = requireNonNull(type, "type is null");
         }
 
@@ -309,7 +323,7 @@ class ParquetPageSource
             checkState(batchId == expectedBatchId);
 
             try {
-                Block block = parquetReader.readBlock(columnDescriptor, batchSize, type);
+                Block block = parquetReader.readBlock(field, type);
                 lazyBlock.setBlock(block);
             }
             catch (IOException e) {
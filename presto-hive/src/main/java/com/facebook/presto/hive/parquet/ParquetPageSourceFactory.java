@@ -17,6 +17,7 @@ import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
 import com.facebook.presto.hive.HivePartitionKey;
+import com.facebook.presto.hive.cache.FileRangeCache;
 import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
 import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
 import com.facebook.presto.hive.parquet.reader.ParquetReader;
@@ -27,10 +28,15 @@ import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
+import parquet.column.ColumnDescriptor;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.FileMetaData;
 import parquet.hadoop.metadata.ParquetMetadata;
@@ -49,8 +55,10 @@ import java.util.Set;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetPredicatePushdownEnabled;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
+import static com.facebook.presto.hive.cache.FileRangeCache.disabledFileRangeCache;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.buildParquetPredicate;
+import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.isColumnPredicate;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.predicateMatches;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -63,19 +71,28 @@ public class ParquetPageSourceFactory
             .add("parquet.hive.serde.ParquetHiveSerDe")
             .build();
 
+    private static final Set<String> NESTED_PRIMITIVE_TYPES = ImmutableSet.of(StandardTypes.BOOLEAN, StandardTypes.BIGINT, StandardTypes.DOUBLE, StandardTypes.VARCHAR);
+
     private final TypeManager typeManager;
     private final boolean useParquetColumnNames;
+    private final FileRangeCache fileRangeCache;
 
     @Inject
-    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config)
+    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, FileRangeCache fileRangeCache)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames());
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), fileRangeCache);
     }
 
     public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames)
+    {
+        this(typeManager, useParquetColumnNames, disabledFileRangeCache());
+    }
+
+    public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, FileRangeCache fileRangeCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useParquetColumnNames = useParquetColumnNames;
+        this.fileRangeCache = requireNonNull(fileRangeCache, "fileRangeCache is null");
     }
 
     @Override
@@ -114,7 +131,8 @@ public class ParquetPageSourceFactory
                 useParquetColumnNames,
                 typeManager,
                 isParquetPredicatePushdownEnabled(session),
-                effectivePredicate));
+                effectivePredicate,
+                fileRangeCache));
     }
 
     public static ParquetPageSource createParquetPageSource(
@@ -128,10 +146,15 @@ public class ParquetPageSourceFactory
             boolean useParquetColumnNames,
             TypeManager typeManager,
             boolean predicatePushdownEnabled,
-            TupleDomain<HiveColumnHandle> effectivePredicate)
+            TupleDomain<HiveColumnHandle> effectivePredicate,
+            FileRangeCache fileRangeCache)
     {
+        FSDataInputStream inputStream = null;
         try {
-            ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(configuration, path);
+            FileSystem fileSystem = path.getFileSystem(configuration);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            inputStream = fileRangeCache.open(fileSystem, fileStatus);
+            ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(inputStream, path, fileStatus.getLen());
             FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
             MessageType fileSchema = fileMetaData.getSchema();
 
@@ -151,22 +174,37 @@ public class ParquetPageSourceFactory
                 }
             }
 
+            FSDataInputStream fileInputStream = inputStream;
+            ParquetPredicate parquetPredicate = ParquetPredicate.TRUE;
+            List<ColumnDescriptor> predicateColumns = ImmutableList.of();
             if (predicatePushdownEnabled) {
-                ParquetPredicate parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                ParquetPredicate rowGroupPredicate = parquetPredicate;
                 blocks = blocks.stream()
-                        .filter(block -> predicateMatches(parquetPredicate, block, configuration, path, requestedSchema, effectivePredicate))
+                        .filter(block -> predicateMatches(rowGroupPredicate, block, configuration, fileInputStream, requestedSchema, effectivePredicate))
                         .collect(toList());
+                if (!effectivePredicate.isNone()) {
+                    // pages of the top level columns of the predicate are skipped using their statistics and dictionaries
+                    predicateColumns = requestedSchema.getColumns().stream()
+                            .filter(column -> column.getPath().length == 1 && isColumnPredicate(column, effectivePredicate))
+                            .collect(toList());
+                }
             }
 
             ParquetReader parquetReader = new ParquetReader(fileMetaData.getSchema(),
                     fileMetaData.getKeyValueMetaData(),
                     requestedSchema,
                     path,
+                    inputStream,
                     blocks,
-                    configuration);
+                    configuration,
+                    parquetPredicate,
+                    predicateColumns);
 
             return new ParquetPageSource(parquetReader,
                     requestedSchema,
+                    fileSchema,
+                    useParquetColumnNames,
                     path,
                     length,
                     schema,
@@ -175,19 +213,38 @@ public class ParquetPageSourceFactory
                     effectivePredicate,
                     typeManager);
         }
-        catch (IOException e) {
+        catch (IOException | RuntimeException e) {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                }
+                catch (IOException ignored) {
+                }
+            }
             throw Throwables.propagate(e);
         }
     }
 
-    // TODO: support complex types
     private static boolean columnTypeSupported(List<HiveColumnHandle> columns)
     {
-        List<String> fields = columns.stream()
+        return columns.stream()
                 .map(HiveColumnHandle::getTypeSignature)
-                .map(TypeSignature::getBase)
-                .filter(base -> StandardTypes.ARRAY.equals(base) || StandardTypes.MAP.equals(base) || StandardTypes.ROW.equals(base))
-                .collect(toList());
-        return fields.isEmpty();
+                .filter(ParquetPageSourceFactory::isNestedType)
+                .allMatch(ParquetPageSourceFactory::nestedTypeSupported);
+    }
+
+    private static boolean isNestedType(TypeSignature type)
+    {
+        String base = type.getBase();
+        return StandardTypes.ARRAY.equals(base) || StandardTypes.MAP.equals(base) || StandardTypes.ROW.equals(base);
+    }
+
+    // the values of fields nested in complex types are read without conversion
+    private static boolean nestedTypeSupported(TypeSignature type)
+    {
+        if (isNestedType(type)) {
+            return type.getParameters().stream().allMatch(ParquetPageSourceFactory::nestedTypeSupported);
+        }
+        return NESTED_PRIMITIVE_TYPES.contains(type.getBase());
     }
 }
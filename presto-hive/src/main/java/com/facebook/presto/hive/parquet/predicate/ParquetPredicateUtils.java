@@ -102,7 +102,29 @@ public final class ParquetPredicateUtils
             return false;
         }
 
-        Map<Integer, ParquetDictionaryDescriptor> dictionaries = getDictionariesByColumnOrdinal(block, path, configuration, requestedSchema, effectivePredicate);
+        Map<Integer, ParquetDictionaryDescriptor> dictionaries;
+        try (FSDataInputStream inputStream = path.getFileSystem(configuration).open(path)) {
+            dictionaries = getDictionariesByColumnOrdinal(block, inputStream, configuration, requestedSchema, effectivePredicate);
+        }
+        catch (IOException ignored) {
+            return true;
+        }
+        return parquetPredicate.matches(dictionaries);
+    }
+
+    public static boolean predicateMatches(ParquetPredicate parquetPredicate,
+            BlockMetaData block,
+            Configuration configuration,
+            FSDataInputStream inputStream,
+            MessageType requestedSchema,
+            TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        Map<Integer, Statistics<?>> columnStatistics = getStatisticsByColumnOrdinal(block);
+        if (!parquetPredicate.matches(block.getRowCount(), columnStatistics)) {
+            return false;
+        }
+
+        Map<Integer, ParquetDictionaryDescriptor> dictionaries = getDictionariesByColumnOrdinal(block, inputStream, configuration, requestedSchema, effectivePredicate);
         return parquetPredicate.matches(dictionaries);
     }
 
@@ -120,7 +142,7 @@ public final class ParquetPredicateUtils
 
     private static Map<Integer, ParquetDictionaryDescriptor> getDictionariesByColumnOrdinal(
             BlockMetaData blockMetadata,
-            Path path,
+            FSDataInputStream inputStream,
             Configuration configuration,
             MessageType requestedSchema,
             TupleDomain<HiveColumnHandle> effectivePredicate)
@@ -138,12 +160,10 @@ public final class ParquetPredicateUtils
                         columnChunkMetaData.getPath().equals(ColumnPath.get(columnDescriptor.getPath())) &&
                         isOnlyDictionaryEncodingPages(columnChunkMetaData.getEncodings())) {
                     DictionaryPage dictionaryPage;
-                    try (FSDataInputStream inputStream = path.getFileSystem(configuration).open(path)) {
-                        inputStream.seek(columnChunkMetaData.getStartingPos());
-
+                    try {
                         int totalSize = Ints.checkedCast(columnChunkMetaData.getTotalSize());
                         byte[] buffer = new byte[totalSize];
-                        inputStream.readFully(buffer);
+                        inputStream.readFully(columnChunkMetaData.getStartingPos(), buffer);
 
                         dictionaryPage = readDictionaryPage(buffer, codecFactory, columnChunkMetaData.getCodec());
                         dictionaries.put(ordinal, new ParquetDictionaryDescriptor(columnDescriptor, dictionaryPage));
@@ -184,7 +204,7 @@ public final class ParquetPredicateUtils
         }
     }
 
-    private static boolean isColumnPredicate(ColumnDescriptor columnDescriptor, TupleDomain<HiveColumnHandle> effectivePredicate)
+    public static boolean isColumnPredicate(ColumnDescriptor columnDescriptor, TupleDomain<HiveColumnHandle> effectivePredicate)
     {
         String[] columnPath = columnDescriptor.getPath();
         String columnName = columnPath[columnPath.length - 1];
@@ -14,6 +14,7 @@
 package com.facebook.presto.hive.parquet.reader;
 
 import com.facebook.presto.hive.parquet.ParquetCodecFactory.BytesDecompressor;
+import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import parquet.column.page.DataPage;
 import parquet.column.page.DataPageV1;
@@ -53,6 +54,14 @@ class ParquetColumnChunkPageReader
         return valueCount;
     }
 
+    /**
+     * Returns the pages that have not been read yet, without decompressing them.
+     */
+    public List<DataPage> getCompressedPages()
+    {
+        return ImmutableList.copyOf(compressedPages);
+    }
+
     @Override
     public DataPage readPage()
     {
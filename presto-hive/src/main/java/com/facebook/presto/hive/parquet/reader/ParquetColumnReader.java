@@ -33,26 +33,33 @@ import parquet.io.ParquetDecodingException;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 
 public class ParquetColumnReader
 {
+    private static final int INITIAL_LEVEL_BUFFER_SIZE = 1024;
+
     private final ColumnDescriptor columnDescriptor;
     private final long totalValueCount;
     private final PageReader pageReader;
+    private final DictionaryPage dictionaryPage;
     private final Dictionary dictionary;
 
     private ParquetLevelReader repetitionReader;
     private ParquetLevelReader definitionReader;
     private int repetitionLevel;
     private int definitionLevel;
-    private int currentValueCount;
-    private int pageValueCount;
-    private DataPage page;
+    private long currentValueCount;
+    private long readRowCount;
     private ValuesReader valuesReader;
     private int remainingValueCountInPage;
+    // the levels of the first value of the next row have been read, but the value has not
+    private boolean hasPendingLevels;
 
     public ParquetColumnReader(ColumnDescriptor columnDescriptor, PageReader pageReader)
     {
@@ -62,13 +69,16 @@ public class ParquetColumnReader
 
         if (dictionaryPage != null) {
             try {
-                this.dictionary = dictionaryPage.getEncoding().initDictionary(columnDescriptor, dictionaryPage);
+                // copy the page so that it can be decoded again by the page predicate
+                this.dictionaryPage = new DictionaryPage(BytesInput.from(dictionaryPage.getBytes().toByteArray()), dictionaryPage.getDictionarySize(), dictionaryPage.getEncoding());
+                this.dictionary = this.dictionaryPage.getEncoding().initDictionary(columnDescriptor, this.dictionaryPage);
             }
             catch (IOException e) {
                 throw new ParquetDecodingException("could not decode the dictionary for " + columnDescriptor, e);
             }
         }
         else {
+            this.dictionaryPage = null;
             this.dictionary = null;
         }
         checkArgument(pageReader.getTotalValueCount() > 0, "page is empty");
@@ -95,39 +105,175 @@ public class ParquetColumnReader
         return totalValueCount;
     }
 
+    public DictionaryPage getDictionaryPage()
+    {
+        return dictionaryPage;
+    }
+
+    /**
+     * Returns the number of rows of the column chunk that have been read or skipped.
+     */
+    public long getReadRowCount()
+    {
+        return readRowCount;
+    }
+
     public Block readBlock(int vectorSize, Type type)
     {
+        checkArgument(columnDescriptor.getMaxRepetitionLevel() == 0, "Column %s is repeated", columnDescriptor);
         checkArgument(currentValueCount <= totalValueCount, "Already read all values in this column chunk");
         int valueCount = 0;
         ParquetBlockBuilder blockBuilder = ParquetBlockBuilder.createBlockBuilder(vectorSize, columnDescriptor);
         while (valueCount < vectorSize) {
-            if (this.page == null) {
-                this.page = pageReader.readPage();
-                if (this.page == null) {
+            if (remainingValueCountInPage == 0 && !readNextPage()) {
+                break;
+            }
+
+            int valueNumber = min(remainingValueCountInPage, vectorSize - valueCount);
+            blockBuilder.readValues(valuesReader, valueNumber, definitionReader);
+            valueCount += valueNumber;
+            remainingValueCountInPage -= valueNumber;
+            currentValueCount += valueNumber;
+        }
+        readRowCount += valueCount;
+        return blockBuilder.buildBlock();
+    }
+
+    /**
+     * Reads the values of the next {@code rowCount} rows of a column nested in a repeated
+     * or optional group. The returned block has a value for each level with a definition
+     * level of at least {@code minDefinitionLevel}, which is null if the leaf field itself
+     * is not defined. The levels of all values are returned with the block, so that the
+     * enclosing fields can be reconstructed from them.
+     */
+    public ParquetNestedBlock readNestedBlock(int rowCount, int minDefinitionLevel)
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        ParquetBlockBuilder blockBuilder = ParquetBlockBuilder.createBlockBuilder(rowCount, columnDescriptor);
+        int[] definitionLevels = new int[max(rowCount, INITIAL_LEVEL_BUFFER_SIZE)];
+        int[] repetitionLevels = new int[definitionLevels.length];
+        int levelCount = 0;
+        int rows = 0;
+        while (hasPendingLevels || readNextLevels()) {
+            if (repetitionLevel == 0) {
+                if (rows == rowCount) {
+                    hasPendingLevels = true;
                     break;
                 }
-                remainingValueCountInPage = page.getValueCount();
+                rows++;
+            }
+            hasPendingLevels = false;
+
+            if (levelCount == definitionLevels.length) {
+                definitionLevels = Arrays.copyOf(definitionLevels, levelCount * 2);
+                repetitionLevels = Arrays.copyOf(repetitionLevels, levelCount * 2);
+            }
+            definitionLevels[levelCount] = definitionLevel;
+            repetitionLevels[levelCount] = repetitionLevel;
+            levelCount++;
+
+            if (definitionLevel == maxDefinitionLevel) {
+                blockBuilder.readValue(valuesReader);
+            }
+            else if (definitionLevel >= minDefinitionLevel) {
+                blockBuilder.appendNull();
+            }
+        }
+        readRowCount += rows;
+        return new ParquetNestedBlock(blockBuilder.buildBlock(), definitionLevels, repetitionLevels, levelCount);
+    }
 
-                if (page instanceof DataPageV1) {
-                    valuesReader = readPageV1((DataPageV1) page);
+    /**
+     * Skips the next {@code rowCount} rows. Pages that only contain skipped rows of a
+     * column that is not repeated are dropped without being decompressed.
+     */
+    public void skipRows(long rowCount)
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        long remainingRows = rowCount;
+        if (columnDescriptor.getMaxRepetitionLevel() == 0) {
+            // a field of a struct is read with the nested reader, which has already read
+            // the levels of the first row to skip
+            if (hasPendingLevels && remainingRows > 0) {
+                hasPendingLevels = false;
+                if (definitionLevel == maxDefinitionLevel) {
+                    valuesReader.skip();
+                }
+                remainingRows--;
+            }
+            while (remainingRows > 0) {
+                if (remainingValueCountInPage == 0) {
+                    DataPage page = pageReader.readPage();
+                    if (page == null) {
+                        break;
+                    }
+                    if (page.getValueCount() <= remainingRows) {
+                        remainingRows -= page.getValueCount();
+                        currentValueCount += page.getValueCount();
+                        continue;
+                    }
+                    initializePage(page);
+                }
+                int valueNumber = (int) min(remainingValueCountInPage, remainingRows);
+                for (int i = 0; i < valueNumber; i++) {
+                    if (definitionReader.readLevel() == maxDefinitionLevel) {
+                        valuesReader.skip();
+                    }
+                }
+                remainingRows -= valueNumber;
+                remainingValueCountInPage -= valueNumber;
+                currentValueCount += valueNumber;
+            }
+        }
+        else {
+            while (hasPendingLevels || readNextLevels()) {
+                if (repetitionLevel == 0) {
+                    if (remainingRows == 0) {
+                        hasPendingLevels = true;
+                        break;
+                    }
+                    remainingRows--;
                 }
-                else {
-                    valuesReader = readPageV2((DataPageV2) page);
+                hasPendingLevels = false;
+                if (definitionLevel == maxDefinitionLevel) {
+                    valuesReader.skip();
                 }
             }
+        }
+        readRowCount += rowCount - remainingRows;
+    }
 
-            int valueNumber = Math.min(this.remainingValueCountInPage, vectorSize - valueCount);
-            blockBuilder.readValues(this.valuesReader, valueNumber, definitionReader);
-            valueCount = valueCount + valueNumber;
+    private boolean readNextLevels()
+    {
+        if (remainingValueCountInPage == 0 && !readNextPage()) {
+            return false;
+        }
+        repetitionLevel = repetitionReader.readLevel();
+        definitionLevel = definitionReader.readLevel();
+        remainingValueCountInPage--;
+        currentValueCount++;
+        return true;
+    }
 
-            if (valueNumber == remainingValueCountInPage) {
-                page = null;
-                valuesReader = null;
-            }
-            remainingValueCountInPage = remainingValueCountInPage - valueNumber;
-            currentValueCount += valueNumber;
+    private boolean readNextPage()
+    {
+        DataPage page = pageReader.readPage();
+        if (page == null) {
+            return false;
+        }
+        initializePage(page);
+        return true;
+    }
+
+    private void initializePage(DataPage page)
+    {
+        remainingValueCountInPage = page.getValueCount();
+        if (page instanceof DataPageV1) {
+            valuesReader = readPageV1((DataPageV1) page);
+        }
+        else {
+            valuesReader = readPageV2((DataPageV2) page);
         }
-        return blockBuilder.buildBlock();
     }
 
     private ValuesReader readPageV1(DataPageV1 page)
@@ -138,9 +284,9 @@ public class ParquetColumnReader
         definitionReader = new ParquetLevelValuesReader(dlReader);
         try {
             byte[] bytes = page.getBytes().toByteArray();
-            rlReader.initFromPage(pageValueCount, bytes, 0);
+            rlReader.initFromPage(page.getValueCount(), bytes, 0);
             int offset = rlReader.getNextOffset();
-            dlReader.initFromPage(pageValueCount, bytes, offset);
+            dlReader.initFromPage(page.getValueCount(), bytes, offset);
             offset = dlReader.getNextOffset();
             return initDataReader(page.getValueEncoding(), bytes, offset, page.getValueCount());
         }
@@ -176,7 +322,6 @@ public class ParquetColumnReader
 
     private ValuesReader initDataReader(Encoding dataEncoding, byte[] bytes, int offset, int valueCount)
     {
-        pageValueCount = valueCount;
         ValuesReader valuesReader;
         if (dataEncoding.usesDictionary()) {
             if (dictionary == null) {
@@ -189,7 +334,7 @@ public class ParquetColumnReader
         }
 
         try {
-            valuesReader.initFromPage(pageValueCount, bytes, offset);
+            valuesReader.initFromPage(valueCount, bytes, offset);
             return valuesReader;
         }
         catch (IOException e) {
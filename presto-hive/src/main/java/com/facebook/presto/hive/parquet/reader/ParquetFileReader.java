@@ -46,12 +46,13 @@ public class ParquetFileReader
     public ParquetFileReader(
             Configuration configuration,
             Path file,
+            FSDataInputStream inputStream,
             List<BlockMetaData> blocks,
             List<ColumnDescriptor> columns)
             throws IOException
     {
         this.file = file;
-        this.inputStream = file.getFileSystem(configuration).open(file);
+        this.inputStream = inputStream;
         this.blocks = blocks;
         if (!blocks.isEmpty()) {
             for (ColumnDescriptor columnDescriptor : columns) {
@@ -82,10 +83,9 @@ public class ParquetFileReader
 
         ColumnChunkMetaData metadata = columnMetadata.get(columnDescriptor);
         long startingPosition = metadata.getStartingPos();
-        inputStream.seek(startingPosition);
         int totalSize = Ints.checkedCast(metadata.getTotalSize());
         byte[] buffer = new byte[totalSize];
-        inputStream.readFully(buffer);
+        inputStream.readFully(startingPosition, buffer);
         ParquetColumnChunkDescriptor descriptor = new ParquetColumnChunkDescriptor(columnDescriptor, metadata, startingPosition, totalSize);
         ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0, codecFactory);
         return columnChunk.readAllPages();
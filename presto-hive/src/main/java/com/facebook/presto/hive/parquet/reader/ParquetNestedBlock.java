@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import com.facebook.presto.spi.block.Block;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A block read from a field nested in a repeated or optional group, together with
+ * the repetition and definition levels of one of the leaf columns under the field.
+ * The levels are used by the enclosing field to find its own positions.
+ */
+public class ParquetNestedBlock
+{
+    private final Block block;
+    private final int[] definitionLevels;
+    private final int[] repetitionLevels;
+    private final int levelCount;
+
+    public ParquetNestedBlock(Block block, int[] definitionLevels, int[] repetitionLevels, int levelCount)
+    {
+        this.block = requireNonNull(block, "block is null");
+        this.definitionLevels = requireNonNull(definitionLevels, "definitionLevels is null");
+        this.repetitionLevels = requireNonNull(repetitionLevels, "repetitionLevels is null");
+        checkArgument(levelCount <= definitionLevels.length && levelCount <= repetitionLevels.length, "levelCount is greater than the number of levels");
+        this.levelCount = levelCount;
+    }
+
+    public Block getBlock()
+    {
+        return block;
+    }
+
+    public int getDefinitionLevel(int index)
+    {
+        return definitionLevels[index];
+    }
+
+    public int getRepetitionLevel(int index)
+    {
+        return repetitionLevels[index];
+    }
+
+    public int getLevelCount()
+    {
+        return levelCount;
+    }
+
+    public ParquetNestedBlock withBlock(Block block)
+    {
+        return new ParquetNestedBlock(block, definitionLevels, repetitionLevels, levelCount);
+    }
+}
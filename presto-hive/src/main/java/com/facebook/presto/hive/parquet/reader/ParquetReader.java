@@ -13,14 +13,33 @@
  */
 package com.facebook.presto.hive.parquet.reader;
 
+import com.facebook.presto.hive.parquet.predicate.ParquetDictionaryDescriptor;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.spi.block.ArrayBlock;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.InterleavedBlock;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ObjectArrays;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
 import com.google.common.primitives.Ints;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
 import parquet.column.ColumnDescriptor;
+import parquet.column.Encoding;
+import parquet.column.page.DataPage;
+import parquet.column.page.DataPageV1;
+import parquet.column.page.DataPageV2;
 import parquet.column.page.PageReadStore;
+import parquet.column.statistics.Statistics;
 import parquet.hadoop.metadata.BlockMetaData;
+import parquet.io.ParquetDecodingException;
+import parquet.schema.GroupType;
 import parquet.schema.MessageType;
 
 import java.io.IOException;
@@ -28,6 +47,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
+import static com.facebook.presto.spi.type.StandardTypes.MAP;
+import static com.facebook.presto.spi.type.StandardTypes.ROW;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.Slices.wrappedBooleanArray;
+import static io.airlift.slice.Slices.wrappedIntArray;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static parquet.schema.Type.Repetition.OPTIONAL;
+
 public class ParquetReader
 {
     public static final int MAX_VECTOR_LENGTH = 1024;
@@ -39,21 +69,42 @@ public class ParquetReader
     private final ParquetFileReader fileReader;
     private final List<BlockMetaData> blocks;
     private final Configuration configuration;
+    private final ParquetPredicate pagePredicate;
+    private final List<ColumnDescriptor> predicateColumns;
 
     private PageReadStore readerStore;
     private long fileRowCount;
     private long currentPosition;
     private long currentGroupRowCount;
     private long nextRowInGroup;
+    private long batchStartRow;
+    private int batchSize;
     private Map<ColumnDescriptor, ParquetColumnReader> columnReadersMap = new HashMap<>();
+    // rows of the current row group in pages of a predicate column that cannot match the predicate
+    private final RangeSet<Long> skippedRows = TreeRangeSet.create();
 
     public ParquetReader(MessageType fileSchema,
             Map<String, String> extraMetadata,
             MessageType requestedSchema,
             Path file,
+            FSDataInputStream inputStream,
             List<BlockMetaData> blocks,
             Configuration configuration)
             throws IOException
+    {
+        this(fileSchema, extraMetadata, requestedSchema, file, inputStream, blocks, configuration, ParquetPredicate.TRUE, ImmutableList.of());
+    }
+
+    public ParquetReader(MessageType fileSchema,
+            Map<String, String> extraMetadata,
+            MessageType requestedSchema,
+            Path file,
+            FSDataInputStream inputStream,
+            List<BlockMetaData> blocks,
+            Configuration configuration,
+            ParquetPredicate pagePredicate,
+            List<ColumnDescriptor> predicateColumns)
+            throws IOException
     {
         this.fileSchema = fileSchema;
         this.extraMetadata = extraMetadata;
@@ -61,7 +112,9 @@ public class ParquetReader
         this.file = file;
         this.blocks = blocks;
         this.configuration = configuration;
-        this.fileReader = new ParquetFileReader(configuration, file, blocks, requestedSchema.getColumns());
+        this.pagePredicate = requireNonNull(pagePredicate, "pagePredicate is null");
+        this.predicateColumns = ImmutableList.copyOf(requireNonNull(predicateColumns, "predicateColumns is null"));
+        this.fileReader = new ParquetFileReader(configuration, file, inputStream, blocks, requestedSchema.getColumns());
         for (BlockMetaData block : blocks) {
             fileRowCount += block.getRowCount();
         }
@@ -97,13 +150,31 @@ public class ParquetReader
     public int nextBatch()
             throws IOException, InterruptedException
     {
-        if (nextRowInGroup >= currentGroupRowCount) {
-            if (!advanceToNextRowGroup()) {
-                return -1;
+        while (true) {
+            if (nextRowInGroup >= currentGroupRowCount) {
+                if (!advanceToNextRowGroup()) {
+                    return -1;
+                }
             }
+
+            Range<Long> skipped = skippedRows.rangeContaining(nextRowInGroup);
+            if (skipped == null) {
+                break;
+            }
+            long skippedEnd = min(skipped.upperEndpoint(), currentGroupRowCount);
+            currentPosition += skippedEnd - nextRowInGroup;
+            nextRowInGroup = skippedEnd;
         }
 
-        int batchSize = Ints.checkedCast(Math.min(MAX_VECTOR_LENGTH, currentGroupRowCount - nextRowInGroup));
+        long batchEnd = min(currentGroupRowCount, nextRowInGroup + MAX_VECTOR_LENGTH);
+        // end the batch where the next run of skipped rows begins
+        Range<Long> nextSkipped = Iterables.getFirst(skippedRows.subRangeSet(Range.closedOpen(nextRowInGroup, batchEnd)).asRanges(), null);
+        if (nextSkipped != null) {
+            batchEnd = nextSkipped.lowerEndpoint();
+        }
+
+        batchStartRow = nextRowInGroup;
+        batchSize = Ints.checkedCast(batchEnd - nextRowInGroup);
 
         nextRowInGroup += batchSize;
         currentPosition += batchSize;
@@ -111,7 +182,7 @@ public class ParquetReader
     }
 
     private boolean advanceToNextRowGroup()
-            throws InterruptedException
+            throws IOException
     {
         long rowCount = fileReader.readNextRowGroup();
         if (rowCount == -1) {
@@ -119,20 +190,263 @@ public class ParquetReader
         }
         nextRowInGroup = 0;
         currentGroupRowCount = rowCount;
+        columnReadersMap.clear();
+        skippedRows.clear();
+        for (ColumnDescriptor columnDescriptor : predicateColumns) {
+            addSkippedRows(columnDescriptor);
+        }
         return true;
     }
 
-    public Block readBlock(ColumnDescriptor columnDescriptor, int vectorSize, Type type)
+    private void addSkippedRows(ColumnDescriptor columnDescriptor)
             throws IOException
     {
-        ParquetColumnReader columnReader;
-        if (columnReadersMap.containsKey(columnDescriptor)) {
-            columnReader = columnReadersMap.get(columnDescriptor);
+        int ordinal = fileSchema.getColumns().indexOf(columnDescriptor);
+        if (ordinal < 0 || columnDescriptor.getMaxRepetitionLevel() != 0) {
+            return;
+        }
+
+        ParquetColumnChunkPageReader pageReader = fileReader.readColumn(columnDescriptor);
+        List<DataPage> pages = pageReader.getCompressedPages();
+        ParquetColumnReader columnReader = new ParquetColumnReader(columnDescriptor, pageReader);
+        columnReadersMap.put(columnDescriptor, columnReader);
+
+        boolean dictionaryMatches = columnReader.getDictionaryPage() == null ||
+                pagePredicate.matches(ImmutableMap.of(ordinal, new ParquetDictionaryDescriptor(columnDescriptor, columnReader.getDictionaryPage())));
+
+        // the column is not repeated, so every value of a page is a row
+        long firstRow = 0;
+        for (DataPage page : pages) {
+            if (!pageMatches(page, ordinal, dictionaryMatches)) {
+                skippedRows.add(Range.closedOpen(firstRow, firstRow + page.getValueCount()));
+            }
+            firstRow += page.getValueCount();
+        }
+    }
+
+    private boolean pageMatches(DataPage page, int ordinal, boolean dictionaryMatches)
+    {
+        Statistics<?> statistics;
+        Encoding valueEncoding;
+        if (page instanceof DataPageV1) {
+            statistics = ((DataPageV1) page).getStatistics();
+            valueEncoding = ((DataPageV1) page).getValueEncoding();
         }
         else {
+            statistics = ((DataPageV2) page).getStatistics();
+            valueEncoding = ((DataPageV2) page).getDataEncoding();
+        }
+
+        // a dictionary encoded page only contains values of the dictionary
+        if (!dictionaryMatches && valueEncoding.usesDictionary()) {
+            return false;
+        }
+        return statistics == null || pagePredicate.matches(page.getValueCount(), ImmutableMap.<Integer, Statistics<?>>of(ordinal, statistics));
+    }
+
+    /**
+     * Reads the current batch of a top level field of the requested schema.
+     */
+    public Block readBlock(parquet.schema.Type field, Type type)
+            throws IOException
+    {
+        String[] path = {field.getName()};
+        if (isNested(type)) {
+            return readNestedField(field, path, type).getBlock();
+        }
+        return getColumnReader(requestedSchema.getColumnDescription(path)).readBlock(batchSize, type);
+    }
+
+    private ParquetNestedBlock readNestedField(parquet.schema.Type field, String[] path, Type type)
+            throws IOException
+    {
+        String base = type.getTypeSignature().getBase();
+        if (ARRAY.equals(base)) {
+            return readArray(asGroupType(field, path, type), path, type);
+        }
+        if (MAP.equals(base)) {
+            return readMap(asGroupType(field, path, type), path, type);
+        }
+        if (ROW.equals(base)) {
+            return readStruct(asGroupType(field, path, type), path, type);
+        }
+        if (!field.isPrimitive()) {
+            throw new ParquetDecodingException(format("Field %s of type %s is not a primitive", String.join(".", path), type));
+        }
+        ColumnDescriptor columnDescriptor = requestedSchema.getColumnDescription(path);
+        int definitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        return getColumnReader(columnDescriptor).readNestedBlock(batchSize, field.isRepetition(OPTIONAL) ? definitionLevel - 1 : definitionLevel);
+    }
+
+    private ParquetNestedBlock readArray(GroupType field, String[] path, Type type)
+            throws IOException
+    {
+        if (field.getFieldCount() != 1) {
+            throw new ParquetDecodingException(format("Expected LIST column %s to only have one field, but has %s fields", String.join(".", path), field.getFieldCount()));
+        }
+
+        // The compatibility rules for lists that do not have the three levels of
+        // the Parquet specification are the same as in the record cursor
+        parquet.schema.Type repeatedType = field.getType(0);
+        String[] repeatedPath = ObjectArrays.concat(path, repeatedType.getName());
+        ParquetNestedBlock elements;
+        if (isElementType(repeatedType, field.getName())) {
+            elements = readNestedField(repeatedType, repeatedPath, type.getTypeParameters().get(0));
+        }
+        else {
+            GroupType repeatedGroup = repeatedType.asGroupType();
+            if (repeatedGroup.getFieldCount() != 1) {
+                throw new ParquetDecodingException(format("Expected LIST column %s to only have one element, but has %s elements", String.join(".", path), repeatedGroup.getFieldCount()));
+            }
+            parquet.schema.Type elementType = repeatedGroup.getType(0);
+            elements = readNestedField(elementType, ObjectArrays.concat(repeatedPath, elementType.getName()), type.getTypeParameters().get(0));
+        }
+        return elements.withBlock(createCollectionBlock(elements, elements.getBlock(), path, field, 1));
+    }
+
+    private ParquetNestedBlock readMap(GroupType field, String[] path, Type type)
+            throws IOException
+    {
+        if (field.getFieldCount() != 1 || field.getType(0).isPrimitive() || field.getType(0).asGroupType().getFieldCount() != 2) {
+            throw new ParquetDecodingException(format("Expected MAP column %s to have a repeated group with a key and a value", String.join(".", path)));
+        }
+        GroupType entryType = field.getType(0).asGroupType();
+        if (!entryType.getType(0).isPrimitive()) {
+            throw new ParquetDecodingException(format("Expected MAP column %s to have a primitive key", String.join(".", path)));
+        }
+
+        String[] entryPath = ObjectArrays.concat(path, entryType.getName());
+        List<Type> parameters = type.getTypeParameters();
+        ParquetNestedBlock keys = readNestedField(entryType.getType(0), ObjectArrays.concat(entryPath, entryType.getFieldName(0)), parameters.get(0));
+        ParquetNestedBlock values = readNestedField(entryType.getType(1), ObjectArrays.concat(entryPath, entryType.getFieldName(1)), parameters.get(1));
+        Block entries = new InterleavedBlock(new Block[] {keys.getBlock(), values.getBlock()});
+        return keys.withBlock(createCollectionBlock(keys, entries, path, field, 2));
+    }
+
+    private ParquetNestedBlock readStruct(GroupType field, String[] path, Type type)
+            throws IOException
+    {
+        List<Type> parameters = type.getTypeParameters();
+        if (field.getFieldCount() != parameters.size()) {
+            throw new ParquetDecodingException(format("Expected ROW column %s to have %s fields, but has %s fields", String.join(".", path), parameters.size(), field.getFieldCount()));
+        }
+
+        Block[] fieldBlocks = new Block[parameters.size()];
+        ParquetNestedBlock levels = null;
+        for (int i = 0; i < fieldBlocks.length; i++) {
+            parquet.schema.Type fieldType = field.getType(i);
+            ParquetNestedBlock fieldBlock = readNestedField(fieldType, ObjectArrays.concat(path, fieldType.getName()), parameters.get(i));
+            fieldBlocks[i] = fieldBlock.getBlock();
+            if (levels == null) {
+                levels = fieldBlock;
+            }
+        }
+
+        // a struct is defined at the levels of all its fields, so the levels of the first field are used
+        int repetitionLevel = requestedSchema.getMaxRepetitionLevel(path);
+        int definitionLevel = requestedSchema.getMaxDefinitionLevel(path);
+        int minDefinitionLevel = field.isRepetition(OPTIONAL) ? definitionLevel - 1 : definitionLevel;
+        int[] offsets = new int[levels.getLevelCount()];
+        boolean[] valueIsNull = new boolean[levels.getLevelCount()];
+        int positionCount = 0;
+        int offset = 0;
+        for (int i = 0; i < levels.getLevelCount(); i++) {
+            if (levels.getRepetitionLevel(i) <= repetitionLevel && levels.getDefinitionLevel(i) >= minDefinitionLevel) {
+                valueIsNull[positionCount] = levels.getDefinitionLevel(i) < definitionLevel;
+                if (!valueIsNull[positionCount]) {
+                    offset += fieldBlocks.length;
+                }
+                offsets[positionCount] = offset;
+                positionCount++;
+            }
+        }
+        Block block = new ArrayBlock(new InterleavedBlock(fieldBlocks), wrappedIntArray(offsets, 0, positionCount), 0, wrappedBooleanArray(valueIsNull, 0, positionCount));
+        return levels.withBlock(block);
+    }
+
+    /**
+     * Creates the block of an array or map field from the levels of one of its leaf columns.
+     * A level with a repetition level of at most the one of the field starts a new position,
+     * unless the field is not defined because an enclosing field is null or empty. Every
+     * level that defines the repeated group of the field adds an entry to the current position.
+     */
+    private Block createCollectionBlock(ParquetNestedBlock levels, Block entries, String[] path, GroupType field, int entrySize)
+    {
+        int repetitionLevel = requestedSchema.getMaxRepetitionLevel(path);
+        int definitionLevel = requestedSchema.getMaxDefinitionLevel(path);
+        int minDefinitionLevel = field.isRepetition(OPTIONAL) ? definitionLevel - 1 : definitionLevel;
+        int[] offsets = new int[levels.getLevelCount()];
+        boolean[] valueIsNull = new boolean[levels.getLevelCount()];
+        int positionCount = 0;
+        int offset = 0;
+        for (int i = 0; i < levels.getLevelCount(); i++) {
+            int currentRepetitionLevel = levels.getRepetitionLevel(i);
+            int currentDefinitionLevel = levels.getDefinitionLevel(i);
+            if (currentRepetitionLevel <= repetitionLevel) {
+                if (currentDefinitionLevel < minDefinitionLevel) {
+                    continue;
+                }
+                valueIsNull[positionCount] = currentDefinitionLevel < definitionLevel;
+                positionCount++;
+            }
+            if (currentRepetitionLevel <= repetitionLevel + 1 && currentDefinitionLevel > definitionLevel) {
+                offset += entrySize;
+            }
+            offsets[positionCount - 1] = offset;
+        }
+        return new ArrayBlock(entries, wrappedIntArray(offsets, 0, positionCount), 0, wrappedBooleanArray(valueIsNull, 0, positionCount));
+    }
+
+    private ParquetColumnReader getColumnReader(ColumnDescriptor columnDescriptor)
+            throws IOException
+    {
+        ParquetColumnReader columnReader = columnReadersMap.get(columnDescriptor);
+        if (columnReader == null) {
             columnReader = new ParquetColumnReader(columnDescriptor, fileReader.readColumn(columnDescriptor));
             columnReadersMap.put(columnDescriptor, columnReader);
         }
-        return columnReader.readBlock(vectorSize, type);
+
+        // catch up with the rows of skipped batches and of batches in which the column was not loaded
+        if (columnReader.getReadRowCount() < batchStartRow) {
+            columnReader.skipRows(batchStartRow - columnReader.getReadRowCount());
+        }
+        checkState(columnReader.getReadRowCount() == batchStartRow, "Column %s has already been read for this batch", columnDescriptor);
+        return columnReader;
+    }
+
+    private static GroupType asGroupType(parquet.schema.Type field, String[] path, Type type)
+    {
+        if (field.isPrimitive()) {
+            throw new ParquetDecodingException(format("Field %s of type %s is not a group", String.join(".", path), type));
+        }
+        return field.asGroupType();
+    }
+
+    private static boolean isNested(Type type)
+    {
+        String base = type.getTypeSignature().getBase();
+        return ARRAY.equals(base) || MAP.equals(base) || ROW.equals(base);
+    }
+
+    // copied over from Apache Hive
+    private static boolean isElementType(parquet.schema.Type repeatedType, String parentName)
+    {
+        if (repeatedType.isPrimitive() ||
+                (repeatedType.asGroupType().getFieldCount() > 1)) {
+            return true;
+        }
+
+        if (repeatedType.getName().equals("array")) {
+            return true; // existing avro data
+        }
+
+        if (repeatedType.getName().equals(parentName + "_tuple")) {
+            return true; // existing thrift data
+        }
+        // false for the following cases:
+        // * name is "list", which matches the spec
+        // * name is "bag", which indicates existing hive or pig data
+        // * ambiguous case, which should be assumed is 3-level according to spec
+        return false;
     }
 }
@@ -13,7 +13,6 @@
  */
 package com.facebook.presto.hive.parquet.reader.block;
 
-import com.facebook.presto.hive.parquet.reader.ParquetLevelReader;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import io.airlift.slice.Slices;
 import parquet.column.ColumnDescriptor;
@@ -31,17 +30,9 @@ public class ParquetBinaryBuilder
     }
 
     @Override
-    public void readValues(ValuesReader valuesReader, int valueNumber, ParquetLevelReader definitionReader)
+    public void readValue(ValuesReader valuesReader)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == descriptor.getMaxDefinitionLevel()) {
-                Binary binary = valuesReader.readBytes();
-                if (binary.length() != 0) {
-                    VARCHAR.writeSlice(blockBuilder, Slices.wrappedBuffer(binary.getBytes()));
-                    continue;
-                }
-            }
-            blockBuilder.appendNull();
-        }
+        Binary binary = valuesReader.readBytes();
+        VARCHAR.writeSlice(blockBuilder, Slices.wrappedBuffer(binary.getBytes()));
     }
 }
@@ -38,7 +38,24 @@ public abstract class ParquetBlockBuilder
         return blockBuilder.build();
     }
 
-    public abstract void readValues(ValuesReader valuesReader, int valueNumber, ParquetLevelReader definitionReader);
+    public void readValues(ValuesReader valuesReader, int valueNumber, ParquetLevelReader definitionReader)
+    {
+        for (int i = 0; i < valueNumber; i++) {
+            if (definitionReader.readLevel() == descriptor.getMaxDefinitionLevel()) {
+                readValue(valuesReader);
+            }
+            else {
+                blockBuilder.appendNull();
+            }
+        }
+    }
+
+    public void appendNull()
+    {
+        blockBuilder.appendNull();
+    }
+
+    public abstract void readValue(ValuesReader valuesReader);
 
     public static ParquetBlockBuilder createBlockBuilder(int size, ColumnDescriptor descriptor)
     {
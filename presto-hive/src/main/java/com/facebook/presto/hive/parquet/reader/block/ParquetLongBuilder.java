@@ -13,7 +13,6 @@
  */
 package com.facebook.presto.hive.parquet.reader.block;
 
-import com.facebook.presto.hive.parquet.reader.ParquetLevelReader;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import parquet.column.ColumnDescriptor;
 import parquet.column.values.ValuesReader;
@@ -29,15 +28,8 @@ public class ParquetLongBuilder
     }
 
     @Override
-    public void readValues(ValuesReader valuesReader, int valueNumber, ParquetLevelReader definitionReader)
+    public void readValue(ValuesReader valuesReader)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == descriptor.getMaxDefinitionLevel()) {
-                BIGINT.writeLong(blockBuilder, valuesReader.readLong());
-            }
-            else {
-                blockBuilder.appendNull();
-            }
-        }
+        BIGINT.writeLong(blockBuilder, valuesReader.readLong());
     }
 }
@@ -26,17 +26,17 @@ import com.google.common.base.Throwables;
 import io.airlift.slice.ByteArrays;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
-import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
-import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
-import org.apache.hadoop.hive.serde2.io.TimestampWritable;
-import org.apache.hadoop.hive.serde2.lazy.ByteArrayRef;
-import org.apache.hadoop.hive.serde2.lazybinary.LazyBinaryFactory;
-import org.apache.hadoop.hive.serde2.lazybinary.LazyBinaryObject;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.typeinfo.ListTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.MapTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.StructTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.io.WritableUtils;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 import static com.facebook.presto.hive.HiveType.HIVE_BINARY;
 import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
@@ -50,7 +50,6 @@ import static com.facebook.presto.hive.HiveType.HIVE_SHORT;
 import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.hive.HiveType.HIVE_TIMESTAMP;
 import static com.facebook.presto.hive.HiveUtil.isStructuralType;
-import static com.facebook.presto.hive.util.SerDeUtils.serializeObject;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
@@ -99,7 +98,7 @@ public class RcBinaryBlockLoader
     }
 
     @Override
-    public LazyBlockLoader<LazySliceArrayBlock> variableWidthBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType, ObjectInspector fieldInspector)
+    public LazyBlockLoader<LazySliceArrayBlock> variableWidthBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType)
     {
         if (HIVE_STRING.equals(hiveType) || HIVE_BINARY.equals(hiveType)) {
             return new LazySliceBlockLoader(batch, fieldId);
@@ -108,10 +107,10 @@ public class RcBinaryBlockLoader
     }
 
     @Override
-    public LazyBlockLoader<LazyArrayBlock> structuralBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType, ObjectInspector fieldInspector, Type type)
+    public LazyBlockLoader<LazyArrayBlock> structuralBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType, Type type)
     {
         checkArgument(isStructuralType(hiveType), "hiveType (" + hiveType + ") is not structuralType");
-        return new LazyStructuralBlockLoader(type, batch, fieldId, fieldInspector);
+        return new LazyStructuralBlockLoader(type, hiveType.getTypeInfo(), batch, fieldId);
     }
 
     private static final class LazyBooleanBlockLoader
@@ -135,7 +134,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int positionCount = block.getPositionCount();
@@ -143,12 +143,11 @@ public class RcBinaryBlockLoader
                 boolean[] vector = new boolean[positionCount];
 
                 for (int i = 0; i < positionCount; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         vector[i] = bytes[start] != 0;
                     }
                     else {
@@ -188,7 +187,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -196,12 +196,11 @@ public class RcBinaryBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         vector[i] = bytes[start];
                     }
                     else {
@@ -241,7 +240,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -249,15 +249,14 @@ public class RcBinaryBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
                         checkState(length == SIZE_OF_SHORT, "Short should be 2 bytes");
 
                         // the file format uses big endian
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         vector[i] = (long) Short.reverseBytes(ByteArrays.getShort(bytes, start));
                     }
                     else {
@@ -297,7 +296,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -305,11 +305,10 @@ public class RcBinaryBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (length == 0) {
                         isNull[i] = true;
                     }
@@ -353,7 +352,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -361,11 +361,10 @@ public class RcBinaryBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (length == 0) {
                         isNull[i] = true;
                     }
@@ -409,7 +408,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int positionCount = block.getPositionCount();
@@ -417,12 +417,11 @@ public class RcBinaryBlockLoader
                 long[] vector = new long[positionCount];
 
                 for (int i = 0; i < positionCount; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         long daysSinceEpoch = readVInt(bytes, start, length);
                         vector[i] = daysSinceEpoch;
                     }
@@ -463,7 +462,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -471,16 +471,12 @@ public class RcBinaryBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
-
-                        long seconds = TimestampWritable.getSeconds(bytes, start);
-                        long nanos = TimestampWritable.getNanos(bytes, start + SIZE_OF_INT);
-                        vector[i] = (seconds * 1000) + (nanos / 1_000_000);
+                        int start = column.getStart(position);
+                        vector[i] = readTimestamp(bytes, start);
                     }
                     else {
                         isNull[i] = true;
@@ -519,7 +515,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -527,14 +524,13 @@ public class RcBinaryBlockLoader
                 double[] vector = new double[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
                         checkState(length == SIZE_OF_INT, "Float should be 4 bytes");
 
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         int intBits = ByteArrays.getInt(bytes, start);
 
                         // the file format uses big endian
@@ -577,7 +573,8 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -585,14 +582,13 @@ public class RcBinaryBlockLoader
                 double[] vector = new double[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length != 0) {
                         checkState(length == SIZE_OF_LONG, "Double should be 8 bytes");
 
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         long longBits = ByteArrays.getLong(bytes, start);
 
                         // the file format uses big endian
@@ -635,19 +631,19 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
                 Slice[] vector = new Slice[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length > 0) {
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
+                        int start = column.getStart(position);
                         if ((length == 1) && bytes[start] == HIVE_EMPTY_STRING_BYTE) {
                             vector[i] = Slices.EMPTY_SLICE;
                         }
@@ -671,17 +667,17 @@ public class RcBinaryBlockLoader
             implements LazyBlockLoader<LazyArrayBlock>
     {
         private final Type type;
+        private final TypeInfo typeInfo;
         private final RcFileColumnsBatch batch;
         private final int fieldId;
-        private final ObjectInspector fieldInspector;
         private boolean loaded;
 
-        private LazyStructuralBlockLoader(Type type, RcFileColumnsBatch batch, int fieldId, ObjectInspector fieldInspector)
+        private LazyStructuralBlockLoader(Type type, TypeInfo typeInfo, RcFileColumnsBatch batch, int fieldId)
         {
             this.type = type;
+            this.typeInfo = typeInfo;
             this.batch = batch;
             this.fieldId = fieldId;
-            this.fieldInspector = fieldInspector;
         }
 
         @Override
@@ -692,24 +688,23 @@ public class RcBinaryBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
                 BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), batchSize);
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    int length = writable.getLength();
+                    int length = column.getLength(position);
                     if (length > 0) {
-                        byte[] bytes = writable.getData();
-                        int start = writable.getStart();
-                        LazyBinaryObject lazyObject = LazyBinaryFactory.createLazyBinaryObject(fieldInspector);
-                        ByteArrayRef byteArrayRef = new ByteArrayRef();
-                        byteArrayRef.setData(bytes);
-                        lazyObject.init(byteArrayRef, start, length);
-                        serializeObject(type, blockBuilder, lazyObject.getObject(), fieldInspector);
+                        int start = column.getStart(position);
+                        readStructuralValue(type, typeInfo, blockBuilder, bytes, start, length);
+                    }
+                    else {
+                        blockBuilder.appendNull();
                     }
                 }
 
@@ -723,6 +718,209 @@ public class RcBinaryBlockLoader
         }
     }
 
+    // structural values are written by LazyBinarySerDe, the top level value has no size prefix
+    private static void readStructuralValue(Type type, TypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length)
+    {
+        switch (typeInfo.getCategory()) {
+            case LIST:
+                readList(type, (ListTypeInfo) typeInfo, builder, bytes, start);
+                return;
+            case MAP:
+                readMap(type, (MapTypeInfo) typeInfo, builder, bytes, start);
+                return;
+            case STRUCT:
+                readStruct(type, (StructTypeInfo) typeInfo, builder, bytes, start, length);
+                return;
+        }
+        throw new UnsupportedOperationException("Unsupported column type: " + typeInfo);
+    }
+
+    private static void readList(Type type, ListTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start)
+    {
+        Type elementType = type.getTypeParameters().get(0);
+        TypeInfo elementTypeInfo = typeInfo.getListElementTypeInfo();
+
+        // the size is followed by a bit per element that is set for non null elements
+        int size = (int) readVInt(bytes, start);
+        int nullBitsStart = start + WritableUtils.decodeVIntSize(bytes[start]);
+        int offset = nullBitsStart + (size + 7) / 8;
+
+        BlockBuilder elementBuilder = builder.beginBlockEntry();
+        for (int i = 0; i < size; i++) {
+            if (isBitSet(bytes, nullBitsStart, i)) {
+                offset = readValue(elementType, elementTypeInfo, elementBuilder, bytes, offset);
+            }
+            else {
+                elementBuilder.appendNull();
+            }
+        }
+        builder.closeEntry();
+    }
+
+    private static void readMap(Type type, MapTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start)
+    {
+        Type keyType = type.getTypeParameters().get(0);
+        Type valueType = type.getTypeParameters().get(1);
+        TypeInfo keyTypeInfo = typeInfo.getMapKeyTypeInfo();
+        TypeInfo valueTypeInfo = typeInfo.getMapValueTypeInfo();
+
+        // the size is followed by a bit per key and per value that is set for non null entries
+        int size = (int) readVInt(bytes, start);
+        int nullBitsStart = start + WritableUtils.decodeVIntSize(bytes[start]);
+        int offset = nullBitsStart + (size * 2 + 7) / 8;
+
+        BlockBuilder entryBuilder = builder.beginBlockEntry();
+        for (int i = 0; i < size; i++) {
+            boolean keyIsNull = !isBitSet(bytes, nullBitsStart, i * 2);
+            boolean valueIsNull = !isBitSet(bytes, nullBitsStart, i * 2 + 1);
+
+            // Hive skips map entries with null keys
+            if (keyIsNull) {
+                if (!valueIsNull) {
+                    offset = readValue(valueType, valueTypeInfo, valueType.createBlockBuilder(new BlockBuilderStatus(), 1), bytes, offset);
+                }
+                continue;
+            }
+
+            offset = readValue(keyType, keyTypeInfo, entryBuilder, bytes, offset);
+            if (valueIsNull) {
+                entryBuilder.appendNull();
+            }
+            else {
+                offset = readValue(valueType, valueTypeInfo, entryBuilder, bytes, offset);
+            }
+        }
+        builder.closeEntry();
+    }
+
+    private static void readStruct(Type type, StructTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length)
+    {
+        List<Type> fieldTypes = type.getTypeParameters();
+        List<TypeInfo> fieldTypeInfos = typeInfo.getAllStructFieldTypeInfos();
+        checkArgument(fieldTypes.size() == fieldTypeInfos.size(), "Type %s does not match Hive type %s", type, typeInfo);
+
+        // every group of eight fields is preceded by a byte with a bit set for each non null field
+        int end = start + length;
+        int offset = start;
+        byte nullByte = 0;
+
+        BlockBuilder fieldBuilder = builder.beginBlockEntry();
+        for (int field = 0; field < fieldTypes.size(); field++) {
+            if (field % 8 == 0) {
+                // fields added to the table after the value was written are missing
+                nullByte = offset < end ? bytes[offset] : 0;
+                offset++;
+            }
+            if ((nullByte & (1 << (field % 8))) != 0) {
+                offset = readValue(fieldTypes.get(field), fieldTypeInfos.get(field), fieldBuilder, bytes, offset);
+            }
+            else {
+                fieldBuilder.appendNull();
+            }
+        }
+        builder.closeEntry();
+    }
+
+    // reads a value nested in a structural value and returns the offset after the value
+    private static int readValue(Type type, TypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int offset)
+    {
+        if (typeInfo.getCategory() != Category.PRIMITIVE) {
+            // nested structural values are prefixed with their size in big endian
+            int length = Integer.reverseBytes(ByteArrays.getInt(bytes, offset));
+            readStructuralValue(type, typeInfo, builder, bytes, offset + SIZE_OF_INT, length);
+            return offset + SIZE_OF_INT + length;
+        }
+
+        switch (((PrimitiveTypeInfo) typeInfo).getPrimitiveCategory()) {
+            case BOOLEAN:
+                type.writeBoolean(builder, bytes[offset] != 0);
+                return offset + 1;
+            case BYTE:
+                type.writeLong(builder, bytes[offset]);
+                return offset + 1;
+            case SHORT:
+                type.writeLong(builder, Short.reverseBytes(ByteArrays.getShort(bytes, offset)));
+                return offset + SIZE_OF_SHORT;
+            case INT:
+            case LONG:
+            case DATE:
+                type.writeLong(builder, readVInt(bytes, offset));
+                return offset + WritableUtils.decodeVIntSize(bytes[offset]);
+            case TIMESTAMP:
+                type.writeLong(builder, readTimestamp(bytes, offset));
+                return offset + getTimestampLength(bytes, offset);
+            case FLOAT:
+                type.writeDouble(builder, Float.intBitsToFloat(Integer.reverseBytes(ByteArrays.getInt(bytes, offset))));
+                return offset + SIZE_OF_INT;
+            case DOUBLE:
+                type.writeDouble(builder, Double.longBitsToDouble(Long.reverseBytes(ByteArrays.getLong(bytes, offset))));
+                return offset + SIZE_OF_LONG;
+            case STRING:
+            case BINARY:
+                int length = (int) readVInt(bytes, offset);
+                int valueStart = offset + WritableUtils.decodeVIntSize(bytes[offset]);
+                type.writeSlice(builder, Slices.wrappedBuffer(bytes), valueStart, length);
+                return valueStart + length;
+        }
+        throw new UnsupportedOperationException("Unsupported column type: " + typeInfo);
+    }
+
+    private static boolean isBitSet(byte[] bytes, int start, int bit)
+    {
+        return (bytes[start + bit / 8] & (1 << (bit % 8))) != 0;
+    }
+
+    // timestamps are written by TimestampWritable: the low 31 bits of the seconds and a flag
+    // for a following nanos value, that can in turn be followed by the high bits of the seconds
+    private static long readTimestamp(byte[] bytes, int start)
+    {
+        int secondsAndFlag = Integer.reverseBytes(ByteArrays.getInt(bytes, start));
+        long seconds = secondsAndFlag & Integer.MAX_VALUE;
+        long nanos = 0;
+        if (secondsAndFlag < 0) {
+            int nanosStart = start + SIZE_OF_INT;
+            long reversedNanos = readVInt(bytes, nanosStart);
+            if (reversedNanos < 0) {
+                reversedNanos = -reversedNanos - 1;
+                seconds |= readVInt(bytes, nanosStart + WritableUtils.decodeVIntSize(bytes[nanosStart])) << 31;
+            }
+
+            // the nanos are stored with the decimal digits reversed and trailing zeros removed
+            int digits = 0;
+            while (reversedNanos != 0) {
+                nanos = nanos * 10 + reversedNanos % 10;
+                reversedNanos /= 10;
+                digits++;
+            }
+            for (; digits < 9; digits++) {
+                nanos *= 10;
+            }
+        }
+        return (seconds * 1000) + (nanos / 1_000_000);
+    }
+
+    private static int getTimestampLength(byte[] bytes, int start)
+    {
+        int length = SIZE_OF_INT;
+        if (bytes[start] < 0) {
+            int nanosStart = start + SIZE_OF_INT;
+            length += WritableUtils.decodeVIntSize(bytes[nanosStart]);
+            if (WritableUtils.isNegativeVInt(bytes[nanosStart])) {
+                length += WritableUtils.decodeVIntSize(bytes[start + length]);
+            }
+        }
+        return length;
+    }
+
+    private static long readVInt(byte[] bytes, int start)
+    {
+        int length = WritableUtils.decodeVIntSize(bytes[start]);
+        if (length == 1) {
+            return bytes[start];
+        }
+        return readVInt(bytes, start, length);
+    }
+
     // faster version of org.apache.hadoop.io.WritableUtils.readVLong
     private static long readVInt(byte[] bytes, int start, int length)
     {
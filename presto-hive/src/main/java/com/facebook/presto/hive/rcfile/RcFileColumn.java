@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The decompressed values of one column of an RCFile row group. The values
+ * of all rows are stored back to back in a single byte array.
+ */
+public final class RcFileColumn
+{
+    private final byte[] data;
+    private final int[] offsets;
+
+    public RcFileColumn(byte[] data, int[] offsets)
+    {
+        this.data = requireNonNull(data, "data is null");
+        this.offsets = requireNonNull(offsets, "offsets is null");
+    }
+
+    public int getPositionCount()
+    {
+        return offsets.length - 1;
+    }
+
+    public byte[] getData()
+    {
+        return data;
+    }
+
+    public int getStart(int position)
+    {
+        return offsets[position];
+    }
+
+    public int getLength(int position)
+    {
+        return offsets[position + 1] - offsets[position];
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("positionCount", getPositionCount())
+                .add("size", data.length)
+                .toString();
+    }
+}
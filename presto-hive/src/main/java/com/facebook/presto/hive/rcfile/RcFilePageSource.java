@@ -37,25 +37,18 @@ import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
-import org.apache.hadoop.hive.ql.io.RCFile;
-import org.apache.hadoop.hive.ql.io.RCFile.Reader;
-import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
-import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
 import static com.facebook.presto.hive.HiveUtil.bigintPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.booleanPartitionKey;
 import static com.facebook.presto.hive.HiveUtil.datePartitionKey;
 import static com.facebook.presto.hive.HiveUtil.doublePartitionKey;
-import static com.facebook.presto.hive.HiveUtil.getTableObjectInspector;
 import static com.facebook.presto.hive.HiveUtil.timestampPartitionKey;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -80,17 +73,14 @@ public class RcFilePageSource
     public static final int MAX_FIXED_WIDTH_SIZE = 8;
     public static final int NULL_ENTRY_SIZE = 0;
 
-    private final RCFile.Reader recordReader;
+    private final RcFileReader recordReader;
     private final RcFileBlockLoader blockLoader;
     private final long startFilePosition;
-    private final long endFilePosition;
 
     private final List<String> columnNames;
     private final List<Type> types;
     private final List<HiveType> hiveTypes;
 
-    private final ObjectInspector[] fieldInspectors; // DON'T USE THESE UNLESS EXTRACTION WILL BE SLOW ANYWAY
-
     private final Block[] constantBlocks;
     private final int[] hiveColumnIndexes;
 
@@ -101,17 +91,14 @@ public class RcFilePageSource
 
     private boolean closed;
 
-    private final BytesRefArrayWritable[] columnBatch;
+    private final RcFileColumn[] columnBatch;
     private final boolean[] columnBatchLoaded;
 
     private long completedBytes;
 
     public RcFilePageSource(
-            Reader recordReader,
-            long offset,
-            long length,
+            RcFileReader recordReader,
             RcFileBlockLoader blockLoader,
-            Properties splitSchema,
             List<HivePartitionKey> partitionKeys,
             List<HiveColumnHandle> columns,
             DateTimeZone hiveStorageTimeZone,
@@ -119,25 +106,13 @@ public class RcFilePageSource
     {
         this.recordReader = requireNonNull(recordReader, "recordReader is null");
         this.blockLoader = requireNonNull(blockLoader, "blockLoader is null");
-        requireNonNull(splitSchema, "splitSchema is null");
         requireNonNull(partitionKeys, "partitionKeys is null");
         requireNonNull(columns, "columns is null");
         requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
         requireNonNull(typeManager, "typeManager is null");
 
-        // seek to start
-        try {
-            if (offset > recordReader.getPosition()) {
-                recordReader.sync(offset);
-            }
-
-            this.startFilePosition = recordReader.getPosition();
-        }
-        catch (IOException e) {
-            throw Throwables.propagate(e);
-        }
-
-        this.endFilePosition = offset + length;
+        // the reader is positioned at the first row group of the split
+        this.startFilePosition = recordReader.getPosition();
 
         Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(partitionKeys, HivePartitionKey::getName);
 
@@ -145,9 +120,6 @@ public class RcFilePageSource
 
         this.constantBlocks = new Block[size];
         this.hiveColumnIndexes = new int[size];
-        this.fieldInspectors = new ObjectInspector[size];
-
-        StructObjectInspector rowInspector = getTableObjectInspector(splitSchema);
 
         ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
         ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
@@ -164,10 +136,6 @@ public class RcFilePageSource
 
             hiveColumnIndexes[columnIndex] = column.getHiveColumnIndex();
 
-            if (!column.isPartitionKey()) {
-                fieldInspectors[columnIndex] = rowInspector.getStructFieldRef(column.getName()).getFieldObjectInspector();
-            }
-
             if (column.isPartitionKey()) {
                 HivePartitionKey partitionKey = partitionKeysByName.get(name);
                 checkArgument(partitionKey != null, "No value provided for partition key %s", name);
@@ -223,7 +191,7 @@ public class RcFilePageSource
 
                 constantBlocks[columnIndex] = blockBuilder.build();
             }
-            else if (hiveColumnIndexes[columnIndex] >= recordReader.getCurrentKeyBufferObj().getColumnNumber()) {
+            else if (hiveColumnIndexes[columnIndex] >= recordReader.getColumnCount()) {
                 // this partition may contain fewer fields than what's declared in the schema
                 // this happens when additional columns are added to the hive table after a partition has been created
                 BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_PAGE_SIZE, NULL_ENTRY_SIZE);
@@ -237,7 +205,7 @@ public class RcFilePageSource
         hiveTypes = hiveTypesBuilder.build();
         columnNames = namesBuilder.build();
 
-        columnBatch = new BytesRefArrayWritable[hiveColumnIndexes.length];
+        columnBatch = new RcFileColumn[hiveColumnIndexes.length];
         columnBatchLoaded = new boolean[hiveColumnIndexes.length];
     }
 
@@ -275,13 +243,12 @@ public class RcFilePageSource
 
             // if the batch has been consumed, read the next batch
             if (positionInBatch >= currentBatchSize) {
-                //noinspection deprecation
-                if (!recordReader.nextColumnsBatch() || recordReader.lastSeenSyncPos() >= endFilePosition) {
+                if (!recordReader.advance()) {
                     close();
                     return null;
                 }
 
-                currentBatchSize = recordReader.getCurrentKeyBufferObj().getNumberRows();
+                currentBatchSize = recordReader.getRowGroupRowCount();
                 positionInBatch = 0;
 
                 Arrays.fill(columnBatchLoaded, false);
@@ -302,10 +269,7 @@ public class RcFilePageSource
                     blocks[fieldId] = new LazyFixedWidthBlock(((FixedWidthType) type).getFixedSize(), currentPageSize, loader);
                 }
                 else if (type instanceof VariableWidthType) {
-                    LazyBlockLoader<LazySliceArrayBlock> loader = blockLoader.variableWidthBlockLoader(rcFileColumnsBatch,
-                            fieldId,
-                            hiveTypes.get(fieldId),
-                            fieldInspectors[fieldId]);
+                    LazyBlockLoader<LazySliceArrayBlock> loader = blockLoader.variableWidthBlockLoader(rcFileColumnsBatch, fieldId, hiveTypes.get(fieldId));
                     blocks[fieldId] = new LazySliceArrayBlock(currentPageSize, loader);
                 }
                 else {
@@ -313,7 +277,6 @@ public class RcFilePageSource
                             rcFileColumnsBatch,
                             fieldId,
                             hiveTypes.get(fieldId),
-                            fieldInspectors[fieldId],
                             type);
                     blocks[fieldId] = new LazyArrayBlock(loader);
                 }
@@ -339,7 +302,12 @@ public class RcFilePageSource
         }
         closed = true;
 
-        recordReader.close();
+        try {
+            recordReader.close();
+        }
+        catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
     }
 
     @Override
@@ -379,12 +347,12 @@ public class RcFilePageSource
             this.positionInBatch = positionInBatch;
         }
 
-        public BytesRefArrayWritable getColumn(int fieldId)
+        public RcFileColumn getColumn(int fieldId)
                 throws IOException
         {
             checkState(pageId == expectedBatchId);
             if (!columnBatchLoaded[fieldId]) {
-                columnBatch[fieldId] = recordReader.getColumn(hiveColumnIndexes[fieldId], columnBatch[fieldId]);
+                columnBatch[fieldId] = recordReader.readColumn(hiveColumnIndexes[fieldId]);
                 columnBatchLoaded[fieldId] = true;
             }
             return columnBatch[fieldId];
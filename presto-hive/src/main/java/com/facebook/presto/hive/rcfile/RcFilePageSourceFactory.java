@@ -21,11 +21,10 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Throwables;
-import com.google.common.collect.ImmutableList;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.hive.ql.io.RCFile;
 import org.apache.hadoop.hive.serde2.columnar.ColumnarSerDe;
 import org.apache.hadoop.hive.serde2.columnar.LazyBinaryColumnarSerDe;
 import org.joda.time.DateTimeZone;
@@ -36,12 +35,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 
-import static com.facebook.presto.hive.HiveSessionProperties.isOptimizedReaderEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isRcfileOptimizedReaderEnabled;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
-import static com.facebook.presto.hive.HiveUtil.setReadColumns;
-import static com.google.common.base.Predicates.not;
-import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Lists.transform;
 import static java.util.Objects.requireNonNull;
 
 public class RcFilePageSourceFactory
@@ -68,8 +63,7 @@ public class RcFilePageSourceFactory
             TupleDomain<HiveColumnHandle> effectivePredicate,
             DateTimeZone hiveStorageTimeZone)
     {
-        // todo remove this when GC issues are resolved
-        if (true || !isOptimizedReaderEnabled(session)) {
+        if (!isRcfileOptimizedReaderEnabled(session)) {
             return Optional.empty();
         }
 
@@ -80,30 +74,25 @@ public class RcFilePageSourceFactory
             blockLoader = new RcBinaryBlockLoader();
         }
         else if (deserializerClassName.equals(ColumnarSerDe.class.getName())) {
-            blockLoader = new RcTextBlockLoader(hiveStorageTimeZone);
+            blockLoader = new RcTextBlockLoader(hiveStorageTimeZone, schema);
         }
         else {
             return Optional.empty();
         }
 
-        // determine which hive columns we will read
-        List<HiveColumnHandle> readColumns = ImmutableList.copyOf(filter(columns, not(HiveColumnHandle::isPartitionKey)));
-        List<Integer> readHiveColumnIndexes = ImmutableList.copyOf(transform(readColumns, HiveColumnHandle::getHiveColumnIndex));
-
-        // Tell hive the columns we would like to read, this lets hive optimize reading column oriented files
-        setReadColumns(configuration, readHiveColumnIndexes);
-
-        // propagate serialization configuration to getRecordReader
-        for (String name : schema.stringPropertyNames()) {
-            if (name.startsWith("serialization.")) {
-                configuration.set(name, schema.getProperty(name));
-            }
-        }
-
-        RCFile.Reader recordReader;
+        // the reader only reads and decompresses the columns that are loaded by the page source
+        RcFileReader recordReader;
         try {
             FileSystem fileSystem = path.getFileSystem(configuration);
-            recordReader = new RCFile.Reader(fileSystem, path, configuration);
+            long fileSize = fileSystem.getFileStatus(path).getLen();
+            FSDataInputStream inputStream = fileSystem.open(path);
+            try {
+                recordReader = new RcFileReader(inputStream, fileSize, configuration, start, length);
+            }
+            catch (Exception e) {
+                inputStream.close();
+                throw e;
+            }
         }
         catch (Exception e) {
             throw Throwables.propagate(e);
@@ -112,10 +101,7 @@ public class RcFilePageSourceFactory
         try {
             return Optional.of(new RcFilePageSource(
                     recordReader,
-                    start,
-                    length,
                     blockLoader,
-                    schema,
                     partitionKeys,
                     columns,
                     hiveStorageTimeZone,
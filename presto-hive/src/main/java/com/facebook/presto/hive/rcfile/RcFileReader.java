@@ -0,0 +1,344 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.google.common.io.ByteStreams;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the row groups of an RCFile without going through the Hive RCFile
+ * reader. Only the columns that are requested are read and decompressed.
+ */
+public class RcFileReader
+        implements Closeable
+{
+    private static final byte[] RCFILE_MAGIC = "RCF".getBytes(UTF_8);
+    private static final byte[] SEQUENCE_FILE_MAGIC = "SEQ".getBytes(UTF_8);
+    private static final int CURRENT_VERSION = 1;
+    private static final int SEQUENCE_FILE_VERSION_WITH_METADATA = 6;
+
+    private static final String KEY_BUFFER_CLASS_NAME = "org.apache.hadoop.hive.ql.io.RCFile$KeyBuffer";
+    private static final String VALUE_BUFFER_CLASS_NAME = "org.apache.hadoop.hive.ql.io.RCFile$ValueBuffer";
+    private static final String COLUMN_COUNT_METADATA_KEY = "hive.io.rcfile.column.number";
+
+    private static final int SYNC_ESCAPE = -1;
+    private static final int SYNC_HASH_SIZE = 16;
+    private static final int SYNC_SIZE = SIZE_OF_INT + SYNC_HASH_SIZE;
+
+    private final FSDataInputStream input;
+    private final long fileSize;
+    private final long end;
+
+    private final int columnCount;
+    private final byte[] sync = new byte[SYNC_HASH_SIZE];
+    private final CompressionCodec codec;
+    private final Decompressor decompressor;
+
+    private long lastSeenSyncPosition;
+    private long nextRowGroupPosition;
+
+    private int rowGroupRowCount;
+    private final long[] columnPositions;
+    private final int[] columnCompressedSizes;
+    private final int[] columnUncompressedSizes;
+    private final Slice[] columnLengthBuffers;
+
+    private boolean closed;
+
+    public RcFileReader(FSDataInputStream input, long fileSize, Configuration configuration, long offset, long length)
+            throws IOException
+    {
+        this.input = requireNonNull(input, "input is null");
+        this.fileSize = fileSize;
+        requireNonNull(configuration, "configuration is null");
+        checkArgument(offset >= 0, "offset is negative");
+        checkArgument(length >= 0, "length is negative");
+        this.end = offset + length;
+
+        byte[] magic = new byte[RCFILE_MAGIC.length];
+        input.readFully(magic);
+        boolean sequenceFile = Arrays.equals(magic, SEQUENCE_FILE_MAGIC);
+        byte version = input.readByte();
+        if (sequenceFile) {
+            // files written before RCFile had its own header use the SequenceFile header
+            checkFormat(version == SEQUENCE_FILE_VERSION_WITH_METADATA, "Unsupported SequenceFile version %s", version);
+            String keyClassName = Text.readString(input);
+            String valueClassName = Text.readString(input);
+            checkFormat(keyClassName.equals(KEY_BUFFER_CLASS_NAME) && valueClassName.equals(VALUE_BUFFER_CLASS_NAME), "File is not an RCFile");
+        }
+        else {
+            checkFormat(Arrays.equals(magic, RCFILE_MAGIC), "File is not an RCFile");
+            checkFormat(version <= CURRENT_VERSION, "Unsupported RCFile version %s", version);
+        }
+
+        boolean compressed = input.readBoolean();
+        if (sequenceFile) {
+            checkFormat(!input.readBoolean(), "Block compressed RCFiles are not supported");
+        }
+
+        if (compressed) {
+            String codecClassName = Text.readString(input);
+            try {
+                Class<? extends CompressionCodec> codecClass = configuration.getClassByName(codecClassName).asSubclass(CompressionCodec.class);
+                codec = ReflectionUtils.newInstance(codecClass, configuration);
+            }
+            catch (ClassNotFoundException e) {
+                throw new IOException("Unknown RCFile compression codec " + codecClassName, e);
+            }
+            decompressor = CodecPool.getDecompressor(codec);
+        }
+        else {
+            codec = null;
+            decompressor = null;
+        }
+
+        int columnCount = 0;
+        int metadataEntries = input.readInt();
+        for (int i = 0; i < metadataEntries; i++) {
+            String key = Text.readString(input);
+            String value = Text.readString(input);
+            if (key.equals(COLUMN_COUNT_METADATA_KEY)) {
+                columnCount = Integer.parseInt(value);
+            }
+        }
+        this.columnCount = columnCount;
+
+        input.readFully(sync);
+
+        columnPositions = new long[columnCount];
+        columnCompressedSizes = new int[columnCount];
+        columnUncompressedSizes = new int[columnCount];
+        columnLengthBuffers = new Slice[columnCount];
+
+        // the row groups before the first sync marker after the start of the split belong to the previous split
+        nextRowGroupPosition = input.getPos();
+        if (offset > nextRowGroupPosition) {
+            nextRowGroupPosition = findNextSync(offset);
+        }
+    }
+
+    public int getColumnCount()
+    {
+        return columnCount;
+    }
+
+    /**
+     * Returns the position of the next row group in the file.
+     */
+    public long getPosition()
+    {
+        return nextRowGroupPosition;
+    }
+
+    public int getRowGroupRowCount()
+    {
+        return rowGroupRowCount;
+    }
+
+    /**
+     * Advances to the next row group of the split. Only the key of the row
+     * group is read, the column data is read by {@link #readColumn(int)}.
+     */
+    public boolean advance()
+            throws IOException
+    {
+        checkState(!closed, "reader is closed");
+        if (nextRowGroupPosition >= fileSize) {
+            return false;
+        }
+        input.seek(nextRowGroupPosition);
+
+        int recordLength = input.readInt();
+        if (recordLength == SYNC_ESCAPE) {
+            lastSeenSyncPosition = nextRowGroupPosition;
+            byte[] syncCheck = new byte[SYNC_HASH_SIZE];
+            input.readFully(syncCheck);
+            checkFormat(Arrays.equals(sync, syncCheck), "Invalid sync marker at position %s", lastSeenSyncPosition);
+            if (input.getPos() >= fileSize) {
+                nextRowGroupPosition = fileSize;
+                return false;
+            }
+            recordLength = input.readInt();
+        }
+
+        // the row group belongs to the split that contains the sync marker before it
+        if (lastSeenSyncPosition >= end) {
+            return false;
+        }
+
+        int keyLength = input.readInt();
+        int compressedKeyLength = input.readInt();
+        byte[] key = new byte[keyLength];
+        if (codec == null) {
+            input.readFully(key);
+        }
+        else {
+            byte[] compressedKey = new byte[compressedKeyLength];
+            input.readFully(compressedKey);
+            decompress(compressedKey, key);
+        }
+
+        long valuePosition = input.getPos();
+        nextRowGroupPosition = valuePosition + recordLength - compressedKeyLength;
+
+        SliceInput keyInput = wrappedBuffer(key).getInput();
+        rowGroupRowCount = WritableUtils.readVInt(keyInput);
+        for (int column = 0; column < columnCount; column++) {
+            columnPositions[column] = valuePosition;
+            columnCompressedSizes[column] = WritableUtils.readVInt(keyInput);
+            columnUncompressedSizes[column] = WritableUtils.readVInt(keyInput);
+            int lengthBufferSize = WritableUtils.readVInt(keyInput);
+            columnLengthBuffers[column] = keyInput.readSlice(lengthBufferSize);
+            valuePosition += columnCompressedSizes[column];
+        }
+        checkFormat(valuePosition == nextRowGroupPosition, "Column sizes of row group do not match the record length");
+        return true;
+    }
+
+    /**
+     * Reads and decompresses the values of a column of the current row group.
+     */
+    public RcFileColumn readColumn(int columnIndex)
+            throws IOException
+    {
+        checkState(!closed, "reader is closed");
+        checkArgument(columnIndex >= 0 && columnIndex < columnCount, "Invalid column index %s", columnIndex);
+
+        byte[] data = new byte[columnUncompressedSizes[columnIndex]];
+        if (codec == null) {
+            input.readFully(columnPositions[columnIndex], data);
+        }
+        else {
+            byte[] compressed = new byte[columnCompressedSizes[columnIndex]];
+            input.readFully(columnPositions[columnIndex], compressed);
+            decompress(compressed, data);
+        }
+
+        // the lengths are run length encoded, a negative value is the number of times the previous length repeats
+        int[] offsets = new int[rowGroupRowCount + 1];
+        SliceInput lengthInput = columnLengthBuffers[columnIndex].getInput();
+        int position = 0;
+        int length = 0;
+        while (lengthInput.isReadable()) {
+            int value = WritableUtils.readVInt(lengthInput);
+            int count = 1;
+            if (value < 0) {
+                count = ~value;
+            }
+            else {
+                length = value;
+            }
+            checkFormat(position + count <= rowGroupRowCount, "Column %s has more values than rows in the row group", columnIndex);
+            for (int i = 0; i < count; i++) {
+                offsets[position + 1] = offsets[position] + length;
+                position++;
+            }
+        }
+        checkFormat(position == rowGroupRowCount, "Column %s has fewer values than rows in the row group", columnIndex);
+        checkFormat(offsets[position] == data.length, "Values of column %s do not match the column size", columnIndex);
+
+        return new RcFileColumn(data, offsets);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (decompressor != null) {
+            CodecPool.returnDecompressor(decompressor);
+        }
+        input.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("columnCount", columnCount)
+                .add("compression", codec == null ? "none" : codec.getClass().getSimpleName())
+                .add("end", end)
+                .toString();
+    }
+
+    private long findNextSync(long offset)
+            throws IOException
+    {
+        if (offset + SYNC_SIZE >= fileSize) {
+            return fileSize;
+        }
+
+        // the hash of a sync marker follows the escape, so a marker starting at the offset is found
+        input.seek(offset + SIZE_OF_INT);
+        byte[] syncCheck = new byte[SYNC_HASH_SIZE];
+        input.readFully(syncCheck);
+        for (int i = 0; ; i++) {
+            int j = 0;
+            while (j < SYNC_HASH_SIZE && sync[j] == syncCheck[(i + j) % SYNC_HASH_SIZE]) {
+                j++;
+            }
+            if (j == SYNC_HASH_SIZE) {
+                return input.getPos() - SYNC_SIZE;
+            }
+            if (input.getPos() >= fileSize) {
+                return fileSize;
+            }
+            syncCheck[i % SYNC_HASH_SIZE] = input.readByte();
+        }
+    }
+
+    private void decompress(byte[] compressed, byte[] uncompressed)
+            throws IOException
+    {
+        decompressor.reset();
+        InputStream decompressedStream = codec.createInputStream(new ByteArrayInputStream(compressed), decompressor);
+        ByteStreams.readFully(decompressedStream, uncompressed);
+    }
+
+    private static void checkFormat(boolean condition, String message, Object... args)
+            throws IOException
+    {
+        if (!condition) {
+            throw new IOException(format(message, args));
+        }
+    }
+}
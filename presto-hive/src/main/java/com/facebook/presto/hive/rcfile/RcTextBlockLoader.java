@@ -25,16 +25,17 @@ import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Throwables;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
-import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
-import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
-import org.apache.hadoop.hive.serde2.lazy.ByteArrayRef;
-import org.apache.hadoop.hive.serde2.lazy.LazyFactory;
-import org.apache.hadoop.hive.serde2.lazy.LazyObject;
-import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.ListTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.MapTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.StructTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveBooleanParser.isFalse;
 import static com.facebook.presto.hive.HiveBooleanParser.isTrue;
@@ -55,20 +56,47 @@ import static com.facebook.presto.hive.HiveUtil.parseHiveDate;
 import static com.facebook.presto.hive.HiveUtil.parseHiveTimestamp;
 import static com.facebook.presto.hive.NumberParser.parseDouble;
 import static com.facebook.presto.hive.NumberParser.parseLong;
-import static com.facebook.presto.hive.util.SerDeUtils.serializeObject;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.Slices.wrappedBooleanArray;
 import static io.airlift.slice.Slices.wrappedDoubleArray;
 import static io.airlift.slice.Slices.wrappedLongArray;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static org.apache.hadoop.hive.serde.serdeConstants.COLLECTION_DELIM;
+import static org.apache.hadoop.hive.serde.serdeConstants.ESCAPE_CHAR;
+import static org.apache.hadoop.hive.serde.serdeConstants.FIELD_DELIM;
+import static org.apache.hadoop.hive.serde.serdeConstants.MAPKEY_DELIM;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_FORMAT;
+import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_NULL_FORMAT;
 
 public class RcTextBlockLoader
         implements RcFileBlockLoader
 {
+    private static final byte[] DEFAULT_SEPARATORS = {1, 2, 3, 4, 5, 6, 7, 8};
+    private static final String DEFAULT_NULL_SEQUENCE = "\\N";
+
     private final DateTimeZone hiveStorageTimeZone;
+    private final byte[] separators;
+    private final byte[] nullSequence;
+    private final boolean escaped;
+    private final byte escapeByte;
 
-    public RcTextBlockLoader(DateTimeZone hiveStorageTimeZone)
+    public RcTextBlockLoader(DateTimeZone hiveStorageTimeZone, Properties schema)
     {
-        this.hiveStorageTimeZone = hiveStorageTimeZone;
+        this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        requireNonNull(schema, "schema is null");
+
+        // same defaults as LazySimpleSerDe, only the first three separators can be changed
+        separators = DEFAULT_SEPARATORS.clone();
+        separators[0] = getByte(schema.getProperty(FIELD_DELIM, schema.getProperty(SERIALIZATION_FORMAT)), DEFAULT_SEPARATORS[0]);
+        separators[1] = getByte(schema.getProperty(COLLECTION_DELIM), DEFAULT_SEPARATORS[1]);
+        separators[2] = getByte(schema.getProperty(MAPKEY_DELIM), DEFAULT_SEPARATORS[2]);
+
+        nullSequence = schema.getProperty(SERIALIZATION_NULL_FORMAT, DEFAULT_NULL_SEQUENCE).getBytes(UTF_8);
+
+        String escapeProperty = schema.getProperty(ESCAPE_CHAR);
+        escaped = escapeProperty != null;
+        escapeByte = getByte(escapeProperty, (byte) '\\');
     }
 
     @Override
@@ -93,7 +121,7 @@ public class RcTextBlockLoader
     }
 
     @Override
-    public LazyBlockLoader<LazySliceArrayBlock> variableWidthBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType, ObjectInspector fieldInspector)
+    public LazyBlockLoader<LazySliceArrayBlock> variableWidthBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType)
     {
         if (HIVE_STRING.equals(hiveType)) {
             return new LazyStringBlockLoader(batch, fieldId);
@@ -105,10 +133,23 @@ public class RcTextBlockLoader
     }
 
     @Override
-    public LazyBlockLoader structuralBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType, ObjectInspector fieldInspector, Type type)
+    public LazyBlockLoader<LazyArrayBlock> structuralBlockLoader(RcFileColumnsBatch batch, int fieldId, HiveType hiveType, Type type)
     {
         checkArgument(isStructuralType(hiveType), "hiveType (" + hiveType + ") is not structuralType");
-        return new LazyStructuralBlockLoader(type, batch, fieldId, fieldInspector);
+        return new LazyStructuralBlockLoader(type, hiveType.getTypeInfo(), batch, fieldId);
+    }
+
+    private static byte getByte(String value, byte defaultValue)
+    {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Byte.parseByte(value);
+        }
+        catch (NumberFormatException e) {
+            return (byte) value.charAt(0);
+        }
     }
 
     private static boolean isNull(byte[] bytes, int start, int length)
@@ -137,7 +178,8 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int positionCount = block.getPositionCount();
@@ -145,11 +187,10 @@ public class RcTextBlockLoader
                 boolean[] vector = new boolean[positionCount];
 
                 for (int i = 0; i < positionCount; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (isTrue(bytes, start, length)) {
                         vector[i] = true;
                     }
@@ -193,7 +234,8 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -201,11 +243,10 @@ public class RcTextBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (length == 0 || isNull(bytes, start, length)) {
                         isNull[i] = true;
                     }
@@ -246,7 +287,8 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int positionCount = block.getPositionCount();
@@ -254,11 +296,10 @@ public class RcTextBlockLoader
                 long[] vector = new long[positionCount];
 
                 for (int i = 0; i < positionCount; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (length == 0 || isNull(bytes, start, length)) {
                         isNull[i] = true;
                     }
@@ -302,7 +343,8 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -310,11 +352,10 @@ public class RcTextBlockLoader
                 long[] vector = new long[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (length == 0 || isNull(bytes, start, length)) {
                         isNull[i] = true;
                     }
@@ -356,7 +397,8 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
@@ -364,11 +406,10 @@ public class RcTextBlockLoader
                 double[] vector = new double[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (length == 0 || isNull(bytes, start, length)) {
                         isNull[i] = true;
                     }
@@ -409,18 +450,18 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
                 Slice[] vector = new Slice[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (!isNull(bytes, start, length)) {
                         vector[i] = Slices.wrappedBuffer(Arrays.copyOfRange(bytes, start, start + length));
                     }
@@ -457,18 +498,18 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
                 Slice[] vector = new Slice[batchSize];
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
                     if (!isNull(bytes, start, length)) {
                         // yes we end up with an extra copy here because the Base64 only handles whole arrays
                         byte[] data = Arrays.copyOfRange(bytes, start, start + length);
@@ -486,21 +527,21 @@ public class RcTextBlockLoader
         }
     }
 
-    private static final class LazyStructuralBlockLoader
+    private final class LazyStructuralBlockLoader
             implements LazyBlockLoader<LazyArrayBlock>
     {
         private final RcFileColumnsBatch batch;
         private final int fieldId;
-        private final ObjectInspector fieldInspector;
+        private final TypeInfo typeInfo;
         private boolean loaded;
         private final Type type;
 
-        private LazyStructuralBlockLoader(Type type, RcFileColumnsBatch batch, int fieldId, ObjectInspector fieldInspector)
+        private LazyStructuralBlockLoader(Type type, TypeInfo typeInfo, RcFileColumnsBatch batch, int fieldId)
         {
             this.type = type;
+            this.typeInfo = typeInfo;
             this.batch = batch;
             this.fieldId = fieldId;
-            this.fieldInspector = fieldInspector;
         }
 
         @Override
@@ -511,25 +552,20 @@ public class RcTextBlockLoader
             }
 
             try {
-                BytesRefArrayWritable columnBatch = batch.getColumn(fieldId);
+                RcFileColumn column = batch.getColumn(fieldId);
+                byte[] bytes = column.getData();
                 int positionInBatch = batch.getPositionInBatch();
 
                 int batchSize = block.getPositionCount();
                 BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), batchSize);
 
                 for (int i = 0; i < batchSize; i++) {
-                    BytesRefWritable writable = columnBatch.unCheckedGet(i + positionInBatch);
+                    int position = i + positionInBatch;
 
-                    byte[] bytes = writable.getData();
-                    int start = writable.getStart();
-                    int length = writable.getLength();
-                    if (!isNull(bytes, start, length)) {
-                        LazyObject<? extends ObjectInspector> lazyObject = LazyFactory.createLazyObject(fieldInspector);
-                        ByteArrayRef byteArrayRef = new ByteArrayRef();
-                        byteArrayRef.setData(bytes);
-                        lazyObject.init(byteArrayRef, start, length);
-                        serializeObject(type, blockBuilder, lazyObject.getObject(), fieldInspector);
-                    }
+                    int start = column.getStart(position);
+                    int length = column.getLength(position);
+                    // the fields of a row are separated by the first separator, so the values of a column start at the second
+                    readValue(type, typeInfo, blockBuilder, bytes, start, length, 1);
                 }
 
                 block.copyFromBlock(blockBuilder.build());
@@ -541,4 +577,196 @@ public class RcTextBlockLoader
             }
         }
     }
+
+    private void readValue(Type type, TypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length, int level)
+    {
+        if (isNullSequence(bytes, start, length)) {
+            builder.appendNull();
+            return;
+        }
+
+        switch (typeInfo.getCategory()) {
+            case PRIMITIVE:
+                readPrimitive(type, (PrimitiveTypeInfo) typeInfo, builder, bytes, start, length);
+                return;
+            case LIST:
+                readList(type, (ListTypeInfo) typeInfo, builder, bytes, start, length, level);
+                return;
+            case MAP:
+                readMap(type, (MapTypeInfo) typeInfo, builder, bytes, start, length, level);
+                return;
+            case STRUCT:
+                readStruct(type, (StructTypeInfo) typeInfo, builder, bytes, start, length, level);
+                return;
+        }
+        throw new UnsupportedOperationException("Unsupported column type: " + typeInfo);
+    }
+
+    private void readList(Type type, ListTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length, int level)
+    {
+        Type elementType = type.getTypeParameters().get(0);
+        TypeInfo elementTypeInfo = typeInfo.getListElementTypeInfo();
+        int end = start + length;
+
+        BlockBuilder elementBuilder = builder.beginBlockEntry();
+        // an empty value is an empty list
+        if (length > 0) {
+            int elementStart = start;
+            while (true) {
+                int elementEnd = findSeparator(bytes, elementStart, end, separators[level]);
+                readValue(elementType, elementTypeInfo, elementBuilder, bytes, elementStart, elementEnd - elementStart, level + 1);
+                if (elementEnd == end) {
+                    break;
+                }
+                elementStart = elementEnd + 1;
+            }
+        }
+        builder.closeEntry();
+    }
+
+    private void readMap(Type type, MapTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length, int level)
+    {
+        Type keyType = type.getTypeParameters().get(0);
+        Type valueType = type.getTypeParameters().get(1);
+        TypeInfo keyTypeInfo = typeInfo.getMapKeyTypeInfo();
+        TypeInfo valueTypeInfo = typeInfo.getMapValueTypeInfo();
+        int end = start + length;
+
+        BlockBuilder entryBuilder = builder.beginBlockEntry();
+        // an empty value is an empty map
+        if (length > 0) {
+            int entryStart = start;
+            while (true) {
+                int entryEnd = findSeparator(bytes, entryStart, end, separators[level]);
+                int keyEnd = findSeparator(bytes, entryStart, entryEnd, separators[level + 1]);
+
+                // Hive skips map entries with null keys
+                if (!isNullSequence(bytes, entryStart, keyEnd - entryStart)) {
+                    readValue(keyType, keyTypeInfo, entryBuilder, bytes, entryStart, keyEnd - entryStart, level + 2);
+                    if (keyEnd < entryEnd) {
+                        readValue(valueType, valueTypeInfo, entryBuilder, bytes, keyEnd + 1, entryEnd - keyEnd - 1, level + 2);
+                    }
+                    else {
+                        entryBuilder.appendNull();
+                    }
+                }
+                if (entryEnd == end) {
+                    break;
+                }
+                entryStart = entryEnd + 1;
+            }
+        }
+        builder.closeEntry();
+    }
+
+    private void readStruct(Type type, StructTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length, int level)
+    {
+        List<Type> fieldTypes = type.getTypeParameters();
+        List<TypeInfo> fieldTypeInfos = typeInfo.getAllStructFieldTypeInfos();
+        checkArgument(fieldTypes.size() == fieldTypeInfos.size(), "Type %s does not match Hive type %s", type, typeInfo);
+        int end = start + length;
+
+        BlockBuilder fieldBuilder = builder.beginBlockEntry();
+        int fieldStart = start;
+        for (int field = 0; field < fieldTypes.size(); field++) {
+            // fields missing at the end of the value are null, extra fields are ignored
+            if (fieldStart > end) {
+                fieldBuilder.appendNull();
+                continue;
+            }
+            int fieldEnd = findSeparator(bytes, fieldStart, end, separators[level]);
+            readValue(fieldTypes.get(field), fieldTypeInfos.get(field), fieldBuilder, bytes, fieldStart, fieldEnd - fieldStart, level + 1);
+            fieldStart = fieldEnd + 1;
+        }
+        builder.closeEntry();
+    }
+
+    private void readPrimitive(Type type, PrimitiveTypeInfo typeInfo, BlockBuilder builder, byte[] bytes, int start, int length)
+    {
+        switch (typeInfo.getPrimitiveCategory()) {
+            case STRING:
+                type.writeSlice(builder, escaped ? unescape(bytes, start, length) : Slices.wrappedBuffer(bytes, start, length));
+                return;
+            case BINARY:
+                type.writeSlice(builder, base64Decode(Arrays.copyOfRange(bytes, start, start + length)));
+                return;
+        }
+
+        // values of other types that are empty or can not be parsed are null
+        if (length == 0) {
+            builder.appendNull();
+            return;
+        }
+        switch (typeInfo.getPrimitiveCategory()) {
+            case BOOLEAN:
+                if (isTrue(bytes, start, length)) {
+                    type.writeBoolean(builder, true);
+                }
+                else if (isFalse(bytes, start, length)) {
+                    type.writeBoolean(builder, false);
+                }
+                else {
+                    builder.appendNull();
+                }
+                return;
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+                type.writeLong(builder, parseLong(bytes, start, length));
+                return;
+            case FLOAT:
+            case DOUBLE:
+                type.writeDouble(builder, parseDouble(bytes, start, length));
+                return;
+            case DATE:
+                type.writeLong(builder, parseHiveDate(new String(bytes, start, length)));
+                return;
+            case TIMESTAMP:
+                type.writeLong(builder, parseHiveTimestamp(new String(bytes, start, length), hiveStorageTimeZone));
+                return;
+        }
+        throw new UnsupportedOperationException("Unsupported column type: " + typeInfo);
+    }
+
+    private int findSeparator(byte[] bytes, int start, int end, byte separator)
+    {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == separator) {
+                return i;
+            }
+            if (escaped && bytes[i] == escapeByte) {
+                i++;
+            }
+        }
+        return end;
+    }
+
+    private Slice unescape(byte[] bytes, int start, int length)
+    {
+        byte[] unescaped = new byte[length];
+        int unescapedLength = 0;
+        int end = start + length;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == escapeByte && i + 1 < end) {
+                i++;
+            }
+            unescaped[unescapedLength] = bytes[i];
+            unescapedLength++;
+        }
+        return Slices.wrappedBuffer(unescaped, 0, unescapedLength);
+    }
+
+    private boolean isNullSequence(byte[] bytes, int start, int length)
+    {
+        if (length != nullSequence.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (bytes[start + i] != nullSequence[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
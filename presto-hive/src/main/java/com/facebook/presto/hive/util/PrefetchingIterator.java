@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Iterator that applies an expensive function to the elements of a cheap source
+ * iterator, computing the results for up to {@code prefetchCount} elements ahead
+ * of the consumer in the background. The results are returned in source order.
+ * <p>
+ * A result that has not been started in the background when the consumer asks
+ * for it is computed by the consumer, so a saturated executor can not deadlock
+ * the iterator. This class is not thread safe.
+ */
+public class PrefetchingIterator<S, T>
+        extends AbstractIterator<T>
+{
+    private final Iterator<S> source;
+    private final Function<S, T> function;
+    private final Executor executor;
+    private final int prefetchCount;
+    private final Deque<Prefetch<S, T>> prefetches = new ArrayDeque<>();
+
+    public PrefetchingIterator(Iterator<S> source, Function<S, T> function, Executor executor, int prefetchCount)
+    {
+        checkArgument(prefetchCount > 0, "prefetchCount must be greater than zero");
+        this.source = requireNonNull(source, "source is null");
+        this.function = requireNonNull(function, "function is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.prefetchCount = prefetchCount;
+    }
+
+    public static <S, T> Iterable<T> prefetch(Iterable<S> source, Function<S, T> function, Executor executor, int prefetchCount)
+    {
+        return () -> new PrefetchingIterator<>(source.iterator(), function, executor, prefetchCount);
+    }
+
+    @Override
+    protected T computeNext()
+    {
+        if (prefetches.isEmpty() && !source.hasNext()) {
+            return endOfData();
+        }
+        // the element being returned counts against the prefetch count
+        startPrefetches(prefetchCount + 1);
+
+        Prefetch<S, T> prefetch = prefetches.poll();
+        prefetch.run();
+        T result = prefetch.getResult();
+
+        startPrefetches(prefetchCount);
+        return result;
+    }
+
+    private void startPrefetches(int count)
+    {
+        while (prefetches.size() < count && source.hasNext()) {
+            Prefetch<S, T> prefetch = new Prefetch<>(source.next(), function);
+            prefetches.add(prefetch);
+            executor.execute(prefetch::run);
+        }
+    }
+
+    private static class Prefetch<S, T>
+    {
+        private final S input;
+        private final Function<S, T> function;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        public Prefetch(S input, Function<S, T> function)
+        {
+            this.input = input;
+            this.function = function;
+        }
+
+        public void run()
+        {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(function.apply(input));
+            }
+            catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+
+        public T getResult()
+        {
+            try {
+                return result.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+            catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+    }
+}
@@ -469,8 +469,10 @@ public abstract class AbstractTestHiveClient
                 hiveClientConfig.getMaxSplitSize(),
                 hiveClientConfig.getMaxInitialSplitSize(),
                 hiveClientConfig.getMaxInitialSplits(),
-                false
-        );
+                false,
+                hiveClientConfig.getSplitLoaderConcurrency(),
+                hiveClientConfig.getPartitionBatchPrefetchCount(),
+                new HiveSplitLoaderStats());
         pageSinkProvider = new HivePageSinkProvider(hdfsEnvironment, metastoreClient, new GroupByHashPageIndexerFactory(), typeManager, new HiveClientConfig(), locationService, partitionUpdateCodec);
         pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, DEFAULT_HIVE_RECORD_CURSOR_PROVIDER, DEFAULT_HIVE_DATA_STREAM_FACTORIES, TYPE_MANAGER);
     }
@@ -863,6 +865,33 @@ public abstract class AbstractTestHiveClient
         assertEquals(result.getRowCount(), 100);
     }
 
+    @Test
+    public void testBucketedTableLayoutPartitioning()
+            throws Exception
+    {
+        ConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(new HiveClientConfig().setBucketExecutionEnabled(true)).getSessionProperties());
+
+        ConnectorTableHandle tableHandle = getTableHandle(tableBucketedStringInt);
+        Map<String, ColumnHandle> columnHandles = metadata.getColumnHandles(session, tableHandle);
+
+        // the preferred layout uses regular splits
+        List<ConnectorTableLayoutResult> tableLayoutResults = metadata.getTableLayouts(session, tableHandle, new Constraint<>(TupleDomain.all(), bindings -> true), Optional.empty());
+        assertEquals(tableLayoutResults.size(), 2);
+        assertEquals(tableLayoutResults.get(0).getTableLayout().getPartitioningColumns(), Optional.empty());
+
+        // in the second layout each bucket file of a partition is a single split, so the splits are partitioned on the bucketing and partition columns
+        ConnectorTableLayout layout = tableLayoutResults.get(1).getTableLayout();
+        assertEquals(layout.getPartitioningColumns(), Optional.of(ImmutableSet.of(columnHandles.get("t_string"), columnHandles.get("t_int"), columnHandles.get("ds"))));
+
+        // without bucket execution there is only the layout with regular splits
+        tableLayoutResults = metadata.getTableLayouts(newSession(), tableHandle, new Constraint<>(TupleDomain.all(), bindings -> true), Optional.empty());
+        assertEquals(getOnlyElement(tableLayoutResults).getTableLayout().getPartitioningColumns(), Optional.empty());
+
+        // tables that are not bucketed are partitioned arbitrarily
+        tableLayoutResults = metadata.getTableLayouts(session, getTableHandle(tablePartitionFormat), new Constraint<>(TupleDomain.all(), bindings -> true), Optional.empty());
+        assertEquals(getOnlyElement(tableLayoutResults).getTableLayout().getPartitioningColumns(), Optional.empty());
+    }
+
     private void assertTableIsBucketed(ConnectorTableHandle tableHandle)
             throws Exception
     {
@@ -170,6 +170,7 @@ public abstract class AbstractTestHiveClientS3
                 new NamenodeStats(),
                 hdfsEnvironment,
                 new HadoopDirectoryLister(),
+                new HiveSplitLoaderStats(),
                 executor);
         pageSinkProvider = new HivePageSinkProvider(hdfsEnvironment, metastoreClient, new GroupByHashPageIndexerFactory(), typeManager, new HiveClientConfig(), locationService, partitionUpdateCodec);
         pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, DEFAULT_HIVE_RECORD_CURSOR_PROVIDER, DEFAULT_HIVE_DATA_STREAM_FACTORIES, TYPE_MANAGER);
@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.testing.TestingConnectorSession;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_BUCKET_FILES;
+import static com.facebook.presto.hive.HiveStorageFormat.TEXTFILE;
+import static com.facebook.presto.hive.UnpartitionedPartition.UNPARTITIONED_PARTITION;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestBackgroundHiveSplitLoader
+{
+    private static final int BUCKET_COUNT = 2;
+
+    private File directory;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testBucketFiles()
+            throws Exception
+    {
+        writeFile("000001_0");
+        writeFile("000000_0");
+
+        // every bucket file is a single split, in the order of the bucket numbers
+        List<HiveSplit> splits = getSplits(true, Optional.empty());
+        assertEquals(splits.size(), 2);
+        assertSplit(splits.get(0), "000000_0");
+        assertSplit(splits.get(1), "000001_0");
+
+        splits = getSplits(true, Optional.of(new HiveBucketing.HiveBucket(1, BUCKET_COUNT)));
+        assertEquals(splits.size(), 1);
+        assertSplit(splits.get(0), "000001_0");
+    }
+
+    @Test
+    public void testBucketFileCountMismatch()
+            throws Exception
+    {
+        writeFile("000000_0");
+        writeFile("000001_0");
+        writeFile("000002_0");
+
+        assertInvalidBucketFiles();
+
+        // without bucket execution the files are read with regular splits
+        assertEquals(getSplits(false, Optional.empty()).size(), 3);
+    }
+
+    @Test
+    public void testDirectoryInBucketDirectory()
+            throws Exception
+    {
+        writeFile("000000_0");
+        assertTrue(new File(directory, "000001_0").mkdir());
+
+        assertInvalidBucketFiles();
+    }
+
+    private void assertInvalidBucketFiles()
+    {
+        try {
+            getSplits(true, Optional.empty());
+            fail("expected PrestoException");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), HIVE_INVALID_BUCKET_FILES.toErrorCode());
+        }
+    }
+
+    private void assertSplit(HiveSplit split, String fileName)
+    {
+        assertEquals(new Path(split.getPath()).getName(), fileName);
+        assertEquals(split.getStart(), 0);
+        assertEquals(split.getLength(), new File(directory, fileName).length());
+    }
+
+    private void writeFile(String name)
+            throws IOException
+    {
+        Files.write("1\n2\n3\n", new File(directory, name), UTF_8);
+    }
+
+    private List<HiveSplit> getSplits(boolean bucketExecution, Optional<HiveBucketing.HiveBucket> bucket)
+    {
+        HiveClientConfig config = new HiveClientConfig();
+        HdfsEnvironment hdfsEnvironment = new HdfsEnvironment(new HiveHdfsConfiguration(new HdfsConfigurationUpdater(config)), config);
+        ConnectorSession session = new TestingConnectorSession(new HiveSessionProperties(config).getSessionProperties());
+
+        HivePartition hivePartition = new HivePartition(new SchemaTableName("test_schema", "test_table"), TupleDomain.all(), bucket);
+        BackgroundHiveSplitLoader splitLoader = new BackgroundHiveSplitLoader(
+                "test",
+                createTable(),
+                ImmutableList.of(new HivePartitionMetadata(hivePartition, UNPARTITIONED_PARTITION)),
+                bucket,
+                bucketExecution,
+                new DataSize(64, MEGABYTE),
+                session,
+                hdfsEnvironment,
+                new NamenodeStats(),
+                new HadoopDirectoryLister(),
+                directExecutor(),
+                1,
+                new DataSize(32, MEGABYTE),
+                0,
+                false,
+                new HiveSplitLoaderStats());
+
+        // the direct executor loads all splits before start returns
+        HiveSplitSource splitSource = new HiveSplitSource("test", 100, splitLoader, directExecutor());
+        splitLoader.start(splitSource);
+
+        ImmutableList.Builder<HiveSplit> splits = ImmutableList.builder();
+        while (!splitSource.isFinished()) {
+            for (ConnectorSplit split : getFutureValue(splitSource.getNextBatch(100))) {
+                splits.add((HiveSplit) split);
+            }
+        }
+        return splits.build();
+    }
+
+    private Table createTable()
+    {
+        SerDeInfo serdeInfo = new SerDeInfo();
+        serdeInfo.setSerializationLib(TEXTFILE.getSerDe());
+        serdeInfo.setParameters(ImmutableMap.of());
+
+        StorageDescriptor sd = new StorageDescriptor();
+        sd.setLocation(directory.toURI().toString());
+        sd.setCols(ImmutableList.of(new FieldSchema("t_bigint", "bigint", null)));
+        sd.setSerdeInfo(serdeInfo);
+        sd.setInputFormat(TEXTFILE.getInputFormat());
+        sd.setOutputFormat(TEXTFILE.getOutputFormat());
+        sd.setBucketCols(ImmutableList.of("t_bigint"));
+        sd.setNumBuckets(BUCKET_COUNT);
+        sd.setParameters(ImmutableMap.of());
+
+        Table table = new Table();
+        table.setDbName("test_schema");
+        table.setTableName("test_table");
+        table.setPartitionKeys(ImmutableList.of());
+        table.setParameters(ImmutableMap.of());
+        table.setSd(sd);
+        return table;
+    }
+}
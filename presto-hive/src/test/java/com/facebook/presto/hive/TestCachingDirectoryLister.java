@@ -0,0 +1,206 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import io.airlift.testing.TestingTicker;
+import io.airlift.units.Duration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private static final Duration EXPIRE_TIME = new Duration(1, MINUTES);
+
+    private File directory;
+    private FileSystem fileSystem;
+    private CountingDirectoryLister delegate;
+    private TestingTicker ticker;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        directory = Files.createTempDir();
+        fileSystem = FileSystem.getLocal(new Configuration()).getRawFileSystem();
+        delegate = new CountingDirectoryLister();
+        ticker = new TestingTicker();
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testHitAndMiss()
+            throws Exception
+    {
+        writeFile("a");
+        writeFile("b");
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, EXPIRE_TIME, 1000, ticker);
+
+        assertEquals(list(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(lister.getMisses().getTotalCount(), 1);
+        assertEquals(lister.getHits().getTotalCount(), 0);
+
+        assertEquals(list(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(lister.getHits().getTotalCount(), 1);
+        assertEquals(lister.getCachedDirectories(), 1);
+
+        // a different directory is a miss
+        File subdirectory = Files.createTempDir();
+        try {
+            assertEquals(names(lister.list(fileSystem, new Path(subdirectory.toURI()))), ImmutableSet.of());
+            assertEquals(delegate.getListCount(), 2);
+            assertEquals(lister.getMisses().getTotalCount(), 2);
+            assertEquals(lister.getCachedDirectories(), 2);
+        }
+        finally {
+            deleteRecursively(subdirectory);
+        }
+    }
+
+    @Test
+    public void testExpiry()
+            throws Exception
+    {
+        writeFile("a");
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, EXPIRE_TIME, 1000, ticker);
+        assertEquals(list(lister), ImmutableSet.of("a"));
+
+        // a file added while the listing is cached is not seen until the listing expires
+        writeFile("b");
+        ticker.increment(59, SECONDS);
+        assertEquals(list(lister), ImmutableSet.of("a"));
+        assertEquals(delegate.getListCount(), 1);
+
+        ticker.increment(1, SECONDS);
+        assertEquals(list(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getMisses().getTotalCount(), 2);
+        assertEquals(lister.getHits().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testFlushCache()
+            throws Exception
+    {
+        writeFile("a");
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, EXPIRE_TIME, 1000, ticker);
+        list(lister);
+
+        writeFile("b");
+        lister.flushCache();
+        assertEquals(lister.getCachedDirectories(), 0);
+        assertEquals(list(lister), ImmutableSet.of("a", "b"));
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testListingLargerThanCache()
+            throws Exception
+    {
+        writeFile("a");
+        writeFile("b");
+        writeFile("c");
+
+        // the cache is weighed by the number of files, so a listing larger than the cache is never kept
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, EXPIRE_TIME, 2, ticker);
+        assertEquals(list(lister), ImmutableSet.of("a", "b", "c"));
+        assertEquals(list(lister), ImmutableSet.of("a", "b", "c"));
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getHits().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        writeFile("a");
+        for (CachingDirectoryLister lister : ImmutableSet.of(
+                new CachingDirectoryLister(delegate, new Duration(0, MINUTES), 1000, ticker),
+                new CachingDirectoryLister(delegate, EXPIRE_TIME, 0, ticker))) {
+            int listCount = delegate.getListCount();
+            list(lister);
+            list(lister);
+            assertEquals(delegate.getListCount(), listCount + 2);
+            assertEquals(lister.getCachedDirectories(), 0);
+            assertEquals(lister.getHits().getTotalCount(), 0);
+        }
+    }
+
+    private Set<String> list(CachingDirectoryLister lister)
+            throws IOException
+    {
+        return names(lister.list(fileSystem, new Path(directory.toURI())));
+    }
+
+    private static Set<String> names(RemoteIterator<LocatedFileStatus> iterator)
+            throws IOException
+    {
+        ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        while (iterator.hasNext()) {
+            names.add(iterator.next().getPath().getName());
+        }
+        return names.build();
+    }
+
+    private void writeFile(String name)
+            throws IOException
+    {
+        Files.write("test", new File(directory, name), UTF_8);
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private final DirectoryLister delegate = new HadoopDirectoryLister();
+        private int listCount;
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+                throws IOException
+        {
+            listCount++;
+            return delegate.list(fs, path);
+        }
+
+        public int getListCount()
+        {
+            return listCount;
+        }
+    }
+}
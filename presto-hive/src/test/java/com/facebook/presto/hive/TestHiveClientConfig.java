@@ -52,10 +52,15 @@ public class TestHiveClientConfig
                 .setMetastoreTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(10)
                 .setMaxPartitionBatchSize(100)
+                .setSplitLoaderConcurrency(100)
+                .setPartitionBatchPrefetchCount(2)
+                .setFileStatusCacheExpireTime(new Duration(0, TimeUnit.SECONDS))
+                .setFileStatusCacheSize(1_000_000)
                 .setMaxInitialSplits(200)
                 .setMaxInitialSplitSize(new DataSize(32, Unit.MEGABYTE))
                 .setDomainCompactionThreshold(100)
                 .setForceLocalScheduling(false)
+                .setBucketExecutionEnabled(false)
                 .setMaxConcurrentFileRenames(20)
                 .setRecursiveDirWalkerEnabled(false)
                 .setDfsTimeout(new Duration(10, TimeUnit.SECONDS))
@@ -88,10 +93,17 @@ public class TestHiveClientConfig
                 .setOptimizedReaderEnabled(true)
                 .setParquetPredicatePushdownEnabled(false)
                 .setParquetOptimizedReaderEnabled(false)
+                .setRcfileOptimizedReaderEnabled(false)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
                 .setOrcMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
-                .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE)));
+                .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE))
+                .setOrcNativeWriterEnabled(true)
+                .setOrcMetadataCacheSize(new DataSize(16, Unit.MEGABYTE))
+                .setFileCacheEnabled(false)
+                .setFileCacheDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-file-cache"))
+                .setFileCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setFileCacheBlockSize(new DataSize(1, Unit.MEGABYTE)));
     }
 
     @Test
@@ -114,6 +126,10 @@ public class TestHiveClientConfig
                 .put("hive.metastore-timeout", "20s")
                 .put("hive.metastore.partition-batch-size.min", "1")
                 .put("hive.metastore.partition-batch-size.max", "1000")
+                .put("hive.split-loader-concurrency", "20")
+                .put("hive.metastore.partition-batch-prefetch-count", "0")
+                .put("hive.file-status-cache-expire-time", "5m")
+                .put("hive.file-status-cache-size", "1000")
                 .put("hive.dfs-timeout", "33s")
                 .put("hive.dfs.connect.timeout", "20s")
                 .put("hive.dfs.connect.max-retries", "10")
@@ -124,6 +140,7 @@ public class TestHiveClientConfig
                 .put("hive.max-initial-split-size", "16MB")
                 .put("hive.domain-compaction-threshold", "42")
                 .put("hive.recursive-directories", "true")
+                .put("hive.bucket-execution.enabled", "true")
                 .put("hive.storage-format", "SEQUENCEFILE")
                 .put("hive.respect-table-format", "false")
                 .put("hive.immutable-partitions", "true")
@@ -151,9 +168,16 @@ public class TestHiveClientConfig
                 .put("hive.optimized-reader.enabled", "false")
                 .put("hive.parquet-predicate-pushdown.enabled", "true")
                 .put("hive.parquet-optimized-reader.enabled", "true")
+                .put("hive.rcfile-optimized-reader.enabled", "true")
                 .put("hive.orc.max-merge-distance", "22kB")
                 .put("hive.orc.max-buffer-size", "44kB")
                 .put("hive.orc.stream-buffer-size", "55kB")
+                .put("hive.orc.native-writer.enabled", "false")
+                .put("hive.orc.metadata-cache-size", "64MB")
+                .put("hive.file-cache.enabled", "true")
+                .put("hive.file-cache.directory", "/ssd/cache")
+                .put("hive.file-cache.max-size", "100GB")
+                .put("hive.file-cache.block-size", "4MB")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -173,10 +197,15 @@ public class TestHiveClientConfig
                 .setMetastoreTimeout(new Duration(20, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(1)
                 .setMaxPartitionBatchSize(1000)
+                .setSplitLoaderConcurrency(20)
+                .setPartitionBatchPrefetchCount(0)
+                .setFileStatusCacheExpireTime(new Duration(5, TimeUnit.MINUTES))
+                .setFileStatusCacheSize(1000)
                 .setMaxInitialSplits(10)
                 .setMaxInitialSplitSize(new DataSize(16, Unit.MEGABYTE))
                 .setDomainCompactionThreshold(42)
                 .setForceLocalScheduling(true)
+                .setBucketExecutionEnabled(true)
                 .setMaxConcurrentFileRenames(100)
                 .setRecursiveDirWalkerEnabled(true)
                 .setDfsTimeout(new Duration(33, TimeUnit.SECONDS))
@@ -209,10 +238,17 @@ public class TestHiveClientConfig
                 .setOptimizedReaderEnabled(false)
                 .setParquetPredicatePushdownEnabled(true)
                 .setParquetOptimizedReaderEnabled(true)
+                .setRcfileOptimizedReaderEnabled(true)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
                 .setOrcMaxBufferSize(new DataSize(44, Unit.KILOBYTE))
-                .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE));
+                .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE))
+                .setOrcNativeWriterEnabled(false)
+                .setOrcMetadataCacheSize(new DataSize(64, Unit.MEGABYTE))
+                .setFileCacheEnabled(true)
+                .setFileCacheDirectory(new File("/ssd/cache"))
+                .setFileCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setFileCacheBlockSize(new DataSize(4, Unit.MEGABYTE));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
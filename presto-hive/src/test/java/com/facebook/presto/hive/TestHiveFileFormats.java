@@ -120,19 +120,26 @@ public class TestHiveFileFormats
         }
     }
 
-    @Test(enabled = false)
+    @Test
     public void testRcTextPageSource()
             throws Exception
     {
+        List<TestColumn> testColumns = ImmutableList.copyOf(filter(TEST_COLUMNS, testColumn -> {
+            // RC file does not support complex type as key of a map
+            return !testColumn.getName().equals("t_map_null_key_complex_key_value");
+        }));
+
         HiveOutputFormat<?, ?> outputFormat = new RCFileOutputFormat();
         InputFormat<?, ?> inputFormat = new RCFileInputFormat<>();
         @SuppressWarnings("deprecation")
         SerDe serde = new ColumnarSerDe();
-        File file = File.createTempFile("presto_test", "rc-binary");
+        File file = File.createTempFile("presto_test", "rc-text");
         file.delete();
         try {
-            FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, TEST_COLUMNS, NUM_ROWS);
-            testPageSourceFactory(new RcFilePageSourceFactory(TYPE_MANAGER), split, inputFormat, serde, TEST_COLUMNS);
+            FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, testColumns, NUM_ROWS);
+            TestingConnectorSession session = new TestingConnectorSession(
+                    new HiveSessionProperties(new HiveClientConfig().setRcfileOptimizedReaderEnabled(true)).getSessionProperties());
+            testPageSourceFactory(new RcFilePageSourceFactory(TYPE_MANAGER), split, inputFormat, serde, testColumns, session);
         }
         finally {
             //noinspection ResultOfMethodCallIgnored
@@ -165,10 +172,15 @@ public class TestHiveFileFormats
         }
     }
 
-    @Test(enabled = false)
+    @Test
     public void testRcBinaryPageSource()
             throws Exception
     {
+        List<TestColumn> testColumns = ImmutableList.copyOf(filter(TEST_COLUMNS, testColumn -> {
+            // RC file does not support complex type as key of a map
+            return !testColumn.getName().equals("t_map_null_key_complex_key_value");
+        }));
+
         HiveOutputFormat<?, ?> outputFormat = new RCFileOutputFormat();
         InputFormat<?, ?> inputFormat = new RCFileInputFormat<>();
         @SuppressWarnings("deprecation")
@@ -176,8 +188,10 @@ public class TestHiveFileFormats
         File file = File.createTempFile("presto_test", "rc-binary");
         file.delete();
         try {
-            FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, TEST_COLUMNS, NUM_ROWS);
-            testPageSourceFactory(new RcFilePageSourceFactory(TYPE_MANAGER), split, inputFormat, serde, TEST_COLUMNS);
+            FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, testColumns, NUM_ROWS);
+            TestingConnectorSession session = new TestingConnectorSession(
+                    new HiveSessionProperties(new HiveClientConfig().setRcfileOptimizedReaderEnabled(true)).getSessionProperties());
+            testPageSourceFactory(new RcFilePageSourceFactory(TYPE_MANAGER), split, inputFormat, serde, testColumns, session);
         }
         finally {
             //noinspection ResultOfMethodCallIgnored
@@ -275,6 +289,33 @@ public class TestHiveFileFormats
         }
     }
 
+    @Test
+    public void testParquetPageSourceComplexTypes()
+            throws Exception
+    {
+        List<TestColumn> testColumns = getTestColumnsSupportedByParquet().stream()
+                .filter(column -> column.getObjectInspector().getCategory() != Category.PRIMITIVE)
+                .filter(column -> !hasType(column.getObjectInspector(), PrimitiveCategory.TIMESTAMP, PrimitiveCategory.BINARY))
+                .collect(toList());
+
+        HiveOutputFormat<?, ?> outputFormat = new MapredParquetOutputFormat();
+        InputFormat<?, ?> inputFormat = new MapredParquetInputFormat();
+        @SuppressWarnings("deprecation")
+        SerDe serde = new ParquetHiveSerDe();
+        File file = File.createTempFile("presto_test", "parquet");
+        file.delete();
+        try {
+            FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, testColumns, NUM_ROWS);
+            TestingConnectorSession session = new TestingConnectorSession(
+                    new HiveSessionProperties(new HiveClientConfig().setParquetOptimizedReaderEnabled(true)).getSessionProperties());
+            testPageSourceFactory(new ParquetPageSourceFactory(TYPE_MANAGER, false), split, inputFormat, serde, testColumns, session);
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
     @Test
     public void testParquetUseColumnNames()
             throws Exception
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestHivePageSourceProvider
+{
+    private static final HiveColumnHandle PARTITION_COLUMN = new HiveColumnHandle("test", "ds", HIVE_STRING, HIVE_STRING.getTypeSignature(), -1, true);
+    private static final HiveColumnHandle DATA_COLUMN = new HiveColumnHandle("test", "value", HIVE_LONG, HIVE_LONG.getTypeSignature(), 0, false);
+
+    @Test
+    public void testDynamicFilterSkipsPartition()
+    {
+        RecordingPageSourceFactory pageSourceFactory = new RecordingPageSourceFactory();
+        HivePageSourceProvider pageSourceProvider = createPageSourceProvider(pageSourceFactory);
+
+        // the split is not read when the dynamic filter does not include the value of its partition
+        ConnectorPageSource pageSource = pageSourceProvider.createPageSource(SESSION, createSplit(), ImmutableList.of(PARTITION_COLUMN, DATA_COLUMN), TupleDomain.withColumnDomains(
+                ImmutableMap.<ColumnHandle, Domain>of(PARTITION_COLUMN, Domain.singleValue(VARCHAR, utf8Slice("2016-01-02")))));
+        assertEquals(pageSource.getNextPage(), null);
+        assertTrue(pageSource.isFinished());
+        assertTrue(pageSourceFactory.getPredicates().isEmpty());
+
+        pageSourceProvider.createPageSource(SESSION, createSplit(), ImmutableList.of(PARTITION_COLUMN, DATA_COLUMN), TupleDomain.none());
+        assertTrue(pageSourceFactory.getPredicates().isEmpty());
+    }
+
+    @Test
+    public void testDynamicFilterOfMatchingPartition()
+    {
+        RecordingPageSourceFactory pageSourceFactory = new RecordingPageSourceFactory();
+        HivePageSourceProvider pageSourceProvider = createPageSourceProvider(pageSourceFactory);
+
+        // the split is read with the dynamic filter, so that the file reader can skip the rows that do not match
+        Domain partitionDomain = Domain.singleValue(VARCHAR, utf8Slice("2016-01-01"));
+        Domain dataDomain = Domain.singleValue(BIGINT, 42L);
+        pageSourceProvider.createPageSource(SESSION, createSplit(), ImmutableList.of(PARTITION_COLUMN, DATA_COLUMN), TupleDomain.withColumnDomains(
+                ImmutableMap.<ColumnHandle, Domain>of(PARTITION_COLUMN, partitionDomain, DATA_COLUMN, dataDomain)));
+        assertEquals(pageSourceFactory.getPredicates(), ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(PARTITION_COLUMN, partitionDomain, DATA_COLUMN, dataDomain))));
+
+        // without a dynamic filter the split is read with its own predicate
+        pageSourceProvider.createPageSource(SESSION, createSplit(), ImmutableList.of(PARTITION_COLUMN, DATA_COLUMN));
+        assertEquals(pageSourceFactory.getPredicates().get(1), TupleDomain.all());
+    }
+
+    private static HivePageSourceProvider createPageSourceProvider(HivePageSourceFactory pageSourceFactory)
+    {
+        HiveClientConfig config = new HiveClientConfig();
+        HdfsEnvironment hdfsEnvironment = new HdfsEnvironment(new HiveHdfsConfiguration(new HdfsConfigurationUpdater(config)), config);
+        return new HivePageSourceProvider(config, hdfsEnvironment, ImmutableSet.of(), ImmutableSet.of(pageSourceFactory), TYPE_MANAGER);
+    }
+
+    private static HiveSplit createSplit()
+    {
+        // the file does not exist, because the recording page source factory never opens it
+        return new HiveSplit(
+                "test",
+                "test_schema",
+                "test_table",
+                "ds=2016-01-01",
+                "file:///tmp/does-not-exist",
+                0,
+                100,
+                new Properties(),
+                ImmutableList.of(new HivePartitionKey("ds", HIVE_STRING, "2016-01-01")),
+                ImmutableList.of(),
+                false,
+                TupleDomain.all());
+    }
+
+    private static class RecordingPageSourceFactory
+            implements HivePageSourceFactory
+    {
+        private final List<TupleDomain<HiveColumnHandle>> predicates = new ArrayList<>();
+
+        @Override
+        public Optional<? extends ConnectorPageSource> createPageSource(
+                Configuration configuration,
+                ConnectorSession session,
+                Path path,
+                long start,
+                long length,
+                Properties schema,
+                List<HiveColumnHandle> columns,
+                List<HivePartitionKey> partitionKeys,
+                TupleDomain<HiveColumnHandle> effectivePredicate,
+                DateTimeZone hiveStorageTimeZone)
+        {
+            predicates.add(effectivePredicate);
+            return Optional.of(new FixedPageSource(ImmutableList.of()));
+        }
+
+        public List<TupleDomain<HiveColumnHandle>> getPredicates()
+        {
+            return predicates;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.InMemoryHiveMetastore;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsData;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.LongColumnStatsData;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.StringColumnStatsData;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static org.apache.hadoop.hive.common.StatsSetupConst.ROW_COUNT;
+import static org.apache.hadoop.hive.metastore.TableType.MANAGED_TABLE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestHiveTableStatistics
+{
+    private static final String CONNECTOR_ID = "test";
+    private static final String SCHEMA_NAME = "test_schema";
+
+    private File directory;
+    private StatisticsMetastore metastore;
+    private HiveMetadata metadata;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        directory = Files.createTempDir();
+        metastore = new StatisticsMetastore(new File(directory, "metastore"));
+
+        HiveClientConfig config = new HiveClientConfig();
+        HdfsEnvironment hdfsEnvironment = new HdfsEnvironment(new HiveHdfsConfiguration(new HdfsConfigurationUpdater(config)), config);
+        metadata = new HiveMetadata(
+                new HiveConnectorId(CONNECTOR_ID),
+                config,
+                metastore,
+                hdfsEnvironment,
+                new HivePartitionManager(new HiveConnectorId(CONNECTOR_ID), config),
+                newDirectExecutorService(),
+                TYPE_MANAGER,
+                new HiveLocationService(metastore, hdfsEnvironment),
+                jsonCodec(PartitionUpdate.class));
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testUnpartitionedTable()
+    {
+        metastore.createTable(createTable("unpartitioned", ImmutableList.of(), "1000"));
+
+        LongColumnStatsData longStatistics = new LongColumnStatsData(100, 2000);
+        longStatistics.setLowValue(1);
+        longStatistics.setHighValue(5000);
+        metastore.setColumnStatistics("unpartitioned", ImmutableMap.of(
+                "t_bigint", new ColumnStatisticsObj("t_bigint", "bigint", ColumnStatisticsData.longStats(longStatistics)),
+                "t_string", new ColumnStatisticsObj("t_string", "string", ColumnStatisticsData.stringStats(new StringColumnStatsData(10, 5.0, 0, 10)))));
+
+        TableStatistics statistics = metadata.getTableStatistics(SESSION, tableHandle("unpartitioned"));
+        assertEquals(statistics.getRowCount(), OptionalLong.of(1000));
+
+        // the estimated number of distinct values is capped by the row count
+        ColumnStatistics bigintStatistics = statistics.getColumnStatistics(columnHandle("unpartitioned", "t_bigint"));
+        assertEquals(bigintStatistics.getDistinctValuesCount(), OptionalLong.of(1000));
+        assertEquals(bigintStatistics.getNullsFraction(), OptionalDouble.of(0.1));
+        assertEquals(bigintStatistics.getMin(), Optional.of(1L));
+        assertEquals(bigintStatistics.getMax(), Optional.of(5000L));
+
+        ColumnStatistics stringStatistics = statistics.getColumnStatistics(columnHandle("unpartitioned", "t_string"));
+        assertEquals(stringStatistics.getDistinctValuesCount(), OptionalLong.of(10));
+        assertEquals(stringStatistics.getNullsFraction(), OptionalDouble.of(0));
+        assertFalse(stringStatistics.getMin().isPresent());
+
+        // a column without statistics is unknown
+        assertEquals(statistics.getColumnStatistics(columnHandle("unpartitioned", "t_double")), ColumnStatistics.unknown());
+    }
+
+    @Test
+    public void testRowCountNotComputed()
+    {
+        // Hive records -1 when the statistics have not been computed
+        metastore.createTable(createTable("not_computed", ImmutableList.of(), "-1"));
+        assertEquals(metadata.getTableStatistics(SESSION, tableHandle("not_computed")).getRowCount(), OptionalLong.empty());
+    }
+
+    @Test
+    public void testPartitionedTable()
+    {
+        metastore.createTable(createTable("partitioned", ImmutableList.of(new FieldSchema("ds", "string", null)), null));
+        metastore.addPartitions(SCHEMA_NAME, "partitioned", ImmutableList.of(
+                createPartition("partitioned", "2016-01-01", "10"),
+                createPartition("partitioned", "2016-01-02", "20"),
+                createPartition("partitioned", "2016-01-03", "30")));
+
+        // column statistics are not merged across partitions
+        TableStatistics statistics = metadata.getTableStatistics(SESSION, tableHandle("partitioned"));
+        assertEquals(statistics.getRowCount(), OptionalLong.of(60));
+        assertEquals(statistics.getColumnStatistics(), ImmutableMap.of());
+
+        // a layout only counts the partitions that remain after pruning
+        HiveTableLayoutHandle layout = new HiveTableLayoutHandle(
+                CONNECTOR_ID,
+                ImmutableList.of(createHivePartition("partitioned", "ds=2016-01-01"), createHivePartition("partitioned", "ds=2016-01-03")),
+                TupleDomain.all());
+        assertEquals(metadata.getTableStatistics(SESSION, tableHandle("partitioned"), layout).getRowCount(), OptionalLong.of(40));
+
+        HiveTableLayoutHandle empty = new HiveTableLayoutHandle(CONNECTOR_ID, ImmutableList.of(), TupleDomain.all());
+        assertEquals(metadata.getTableStatistics(SESSION, tableHandle("partitioned"), empty).getRowCount(), OptionalLong.of(0));
+
+        // a single partition without statistics makes the total unknown
+        metastore.addPartitions(SCHEMA_NAME, "partitioned", ImmutableList.of(createPartition("partitioned", "2016-01-04", null)));
+        assertEquals(metadata.getTableStatistics(SESSION, tableHandle("partitioned")).getRowCount(), OptionalLong.empty());
+    }
+
+    private ConnectorTableHandle tableHandle(String tableName)
+    {
+        return new HiveTableHandle(CONNECTOR_ID, SCHEMA_NAME, tableName);
+    }
+
+    private ColumnHandle columnHandle(String tableName, String columnName)
+    {
+        return metadata.getColumnHandles(SESSION, tableHandle(tableName)).get(columnName);
+    }
+
+    private static HivePartition createHivePartition(String tableName, String partitionId)
+    {
+        return new HivePartition(new SchemaTableName(SCHEMA_NAME, tableName), TupleDomain.all(), partitionId, ImmutableMap.of(), Optional.empty());
+    }
+
+    private static Table createTable(String tableName, List<FieldSchema> partitionKeys, String rowCount)
+    {
+        StorageDescriptor sd = new StorageDescriptor();
+        sd.setCols(ImmutableList.of(
+                new FieldSchema("t_bigint", "bigint", null),
+                new FieldSchema("t_string", "string", null),
+                new FieldSchema("t_double", "double", null)));
+        sd.setParameters(ImmutableMap.of());
+
+        Table table = new Table();
+        table.setDbName(SCHEMA_NAME);
+        table.setTableName(tableName);
+        table.setTableType(MANAGED_TABLE.name());
+        table.setPartitionKeys(partitionKeys);
+        table.setParameters(rowCount == null ? ImmutableMap.of() : ImmutableMap.of(ROW_COUNT, rowCount));
+        table.setSd(sd);
+        return table;
+    }
+
+    private static Partition createPartition(String tableName, String value, String rowCount)
+    {
+        Partition partition = new Partition();
+        partition.setDbName(SCHEMA_NAME);
+        partition.setTableName(tableName);
+        partition.setValues(ImmutableList.of(value));
+        partition.setParameters(rowCount == null ? ImmutableMap.of() : ImmutableMap.of(ROW_COUNT, rowCount));
+        return partition;
+    }
+
+    private static class StatisticsMetastore
+            extends InMemoryHiveMetastore
+    {
+        private final Map<String, Map<String, ColumnStatisticsObj>> columnStatistics = new HashMap<>();
+
+        public StatisticsMetastore(File baseDirectory)
+        {
+            super(baseDirectory);
+        }
+
+        public void setColumnStatistics(String tableName, Map<String, ColumnStatisticsObj> statistics)
+        {
+            columnStatistics.put(tableName, statistics);
+        }
+
+        @Override
+        public Optional<Map<String, ColumnStatisticsObj>> getTableColumnStatistics(String databaseName, String tableName)
+        {
+            return getTable(databaseName, tableName).map(table -> columnStatistics.getOrDefault(tableName, ImmutableMap.of()));
+        }
+    }
+}
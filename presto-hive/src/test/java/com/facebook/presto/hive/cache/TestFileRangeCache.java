@@ -0,0 +1,351 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.google.common.io.Files;
+import com.sun.management.UnixOperatingSystemMXBean;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestFileRangeCache
+{
+    private static final int BLOCK_SIZE = 4096;
+
+    private File tempDir;
+    private File dataFile;
+    private byte[] data;
+    private FileSystem fileSystem;
+    private FileStatus fileStatus;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        dataFile = new File(tempDir, "data");
+        data = new byte[(BLOCK_SIZE * 5) + 123];
+        new Random(42).nextBytes(data);
+        Files.write(data, dataFile);
+
+        Path path = new Path(dataFile.toURI());
+        fileSystem = path.getFileSystem(new Configuration());
+        fileStatus = fileSystem.getFileStatus(path);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testReadThrough()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(1, MEGABYTE));
+        FileRangeCacheStats stats = cache.getStats();
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            assertRange(inputStream, 100, 200);
+            assertEquals(stats.getMisses().getTotalCount(), 1);
+            assertEquals(stats.getHits().getTotalCount(), 0);
+
+            // same block
+            assertRange(inputStream, 1000, 50);
+            assertEquals(stats.getMisses().getTotalCount(), 1);
+            assertEquals(stats.getHits().getTotalCount(), 1);
+
+            // spans the first three blocks
+            assertRange(inputStream, 10, BLOCK_SIZE * 2 + 10);
+            assertEquals(stats.getMisses().getTotalCount(), 3);
+            assertEquals(stats.getHits().getTotalCount(), 2);
+
+            // spans the last two blocks, the last block is shorter than the block size
+            assertRange(inputStream, data.length - 200, 200);
+            assertRange(inputStream, data.length - 200, 200);
+            assertEquals(stats.getMisses().getTotalCount(), 5);
+            assertEquals(stats.getHits().getTotalCount(), 4);
+        }
+        assertEquals(cache.getCachedBlocks(), 5);
+        assertEquals(stats.getHitRate(), 4.0 / 9.0);
+    }
+
+    @Test
+    public void testSequentialRead()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(1, MEGABYTE));
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            inputStream.seek(BLOCK_SIZE - 10);
+            byte[] buffer = new byte[20];
+            inputStream.readFully(buffer);
+            assertEquals(buffer, Arrays.copyOfRange(data, BLOCK_SIZE - 10, BLOCK_SIZE + 10));
+            assertEquals(inputStream.getPos(), BLOCK_SIZE + 10);
+            assertEquals(inputStream.read(), data[BLOCK_SIZE + 10] & 0xFF);
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testReadPastEnd()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(1, MEGABYTE));
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            inputStream.readFully(data.length - 10, new byte[20]);
+        }
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(BLOCK_SIZE * 2, BYTE));
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            for (int block = 0; block < 5; block++) {
+                assertRange(inputStream, block * BLOCK_SIZE, BLOCK_SIZE);
+            }
+        }
+        assertTrue(cache.getCachedBlocks() <= 2);
+        assertTrue(cache.getStats().getEvictions().getTotalCount() >= 3);
+        // evicted blocks are removed from the local disk
+        assertTrue(new File(tempDir, "cache").list().length <= 2);
+    }
+
+    @Test
+    public void testDeletedBlockFile()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(1, MEGABYTE));
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            assertRange(inputStream, 100, 200);
+            for (File file : new File(tempDir, "cache").listFiles()) {
+                assertTrue(file.delete());
+            }
+
+            // the missing block file is read remotely
+            assertRange(inputStream, 100, 200);
+            assertEquals(cache.getStats().getMisses().getTotalCount(), 2);
+            assertEquals(cache.getStats().getHits().getTotalCount(), 0);
+        }
+    }
+
+    @Test
+    public void testStop()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(1, MEGABYTE));
+
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            assertRange(inputStream, 100, 200);
+            cache.stop();
+
+            // removed blocks are deleted, so they are read remotely again
+            assertEquals(new File(tempDir, "cache").list().length, 0);
+            assertRange(inputStream, 100, 200);
+            assertEquals(cache.getStats().getMisses().getTotalCount(), 2);
+        }
+    }
+
+    @Test
+    public void testOpenFilesBounded()
+            throws Exception
+    {
+        OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+        if (!(operatingSystem instanceof UnixOperatingSystemMXBean)) {
+            throw new SkipException("open file descriptors are not available");
+        }
+        UnixOperatingSystemMXBean unix = (UnixOperatingSystemMXBean) operatingSystem;
+
+        int blocks = 1000;
+        File largeFile = new File(tempDir, "large");
+        byte[] largeData = new byte[blocks * BLOCK_SIZE];
+        new Random(42).nextBytes(largeData);
+        Files.write(largeData, largeFile);
+        Path path = new Path(largeFile.toURI());
+        FileStatus largeStatus = fileSystem.getFileStatus(path);
+
+        // the cache holds half of the blocks, so it is full after the first half
+        FileRangeCache cache = createCache(new DataSize(blocks / 2 * BLOCK_SIZE, BYTE));
+        try (FSDataInputStream inputStream = cache.open(fileSystem, largeStatus)) {
+            long openFiles = unix.getOpenFileDescriptorCount();
+            byte[] buffer = new byte[BLOCK_SIZE];
+            for (int block = 0; block < blocks; block++) {
+                inputStream.readFully(block * BLOCK_SIZE, buffer);
+                inputStream.readFully(block * BLOCK_SIZE, buffer);
+            }
+            assertTrue(cache.getStats().getEvictions().getTotalCount() > 0);
+            assertEquals(cache.getStats().getHits().getTotalCount(), blocks);
+
+            // a full cache does not keep a file open per block
+            assertTrue(unix.getOpenFileDescriptorCount() - openFiles < blocks / 10);
+        }
+    }
+
+    @Test(timeOut = 60_000)
+    public void testConcurrentMisses()
+            throws Exception
+    {
+        FileRangeCache cache = createCache(new DataSize(1, MEGABYTE));
+        SlowInputStream remote = new SlowInputStream(data);
+
+        int threads = 8;
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = newFixedThreadPool(threads);
+        try {
+            List<Future<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int position = i * 10;
+                futures.add(executor.submit(() -> {
+                    byte[] buffer = new byte[100];
+                    barrier.await();
+                    cache.readBlock(new FSDataInputStream(remote), "path", 0, 0, BLOCK_SIZE, position, buffer, 0, buffer.length);
+                    return buffer;
+                }));
+            }
+            for (int i = 0; i < threads; i++) {
+                assertEquals(futures.get(i).get(), Arrays.copyOfRange(data, i * 10, i * 10 + 100));
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // the block is fetched once and the other readers wait for it
+        assertEquals(remote.getReads(), 1);
+        assertEquals(cache.getStats().getMisses().getTotalCount(), 1);
+        assertEquals(cache.getStats().getHits().getTotalCount(), threads - 1);
+        assertEquals(cache.getCachedBlocks(), 1);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        FileRangeCache cache = FileRangeCache.disabledFileRangeCache();
+        try (FSDataInputStream inputStream = cache.open(fileSystem, fileStatus)) {
+            assertRange(inputStream, 100, 200);
+        }
+        assertEquals(cache.getCachedBlocks(), 0);
+        assertEquals(cache.getStats().getMisses().getTotalCount(), 0);
+    }
+
+    private FileRangeCache createCache(DataSize maxSize)
+            throws Exception
+    {
+        FileRangeCache cache = new FileRangeCache(true, new File(tempDir, "cache"), maxSize, new DataSize(BLOCK_SIZE / 1024, KILOBYTE));
+        cache.start();
+        return cache;
+    }
+
+    private void assertRange(FSDataInputStream inputStream, int position, int length)
+            throws Exception
+    {
+        byte[] buffer = new byte[length];
+        inputStream.readFully(position, buffer);
+        assertEquals(buffer, Arrays.copyOfRange(data, position, position + length));
+    }
+
+    private static class SlowInputStream
+            extends FSInputStream
+    {
+        private final byte[] data;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        public SlowInputStream(byte[] data)
+        {
+            this.data = data;
+        }
+
+        public int getReads()
+        {
+            return reads.get();
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            reads.incrementAndGet();
+            try {
+                // give the other readers time to miss the same block
+                MILLISECONDS.sleep(200);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            System.arraycopy(data, (int) position, buffer, offset, length);
+        }
+
+        @Override
+        public void seek(long position)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long getPos()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean seekToNewSource(long targetPosition)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.hive.metastore.TableType;
+import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
@@ -328,6 +329,13 @@ public class InMemoryHiveMetastore
         return Optional.ofNullable(relations.get(schemaTableName));
     }
 
+    @Override
+    public Optional<Map<String, ColumnStatisticsObj>> getTableColumnStatistics(String databaseName, String tableName)
+    {
+        // statistics are never computed for tables in this metastore
+        return getTable(databaseName, tableName).map(table -> ImmutableMap.of());
+    }
+
     @Override
     public Set<String> getRoles(String user)
     {
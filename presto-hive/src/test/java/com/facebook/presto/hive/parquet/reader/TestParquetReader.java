@@ -0,0 +1,287 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate.ColumnReference;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.RowType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import parquet.hadoop.metadata.FileMetaData;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.schema.MessageType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetReader
+{
+    private static final int ROW_COUNT = 10_000;
+    private static final List<String> NAMES = ImmutableList.of("a", "c", "e");
+
+    private File tempDir;
+    private Path path;
+    private Configuration configuration;
+    private MessageType fileSchema;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        tempDir = Files.createTempDir();
+        path = new Path(new File(tempDir, "data.parquet").toURI());
+        configuration = new Configuration();
+        writeTestFile(path);
+        fileSchema = ParquetMetadataReader.readFooter(configuration, path).getFileMetaData().getSchema();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testSkipNonMatchingPages()
+            throws Exception
+    {
+        ParquetReader reader = createReader("id", BIGINT, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 4000L, true, 4100L, true)), false));
+        try {
+            List<Long> ids = new ArrayList<>();
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block block = reader.readBlock(fileSchema.getType("id"), BIGINT);
+                assertEquals(block.getPositionCount(), batchSize);
+                for (int position = 0; position < batchSize; position++) {
+                    ids.add(BIGINT.getLong(block, position));
+                }
+            }
+            assertEquals(reader.getPosition(), ROW_COUNT);
+
+            // the ids are sorted, so the matching pages are a single run of rows covering the predicate
+            assertTrue(ids.size() < ROW_COUNT / 2, "pages were not skipped");
+            assertTrue(ids.get(0) <= 4000L);
+            assertTrue(ids.get(ids.size() - 1) >= 4100L);
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals((long) ids.get(i), ids.get(0) + i);
+            }
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testColumnCatchesUpWithSkippedRows()
+            throws Exception
+    {
+        ParquetReader reader = createReader("id", BIGINT, Domain.create(ValueSet.ofRanges(
+                Range.range(BIGINT, 3000L, true, 3500L, true),
+                Range.range(BIGINT, 7000L, true, 8000L, true)), false));
+        try {
+            long rowCount = 0;
+            int batch = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block ids = reader.readBlock(fileSchema.getType("id"), BIGINT);
+                assertTrue(BIGINT.getLong(ids, 0) > 0, "first page was not skipped");
+                // the value column is only loaded for every other batch, so it has to skip the rows of
+                // the pages rejected by the predicate as well as the rows of the batches it was not read in
+                if (batch % 2 == 1) {
+                    Block values = reader.readBlock(fileSchema.getType("value"), BIGINT);
+                    assertEquals(values.getPositionCount(), batchSize);
+                    for (int position = 0; position < batchSize; position++) {
+                        assertEquals(BIGINT.getLong(values, position), BIGINT.getLong(ids, position) * 7);
+                    }
+                }
+                rowCount += batchSize;
+                batch++;
+            }
+            assertEquals(reader.getPosition(), ROW_COUNT);
+            assertTrue(batch > 2);
+            assertTrue(rowCount < ROW_COUNT / 2, "pages were not skipped");
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testStructCatchesUpWithSkippedRows()
+            throws Exception
+    {
+        RowType rowType = new RowType(ImmutableList.of(BIGINT), Optional.of(ImmutableList.of("number")));
+        ParquetReader reader = createReader("id", BIGINT, Domain.create(ValueSet.ofRanges(
+                Range.range(BIGINT, 3000L, true, 3500L, true),
+                Range.range(BIGINT, 7000L, true, 8000L, true)), false));
+        try {
+            int batch = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block ids = reader.readBlock(fileSchema.getType("id"), BIGINT);
+                // the field of the struct is read with the nested reader, which has already read the
+                // levels of the next row, so skipping the rows of the pages rejected by the predicate
+                // and of the batches the struct was not read in must start with that row
+                if (batch % 2 == 0) {
+                    Block info = reader.readBlock(fileSchema.getType("info"), rowType);
+                    assertEquals(info.getPositionCount(), batchSize);
+                    for (int position = 0; position < batchSize; position++) {
+                        Block row = rowType.getObject(info, position);
+                        assertEquals(BIGINT.getLong(row, 0), BIGINT.getLong(ids, position) * 3);
+                    }
+                }
+                batch++;
+            }
+            assertEquals(reader.getPosition(), ROW_COUNT);
+            assertTrue(batch > 2);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testDictionaryRejectsPages()
+            throws Exception
+    {
+        // "b" is within the min and max statistics of every page, but not in the dictionary
+        ParquetReader reader = createReader("name", VARCHAR, Domain.singleValue(VARCHAR, utf8Slice("b")));
+        try {
+            assertEquals(reader.nextBatch(), -1);
+            assertEquals(reader.getPosition(), ROW_COUNT);
+        }
+        finally {
+            reader.close();
+        }
+
+        reader = createReader("name", VARCHAR, Domain.singleValue(VARCHAR, utf8Slice("c")));
+        try {
+            long rowCount = 0;
+            for (int batchSize = reader.nextBatch(); batchSize >= 0; batchSize = reader.nextBatch()) {
+                Block ids = reader.readBlock(fileSchema.getType("id"), BIGINT);
+                Block names = reader.readBlock(fileSchema.getType("name"), VARCHAR);
+                for (int position = 0; position < batchSize; position++) {
+                    long id = BIGINT.getLong(ids, position);
+                    assertEquals(id, rowCount + position);
+                    assertEquals(VARCHAR.getSlice(names, position).toStringUtf8(), NAMES.get((int) (id % NAMES.size())));
+                }
+                rowCount += batchSize;
+            }
+            assertEquals(rowCount, ROW_COUNT);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    private ParquetReader createReader(String column, Type type, Domain domain)
+            throws IOException
+    {
+        FileSystem fileSystem = path.getFileSystem(configuration);
+        FileStatus fileStatus = fileSystem.getFileStatus(path);
+        FSDataInputStream inputStream = fileSystem.open(path);
+        ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(inputStream, path, fileStatus.getLen());
+        FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
+
+        int ordinal = fileSchema.getFieldIndex(column);
+        ParquetPredicate predicate = new TupleDomainParquetPredicate<>(
+                TupleDomain.withColumnDomains(ImmutableMap.of(column, domain)),
+                ImmutableList.of(new ColumnReference<>(column, ordinal, type)));
+
+        return new ParquetReader(fileSchema,
+                fileMetaData.getKeyValueMetaData(),
+                fileSchema,
+                path,
+                inputStream,
+                parquetMetadata.getBlocks(),
+                configuration,
+                predicate,
+                ImmutableList.of(fileSchema.getColumns().get(ordinal)));
+    }
+
+    private static void writeTestFile(Path path)
+            throws Exception
+    {
+        JobConf jobConf = new JobConf();
+        // small pages, so that the sorted ids produce many pages with disjoint statistics
+        jobConf.set("parquet.page.size", "1024");
+        jobConf.set("parquet.enable.dictionary", "true");
+
+        Properties tableProperties = new Properties();
+        tableProperties.setProperty("columns", "id,value,name,info");
+        tableProperties.setProperty("columns.types", "bigint,bigint,string,struct<number:bigint>");
+
+        ParquetHiveSerDe serDe = new ParquetHiveSerDe();
+        serDe.initialize(new Configuration(), tableProperties);
+
+        RecordWriter recordWriter = new MapredParquetOutputFormat().getHiveRecordWriter(jobConf, path, Text.class, false, tableProperties, () -> { });
+        try {
+            SettableStructObjectInspector objectInspector = getStandardStructObjectInspector(
+                    ImmutableList.of("id", "value", "name", "info"),
+                    ImmutableList.<ObjectInspector>of(
+                            javaLongObjectInspector,
+                            javaLongObjectInspector,
+                            javaStringObjectInspector,
+                            getStandardStructObjectInspector(ImmutableList.of("number"), ImmutableList.<ObjectInspector>of(javaLongObjectInspector))));
+            List<StructField> fields = ImmutableList.copyOf(objectInspector.getAllStructFieldRefs());
+            Object row = objectInspector.create();
+
+            for (long id = 0; id < ROW_COUNT; id++) {
+                objectInspector.setStructFieldData(row, fields.get(0), id);
+                objectInspector.setStructFieldData(row, fields.get(1), id * 7);
+                objectInspector.setStructFieldData(row, fields.get(2), NAMES.get((int) (id % NAMES.size())));
+                objectInspector.setStructFieldData(row, fields.get(3), ImmutableList.of(id * 3));
+                recordWriter.write(serDe.serialize(row, objectInspector));
+            }
+        }
+        finally {
+            recordWriter.close(false);
+        }
+    }
+}
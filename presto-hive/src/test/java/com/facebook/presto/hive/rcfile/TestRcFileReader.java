@@ -0,0 +1,232 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.rcfile;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.common.primitives.Bytes;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.RCFile;
+import org.apache.hadoop.hive.ql.io.RCFileOutputFormat;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.io.compress.GzipCodec;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestRcFileReader
+{
+    private static final int ROW_COUNT = 20_000;
+    private static final int ROWS_PER_ROW_GROUP = 100;
+    private static final int SYNC_HASH_SIZE = 16;
+
+    private final Configuration configuration = new Configuration();
+    private File directory;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        directory = Files.createTempDir();
+    }
+
+    @AfterMethod
+    public void tearDown()
+            throws Exception
+    {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    public void testUncompressed()
+            throws Exception
+    {
+        assertFileSplits(writeFile(null));
+    }
+
+    @Test
+    public void testZlib()
+            throws Exception
+    {
+        assertFileSplits(writeFile(DefaultCodec.class));
+    }
+
+    @Test
+    public void testGzip()
+            throws Exception
+    {
+        assertFileSplits(writeFile(GzipCodec.class));
+    }
+
+    @Test
+    public void testSplitAtSyncMarker()
+            throws Exception
+    {
+        File file = writeFile(null);
+        List<Long> syncPositions = getSyncPositions(file);
+        assertTrue(syncPositions.size() > 2, "file has too few sync markers");
+
+        // a row group belongs to the split that contains the sync marker before it
+        for (long syncPosition : syncPositions.subList(0, 3)) {
+            for (long delta = -1; delta <= 1; delta++) {
+                long boundary = syncPosition + delta;
+                List<String> rows = new ArrayList<>();
+                rows.addAll(readRows(file, 0, boundary));
+                rows.addAll(readRows(file, boundary, file.length() - boundary));
+                assertEquals(rows, expectedRows(), "split at " + boundary);
+            }
+        }
+    }
+
+    @Test
+    public void testSplitWithoutSyncMarker()
+            throws Exception
+    {
+        File file = writeFile(null);
+        List<Long> syncPositions = getSyncPositions(file);
+        long first = syncPositions.get(0);
+        long second = syncPositions.get(1);
+
+        // a split that starts after a marker and ends before the next one has no row groups
+        assertEquals(readRows(file, first + 1, second - first - 1), ImmutableList.of());
+        // the row groups after a marker belong to the split containing the marker, even when they extend past its end
+        assertFalse(readRows(file, first, 1).isEmpty());
+    }
+
+    private void assertFileSplits(File file)
+            throws IOException
+    {
+        long fileSize = file.length();
+        assertEquals(readRows(file, 0, fileSize), expectedRows());
+
+        // splits smaller than the sync interval include splits without any sync marker
+        for (long splitSize : ImmutableList.of(fileSize / 3, 3_333L, 1_000L, 97L)) {
+            List<String> rows = new ArrayList<>();
+            for (long offset = 0; offset < fileSize; offset += splitSize) {
+                rows.addAll(readRows(file, offset, Math.min(splitSize, fileSize - offset)));
+            }
+            assertEquals(rows, expectedRows(), "split size " + splitSize);
+        }
+    }
+
+    private List<String> readRows(File file, long offset, long length)
+            throws IOException
+    {
+        FileSystem fileSystem = FileSystem.getLocal(configuration);
+        Path path = new Path(file.toURI());
+        ImmutableList.Builder<String> rows = ImmutableList.builder();
+        try (RcFileReader reader = new RcFileReader(fileSystem.open(path), file.length(), configuration, offset, length)) {
+            assertEquals(reader.getColumnCount(), 2);
+            while (reader.advance()) {
+                RcFileColumn keys = reader.readColumn(0);
+                RcFileColumn values = reader.readColumn(1);
+                assertEquals(keys.getPositionCount(), reader.getRowGroupRowCount());
+                for (int position = 0; position < reader.getRowGroupRowCount(); position++) {
+                    rows.add(toString(keys, position) + "=" + toString(values, position));
+                }
+            }
+        }
+        return rows.build();
+    }
+
+    private static String toString(RcFileColumn column, int position)
+    {
+        return new String(column.getData(), column.getStart(position), column.getLength(position), UTF_8);
+    }
+
+    private File writeFile(Class<? extends CompressionCodec> codecClass)
+            throws IOException
+    {
+        Configuration writerConfiguration = new Configuration(configuration);
+        RCFileOutputFormat.setColumnNumber(writerConfiguration, 2);
+        writerConfiguration.setInt(RCFile.RECORD_INTERVAL_CONF_STR, ROWS_PER_ROW_GROUP);
+
+        CompressionCodec codec = null;
+        if (codecClass != null) {
+            codec = ReflectionUtils.newInstance(codecClass, writerConfiguration);
+        }
+
+        File file = new File(directory, "test.rc");
+        FileSystem fileSystem = FileSystem.getLocal(writerConfiguration);
+        RCFile.Writer writer = new RCFile.Writer(fileSystem, writerConfiguration, new Path(file.toURI()), null, codec);
+        try {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                BytesRefArrayWritable row = new BytesRefArrayWritable(2);
+                row.set(0, toBytesRef(String.valueOf(i)));
+                // the values vary enough to keep the compressed row groups large enough for several sync markers
+                row.set(1, toBytesRef(i % 7 == 0 ? "" : "value " + (i * 7919L % 100_003)));
+                writer.append(row);
+            }
+        }
+        finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static BytesRefWritable toBytesRef(String value)
+    {
+        byte[] bytes = value.getBytes(UTF_8);
+        return new BytesRefWritable(bytes, 0, bytes.length);
+    }
+
+    private static List<String> expectedRows()
+    {
+        ImmutableList.Builder<String> rows = ImmutableList.builder();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows.add(i + "=" + (i % 7 == 0 ? "" : "value " + (i * 7919L % 100_003)));
+        }
+        return rows.build();
+    }
+
+    /**
+     * Returns the positions of the escapes of the sync markers after the header.
+     */
+    private List<Long> getSyncPositions(File file)
+            throws IOException
+    {
+        // the header ends with the hash of the sync markers
+        long headerSize;
+        try (RcFileReader reader = new RcFileReader(FileSystem.getLocal(configuration).open(new Path(file.toURI())), file.length(), configuration, 0, file.length())) {
+            headerSize = reader.getPosition();
+        }
+        byte[] data = Files.toByteArray(file);
+        byte[] sync = Bytes.concat(new byte[] {-1, -1, -1, -1}, Arrays.copyOfRange(data, (int) headerSize - SYNC_HASH_SIZE, (int) headerSize));
+
+        ImmutableList.Builder<Long> positions = ImmutableList.builder();
+        for (int position = (int) headerSize; position <= data.length - sync.length; position++) {
+            if (Arrays.equals(Arrays.copyOfRange(data, position, position + sync.length), sync)) {
+                positions.add((long) position);
+            }
+        }
+        return positions.build();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.util;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.hive.util.PrefetchingIterator.prefetch;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+public class TestPrefetchingIterator
+{
+    @Test
+    public void testOrder()
+            throws Exception
+    {
+        List<Integer> source = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            source.add(i);
+        }
+        ExecutorService executor = newFixedThreadPool(4, daemonThreadsNamed("test-%s"));
+        try {
+            List<Integer> results = ImmutableList.copyOf(prefetch(source, value -> value * 2, executor, 3));
+            assertEquals(results.size(), source.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(results.get(i).intValue(), i * 2);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPrefetchCount()
+            throws Exception
+    {
+        List<Runnable> tasks = new ArrayList<>();
+        Executor executor = tasks::add;
+        AtomicInteger computed = new AtomicInteger();
+
+        PrefetchingIterator<Integer, Integer> iterator = new PrefetchingIterator<>(ImmutableList.of(1, 2, 3, 4, 5).iterator(), value -> {
+            computed.incrementAndGet();
+            return value;
+        }, executor, 2);
+
+        // the consumer computes the first result itself because the executor never runs the tasks
+        assertEquals(iterator.next().intValue(), 1);
+        assertEquals(computed.get(), 1);
+        assertEquals(tasks.size(), 3);
+
+        // run the queued prefetches, including the one for the already returned element
+        tasks.forEach(Runnable::run);
+        assertEquals(computed.get(), 3);
+        assertEquals(iterator.next().intValue(), 2);
+        assertEquals(iterator.next().intValue(), 3);
+        assertEquals(computed.get(), 3);
+
+        assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(4, 5));
+        assertEquals(computed.get(), 5);
+    }
+
+    @Test
+    public void testFailure()
+            throws Exception
+    {
+        Iterable<Integer> iterable = prefetch(ImmutableList.of(1), value -> {
+            throw new IllegalStateException("test failure");
+        }, Runnable::run, 1);
+        try {
+            getOnlyElement(iterable);
+            fail("expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "test failure");
+        }
+    }
+}
@@ -19,6 +19,8 @@ public final class PrestoMediaTypes
 {
     public static final String PRESTO_PAGES = "application/X-presto-pages";
     public static final MediaType PRESTO_PAGES_TYPE = MediaType.create("application", "X-presto-pages");
+    public static final String JACKSON_SMILE = "application/x-jackson-smile";
+    public static final MediaType JACKSON_SMILE_TYPE = MediaType.create("application", "x-jackson-smile");
 
     private PrestoMediaTypes()
     {
@@ -35,6 +35,9 @@ public final class SystemSessionProperties
 {
     public static final String OPTIMIZE_HASH_GENERATION = "optimize_hash_generation";
     public static final String DISTRIBUTED_JOIN = "distributed_join";
+    public static final String REORDER_JOINS = "reorder_joins";
+    public static final String AUTOMATIC_JOIN_DISTRIBUTION = "automatic_join_distribution";
+    public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
     public static final String DISTRIBUTED_INDEX_JOIN = "distributed_index_join";
     public static final String HASH_PARTITION_COUNT = "hash_partition_count";
     public static final String PREFER_STREAMING_OPERATORS = "prefer_streaming_operators";
@@ -49,6 +52,10 @@ public final class SystemSessionProperties
     public static final String QUERY_MAX_RUN_TIME = "query_max_run_time";
     public static final String REDISTRIBUTE_WRITES = "redistribute_writes";
     public static final String EXECUTION_POLICY = "execution_policy";
+    public static final String SPILL_ENABLED = "spill_enabled";
+    public static final String DYNAMIC_FILTERING_ENABLED = "dynamic_filtering_enabled";
+    public static final String FILTER_FIRST_SCAN_ENABLED = "filter_first_scan_enabled";
+    public static final String DICTIONARY_PROCESSING_ENABLED = "dictionary_processing_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -80,6 +87,24 @@ public final class SystemSessionProperties
                         "Use a distributed join instead of a broadcast join",
                         featuresConfig.isDistributedJoinsEnabled(),
                         false),
+                booleanSessionProperty(
+                        AUTOMATIC_JOIN_DISTRIBUTION,
+                        "Choose between broadcast and distributed joins based on the estimated size of the build side",
+                        featuresConfig.isAutomaticJoinDistribution(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_MAX_BROADCAST_TABLE_SIZE,
+                        "Maximum estimated size of the build side of a join that is broadcast when the join distribution is chosen automatically",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getJoinMaxBroadcastTableSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value)),
+                booleanSessionProperty(
+                        REORDER_JOINS,
+                        "Reorder joins and choose their build sides based on table statistics",
+                        featuresConfig.isReorderJoins(),
+                        false),
                 booleanSessionProperty(
                         DISTRIBUTED_INDEX_JOIN,
                         "Distribute index joins on join keys instead of executing inline",
@@ -135,6 +160,26 @@ public final class SystemSessionProperties
                         "Share index join lookups and caching within a task",
                         taskManagerConfig.isShareIndexLoading(),
                         false),
+                booleanSessionProperty(
+                        SPILL_ENABLED,
+                        "Experimental: Spill operator state to local disk when the memory pool is exhausted",
+                        featuresConfig.isSpillEnabled(),
+                        false),
+                booleanSessionProperty(
+                        DYNAMIC_FILTERING_ENABLED,
+                        "Experimental: Skip probe side data of inner joins using the join keys of the build side",
+                        featuresConfig.isDynamicFilteringEnabled(),
+                        false),
+                booleanSessionProperty(
+                        FILTER_FIRST_SCAN_ENABLED,
+                        "Experimental: Evaluate the filter of table scans before loading the columns only used by the projections",
+                        featuresConfig.isFilterFirstScanEnabled(),
+                        false),
+                booleanSessionProperty(
+                        DICTIONARY_PROCESSING_ENABLED,
+                        "Experimental: Evaluate projections and group by on dictionary encoded columns once per dictionary entry",
+                        featuresConfig.isDictionaryProcessingEnabled(),
+                        false),
                 new PropertyMetadata<>(
                         QUERY_MAX_RUN_TIME,
                         "Maximum run time of a query",
@@ -173,6 +218,21 @@ public final class SystemSessionProperties
         return session.getProperty(DISTRIBUTED_JOIN, Boolean.class);
     }
 
+    public static boolean isAutomaticJoinDistribution(Session session)
+    {
+        return session.getProperty(AUTOMATIC_JOIN_DISTRIBUTION, Boolean.class);
+    }
+
+    public static DataSize getJoinMaxBroadcastTableSize(Session session)
+    {
+        return session.getProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class);
+    }
+
+    public static boolean isReorderJoinsEnabled(Session session)
+    {
+        return session.getProperty(REORDER_JOINS, Boolean.class);
+    }
+
     public static boolean isDistributedIndexJoinEnabled(Session session)
     {
         return session.getProperty(DISTRIBUTED_INDEX_JOIN, Boolean.class);
@@ -223,6 +283,26 @@ public final class SystemSessionProperties
         return session.getProperty(TASK_SHARE_INDEX_LOADING, Boolean.class);
     }
 
+    public static boolean isSpillEnabled(Session session)
+    {
+        return session.getProperty(SPILL_ENABLED, Boolean.class);
+    }
+
+    public static boolean isDynamicFilteringEnabled(Session session)
+    {
+        return session.getProperty(DYNAMIC_FILTERING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isFilterFirstScanEnabled(Session session)
+    {
+        return session.getProperty(FILTER_FIRST_SCAN_ENABLED, Boolean.class);
+    }
+
+    public static boolean isDictionaryProcessingEnabled(Session session)
+    {
+        return session.getProperty(DICTIONARY_PROCESSING_ENABLED, Boolean.class);
+    }
+
     public static DataSize getQueryMaxMemory(Session session)
     {
         return session.getProperty(QUERY_MAX_MEMORY, DataSize.class);
@@ -17,24 +17,42 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.collect.AbstractIterator;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import org.iq80.snappy.Snappy;
 
 import java.util.Iterator;
 
 import static com.facebook.presto.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.block.BlockSerdeUtil.writeBlock;
+import static com.google.common.base.Preconditions.checkState;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 
 // layout is:
 //   - position count (int)
 //   - number of blocks (int)
-//   - sequence of:
+//   - codec (byte)
+//   - if the codec is snappy:
+//       - uncompressed size (int)
+//       - compressed size (int)
+//       - snappy compressed sequence of blocks
+//   - otherwise, sequence of:
 //       - block encoding
 //       - block
 public final class PagesSerde
 {
+    private static final byte UNCOMPRESSED_CODEC = 0;
+    private static final byte SNAPPY_CODEC = 1;
+
+    // pages that do not shrink below this fraction of their size are sent uncompressed
+    private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
     private PagesSerde() {}
 
     public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Page... pages)
@@ -49,13 +67,23 @@ public final class PagesSerde
 
     public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Iterator<Page> pages)
     {
-        PagesWriter pagesWriter = new PagesWriter(blockEncodingSerde, sliceOutput);
+        writePages(blockEncodingSerde, sliceOutput, false, pages);
+    }
+
+    public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, boolean compressionEnabled, Iterable<Page> pages)
+    {
+        writePages(blockEncodingSerde, sliceOutput, compressionEnabled, pages.iterator());
+    }
+
+    public static void writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, boolean compressionEnabled, Iterator<Page> pages)
+    {
+        PagesWriter pagesWriter = new PagesWriter(blockEncodingSerde, sliceOutput, compressionEnabled);
         while (pages.hasNext()) {
             pagesWriter.append(pages.next());
         }
     }
 
-    public static Iterator<Page> readPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput)
+    public static PagesReader readPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput)
     {
         return new PagesReader(blockEncodingSerde, sliceInput);
     }
@@ -64,11 +92,16 @@ public final class PagesSerde
     {
         private final BlockEncodingSerde serde;
         private final SliceOutput output;
+        private final boolean compressionEnabled;
+
+        private DynamicSliceOutput uncompressedOutput;
+        private byte[] compressedBuffer;
 
-        private PagesWriter(BlockEncodingSerde serde, SliceOutput output)
+        private PagesWriter(BlockEncodingSerde serde, SliceOutput output, boolean compressionEnabled)
         {
             this.serde = requireNonNull(serde, "serde is null");
             this.output = requireNonNull(output, "output is null");
+            this.compressionEnabled = compressionEnabled;
         }
 
         public PagesWriter append(Page page)
@@ -79,26 +112,82 @@ public final class PagesSerde
 
             output.writeInt(page.getPositionCount());
             output.writeInt(blocks.length);
-            for (int i = 0; i < blocks.length; i++) {
-                writeBlock(serde, output, blocks[i]);
+
+            if (!compressionEnabled) {
+                output.writeByte(UNCOMPRESSED_CODEC);
+                writeBlocks(output, blocks);
+                return this;
+            }
+
+            if (uncompressedOutput == null) {
+                uncompressedOutput = new DynamicSliceOutput(INITIAL_BUFFER_SIZE);
             }
+            uncompressedOutput.reset();
+            writeBlocks(uncompressedOutput, blocks);
+            Slice uncompressed = uncompressedOutput.slice();
 
+            int maxCompressedLength = Snappy.maxCompressedLength(uncompressed.length());
+            if (compressedBuffer == null || compressedBuffer.length < maxCompressedLength) {
+                compressedBuffer = new byte[maxCompressedLength];
+            }
+            // the dynamic output is backed by a heap array, so compress it in place instead of copying it
+            byte[] base = (byte[]) uncompressed.getBase();
+            int offset = (int) (uncompressed.getAddress() - ARRAY_BYTE_BASE_OFFSET);
+            int compressedLength = Snappy.compress(base, offset, uncompressed.length(), compressedBuffer, 0);
+
+            if (compressedLength > uncompressed.length() * MINIMUM_COMPRESSION_RATIO) {
+                // not worth the decompression cost on the reader
+                output.writeByte(UNCOMPRESSED_CODEC);
+                output.writeBytes(uncompressed);
+                return this;
+            }
+
+            output.writeByte(SNAPPY_CODEC);
+            output.writeInt(uncompressed.length());
+            output.writeInt(compressedLength);
+            output.writeBytes(compressedBuffer, 0, compressedLength);
             return this;
         }
+
+        private void writeBlocks(SliceOutput sliceOutput, Block[] blocks)
+        {
+            for (int i = 0; i < blocks.length; i++) {
+                writeBlock(serde, sliceOutput, blocks[i]);
+            }
+        }
     }
 
-    private static class PagesReader
+    public static class PagesReader
             extends AbstractIterator<Page>
     {
         private final BlockEncodingSerde serde;
         private final SliceInput input;
 
+        private long compressedSizeInBytes;
+        private long uncompressedSizeInBytes;
+
         public PagesReader(BlockEncodingSerde serde, SliceInput input)
         {
             this.serde = requireNonNull(serde, "serde is null");
             this.input = requireNonNull(input, "input is null");
         }
 
+        /**
+         * Returns the number of serialized bytes read so far, after compression.
+         */
+        public long getCompressedSizeInBytes()
+        {
+            return compressedSizeInBytes;
+        }
+
+        /**
+         * Returns the number of serialized bytes read so far, before compression.
+         */
+        public long getUncompressedSizeInBytes()
+        {
+            return uncompressedSizeInBytes;
+        }
+
         @Override
         protected Page computeNext()
         {
@@ -108,9 +197,36 @@ public final class PagesSerde
 
             int positions = input.readInt();
             int numberOfBlocks = input.readInt();
+            byte codec = input.readByte();
+
+            SliceInput blocksInput = input;
+            long start = input.position();
+            if (codec == SNAPPY_CODEC) {
+                int uncompressedLength = input.readInt();
+                int compressedLength = input.readInt();
+                byte[] compressed = new byte[compressedLength];
+                input.readBytes(compressed);
+                byte[] uncompressed = new byte[uncompressedLength];
+                int actualLength = Snappy.uncompress(compressed, 0, compressedLength, uncompressed, 0);
+                checkState(actualLength == uncompressedLength, "Expected %s uncompressed bytes, but got %s", uncompressedLength, actualLength);
+
+                blocksInput = Slices.wrappedBuffer(uncompressed).getInput();
+                compressedSizeInBytes += compressedLength;
+                uncompressedSizeInBytes += uncompressedLength;
+            }
+            else {
+                checkState(codec == UNCOMPRESSED_CODEC, "Unknown page codec %s", codec);
+            }
+
             Block[] blocks = new Block[numberOfBlocks];
             for (int i = 0; i < blocks.length; i++) {
-                blocks[i] = readBlock(serde, input);
+                blocks[i] = readBlock(serde, blocksInput);
+            }
+
+            if (codec == UNCOMPRESSED_CODEC) {
+                long size = input.position() - start;
+                compressedSizeInBytes += size;
+                uncompressedSizeInBytes += size;
             }
 
             @SuppressWarnings("UnnecessaryLocalVariable")
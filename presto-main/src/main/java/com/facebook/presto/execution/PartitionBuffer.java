@@ -15,20 +15,22 @@ package com.facebook.presto.execution;
 
 import com.facebook.presto.spi.Page;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.TreeMultiset;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.Immutable;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
 
 import static com.facebook.presto.execution.PageSplitterUtil.splitPage;
 import static com.facebook.presto.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
@@ -41,32 +43,54 @@ import static java.util.Objects.requireNonNull;
 @ThreadSafe
 public class PartitionBuffer
 {
-    private final LinkedList<Page> masterBuffer = new LinkedList<>();
+    @GuardedBy("this")
+    private final List<Page> masterBuffer = new ArrayList<>();
+    @GuardedBy("this")
+    private final TreeMultiset<Long> consumerSequenceIds = TreeMultiset.create();
+    @GuardedBy("this")
+    private boolean destroyed;
     private final BlockingQueue<QueuedPage> queuedPages = new LinkedBlockingQueue<>();
     private final AtomicLong pagesAdded = new AtomicLong(); // Number of pages added to the masterBuffer
     private final AtomicLong masterSequenceId = new AtomicLong();
     private final AtomicLong bufferedBytes = new AtomicLong();  // Bytes in the master buffer
     private final int partition;
     private final SharedBufferMemoryManager memoryManager;
+    private final BooleanSupplier pagesAllowed;
 
-    public PartitionBuffer(int partition, SharedBufferMemoryManager memoryManager)
+    /**
+     * @param pagesAllowed checked while holding the lock of this buffer before a page is added to
+     * the master buffer, so a page can not become visible after the owner stopped accepting pages
+     */
+    public PartitionBuffer(int partition, SharedBufferMemoryManager memoryManager, BooleanSupplier pagesAllowed)
     {
         checkArgument(partition >= 0, "partition must be >= 0");
         this.partition = partition;
         this.memoryManager = requireNonNull(memoryManager, "memoryManager is null");
+        this.pagesAllowed = requireNonNull(pagesAllowed, "pagesAllowed is null");
     }
 
-    public synchronized ListenableFuture<?> enqueuePage(Page page)
+    public ListenableFuture<?> enqueuePage(Page page)
     {
-        if (!memoryManager.isFull()) {
-            addToMasterBuffer(page);
-            return immediateFuture(true);
-        }
-        else {
-            QueuedPage queuedPage = new QueuedPage(page);
+        QueuedPage queuedPage;
+        synchronized (this) {
+            // pages can race with destroy and no more pages since the shared buffer does not lock around enqueue
+            if (destroyed || !pagesAllowed.getAsBoolean()) {
+                return immediateFuture(true);
+            }
+            if (!memoryManager.isFull()) {
+                addToMasterBuffer(page);
+                return immediateFuture(true);
+            }
+            queuedPage = new QueuedPage(page);
             queuedPages.add(queuedPage);
-            return queuedPage.getFuture();
         }
+
+        // memory is shared with the other partitions, which may have freed space after the check
+        // above but before the page was queued, so they could have missed this page
+        if (!memoryManager.isFull()) {
+            dequeuePages();
+        }
+        return queuedPage.getFuture();
     }
 
     private synchronized void addToMasterBuffer(Page page)
@@ -122,27 +146,79 @@ public class PartitionBuffer
                 pagesToRemove,
                 oldMasterSequenceId,
                 newSequenceId);
+        List<Page> removedPages = masterBuffer.subList(0, pagesToRemove);
         long bytesRemoved = 0;
-        for (int i = 0; i < pagesToRemove; i++) {
-            Page page = masterBuffer.removeFirst();
+        for (Page page : removedPages) {
             bytesRemoved += page.getSizeInBytes();
         }
+        removedPages.clear();
         updateMemoryUsage(-bytesRemoved);
-        dequeuePages();
     }
 
-    public synchronized void dequeuePages()
+    /**
+     * Registers a consumer reading this partition from the specified sequence id.
+     */
+    public synchronized void addConsumer(long sequenceId)
     {
-        // refill buffer from queued pages
-        while (!queuedPages.isEmpty() && !memoryManager.isFull()) {
-            QueuedPage queuedPage = queuedPages.remove();
-            addToMasterBuffer(queuedPage.getPage());
-            queuedPage.getFuture().set(null);
+        checkArgument(sequenceId >= masterSequenceId.get(), "Consumer sequence id is before the beginning of the buffer");
+        consumerSequenceIds.add(sequenceId);
+    }
+
+    /**
+     * Records that a consumer has acknowledged all pages before {@code newSequenceId}.
+     */
+    public synchronized void acknowledge(long oldSequenceId, long newSequenceId)
+    {
+        checkArgument(newSequenceId >= oldSequenceId, "Consumer sequence id moved backwards");
+        checkState(consumerSequenceIds.remove(oldSequenceId), "Unknown consumer sequence id %s", oldSequenceId);
+        consumerSequenceIds.add(newSequenceId);
+    }
+
+    /**
+     * Drops all pages acknowledged by every registered consumer.  The caller is
+     * responsible for calling {@link #dequeuePages()} on the partitions sharing
+     * the memory manager, since this may have freed space for them.
+     */
+    public synchronized void advanceToConsumers()
+    {
+        if (!destroyed && !consumerSequenceIds.isEmpty()) {
+            advanceSequenceId(consumerSequenceIds.firstEntry().getElement());
+        }
+    }
+
+    /**
+     * @return true if any queued page was moved into the buffer
+     */
+    public boolean dequeuePages()
+    {
+        // skip the lock for the common case where nothing is queued
+        if (queuedPages.isEmpty()) {
+            return false;
+        }
+
+        synchronized (this) {
+            // refill buffer from queued pages
+            // queued pages are not officially in the buffer, so they are discarded once no more pages is set
+            if (!pagesAllowed.getAsBoolean()) {
+                clearQueue();
+                return false;
+            }
+
+            boolean dequeued = false;
+            while (!queuedPages.isEmpty() && !memoryManager.isFull()) {
+                QueuedPage queuedPage = queuedPages.remove();
+                addToMasterBuffer(queuedPage.getPage());
+                queuedPage.getFuture().set(null);
+                dequeued = true;
+            }
+            return dequeued;
         }
     }
 
     public synchronized void destroy()
     {
+        destroyed = true;
+
         // clear the buffer
         masterBuffer.clear();
         updateMemoryUsage(-bufferedBytes.get());
@@ -28,13 +28,14 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -129,21 +130,27 @@ public class SharedBuffer
 
     private final SettableFuture<OutputBuffers> finalOutputBuffers = SettableFuture.create();
 
+    //
+    // The buffer is split so that producers and consumers do not contend on a single monitor:
+    //  * pages are stored per partition and guarded by the PartitionBuffer itself
+    //  * each NamedBuffer guards its own read position and pending reads
+    //  * the shared buffer monitor is only used for buffer creation, abort and state transitions
+    // Locks are always acquired in the order SharedBuffer, NamedBuffer, PartitionBuffer.
+    //
+
     @GuardedBy("this")
     private OutputBuffers outputBuffers = INITIAL_EMPTY_OUTPUT_BUFFERS;
-    @GuardedBy("this")
-    private final Map<Integer, PartitionBuffer> partitionBuffers = new ConcurrentHashMap<>();
-    @GuardedBy("this")
-    private final Map<Integer, Set<NamedBuffer>> partitionToNamedBuffer = new ConcurrentHashMap<>();
-    @GuardedBy("this")
+    private final ConcurrentMap<Integer, PartitionBuffer> partitionBuffers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, List<NamedBuffer>> partitionToNamedBuffer = new ConcurrentHashMap<>();
     private final ConcurrentMap<TaskId, NamedBuffer> namedBuffers = new ConcurrentHashMap<>();
     @GuardedBy("this")
     private final Set<TaskId> abortedBuffers = new HashSet<>();
 
     private final StateMachine<BufferState> state;
 
+    // reads for buffers that have not been created yet
     @GuardedBy("this")
-    private final List<GetBufferResult> stateChangeListeners = new ArrayList<>();
+    private final List<GetBufferResult> unassignedReads = new ArrayList<>();
 
     private final SharedBufferMemoryManager memoryManager;
 
@@ -222,14 +229,24 @@ public class SharedBuffer
 
                 PartitionBuffer partitionBuffer = createOrGetPartitionBuffer(partition);
                 NamedBuffer namedBuffer = new NamedBuffer(bufferId, partitionBuffer);
+                partitionBuffer.addConsumer(namedBuffer.getSequenceId());
 
                 // the buffer may have been aborted before the creation message was received
                 if (abortedBuffers.contains(bufferId)) {
                     namedBuffer.abort();
                 }
                 namedBuffers.put(bufferId, namedBuffer);
-                Set<NamedBuffer> namedBuffers = partitionToNamedBuffer.computeIfAbsent(partition, k -> new HashSet<>());
-                namedBuffers.add(namedBuffer);
+                partitionToNamedBuffer.computeIfAbsent(partition, k -> new CopyOnWriteArrayList<>()).add(namedBuffer);
+            }
+        }
+
+        // hand reads that arrived before their buffer was created over to the buffer
+        for (Iterator<GetBufferResult> iterator = unassignedReads.iterator(); iterator.hasNext(); ) {
+            GetBufferResult getBufferResult = iterator.next();
+            NamedBuffer namedBuffer = namedBuffers.get(getBufferResult.getOutputId());
+            if (namedBuffer != null) {
+                iterator.remove();
+                namedBuffer.addPendingRead(getBufferResult);
             }
         }
 
@@ -240,21 +257,26 @@ public class SharedBuffer
             finalOutputBuffers.set(outputBuffers);
         }
 
-        updateState();
+        // now that all consumers are known, drop the pages they have already acknowledged
+        if (!state.get().canAddBuffers()) {
+            partitionBuffers.values().forEach(PartitionBuffer::advanceToConsumers);
+            dequeuePages();
+        }
+
+        checkFlushComplete();
     }
 
     private PartitionBuffer createOrGetPartitionBuffer(int partition)
     {
-        checkHoldsLock();
-        return partitionBuffers.computeIfAbsent(partition, k -> new PartitionBuffer(partition, memoryManager));
+        return partitionBuffers.computeIfAbsent(partition, k -> new PartitionBuffer(partition, memoryManager, () -> state.get().canAddPages()));
     }
 
-    public synchronized ListenableFuture<?> enqueue(Page page)
+    public ListenableFuture<?> enqueue(Page page)
     {
         return enqueue(BROADCAST_PARTITION_ID, page);
     }
 
-    public synchronized ListenableFuture<?> enqueue(int partition, Page page)
+    public ListenableFuture<?> enqueue(int partition, Page page)
     {
         requireNonNull(page, "page is null");
 
@@ -266,27 +288,55 @@ public class SharedBuffer
 
         PartitionBuffer partitionBuffer = createOrGetPartitionBuffer(partition);
         ListenableFuture<?> result = partitionBuffer.enqueuePage(page);
-        processPendingReads();
-        updateState();
+
+        // The partition buffer checks the state again under its own lock, so the page is either
+        // added before no more pages is set or dropped.  The page may have been queued before
+        // no more pages was set, though, and setNoMorePages may not have seen this partition
+        // buffer if it was just created, so the queued pages must be discarded here (they are
+        // not officially in the buffer).
+        if (!state.get().canAddPages()) {
+            partitionBuffer.clearQueue();
+        }
+
+        // only the readers of this partition can be waiting for the new page
+        processPendingReads(partition);
         return result;
     }
 
-    public synchronized CompletableFuture<BufferResult> get(TaskId outputId, long startingSequenceId, DataSize maxSize)
+    public CompletableFuture<BufferResult> get(TaskId outputId, long startingSequenceId, DataSize maxSize)
     {
         requireNonNull(outputId, "outputId is null");
         checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
 
-        // if no buffers can be added, and the requested buffer does not exist, return a closed empty result
-        // this can happen with limit queries
-        BufferState state = this.state.get();
-        if (state != FAILED && !state.canAddBuffers() && namedBuffers.get(outputId) == null) {
-            return completedFuture(emptyResults(0, true));
+        GetBufferResult getBufferResult = new GetBufferResult(outputId, startingSequenceId, maxSize);
+
+        NamedBuffer namedBuffer = namedBuffers.get(outputId);
+        if (namedBuffer == null) {
+            synchronized (this) {
+                // buffers are only created while holding the lock, so check again
+                namedBuffer = namedBuffers.get(outputId);
+                if (namedBuffer == null) {
+                    // if no buffers can be added, and the requested buffer does not exist, return a closed empty result
+                    // this can happen with limit queries
+                    BufferState state = this.state.get();
+                    if (state != FAILED && !state.canAddBuffers()) {
+                        return completedFuture(emptyResults(0, true));
+                    }
+
+                    // block the reader until the buffer is created
+                    unassignedReads.add(getBufferResult);
+                    return getBufferResult.getFuture();
+                }
+            }
         }
 
-        // return a future for data
-        GetBufferResult getBufferResult = new GetBufferResult(outputId, startingSequenceId, maxSize);
-        stateChangeListeners.add(getBufferResult);
-        updateState();
+        namedBuffer.addPendingRead(getBufferResult);
+
+        // the read may have acknowledged pages, which can now be dropped once all consumers are known
+        if (!state.get().canAddBuffers()) {
+            namedBuffer.getPartitionBuffer().advanceToConsumers();
+            dequeuePages();
+        }
         return getBufferResult.getFuture();
     }
 
@@ -301,13 +351,19 @@ public class SharedBuffer
             namedBuffer.abort();
         }
 
-        updateState();
+        checkFlushComplete();
     }
 
     public synchronized void setNoMorePages()
     {
         if (state.compareAndSet(OPEN, NO_MORE_PAGES) || state.compareAndSet(NO_MORE_BUFFERS, FLUSHING)) {
-            updateState();
+            // discard queued pages (not officially in the buffer)
+            partitionBuffers.values().forEach(PartitionBuffer::clearQueue);
+
+            // readers waiting for more pages can now be told the buffer is complete
+            namedBuffers.values().forEach(NamedBuffer::processPendingReads);
+
+            checkFlushComplete();
         }
     }
 
@@ -326,7 +382,7 @@ public class SharedBuffer
         partitionBuffers.values().forEach(PartitionBuffer::destroy);
         // free readers
         namedBuffers.values().forEach(SharedBuffer.NamedBuffer::abort);
-        processPendingReads();
+        unassignedReads.removeIf(GetBufferResult::execute);
     }
 
     /**
@@ -359,49 +415,22 @@ public class SharedBuffer
         }
     }
 
-    private void updateState()
+    private void dequeuePages()
     {
-        checkHoldsLock();
-
-        try {
-            processPendingReads();
-
-            BufferState state = this.state.get();
-
-            // do not update if the buffer is already in a terminal state
-            if (state.isTerminal()) {
-                return;
-            }
-
-            if (!state.canAddPages()) {
-                // discard queued pages (not officially in the buffer)
-                partitionBuffers.values().forEach(PartitionBuffer::clearQueue);
-            }
-
-            // advanced master queue
-            if (!state.canAddBuffers() && !namedBuffers.isEmpty()) {
-                for (Map.Entry<Integer, Set<NamedBuffer>> entry : partitionToNamedBuffer.entrySet()) {
-                    PartitionBuffer partitionBuffer = partitionBuffers.get(entry.getKey());
-                    long newMasterSequenceId = entry.getValue().stream()
-                            .mapToLong(NamedBuffer::getSequenceId)
-                            .min()
-                            .getAsLong();
-                    partitionBuffer.advanceSequenceId(newMasterSequenceId);
-                }
-                // this might have freed up space in the buffers, try to dequeue pages
-                partitionBuffers.values().forEach(PartitionBuffer::dequeuePages);
+        // memory is shared by all partitions, so space freed by one partition may unblock pages queued in another
+        for (PartitionBuffer partitionBuffer : partitionBuffers.values()) {
+            if (partitionBuffer.dequeuePages()) {
+                processPendingReads(partitionBuffer.getPartition());
             }
         }
-        finally {
-            checkFlushComplete();
-        }
     }
 
-    private void processPendingReads()
+    private void processPendingReads(int partition)
     {
-        checkHoldsLock();
-        Set<GetBufferResult> finishedListeners = ImmutableList.copyOf(stateChangeListeners).stream().filter(GetBufferResult::execute).collect(toImmutableSet());
-        stateChangeListeners.removeAll(finishedListeners);
+        List<NamedBuffer> namedBuffers = partitionToNamedBuffer.get(partition);
+        if (namedBuffers != null) {
+            namedBuffers.forEach(NamedBuffer::processPendingReads);
+        }
     }
 
     private void checkHoldsLock()
@@ -429,6 +458,9 @@ public class SharedBuffer
         private final AtomicLong sequenceId = new AtomicLong();
         private final AtomicBoolean finished = new AtomicBoolean();
 
+        @GuardedBy("this")
+        private final List<GetBufferResult> pendingReads = new ArrayList<>();
+
         private NamedBuffer(TaskId bufferId, PartitionBuffer partitionBuffer)
         {
             this.bufferId = requireNonNull(bufferId, "bufferId is null");
@@ -452,16 +484,29 @@ public class SharedBuffer
             return new BufferInfo(bufferId, finished.get(), bufferedPages, sequenceId, partitionBuffer.getInfo());
         }
 
-        public long getSequenceId()
+        public PartitionBuffer getPartitionBuffer()
         {
-            checkHoldsLock();
+            return partitionBuffer;
+        }
 
+        public long getSequenceId()
+        {
             return sequenceId.get();
         }
 
-        public BufferResult getPages(long startingSequenceId, DataSize maxSize)
+        public synchronized void addPendingRead(GetBufferResult getBufferResult)
+        {
+            pendingReads.add(getBufferResult);
+            processPendingReads();
+        }
+
+        public synchronized void processPendingReads()
+        {
+            pendingReads.removeIf(GetBufferResult::execute);
+        }
+
+        public synchronized BufferResult getPages(long startingSequenceId, DataSize maxSize)
         {
-            checkHoldsLock();
             checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
 
             long sequenceId = this.sequenceId.get();
@@ -469,6 +514,7 @@ public class SharedBuffer
 
             // acknowledge previous pages
             if (startingSequenceId > sequenceId) {
+                partitionBuffer.acknowledge(sequenceId, startingSequenceId);
                 this.sequenceId.set(startingSequenceId);
                 sequenceId = startingSequenceId;
             }
@@ -487,17 +533,14 @@ public class SharedBuffer
             return new BufferResult(startingSequenceId, startingSequenceId + pages.size(), false, pages);
         }
 
-        public void abort()
+        public synchronized void abort()
         {
-            checkHoldsLock();
-
             finished.set(true);
-            checkFlushComplete();
+            processPendingReads();
         }
 
         public boolean isFinished()
         {
-            checkHoldsLock();
             return finished.get();
         }
 
@@ -528,6 +571,11 @@ public class SharedBuffer
             this.maxSize = maxSize;
         }
 
+        public TaskId getOutputId()
+        {
+            return outputId;
+        }
+
         public CompletableFuture<BufferResult> getFuture()
         {
             return future;
@@ -535,8 +583,6 @@ public class SharedBuffer
 
         public boolean execute()
         {
-            checkHoldsLock();
-
             if (future.isDone()) {
                 return true;
             }
@@ -571,9 +617,6 @@ public class SharedBuffer
                 // read pages from the buffer
                 BufferResult bufferResult = namedBuffer.getPages(startingSequenceId, maxSize);
 
-                // if this was the last page, we're done
-                checkFlushComplete();
-
                 // if we got an empty result, wait for more pages
                 if (bufferResult.isEmpty() && !bufferResult.isBufferComplete()) {
                     return false;
@@ -185,6 +185,7 @@ public class SqlTask
 
         TaskStats taskStats;
         Set<PlanNodeId> noMoreSplits;
+        boolean needsPlan = false;
 
         TaskInfo finalTaskInfo = taskHolder.getFinalTaskInfo();
         if (finalTaskInfo != null) {
@@ -202,6 +203,7 @@ public class SqlTask
                 DateTime endTime = state.isDone() ? DateTime.now() : null;
                 taskStats = new TaskStats(taskStateMachine.getCreatedTime(), endTime);
                 noMoreSplits = ImmutableSet.of();
+                needsPlan = !state.isDone();
             }
         }
 
@@ -215,7 +217,8 @@ public class SqlTask
                 sharedBuffer.getInfo(),
                 noMoreSplits,
                 taskStats,
-                failures);
+                failures,
+                needsPlan);
     }
 
     public CompletableFuture<TaskInfo> getTaskInfo(TaskState callersCurrentState)
@@ -234,7 +237,7 @@ public class SqlTask
         return futureTaskState.thenApply(input -> getTaskInfo());
     }
 
-    public TaskInfo updateTask(Session session, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public TaskInfo updateTask(Session session, Optional<PlanFragment> fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
     {
         try {
             // assure the task execution is only created once
@@ -247,7 +250,11 @@ public class SqlTask
                 }
                 taskExecution = taskHolder.getTaskExecution();
                 if (taskExecution == null) {
-                    taskExecution = sqlTaskExecutionFactory.create(session, queryContext, taskStateMachine, sharedBuffer, fragment, sources);
+                    if (!fragment.isPresent()) {
+                        // the coordinator sends the fragment again when the task info says that it needs the plan
+                        return getTaskInfo();
+                    }
+                    taskExecution = sqlTaskExecutionFactory.create(session, queryContext, taskStateMachine, sharedBuffer, fragment.get(), sources);
                     taskHolderReference.compareAndSet(taskHolder, new TaskHolder(taskExecution));
                 }
             }
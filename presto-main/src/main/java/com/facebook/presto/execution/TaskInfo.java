@@ -60,6 +60,7 @@ public class TaskInfo
     private final Set<PlanNodeId> noMoreSplits;
     private final TaskStats stats;
     private final List<ExecutionFailureInfo> failures;
+    private final boolean needsPlan;
 
     @JsonCreator
     public TaskInfo(@JsonProperty("taskId") TaskId taskId,
@@ -71,7 +72,8 @@ public class TaskInfo
             @JsonProperty("outputBuffers") SharedBufferInfo outputBuffers,
             @JsonProperty("noMoreSplits") Set<PlanNodeId> noMoreSplits,
             @JsonProperty("stats") TaskStats stats,
-            @JsonProperty("failures") List<ExecutionFailureInfo> failures)
+            @JsonProperty("failures") List<ExecutionFailureInfo> failures,
+            @JsonProperty("needsPlan") boolean needsPlan)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.nodeInstanceId = requireNonNull(nodeInstanceId, "nodeInstanceId is null");
@@ -89,6 +91,7 @@ public class TaskInfo
         else {
             this.failures = ImmutableList.of();
         }
+        this.needsPlan = needsPlan;
     }
 
     @JsonProperty
@@ -151,9 +154,19 @@ public class TaskInfo
         return failures;
     }
 
+    /**
+     * True if the task has not been created from a plan fragment yet, for example
+     * because the update that carried the fragment went to a different worker process.
+     */
+    @JsonProperty
+    public boolean isNeedsPlan()
+    {
+        return needsPlan;
+    }
+
     public TaskInfo summarize()
     {
-        return new TaskInfo(taskId, nodeInstanceId, version, state, self, lastHeartbeat, outputBuffers, noMoreSplits, stats.summarize(), failures);
+        return new TaskInfo(taskId, nodeInstanceId, version, state, self, lastHeartbeat, outputBuffers, noMoreSplits, stats.summarize(), failures, needsPlan);
     }
 
     @Override
@@ -162,6 +175,7 @@ public class TaskInfo
         return toStringHelper(this)
                 .add("taskId", taskId)
                 .add("state", state)
+                .add("needsPlan", needsPlan)
                 .toString();
     }
 }
@@ -41,6 +41,7 @@ public class TaskManagerConfig
     private Integer minDrivers;
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
+    private boolean sinkCompressionEnabled;
 
     private Duration clientTimeout = new Duration(2, TimeUnit.MINUTES);
     private Duration infoMaxAge = new Duration(15, TimeUnit.MINUTES);
@@ -49,6 +50,7 @@ public class TaskManagerConfig
     private int taskDefaultConcurrency = 1;
     private int httpResponseThreads = 100;
     private int httpTimeoutThreads = 1;
+    private boolean binaryTransportEnabled;
 
     @MinDuration("1ms")
     @MaxDuration("10s")
@@ -184,6 +186,19 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isSinkCompressionEnabled()
+    {
+        return sinkCompressionEnabled;
+    }
+
+    @Config("sink.compression-enabled")
+    @ConfigDescription("Compress the pages of the output buffers with Snappy before sending them")
+    public TaskManagerConfig setSinkCompressionEnabled(boolean sinkCompressionEnabled)
+    {
+        this.sinkCompressionEnabled = sinkCompressionEnabled;
+        return this;
+    }
+
     @MinDuration("5s")
     @NotNull
     public Duration getClientTimeout()
@@ -264,4 +279,17 @@ public class TaskManagerConfig
         this.httpTimeoutThreads = httpTimeoutThreads;
         return this;
     }
+
+    public boolean isBinaryTransportEnabled()
+    {
+        return binaryTransportEnabled;
+    }
+
+    @Config("task.binary-transport-enabled")
+    @ConfigDescription("Use Smile instead of JSON for task update requests and task info responses")
+    public TaskManagerConfig setBinaryTransportEnabled(boolean binaryTransportEnabled)
+    {
+        this.binaryTransportEnabled = binaryTransportEnabled;
+        return this;
+    }
 }
@@ -18,6 +18,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
@@ -69,6 +70,14 @@ public interface Metadata
     @NotNull
     TableMetadata getTableMetadata(Session session, TableHandle tableHandle);
 
+    /**
+     * Return the estimated statistics for the specified table handle, limited to the data of the layout if one is specified.
+     *
+     * @throws RuntimeException if table handle is no longer valid
+     */
+    @NotNull
+    TableStatistics getTableStatistics(Session session, TableHandle tableHandle, Optional<TableLayoutHandle> layout);
+
     /**
      * Get the names that match the specified table prefix (never null).
      */
@@ -37,6 +37,7 @@ import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
@@ -359,6 +360,17 @@ public class MetadataManager
         return new TableMetadata(tableHandle.getConnectorId(), tableMetadata);
     }
 
+    @Override
+    public TableStatistics getTableStatistics(Session session, TableHandle tableHandle, Optional<TableLayoutHandle> layout)
+    {
+        ConnectorMetadataEntry entry = lookupConnectorFor(tableHandle);
+        ConnectorSession connectorSession = session.toConnectorSession(entry.getCatalog());
+        if (layout.isPresent() && !(layout.get().getConnectorHandle() instanceof LegacyTableLayoutHandle)) {
+            return entry.getMetadata().getTableStatistics(connectorSession, tableHandle.getConnectorHandle(), layout.get().getConnectorHandle());
+        }
+        return entry.getMetadata().getTableStatistics(connectorSession, tableHandle.getConnectorHandle());
+    }
+
     @Override
     public Map<String, ColumnHandle> getColumnHandles(Session session, TableHandle tableHandle)
     {
@@ -125,6 +125,16 @@ public class BigintGroupByHash
         }
     }
 
+    @Override
+    public long getRawHash(int groupId)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        if (groupId == nullGroupId) {
+            return NULL_HASH_CODE;
+        }
+        return BigintOperators.hashCode(valuesByGroupId.get(groupId));
+    }
+
     @Override
     public void addPage(Page page)
     {
@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.wrappedIntArray;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Page processor that evaluates projections over a single dictionary encoded
+ * column once per dictionary entry instead of once per position, and produces
+ * dictionary encoded output for them. Pages that are not dictionary encoded
+ * are processed by the wrapped processor.
+ */
+public class DictionaryAwarePageProcessor
+        implements PageProcessor
+{
+    private final PageProcessor processor;
+    private final List<Optional<DictionaryProjection>> projections;
+
+    /**
+     * @param projections for every projection of the processor, how to evaluate it
+     * on a single dictionary encoded input channel, or empty if the projection can
+     * not be evaluated column by column
+     */
+    public DictionaryAwarePageProcessor(PageProcessor processor, List<Optional<DictionaryProjection>> projections)
+    {
+        this.processor = requireNonNull(processor, "processor is null");
+        this.projections = ImmutableList.copyOf(requireNonNull(projections, "projections is null"));
+    }
+
+    @Override
+    public int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder)
+    {
+        return processor.process(session, page, start, end, pageBuilder);
+    }
+
+    @Override
+    public int filterPositions(ConnectorSession session, Page page, int[] selectedPositions)
+    {
+        return processor.filterPositions(session, page, selectedPositions);
+    }
+
+    @Override
+    public Page processColumnarDictionary(ConnectorSession session, Page page, ProjectedDictionaryCache dictionaryCache)
+    {
+        boolean dictionaryInput = false;
+        for (Optional<DictionaryProjection> projection : projections) {
+            if (!projection.isPresent()) {
+                return null;
+            }
+            if (projection.get().getProcessor().isPresent()) {
+                if (!(getLoadedBlock(page.getBlock(projection.get().getInputChannel()), true) instanceof DictionaryBlock)) {
+                    return null;
+                }
+                dictionaryInput = true;
+            }
+        }
+        if (!dictionaryInput) {
+            return null;
+        }
+
+        int positionCount = page.getPositionCount();
+        int[] selectedPositions = new int[positionCount];
+        int selectedCount = processor.filterPositions(session, page, selectedPositions);
+
+        Block[] blocks = new Block[projections.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            DictionaryProjection projection = projections.get(i).get();
+            Block input = page.getBlock(projection.getInputChannel());
+            if (!projection.getProcessor().isPresent()) {
+                blocks[i] = selectPositions(input, selectedPositions, selectedCount);
+                continue;
+            }
+
+            DictionaryBlock dictionaryBlock = (DictionaryBlock) getLoadedBlock(input, true);
+            Block dictionary = dictionaryBlock.getDictionary();
+            int[] selectedIds = new int[selectedCount];
+            for (int position = 0; position < selectedCount; position++) {
+                selectedIds[position] = dictionaryBlock.getId(selectedPositions[position]);
+            }
+
+            Optional<Block> projectedDictionary = Optional.empty();
+            if (dictionaryCache.contains(i, dictionary)) {
+                projectedDictionary = dictionaryCache.getProjectedDictionary(i);
+            }
+            else if (dictionary.getPositionCount() <= selectedCount) {
+                // projecting a dictionary larger than the selected positions costs more than it saves
+                try {
+                    projectedDictionary = Optional.of(project(session, projection, page.getChannelCount(), dictionary));
+                }
+                catch (RuntimeException e) {
+                    // entries that are not selected can fail the projection, so only the selected positions are
+                    // projected, and the failure is cached so the dictionary is not projected again
+                }
+                dictionaryCache.put(i, dictionary, projectedDictionary);
+            }
+
+            if (projectedDictionary.isPresent()) {
+                blocks[i] = new DictionaryBlock(selectedCount, projectedDictionary.get(), wrappedIntArray(selectedIds));
+            }
+            else {
+                DictionaryBlock selected = new DictionaryBlock(selectedCount, dictionary, wrappedIntArray(selectedIds));
+                blocks[i] = project(session, projection, page.getChannelCount(), selected);
+            }
+        }
+        return new Page(selectedCount, blocks);
+    }
+
+    private static Block selectPositions(Block block, int[] selectedPositions, int selectedCount)
+    {
+        if (selectedCount == block.getPositionCount()) {
+            return block;
+        }
+
+        // keep the dictionary of dictionary encoded columns, so later operators can process them once per dictionary entry
+        Block loadedBlock = getLoadedBlock(block, false);
+        if (loadedBlock instanceof DictionaryBlock) {
+            DictionaryBlock dictionaryBlock = (DictionaryBlock) loadedBlock;
+            int[] ids = new int[selectedCount];
+            for (int position = 0; position < selectedCount; position++) {
+                ids[position] = dictionaryBlock.getId(selectedPositions[position]);
+            }
+            return new DictionaryBlock(selectedCount, dictionaryBlock.getDictionary(), wrappedIntArray(ids));
+        }
+        return block.copyPositions(Ints.asList(selectedPositions).subList(0, selectedCount));
+    }
+
+    private static Block project(ConnectorSession session, DictionaryProjection projection, int channelCount, Block input)
+    {
+        // the projection only reads its input channel, so every channel can hold the input
+        Block[] blocks = new Block[channelCount];
+        Arrays.fill(blocks, input);
+        Page page = new Page(input.getPositionCount(), blocks);
+
+        PageProcessor processor = projection.getProcessor().get();
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(projection.getType()));
+        List<Block> projected = new ArrayList<>();
+        int position = 0;
+        while (position < page.getPositionCount()) {
+            position = processor.process(session, page, position, page.getPositionCount(), pageBuilder);
+            projected.add(pageBuilder.build().getBlock(0));
+            pageBuilder.reset();
+        }
+        if (projected.size() == 1) {
+            return projected.get(0);
+        }
+
+        BlockBuilder blockBuilder = projection.getType().createBlockBuilder(new BlockBuilderStatus(), page.getPositionCount());
+        for (Block block : projected) {
+            for (int i = 0; i < block.getPositionCount(); i++) {
+                projection.getType().appendTo(block, i, blockBuilder);
+            }
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block getLoadedBlock(Block block, boolean load)
+    {
+        if (block instanceof LazyBlock && (load || ((LazyBlock) block).isLoaded())) {
+            return ((LazyBlock) block).getBlock();
+        }
+        return block;
+    }
+
+    public static final class DictionaryProjection
+    {
+        private final int inputChannel;
+        private final Optional<PageProcessor> processor;
+        private final Type type;
+
+        /**
+         * @param processor a processor without filter that evaluates only this
+         * projection, or empty if the projection is the input channel itself
+         */
+        public DictionaryProjection(int inputChannel, Optional<PageProcessor> processor, Type type)
+        {
+            checkArgument(inputChannel >= 0, "inputChannel is negative");
+            this.inputChannel = inputChannel;
+            this.processor = requireNonNull(processor, "processor is null");
+            this.type = requireNonNull(type, "type is null");
+        }
+
+        public int getInputChannel()
+        {
+            return inputChannel;
+        }
+
+        public Optional<PageProcessor> getProcessor()
+        {
+            return processor;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+    }
+}
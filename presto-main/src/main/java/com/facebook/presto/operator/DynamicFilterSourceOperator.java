@@ -0,0 +1,336 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.Slice;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Passes the build side of a join through unchanged while summarizing the
+ * values of its join keys. Once all build drivers have finished, the summary
+ * is published as a TupleDomain over the probe side columns the keys are
+ * compared with, so the probe side scan can skip data without matches.
+ * <p>
+ * The keys of a column are summarized as the set of their distinct values
+ * while there are at most {@code maxDistinctValues} of them, and as the
+ * range between the smallest and the largest key after that.
+ */
+public class DynamicFilterSourceOperator
+        implements Operator
+{
+    public static class DynamicFilterSourceOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final List<Type> types;
+        private final Map<Integer, ColumnHandle> targetColumns;
+        private final int maxDistinctValues;
+        private final SettableFuture<TupleDomain<ColumnHandle>> dynamicFilter = SettableFuture.create();
+
+        @GuardedBy("this")
+        private TupleDomain<ColumnHandle> summary = TupleDomain.none();
+        @GuardedBy("this")
+        private int runningOperators;
+        @GuardedBy("this")
+        private boolean closed;
+
+        public DynamicFilterSourceOperatorFactory(int operatorId, List<Type> types, Map<Integer, ColumnHandle> targetColumns, int maxDistinctValues)
+        {
+            checkArgument(maxDistinctValues >= 0, "maxDistinctValues is negative");
+            this.operatorId = operatorId;
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+            this.targetColumns = ImmutableMap.copyOf(requireNonNull(targetColumns, "targetColumns is null"));
+            this.maxDistinctValues = maxDistinctValues;
+        }
+
+        /**
+         * Returns the filter over the target columns, which completes once the
+         * whole build side has been seen.
+         */
+        public ListenableFuture<TupleDomain<ColumnHandle>> getDynamicFilter()
+        {
+            return dynamicFilter;
+        }
+
+        @Override
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        @Override
+        public synchronized Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, DynamicFilterSourceOperator.class.getSimpleName());
+            runningOperators++;
+            return new DynamicFilterSourceOperator(operatorContext, this, types, targetColumns, maxDistinctValues);
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            closed = true;
+            publishIfComplete();
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            throw new UnsupportedOperationException("Dynamic filter source can not be duplicated");
+        }
+
+        private synchronized void addSummary(TupleDomain<ColumnHandle> operatorSummary)
+        {
+            summary = TupleDomain.columnWiseUnion(summary, operatorSummary);
+            runningOperators--;
+            publishIfComplete();
+        }
+
+        private void publishIfComplete()
+        {
+            if (!closed || runningOperators > 0) {
+                return;
+            }
+
+            if (summary.isNone()) {
+                dynamicFilter.set(summary);
+                return;
+            }
+
+            // the union of the summaries of several drivers may have more values than allowed
+            Map<ColumnHandle, Domain> domains = new HashMap<>();
+            for (Map.Entry<ColumnHandle, Domain> entry : summary.getDomains().get().entrySet()) {
+                Domain domain = entry.getValue();
+                if (domain.getType().isOrderable() && domain.getValues().getRanges().getRangeCount() > maxDistinctValues) {
+                    domain = Domain.create(ValueSet.ofRanges(domain.getValues().getRanges().getSpan()), false);
+                }
+                domains.put(entry.getKey(), domain);
+            }
+            dynamicFilter.set(TupleDomain.withColumnDomains(domains));
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final DynamicFilterSourceOperatorFactory factory;
+    private final List<Type> types;
+    private final Map<Integer, ColumnHandle> targetColumns;
+    private final int maxDistinctValues;
+
+    private final Map<Integer, Set<Object>> distinctValues = new HashMap<>();
+    private final Map<Integer, Object> minValues = new HashMap<>();
+    private final Map<Integer, Object> maxValues = new HashMap<>();
+
+    private Page currentPage;
+    private boolean finishing;
+    private boolean published;
+
+    public DynamicFilterSourceOperator(
+            OperatorContext operatorContext,
+            DynamicFilterSourceOperatorFactory factory,
+            List<Type> types,
+            Map<Integer, ColumnHandle> targetColumns,
+            int maxDistinctValues)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.factory = requireNonNull(factory, "factory is null");
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.targetColumns = ImmutableMap.copyOf(requireNonNull(targetColumns, "targetColumns is null"));
+        this.maxDistinctValues = maxDistinctValues;
+
+        for (int channel : targetColumns.keySet()) {
+            if (types.get(channel).isComparable()) {
+                distinctValues.put(channel, new HashSet<>());
+            }
+        }
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public void finish()
+    {
+        if (finishing) {
+            return;
+        }
+        finishing = true;
+        publish(createSummary());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finishing && currentPage == null;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && currentPage == null;
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator can not take input at this time");
+
+        for (int channel : targetColumns.keySet()) {
+            addValues(channel, page.getBlock(channel));
+        }
+        currentPage = page;
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        Page page = currentPage;
+        currentPage = null;
+        return page;
+    }
+
+    @Override
+    public void close()
+    {
+        // an operator that did not see all of its input can not restrict the probe side
+        publish(TupleDomain.all());
+    }
+
+    private void publish(TupleDomain<ColumnHandle> operatorSummary)
+    {
+        if (!published) {
+            published = true;
+            factory.addSummary(operatorSummary);
+        }
+    }
+
+    private void addValues(int channel, Block block)
+    {
+        Type type = types.get(channel);
+        Set<Object> values = distinctValues.get(channel);
+        boolean trackRange = isRangeSupported(type);
+        if (values == null && !trackRange) {
+            return;
+        }
+
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            // null keys never match in an equi-join
+            if (block.isNull(position)) {
+                continue;
+            }
+            Object value = readNativeValue(type, block, position);
+            if (value instanceof Double && ((Double) value).isNaN()) {
+                // NaN is not equal to any value, including itself
+                continue;
+            }
+            if (values != null) {
+                values.add(value);
+                if (values.size() > maxDistinctValues) {
+                    distinctValues.remove(channel);
+                    values = null;
+                }
+            }
+            if (trackRange) {
+                Object min = minValues.get(channel);
+                if (min == null || compare(type, value, min) < 0) {
+                    minValues.put(channel, value);
+                }
+                Object max = maxValues.get(channel);
+                if (max == null || compare(type, value, max) > 0) {
+                    maxValues.put(channel, value);
+                }
+            }
+        }
+    }
+
+    private TupleDomain<ColumnHandle> createSummary()
+    {
+        Map<ColumnHandle, Domain> domains = new HashMap<>();
+        for (Map.Entry<Integer, ColumnHandle> entry : targetColumns.entrySet()) {
+            int channel = entry.getKey();
+            Type type = types.get(channel);
+            Set<Object> values = distinctValues.get(channel);
+            if (values != null) {
+                if (values.isEmpty()) {
+                    return TupleDomain.none();
+                }
+                domains.put(entry.getValue(), Domain.create(ValueSet.copyOf(type, values), false));
+            }
+            else if (minValues.containsKey(channel)) {
+                Range range = Range.range(type, minValues.get(channel), true, maxValues.get(channel), true);
+                domains.put(entry.getValue(), Domain.create(ValueSet.ofRanges(range), false));
+            }
+            else if (isRangeSupported(type)) {
+                // no key was seen, so no probe row can match
+                return TupleDomain.none();
+            }
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+
+    private static boolean isRangeSupported(Type type)
+    {
+        Class<?> javaType = type.getJavaType();
+        return type.isOrderable() && (javaType == long.class || javaType == double.class || javaType == boolean.class || javaType == Slice.class);
+    }
+
+    private static int compare(Type type, Object left, Object right)
+    {
+        Class<?> javaType = type.getJavaType();
+        if (javaType == long.class) {
+            return Long.compare((Long) left, (Long) right);
+        }
+        if (javaType == double.class) {
+            return Double.compare((Double) left, (Double) right);
+        }
+        if (javaType == boolean.class) {
+            return Boolean.compare((Boolean) left, (Boolean) right);
+        }
+        return ((Slice) left).compareTo((Slice) right);
+    }
+}
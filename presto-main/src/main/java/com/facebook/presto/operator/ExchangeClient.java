@@ -120,11 +120,16 @@ public class ExchangeClient
             bufferedPages--;
         }
 
+        long compressedBytes = 0;
+        long uncompressedBytes = 0;
         ImmutableList.Builder<PageBufferClientStatus> exchangeStatus = ImmutableList.builder();
         for (HttpPageBufferClient client : allClients.values()) {
-            exchangeStatus.add(client.getStatus());
+            PageBufferClientStatus clientStatus = client.getStatus();
+            compressedBytes += clientStatus.getCompressedBytesReceived();
+            uncompressedBytes += clientStatus.getUncompressedBytesReceived();
+            exchangeStatus.add(clientStatus);
         }
-        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, exchangeStatus.build());
+        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, compressedBytes, uncompressedBytes, noMoreLocations, exchangeStatus.build());
     }
 
     public synchronized void addLocation(URI location)
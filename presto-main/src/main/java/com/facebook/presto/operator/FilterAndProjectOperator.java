@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.memory.LocalMemoryContext;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.type.Type;
@@ -31,6 +32,8 @@ public class FilterAndProjectOperator
 
     private final PageBuilder pageBuilder;
     private final PageProcessor processor;
+    private final ProjectedDictionaryCache dictionaryCache = new ProjectedDictionaryCache();
+    private final LocalMemoryContext dictionaryCacheMemoryContext;
     private Page currentPage;
     private int currentPosition;
     private boolean finishing;
@@ -41,6 +44,7 @@ public class FilterAndProjectOperator
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.pageBuilder = new PageBuilder(getTypes());
+        this.dictionaryCacheMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
     }
 
     @Override
@@ -87,6 +91,15 @@ public class FilterAndProjectOperator
     @Override
     public final Page getOutput()
     {
+        if (pageBuilder.isEmpty() && currentPage != null && currentPosition == 0) {
+            Page page = processor.processColumnarDictionary(operatorContext.getSession().toConnectorSession(), currentPage, dictionaryCache);
+            dictionaryCacheMemoryContext.setBytes(dictionaryCache.getRetainedSizeInBytes());
+            if (page != null) {
+                currentPage = null;
+                return page.getPositionCount() == 0 ? null : page;
+            }
+        }
+
         if (!pageBuilder.isFull() && currentPage != null) {
             currentPosition = processor.process(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
             if (currentPosition == currentPage.getPositionCount()) {
@@ -48,4 +48,17 @@ public class GenericPageProcessor
 
         return position;
     }
+
+    @Override
+    public int filterPositions(ConnectorSession session, Page page, int[] selectedPositions)
+    {
+        int selectedCount = 0;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (filterFunction.filter(position, page.getBlocks())) {
+                selectedPositions[selectedCount] = position;
+                selectedCount++;
+            }
+        }
+        return selectedCount;
+    }
 }
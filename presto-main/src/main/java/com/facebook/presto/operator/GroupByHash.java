@@ -40,6 +40,8 @@ public interface GroupByHash
 
     void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset);
 
+    long getRawHash(int groupId);
+
     void addPage(Page page);
 
     GroupByIdBlock getGroupIds(Page page);
@@ -19,19 +19,25 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -55,6 +61,7 @@ public class HashAggregationOperator
         private final List<Type> types;
         private boolean closed;
         private final long maxPartialMemory;
+        private final Optional<SpillerFactory> spillerFactory;
 
         public HashAggregationOperatorFactory(
                 int operatorId,
@@ -66,6 +73,30 @@ public class HashAggregationOperator
                 Optional<Integer> hashChannel,
                 int expectedGroups,
                 DataSize maxPartialMemory)
+        {
+            this(operatorId,
+                    groupByTypes,
+                    groupByChannels,
+                    step,
+                    accumulatorFactories,
+                    maskChannel,
+                    hashChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    Optional.empty());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> maskChannel,
+                Optional<Integer> hashChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.maskChannel = requireNonNull(maskChannel, "maskChannel is null");
@@ -76,6 +107,7 @@ public class HashAggregationOperator
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
             this.expectedGroups = expectedGroups;
             this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null").toBytes();
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
@@ -106,7 +138,8 @@ public class HashAggregationOperator
                     accumulatorFactories,
                     maskChannel,
                     hashChannel,
-                    expectedGroups);
+                    expectedGroups,
+                    spillerFactory);
             return hashAggregationOperator;
         }
 
@@ -128,7 +161,8 @@ public class HashAggregationOperator
                     maskChannel,
                     hashChannel,
                     expectedGroups,
-                    new DataSize(maxPartialMemory, Unit.BYTE));
+                    new DataSize(maxPartialMemory, Unit.BYTE),
+                    spillerFactory);
         }
     }
 
@@ -140,6 +174,7 @@ public class HashAggregationOperator
     private final Optional<Integer> maskChannel;
     private final Optional<Integer> hashChannel;
     private final int expectedGroups;
+    private final Optional<SpillerFactory> spillerFactory;
 
     private final List<Type> types;
 
@@ -147,6 +182,10 @@ public class HashAggregationOperator
     private Iterator<Page> outputIterator;
     private boolean finishing;
 
+    private Spiller spiller;
+    private List<Type> spillTypes;
+    private boolean spillsMerged;
+
     public HashAggregationOperator(
             OperatorContext operatorContext,
             List<Type> groupByTypes,
@@ -155,7 +194,8 @@ public class HashAggregationOperator
             List<AccumulatorFactory> accumulatorFactories,
             Optional<Integer> maskChannel,
             Optional<Integer> hashChannel,
-            int expectedGroups)
+            int expectedGroups,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -169,6 +209,8 @@ public class HashAggregationOperator
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
         this.step = step;
         this.expectedGroups = expectedGroups;
+        // partial aggregations flush their state when memory is exhausted, so spilling is only useful for the final step
+        this.spillerFactory = step.isOutputPartial() ? Optional.empty() : requireNonNull(spillerFactory, "spillerFactory is null");
         this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
     }
 
@@ -193,7 +235,7 @@ public class HashAggregationOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && aggregationBuilder == null && (outputIterator == null || !outputIterator.hasNext());
+        return finishing && aggregationBuilder == null && (spiller == null || spillsMerged) && (outputIterator == null || !outputIterator.hasNext());
     }
 
     @Override
@@ -216,7 +258,8 @@ public class HashAggregationOperator
                     groupByChannels,
                     maskChannel,
                     hashChannel,
-                    operatorContext);
+                    operatorContext,
+                    spillerFactory.isPresent());
 
             // assume initial aggregationBuilder is not full
         }
@@ -224,6 +267,10 @@ public class HashAggregationOperator
             checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
         }
         aggregationBuilder.processPage(page);
+
+        if (spillerFactory.isPresent() && !aggregationBuilder.tryReserveMemory()) {
+            spillToDisk();
+        }
     }
 
     @Override
@@ -233,6 +280,24 @@ public class HashAggregationOperator
             // current output iterator is done
             outputIterator = null;
 
+            if (spiller != null) {
+                if (!finishing || spillsMerged) {
+                    return null;
+                }
+
+                // spill the remaining state, so all groups are merged from disk in hash order
+                if (aggregationBuilder != null) {
+                    spillToDisk();
+                }
+                outputIterator = mergeSpills();
+                spillsMerged = true;
+                if (!outputIterator.hasNext()) {
+                    outputIterator = null;
+                    return null;
+                }
+                return outputIterator.next();
+            }
+
             // no data
             if (aggregationBuilder == null) {
                 return null;
@@ -256,6 +321,96 @@ public class HashAggregationOperator
         return outputIterator.next();
     }
 
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
+    private void spillToDisk()
+    {
+        if (spiller == null) {
+            spillTypes = aggregationBuilder.getSpillTypes();
+            spiller = spillerFactory.get().create(spillTypes);
+        }
+
+        long spilledBytes = spiller.spill(aggregationBuilder.buildSortedIntermediate());
+        operatorContext.recordSpill(spilledBytes);
+
+        aggregationBuilder = null;
+        operatorContext.setMemoryReservation(0);
+    }
+
+    private Iterator<Page> mergeSpills()
+    {
+        // spilled runs are sorted by the raw hash of the group, which is stored in the last channel
+        int rawHashChannel = spillTypes.size() - 1;
+        Iterator<Page> sortedPages = mergeSortedPages(
+                spiller.getSpills(),
+                (left, leftPosition, right, rightPosition) -> Long.compare(
+                        BIGINT.getLong(left.getBlock(rawHashChannel), leftPosition),
+                        BIGINT.getLong(right.getBlock(rawHashChannel), rightPosition)),
+                spillTypes,
+                true);
+
+        int groupByChannelCount = groupByTypes.size();
+        List<Integer> mergeGroupByChannels = new ArrayList<>();
+        for (int channel = 0; channel < groupByChannelCount; channel++) {
+            mergeGroupByChannels.add(channel);
+        }
+        Optional<Integer> mergeHashChannel = hashChannel.map(channel -> groupByChannelCount);
+        int intermediateChannelOffset = groupByChannelCount + (hashChannel.isPresent() ? 1 : 0);
+
+        return new AbstractIterator<Page>()
+        {
+            private Iterator<Page> currentOutput = Collections.emptyIterator();
+            private GroupByHashAggregationBuilder mergeBuilder;
+
+            @Override
+            protected Page computeNext()
+            {
+                while (true) {
+                    if (currentOutput.hasNext()) {
+                        return currentOutput.next();
+                    }
+
+                    if (!sortedPages.hasNext()) {
+                        if (mergeBuilder == null) {
+                            operatorContext.setMemoryReservation(0);
+                            return endOfData();
+                        }
+                        currentOutput = mergeBuilder.build();
+                        mergeBuilder = null;
+                        continue;
+                    }
+
+                    if (mergeBuilder == null) {
+                        mergeBuilder = new GroupByHashAggregationBuilder(
+                                accumulatorFactories,
+                                Step.FINAL,
+                                expectedGroups,
+                                groupByTypes,
+                                mergeGroupByChannels,
+                                Optional.empty(),
+                                mergeHashChannel,
+                                Optional.of(intermediateChannelOffset),
+                                operatorContext,
+                                true);
+                    }
+                    mergeBuilder.processPage(sortedPages.next());
+
+                    // merged pages never split a group, so every group seen so far is complete
+                    if (!mergeBuilder.tryReserveMemory()) {
+                        currentOutput = mergeBuilder.build();
+                        mergeBuilder = null;
+                    }
+                }
+            }
+        };
+    }
+
     private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -275,6 +430,21 @@ public class HashAggregationOperator
         private final List<Aggregator> aggregators;
         private final OperatorContext operatorContext;
         private final boolean partial;
+        private final boolean spillable;
+
+        private GroupByHashAggregationBuilder(
+                List<AccumulatorFactory> accumulatorFactories,
+                Step step,
+                int expectedGroups,
+                List<Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Optional<Integer> maskChannel,
+                Optional<Integer> hashChannel,
+                OperatorContext operatorContext,
+                boolean spillable)
+        {
+            this(accumulatorFactories, step, expectedGroups, groupByTypes, groupByChannels, maskChannel, hashChannel, Optional.empty(), operatorContext, spillable);
+        }
 
         private GroupByHashAggregationBuilder(
                 List<AccumulatorFactory> accumulatorFactories,
@@ -284,18 +454,23 @@ public class HashAggregationOperator
                 List<Integer> groupByChannels,
                 Optional<Integer> maskChannel,
                 Optional<Integer> hashChannel,
-                OperatorContext operatorContext)
+                Optional<Integer> intermediateChannelOffset,
+                OperatorContext operatorContext,
+                boolean spillable)
         {
             this.groupByHash = createGroupByHash(groupByTypes, Ints.toArray(groupByChannels), maskChannel, hashChannel, expectedGroups);
             this.operatorContext = operatorContext;
             this.partial = step.isOutputPartial();
+            this.spillable = spillable;
 
             // wrapper each function with an aggregator
             ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
             requireNonNull(accumulatorFactories, "accumulatorFactories is null");
             for (int i = 0; i < accumulatorFactories.size(); i++) {
                 AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-                builder.add(new Aggregator(accumulatorFactory, step));
+                int index = i;
+                Optional<Integer> intermediateChannel = intermediateChannelOffset.map(offset -> offset + index);
+                builder.add(new Aggregator(accumulatorFactory, step, intermediateChannel));
             }
             aggregators = builder.build();
         }
@@ -315,6 +490,27 @@ public class HashAggregationOperator
         }
 
         public boolean isFull()
+        {
+            long memorySize = getMemorySize();
+            if (partial) {
+                return !operatorContext.trySetMemoryReservation(memorySize);
+            }
+            else if (!spillable) {
+                operatorContext.setMemoryReservation(memorySize);
+            }
+            // spillable builders reserve memory in tryReserveMemory
+            return false;
+        }
+
+        /**
+         * Returns false if the memory pool or the query memory limit can not accommodate the current state.
+         */
+        public boolean tryReserveMemory()
+        {
+            return operatorContext.trySetMemoryReservation(getMemorySize());
+        }
+
+        private long getMemorySize()
         {
             long memorySize = groupByHash.getEstimatedSize();
             for (Aggregator aggregator : aggregators) {
@@ -324,13 +520,76 @@ public class HashAggregationOperator
             if (memorySize < 0) {
                 memorySize = 0;
             }
-            if (partial) {
-                return !operatorContext.trySetMemoryReservation(memorySize);
+            return memorySize;
+        }
+
+        /**
+         * Layout of the spilled pages: the group by columns (including the precomputed hash, if any),
+         * the intermediate state of each aggregation and the raw hash of the group.
+         */
+        public List<Type> getSpillTypes()
+        {
+            List<Type> types = new ArrayList<>(groupByHash.getTypes());
+            for (Aggregator aggregator : aggregators) {
+                types.add(aggregator.getIntermediateType());
             }
-            else {
-                operatorContext.setMemoryReservation(memorySize);
-                return false;
+            types.add(BIGINT);
+            return types;
+        }
+
+        public Iterator<Page> buildSortedIntermediate()
+        {
+            int groupCount = groupByHash.getGroupCount();
+            int[] groupIds = new int[groupCount];
+            long[] rawHashes = new long[groupCount];
+            for (int groupId = 0; groupId < groupCount; groupId++) {
+                groupIds[groupId] = groupId;
+                rawHashes[groupId] = groupByHash.getRawHash(groupId);
             }
+            IntArrays.quickSort(groupIds, new AbstractIntComparator()
+            {
+                @Override
+                public int compare(int left, int right)
+                {
+                    return Long.compare(rawHashes[left], rawHashes[right]);
+                }
+            });
+
+            List<Type> types = getSpillTypes();
+            PageBuilder pageBuilder = new PageBuilder(types);
+            int rawHashChannel = types.size() - 1;
+            return new AbstractIterator<Page>()
+            {
+                private int index;
+
+                @Override
+                protected Page computeNext()
+                {
+                    if (index >= groupCount) {
+                        return endOfData();
+                    }
+
+                    pageBuilder.reset();
+
+                    int groupByChannelCount = groupByHash.getTypes().size();
+                    while (!pageBuilder.isFull() && index < groupCount) {
+                        int groupId = groupIds[index];
+                        groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+
+                        pageBuilder.declarePosition();
+                        for (int i = 0; i < aggregators.size(); i++) {
+                            Aggregator aggregator = aggregators.get(i);
+                            BlockBuilder output = pageBuilder.getBlockBuilder(groupByChannelCount + i);
+                            aggregator.evaluateIntermediate(groupId, output);
+                        }
+                        BIGINT.writeLong(pageBuilder.getBlockBuilder(rawHashChannel), rawHashes[groupId]);
+
+                        index++;
+                    }
+
+                    return pageBuilder.build();
+                }
+            };
         }
 
         public Iterator<Page> build()
@@ -382,14 +641,24 @@ public class HashAggregationOperator
         private final int intermediateChannel;
 
         private Aggregator(AccumulatorFactory accumulatorFactory, Step step)
+        {
+            this(accumulatorFactory, step, Optional.empty());
+        }
+
+        private Aggregator(AccumulatorFactory accumulatorFactory, Step step, Optional<Integer> intermediateChannel)
         {
             if (step.isInputRaw()) {
-                intermediateChannel = -1;
+                checkArgument(!intermediateChannel.isPresent(), "intermediate channel is not used for raw input");
+                this.intermediateChannel = -1;
                 aggregation = accumulatorFactory.createGroupedAccumulator();
             }
+            else if (intermediateChannel.isPresent()) {
+                this.intermediateChannel = intermediateChannel.get();
+                aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
+            }
             else {
                 checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
-                intermediateChannel = accumulatorFactory.getInputChannels().get(0);
+                this.intermediateChannel = accumulatorFactory.getInputChannels().get(0);
                 aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
             }
             this.step = step;
@@ -410,6 +679,11 @@ public class HashAggregationOperator
             }
         }
 
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
         public void processPage(GroupByIdBlock groupIds, Page page)
         {
             if (step.isInputRaw()) {
@@ -429,5 +703,10 @@ public class HashAggregationOperator
                 aggregation.evaluateFinal(groupId, output);
             }
         }
+
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
     }
 }
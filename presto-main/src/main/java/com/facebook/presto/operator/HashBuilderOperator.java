@@ -14,16 +14,25 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -39,6 +48,7 @@ public class HashBuilderOperator
         private final Optional<Integer> hashChannel;
 
         private final int expectedPositions;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public HashBuilderOperatorFactory(
@@ -47,6 +57,17 @@ public class HashBuilderOperator
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
                 int expectedPositions)
+        {
+            this(operatorId, types, hashChannels, hashChannel, expectedPositions, Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.lookupSourceSupplier = new SettableLookupSourceSupplier(requireNonNull(types, "types is null"));
@@ -56,6 +77,7 @@ public class HashBuilderOperator
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
 
             this.expectedPositions = expectedPositions;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         }
 
         public LookupSourceSupplier getLookupSourceSupplier()
@@ -79,7 +101,8 @@ public class HashBuilderOperator
                     lookupSourceSupplier,
                     hashChannels,
                     hashChannel,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory);
         }
 
         @Override
@@ -91,10 +114,14 @@ public class HashBuilderOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new HashBuilderOperatorFactory(operatorId, lookupSourceSupplier.getTypes(), hashChannels, hashChannel, expectedPositions);
+            return new HashBuilderOperatorFactory(operatorId, lookupSourceSupplier.getTypes(), hashChannels, hashChannel, expectedPositions, spillerFactory);
         }
     }
 
+    // number of partitions the build side is split into when spilling is enabled
+    @VisibleForTesting
+    static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
     private final SettableLookupSourceSupplier lookupSourceSupplier;
     private final List<Integer> hashChannels;
@@ -102,6 +129,12 @@ public class HashBuilderOperator
 
     private final PagesIndex pagesIndex;
 
+    private final Optional<SpillerFactory> spillerFactory;
+    private final HashGenerator hashGenerator;
+    private final PagesIndex[] partitions;
+    private final int partitionExpectedPositions;
+    private final Map<Integer, Spiller> spillers = new HashMap<>();
+
     private boolean finished;
 
     public HashBuilderOperator(
@@ -109,7 +142,8 @@ public class HashBuilderOperator
             SettableLookupSourceSupplier lookupSourceSupplier,
             List<Integer> hashChannels,
             Optional<Integer> hashChannel,
-            int expectedPositions)
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
@@ -120,6 +154,31 @@ public class HashBuilderOperator
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
 
         this.pagesIndex = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions);
+
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        if (spillerFactory.isPresent()) {
+            // rows are partitioned exactly like in ParallelHashBuilder, so probe rows can be matched to their partition
+            if (hashChannel.isPresent()) {
+                this.hashGenerator = new PrecomputedHashGenerator(hashChannel.get());
+            }
+            else {
+                ImmutableList.Builder<Type> hashChannelTypes = ImmutableList.builder();
+                for (int channel : hashChannels) {
+                    hashChannelTypes.add(lookupSourceSupplier.getTypes().get(channel));
+                }
+                this.hashGenerator = new InterpretedHashGenerator(hashChannelTypes.build(), Ints.toArray(hashChannels));
+            }
+            this.partitionExpectedPositions = expectedPositions / SPILL_PARTITION_COUNT;
+            this.partitions = new PagesIndex[SPILL_PARTITION_COUNT];
+            for (int partition = 0; partition < partitions.length; partition++) {
+                partitions[partition] = new PagesIndex(lookupSourceSupplier.getTypes(), partitionExpectedPositions);
+            }
+        }
+        else {
+            this.hashGenerator = null;
+            this.partitionExpectedPositions = 0;
+            this.partitions = null;
+        }
     }
 
     @Override
@@ -141,11 +200,47 @@ public class HashBuilderOperator
             return;
         }
 
+        if (spillerFactory.isPresent()) {
+            finishPartitioned();
+            finished = true;
+            return;
+        }
+
         // After this point the SharedLookupSource will take over our memory reservation, and ours will be zero
         lookupSourceSupplier.setLookupSource(new SharedLookupSource(pagesIndex.createLookupSource(hashChannels, hashChannel), operatorContext));
         finished = true;
     }
 
+    private void finishPartitioned()
+    {
+        ImmutableList.Builder<LookupSource> lookupSources = ImmutableList.builder();
+        for (int partition = 0; partition < partitions.length; partition++) {
+            // Once the build side did not fit in memory, every partition is spilled, so the probe side
+            // can join one partition at a time without competing with the remaining in-memory partitions
+            if (!spillers.isEmpty() && partitions[partition].getPositionCount() > 0) {
+                spillPartition(partition);
+            }
+            lookupSources.add(partitions[partition].createLookupSource(hashChannels, hashChannel));
+        }
+
+        List<Type> types = lookupSourceSupplier.getTypes();
+        ImmutableList.Builder<Type> hashChannelTypes = ImmutableList.builder();
+        for (int channel : hashChannels) {
+            hashChannelTypes.add(types.get(channel));
+        }
+        LookupSource lookupSource = new PartitionedLookupSource(lookupSources.build(), hashChannelTypes.build());
+
+        Optional<SpilledLookupSourcePartitions> spilledPartitions = Optional.empty();
+        if (!spillers.isEmpty()) {
+            spilledPartitions = Optional.of(new SpilledLookupSourcePartitions(types, hashChannels, hashChannel, partitions.length, spillers, spillerFactory.get()));
+            // the spill files are now owned by the lookup source supplier
+            spillers.clear();
+        }
+
+        // After this point the SharedLookupSource will take over our memory reservation, and ours will be zero
+        lookupSourceSupplier.setLookupSource(new SharedLookupSource(lookupSource, operatorContext), spilledPartitions);
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -164,6 +259,12 @@ public class HashBuilderOperator
         requireNonNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
 
+        if (spillerFactory.isPresent()) {
+            addPartitionedInput(page);
+            operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+            return;
+        }
+
         pagesIndex.addPage(page);
         if (!operatorContext.trySetMemoryReservation(pagesIndex.getEstimatedSize().toBytes())) {
             pagesIndex.compact();
@@ -172,9 +273,84 @@ public class HashBuilderOperator
         operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
     }
 
+    private void addPartitionedInput(Page page)
+    {
+        List<List<Integer>> partitionPositions = new ArrayList<>(partitions.length);
+        for (int partition = 0; partition < partitions.length; partition++) {
+            partitionPositions.add(new ArrayList<>());
+        }
+        int partitionMask = partitions.length - 1;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int rawHash = hashGenerator.hashPosition(position, page);
+            partitionPositions.get(murmurHash3(rawHash) & partitionMask).add(position);
+        }
+
+        for (int partition = 0; partition < partitions.length; partition++) {
+            List<Integer> positions = partitionPositions.get(partition);
+            if (positions.isEmpty()) {
+                continue;
+            }
+            Block[] blocks = new Block[page.getChannelCount()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = page.getBlock(channel).copyPositions(positions);
+            }
+            partitions[partition].addPage(new Page(positions.size(), blocks));
+        }
+
+        // spill the largest partitions until the remaining ones fit in memory
+        while (!operatorContext.trySetMemoryReservation(getPartitionsSize())) {
+            int largestPartition = -1;
+            long largestSize = 0;
+            for (int partition = 0; partition < partitions.length; partition++) {
+                if (partitions[partition].getPositionCount() > 0 && partitions[partition].getEstimatedSize().toBytes() > largestSize) {
+                    largestPartition = partition;
+                    largestSize = partitions[partition].getEstimatedSize().toBytes();
+                }
+            }
+            if (largestPartition < 0) {
+                break;
+            }
+            spillPartition(largestPartition);
+        }
+        operatorContext.setMemoryReservation(getPartitionsSize());
+    }
+
+    private void spillPartition(int partition)
+    {
+        List<Type> types = lookupSourceSupplier.getTypes();
+        Spiller spiller = spillers.get(partition);
+        if (spiller == null) {
+            spiller = spillerFactory.get().create(types);
+            spillers.put(partition, spiller);
+        }
+        operatorContext.recordSpill(spiller.spill(partitions[partition].getPages()));
+
+        // replace the index, since a cleared index still holds on to its arrays
+        partitions[partition] = new PagesIndex(types, partitionExpectedPositions);
+    }
+
+    private long getPartitionsSize()
+    {
+        long size = 0;
+        for (PagesIndex partition : partitions) {
+            size += partition.getEstimatedSize().toBytes();
+        }
+        return size;
+    }
+
     @Override
     public Page getOutput()
     {
         return null;
     }
+
+    @Override
+    public void close()
+    {
+        // spill files are only owned by this operator until the lookup source is published
+        for (Spiller spiller : spillers.values()) {
+            spiller.close();
+        }
+        spillers.clear();
+    }
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PagesSerde.PagesReader;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -49,6 +50,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
 import static com.facebook.presto.block.PagesSerde.readPages;
@@ -126,6 +128,8 @@ public final class HttpPageBufferClient
     private long errorDelayMillis;
 
     private final AtomicInteger pagesReceived = new AtomicInteger();
+    private final AtomicLong compressedBytesReceived = new AtomicLong();
+    private final AtomicLong uncompressedBytesReceived = new AtomicLong();
 
     private final AtomicInteger requestsScheduled = new AtomicInteger();
     private final AtomicInteger requestsCompleted = new AtomicInteger();
@@ -190,6 +194,8 @@ public final class HttpPageBufferClient
                 state,
                 lastUpdate,
                 pagesReceived.get(),
+                compressedBytesReceived.get(),
+                uncompressedBytesReceived.get(),
                 requestsScheduled.get(),
                 requestsCompleted.get(),
                 requestsFailed.get(),
@@ -299,6 +305,9 @@ public final class HttpPageBufferClient
                     }
                 }
 
+                compressedBytesReceived.addAndGet(result.getCompressedSizeInBytes());
+                uncompressedBytesReceived.addAndGet(result.getUncompressedSizeInBytes());
+
                 // add pages
                 for (Page page : pages) {
                     pagesReceived.incrementAndGet();
@@ -515,8 +524,9 @@ public final class HttpPageBufferClient
             boolean complete = getComplete(response);
 
             try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
-                List<Page> pages = ImmutableList.copyOf(readPages(blockEncodingSerde, input));
-                return createPagesResponse(token, nextToken, pages, complete);
+                PagesReader pagesReader = readPages(blockEncodingSerde, input);
+                List<Page> pages = ImmutableList.copyOf(pagesReader);
+                return createPagesResponse(token, nextToken, pages, pagesReader.getCompressedSizeInBytes(), pagesReader.getUncompressedSizeInBytes(), complete);
             }
             catch (IOException e) {
                 throw Throwables.propagate(e);
@@ -563,26 +573,30 @@ public final class HttpPageBufferClient
 
     public static class PagesResponse
     {
-        public static PagesResponse createPagesResponse(long token, long nextToken, Iterable<Page> pages, boolean complete)
+        public static PagesResponse createPagesResponse(long token, long nextToken, Iterable<Page> pages, long compressedSizeInBytes, long uncompressedSizeInBytes, boolean complete)
         {
-            return new PagesResponse(token, nextToken, pages, complete);
+            return new PagesResponse(token, nextToken, pages, compressedSizeInBytes, uncompressedSizeInBytes, complete);
         }
 
         public static PagesResponse createEmptyPagesResponse(long token, long nextToken, boolean complete)
         {
-            return new PagesResponse(token, nextToken, ImmutableList.<Page>of(), complete);
+            return new PagesResponse(token, nextToken, ImmutableList.<Page>of(), 0, 0, complete);
         }
 
         private final long token;
         private final long nextToken;
         private final List<Page> pages;
+        private final long compressedSizeInBytes;
+        private final long uncompressedSizeInBytes;
         private final boolean clientComplete;
 
-        private PagesResponse(long token, long nextToken, Iterable<Page> pages, boolean clientComplete)
+        private PagesResponse(long token, long nextToken, Iterable<Page> pages, long compressedSizeInBytes, long uncompressedSizeInBytes, boolean clientComplete)
         {
             this.token = token;
             this.nextToken = nextToken;
             this.pages = ImmutableList.copyOf(pages);
+            this.compressedSizeInBytes = compressedSizeInBytes;
+            this.uncompressedSizeInBytes = uncompressedSizeInBytes;
             this.clientComplete = clientComplete;
         }
 
@@ -601,6 +615,16 @@ public final class HttpPageBufferClient
             return pages;
         }
 
+        public long getCompressedSizeInBytes()
+        {
+            return compressedSizeInBytes;
+        }
+
+        public long getUncompressedSizeInBytes()
+        {
+            return uncompressedSizeInBytes;
+        }
+
         public boolean isClientComplete()
         {
             return clientComplete;
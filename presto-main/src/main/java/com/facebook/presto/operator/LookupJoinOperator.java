@@ -21,7 +21,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.FULL_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
@@ -40,10 +42,19 @@ public class LookupJoinOperator
     private final List<Type> types;
     private final PageBuilder pageBuilder;
 
+    private final List<Type> probeTypes;
     private final boolean probeOnOuterSide;
 
     private LookupSource lookupSource;
     private JoinProbe probe;
+    private Page probePage;
+
+    // only set when the build side spilled some of its partitions
+    private SpillingLookupSource spillingLookupSource;
+    private Iterator<Integer> remainingSpilledPartitions;
+    private Iterator<Page> spilledProbePages;
+    private int spilledPartition = -1;
+    private ListenableFuture<?> blocked = NOT_BLOCKED;
 
     private boolean closed;
     private boolean finishing;
@@ -61,7 +72,7 @@ public class LookupJoinOperator
         // todo pass in desired projection
         this.lookupSourceSupplier = requireNonNull(lookupSourceSupplier, "lookupSourceSupplier is null");
         lookupSourceSupplier.retain();
-        requireNonNull(probeTypes, "probeTypes is null");
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
 
         this.lookupSourceFuture = lookupSourceSupplier.getLookupSource(operatorContext);
         this.joinProbeFactory = joinProbeFactory;
@@ -97,7 +108,7 @@ public class LookupJoinOperator
     @Override
     public boolean isFinished()
     {
-        boolean finished = finishing && probe == null && pageBuilder.isEmpty();
+        boolean finished = finishing && probe == null && pageBuilder.isEmpty() && spillingLookupSource == null;
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -106,6 +117,7 @@ public class LookupJoinOperator
                 lookupSource = null;
             }
             probe = null;
+            probePage = null;
             pageBuilder.reset();
         }
         return finished;
@@ -114,7 +126,10 @@ public class LookupJoinOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
-        return lookupSourceFuture;
+        if (!lookupSourceFuture.isDone()) {
+            return lookupSourceFuture;
+        }
+        return blocked;
     }
 
     @Override
@@ -126,6 +141,13 @@ public class LookupJoinOperator
 
         if (lookupSource == null) {
             lookupSource = tryGetFutureValue(lookupSourceFuture).orElse(null);
+            if (lookupSource != null) {
+                Optional<SpilledLookupSourcePartitions> spilledPartitions = lookupSourceSupplier.getSpilledPartitions();
+                if (spilledPartitions.isPresent()) {
+                    spillingLookupSource = new SpillingLookupSource(lookupSource, spilledPartitions.get(), operatorContext, probeTypes);
+                    lookupSource = spillingLookupSource;
+                }
+            }
         }
         return lookupSource != null && probe == null;
     }
@@ -140,6 +162,7 @@ public class LookupJoinOperator
 
         // create probe
         probe = joinProbeFactory.createJoinProbe(lookupSource, page);
+        probePage = page;
 
         // initialize to invalid join position to force output code to advance the cursors
         joinPosition = -1;
@@ -152,6 +175,11 @@ public class LookupJoinOperator
             return null;
         }
 
+        // once all input is processed, join the spilled probe rows with their build partitions
+        if (finishing && probe == null && spillingLookupSource != null) {
+            unspillNextProbePage();
+        }
+
         // join probe page with the lookup source
         if (probe != null) {
             while (joinCurrentPosition()) {
@@ -164,8 +192,8 @@ public class LookupJoinOperator
             }
         }
 
-        // only flush full pages unless we are done
-        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null)) {
+        // only flush full pages unless we are done or wait for the other probes
+        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null && (spillingLookupSource == null || !blocked.isDone()))) {
             Page page = pageBuilder.build();
             pageBuilder.reset();
             return page;
@@ -178,9 +206,16 @@ public class LookupJoinOperator
     public void close()
     {
         if (lookupSource != null) {
-            lookupSource.close();
+            // the lookup source of a spilled partition is released by the spilling lookup source
+            if (lookupSource == spillingLookupSource || spillingLookupSource == null) {
+                lookupSource.close();
+            }
             lookupSource = null;
         }
+        if (spillingLookupSource != null) {
+            spillingLookupSource.close();
+            spillingLookupSource = null;
+        }
         // Closing the lookupSource is always safe to do, but we don't want to release the supplier multiple times, since its reference counted
         if (closed) {
             return;
@@ -210,10 +245,53 @@ public class LookupJoinOperator
         return true;
     }
 
+    private void unspillNextProbePage()
+    {
+        if (remainingSpilledPartitions == null) {
+            spillingLookupSource.finishProbe();
+            remainingSpilledPartitions = spillingLookupSource.getSpilledPartitions().iterator();
+        }
+
+        while (true) {
+            if (spilledPartition < 0) {
+                if (!remainingSpilledPartitions.hasNext()) {
+                    spillingLookupSource = null;
+                    return;
+                }
+                spilledPartition = remainingSpilledPartitions.next();
+                spilledProbePages = spillingLookupSource.getSpilledProbePages(spilledPartition);
+            }
+
+            if (spilledProbePages.hasNext()) {
+                if (lookupSource == spillingLookupSource) {
+                    // the partition is shared with the other probes, so wait until they are done with the previous partitions
+                    ListenableFuture<?> partitionBlocked = spillingLookupSource.waitForPartition(spilledPartition);
+                    if (!partitionBlocked.isDone()) {
+                        blocked = partitionBlocked;
+                        return;
+                    }
+                    lookupSource = spillingLookupSource.acquirePartitionLookupSource(spilledPartition);
+                }
+                probe = joinProbeFactory.createJoinProbe(lookupSource, spilledProbePages.next());
+                joinPosition = -1;
+                return;
+            }
+
+            // done with the current partition
+            spillingLookupSource.releasePartitionLookupSource(spilledPartition);
+            lookupSource = spillingLookupSource;
+            spilledPartition = -1;
+        }
+    }
+
     private boolean advanceProbePosition()
     {
         if (!probe.advanceNextPosition()) {
             probe = null;
+            if (lookupSource == spillingLookupSource) {
+                spillingLookupSource.addSpilledPositions(probePage);
+            }
+            probePage = null;
             return false;
         }
 
@@ -224,7 +302,7 @@ public class LookupJoinOperator
 
     private boolean outerJoinCurrentPosition()
     {
-        if (probeOnOuterSide && joinPosition < 0) {
+        if (probeOnOuterSide && joinPosition < 0 && !isLookupSpilled()) {
             // write probe columns
             pageBuilder.declarePosition();
             probe.appendTo(pageBuilder);
@@ -241,4 +319,10 @@ public class LookupJoinOperator
         }
         return true;
     }
+
+    private boolean isLookupSpilled()
+    {
+        // rows of spilled partitions are joined (or outer joined) after the partition is read back from disk
+        return lookupSource == spillingLookupSource && spillingLookupSource.isLastLookupSpilled();
+    }
 }
@@ -17,6 +17,7 @@ import com.facebook.presto.spi.type.Type;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface LookupSourceSupplier
 {
@@ -24,6 +25,15 @@ public interface LookupSourceSupplier
 
     ListenableFuture<LookupSource> getLookupSource(OperatorContext operatorContext);
 
+    /**
+     * Returns the partitions of the build side that were spilled to disk.
+     * Only valid after the lookup source future is done.
+     */
+    default Optional<SpilledLookupSourcePartitions> getSpilledPartitions()
+    {
+        return Optional.empty();
+    }
+
     /**
      * NOTE: LookupSourceSupplier must be reference counted, because some of them own a SharedLookupSource.
      * Ideally, that would be owned by the pipeline instead.
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static java.util.Objects.requireNonNull;
+
+public final class MergeSortedPages
+{
+    private MergeSortedPages() {}
+
+    /**
+     * Merges the sorted page streams into a single sorted page stream. If
+     * {@code keepEqualRowsTogether} is set, rows that compare as equal are
+     * always returned in the same output page.
+     */
+    public static Iterator<Page> mergeSortedPages(
+            List<Iterator<Page>> inputs,
+            PageWithPositionComparator comparator,
+            List<Type> types,
+            boolean keepEqualRowsTogether)
+    {
+        return new MergingPageIterator(inputs, comparator, types, keepEqualRowsTogether);
+    }
+
+    private static class MergingPageIterator
+            extends AbstractIterator<Page>
+    {
+        private final PageWithPositionComparator comparator;
+        private final List<Type> types;
+        private final boolean keepEqualRowsTogether;
+        private final PriorityQueue<PageCursor> queue;
+        private final PageBuilder pageBuilder;
+
+        public MergingPageIterator(List<Iterator<Page>> inputs, PageWithPositionComparator comparator, List<Type> types, boolean keepEqualRowsTogether)
+        {
+            requireNonNull(inputs, "inputs is null");
+            this.comparator = requireNonNull(comparator, "comparator is null");
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+            this.keepEqualRowsTogether = keepEqualRowsTogether;
+            this.pageBuilder = new PageBuilder(types);
+
+            queue = new PriorityQueue<>(Math.max(inputs.size(), 1), (left, right) -> {
+                int result = comparator.compareTo(left.getPage(), left.getPosition(), right.getPage(), right.getPosition());
+                if (result != 0) {
+                    return result;
+                }
+                // keep the merge stable
+                return Integer.compare(left.getIndex(), right.getIndex());
+            });
+            for (int i = 0; i < inputs.size(); i++) {
+                PageCursor cursor = new PageCursor(inputs.get(i), i);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            pageBuilder.reset();
+
+            Page lastPage = null;
+            int lastPosition = -1;
+            while (!queue.isEmpty()) {
+                PageCursor cursor = queue.peek();
+                if (pageBuilder.isFull()) {
+                    if (!keepEqualRowsTogether || comparator.compareTo(lastPage, lastPosition, cursor.getPage(), cursor.getPosition()) != 0) {
+                        break;
+                    }
+                }
+                queue.poll();
+
+                Page page = cursor.getPage();
+                int position = cursor.getPosition();
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    Block block = page.getBlock(channel);
+                    types.get(channel).appendTo(block, position, pageBuilder.getBlockBuilder(channel));
+                }
+                lastPage = page;
+                lastPosition = position;
+
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+
+            if (pageBuilder.isEmpty()) {
+                return endOfData();
+            }
+            return pageBuilder.build();
+        }
+    }
+
+    private static class PageCursor
+    {
+        private final Iterator<Page> pages;
+        private final int index;
+        private Page page;
+        private int position;
+
+        private PageCursor(Iterator<Page> pages, int index)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+            this.index = index;
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+
+        public int getIndex()
+        {
+            return index;
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+    }
+}
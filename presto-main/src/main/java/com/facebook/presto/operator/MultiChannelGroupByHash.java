@@ -17,6 +17,8 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazyBlock;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.util.array.LongBigArray;
@@ -68,6 +70,13 @@ public class MultiChannelGroupByHash
 
     private int nextGroupId;
 
+    // group ids of the entries of the dictionary of the last dictionary encoded page, only valid
+    // where the generation of the entry is the generation of the current dictionary
+    private Block currentDictionary;
+    private int dictionaryGeneration;
+    private int[] dictionaryGroupIds = new int[0];
+    private int[] dictionaryGroupIdGenerations = new int[0];
+
     public MultiChannelGroupByHash(List<? extends Type> hashTypes, int[] hashChannels, Optional<Integer> maskChannel, Optional<Integer> inputHashChannel, int expectedSize)
     {
         requireNonNull(hashTypes, "hashTypes is null");
@@ -124,6 +133,8 @@ public class MultiChannelGroupByHash
                 currentPageBuilder.getRetainedSizeInBytes() +
                 sizeOf(groupAddressByHash) +
                 sizeOf(groupIdsByHash) +
+                sizeOf(dictionaryGroupIds) +
+                sizeOf(dictionaryGroupIdGenerations) +
                 groupAddressByGroupId.sizeOf();
     }
 
@@ -148,6 +159,12 @@ public class MultiChannelGroupByHash
         hashStrategy.appendTo(blockIndex, position, pageBuilder, outputChannelOffset);
     }
 
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return hashPosition(groupAddressByGroupId.get(groupId));
+    }
+
     @Override
     public void addPage(Page page)
     {
@@ -158,6 +175,8 @@ public class MultiChannelGroupByHash
             maskBlock = page.getBlock(maskChannel);
         }
 
+        DictionaryBlock dictionaryBlock = getDictionaryBlock(hashBlocks);
+
         // get the group id for each position
         int positionCount = page.getPositionCount();
         for (int position = 0; position < positionCount; position++) {
@@ -167,7 +186,12 @@ public class MultiChannelGroupByHash
             }
 
             // get the group for the current row
-            putIfAbsent(position, page, hashBlocks);
+            if (dictionaryBlock != null) {
+                putIfAbsent(position, page, hashBlocks, dictionaryBlock);
+            }
+            else {
+                putIfAbsent(position, page, hashBlocks);
+            }
         }
     }
 
@@ -186,6 +210,7 @@ public class MultiChannelGroupByHash
 
         // extract the hash columns
         Block[] hashBlocks = extractHashColumns(page);
+        DictionaryBlock dictionaryBlock = getDictionaryBlock(hashBlocks);
 
         // get the group id for each position
         for (int position = 0; position < positionCount; position++) {
@@ -196,7 +221,13 @@ public class MultiChannelGroupByHash
             }
 
             // get the group for the current row
-            int groupId = putIfAbsent(position, page, hashBlocks);
+            int groupId;
+            if (dictionaryBlock != null) {
+                groupId = putIfAbsent(position, page, hashBlocks, dictionaryBlock);
+            }
+            else {
+                groupId = putIfAbsent(position, page, hashBlocks);
+            }
 
             // output the group id for this row
             BIGINT.writeLong(blockBuilder, groupId);
@@ -230,6 +261,57 @@ public class MultiChannelGroupByHash
         return putIfAbsent(position, page, extractHashColumns(page));
     }
 
+    private int putIfAbsent(int position, Page page, Block[] hashBlocks, DictionaryBlock dictionaryBlock)
+    {
+        // positions with the same dictionary id have the same value, so the group is only looked up once per id
+        int id = dictionaryBlock.getId(position);
+        if (dictionaryGroupIdGenerations[id] == dictionaryGeneration) {
+            return dictionaryGroupIds[id];
+        }
+        int groupId = putIfAbsent(position, page, hashBlocks);
+        dictionaryGroupIds[id] = groupId;
+        dictionaryGroupIdGenerations[id] = dictionaryGeneration;
+        return groupId;
+    }
+
+    /**
+     * Returns the hash block if the page is grouped by a single dictionary
+     * encoded column, otherwise null. The cached group ids are invalidated by
+     * starting a new generation when the dictionary differs from the one of the
+     * previous page, so the id arrays are not cleared for every dictionary.
+     */
+    private DictionaryBlock getDictionaryBlock(Block[] hashBlocks)
+    {
+        if (hashBlocks.length != 1) {
+            return null;
+        }
+        Block block = hashBlocks[0];
+        if (block instanceof LazyBlock) {
+            block = ((LazyBlock) block).getBlock();
+        }
+        if (!(block instanceof DictionaryBlock)) {
+            return null;
+        }
+
+        DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+        Block dictionary = dictionaryBlock.getDictionary();
+        if (dictionary != currentDictionary) {
+            int dictionarySize = dictionary.getPositionCount();
+            if (dictionaryGroupIds.length < dictionarySize) {
+                dictionaryGroupIds = new int[dictionarySize];
+                dictionaryGroupIdGenerations = new int[dictionarySize];
+            }
+            dictionaryGeneration++;
+            if (dictionaryGeneration == Integer.MAX_VALUE) {
+                // generation 0 marks entries that were never set
+                Arrays.fill(dictionaryGroupIdGenerations, 0);
+                dictionaryGeneration = 1;
+            }
+            currentDictionary = dictionary;
+        }
+        return dictionaryBlock;
+    }
+
     private int putIfAbsent(int position, Page page, Block[] hashBlocks)
     {
         int rawHash = hashGenerator.hashPosition(position, page);
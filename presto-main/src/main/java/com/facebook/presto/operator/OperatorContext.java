@@ -85,6 +85,9 @@ public class OperatorContext
     private final OperatorSystemMemoryContext systemMemoryContext;
     private final long maxMemoryReservation;
 
+    private final CounterStat spilledDataSize = new CounterStat();
+    private final AtomicLong spillCount = new AtomicLong();
+
     private final AtomicReference<Supplier<Object>> infoSupplier = new AtomicReference<>();
     private final boolean collectTimings;
 
@@ -345,6 +348,13 @@ public class OperatorContext
         }
     }
 
+    public void recordSpill(long sizeInBytes)
+    {
+        checkArgument(sizeInBytes >= 0, "sizeInBytes is negative");
+        spilledDataSize.update(sizeInBytes);
+        spillCount.incrementAndGet();
+    }
+
     public void setInfoSupplier(Supplier<Object> infoSupplier)
     {
         requireNonNull(infoSupplier, "infoProvider is null");
@@ -407,6 +417,10 @@ public class OperatorContext
                 new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize(),
                 new DataSize(systemMemoryContext.getReservedBytes(), BYTE).convertToMostSuccinctDataSize(),
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
+
+                new DataSize(spilledDataSize.getTotalCount(), BYTE).convertToMostSuccinctDataSize(),
+                spillCount.get(),
+
                 info);
     }
 
@@ -60,6 +60,9 @@ public class OperatorStats
     private final DataSize systemMemoryReservation;
     private final Optional<BlockedReason> blockedReason;
 
+    private final DataSize spilledDataSize;
+    private final long spillCount;
+
     private final Object info;
 
     @JsonCreator
@@ -92,6 +95,9 @@ public class OperatorStats
             @JsonProperty("systemMemoryReservation") DataSize systemMemoryReservation,
             @JsonProperty("blockedReason") Optional<BlockedReason> blockedReason,
 
+            @JsonProperty("spilledDataSize") DataSize spilledDataSize,
+            @JsonProperty("spillCount") long spillCount,
+
             @JsonProperty("info") Object info)
     {
         checkArgument(operatorId >= 0, "operatorId is negative");
@@ -125,6 +131,10 @@ public class OperatorStats
         this.systemMemoryReservation = requireNonNull(systemMemoryReservation, "systemMemoryReservation is null");
         this.blockedReason = blockedReason;
 
+        this.spilledDataSize = requireNonNull(spilledDataSize, "spilledDataSize is null");
+        checkArgument(spillCount >= 0, "spillCount is negative");
+        this.spillCount = spillCount;
+
         this.info = info;
     }
 
@@ -260,6 +270,18 @@ public class OperatorStats
         return blockedReason;
     }
 
+    @JsonProperty
+    public DataSize getSpilledDataSize()
+    {
+        return spilledDataSize;
+    }
+
+    @JsonProperty
+    public long getSpillCount()
+    {
+        return spillCount;
+    }
+
     @Nullable
     @JsonProperty
     public Object getInfo()
@@ -299,6 +321,9 @@ public class OperatorStats
         long systemMemoryReservation = this.systemMemoryReservation.toBytes();
         Optional<BlockedReason> blockedReason = this.blockedReason;
 
+        long spilledDataSize = this.spilledDataSize.toBytes();
+        long spillCount = this.spillCount;
+
         Mergeable<?> base = null;
         if (info instanceof Mergeable) {
             base = (Mergeable<?>) info;
@@ -333,6 +358,9 @@ public class OperatorStats
                 blockedReason = operator.getBlockedReason();
             }
 
+            spilledDataSize += operator.getSpilledDataSize().toBytes();
+            spillCount += operator.getSpillCount();
+
             Object info = operator.getInfo();
             if (base != null && info != null && base.getClass() == info.getClass()) {
                 base = mergeInfo(base, info);
@@ -368,6 +396,9 @@ public class OperatorStats
                 new DataSize(systemMemoryReservation, BYTE).convertToMostSuccinctDataSize(),
                 blockedReason,
 
+                new DataSize(spilledDataSize, BYTE).convertToMostSuccinctDataSize(),
+                spillCount,
+
                 base);
     }
 
@@ -15,13 +15,19 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
@@ -38,6 +44,7 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -47,6 +54,18 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, Optional.empty());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
@@ -55,6 +74,8 @@ public class OrderByOperator
             this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
             this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
 
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
             this.types = toTypes(sourceTypes, outputChannels);
         }
 
@@ -76,7 +97,8 @@ public class OrderByOperator
                     outputChannels,
                     expectedPositions,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillerFactory);
         }
 
         @Override
@@ -88,7 +110,7 @@ public class OrderByOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new OrderByOperatorFactory(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder);
+            return new OrderByOperatorFactory(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, spillerFactory);
         }
     }
 
@@ -100,6 +122,7 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
@@ -110,6 +133,10 @@ public class OrderByOperator
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    private final Optional<SpillerFactory> spillerFactory;
+    private Spiller spiller;
+    private Iterator<Page> sortedPages;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -118,9 +145,11 @@ public class OrderByOperator
             List<Integer> outputChannels,
             int expectedPositions,
             List<Integer> sortChannels,
-            List<SortOrder> sortOrder)
+            List<SortOrder> sortOrder,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(requireNonNull(outputChannels, "outputChannels is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
@@ -129,6 +158,7 @@ public class OrderByOperator
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions);
 
         this.pageBuilder = new PageBuilder(this.types);
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
     }
 
     @Override
@@ -151,6 +181,15 @@ public class OrderByOperator
 
             // sort the index
             pageIndex.sort(sortChannels, sortOrder);
+
+            if (spiller != null) {
+                // merge the spilled runs with the sorted rows still in memory
+                List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                        .addAll(spiller.getSpills())
+                        .add(pageIndex.getPages())
+                        .build();
+                sortedPages = mergeSortedPages(sortedRuns, pageIndex.createPageWithPositionComparator(sortChannels, sortOrder), sourceTypes, false);
+            }
         }
     }
 
@@ -173,9 +212,24 @@ public class OrderByOperator
         requireNonNull(page, "page is null");
 
         pageIndex.addPage(page);
+        if (spillerFactory.isPresent() && !operatorContext.trySetMemoryReservation(pageIndex.getEstimatedSize().toBytes())) {
+            spillToDisk();
+        }
         operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
     }
 
+    private void spillToDisk()
+    {
+        if (spiller == null) {
+            spiller = spillerFactory.get().create(sourceTypes);
+        }
+
+        // write the rows as a sorted run, so the runs can be merged without sorting them again
+        pageIndex.sort(sortChannels, sortOrder);
+        operatorContext.recordSpill(spiller.spill(pageIndex.getPages()));
+        pageIndex.clear();
+    }
+
     @Override
     public Page getOutput()
     {
@@ -183,6 +237,10 @@ public class OrderByOperator
             return null;
         }
 
+        if (sortedPages != null) {
+            return getMergedOutput();
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -202,6 +260,29 @@ public class OrderByOperator
         return page;
     }
 
+    private Page getMergedOutput()
+    {
+        if (!sortedPages.hasNext()) {
+            state = State.FINISHED;
+            return null;
+        }
+
+        Page page = sortedPages.next();
+        Block[] blocks = new Block[outputChannels.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            blocks[i] = page.getBlock(outputChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
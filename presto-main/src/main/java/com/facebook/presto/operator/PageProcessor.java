@@ -20,4 +20,23 @@ import com.facebook.presto.spi.PageBuilder;
 public interface PageProcessor
 {
     int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder);
+
+    /**
+     * Evaluates only the filter on all positions of the page and stores the
+     * matching positions in increasing order in {@code selectedPositions}, which
+     * must be at least as large as the page. Only the blocks the filter reads
+     * are accessed. Returns the number of matching positions.
+     */
+    int filterPositions(ConnectorSession session, Page page, int[] selectedPositions);
+
+    /**
+     * Filters and projects the whole page column by column, keeping dictionary
+     * encoded columns dictionary encoded. Returns null if the page can not be
+     * processed this way, in which case it must be processed with {@link #process}.
+     * Projected dictionaries are kept in the cache of the calling operator.
+     */
+    default Page processColumnarDictionary(ConnectorSession session, Page page, ProjectedDictionaryCache dictionaryCache)
+    {
+        return null;
+    }
 }
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -29,6 +30,7 @@ import it.unimi.dsi.fastutil.Swapper;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -325,6 +327,43 @@ public class PagesIndex
         return pagesHashStrategy.positionEqualsRow(pageIndex, pagePosition, rowPosition, row);
     }
 
+    /**
+     * Returns the positions of this index as pages containing all channels, in index order.
+     * The index must not be modified while the pages are consumed.
+     */
+    public Iterator<Page> getPages()
+    {
+        int[] outputChannels = new int[types.size()];
+        for (int channel = 0; channel < outputChannels.length; channel++) {
+            outputChannels[channel] = channel;
+        }
+        PageBuilder pageBuilder = new PageBuilder(types);
+
+        return new AbstractIterator<Page>()
+        {
+            private int position;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (position >= positionCount) {
+                    return endOfData();
+                }
+                pageBuilder.reset();
+                position = buildPage(position, outputChannels, pageBuilder);
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    public PageWithPositionComparator createPageWithPositionComparator(List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        List<Type> sortTypes = sortChannels.stream()
+                .map(types::get)
+                .collect(toImmutableList());
+        return orderingCompiler.compilePageWithPositionComparator(sortTypes, sortChannels, sortOrders);
+    }
+
     private PagesIndexOrdering createPagesIndexComparator(List<Integer> sortChannels, List<SortOrder> sortOrders)
     {
         List<Type> sortTypes = sortChannels.stream()
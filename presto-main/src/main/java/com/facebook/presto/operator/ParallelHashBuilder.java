@@ -18,6 +18,8 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.Futures;
@@ -26,7 +28,9 @@ import com.google.common.util.concurrent.SettableFuture;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -43,8 +47,9 @@ public class ParallelHashBuilder
     private final int expectedPositions;
     private final List<SettableFuture<PagesIndex>> pagesIndexFutures;
     private final List<SettableFuture<SharedLookupSource>> lookupSourceFutures;
-    private final LookupSourceSupplier lookupSourceSupplier;
+    private final ParallelLookupSourceSupplier lookupSourceSupplier;
     private final List<Type> types;
+    private final Optional<SpillerFactory> spillerFactory;
 
     public ParallelHashBuilder(
             List<Type> types,
@@ -52,6 +57,17 @@ public class ParallelHashBuilder
             Optional<Integer> hashChannel,
             int expectedPositions,
             int partitionCount)
+    {
+        this(types, hashChannels, hashChannel, expectedPositions, partitionCount, Optional.empty());
+    }
+
+    public ParallelHashBuilder(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            int partitionCount,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
@@ -70,6 +86,7 @@ public class ParallelHashBuilder
         this.lookupSourceFutures = lookupSourceFutures.build();
 
         lookupSourceSupplier = new ParallelLookupSourceSupplier(types, hashChannels, this.lookupSourceFutures);
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
     }
 
     public OperatorFactory getCollectOperatorFactory(int operatorId)
@@ -77,10 +94,12 @@ public class ParallelHashBuilder
         return new ParallelHashCollectOperatorFactory(
                 operatorId,
                 pagesIndexFutures,
+                lookupSourceSupplier,
                 types,
                 hashChannels,
                 hashChannel,
-                expectedPositions);
+                expectedPositions,
+                spillerFactory);
     }
 
     public OperatorFactory getBuildOperatorFactory()
@@ -104,27 +123,33 @@ public class ParallelHashBuilder
     {
         private final int operatorId;
         private final List<SettableFuture<PagesIndex>> partitionFutures;
+        private final ParallelLookupSourceSupplier lookupSourceSupplier;
         private final List<Type> types;
         private final List<Integer> hashChannels;
         private final Optional<Integer> hashChannel;
 
         private final int expectedPositions;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public ParallelHashCollectOperatorFactory(
                 int operatorId,
                 List<SettableFuture<PagesIndex>> partitionFutures,
+                ParallelLookupSourceSupplier lookupSourceSupplier,
                 List<Type> types,
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
-                int expectedPositions)
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.partitionFutures = partitionFutures;
+            this.lookupSourceSupplier = lookupSourceSupplier;
             this.types = types;
             this.hashChannels = hashChannels;
             this.hashChannel = hashChannel;
             this.expectedPositions = expectedPositions;
+            this.spillerFactory = spillerFactory;
         }
 
         @Override
@@ -141,10 +166,12 @@ public class ParallelHashBuilder
             return new ParallelHashCollectOperator(
                     operatorContext,
                     partitionFutures,
+                    lookupSourceSupplier,
                     types,
                     hashChannels,
                     hashChannel,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory);
         }
 
         @Override
@@ -165,26 +192,41 @@ public class ParallelHashBuilder
     {
         private final OperatorContext operatorContext;
         private final List<SettableFuture<PagesIndex>> partitionFutures;
+        private final ParallelLookupSourceSupplier lookupSourceSupplier;
 
         private final HashGenerator hashGenerator;
         private final int parallelStreamMask;
         private final PagesIndex[] partitions;
         private final List<Type> types;
+        private final List<Integer> hashChannels;
+        private final Optional<Integer> hashChannel;
+        private final int expectedPositions;
+
+        private final Optional<SpillerFactory> spillerFactory;
+        private final Map<Integer, Spiller> spillers = new HashMap<>();
+        private long pagesSize;
 
         private boolean finished;
 
         public ParallelHashCollectOperator(
                 OperatorContext operatorContext,
                 List<SettableFuture<PagesIndex>> partitionFutures,
+                ParallelLookupSourceSupplier lookupSourceSupplier,
                 List<Type> types,
                 List<Integer> hashChannels,
                 Optional<Integer> hashChannel,
-                int expectedPositions)
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorContext = operatorContext;
             this.partitionFutures = partitionFutures;
+            this.lookupSourceSupplier = lookupSourceSupplier;
 
             this.types = types;
+            this.hashChannels = hashChannels;
+            this.hashChannel = hashChannel;
+            this.expectedPositions = expectedPositions;
+            this.spillerFactory = spillerFactory;
 
             if (hashChannel.isPresent()) {
                 this.hashGenerator = new PrecomputedHashGenerator(hashChannel.get());
@@ -223,6 +265,15 @@ public class ParallelHashBuilder
                 return;
             }
 
+            if (!spillers.isEmpty()) {
+                // Once the build side did not fit in memory, every partition is spilled, so the probe side
+                // can join one partition at a time without competing with the remaining in-memory partitions
+                spillPartitions();
+                lookupSourceSupplier.setSpilledPartitions(new SpilledLookupSourcePartitions(types, hashChannels, hashChannel, partitions.length, spillers, spillerFactory.get()));
+                // the spill files are now owned by the lookup source supplier
+                spillers.clear();
+            }
+
             for (int partition = 0; partition < partitions.length; partition++) {
                 partitionFutures.get(partition).set(partitions[partition]);
             }
@@ -257,17 +308,61 @@ public class ParallelHashBuilder
             }
             Block partitionIds = blockBuilder.build();
 
-            long size = 0;
             for (int partition = 0; partition < partitions.length; partition++) {
-                PagesIndex index = partitions[partition];
-                index.addPage(page, partition, partitionIds);
-                size += index.getEstimatedSize().toBytes();
+                partitions[partition].addPage(page, partition, partitionIds);
+            }
+
+            // The pages are shared by all partitions, so their memory is only freed by spilling every partition.
+            // Until that happens, the build side is not affected by spilling.
+            if (spillerFactory.isPresent()) {
+                pagesSize += page.getRetainedSizeInBytes();
+                if (!operatorContext.trySetMemoryReservation(getPartitionsSize())) {
+                    spillPartitions();
+                }
             }
 
-            operatorContext.setMemoryReservation(size);
+            operatorContext.setMemoryReservation(getPartitionsSize());
             operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
         }
 
+        private void spillPartitions()
+        {
+            for (int partition = 0; partition < partitions.length; partition++) {
+                if (partitions[partition].getPositionCount() == 0) {
+                    continue;
+                }
+                Spiller spiller = spillers.get(partition);
+                if (spiller == null) {
+                    spiller = spillerFactory.get().create(types);
+                    spillers.put(partition, spiller);
+                }
+                operatorContext.recordSpill(spiller.spill(partitions[partition].getPages()));
+
+                // replace the index, since a cleared index still holds on to its arrays
+                partitions[partition] = new PagesIndex(types, expectedPositions);
+            }
+            pagesSize = 0;
+        }
+
+        private long getPartitionsSize()
+        {
+            long size = pagesSize;
+            for (PagesIndex partition : partitions) {
+                size += partition.getEstimatedSize().toBytes();
+            }
+            return size;
+        }
+
+        @Override
+        public void close()
+        {
+            // spill files are only owned by this operator until the partitions are published
+            for (Spiller spiller : spillers.values()) {
+                spiller.close();
+            }
+            spillers.clear();
+        }
+
         @Override
         public Page getOutput()
         {
@@ -20,6 +20,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
@@ -34,6 +35,7 @@ public final class ParallelLookupSourceSupplier
     private final ListenableFuture<LookupSource> lookupSourceFuture;
     private final List<? extends ListenableFuture<SharedLookupSource>> partitions;
     private final AtomicInteger referenceCount = new AtomicInteger(1);
+    private volatile Optional<SpilledLookupSourcePartitions> spilledPartitions = Optional.empty();
 
     public ParallelLookupSourceSupplier(List<Type> types, List<Integer> hashChannels, List<? extends ListenableFuture<SharedLookupSource>> partitions)
     {
@@ -62,6 +64,18 @@ public final class ParallelLookupSourceSupplier
         return lookupSourceFuture;
     }
 
+    @Override
+    public Optional<SpilledLookupSourcePartitions> getSpilledPartitions()
+    {
+        return spilledPartitions;
+    }
+
+    void setSpilledPartitions(SpilledLookupSourcePartitions spilledPartitions)
+    {
+        // must be set before the partitions are built, so it is visible once the lookup source is done
+        this.spilledPartitions = Optional.of(spilledPartitions);
+    }
+
     @Override
     public void retain()
     {
@@ -88,6 +102,19 @@ public final class ParallelLookupSourceSupplier
                     }
                 });
             }
+            Futures.addCallback(lookupSourceFuture, new FutureCallback<LookupSource>() {
+                @Override
+                public void onSuccess(LookupSource result)
+                {
+                    spilledPartitions.ifPresent(SpilledLookupSourcePartitions::close);
+                }
+
+                @Override
+                public void onFailure(Throwable t)
+                {
+                    // ignored
+                }
+            });
         }
     }
 }
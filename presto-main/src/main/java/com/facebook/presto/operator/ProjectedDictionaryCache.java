@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The last dictionary of each projection of an operator, and the result of
+ * projecting it. A failed projection is cached as empty, so the dictionary is
+ * not projected again for every page that uses it.
+ */
+public class ProjectedDictionaryCache
+{
+    private final Map<Integer, Block> dictionaries = new HashMap<>();
+    private final Map<Integer, Optional<Block>> projectedDictionaries = new HashMap<>();
+    private long retainedSizeInBytes;
+
+    public boolean contains(int projection, Block dictionary)
+    {
+        return dictionaries.get(projection) == dictionary;
+    }
+
+    public Optional<Block> getProjectedDictionary(int projection)
+    {
+        Optional<Block> projectedDictionary = projectedDictionaries.get(projection);
+        return projectedDictionary == null ? Optional.empty() : projectedDictionary;
+    }
+
+    public void put(int projection, Block dictionary, Optional<Block> projectedDictionary)
+    {
+        requireNonNull(dictionary, "dictionary is null");
+        requireNonNull(projectedDictionary, "projectedDictionary is null");
+
+        retainedSizeInBytes -= getRetainedSizeInBytes(dictionaries.get(projection), getProjectedDictionary(projection));
+        dictionaries.put(projection, dictionary);
+        projectedDictionaries.put(projection, projectedDictionary);
+        retainedSizeInBytes += getRetainedSizeInBytes(dictionary, projectedDictionary);
+    }
+
+    /**
+     * Returns the size of the cached dictionaries, which the cache keeps alive
+     * after the pages they came from have been released.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+
+    private static long getRetainedSizeInBytes(Block dictionary, Optional<Block> projectedDictionary)
+    {
+        long size = projectedDictionary.map(Block::getRetainedSizeInBytes).orElse(0);
+        if (dictionary != null) {
+            size += dictionary.getRetainedSizeInBytes();
+        }
+        return size;
+    }
+}
@@ -22,11 +22,16 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.UpdatablePageSource;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
@@ -37,12 +42,15 @@ import java.util.Optional;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static java.util.Objects.requireNonNull;
 
 public class ScanFilterAndProjectOperator
         implements SourceOperator, Closeable
 {
     private static final int ROWS_PER_PAGE = 16384;
+    // filter first only while fewer than this fraction of the positions pass the filter
+    private static final double FILTER_FIRST_MAX_SELECTIVITY = 0.5;
 
     private final OperatorContext operatorContext;
     private final PlanNodeId planNodeId;
@@ -52,9 +60,13 @@ public class ScanFilterAndProjectOperator
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
+    private final Optional<PageProcessor> projectionProcessor;
     private final LocalMemoryContext pageSourceMemoryContext;
     private final LocalMemoryContext pageBuilderMemoryContext;
+    private final ProjectedDictionaryCache dictionaryCache = new ProjectedDictionaryCache();
+    private final LocalMemoryContext dictionaryCacheMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
+    private final ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter;
 
     private RecordCursor cursor;
     private ConnectorPageSource pageSource;
@@ -62,6 +74,10 @@ public class ScanFilterAndProjectOperator
     private Split split;
     private Page currentPage;
     private int currentPosition;
+    private boolean currentPageFiltered;
+    private int[] selectedPositions = new int[0];
+    private long inputPositions;
+    private long outputPositions;
 
     private boolean finishing;
 
@@ -74,18 +90,23 @@ public class ScanFilterAndProjectOperator
             PageSourceProvider pageSourceProvider,
             CursorProcessor cursorProcessor,
             PageProcessor pageProcessor,
+            Optional<PageProcessor> projectionProcessor,
             Iterable<ColumnHandle> columns,
-            Iterable<Type> types)
+            Iterable<Type> types,
+            ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
+        this.projectionProcessor = requireNonNull(projectionProcessor, "projectionProcessor is null");
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(sourceId, "sourceId is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.pageSourceMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
         this.pageBuilderMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
+        this.dictionaryCacheMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
 
         this.pageBuilder = new PageBuilder(getTypes());
     }
@@ -184,6 +205,10 @@ public class ScanFilterAndProjectOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        // the split is not read before the dynamic filter is known, so the page source can skip data with it
+        if (!dynamicFilter.isDone()) {
+            return dynamicFilter;
+        }
         return blocked;
     }
 
@@ -234,10 +259,40 @@ public class ScanFilterAndProjectOperator
                     }
 
                     currentPosition = 0;
+                    currentPageFiltered = false;
+
+                    if (currentPage != null && shouldFilterFirst(currentPage)) {
+                        currentPage = filterPage(currentPage);
+                        currentPageFiltered = true;
+                    }
+                }
+
+                if (currentPage != null && currentPosition == 0 && pageBuilder.isEmpty()) {
+                    PageProcessor processor = currentPageFiltered ? projectionProcessor.get() : pageProcessor;
+                    Page page = processor.processColumnarDictionary(operatorContext.getSession().toConnectorSession(), currentPage, dictionaryCache);
+                    dictionaryCacheMemoryContext.setBytes(dictionaryCache.getRetainedSizeInBytes());
+                    if (page != null) {
+                        if (!currentPageFiltered) {
+                            inputPositions += currentPage.getPositionCount();
+                            outputPositions += page.getPositionCount();
+                        }
+                        currentPage = null;
+                        pageSourceMemoryContext.setBytes(pageSource.getSystemMemoryUsage());
+                        return page.getPositionCount() == 0 ? null : page;
+                    }
                 }
 
                 if (currentPage != null) {
-                    currentPosition = pageProcessor.process(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
+                    if (currentPageFiltered) {
+                        currentPosition = projectionProcessor.get().process(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
+                    }
+                    else {
+                        int startPosition = currentPosition;
+                        int startOutputPositions = pageBuilder.getPositionCount();
+                        currentPosition = pageProcessor.process(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
+                        inputPositions += currentPosition - startPosition;
+                        outputPositions += pageBuilder.getPositionCount() - startOutputPositions;
+                    }
                     if (currentPosition == currentPage.getPositionCount()) {
                         currentPage = null;
                         currentPosition = 0;
@@ -261,10 +316,67 @@ public class ScanFilterAndProjectOperator
         return page;
     }
 
+    /**
+     * Filtering before projecting only pays off when the page source loads
+     * columns lazily, so that the columns only read by the projections are
+     * materialized for the selected positions, and when the filter is selective.
+     */
+    private boolean shouldFilterFirst(Page page)
+    {
+        if (!projectionProcessor.isPresent()) {
+            return false;
+        }
+        if (inputPositions > 0 && outputPositions >= inputPositions * FILTER_FIRST_MAX_SELECTIVITY) {
+            return false;
+        }
+        for (Block block : page.getBlocks()) {
+            if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the filter on the page and returns the page with only the
+     * selected positions, or null if no position is selected.
+     */
+    private Page filterPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        if (selectedPositions.length < positionCount) {
+            selectedPositions = new int[positionCount];
+        }
+        int selectedCount = pageProcessor.filterPositions(operatorContext.getSession().toConnectorSession(), page, selectedPositions);
+        inputPositions += positionCount;
+        outputPositions += selectedCount;
+
+        if (selectedCount == 0) {
+            return null;
+        }
+        if (selectedCount == positionCount) {
+            return page;
+        }
+
+        List<Integer> positions = Ints.asList(selectedPositions).subList(0, selectedCount);
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positions);
+        }
+        return new Page(selectedCount, blocks);
+    }
+
     private void createSourceIfNecessary()
     {
-        if ((split != null) && (pageSource == null) && (cursor == null)) {
-            ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
+        if ((split != null) && (pageSource == null) && (cursor == null) && dynamicFilter.isDone()) {
+            TupleDomain<ColumnHandle> filter = tryGetFutureValue(dynamicFilter).get();
+            ConnectorPageSource source;
+            if (filter.isAll()) {
+                source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
+            }
+            else {
+                source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, filter);
+            }
             if (source instanceof RecordPageSource) {
                 cursor = ((RecordPageSource) source).getCursor();
             }
@@ -280,10 +392,12 @@ public class ScanFilterAndProjectOperator
         private final int operatorId;
         private final CursorProcessor cursorProcessor;
         private final PageProcessor pageProcessor;
+        private final Optional<PageProcessor> projectionProcessor;
         private final PlanNodeId sourceId;
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
         private final List<Type> types;
+        private final ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -294,14 +408,30 @@ public class ScanFilterAndProjectOperator
                 PageProcessor pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, Optional.empty(), columns, types, Futures.immediateFuture(TupleDomain.all()));
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                CursorProcessor cursorProcessor,
+                PageProcessor pageProcessor,
+                Optional<PageProcessor> projectionProcessor,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter)
         {
             this.operatorId = operatorId;
             this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
             this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
+            this.projectionProcessor = requireNonNull(projectionProcessor, "projectionProcessor is null");
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
             this.types = requireNonNull(types, "types is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -327,8 +457,10 @@ public class ScanFilterAndProjectOperator
                     pageSourceProvider,
                     cursorProcessor,
                     pageProcessor,
+                    projectionProcessor,
                     columns,
-                    types);
+                    types,
+                    dynamicFilter);
         }
 
         @Override
@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -34,6 +35,7 @@ public final class SettableLookupSourceSupplier
     private final List<Type> types;
     private final SettableFuture<SharedLookupSource> lookupSourceFuture = SettableFuture.create();
     private final AtomicInteger referenceCount = new AtomicInteger(1);
+    private volatile Optional<SpilledLookupSourcePartitions> spilledPartitions = Optional.empty();
 
     public SettableLookupSourceSupplier(List<Type> types)
     {
@@ -52,9 +54,22 @@ public final class SettableLookupSourceSupplier
         return transform(lookupSourceFuture, (AsyncFunction<SharedLookupSource, LookupSource>) Futures::immediateFuture);
     }
 
+    @Override
+    public Optional<SpilledLookupSourcePartitions> getSpilledPartitions()
+    {
+        return spilledPartitions;
+    }
+
     public void setLookupSource(SharedLookupSource lookupSource)
+    {
+        setLookupSource(lookupSource, Optional.empty());
+    }
+
+    public void setLookupSource(SharedLookupSource lookupSource, Optional<SpilledLookupSourcePartitions> spilledPartitions)
     {
         requireNonNull(lookupSource, "lookupSource is null");
+        // must be visible before the lookup source is published
+        this.spilledPartitions = requireNonNull(spilledPartitions, "spilledPartitions is null");
         boolean wasSet = lookupSourceFuture.set(lookupSource);
         checkState(wasSet, "Lookup source already set");
     }
@@ -75,6 +90,7 @@ public final class SettableLookupSourceSupplier
                 public void onSuccess(SharedLookupSource result)
                 {
                     result.freeMemory();
+                    spilledPartitions.ifPresent(SpilledLookupSourcePartitions::close);
                 }
 
                 @Override
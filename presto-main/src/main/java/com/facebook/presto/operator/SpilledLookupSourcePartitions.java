@@ -0,0 +1,321 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Build side partitions of a hash join that did not fit in memory. Rows are assigned
+ * to partitions using the same function as {@link ParallelHashBuilder}, so a probe row
+ * belongs to a spilled partition if and only if its raw hash maps to that partition.
+ * <p>
+ * The probes join the spilled partitions in order, and a partition is read back
+ * from disk only once for all of them: a partition stays in memory until every
+ * registered probe is done with it, and the next partition is only read after that.
+ */
+@ThreadSafe
+public final class SpilledLookupSourcePartitions
+        implements Closeable
+{
+    private final List<Type> types;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> hashChannel;
+    private final List<Type> hashChannelTypes;
+    private final int partitionMask;
+    private final SpillerFactory spillerFactory;
+    private final Map<Integer, Spiller> spillers;
+    private final List<Integer> spilledPartitions;
+    private final boolean[] spilled;
+
+    @GuardedBy("this")
+    private final Set<Probe> probes = new HashSet<>();
+    // index in spilledPartitions of the partition that is currently shared by the probes
+    @GuardedBy("this")
+    private int currentPartitionIndex;
+    @GuardedBy("this")
+    private SharedLookupSource currentLookupSource;
+    @GuardedBy("this")
+    private SettableFuture<?> partitionReleased = SettableFuture.create();
+    @GuardedBy("this")
+    private boolean closed;
+
+    public SpilledLookupSourcePartitions(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> hashChannel,
+            int partitionCount,
+            Map<Integer, Spiller> spillers,
+            SpillerFactory spillerFactory)
+    {
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+
+        ImmutableList.Builder<Type> hashChannelTypes = ImmutableList.builder();
+        for (int channel : hashChannels) {
+            hashChannelTypes.add(types.get(channel));
+        }
+        this.hashChannelTypes = hashChannelTypes.build();
+
+        checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+        this.partitionMask = partitionCount - 1;
+        this.spillers = ImmutableMap.copyOf(requireNonNull(spillers, "spillers is null"));
+        checkArgument(!spillers.isEmpty(), "spillers is empty");
+        this.spilledPartitions = ImmutableList.copyOf(ImmutableSortedSet.copyOf(spillers.keySet()));
+        this.spilled = new boolean[partitionCount];
+        for (int partition : spilledPartitions) {
+            spilled[partition] = true;
+        }
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+    }
+
+    public List<Type> getHashChannelTypes()
+    {
+        return hashChannelTypes;
+    }
+
+    public SpillerFactory getSpillerFactory()
+    {
+        return spillerFactory;
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionMask + 1;
+    }
+
+    public int getPartition(int rawHash)
+    {
+        return murmurHash3(rawHash) & partitionMask;
+    }
+
+    /**
+     * Returns the spilled partitions in the order they are joined.
+     */
+    public List<Integer> getSpilledPartitions()
+    {
+        return spilledPartitions;
+    }
+
+    public boolean isSpilled(int partition)
+    {
+        return spilled[partition];
+    }
+
+    /**
+     * Registers a probe. The spilled partitions are only released once all registered
+     * probes are done with them, so the probe must be closed when it is done.
+     */
+    public synchronized Probe addProbe()
+    {
+        checkState(!closed, "Spilled partitions are already closed");
+        Probe probe = new Probe();
+        probes.add(probe);
+        return probe;
+    }
+
+    /**
+     * Reads the spilled rows of the specified partition back into memory.
+     * The caller is responsible for accounting the memory of the returned lookup source.
+     */
+    public LookupSource readLookupSource(int partition)
+    {
+        List<Iterator<Page>> spills;
+        synchronized (this) {
+            checkState(!closed, "Spilled partitions are already closed");
+            Spiller spiller = spillers.get(partition);
+            checkArgument(spiller != null, "Partition %s is not spilled", partition);
+            spills = spiller.getSpills();
+        }
+
+        PagesIndex pagesIndex = new PagesIndex(types, 10_000);
+        for (Iterator<Page> spill : spills) {
+            while (spill.hasNext()) {
+                pagesIndex.addPage(spill.next());
+            }
+        }
+        return pagesIndex.createLookupSource(hashChannels, hashChannel);
+    }
+
+    private int getPartitionIndex(int partition)
+    {
+        int index = spilledPartitions.indexOf(partition);
+        checkArgument(index >= 0, "Partition %s is not spilled", partition);
+        return index;
+    }
+
+    /**
+     * Moves on to the next partitions that all probes are done with.
+     * Returns the future to complete, outside of the lock, if the partition changed.
+     */
+    @GuardedBy("this")
+    private Optional<SettableFuture<?>> advance()
+    {
+        int index = currentPartitionIndex;
+        while (currentPartitionIndex < spilledPartitions.size() && isReleasedByAllProbes(currentPartitionIndex)) {
+            freeCurrentLookupSource();
+            currentPartitionIndex++;
+        }
+        if (index == currentPartitionIndex) {
+            return Optional.empty();
+        }
+        SettableFuture<?> future = partitionReleased;
+        partitionReleased = SettableFuture.create();
+        return Optional.of(future);
+    }
+
+    @GuardedBy("this")
+    private boolean isReleasedByAllProbes(int partitionIndex)
+    {
+        for (Probe probe : probes) {
+            if (probe.releasedPartitionCount <= partitionIndex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @GuardedBy("this")
+    private void freeCurrentLookupSource()
+    {
+        if (currentLookupSource != null) {
+            currentLookupSource.freeMemory();
+            currentLookupSource.close();
+            currentLookupSource = null;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        SettableFuture<?> future;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            freeCurrentLookupSource();
+            for (Spiller spiller : spillers.values()) {
+                spiller.close();
+            }
+            future = partitionReleased;
+        }
+        future.set(null);
+    }
+
+    /**
+     * The view of a single probe on the spilled partitions.
+     */
+    public final class Probe
+            implements Closeable
+    {
+        // number of partitions, in join order, this probe is done with
+        @GuardedBy("SpilledLookupSourcePartitions.this")
+        private int releasedPartitionCount;
+
+        private Probe() {}
+
+        /**
+         * Returns a future that is done once the specified partition can be acquired.
+         */
+        public ListenableFuture<?> waitForPartition(int partition)
+        {
+            synchronized (SpilledLookupSourcePartitions.this) {
+                if (closed || getPartitionIndex(partition) <= currentPartitionIndex) {
+                    return NOT_BLOCKED;
+                }
+                return partitionReleased;
+            }
+        }
+
+        /**
+         * Returns the build rows of the specified partition, which are shared with the other
+         * probes and must not be closed. The first probe to acquire the partition reads it
+         * back from disk, and the memory is moved to the task of that probe. Returns empty
+         * if the other probes were done with the partition before this probe was registered.
+         */
+        public Optional<LookupSource> acquireLookupSource(int partition, OperatorContext operatorContext)
+        {
+            synchronized (SpilledLookupSourcePartitions.this) {
+                int index = getPartitionIndex(partition);
+                checkState(index >= releasedPartitionCount, "Partition %s is already released", partition);
+                if (index < currentPartitionIndex) {
+                    return Optional.empty();
+                }
+                checkState(index == currentPartitionIndex, "Partition %s is not available yet", partition);
+
+                if (currentLookupSource == null) {
+                    LookupSource lookupSource = readLookupSource(partition);
+                    operatorContext.setMemoryReservation(lookupSource.getInMemorySizeInBytes());
+                    // After this point the SharedLookupSource will take over the memory reservation of the operator
+                    currentLookupSource = new SharedLookupSource(lookupSource, operatorContext);
+                }
+                return Optional.of(currentLookupSource);
+            }
+        }
+
+        /**
+         * Marks this probe as done with the specified partition and all partitions before it.
+         */
+        public void releaseLookupSource(int partition)
+        {
+            Optional<SettableFuture<?>> future;
+            synchronized (SpilledLookupSourcePartitions.this) {
+                int index = getPartitionIndex(partition);
+                checkState(index >= releasedPartitionCount, "Partition %s is already released", partition);
+                releasedPartitionCount = index + 1;
+                future = advance();
+            }
+            future.ifPresent(value -> value.set(null));
+        }
+
+        @Override
+        public void close()
+        {
+            Optional<SettableFuture<?>> future;
+            synchronized (SpilledLookupSourcePartitions.this) {
+                if (!probes.remove(this)) {
+                    return;
+                }
+                future = advance();
+            }
+            future.ifPresent(value -> value.set(null));
+        }
+    }
+}
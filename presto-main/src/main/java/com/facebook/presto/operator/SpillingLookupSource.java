@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.concat;
+import static java.util.Collections.emptyIterator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Probe side view of a lookup source with spilled partitions. Lookups of rows
+ * belonging to a spilled partition never match; instead the position is
+ * remembered, so the row can be spilled and joined once the partition is read
+ * back from disk.
+ */
+@NotThreadSafe
+public class SpillingLookupSource
+        implements LookupSource
+{
+    private final LookupSource lookupSource;
+    private final SpilledLookupSourcePartitions spilledPartitions;
+    private final OperatorContext operatorContext;
+    private final List<Type> probeTypes;
+    private final HashGenerator hashGenerator;
+
+    private final IntArrayList[] spilledPositions;
+    private final PageBuilder[] probePageBuilders;
+    private final List<List<Page>> probePages;
+    private final Map<Integer, Spiller> probeSpillers = new HashMap<>();
+    private final SpilledLookupSourcePartitions.Probe probe;
+    private long probePagesSize;
+
+    // build rows of a spilled partition that this probe had to read on its own
+    private LookupSource privatePartitionLookupSource;
+
+    private boolean lastLookupSpilled;
+    private boolean probeFinished;
+    private boolean closed;
+
+    public SpillingLookupSource(LookupSource lookupSource, SpilledLookupSourcePartitions spilledPartitions, OperatorContext operatorContext, List<Type> probeTypes)
+    {
+        this.lookupSource = requireNonNull(lookupSource, "lookupSource is null");
+        this.spilledPartitions = requireNonNull(spilledPartitions, "spilledPartitions is null");
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+
+        this.probe = spilledPartitions.addProbe();
+
+        // this generator is only used for getJoinPosition without a rawHash and in this case
+        // the hash channels are always packed in a page without extra columns
+        List<Type> hashChannelTypes = spilledPartitions.getHashChannelTypes();
+        int[] hashChannels = new int[hashChannelTypes.size()];
+        for (int i = 0; i < hashChannels.length; i++) {
+            hashChannels[i] = i;
+        }
+        this.hashGenerator = new InterpretedHashGenerator(hashChannelTypes, hashChannels);
+
+        int partitionCount = spilledPartitions.getPartitionCount();
+        this.spilledPositions = new IntArrayList[partitionCount];
+        this.probePageBuilders = new PageBuilder[partitionCount];
+        this.probePages = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            probePages.add(new ArrayList<>());
+            if (spilledPartitions.isSpilled(partition)) {
+                spilledPositions[partition] = new IntArrayList();
+                probePageBuilders[partition] = new PageBuilder(probeTypes);
+            }
+        }
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return lookupSource.getChannelCount();
+    }
+
+    @Override
+    public long getInMemorySizeInBytes()
+    {
+        return lookupSource.getInMemorySizeInBytes();
+    }
+
+    @Override
+    public int getJoinPositionCount()
+    {
+        return lookupSource.getJoinPositionCount();
+    }
+
+    @Override
+    public long getJoinPosition(int position, Page page)
+    {
+        return getJoinPosition(position, page, hashGenerator.hashPosition(position, page));
+    }
+
+    @Override
+    public long getJoinPosition(int position, Page page, int rawHash)
+    {
+        int partition = spilledPartitions.getPartition(rawHash);
+        lastLookupSpilled = spilledPartitions.isSpilled(partition);
+        if (lastLookupSpilled) {
+            spilledPositions[partition].add(position);
+            return -1;
+        }
+        return lookupSource.getJoinPosition(position, page, rawHash);
+    }
+
+    @Override
+    public long getNextJoinPosition(long currentPosition)
+    {
+        return lookupSource.getNextJoinPosition(currentPosition);
+    }
+
+    @Override
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        lookupSource.appendTo(position, pageBuilder, outputChannelOffset);
+    }
+
+    /**
+     * Returns true if the row of the last lookup belongs to a spilled partition.
+     */
+    public boolean isLastLookupSpilled()
+    {
+        return lastLookupSpilled;
+    }
+
+    /**
+     * Moves the rows of the probe page whose lookup was deferred into the
+     * buffers of their partitions, spilling the buffers if they do not fit in memory.
+     */
+    public void addSpilledPositions(Page probePage)
+    {
+        for (int partition = 0; partition < spilledPositions.length; partition++) {
+            IntArrayList positions = spilledPositions[partition];
+            if (positions == null || positions.isEmpty()) {
+                continue;
+            }
+
+            PageBuilder pageBuilder = probePageBuilders[partition];
+            for (int i = 0; i < positions.size(); i++) {
+                int position = positions.getInt(i);
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < probeTypes.size(); channel++) {
+                    Block block = probePage.getBlock(channel);
+                    probeTypes.get(channel).appendTo(block, position, pageBuilder.getBlockBuilder(channel));
+                }
+                if (pageBuilder.isFull()) {
+                    flushPageBuilder(partition);
+                }
+            }
+            positions.clear();
+        }
+
+        if (!operatorContext.trySetMemoryReservation(getBufferedSize())) {
+            spillProbePages();
+        }
+    }
+
+    public List<Integer> getSpilledPartitions()
+    {
+        return spilledPartitions.getSpilledPartitions();
+    }
+
+    /**
+     * Returns a future that is done once the other probes are done with the partitions before the specified one.
+     */
+    public ListenableFuture<?> waitForPartition(int partition)
+    {
+        return probe.waitForPartition(partition);
+    }
+
+    /**
+     * Returns the build rows of the specified spilled partition. The returned lookup source
+     * must not be closed, and is only valid until the partition is released.
+     */
+    public LookupSource acquirePartitionLookupSource(int partition)
+    {
+        checkState(privatePartitionLookupSource == null, "Another partition is not released");
+        Optional<LookupSource> lookupSource = probe.acquireLookupSource(partition, operatorContext);
+        if (lookupSource.isPresent()) {
+            return lookupSource.get();
+        }
+
+        // the other probes were done with the partition before this probe started
+        privatePartitionLookupSource = spilledPartitions.readLookupSource(partition);
+        operatorContext.setMemoryReservation(privatePartitionLookupSource.getInMemorySizeInBytes());
+        return privatePartitionLookupSource;
+    }
+
+    /**
+     * Tells the other probes that this probe is done with the specified partition,
+     * whether or not it acquired the partition.
+     */
+    public void releasePartitionLookupSource(int partition)
+    {
+        closePrivatePartitionLookupSource();
+        probe.releaseLookupSource(partition);
+    }
+
+    private void closePrivatePartitionLookupSource()
+    {
+        if (privatePartitionLookupSource != null) {
+            privatePartitionLookupSource.close();
+            privatePartitionLookupSource = null;
+            operatorContext.setMemoryReservation(0);
+        }
+    }
+
+    /**
+     * Spills all buffered probe rows. After this method is called, lookups must no longer be performed.
+     */
+    public void finishProbe()
+    {
+        checkState(!probeFinished, "Probe is already finished");
+        probeFinished = true;
+        spillProbePages();
+    }
+
+    /**
+     * Returns the spilled probe rows belonging to the specified partition.
+     */
+    public Iterator<Page> getSpilledProbePages(int partition)
+    {
+        checkState(probeFinished, "Probe is not finished");
+        checkState(spilledPartitions.isSpilled(partition), "Partition %s is not spilled", partition);
+
+        Spiller spiller = probeSpillers.get(partition);
+        if (spiller == null) {
+            return emptyIterator();
+        }
+        return concat(spiller.getSpills().iterator());
+    }
+
+    private void flushPageBuilder(int partition)
+    {
+        PageBuilder pageBuilder = probePageBuilders[partition];
+        if (pageBuilder.isEmpty()) {
+            return;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        probePages.get(partition).add(page);
+        probePagesSize += page.getSizeInBytes();
+    }
+
+    private void spillProbePages()
+    {
+        for (int partition = 0; partition < probePageBuilders.length; partition++) {
+            if (probePageBuilders[partition] != null) {
+                flushPageBuilder(partition);
+            }
+        }
+
+        for (int partition = 0; partition < probePages.size(); partition++) {
+            List<Page> pages = probePages.get(partition);
+            if (pages.isEmpty()) {
+                continue;
+            }
+            Spiller spiller = probeSpillers.get(partition);
+            if (spiller == null) {
+                spiller = spilledPartitions.getSpillerFactory().create(probeTypes);
+                probeSpillers.put(partition, spiller);
+            }
+            operatorContext.recordSpill(spiller.spill(pages.iterator()));
+            pages.clear();
+        }
+        probePagesSize = 0;
+        operatorContext.setMemoryReservation(getBufferedSize());
+    }
+
+    private long getBufferedSize()
+    {
+        long size = probePagesSize;
+        for (PageBuilder pageBuilder : probePageBuilders) {
+            if (pageBuilder != null) {
+                size += pageBuilder.getSizeInBytes();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        lookupSource.close();
+        closePrivatePartitionLookupSource();
+        probe.close();
+        for (Spiller spiller : probeSpillers.values()) {
+            spiller.close();
+        }
+        probeSpillers.clear();
+    }
+}
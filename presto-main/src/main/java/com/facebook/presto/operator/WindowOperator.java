@@ -21,15 +21,19 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -57,6 +61,7 @@ public class WindowOperator
         private final FrameInfo frameInfo;
         private final int expectedPositions;
         private final List<Type> types;
+        private final Optional<SpillerFactory> spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -71,6 +76,34 @@ public class WindowOperator
                 int preSortedChannelPrefix,
                 FrameInfo frameInfo,
                 int expectedPositions)
+        {
+            this(operatorId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    frameInfo,
+                    expectedPositions,
+                    Optional.empty());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                FrameInfo frameInfo,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(outputChannels, "outputChannels is null");
@@ -96,6 +129,7 @@ public class WindowOperator
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.frameInfo = frameInfo;
             this.expectedPositions = expectedPositions;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.types = Stream.concat(
                     outputChannels.stream()
                             .map(sourceTypes::get),
@@ -127,7 +161,8 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     frameInfo,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory);
         }
 
         @Override
@@ -150,7 +185,8 @@ public class WindowOperator
                 sortOrder,
                 preSortedChannelPrefix,
                 frameInfo,
-                expectedPositions);
+                expectedPositions,
+                spillerFactory);
         }
     }
 
@@ -169,12 +205,15 @@ public class WindowOperator
     private final List<SortOrder> ordering;
     private final List<Type> types;
 
+    private final List<Type> sourceTypes;
     private final int[] preGroupedChannels;
+    private final int[] partitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
     private final PagesHashStrategy preSortedPartitionHashStrategy;
     private final PagesHashStrategy peerGroupHashStrategy;
+    private final PagesHashStrategy partitionHashStrategy;
 
     private final FrameInfo frameInfo;
 
@@ -188,6 +227,10 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    private final Optional<SpillerFactory> spillerFactory;
+    private Spiller spiller;
+    private Iterator<Page> mergedPages;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -199,7 +242,8 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             FrameInfo frameInfo,
-            int expectedPositions)
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -228,8 +272,11 @@ public class WindowOperator
                         .map(WindowFunctionDefinition::getType))
                 .collect(toImmutableList());
 
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
         this.preGroupedChannels = Ints.toArray(preGroupedChannels);
+        this.partitionChannels = Ints.toArray(partitionChannels);
+        this.partitionHashStrategy = pagesIndex.createPagesHashStrategy(partitionChannels, Optional.empty());
         this.preGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preGroupedChannels, Optional.<Integer>empty());
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
@@ -253,6 +300,15 @@ public class WindowOperator
             this.orderChannels = ImmutableList.copyOf(concat(unGroupedPartitionChannels, sortChannels));
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
+
+        // Spilling only pays off when the input is not grouped: the sorted runs are merged back
+        // on the partition channels, so a single partition is buffered in memory at a time.
+        if (preGroupedChannels.isEmpty() && preSortedChannelPrefix == 0 && !partitionChannels.isEmpty()) {
+            this.spillerFactory = spillerFactory;
+        }
+        else {
+            this.spillerFactory = Optional.empty();
+        }
     }
 
     @Override
@@ -276,10 +332,23 @@ public class WindowOperator
         if (state == State.NEEDS_INPUT) {
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
             sortPagesIndexIfNecessary();
+            if (spiller != null) {
+                mergeSpilledRuns();
+            }
         }
         state = State.FINISHING;
     }
 
+    private void mergeSpilledRuns()
+    {
+        // The remaining rows are already sorted, so spill them as the last run and merge all runs together
+        if (pagesIndex.getPositionCount() > 0) {
+            spillToDisk();
+        }
+        mergedPages = mergeSortedPages(spiller.getSpills(), pagesIndex.createPageWithPositionComparator(orderChannels, ordering), sourceTypes, false);
+        operatorContext.setMemoryReservation(getEstimatedSize());
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -303,11 +372,59 @@ public class WindowOperator
             return;
         }
 
+        if (spillerFactory.isPresent()) {
+            // Input is not grouped, so the whole input is buffered before any output is produced
+            pagesIndex.addPage(page);
+            if (!operatorContext.trySetMemoryReservation(getEstimatedSize())) {
+                sortPagesIndexIfNecessary();
+                spillToDisk();
+            }
+            operatorContext.setMemoryReservation(getEstimatedSize());
+            return;
+        }
+
         pendingInput = page;
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        operatorContext.setMemoryReservation(getEstimatedSize());
+    }
+
+    private void spillToDisk()
+    {
+        if (spiller == null) {
+            spiller = spillerFactory.get().create(sourceTypes);
+        }
+
+        // pagesIndex must be sorted, so the runs can be merged without sorting them again
+        operatorContext.recordSpill(spiller.spill(pagesIndex.getPages()));
+        pagesIndex.clear();
+    }
+
+    /**
+     * @return true if a full partition has been buffered from the merged spilled runs, false if the runs are exhausted
+     */
+    private boolean processMergedInput()
+    {
+        while (true) {
+            if (pendingInput == null) {
+                if (!mergedPages.hasNext()) {
+                    return pagesIndex.getPositionCount() > 0;
+                }
+                pendingInput = mergedPages.next();
+                if (pendingInput.getPositionCount() == 0) {
+                    pendingInput = null;
+                    continue;
+                }
+            }
+
+            // The merged rows are sorted on the partition channels first, so every partition
+            // is contiguous and already in the order required by the window functions
+            pendingInput = updatePagesIndex(pendingInput, partitionChannels, partitionHashStrategy);
+            if (pendingInput != null) {
+                return true;
+            }
+        }
     }
 
     /**
@@ -316,7 +433,7 @@ public class WindowOperator
     private boolean processPendingInput()
     {
         checkState(pendingInput != null);
-        pendingInput = updatePagesIndex(pendingInput);
+        pendingInput = updatePagesIndex(pendingInput, preGroupedChannels, preGroupedPartitionHashStrategy);
 
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
@@ -332,15 +449,15 @@ public class WindowOperator
      * @return the unused section of the page, or null if fully applied.
      * pagesIndex guaranteed to have at least one row after this method returns
      */
-    private Page updatePagesIndex(Page page)
+    private Page updatePagesIndex(Page page, int[] groupChannels, PagesHashStrategy groupHashStrategy)
     {
         checkArgument(page.getPositionCount() > 0);
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
-        Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage.getBlocks())) {
-            // Find the position where the pre-grouped columns change
-            int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
+        Page groupedPage = rearrangePage(page, groupChannels);
+        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(groupHashStrategy, 0, 0, groupedPage.getBlocks())) {
+            // Find the position where the grouped columns change
+            int groupEnd = findGroupEnd(groupedPage, groupHashStrategy, 0);
 
             // Add the section of the page that contains values for the current group
             pagesIndex.addPage(page.getRegion(0, groupEnd));
@@ -377,7 +494,7 @@ public class WindowOperator
         }
 
         Page page = extractOutput();
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        operatorContext.setMemoryReservation(getEstimatedSize());
         return page;
     }
 
@@ -396,7 +513,7 @@ public class WindowOperator
                     pagesIndex.clear();
 
                     // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    if (hasMoreInput()) {
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
@@ -427,6 +544,31 @@ public class WindowOperator
         return page;
     }
 
+    private long getEstimatedSize()
+    {
+        long size = pagesIndex.getEstimatedSize().toBytes();
+        for (WindowFunction windowFunction : windowFunctions) {
+            size += windowFunction.getEstimatedSizeInBytes();
+        }
+        return size;
+    }
+
+    private boolean hasMoreInput()
+    {
+        if (mergedPages != null) {
+            return processMergedInput();
+        }
+        return pendingInput != null && processPendingInput();
+    }
+
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
@@ -28,6 +28,22 @@ public interface Accumulator
 
     void addInput(Page page);
 
+    /**
+     * Returns true if input added with {@link #addInput(Page)} can be removed again.
+     */
+    default boolean hasRemoveInput()
+    {
+        return false;
+    }
+
+    /**
+     * Removes input that was previously added with {@link #addInput(Page)}.
+     */
+    default void removeInput(Page page)
+    {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support removing input");
+    }
+
     void addIntermediate(Block block);
 
     void evaluateIntermediate(BlockBuilder blockBuilder);
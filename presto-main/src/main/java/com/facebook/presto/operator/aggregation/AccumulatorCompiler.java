@@ -132,7 +132,11 @@ public class AccumulatorCompiler
                 grouped);
 
         // Generate methods
-        generateAddInput(definition, stateField, inputChannelsField, maskChannelField, sampleWeightChannelField, metadata.getInputMetadata(), metadata.getInputFunction(), callSiteBinder, grouped);
+        generateAddInput(definition, "addInput", stateField, inputChannelsField, maskChannelField, sampleWeightChannelField, metadata.getInputMetadata(), metadata.getInputFunction(), callSiteBinder, grouped);
+        if (!grouped && metadata.getRemoveInputFunction() != null) {
+            generateAddInput(definition, "removeInput", stateField, inputChannelsField, maskChannelField, sampleWeightChannelField, metadata.getInputMetadata(), metadata.getRemoveInputFunction(), callSiteBinder, false);
+            generateHasRemoveInput(definition);
+        }
         generateGetEstimatedSize(definition, stateField);
         generateGetIntermediateType(definition, callSiteBinder, stateSerializer.getSerializedType());
         generateGetFinalType(definition, callSiteBinder, metadata.getOutputType());
@@ -191,8 +195,17 @@ public class AccumulatorCompiler
                 .append(state.invoke("getEstimatedSize", long.class).ret());
     }
 
+    private static void generateHasRemoveInput(ClassDefinition definition)
+    {
+        MethodDefinition method = definition.declareMethod(a(PUBLIC), "hasRemoveInput", type(boolean.class));
+        method.getBody()
+                .push(true)
+                .retBoolean();
+    }
+
     private static void generateAddInput(
             ClassDefinition definition,
+            String methodName,
             FieldDefinition stateField,
             FieldDefinition inputChannelsField,
             FieldDefinition maskChannelField,
@@ -209,7 +222,7 @@ public class AccumulatorCompiler
         Parameter page = arg("page", Page.class);
         parameters.add(page);
 
-        MethodDefinition method = definition.declareMethod(a(PUBLIC), "addInput", type(void.class), parameters.build());
+        MethodDefinition method = definition.declareMethod(a(PUBLIC), methodName, type(void.class), parameters.build());
         Scope scope = method.getScope();
         ByteCodeBlock body = method.getBody();
         Variable thisVariable = method.getThis();
@@ -51,6 +51,8 @@ public class AggregationMetadata
     private final String name;
     private final List<ParameterMetadata> inputMetadata;
     private final MethodHandle inputFunction;
+    @Nullable
+    private final MethodHandle removeInputFunction;
     private final List<ParameterMetadata> intermediateInputMetadata;
     @Nullable
     private final MethodHandle intermediateInputFunction;
@@ -75,6 +77,36 @@ public class AggregationMetadata
             AccumulatorStateFactory<?> stateFactory,
             Type outputType,
             boolean approximate)
+    {
+        this(name,
+                inputMetadata,
+                inputFunction,
+                null,
+                intermediateInputMetadata,
+                intermediateInputFunction,
+                combineFunction,
+                outputFunction,
+                stateInterface,
+                stateSerializer,
+                stateFactory,
+                outputType,
+                approximate);
+    }
+
+    public AggregationMetadata(
+            String name,
+            List<ParameterMetadata> inputMetadata,
+            MethodHandle inputFunction,
+            @Nullable MethodHandle removeInputFunction,
+            @Nullable List<ParameterMetadata> intermediateInputMetadata,
+            @Nullable MethodHandle intermediateInputFunction,
+            @Nullable MethodHandle combineFunction,
+            MethodHandle outputFunction,
+            Class<?> stateInterface,
+            AccumulatorStateSerializer<?> stateSerializer,
+            AccumulatorStateFactory<?> stateFactory,
+            Type outputType,
+            boolean approximate)
     {
         this.outputType = requireNonNull(outputType);
         this.inputMetadata = ImmutableList.copyOf(requireNonNull(inputMetadata, "inputMetadata is null"));
@@ -87,6 +119,7 @@ public class AggregationMetadata
         }
         this.name = requireNonNull(name, "name is null");
         this.inputFunction = requireNonNull(inputFunction, "inputFunction is null");
+        this.removeInputFunction = removeInputFunction;
         checkArgument(combineFunction == null || intermediateInputFunction == null, "Aggregation cannot have both a combine and a intermediate input method");
         checkArgument(combineFunction != null || intermediateInputFunction != null, "Aggregation must have either a combine or a intermediate input method");
         this.intermediateInputFunction = intermediateInputFunction;
@@ -97,6 +130,11 @@ public class AggregationMetadata
         this.approximate = approximate;
 
         verifyInputFunctionSignature(inputFunction, inputMetadata, stateInterface);
+        if (removeInputFunction != null) {
+            checkArgument(!approximate, "Approximate aggregations cannot have a remove input method");
+            checkArgument(inputMetadata.stream().noneMatch(metadata -> metadata.getParameterType() == NULLABLE_BLOCK_INPUT_CHANNEL), "Aggregations with a remove input method must ignore null input");
+            checkArgument(removeInputFunction.type().equals(inputFunction.type()), "Remove input function must have the same signature as the input function");
+        }
         if (intermediateInputFunction != null) {
             checkArgument(countInputChannels(intermediateInputMetadata) == 1, "Intermediate input function may only have one input channel");
             verifyInputFunctionSignature(intermediateInputFunction, intermediateInputMetadata, stateInterface);
@@ -137,6 +175,12 @@ public class AggregationMetadata
         return inputFunction;
     }
 
+    @Nullable
+    public MethodHandle getRemoveInputFunction()
+    {
+        return removeInputFunction;
+    }
+
     @Nullable
     public MethodHandle getIntermediateInputFunction()
     {
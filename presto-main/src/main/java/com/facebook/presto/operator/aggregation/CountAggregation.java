@@ -34,6 +34,12 @@ public final class CountAggregation
         state.setLong(state.getLong() + 1);
     }
 
+    @RemoveInputFunction
+    public static void removeInput(LongState state)
+    {
+        state.setLong(state.getLong() - 1);
+    }
+
     @CombineFunction
     public static void combine(LongState state, LongState otherState)
     {
@@ -34,6 +34,12 @@ public final class LongSumAggregation
         state.setLong(state.getLong() + value);
     }
 
+    @RemoveInputFunction
+    public static void removeInput(NullableLongState state, @SqlType(StandardTypes.BIGINT) long value)
+    {
+        state.setLong(state.getLong() - value);
+    }
+
     @OutputFunction(StandardTypes.BIGINT)
     public static void output(NullableLongState state, BlockBuilder out)
     {
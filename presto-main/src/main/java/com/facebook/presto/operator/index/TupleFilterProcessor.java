@@ -71,6 +71,19 @@ public class TupleFilterProcessor
         return end;
     }
 
+    @Override
+    public int filterPositions(ConnectorSession session, Page page, int[] selectedPositions)
+    {
+        int selectedCount = 0;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (matches(position, page)) {
+                selectedPositions[selectedCount] = position;
+                selectedCount++;
+            }
+        }
+        return selectedCount;
+    }
+
     private boolean matches(int position, Page page)
     {
         for (int i = 0; i < outputTupleChannels.length; i++) {
@@ -17,6 +17,7 @@ import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.aggregation.Accumulator;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.google.common.collect.ImmutableList;
@@ -30,26 +31,42 @@ import static java.util.Objects.requireNonNull;
 public class AggregateWindowFunction
         implements WindowFunction
 {
+    // below this frame size recomputing the frame is cheaper than querying a segment tree
+    private static final int MIN_SEGMENT_TREE_FRAME_SIZE = 32;
+
     private final InternalAggregationFunction function;
     private final int[] argumentChannels;
     private final AccumulatorFactory accumulatorFactory;
+    private final PageBuilder pageBuilder;
 
     private WindowIndex windowIndex;
     private Accumulator accumulator;
     private int currentStart;
     private int currentEnd;
+    // number of rows in the current frame with no null arguments
+    private int currentNonNullRows;
+
+    private final boolean segmentTreeSupported;
+    // built for the current partition on first use
+    private AggregationSegmentTree segmentTree;
+    // the merged states of the current partition grow, so the tree is not built again for it
+    private boolean segmentTreeRejected;
 
     private AggregateWindowFunction(InternalAggregationFunction function, List<Integer> argumentChannels)
     {
         this.function = requireNonNull(function, "function is null");
         this.argumentChannels = Ints.toArray(argumentChannels);
         this.accumulatorFactory = function.bind(createArgs(function), Optional.empty(), Optional.empty(), 1.0);
+        this.pageBuilder = new PageBuilder(function.getParameterTypes());
+        this.segmentTreeSupported = function.isDecomposable() && !function.isApproximate();
     }
 
     @Override
     public void reset(WindowIndex windowIndex)
     {
         this.windowIndex = windowIndex;
+        this.segmentTree = null;
+        this.segmentTreeRejected = false;
         resetAccumulator();
     }
 
@@ -65,6 +82,14 @@ public class AggregateWindowFunction
             accumulate(currentEnd + 1, frameEnd);
             currentEnd = frameEnd;
         }
+        else if (accumulator.hasRemoveInput() && isSlideCheaper(frameStart, frameEnd)) {
+            // overlapping frame
+            slide(frameStart, frameEnd);
+        }
+        else if (useSegmentTree(frameStart, frameEnd)) {
+            segmentTree.evaluateFinal(frameStart, frameEnd, output);
+            return;
+        }
         else {
             // different frame
             resetAccumulator();
@@ -76,17 +101,105 @@ public class AggregateWindowFunction
         accumulator.evaluateFinal(output);
     }
 
+    private boolean isSlideCheaper(int frameStart, int frameEnd)
+    {
+        if (currentStart < 0 || frameStart > currentEnd || frameEnd < currentStart) {
+            return false;
+        }
+        int removed = Math.abs(frameStart - currentStart);
+        int added = Math.abs(frameEnd - currentEnd);
+        return removed + added < frameEnd - frameStart + 1;
+    }
+
+    private void slide(int frameStart, int frameEnd)
+    {
+        if (currentStart < frameStart) {
+            remove(currentStart, frameStart - 1);
+        }
+        if (frameEnd < currentEnd) {
+            remove(frameEnd + 1, currentEnd);
+        }
+        if (frameStart < currentStart) {
+            accumulate(frameStart, currentStart - 1);
+        }
+        if (currentEnd < frameEnd) {
+            accumulate(currentEnd + 1, frameEnd);
+        }
+        currentStart = frameStart;
+        currentEnd = frameEnd;
+
+        if (currentNonNullRows == 0) {
+            // only the initial state is guaranteed to produce the result for no input
+            accumulator = accumulatorFactory.createAccumulator();
+        }
+    }
+
+    private boolean useSegmentTree(int frameStart, int frameEnd)
+    {
+        if (!segmentTreeSupported || segmentTreeRejected || (frameEnd - frameStart + 1) < MIN_SEGMENT_TREE_FRAME_SIZE) {
+            return false;
+        }
+        if (segmentTree == null) {
+            Optional<AggregationSegmentTree> tree = AggregationSegmentTree.create(accumulatorFactory, function.getParameterTypes(), function.getIntermediateType(), windowIndex, argumentChannels);
+            // the growth of the states depends on the values, so the next partition tries again
+            segmentTreeRejected = !tree.isPresent();
+            segmentTree = tree.orElse(null);
+        }
+        return segmentTree != null;
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes()
+    {
+        return segmentTree == null ? 0 : segmentTree.getRetainedSizeInBytes();
+    }
+
     private void accumulate(int start, int end)
     {
-        // TODO: add Accumulator method that does not require creating pages
-        PageBuilder pageBuilder = new PageBuilder(function.getParameterTypes());
+        accumulator.addInput(buildPage(start, end));
+        currentNonNullRows += countNonNullRows(start, end);
+    }
+
+    private void remove(int start, int end)
+    {
+        accumulator.removeInput(buildPage(start, end));
+        currentNonNullRows -= countNonNullRows(start, end);
+    }
+
+    private Page buildPage(int start, int end)
+    {
+        pageBuilder.reset();
         for (int position = start; position <= end; position++) {
             for (int i = 0; i < function.getParameterTypes().size(); i++) {
                 windowIndex.appendTo(argumentChannels[i], position, pageBuilder.getBlockBuilder(i));
             }
             pageBuilder.declarePosition();
         }
-        accumulator.addInput(pageBuilder.build());
+        return pageBuilder.build();
+    }
+
+    private int countNonNullRows(int start, int end)
+    {
+        if (!accumulator.hasRemoveInput()) {
+            return 0;
+        }
+        int rows = 0;
+        for (int position = start; position <= end; position++) {
+            if (!hasNullArgument(position)) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private boolean hasNullArgument(int position)
+    {
+        for (int channel : argumentChannels) {
+            if (windowIndex.isNull(channel, position)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void resetAccumulator()
@@ -95,6 +208,7 @@ public class AggregateWindowFunction
             accumulator = accumulatorFactory.createAccumulator();
             currentStart = -1;
             currentEnd = -1;
+            currentNonNullRows = 0;
         }
     }
 
@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.GroupByIdBlock;
+import com.facebook.presto.operator.aggregation.Accumulator;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Segment tree of intermediate aggregation states over the rows of a window partition.
+ * An arbitrary frame is evaluated by combining at most two nodes per level of the tree,
+ * so aggregations that can not remove input still evaluate sliding frames in O(log n).
+ */
+final class AggregationSegmentTree
+{
+    // the tree is only useful if merging states keeps them small, which is not the case for aggregations that collect their input
+    private static final double MAX_STATE_GROWTH = 0.5;
+
+    private final AccumulatorFactory accumulatorFactory;
+    private final Type intermediateType;
+    private final int depth;
+    // levels[0] holds the root and levels[depth] the leaves, one per row
+    private final Block[] levels;
+
+    private final long retainedSizeInBytes;
+
+    private final int[] rightLevels;
+    private final int[] rightPositions;
+
+    private AggregationSegmentTree(AccumulatorFactory accumulatorFactory, Type intermediateType, Block[] levels)
+    {
+        this.accumulatorFactory = requireNonNull(accumulatorFactory, "accumulatorFactory is null");
+        this.intermediateType = requireNonNull(intermediateType, "intermediateType is null");
+        this.levels = requireNonNull(levels, "levels is null");
+        this.depth = levels.length - 1;
+        long size = 0;
+        for (Block level : levels) {
+            size += level.getRetainedSizeInBytes();
+        }
+        this.retainedSizeInBytes = size;
+        this.rightLevels = new int[levels.length];
+        this.rightPositions = new int[levels.length];
+    }
+
+    /**
+     * Builds a tree over all rows of the window index. Returns empty if the intermediate
+     * state of the aggregation grows with its input.
+     */
+    public static Optional<AggregationSegmentTree> create(
+            AccumulatorFactory accumulatorFactory,
+            List<Type> argumentTypes,
+            Type intermediateType,
+            WindowIndex windowIndex,
+            int[] argumentChannels)
+    {
+        int leafCount = Integer.highestOneBit(windowIndex.size());
+        if (leafCount < windowIndex.size()) {
+            leafCount <<= 1;
+        }
+        int depth = Integer.numberOfTrailingZeros(leafCount);
+        Block[] levels = new Block[depth + 1];
+
+        // leaves: one group per row
+        GroupedAccumulator leafAccumulator = accumulatorFactory.createGroupedAccumulator();
+        PageBuilder pageBuilder = new PageBuilder(argumentTypes);
+        BlockBuilder groupIds = BIGINT.createBlockBuilder(new BlockBuilderStatus(), windowIndex.size());
+        for (int position = 0; position < windowIndex.size(); position++) {
+            for (int i = 0; i < argumentTypes.size(); i++) {
+                windowIndex.appendTo(argumentChannels[i], position, pageBuilder.getBlockBuilder(i));
+            }
+            pageBuilder.declarePosition();
+            BIGINT.writeLong(groupIds, position);
+            if (pageBuilder.isFull()) {
+                leafAccumulator.addInput(new GroupByIdBlock(leafCount, groupIds.build()), pageBuilder.build());
+                pageBuilder.reset();
+                groupIds = BIGINT.createBlockBuilder(new BlockBuilderStatus(), windowIndex.size() - position);
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            leafAccumulator.addInput(new GroupByIdBlock(leafCount, groupIds.build()), pageBuilder.build());
+        }
+        levels[depth] = evaluateIntermediate(leafAccumulator, intermediateType, leafCount);
+
+        // inner nodes: combine the two children of each node
+        for (int level = depth - 1; level >= 0; level--) {
+            int nodeCount = 1 << level;
+            BlockBuilder parentIds = BIGINT.createBlockBuilder(new BlockBuilderStatus(), nodeCount * 2);
+            for (int child = 0; child < nodeCount * 2; child++) {
+                BIGINT.writeLong(parentIds, child >> 1);
+            }
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addIntermediate(new GroupByIdBlock(nodeCount, parentIds.build()), levels[level + 1]);
+            levels[level] = evaluateIntermediate(accumulator, intermediateType, nodeCount);
+
+            if (estimateStateGrowth(levels[level + 1], levels[level]) > MAX_STATE_GROWTH) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(new AggregationSegmentTree(accumulatorFactory, intermediateType, levels));
+    }
+
+    /**
+     * Returns the size of the intermediate states of all nodes of the tree.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return retainedSizeInBytes;
+    }
+
+    /**
+     * Writes the final value of the aggregation over the rows from start to end (inclusive).
+     */
+    public void evaluateFinal(int start, int end, BlockBuilder output)
+    {
+        BlockBuilder nodes = intermediateType.createBlockBuilder(new BlockBuilderStatus(), 2 * levels.length);
+
+        // walk up from the leaves, keeping the nodes in row order so that order sensitive aggregations see the same input
+        int rightCount = 0;
+        int left = start;
+        int right = end + 1;
+        for (int level = depth; left < right; level--) {
+            if ((left & 1) == 1) {
+                intermediateType.appendTo(levels[level], left, nodes);
+                left++;
+            }
+            if ((right & 1) == 1) {
+                right--;
+                rightLevels[rightCount] = level;
+                rightPositions[rightCount] = right;
+                rightCount++;
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+        for (int i = rightCount - 1; i >= 0; i--) {
+            intermediateType.appendTo(levels[rightLevels[i]], rightPositions[i], nodes);
+        }
+
+        Accumulator accumulator = accumulatorFactory.createAccumulator();
+        accumulator.addIntermediate(nodes.build());
+        accumulator.evaluateFinal(output);
+    }
+
+    /**
+     * Returns how much larger the parents are than the larger of their two children, relative
+     * to the size of the larger children. States of a fixed size and states that keep one of
+     * their inputs, like min and max, do not grow, while states that collect their input grow
+     * by the size of the smaller child.
+     */
+    private static double estimateStateGrowth(Block children, Block parents)
+    {
+        long largerChildrenSize = 0;
+        long parentsSize = 0;
+        for (int parent = 0; parent < parents.getPositionCount(); parent++) {
+            largerChildrenSize += max(getSizeInBytes(children, 2 * parent), getSizeInBytes(children, 2 * parent + 1));
+            parentsSize += getSizeInBytes(parents, parent);
+        }
+        if (largerChildrenSize == 0) {
+            return parentsSize == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (double) (parentsSize - largerChildrenSize) / largerChildrenSize;
+    }
+
+    private static long getSizeInBytes(Block block, int position)
+    {
+        return block.getRegion(position, 1).getSizeInBytes();
+    }
+
+    private static Block evaluateIntermediate(GroupedAccumulator accumulator, Type intermediateType, int groupCount)
+    {
+        BlockBuilder builder = intermediateType.createBlockBuilder(new BlockBuilderStatus(), groupCount);
+        for (int groupId = 0; groupId < groupCount; groupId++) {
+            accumulator.evaluateIntermediate(groupId, builder);
+        }
+        return builder.build();
+    }
+}
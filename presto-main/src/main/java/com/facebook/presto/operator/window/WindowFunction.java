@@ -39,4 +39,13 @@ public interface WindowFunction
      * @param frameEnd the position of the last row in the window frame
      */
     void processRow(BlockBuilder output, int peerGroupStart, int peerGroupEnd, int frameStart, int frameEnd);
+
+    /**
+     * Returns the estimated size of the state kept for the current partition,
+     * in addition to the rows of the window index.
+     */
+    default long getEstimatedSizeInBytes()
+    {
+        return 0;
+    }
 }
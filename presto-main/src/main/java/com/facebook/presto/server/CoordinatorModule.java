@@ -48,7 +48,6 @@ import com.facebook.presto.metadata.TablePropertyManager;
 import com.facebook.presto.metadata.ViewDefinition;
 import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.split.SplitManager;
-import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.analyzer.QueryExplainer;
 import com.facebook.presto.sql.tree.AddColumn;
 import com.facebook.presto.sql.tree.CreateTable;
@@ -119,9 +118,6 @@ public class CoordinatorModule
         newExporter(binder).export(QueryManager.class).withGeneratedName();
         configBinder(binder).bindConfig(QueryManagerConfig.class);
 
-        // analyzer
-        configBinder(binder).bindConfig(FeaturesConfig.class);
-
         // query explainer
         binder.bind(QueryExplainer.class).in(Scopes.SINGLETON);
 
@@ -32,6 +32,8 @@ import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskState;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.server.codec.Codec;
+import com.facebook.presto.server.codec.FullCodecResponseHandler.CodecResponse;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNode;
@@ -43,18 +45,15 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.ObjectArrays;
 import com.google.common.collect.SetMultimap;
 import com.google.common.net.HttpHeaders;
-import com.google.common.net.MediaType;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableFutureTask;
 import io.airlift.concurrent.SetThreadName;
-import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpStatus;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.StatusResponseHandler.StatusResponse;
-import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import org.joda.time.DateTime;
@@ -87,6 +86,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.server.codec.FullCodecResponseHandler.createFullCodecResponseHandler;
 import static com.facebook.presto.spi.StandardErrorCode.REMOTE_TASK_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.TOO_MANY_REQUESTS_FAILED;
 import static com.facebook.presto.spi.StandardErrorCode.WORKER_RESTARTED;
@@ -97,12 +97,11 @@ import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
-import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -147,13 +146,15 @@ public final class HttpRemoteTask
     private final HttpClient httpClient;
     private final Executor executor;
     private final ScheduledExecutorService errorScheduledExecutor;
-    private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final Codec<TaskInfo> taskInfoCodec;
+    private final Codec<TaskUpdateRequest> taskUpdateRequestCodec;
 
     private final RequestErrorTracker updateErrorTracker;
     private final RequestErrorTracker getErrorTracker;
 
     private final AtomicBoolean needsUpdate = new AtomicBoolean(true);
+    // the plan is only resent until the worker acknowledges the task; task info is always received in full
+    private final AtomicBoolean sendPlan = new AtomicBoolean(true);
 
     private final PartitionedSplitCountTracker partitionedSplitCountTracker;
 
@@ -170,8 +171,8 @@ public final class HttpRemoteTask
             ScheduledExecutorService errorScheduledExecutor,
             Duration minErrorDuration,
             Duration refreshMaxWait,
-            JsonCodec<TaskInfo> taskInfoCodec,
-            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            Codec<TaskInfo> taskInfoCodec,
+            Codec<TaskUpdateRequest> taskUpdateRequestCodec,
             PartitionedSplitCountTracker partitionedSplitCountTracker)
     {
         requireNonNull(session, "session is null");
@@ -228,7 +229,8 @@ public final class HttpRemoteTask
                     new SharedBufferInfo(BufferState.OPEN, true, true, 0, 0, 0, 0, bufferStates),
                     ImmutableSet.<PlanNodeId>of(),
                     taskStats,
-                    ImmutableList.<ExecutionFailureInfo>of()));
+                    ImmutableList.<ExecutionFailureInfo>of(),
+                    true));
 
             long timeout = minErrorDuration.toMillis() / 3;
             requestTimeout = new Duration(timeout + refreshMaxWait.toMillis(), MILLISECONDS);
@@ -442,20 +444,23 @@ public final class HttpRemoteTask
         }
 
         List<TaskSource> sources = getSources();
+        // the plan is only needed to create the task, so it is only sent until the worker reports that it has the plan
+        Optional<PlanFragment> fragment = sendPlan.get() ? Optional.of(planFragment) : Optional.empty();
         TaskUpdateRequest updateRequest = new TaskUpdateRequest(session.toSessionRepresentation(),
-                planFragment,
+                fragment,
                 sources,
                 outputBuffers.get());
 
         Request request = preparePost()
                 .setUri(uriBuilderFrom(taskInfo.get().getSelf()).addParameter("summarize").build())
-                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                .setBodyGenerator(jsonBodyGenerator(taskUpdateRequestCodec, updateRequest))
+                .setHeader(HttpHeaders.CONTENT_TYPE, taskUpdateRequestCodec.getMediaType().toString())
+                .setHeader(HttpHeaders.ACCEPT, taskInfoCodec.getMediaType().toString())
+                .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestCodec.toBytes(updateRequest)))
                 .build();
 
         updateErrorTracker.startRequest();
 
-        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        ListenableFuture<CodecResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullCodecResponseHandler(taskInfoCodec));
         currentRequest = future;
         currentRequestStartNanos = System.nanoTime();
 
@@ -538,7 +543,8 @@ public final class HttpRemoteTask
                     taskInfo.getOutputBuffers(),
                     taskInfo.getNoMoreSplits(),
                     taskInfo.getStats(),
-                    ImmutableList.<ExecutionFailureInfo>of()));
+                    ImmutableList.<ExecutionFailureInfo>of(),
+                    taskInfo.isNeedsPlan()));
 
             // send abort to task and ignore response
             Request request = prepareDelete()
@@ -602,7 +608,8 @@ public final class HttpRemoteTask
                 taskInfo.getOutputBuffers(),
                 taskInfo.getNoMoreSplits(),
                 taskInfo.getStats(),
-                ImmutableList.of(toFailure(cause))));
+                ImmutableList.of(toFailure(cause)),
+                taskInfo.isNeedsPlan()));
     }
 
     @Override
@@ -631,7 +638,16 @@ public final class HttpRemoteTask
                     synchronized (HttpRemoteTask.this) {
                         currentRequest = null;
                     }
-                    updateTaskInfo(value, sources);
+                    if (value.isNeedsPlan()) {
+                        // the worker does not know the task and ignored the update, so send the plan and the splits again
+                        sendPlan.set(true);
+                        needsUpdate.set(true);
+                        updateTaskInfo(value);
+                    }
+                    else {
+                        sendPlan.set(false);
+                        updateTaskInfo(value, sources);
+                    }
                     updateErrorTracker.requestSucceeded();
                 }
                 finally {
@@ -696,7 +712,7 @@ public final class HttpRemoteTask
         private boolean running;
 
         @GuardedBy("this")
-        private ListenableFuture<JsonResponse<TaskInfo>> future;
+        private ListenableFuture<CodecResponse<TaskInfo>> future;
 
         public ContinuousTaskInfoFetcher(Duration refreshMaxWait)
         {
@@ -746,14 +762,14 @@ public final class HttpRemoteTask
 
             Request request = prepareGet()
                     .setUri(uriBuilderFrom(taskInfo.getSelf()).addParameter("summarize").build())
-                    .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
+                    .setHeader(HttpHeaders.ACCEPT, taskInfoCodec.getMediaType().toString())
                     .setHeader(PrestoHeaders.PRESTO_CURRENT_STATE, taskInfo.getState().toString())
                     .setHeader(PrestoHeaders.PRESTO_MAX_WAIT, refreshMaxWait.toString())
                     .build();
 
             getErrorTracker.startRequest();
 
-            future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+            future = httpClient.executeAsync(request, createFullCodecResponseHandler(taskInfoCodec));
             Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri()), executor);
         }
 
@@ -826,7 +842,7 @@ public final class HttpRemoteTask
     }
 
     public static class SimpleHttpResponseHandler<T>
-            implements FutureCallback<JsonResponse<T>>
+            implements FutureCallback<CodecResponse<T>>
     {
         private final SimpleHttpResponseCallback<T> callback;
 
@@ -839,7 +855,7 @@ public final class HttpRemoteTask
         }
 
         @Override
-        public void onSuccess(JsonResponse<T> response)
+        public void onSuccess(CodecResponse<T> response)
         {
             try {
                 if (response.getStatusCode() == HttpStatus.OK.code() && response.hasValue()) {
@@ -25,6 +25,8 @@ import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.ForScheduler;
+import com.facebook.presto.server.codec.Codec;
+import com.facebook.presto.server.codec.SmileCodecFactory;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
@@ -44,6 +46,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import static com.facebook.presto.server.codec.JsonCodecWrapper.wrapJsonCodec;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
@@ -53,8 +56,8 @@ public class HttpRemoteTaskFactory
 {
     private final HttpClient httpClient;
     private final LocationFactory locationFactory;
-    private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final Codec<TaskInfo> taskInfoCodec;
+    private final Codec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Duration minErrorDuration;
     private final Duration taskInfoRefreshMaxWait;
     private final Executor executor;
@@ -67,12 +70,19 @@ public class HttpRemoteTaskFactory
             @ForScheduler HttpClient httpClient,
             LocationFactory locationFactory,
             JsonCodec<TaskInfo> taskInfoCodec,
-            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
+            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            SmileCodecFactory smileCodecFactory)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
-        this.taskInfoCodec = taskInfoCodec;
-        this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+        if (taskConfig.isBinaryTransportEnabled()) {
+            this.taskInfoCodec = smileCodecFactory.smileCodec(TaskInfo.class);
+            this.taskUpdateRequestCodec = smileCodecFactory.smileCodec(TaskUpdateRequest.class);
+        }
+        else {
+            this.taskInfoCodec = wrapJsonCodec(taskInfoCodec);
+            this.taskUpdateRequestCodec = wrapJsonCodec(taskUpdateRequestCodec);
+        }
         this.minErrorDuration = config.getRemoteTaskMinErrorDuration();
         this.taskInfoRefreshMaxWait = taskConfig.getInfoRefreshMaxWait();
         ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%s"));
@@ -14,6 +14,7 @@
 package com.facebook.presto.server;
 
 import com.facebook.presto.block.PagesSerde;
+import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.base.Throwables;
@@ -56,11 +57,13 @@ public class PagesResponseWriter
     }
 
     private final BlockEncodingSerde blockEncodingSerde;
+    private final boolean compressionEnabled;
 
     @Inject
-    public PagesResponseWriter(BlockEncodingSerde blockEncodingSerde)
+    public PagesResponseWriter(BlockEncodingSerde blockEncodingSerde, TaskManagerConfig taskManagerConfig)
     {
         this.blockEncodingSerde = blockEncodingSerde;
+        this.compressionEnabled = taskManagerConfig.isSinkCompressionEnabled();
     }
 
     @Override
@@ -88,7 +91,7 @@ public class PagesResponseWriter
             throws IOException, WebApplicationException
     {
         try {
-            PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), pages);
+            PagesSerde.writePages(blockEncodingSerde, new OutputStreamSliceOutput(output), compressionEnabled, pages);
         }
         catch (RuntimeIOException e) {
             // EOF exception occurs when the client disconnects while writing data
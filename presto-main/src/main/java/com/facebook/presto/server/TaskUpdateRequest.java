@@ -22,21 +22,31 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.Optional;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Update sent by the coordinator to create a task or to add splits to it.
+ * <p>
+ * Only the plan fragment is left out of repeated updates. The {@link com.facebook.presto.execution.TaskInfo}
+ * returned for each update and each poll is always complete: the worker does not send
+ * only the statistics that changed since the previous response, as that would need
+ * per-consumer state on the worker. Summarized task info keeps the responses small instead.
+ */
 public class TaskUpdateRequest
 {
     private final SessionRepresentation session;
-    private final PlanFragment fragment;
+    // only sent until the worker has acknowledged the task
+    private final Optional<PlanFragment> fragment;
     private final List<TaskSource> sources;
     private final OutputBuffers outputIds;
 
     @JsonCreator
     public TaskUpdateRequest(
             @JsonProperty("session") SessionRepresentation session,
-            @JsonProperty("fragment") PlanFragment fragment,
+            @JsonProperty("fragment") Optional<PlanFragment> fragment,
             @JsonProperty("sources") List<TaskSource> sources,
             @JsonProperty("outputIds") OutputBuffers outputIds)
     {
@@ -58,7 +68,7 @@ public class TaskUpdateRequest
     }
 
     @JsonProperty
-    public PlanFragment getFragment()
+    public Optional<PlanFragment> getFragment()
     {
         return fragment;
     }
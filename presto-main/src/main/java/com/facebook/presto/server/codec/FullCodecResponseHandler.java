@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.codec;
+
+import com.facebook.presto.server.codec.FullCodecResponseHandler.CodecResponse;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+
+import java.io.IOException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Equivalent of {@link io.airlift.http.client.FullJsonResponseHandler} for any {@link Codec}.
+ * The body is only decoded when the response has the media type of the codec, so error
+ * pages are still available through {@link CodecResponse#getResponseBody()}.
+ */
+public class FullCodecResponseHandler<T>
+        implements ResponseHandler<CodecResponse<T>, RuntimeException>
+{
+    private final Codec<T> codec;
+
+    public static <T> FullCodecResponseHandler<T> createFullCodecResponseHandler(Codec<T> codec)
+    {
+        return new FullCodecResponseHandler<>(codec);
+    }
+
+    private FullCodecResponseHandler(Codec<T> codec)
+    {
+        this.codec = requireNonNull(codec, "codec is null");
+    }
+
+    @Override
+    public CodecResponse<T> handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public CodecResponse<T> handle(Request request, Response response)
+    {
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if ((contentType == null) || !MediaType.parse(contentType).is(codec.getMediaType().withoutParameters())) {
+            return new CodecResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes);
+        }
+        return new CodecResponse<>(response.getStatusCode(), response.getStatusMessage(), codec, bytes);
+    }
+
+    public static class CodecResponse<T>
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final boolean hasValue;
+        private final byte[] responseBytes;
+        private final T value;
+        private final IllegalArgumentException exception;
+
+        public CodecResponse(int statusCode, String statusMessage, byte[] responseBytes)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+
+            this.hasValue = false;
+            this.responseBytes = responseBytes;
+            this.value = null;
+            this.exception = null;
+        }
+
+        public CodecResponse(int statusCode, String statusMessage, Codec<T> codec, byte[] responseBytes)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.responseBytes = responseBytes;
+
+            T value = null;
+            IllegalArgumentException exception = null;
+            try {
+                value = codec.fromBytes(responseBytes);
+            }
+            catch (IllegalArgumentException e) {
+                exception = new IllegalArgumentException("Unable to decode " + codec.getMediaType() + " response", e);
+            }
+            this.hasValue = (exception == null);
+            this.value = value;
+            this.exception = exception;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public boolean hasValue()
+        {
+            return hasValue;
+        }
+
+        public T getValue()
+        {
+            if (!hasValue) {
+                throw new IllegalStateException("Response does not contain a value", exception);
+            }
+            return value;
+        }
+
+        public String getResponseBody()
+        {
+            return new String(responseBytes, UTF_8);
+        }
+
+        public IllegalArgumentException getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("statusCode", statusCode)
+                    .add("statusMessage", statusMessage)
+                    .add("hasValue", hasValue)
+                    .add("value", value)
+                    .toString();
+        }
+    }
+}
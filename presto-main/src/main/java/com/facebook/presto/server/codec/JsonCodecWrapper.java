@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.codec;
+
+import com.google.common.net.MediaType;
+import io.airlift.json.JsonCodec;
+
+import static java.util.Objects.requireNonNull;
+
+public class JsonCodecWrapper<T>
+        implements Codec<T>
+{
+    private final JsonCodec<T> jsonCodec;
+
+    public static <T> JsonCodecWrapper<T> wrapJsonCodec(JsonCodec<T> jsonCodec)
+    {
+        return new JsonCodecWrapper<>(jsonCodec);
+    }
+
+    private JsonCodecWrapper(JsonCodec<T> jsonCodec)
+    {
+        this.jsonCodec = requireNonNull(jsonCodec, "jsonCodec is null");
+    }
+
+    @Override
+    public MediaType getMediaType()
+    {
+        return MediaType.JSON_UTF_8;
+    }
+
+    @Override
+    public byte[] toBytes(T value)
+    {
+        return jsonCodec.toJsonBytes(value);
+    }
+
+    @Override
+    public T fromBytes(byte[] bytes)
+    {
+        return jsonCodec.fromJson(bytes);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.common.net.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE_TYPE;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binary counterpart of {@link io.airlift.json.JsonCodec}. Values are converted with the
+ * same object mapper, so every type with a JSON mapping also has a Smile mapping.
+ */
+public class SmileCodec<T>
+        implements Codec<T>
+{
+    private final ObjectMapper mapper;
+    private final SmileFactory smileFactory;
+    private final JavaType type;
+
+    SmileCodec(ObjectMapper mapper, SmileFactory smileFactory, JavaType type)
+    {
+        this.mapper = requireNonNull(mapper, "mapper is null");
+        this.smileFactory = requireNonNull(smileFactory, "smileFactory is null");
+        this.type = requireNonNull(type, "type is null");
+    }
+
+    @Override
+    public MediaType getMediaType()
+    {
+        return JACKSON_SMILE_TYPE;
+    }
+
+    @Override
+    public byte[] toBytes(T value)
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = smileFactory.createGenerator(output)) {
+            mapper.writeValue(generator, value);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("%s could not be converted to Smile", type), e);
+        }
+        return output.toByteArray();
+    }
+
+    @Override
+    public T fromBytes(byte[] bytes)
+    {
+        try (JsonParser parser = smileFactory.createParser(bytes)) {
+            return mapper.readValue(parser, type);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException(format("Invalid Smile bytes for %s", type), e);
+        }
+    }
+}
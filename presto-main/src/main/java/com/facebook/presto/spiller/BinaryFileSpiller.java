@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.block.PagesSerde;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+@NotThreadSafe
+public class BinaryFileSpiller
+        implements Spiller
+{
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final Path spillPath;
+    private final List<Path> spillFiles = new ArrayList<>();
+    private final Closer closer = Closer.create();
+    private boolean closed;
+
+    public BinaryFileSpiller(BlockEncodingSerde blockEncodingSerde, Path spillPath)
+    {
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.spillPath = requireNonNull(spillPath, "spillPath is null");
+    }
+
+    @Override
+    public long spill(Iterator<Page> pageIterator)
+    {
+        checkState(!closed, "Spiller is already closed");
+        try {
+            Files.createDirectories(spillPath);
+            Path spillFile = Files.createTempFile(spillPath, "spill", ".bin");
+            spillFiles.add(spillFile);
+
+            try (SliceOutput output = new OutputStreamSliceOutput(new BufferedOutputStream(Files.newOutputStream(spillFile), BUFFER_SIZE))) {
+                PagesSerde.writePages(blockEncodingSerde, output, pageIterator);
+            }
+            return Files.size(spillFile);
+        }
+        catch (IOException | UncheckedIOException e) {
+            throw new PrestoException(INTERNAL_ERROR, "Failed to spill pages to " + spillPath, e);
+        }
+    }
+
+    @Override
+    public List<Iterator<Page>> getSpills()
+    {
+        checkState(!closed, "Spiller is already closed");
+        ImmutableList.Builder<Iterator<Page>> spills = ImmutableList.builder();
+        for (Path spillFile : spillFiles) {
+            spills.add(readPages(spillFile));
+        }
+        return spills.build();
+    }
+
+    private Iterator<Page> readPages(Path spillFile)
+    {
+        try {
+            InputStream input = closer.register(new BufferedInputStream(Files.newInputStream(spillFile), BUFFER_SIZE));
+            return PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input));
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR, "Failed to read spilled pages from " + spillFile, e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            closer.close();
+            for (Path spillFile : spillFiles) {
+                Files.deleteIfExists(spillFile);
+            }
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR, "Failed to delete spill files", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.spi.Page;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+public interface Spiller
+        extends Closeable
+{
+    /**
+     * Writes the pages to a new spill run and returns the number of bytes written.
+     */
+    long spill(Iterator<Page> pageIterator);
+
+    /**
+     * Returns an iterator for each spill run, in the order the runs were written.
+     */
+    List<Iterator<Page>> getSpills();
+
+    /**
+     * Releases all resources held by this spiller, including the spill files.
+     */
+    @Override
+    void close();
+}
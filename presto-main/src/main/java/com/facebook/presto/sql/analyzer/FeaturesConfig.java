@@ -15,17 +15,32 @@ package com.facebook.presto.sql.analyzer;
 
 import io.airlift.configuration.Config;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
+
+import javax.validation.constraints.NotNull;
+
+import java.nio.file.Paths;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class FeaturesConfig
 {
     private boolean experimentalSyntaxEnabled;
     private boolean distributedIndexJoinsEnabled;
     private boolean distributedJoinsEnabled = true;
+    private boolean automaticJoinDistribution;
+    private DataSize joinMaxBroadcastTableSize = new DataSize(100, MEGABYTE);
     private boolean redistributeWrites = true;
     private boolean optimizeMetadataQueries;
     private boolean optimizeHashGeneration = true;
     private boolean optimizeSingleDistinct = true;
+    private boolean reorderJoins;
     private boolean intermediateAggregationsEnabled = false;
+    private boolean spillEnabled;
+    private boolean dynamicFilteringEnabled;
+    private boolean filterFirstScanEnabled;
+    private boolean dictionaryProcessingEnabled;
+    private String spillerSpillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString();
 
     @LegacyConfig("analyzer.experimental-syntax-enabled")
     @Config("experimental-syntax-enabled")
@@ -59,6 +74,31 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isAutomaticJoinDistribution()
+    {
+        return automaticJoinDistribution;
+    }
+
+    @Config("optimizer.automatic-join-distribution")
+    public FeaturesConfig setAutomaticJoinDistribution(boolean automaticJoinDistribution)
+    {
+        this.automaticJoinDistribution = automaticJoinDistribution;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getJoinMaxBroadcastTableSize()
+    {
+        return joinMaxBroadcastTableSize;
+    }
+
+    @Config("join-max-broadcast-table-size")
+    public FeaturesConfig setJoinMaxBroadcastTableSize(DataSize joinMaxBroadcastTableSize)
+    {
+        this.joinMaxBroadcastTableSize = joinMaxBroadcastTableSize;
+        return this;
+    }
+
     public boolean isRedistributeWrites()
     {
         return redistributeWrites;
@@ -112,6 +152,18 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isReorderJoins()
+    {
+        return reorderJoins;
+    }
+
+    @Config("optimizer.reorder-joins")
+    public FeaturesConfig setReorderJoins(boolean reorderJoins)
+    {
+        this.reorderJoins = reorderJoins;
+        return this;
+    }
+
     public boolean isIntermediateAggregationsEnabled()
     {
         return intermediateAggregationsEnabled;
@@ -123,4 +175,65 @@ public class FeaturesConfig
         this.intermediateAggregationsEnabled = intermediateAggregationsEnabled;
         return this;
     }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    @Config("experimental.spill-enabled")
+    public FeaturesConfig setSpillEnabled(boolean spillEnabled)
+    {
+        this.spillEnabled = spillEnabled;
+        return this;
+    }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("experimental.dynamic-filtering-enabled")
+    public FeaturesConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    public boolean isFilterFirstScanEnabled()
+    {
+        return filterFirstScanEnabled;
+    }
+
+    @Config("experimental.filter-first-scan-enabled")
+    public FeaturesConfig setFilterFirstScanEnabled(boolean filterFirstScanEnabled)
+    {
+        this.filterFirstScanEnabled = filterFirstScanEnabled;
+        return this;
+    }
+
+    public boolean isDictionaryProcessingEnabled()
+    {
+        return dictionaryProcessingEnabled;
+    }
+
+    @Config("experimental.dictionary-processing-enabled")
+    public FeaturesConfig setDictionaryProcessingEnabled(boolean dictionaryProcessingEnabled)
+    {
+        this.dictionaryProcessingEnabled = dictionaryProcessingEnabled;
+        return this;
+    }
+
+    @NotNull
+    public String getSpillerSpillPath()
+    {
+        return spillerSpillPath;
+    }
+
+    @Config("experimental.spiller-spill-path")
+    public FeaturesConfig setSpillerSpillPath(String spillerSpillPath)
+    {
+        this.spillerSpillPath = spillerSpillPath;
+        return this;
+    }
 }
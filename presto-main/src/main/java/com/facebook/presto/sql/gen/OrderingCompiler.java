@@ -21,11 +21,14 @@ import com.facebook.presto.byteCode.Scope;
 import com.facebook.presto.byteCode.Variable;
 import com.facebook.presto.byteCode.expression.ByteCodeExpression;
 import com.facebook.presto.byteCode.instruction.LabelNode;
+import com.facebook.presto.operator.PageWithPositionComparator;
 import com.facebook.presto.operator.PagesIndex;
 import com.facebook.presto.operator.PagesIndexComparator;
 import com.facebook.presto.operator.PagesIndexOrdering;
+import com.facebook.presto.operator.SimplePageWithPositionComparator;
 import com.facebook.presto.operator.SimplePagesIndexComparator;
 import com.facebook.presto.operator.SyntheticAddress;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
@@ -73,6 +76,17 @@ public class OrderingCompiler
                 }
             });
 
+    private final LoadingCache<PagesIndexComparatorCacheKey, PageWithPositionComparator> pageWithPositionComparators = CacheBuilder.newBuilder().maximumSize(1000).build(
+            new CacheLoader<PagesIndexComparatorCacheKey, PageWithPositionComparator>()
+            {
+                @Override
+                public PageWithPositionComparator load(PagesIndexComparatorCacheKey key)
+                        throws Exception
+                {
+                    return internalCompilePageWithPositionComparator(key.getSortTypes(), key.getSortChannels(), key.getSortOrders());
+                }
+            });
+
     public PagesIndexOrdering compilePagesIndexOrdering(List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
     {
         requireNonNull(sortTypes, "sortTypes is null");
@@ -108,6 +122,96 @@ public class OrderingCompiler
         return new PagesIndexOrdering(comparator);
     }
 
+    public PageWithPositionComparator compilePageWithPositionComparator(List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        requireNonNull(sortTypes, "sortTypes is null");
+        requireNonNull(sortChannels, "sortChannels is null");
+        requireNonNull(sortOrders, "sortOrders is null");
+
+        try {
+            return pageWithPositionComparators.get(new PagesIndexComparatorCacheKey(sortTypes, sortChannels, sortOrders));
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    @VisibleForTesting
+    public PageWithPositionComparator internalCompilePageWithPositionComparator(List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders)
+    {
+        requireNonNull(sortChannels, "sortChannels is null");
+        requireNonNull(sortOrders, "sortOrders is null");
+
+        try {
+            Class<? extends PageWithPositionComparator> comparatorClass = compilePageWithPositionComparatorClass(sortTypes, sortChannels, sortOrders);
+            return comparatorClass.newInstance();
+        }
+        catch (Throwable e) {
+            log.error(e, "Error compiling page comparator for channels %s with order %s", sortChannels, sortOrders);
+            return new SimplePageWithPositionComparator(sortTypes, sortChannels, sortOrders);
+        }
+    }
+
+    private Class<? extends PageWithPositionComparator> compilePageWithPositionComparatorClass(
+            List<Type> sortTypes,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrders)
+    {
+        CallSiteBinder callSiteBinder = new CallSiteBinder();
+
+        ClassDefinition classDefinition = new ClassDefinition(
+                a(PUBLIC, FINAL),
+                makeClassName("PageWithPositionComparator"),
+                type(Object.class),
+                type(PageWithPositionComparator.class));
+
+        classDefinition.declareDefaultConstructor(a(PUBLIC));
+
+        Parameter leftPage = arg("leftPage", Page.class);
+        Parameter leftPosition = arg("leftPosition", int.class);
+        Parameter rightPage = arg("rightPage", Page.class);
+        Parameter rightPosition = arg("rightPosition", int.class);
+        MethodDefinition compareToMethod = classDefinition.declareMethod(a(PUBLIC), "compareTo", type(int.class), leftPage, leftPosition, rightPage, rightPosition);
+
+        for (int i = 0; i < sortChannels.size(); i++) {
+            int sortChannel = sortChannels.get(i);
+            SortOrder sortOrder = sortOrders.get(i);
+
+            ByteCodeBlock block = new ByteCodeBlock()
+                    .setDescription("compare channel " + sortChannel + " " + sortOrder);
+
+            ByteCodeExpression leftBlock = leftPage.invoke("getBlock", Block.class, constantInt(sortChannel));
+            ByteCodeExpression rightBlock = rightPage.invoke("getBlock", Block.class, constantInt(sortChannel));
+
+            block.append(getStatic(SortOrder.class, sortOrder.name())
+                    .invoke("compareBlockValue",
+                            int.class,
+                            ImmutableList.of(Type.class, Block.class, int.class, Block.class, int.class),
+                            constantType(callSiteBinder, sortTypes.get(i)),
+                            leftBlock,
+                            leftPosition,
+                            rightBlock,
+                            rightPosition));
+
+            LabelNode equal = new LabelNode("equal");
+            block.comment("if (compare != 0) return compare")
+                    .dup()
+                    .ifZeroGoto(equal)
+                    .retInt()
+                    .visitLabel(equal)
+                    .pop(int.class);
+
+            compareToMethod.getBody().append(block);
+        }
+
+        // values are equal
+        compareToMethod.getBody()
+                .push(0)
+                .retInt();
+
+        return defineClass(classDefinition, PageWithPositionComparator.class, callSiteBinder.getBindings(), getClass().getClassLoader());
+    }
+
     private Class<? extends PagesIndexComparator> compilePagesIndexComparator(
             List<Type> sortTypes,
             List<Integer> sortChannels,
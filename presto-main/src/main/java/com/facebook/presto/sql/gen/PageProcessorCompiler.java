@@ -82,9 +82,50 @@ public class PageProcessorCompiler
             projectionMethods.add(generateProjectMethod(classDefinition, callSiteBinder, "project_" + i, projections.get(i)));
         }
         generateProcessMethod(classDefinition, filter, projections, projectionMethods.build());
+        generateFilterPositionsMethod(classDefinition, filter);
         generateFilterMethod(classDefinition, callSiteBinder, filter);
     }
 
+    private static void generateFilterPositionsMethod(ClassDefinition classDefinition, RowExpression filter)
+    {
+        Parameter session = arg("session", ConnectorSession.class);
+        Parameter page = arg("page", Page.class);
+        Parameter selectedPositions = arg("selectedPositions", int[].class);
+        MethodDefinition method = classDefinition.declareMethod(a(PUBLIC), "filterPositions", type(int.class), session, page, selectedPositions);
+
+        Scope scope = method.getScope();
+        Variable thisVariable = method.getThis();
+
+        // extract only the blocks of the filter
+        ImmutableList.Builder<Variable> filterBlocks = ImmutableList.builder();
+        for (int channel : getInputChannels(filter)) {
+            Variable blockVariable = scope.declareVariable(Block.class, "block_" + channel);
+            method.getBody().append(blockVariable.set(page.invoke("getBlock", Block.class, constantInt(channel))));
+            filterBlocks.add(blockVariable);
+        }
+
+        Variable positionCount = scope.declareVariable(int.class, "positionCount");
+        method.getBody().append(positionCount.set(page.invoke("getPositionCount", int.class)));
+
+        Variable selectedCount = scope.declareVariable(int.class, "selectedCount");
+        method.getBody().append(selectedCount.set(constantInt(0)));
+
+        Variable position = scope.declareVariable(int.class, "position");
+        ForLoop loop = new ForLoop()
+                .initialize(position.set(constantInt(0)))
+                .condition(lessThan(position, positionCount))
+                .update(position.set(add(position, constantInt(1))))
+                .body(new IfStatement()
+                        .condition(invokeFilter(thisVariable, session, filterBlocks.build(), position))
+                        .ifTrue(new ByteCodeBlock()
+                                .append(selectedPositions.setElement(selectedCount, position))
+                                .append(selectedCount.set(add(selectedCount, constantInt(1))))));
+
+        method.getBody()
+                .append(loop)
+                .append(selectedCount.ret());
+    }
+
     private static void generateProcessMethod(ClassDefinition classDefinition, RowExpression filter, List<RowExpression> projections, List<MethodDefinition> projectionMethods)
     {
         Parameter session = arg("session", ConnectorSession.class);
@@ -23,7 +23,10 @@ import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
+import com.facebook.presto.operator.DictionaryAwarePageProcessor;
+import com.facebook.presto.operator.DictionaryAwarePageProcessor.DictionaryProjection;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
@@ -82,7 +85,9 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.split.MappedRecordSet;
 import com.facebook.presto.split.PageSinkManager;
 import com.facebook.presto.split.PageSourceProvider;
@@ -102,6 +107,7 @@ import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
 import com.facebook.presto.sql.planner.plan.MetadataDeleteNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.PlanVisitor;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RemoteSourceNode;
@@ -120,6 +126,7 @@ import com.facebook.presto.sql.planner.plan.UnnestNode;
 import com.facebook.presto.sql.planner.plan.ValuesNode;
 import com.facebook.presto.sql.planner.plan.WindowNode;
 import com.facebook.presto.sql.planner.plan.WindowNode.Frame;
+import com.facebook.presto.sql.relational.InputReferenceExpression;
 import com.facebook.presto.sql.relational.RowExpression;
 import com.facebook.presto.sql.relational.SqlToRowExpressionTranslator;
 import com.facebook.presto.sql.tree.BooleanLiteral;
@@ -127,6 +134,7 @@ import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.ExpressionTreeRewriter;
 import com.facebook.presto.sql.tree.FunctionCall;
 import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -134,11 +142,14 @@ import com.google.common.collect.ImmutableMap.Builder;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
@@ -162,6 +173,10 @@ import static com.facebook.presto.SystemSessionProperties.getTaskAggregationConc
 import static com.facebook.presto.SystemSessionProperties.getTaskHashBuildConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskJoinConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isDictionaryProcessingEnabled;
+import static com.facebook.presto.SystemSessionProperties.isDynamicFilteringEnabled;
+import static com.facebook.presto.SystemSessionProperties.isFilterFirstScanEnabled;
+import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.metadata.FunctionKind.SCALAR;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.InMemoryExchangeSourceOperator.InMemoryExchangeSourceOperatorFactory.createBroadcastDistribution;
@@ -175,14 +190,18 @@ import static com.facebook.presto.operator.UnnestOperator.UnnestOperatorFactory;
 import static com.facebook.presto.operator.WindowFunctionDefinition.window;
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.TypeUtils.writeNativeValue;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypes;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypesFromInput;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.CreateHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.InsertHandle;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.WriterTarget;
+import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableSet;
 import static com.google.common.base.Functions.forMap;
@@ -197,6 +216,8 @@ public class LocalExecutionPlanner
 {
     private static final Logger log = Logger.get(LocalExecutionPlanner.class);
 
+    private static final int DYNAMIC_FILTER_MAX_DISTINCT_VALUES = 1_000;
+
     private final Metadata metadata;
     private final SqlParser sqlParser;
 
@@ -209,6 +230,7 @@ public class LocalExecutionPlanner
     private final DataSize maxIndexMemorySize;
     private final IndexJoinLookupStats indexJoinLookupStats;
     private final DataSize maxPartialAggregationMemorySize;
+    private final SpillerFactory spillerFactory;
 
     @Inject
     public LocalExecutionPlanner(
@@ -221,7 +243,8 @@ public class LocalExecutionPlanner
             ExpressionCompiler compiler,
             IndexJoinLookupStats indexJoinLookupStats,
             CompilerConfig compilerConfig,
-            TaskManagerConfig taskManagerConfig)
+            TaskManagerConfig taskManagerConfig,
+            SpillerFactory spillerFactory)
     {
         requireNonNull(compilerConfig, "compilerConfig is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -234,6 +257,7 @@ public class LocalExecutionPlanner
         this.indexJoinLookupStats = requireNonNull(indexJoinLookupStats, "indexJoinLookupStats is null");
         this.maxIndexMemorySize = requireNonNull(taskManagerConfig, "taskManagerConfig is null").getMaxIndexMemoryUsage();
         this.maxPartialAggregationMemorySize = taskManagerConfig.getMaxPartialAggregationMemoryUsage();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
 
         interpreterEnabled = compilerConfig.isInterpreterEnabled();
     }
@@ -385,6 +409,7 @@ public class LocalExecutionPlanner
         private final boolean allowLocalParallel;
         private final List<DriverFactory> driverFactories;
         private final Optional<IndexSourceContext> indexSourceContext;
+        private final ListMultimap<PlanNodeId, ListenableFuture<TupleDomain<ColumnHandle>>> dynamicFilters;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -392,7 +417,7 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(Session session, Map<Symbol, Type> types, boolean singleNode, boolean allowLocalParallel)
         {
-            this(session, types, singleNode, allowLocalParallel, new ArrayList<>(), Optional.empty());
+            this(session, types, singleNode, allowLocalParallel, new ArrayList<>(), Optional.empty(), ArrayListMultimap.create());
         }
 
         private LocalExecutionPlanContext(
@@ -401,7 +426,8 @@ public class LocalExecutionPlanner
                 boolean singleNode,
                 boolean allowLocalParallel,
                 List<DriverFactory> driverFactories,
-                Optional<IndexSourceContext> indexSourceContext)
+                Optional<IndexSourceContext> indexSourceContext,
+                ListMultimap<PlanNodeId, ListenableFuture<TupleDomain<ColumnHandle>>> dynamicFilters)
         {
             this.session = session;
             this.types = types;
@@ -409,6 +435,7 @@ public class LocalExecutionPlanner
             this.allowLocalParallel = allowLocalParallel;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
+            this.dynamicFilters = dynamicFilters;
         }
 
         public void addDriverFactory(DriverFactory driverFactory)
@@ -436,6 +463,35 @@ public class LocalExecutionPlanner
             return indexSourceContext;
         }
 
+        public void addDynamicFilter(PlanNodeId tableScanId, ListenableFuture<TupleDomain<ColumnHandle>> dynamicFilter)
+        {
+            dynamicFilters.put(tableScanId, dynamicFilter);
+        }
+
+        public boolean hasDynamicFilters(PlanNodeId tableScanId)
+        {
+            return dynamicFilters.containsKey(tableScanId);
+        }
+
+        /**
+         * Returns the intersection of all dynamic filters for the table scan, which
+         * completes when all of them are known.
+         */
+        public ListenableFuture<TupleDomain<ColumnHandle>> getDynamicFilter(PlanNodeId tableScanId)
+        {
+            List<ListenableFuture<TupleDomain<ColumnHandle>>> filters = dynamicFilters.get(tableScanId);
+            if (filters.isEmpty()) {
+                return Futures.immediateFuture(TupleDomain.all());
+            }
+            return Futures.transform(Futures.allAsList(filters), (List<TupleDomain<ColumnHandle>> domains) -> {
+                TupleDomain<ColumnHandle> result = TupleDomain.all();
+                for (TupleDomain<ColumnHandle> domain : domains) {
+                    result = result.intersect(domain);
+                }
+                return result;
+            });
+        }
+
         private int getNextOperatorId()
         {
             return nextOperatorId++;
@@ -454,12 +510,12 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(session, types, singleNode, allowLocalParallel, driverFactories, indexSourceContext);
+            return new LocalExecutionPlanContext(session, types, singleNode, allowLocalParallel, driverFactories, indexSourceContext, dynamicFilters);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(session, types, true, false, driverFactories, Optional.of(indexSourceContext));
+            return new LocalExecutionPlanContext(session, types, true, false, driverFactories, Optional.of(indexSourceContext), dynamicFilters);
         }
 
         public boolean isSingleNode()
@@ -700,7 +756,8 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     new FrameInfo(frame.getType(), frame.getStartType(), frameStartChannel, frame.getEndType(), frameEndChannel),
-                    10_000);
+                    10_000,
+                    isSpillEnabled(session) ? Optional.of(spillerFactory) : Optional.empty());
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -755,7 +812,8 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    isSpillEnabled(session) ? Optional.of(spillerFactory) : Optional.empty());
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -976,6 +1034,9 @@ public class LocalExecutionPlanner
             }
             Map<Symbol, Integer> outputMappings = outputMappingsBuilder.build();
 
+            // table scans with a filter can evaluate the filter before loading the other columns
+            boolean filterFirst = columns != null && filterExpression != BooleanLiteral.TRUE_LITERAL && isFilterFirstScanEnabled(context.getSession());
+
             // compiler uses inputs instead of symbols, so rewrite the expressions first
             SymbolToInputRewriter symbolToInputRewriter = new SymbolToInputRewriter(sourceLayout);
             Expression rewrittenFilter = ExpressionTreeRewriter.rewriteWith(symbolToInputRewriter, filterExpression);
@@ -1001,6 +1062,15 @@ public class LocalExecutionPlanner
                 if (columns != null) {
                     CursorProcessor cursorProcessor = compiler.compileCursorProcessor(translatedFilter, translatedProjections, sourceNode.getId());
                     PageProcessor pageProcessor = compiler.compilePageProcessor(translatedFilter, translatedProjections);
+                    Optional<PageProcessor> projectionProcessor = Optional.empty();
+                    if (filterFirst) {
+                        projectionProcessor = Optional.of(compiler.compilePageProcessor(constant(true, BOOLEAN), translatedProjections));
+                    }
+                    if (isDictionaryProcessingEnabled(context.getSession())) {
+                        List<Optional<DictionaryProjection>> dictionaryProjections = compileDictionaryProjections(projectionExpressions, translatedProjections, sourceLayout);
+                        pageProcessor = new DictionaryAwarePageProcessor(pageProcessor, dictionaryProjections);
+                        projectionProcessor = projectionProcessor.map(processor -> new DictionaryAwarePageProcessor(processor, dictionaryProjections));
+                    }
 
                     SourceOperatorFactory operatorFactory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -1008,13 +1078,18 @@ public class LocalExecutionPlanner
                             pageSourceProvider,
                             cursorProcessor,
                             pageProcessor,
+                            projectionProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            context.getDynamicFilter(sourceNode.getId()));
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
                 else {
                     PageProcessor processor = compiler.compilePageProcessor(translatedFilter, translatedProjections);
+                    if (isDictionaryProcessingEnabled(context.getSession())) {
+                        processor = new DictionaryAwarePageProcessor(processor, compileDictionaryProjections(projectionExpressions, translatedProjections, sourceLayout));
+                    }
 
                     OperatorFactory operatorFactory = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
                             context.getNextOperatorId(),
@@ -1069,8 +1144,10 @@ public class LocalExecutionPlanner
                         pageSourceProvider,
                         new GenericCursorProcessor(filterFunction, projectionFunctions),
                         new GenericPageProcessor(filterFunction, projectionFunctions),
+                        filterFirst ? Optional.of(new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, projectionFunctions)) : Optional.empty(),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        context.getDynamicFilter(sourceNode.getId()));
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -1083,6 +1160,32 @@ public class LocalExecutionPlanner
             }
         }
 
+        /**
+         * Returns for every projection how to evaluate it on a single dictionary
+         * encoded column, or empty if it reads more than one column or is not deterministic.
+         */
+        private List<Optional<DictionaryProjection>> compileDictionaryProjections(List<Expression> projectionExpressions, List<RowExpression> translatedProjections, Map<Symbol, Integer> sourceLayout)
+        {
+            ImmutableList.Builder<Optional<DictionaryProjection>> dictionaryProjections = ImmutableList.builder();
+            for (int i = 0; i < projectionExpressions.size(); i++) {
+                Expression projection = projectionExpressions.get(i);
+                RowExpression translatedProjection = translatedProjections.get(i);
+                Set<Symbol> symbols = DependencyExtractor.extractUnique(projection);
+                if (symbols.size() != 1 || !DeterminismEvaluator.isDeterministic(projection)) {
+                    dictionaryProjections.add(Optional.empty());
+                    continue;
+                }
+
+                int inputChannel = sourceLayout.get(Iterables.getOnlyElement(symbols));
+                Optional<PageProcessor> processor = Optional.empty();
+                if (!(translatedProjection instanceof InputReferenceExpression)) {
+                    processor = Optional.of(compiler.compilePageProcessor(constant(true, BOOLEAN), ImmutableList.of(translatedProjection)));
+                }
+                dictionaryProjections.add(Optional.of(new DictionaryProjection(inputChannel, processor, translatedProjection.getType())));
+            }
+            return dictionaryProjections.build();
+        }
+
         private RowExpression toRowExpression(Expression expression, IdentityHashMap<Expression, Type> types)
         {
             return SqlToRowExpressionTranslator.translate(expression, SCALAR, types, metadata.getFunctionRegistry(), metadata.getTypeManager(), session, true);
@@ -1101,6 +1204,14 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitTableScan(TableScanNode node, LocalExecutionPlanContext context)
         {
+            if (context.hasDynamicFilters(node.getId())) {
+                // only the scan with filter and projection supports dynamic filters
+                List<Expression> projections = node.getOutputSymbols().stream()
+                        .map(Symbol::toQualifiedNameReference)
+                        .collect(toImmutableList());
+                return visitScanFilterAndProject(context, node, BooleanLiteral.TRUE_LITERAL, projections, node.getOutputSymbols());
+            }
+
             List<ColumnHandle> columns = new ArrayList<>();
             for (Symbol symbol : node.getOutputSymbols()) {
                 columns.add(node.getAssignments().get(symbol));
@@ -1500,21 +1611,33 @@ public class LocalExecutionPlanner
             List<Integer> buildChannels = ImmutableList.copyOf(getChannelsForSymbols(buildSymbols, buildSource.getLayout()));
             Optional<Integer> buildHashChannel = buildHashSymbol.map(channelGetter(buildSource));
 
+            List<OperatorFactory> dynamicFilterSources = ImmutableList.of();
+            if (node.getType() == INNER && isDynamicFilteringEnabled(session)) {
+                dynamicFilterSources = createDynamicFilterSources(node, buildSource, buildContext, context);
+            }
+
             LookupSourceSupplier lookupSourceSupplier;
             int hashBuildConcurrency = getTaskHashBuildConcurrency(session);
+            // spilled build partitions are joined after the probe finishes, which does not work with build side outer joins
+            Optional<SpillerFactory> buildSpillerFactory = Optional.empty();
+            if (isSpillEnabled(session) && !isBuildOuter(node)) {
+                buildSpillerFactory = Optional.of(spillerFactory);
+            }
             if (isBuildOuter(node) || hashBuildConcurrency <= 1) {
                 HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
                         buildContext.getNextOperatorId(),
                         buildSource.getTypes(),
                         buildChannels,
                         buildHashChannel,
-                        10_000);
+                        10_000,
+                        buildSpillerFactory);
 
                 context.addDriverFactory(new DriverFactory(
                         buildContext.isInputDriver(),
                         false,
                         ImmutableList.<OperatorFactory>builder()
                                 .addAll(buildSource.getOperatorFactories())
+                                .addAll(dynamicFilterSources)
                                 .add(hashBuilderOperatorFactory)
                                 .build()));
 
@@ -1529,13 +1652,15 @@ public class LocalExecutionPlanner
                         buildChannels,
                         buildHashChannel,
                         10_000,
-                        parallelBuildCount);
+                        parallelBuildCount,
+                        buildSpillerFactory);
 
                 context.addDriverFactory(new DriverFactory(
                         buildContext.isInputDriver(),
                         false,
                         ImmutableList.<OperatorFactory>builder()
                                 .addAll(buildSource.getOperatorFactories())
+                                .addAll(dynamicFilterSources)
                                 .add(parallelHashBuilder.getCollectOperatorFactory(buildContext.getNextOperatorId()))
                                 .build()));
 
@@ -1555,6 +1680,36 @@ public class LocalExecutionPlanner
             return lookupSourceSupplier;
         }
 
+        /**
+         * Creates the operators summarizing the build side keys of an inner join for the probe
+         * side table scans in the same task. Rows of the scans without a matching key can be
+         * skipped, because the probe side of the join only sees the build rows of its own task.
+         */
+        private List<OperatorFactory> createDynamicFilterSources(JoinNode node, PhysicalOperation buildSource, LocalExecutionPlanContext buildContext, LocalExecutionPlanContext context)
+        {
+            Map<PlanNodeId, Map<Integer, ColumnHandle>> targets = new HashMap<>();
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                Optional<TableScanColumn> scanColumn = findTableScanColumn(node.getLeft(), clause.getLeft());
+                if (scanColumn.isPresent()) {
+                    int buildChannel = buildSource.getLayout().get(clause.getRight());
+                    targets.computeIfAbsent(scanColumn.get().getTableScanId(), id -> new HashMap<>())
+                            .put(buildChannel, scanColumn.get().getColumn());
+                }
+            }
+
+            ImmutableList.Builder<OperatorFactory> operatorFactories = ImmutableList.builder();
+            for (Map.Entry<PlanNodeId, Map<Integer, ColumnHandle>> entry : targets.entrySet()) {
+                DynamicFilterSourceOperatorFactory operatorFactory = new DynamicFilterSourceOperatorFactory(
+                        buildContext.getNextOperatorId(),
+                        buildSource.getTypes(),
+                        entry.getValue(),
+                        DYNAMIC_FILTER_MAX_DISTINCT_VALUES);
+                context.addDynamicFilter(entry.getKey(), operatorFactory.getDynamicFilter());
+                operatorFactories.add(operatorFactory);
+            }
+            return operatorFactories.build();
+        }
+
         private OperatorFactory createLookupJoin(
                 JoinNode node,
                 PhysicalOperation probeSource,
@@ -1888,7 +2043,8 @@ public class LocalExecutionPlanner
                     defaultMaskChannel,
                     hashChannel,
                     10_000,
-                    maxPartialAggregationMemorySize);
+                    maxPartialAggregationMemorySize,
+                    isSpillEnabled(session) ? Optional.of(spillerFactory) : Optional.empty());
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -1971,6 +2127,60 @@ public class LocalExecutionPlanner
         return builder.build();
     }
 
+    /**
+     * Finds the table scan column a symbol is read from, if the symbol is passed unchanged
+     * through filters, projections and the probe side of joins in the same pipeline.
+     */
+    private static Optional<TableScanColumn> findTableScanColumn(PlanNode node, Symbol symbol)
+    {
+        if (node instanceof TableScanNode) {
+            ColumnHandle column = ((TableScanNode) node).getAssignments().get(symbol);
+            if (column == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new TableScanColumn(node.getId(), column));
+        }
+        if (node instanceof FilterNode) {
+            return findTableScanColumn(((FilterNode) node).getSource(), symbol);
+        }
+        if (node instanceof ProjectNode) {
+            Expression expression = ((ProjectNode) node).getAssignments().get(symbol);
+            if (expression instanceof QualifiedNameReference) {
+                return findTableScanColumn(((ProjectNode) node).getSource(), Symbol.fromQualifiedName(((QualifiedNameReference) expression).getName()));
+            }
+            return Optional.empty();
+        }
+        if (node instanceof JoinNode) {
+            JoinNode join = (JoinNode) node;
+            if ((join.getType() == INNER || join.getType() == LEFT) && join.getLeft().getOutputSymbols().contains(symbol)) {
+                return findTableScanColumn(join.getLeft(), symbol);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static class TableScanColumn
+    {
+        private final PlanNodeId tableScanId;
+        private final ColumnHandle column;
+
+        public TableScanColumn(PlanNodeId tableScanId, ColumnHandle column)
+        {
+            this.tableScanId = requireNonNull(tableScanId, "tableScanId is null");
+            this.column = requireNonNull(column, "column is null");
+        }
+
+        public PlanNodeId getTableScanId()
+        {
+            return tableScanId;
+        }
+
+        public ColumnHandle getColumn()
+        {
+            return column;
+        }
+    }
+
     private static class IdentityProjectionInfo
     {
         private final Map<Symbol, Integer> layout;
@@ -223,6 +223,7 @@ public class PlanPrinter
             }
 
             print(indent, "- %s[%s] => [%s]", node.getType().getJoinLabel(), Joiner.on(" AND ").join(joinExpressions), formatOutputs(node.getOutputSymbols()));
+            node.getDistributionType().ifPresent(distributionType -> print(indent + 2, "DISTRIBUTION: %s", distributionType));
             node.getLeft().accept(this, indent + 1);
             node.getRight().accept(this, indent + 1);
 
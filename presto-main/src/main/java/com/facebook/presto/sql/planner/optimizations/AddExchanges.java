@@ -91,6 +91,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.function.Function;
@@ -109,6 +110,9 @@ import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.gatheringExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.partitionedExchange;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.replicatedExchange;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.SINGLE;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
 import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
@@ -123,11 +127,13 @@ public class AddExchanges
 {
     private final SqlParser parser;
     private final Metadata metadata;
+    private final CardinalityEstimator cardinalityEstimator;
 
     public AddExchanges(Metadata metadata, SqlParser parser)
     {
         this.metadata = metadata;
         this.parser = parser;
+        this.cardinalityEstimator = new CardinalityEstimator(metadata);
     }
 
     @Override
@@ -137,7 +143,7 @@ public class AddExchanges
         boolean distributedIndexJoinEnabled = SystemSessionProperties.isDistributedIndexJoinEnabled(session);
         boolean redistributeWrites = SystemSessionProperties.isRedistributeWrites(session);
         boolean preferStreamingOperators = SystemSessionProperties.preferStreamingOperators(session);
-        PlanWithProperties result = plan.accept(new Rewriter(symbolAllocator, idAllocator, symbolAllocator, session, distributedIndexJoinEnabled, distributedJoinEnabled, preferStreamingOperators, redistributeWrites), new Context(PreferredProperties.any(), false));
+        PlanWithProperties result = plan.accept(new Rewriter(symbolAllocator, idAllocator, symbolAllocator, session, types, distributedIndexJoinEnabled, distributedJoinEnabled, preferStreamingOperators, redistributeWrites), new Context(PreferredProperties.any(), false));
         return result.getNode();
     }
 
@@ -182,17 +188,19 @@ public class AddExchanges
         private final PlanNodeIdAllocator idAllocator;
         private final SymbolAllocator symbolAllocator;
         private final Session session;
+        private final Map<Symbol, Type> types;
         private final boolean distributedIndexJoins;
         private final boolean distributedJoins;
         private final boolean preferStreamingOperators;
         private final boolean redistributeWrites;
 
-        public Rewriter(SymbolAllocator allocator, PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session, boolean distributedIndexJoins, boolean distributedJoins, boolean preferStreamingOperators, boolean redistributeWrites)
+        public Rewriter(SymbolAllocator allocator, PlanNodeIdAllocator idAllocator, SymbolAllocator symbolAllocator, Session session, Map<Symbol, Type> types, boolean distributedIndexJoins, boolean distributedJoins, boolean preferStreamingOperators, boolean redistributeWrites)
         {
             this.allocator = allocator;
             this.idAllocator = idAllocator;
             this.symbolAllocator = symbolAllocator;
             this.session = session;
+            this.types = types;
             this.distributedIndexJoins = distributedIndexJoins;
             this.distributedJoins = distributedJoins;
             this.preferStreamingOperators = preferStreamingOperators;
@@ -497,12 +505,23 @@ public class AddExchanges
         @Override
         public PlanWithProperties visitTopN(TopNNode node, Context context)
         {
-            PlanWithProperties child = planChild(node, context.withPreferredProperties(PreferredProperties.any()));
+            List<LocalProperty<Symbol>> desiredProperties = new ArrayList<>();
+            for (Symbol symbol : node.getOrderBy()) {
+                desiredProperties.add(new SortingProperty<>(symbol, node.getOrderings().get(symbol)));
+            }
+
+            PlanWithProperties child = planChild(node, context.withPreferredProperties(PreferredProperties.local(desiredProperties)));
 
             if (child.getProperties().isDistributed()) {
-                child = withDerivedProperties(
-                        new TopNNode(idAllocator.getNextId(), child.getNode(), node.getCount(), node.getOrderBy(), node.getOrderings(), true),
-                        child.getProperties());
+                PlanNode partial;
+                if (isSatisfied(desiredProperties, child.getProperties())) {
+                    // the input is already sorted, so a limit can stop reading it early
+                    partial = new LimitNode(idAllocator.getNextId(), child.getNode(), node.getCount());
+                }
+                else {
+                    partial = new TopNNode(idAllocator.getNextId(), child.getNode(), node.getCount(), node.getOrderBy(), node.getOrderings(), true);
+                }
+                child = withDerivedProperties(partial, child.getProperties());
 
                 child = withDerivedProperties(
                         gatheringExchange(idAllocator.getNextId(), child.getNode()),
@@ -678,6 +697,22 @@ public class AddExchanges
                 possiblePlans = new ArrayList<>(possiblePlans);
                 Collections.sort(possiblePlans, Comparator.comparing(PlanWithProperties::getProperties, streamingExecutionPreference(context.getPreferredProperties()))); // stable sort; is Collections.min() guaranteed to be stable?
             }
+            else if (isSortedInputPreferred(context.getPreferredProperties())) {
+                // A TopN over sorted input becomes a limit, which is worth a less preferred layout
+                for (PlanWithProperties plan : possiblePlans) {
+                    if (isSatisfied(context.getPreferredProperties().getLocalProperties(), plan.getProperties())) {
+                        return plan;
+                    }
+                }
+            }
+            else if (isPartitioningPreferred(context.getPreferredProperties())) {
+                // A layout partitioned on the preferred columns saves a remote exchange, which is worth a less preferred layout
+                for (PlanWithProperties plan : possiblePlans) {
+                    if (meetsPartitioningRequirements(context.getPreferredProperties(), plan.getProperties())) {
+                        return plan;
+                    }
+                }
+            }
 
             return possiblePlans.get(0);
         }
@@ -733,8 +768,9 @@ public class AddExchanges
 
             PlanWithProperties left;
             PlanWithProperties right;
+            JoinNode.DistributionType distributionType;
 
-            if ((distributedJoins && !(node.getType() == INNER && leftSymbols.isEmpty())) || node.getType() == FULL || node.getType() == RIGHT) {
+            if ((!(node.getType() == INNER && leftSymbols.isEmpty()) && isPartitionedJoin(node)) || node.getType() == FULL || node.getType() == RIGHT) {
                 // The implementation of full outer join only works if the data is hash partitioned. See LookupJoinOperators#buildSideOuterJoinUnvisitedPositions
 
                 left = node.getLeft().accept(this, context.withPreferredProperties(PreferredProperties.hashPartitioned(leftSymbols)));
@@ -752,6 +788,7 @@ public class AddExchanges
                             partitionedExchange(idAllocator.getNextId(), right.getNode(), new PartitionFunctionBinding(HASH, rightSymbols, node.getRightHashSymbol())),
                             right.getProperties());
                 }
+                distributionType = PARTITIONED;
             }
             else {
                 // It can only be INNER or LEFT here. Therefore, no flipping is necessary even though the below code assumes the node is not RIGHT.
@@ -759,18 +796,26 @@ public class AddExchanges
                 left = node.getLeft().accept(this, context.withPreferredProperties(PreferredProperties.any()));
                 right = node.getRight().accept(this, context.withPreferredProperties(PreferredProperties.any()));
 
-                if (!left.getProperties().isDistributed() && right.getProperties().isDistributed()) {
-                    // force single-node join
-                    // TODO: if inner join, flip order and do a broadcast join
-                    right = withDerivedProperties(
-                            gatheringExchange(idAllocator.getNextId(), right.getNode()),
-                            right.getProperties());
+                if (!left.getProperties().isDistributed()) {
+                    distributionType = SINGLE;
+                    if (right.getProperties().isDistributed()) {
+                        // force single-node join
+                        // TODO: if inner join, flip order and do a broadcast join
+                        right = withDerivedProperties(
+                                gatheringExchange(idAllocator.getNextId(), right.getNode()),
+                                right.getProperties());
+                    }
                 }
-                else if (left.getProperties().isDistributed() && !(left.getProperties().isHashPartitionedOn(leftSymbols) && right.getProperties().isHashPartitionedOn(rightSymbols))) {
+                else if (!(left.getProperties().isHashPartitionedOn(leftSymbols) && right.getProperties().isHashPartitionedOn(rightSymbols))) {
+                    distributionType = REPLICATED;
                     right = withDerivedProperties(
                             replicatedExchange(idAllocator.getNextId(), right.getNode()),
                             right.getProperties());
                 }
+                else {
+                    // both sides are already partitioned on the join keys
+                    distributionType = PARTITIONED;
+                }
             }
 
             JoinNode result = new JoinNode(node.getId(),
@@ -779,11 +824,24 @@ public class AddExchanges
                     right.getNode(),
                     node.getCriteria(),
                     node.getLeftHashSymbol(),
-                    node.getRightHashSymbol());
+                    node.getRightHashSymbol(),
+                    Optional.of(distributionType));
 
             return new PlanWithProperties(result, deriveProperties(result, ImmutableList.of(left.getProperties(), right.getProperties())));
         }
 
+        private boolean isPartitionedJoin(JoinNode node)
+        {
+            if (SystemSessionProperties.isAutomaticJoinDistribution(session)) {
+                // broadcast the build side when it is known to be small enough to be replicated to every task
+                OptionalDouble buildSize = cardinalityEstimator.estimateOutputSizeInBytes(node.getRight(), session, types);
+                if (buildSize.isPresent()) {
+                    return buildSize.getAsDouble() > SystemSessionProperties.getJoinMaxBroadcastTableSize(session).toBytes();
+                }
+            }
+            return distributedJoins;
+        }
+
         @Override
         public PlanWithProperties visitUnnest(UnnestNode node, Context context)
         {
@@ -1045,6 +1103,29 @@ public class AddExchanges
         return outputToInput;
     }
 
+    /**
+     * Only TopN prefers sorted input without any preference for the distribution.
+     */
+    private static boolean isSortedInputPreferred(PreferredProperties preferred)
+    {
+        return !preferred.getGlobalProperties().isPresent()
+                && !preferred.getLocalProperties().isEmpty()
+                && preferred.getLocalProperties().stream().allMatch(SortingProperty.class::isInstance);
+    }
+
+    private static boolean isPartitioningPreferred(PreferredProperties preferred)
+    {
+        return preferred.getGlobalProperties()
+                .map(global -> global.isDistributed() && global.getPartitioningProperties().isPresent())
+                .orElse(false);
+    }
+
+    private static boolean isSatisfied(List<LocalProperty<Symbol>> desiredProperties, ActualProperties actual)
+    {
+        return LocalProperties.match(actual.getLocalProperties(), desiredProperties).stream()
+                .noneMatch(Optional::isPresent);
+    }
+
     @VisibleForTesting
     static Comparator<ActualProperties> streamingExecutionPreference(PreferredProperties preferred)
     {
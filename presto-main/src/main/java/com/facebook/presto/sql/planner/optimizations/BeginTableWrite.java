@@ -168,8 +168,9 @@ public class BeginTableWrite
                         handle,
                         new Constraint<>(scan.getCurrentConstraint(), bindings -> true),
                         Optional.of(ImmutableSet.copyOf(scan.getAssignments().values())));
-                verify(layouts.size() == 1, "Expected exactly one layout for delete");
-                TableLayoutHandle layout = Iterables.getOnlyElement(layouts).getLayout().getHandle();
+                verify(!layouts.isEmpty(), "Expected a layout for delete");
+                // layouts are returned in order of the connector's preference
+                TableLayoutHandle layout = layouts.get(0).getLayout().getHandle();
 
                 return new TableScanNode(
                         scan.getId(),
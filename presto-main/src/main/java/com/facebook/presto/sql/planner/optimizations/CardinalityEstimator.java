@@ -0,0 +1,347 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.Literal;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.sql.ExpressionUtils.extractConjuncts;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimates the number of rows produced by a plan node from the statistics
+ * reported by the connectors, using textbook selectivity heuristics where
+ * the statistics are not sufficient. Nodes whose output cannot be estimated
+ * produce an empty result.
+ */
+public class CardinalityEstimator
+{
+    private static final double EQUALITY_SELECTIVITY = 0.1;
+    private static final double RANGE_SELECTIVITY = 0.33;
+    private static final double DEFAULT_SELECTIVITY = 0.5;
+    private static final int VARIABLE_WIDTH_VALUE_SIZE = 32;
+
+    private final Metadata metadata;
+
+    public CardinalityEstimator(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    public Optional<Estimate> estimate(PlanNode node, Session session)
+    {
+        requireNonNull(node, "node is null");
+        requireNonNull(session, "session is null");
+        return node.accept(new Visitor(), session);
+    }
+
+    /**
+     * Estimates the number of bytes produced by a plan node, assuming a fixed
+     * average size for the values of variable width types.
+     */
+    public OptionalDouble estimateOutputSizeInBytes(PlanNode node, Session session, Map<Symbol, Type> types)
+    {
+        requireNonNull(types, "types is null");
+        Optional<Estimate> estimate = estimate(node, session);
+        if (!estimate.isPresent()) {
+            return OptionalDouble.empty();
+        }
+
+        long rowSize = 0;
+        for (Symbol symbol : node.getOutputSymbols()) {
+            Type type = types.get(symbol);
+            if (type instanceof FixedWidthType) {
+                rowSize += ((FixedWidthType) type).getFixedSize();
+            }
+            else {
+                rowSize += VARIABLE_WIDTH_VALUE_SIZE;
+            }
+        }
+        return OptionalDouble.of(estimate.get().getRowCount() * rowSize);
+    }
+
+    public static final class Estimate
+    {
+        private final double rowCount;
+        private final Map<Symbol, Double> distinctValues;
+
+        public Estimate(double rowCount, Map<Symbol, Double> distinctValues)
+        {
+            checkArgument(rowCount >= 0, "rowCount is negative");
+            this.rowCount = rowCount;
+            // the number of distinct values can never exceed the number of rows
+            this.distinctValues = new HashMap<>();
+            distinctValues.forEach((symbol, count) -> this.distinctValues.put(symbol, Math.min(count, rowCount)));
+        }
+
+        public double getRowCount()
+        {
+            return rowCount;
+        }
+
+        public OptionalDouble getDistinctValues(Symbol symbol)
+        {
+            Double count = distinctValues.get(symbol);
+            if (count == null) {
+                return OptionalDouble.empty();
+            }
+            return OptionalDouble.of(count);
+        }
+
+        private Map<Symbol, Double> getDistinctValues()
+        {
+            return distinctValues;
+        }
+
+        private Estimate withRowCount(double rowCount)
+        {
+            return new Estimate(rowCount, distinctValues);
+        }
+    }
+
+    private class Visitor
+            extends PlanVisitor<Session, Optional<Estimate>>
+    {
+        @Override
+        protected Optional<Estimate> visitPlan(PlanNode node, Session session)
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Estimate> visitTableScan(TableScanNode node, Session session)
+        {
+            TableStatistics statistics = metadata.getTableStatistics(session, node.getTable(), node.getLayout());
+            OptionalLong rowCount = statistics.getRowCount();
+            if (!rowCount.isPresent()) {
+                return Optional.empty();
+            }
+
+            Map<Symbol, Double> distinctValues = new HashMap<>();
+            for (Map.Entry<Symbol, ColumnHandle> entry : node.getAssignments().entrySet()) {
+                ColumnStatistics columnStatistics = statistics.getColumnStatistics(entry.getValue());
+                columnStatistics.getDistinctValuesCount().ifPresent(count -> distinctValues.put(entry.getKey(), (double) count));
+            }
+            return Optional.of(new Estimate(rowCount.getAsLong(), distinctValues));
+        }
+
+        @Override
+        public Optional<Estimate> visitFilter(FilterNode node, Session session)
+        {
+            Optional<Estimate> source = node.getSource().accept(this, session);
+            if (!source.isPresent()) {
+                return Optional.empty();
+            }
+
+            double rowCount = source.get().getRowCount();
+            Map<Symbol, Double> distinctValues = new HashMap<>(source.get().getDistinctValues());
+            for (Expression conjunct : extractConjuncts(node.getPredicate())) {
+                rowCount *= selectivity(conjunct, source.get(), distinctValues);
+            }
+            return Optional.of(new Estimate(rowCount, distinctValues));
+        }
+
+        @Override
+        public Optional<Estimate> visitProject(ProjectNode node, Session session)
+        {
+            Optional<Estimate> source = node.getSource().accept(this, session);
+            if (!source.isPresent()) {
+                return Optional.empty();
+            }
+
+            Map<Symbol, Double> distinctValues = new HashMap<>();
+            for (Map.Entry<Symbol, Expression> entry : node.getAssignments().entrySet()) {
+                if (entry.getValue() instanceof QualifiedNameReference) {
+                    Symbol symbol = Symbol.fromQualifiedName(((QualifiedNameReference) entry.getValue()).getName());
+                    source.get().getDistinctValues(symbol).ifPresent(count -> distinctValues.put(entry.getKey(), count));
+                }
+            }
+            return Optional.of(new Estimate(source.get().getRowCount(), distinctValues));
+        }
+
+        @Override
+        public Optional<Estimate> visitAggregation(AggregationNode node, Session session)
+        {
+            Optional<Estimate> source = node.getSource().accept(this, session);
+            if (!source.isPresent()) {
+                return Optional.empty();
+            }
+
+            if (node.getGroupBy().isEmpty()) {
+                return Optional.of(new Estimate(1, new HashMap<>()));
+            }
+
+            double rowCount = 1;
+            Map<Symbol, Double> distinctValues = new HashMap<>();
+            for (Symbol symbol : node.getGroupBy()) {
+                OptionalDouble count = source.get().getDistinctValues(symbol);
+                if (!count.isPresent()) {
+                    // without statistics assume the grouping does not reduce the input
+                    rowCount = source.get().getRowCount();
+                    break;
+                }
+                rowCount *= count.getAsDouble();
+                distinctValues.put(symbol, count.getAsDouble());
+            }
+            return Optional.of(new Estimate(Math.min(rowCount, source.get().getRowCount()), distinctValues));
+        }
+
+        @Override
+        public Optional<Estimate> visitLimit(LimitNode node, Session session)
+        {
+            return node.getSource().accept(this, session)
+                    .map(source -> source.withRowCount(Math.min(source.getRowCount(), node.getCount())));
+        }
+
+        @Override
+        public Optional<Estimate> visitTopN(TopNNode node, Session session)
+        {
+            return node.getSource().accept(this, session)
+                    .map(source -> source.withRowCount(Math.min(source.getRowCount(), node.getCount())));
+        }
+
+        @Override
+        public Optional<Estimate> visitMarkDistinct(MarkDistinctNode node, Session session)
+        {
+            return node.getSource().accept(this, session);
+        }
+
+        @Override
+        public Optional<Estimate> visitSemiJoin(SemiJoinNode node, Session session)
+        {
+            return node.getSource().accept(this, session);
+        }
+
+        @Override
+        public Optional<Estimate> visitJoin(JoinNode node, Session session)
+        {
+            Optional<Estimate> left = node.getLeft().accept(this, session);
+            Optional<Estimate> right = node.getRight().accept(this, session);
+            if (!left.isPresent() || !right.isPresent()) {
+                return Optional.empty();
+            }
+
+            double rowCount = left.get().getRowCount() * right.get().getRowCount();
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                rowCount *= joinSelectivity(left.get(), clause.getLeft(), right.get(), clause.getRight());
+            }
+
+            switch (node.getType()) {
+                case LEFT:
+                    rowCount = Math.max(rowCount, left.get().getRowCount());
+                    break;
+                case RIGHT:
+                    rowCount = Math.max(rowCount, right.get().getRowCount());
+                    break;
+                case FULL:
+                    rowCount = Math.max(rowCount, Math.max(left.get().getRowCount(), right.get().getRowCount()));
+                    break;
+            }
+
+            Map<Symbol, Double> distinctValues = new HashMap<>(left.get().getDistinctValues());
+            distinctValues.putAll(right.get().getDistinctValues());
+            return Optional.of(new Estimate(rowCount, distinctValues));
+        }
+    }
+
+    /**
+     * Returns the fraction of the rows of the cross product of two inputs that
+     * match on the given symbols. When the number of distinct values of a side
+     * is unknown the join key is assumed to be unique on that side, which is
+     * the common case of a foreign key joining a primary key.
+     */
+    public static double joinSelectivity(Estimate left, Symbol leftSymbol, Estimate right, Symbol rightSymbol)
+    {
+        double leftDistinctValues = left.getDistinctValues(leftSymbol).orElse(left.getRowCount());
+        double rightDistinctValues = right.getDistinctValues(rightSymbol).orElse(right.getRowCount());
+        return 1.0 / Math.max(1.0, Math.max(leftDistinctValues, rightDistinctValues));
+    }
+
+    private static double selectivity(Expression conjunct, Estimate source, Map<Symbol, Double> distinctValues)
+    {
+        if (!(conjunct instanceof ComparisonExpression)) {
+            return DEFAULT_SELECTIVITY;
+        }
+
+        ComparisonExpression comparison = (ComparisonExpression) conjunct;
+        Optional<Symbol> symbol = getComparedSymbol(comparison);
+        if (!symbol.isPresent()) {
+            return DEFAULT_SELECTIVITY;
+        }
+
+        switch (comparison.getType()) {
+            case EQUAL: {
+                OptionalDouble count = source.getDistinctValues(symbol.get());
+                distinctValues.put(symbol.get(), 1.0);
+                if (count.isPresent()) {
+                    return 1.0 / Math.max(1.0, count.getAsDouble());
+                }
+                return EQUALITY_SELECTIVITY;
+            }
+            case NOT_EQUAL: {
+                OptionalDouble count = source.getDistinctValues(symbol.get());
+                if (count.isPresent()) {
+                    return 1.0 - 1.0 / Math.max(1.0, count.getAsDouble());
+                }
+                return 1.0 - EQUALITY_SELECTIVITY;
+            }
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                return RANGE_SELECTIVITY;
+            default:
+                return DEFAULT_SELECTIVITY;
+        }
+    }
+
+    private static Optional<Symbol> getComparedSymbol(ComparisonExpression comparison)
+    {
+        if (comparison.getLeft() instanceof QualifiedNameReference && comparison.getRight() instanceof Literal) {
+            return Optional.of(Symbol.fromQualifiedName(((QualifiedNameReference) comparison.getLeft()).getName()));
+        }
+        if (comparison.getRight() instanceof QualifiedNameReference && comparison.getLeft() instanceof Literal) {
+            return Optional.of(Symbol.fromQualifiedName(((QualifiedNameReference) comparison.getRight()).getName()));
+        }
+        return Optional.empty();
+    }
+}
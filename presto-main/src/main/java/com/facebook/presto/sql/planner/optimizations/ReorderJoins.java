@@ -0,0 +1,334 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.optimizations.CardinalityEstimator.Estimate;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.isReorderJoinsEnabled;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Chooses the order of trees of inner equi-joins and the build side of every
+ * join in them based on the cardinalities estimated from the connectors'
+ * table statistics.
+ * <p>
+ * The inputs of a tree of joins are enumerated with dynamic programming over
+ * all connected subsets, so bushy plans are considered as well. The cost of a
+ * join is the number of rows it reads and produces, and the smaller input is
+ * always placed on the build side. Trees with inputs that cannot be estimated
+ * or with too many inputs are left unchanged.
+ */
+public class ReorderJoins
+        extends PlanOptimizer
+{
+    private static final int MAX_REORDERED_SOURCES = 10;
+
+    private final CardinalityEstimator cardinalityEstimator;
+
+    public ReorderJoins(Metadata metadata)
+    {
+        requireNonNull(metadata, "metadata is null");
+        this.cardinalityEstimator = new CardinalityEstimator(metadata);
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(symbolAllocator, "symbolAllocator is null");
+        requireNonNull(idAllocator, "idAllocator is null");
+
+        if (!isReorderJoinsEnabled(session)) {
+            return plan;
+        }
+
+        return SimplePlanRewriter.rewriteWith(new Rewriter(cardinalityEstimator, session, idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        private final CardinalityEstimator cardinalityEstimator;
+        private final Session session;
+        private final PlanNodeIdAllocator idAllocator;
+
+        public Rewriter(CardinalityEstimator cardinalityEstimator, Session session, PlanNodeIdAllocator idAllocator)
+        {
+            this.cardinalityEstimator = cardinalityEstimator;
+            this.session = session;
+            this.idAllocator = idAllocator;
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            if (!isReorderable(node)) {
+                return context.defaultRewrite(node);
+            }
+
+            List<PlanNode> sources = new ArrayList<>();
+            List<JoinNode.EquiJoinClause> criteria = new ArrayList<>();
+            flatten(node, sources, criteria);
+            if (sources.size() > MAX_REORDERED_SOURCES) {
+                return context.defaultRewrite(node);
+            }
+
+            // reordering the joins nested in a source does not change its cardinality, so it is estimated before rewriting
+            List<Estimate> estimates = new ArrayList<>();
+            for (PlanNode source : sources) {
+                Optional<Estimate> estimate = cardinalityEstimator.estimate(source, session);
+                if (!estimate.isPresent()) {
+                    return context.defaultRewrite(node);
+                }
+                estimates.add(estimate.get());
+            }
+
+            JoinGraph graph = new JoinGraph(estimates, sourceIndexes(sources), criteria);
+            int all = (1 << sources.size()) - 1;
+            if (!graph.optimize(all)) {
+                return context.defaultRewrite(node);
+            }
+
+            List<PlanNode> rewrittenSources = new ArrayList<>();
+            for (PlanNode source : sources) {
+                rewrittenSources.add(context.rewrite(source));
+            }
+            PlanNode result = buildJoins(graph, all, rewrittenSources);
+
+            if (result.getOutputSymbols().equals(node.getOutputSymbols())) {
+                return result;
+            }
+
+            // restore the column order of the original join for the parent
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                assignments.put(symbol, symbol.toQualifiedNameReference());
+            }
+            return new ProjectNode(idAllocator.getNextId(), result, assignments.build());
+        }
+
+        private PlanNode buildJoins(JoinGraph graph, int set, List<PlanNode> sources)
+        {
+            if (Integer.bitCount(set) == 1) {
+                return sources.get(Integer.numberOfTrailingZeros(set));
+            }
+
+            int probe = graph.getProbeSet(set);
+            int build = set & ~probe;
+
+            ImmutableList.Builder<JoinNode.EquiJoinClause> criteria = ImmutableList.builder();
+            for (JoinGraph.Edge edge : graph.getEdges()) {
+                if (edge.connects(probe, build)) {
+                    criteria.add(edge.toClause(probe));
+                }
+            }
+
+            return new JoinNode(
+                    idAllocator.getNextId(),
+                    JoinNode.Type.INNER,
+                    buildJoins(graph, probe, sources),
+                    buildJoins(graph, build, sources),
+                    criteria.build(),
+                    Optional.empty(),
+                    Optional.empty());
+        }
+
+        private static void flatten(PlanNode node, List<PlanNode> sources, List<JoinNode.EquiJoinClause> criteria)
+        {
+            if (node instanceof JoinNode && isReorderable((JoinNode) node)) {
+                JoinNode join = (JoinNode) node;
+                flatten(join.getLeft(), sources, criteria);
+                flatten(join.getRight(), sources, criteria);
+                criteria.addAll(join.getCriteria());
+            }
+            else {
+                sources.add(node);
+            }
+        }
+
+        private static boolean isReorderable(JoinNode node)
+        {
+            return node.getType() == JoinNode.Type.INNER &&
+                    !node.getCriteria().isEmpty() &&
+                    !node.getLeftHashSymbol().isPresent() &&
+                    !node.getRightHashSymbol().isPresent();
+        }
+
+        private static Map<Symbol, Integer> sourceIndexes(List<PlanNode> sources)
+        {
+            Map<Symbol, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < sources.size(); i++) {
+                for (Symbol symbol : sources.get(i).getOutputSymbols()) {
+                    indexes.put(symbol, i);
+                }
+            }
+            return indexes;
+        }
+    }
+
+    /**
+     * Sets of join inputs are represented as bit masks over the input indexes.
+     */
+    private static class JoinGraph
+    {
+        private final List<Edge> edges = new ArrayList<>();
+        private final double[] rowCounts;
+        private final double[] costs;
+        private final int[] probeSets;
+
+        public JoinGraph(List<Estimate> estimates, Map<Symbol, Integer> sourceIndexes, List<JoinNode.EquiJoinClause> criteria)
+        {
+            for (JoinNode.EquiJoinClause clause : criteria) {
+                int left = sourceIndexes.get(clause.getLeft());
+                int right = sourceIndexes.get(clause.getRight());
+                double selectivity = CardinalityEstimator.joinSelectivity(estimates.get(left), clause.getLeft(), estimates.get(right), clause.getRight());
+                edges.add(new Edge(clause.getLeft(), left, clause.getRight(), right, selectivity));
+            }
+
+            int setCount = 1 << estimates.size();
+            rowCounts = new double[setCount];
+            costs = new double[setCount];
+            probeSets = new int[setCount];
+
+            for (int set = 1; set < setCount; set++) {
+                int source = Integer.numberOfTrailingZeros(set);
+                int rest = set & (set - 1);
+                if (rest == 0) {
+                    rowCounts[set] = estimates.get(source).getRowCount();
+                    continue;
+                }
+                double rowCount = rowCounts[rest] * estimates.get(source).getRowCount();
+                for (Edge edge : edges) {
+                    if (edge.connects(1 << source, rest)) {
+                        rowCount *= edge.getSelectivity();
+                    }
+                }
+                rowCounts[set] = rowCount;
+                costs[set] = Double.NaN;
+            }
+        }
+
+        public List<Edge> getEdges()
+        {
+            return edges;
+        }
+
+        public int getProbeSet(int set)
+        {
+            return probeSets[set];
+        }
+
+        /**
+         * Computes the cheapest plan for the set and all its subsets. Returns false
+         * if the inputs in the set cannot be joined without a cross join.
+         */
+        public boolean optimize(int set)
+        {
+            if (!Double.isNaN(costs[set]) || Integer.bitCount(set) == 1) {
+                return !Double.isInfinite(costs[set]);
+            }
+
+            double bestCost = Double.POSITIVE_INFINITY;
+            int lowest = Integer.lowestOneBit(set);
+            // only enumerate the subsets containing the lowest input, as the complement covers the other half
+            for (int left = (set - 1) & set; left > 0; left = (left - 1) & set) {
+                int right = set & ~left;
+                if ((left & lowest) == 0 || !isConnected(left, right) || !optimize(left) || !optimize(right)) {
+                    continue;
+                }
+                double cost = costs[left] + costs[right] + rowCounts[left] + rowCounts[right] + rowCounts[set];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    // the larger input is streamed through the join and the smaller one is built into the hash table
+                    probeSets[set] = rowCounts[left] >= rowCounts[right] ? left : right;
+                }
+            }
+            costs[set] = bestCost;
+            return !Double.isInfinite(bestCost);
+        }
+
+        private boolean isConnected(int left, int right)
+        {
+            for (Edge edge : edges) {
+                if (edge.connects(left, right)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static class Edge
+        {
+            private final Symbol left;
+            private final int leftSource;
+            private final Symbol right;
+            private final int rightSource;
+            private final double selectivity;
+
+            public Edge(Symbol left, int leftSource, Symbol right, int rightSource, double selectivity)
+            {
+                this.left = left;
+                this.leftSource = leftSource;
+                this.right = right;
+                this.rightSource = rightSource;
+                this.selectivity = selectivity;
+            }
+
+            public double getSelectivity()
+            {
+                return selectivity;
+            }
+
+            public boolean connects(int first, int second)
+            {
+                return (contains(first, leftSource) && contains(second, rightSource)) ||
+                        (contains(first, rightSource) && contains(second, leftSource));
+            }
+
+            public JoinNode.EquiJoinClause toClause(int probe)
+            {
+                if (contains(probe, leftSource)) {
+                    return new JoinNode.EquiJoinClause(left, right);
+                }
+                return new JoinNode.EquiJoinClause(right, left);
+            }
+
+            private static boolean contains(int set, int source)
+            {
+                return (set & (1 << source)) != 0;
+            }
+        }
+    }
+}
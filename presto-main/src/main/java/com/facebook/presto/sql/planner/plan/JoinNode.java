@@ -36,6 +36,18 @@ public class JoinNode
     private final List<EquiJoinClause> criteria;
     private final Optional<Symbol> leftHashSymbol;
     private final Optional<Symbol> rightHashSymbol;
+    private final Optional<DistributionType> distributionType;
+
+    public JoinNode(PlanNodeId id,
+            Type type,
+            PlanNode left,
+            PlanNode right,
+            List<EquiJoinClause> criteria,
+            Optional<Symbol> leftHashSymbol,
+            Optional<Symbol> rightHashSymbol)
+    {
+        this(id, type, left, right, criteria, leftHashSymbol, rightHashSymbol, Optional.empty());
+    }
 
     @JsonCreator
     public JoinNode(@JsonProperty("id") PlanNodeId id,
@@ -44,7 +56,8 @@ public class JoinNode
             @JsonProperty("right") PlanNode right,
             @JsonProperty("criteria") List<EquiJoinClause> criteria,
             @JsonProperty("leftHashSymbol") Optional<Symbol> leftHashSymbol,
-            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol)
+            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol,
+            @JsonProperty("distributionType") Optional<DistributionType> distributionType)
     {
         super(id);
         requireNonNull(type, "type is null");
@@ -53,6 +66,7 @@ public class JoinNode
         requireNonNull(criteria, "criteria is null");
         requireNonNull(leftHashSymbol, "leftHashSymbol is null");
         requireNonNull(rightHashSymbol, "rightHashSymbol is null");
+        requireNonNull(distributionType, "distributionType is null");
 
         this.type = type;
         this.left = left;
@@ -60,6 +74,17 @@ public class JoinNode
         this.criteria = ImmutableList.copyOf(criteria);
         this.leftHashSymbol = leftHashSymbol;
         this.rightHashSymbol = rightHashSymbol;
+        this.distributionType = distributionType;
+    }
+
+    public enum DistributionType
+    {
+        // both inputs are hash partitioned on the join keys
+        PARTITIONED,
+        // the build side is sent in full to every task processing the probe side
+        REPLICATED,
+        // both inputs are gathered to a single node
+        SINGLE
     }
 
     public enum Type
@@ -137,6 +162,16 @@ public class JoinNode
         return rightHashSymbol;
     }
 
+    /**
+     * The distribution chosen when exchanges are added to the plan, or empty
+     * before that.
+     */
+    @JsonProperty("distributionType")
+    public Optional<DistributionType> getDistributionType()
+    {
+        return distributionType;
+    }
+
     @Override
     public List<PlanNode> getSources()
     {
@@ -0,0 +1,169 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto;
+
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.Operator;
+import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.PageBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.spiller.TestingSpillerFactory;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Collections.nCopies;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkOrderByOperator
+{
+    @Benchmark
+    public int runBenchmark(BenchmarkData data)
+    {
+        DriverContext driverContext = createTaskContext(data.executor, TEST_SESSION, data.getMaxMemory())
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                data.types,
+                ImmutableList.of(0),
+                10_000,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_FIRST),
+                data.getSpillerFactory());
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+        try {
+            return toPages(operator, data.pages).size();
+        }
+        finally {
+            operator.close();
+        }
+    }
+
+    private static List<Page> createPages(int pageCount, int channelCount)
+    {
+        int positionCount = PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES / (channelCount * 8);
+
+        Random random = new Random(0);
+        List<Page> pages = new ArrayList<>(pageCount);
+        for (int numPage = 0; numPage < pageCount; numPage++) {
+            Block[] blocks = new Block[channelCount];
+            for (int numChannel = 0; numChannel < channelCount; numChannel++) {
+                BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+                for (int position = 0; position < positionCount; position++) {
+                    BIGINT.writeLong(blockBuilder, random.nextLong());
+                }
+                blocks[numChannel] = blockBuilder.build();
+            }
+            pages.add(new Page(blocks));
+        }
+        return pages;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({ "false", "true" })
+        private boolean spill;
+
+        private final int maxPages = 200;
+        private final int totalChannels = 4;
+
+        private ExecutorService executor;
+        private TestingSpillerFactory spillerFactory;
+
+        public List<Page> pages;
+        public List<Type> types;
+
+        @Setup
+        public void setup()
+        {
+            executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+            spillerFactory = new TestingSpillerFactory();
+
+            pages = createPages(maxPages, totalChannels);
+            types = nCopies(totalChannels, BIGINT);
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            executor.shutdownNow();
+            spillerFactory.close();
+        }
+
+        public DataSize getMaxMemory()
+        {
+            // the spilled variant can only hold a fraction of the input in memory, so it writes several sorted runs
+            return spill ? new DataSize(32, MEGABYTE) : new DataSize(1, GIGABYTE);
+        }
+
+        public Optional<SpillerFactory> getSpillerFactory()
+        {
+            return spill ? Optional.of(spillerFactory) : Optional.empty();
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrderByOperator.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -13,10 +13,13 @@
  */
 package com.facebook.presto.block;
 
+import com.facebook.presto.block.PagesSerde.PagesReader;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.LazyBlock;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
@@ -32,8 +35,10 @@ import static com.facebook.presto.block.PagesSerde.writePages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.wrappedIntArray;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -62,6 +67,79 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testDictionaryRoundTrip()
+    {
+        BlockBuilder dictionaryBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 3);
+        VARCHAR.writeString(dictionaryBuilder, "alice");
+        VARCHAR.writeString(dictionaryBuilder, "bob");
+        VARCHAR.writeString(dictionaryBuilder, "charlie");
+        Block dictionary = dictionaryBuilder.build();
+
+        DictionaryBlock dictionaryBlock = new DictionaryBlock(6, dictionary, wrappedIntArray(2, 0, 2, 2, 0, 0));
+        LazyBlock lazyBlock = new LazyBlock(6, block -> block.setBlock(dictionaryBlock));
+        Page expectedPage = new Page(dictionaryBlock, lazyBlock);
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingManager, sliceOutput, expectedPage);
+
+        Page actualPage = readPages(blockEncodingManager, sliceOutput.slice().getInput()).next();
+        assertPageEquals(ImmutableList.of(VARCHAR, VARCHAR), actualPage, expectedPage);
+
+        // both blocks stay dictionary encoded, and only the referenced entries are sent
+        for (Block block : actualPage.getBlocks()) {
+            assertTrue(block instanceof DictionaryBlock);
+            assertEquals(((DictionaryBlock) block).getDictionary().getPositionCount(), 2);
+        }
+    }
+
+    @Test
+    public void testCompressedRoundTrip()
+    {
+        BlockBuilder expectedBlockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeString(expectedBlockBuilder, "value" + (i % 10));
+        }
+        Block expectedBlock = expectedBlockBuilder.build();
+
+        Page expectedPage = new Page(expectedBlock, expectedBlock);
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingManager, sliceOutput, true, ImmutableList.of(expectedPage, expectedPage));
+        Slice slice = sliceOutput.slice();
+
+        List<Type> types = ImmutableList.<Type>of(VARCHAR, VARCHAR);
+        PagesReader pagesReader = readPages(blockEncodingManager, slice.getInput());
+        assertPageEquals(types, pagesReader.next(), expectedPage);
+        assertPageEquals(types, pagesReader.next(), expectedPage);
+        assertFalse(pagesReader.hasNext());
+
+        // repetitive values compress well, so both pages are sent compressed
+        assertTrue(pagesReader.getCompressedSizeInBytes() < pagesReader.getUncompressedSizeInBytes());
+        assertEquals(slice.length(), pagesReader.getCompressedSizeInBytes() + 2 * (4 + 4 + 1 + 4 + 4)); // plus page headers
+    }
+
+    @Test
+    public void testIncompressiblePage()
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 5);
+        BIGINT.writeLong(builder, 123);
+        Page page = new Page(builder.build());
+
+        DynamicSliceOutput uncompressedOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingManager, uncompressedOutput, page);
+
+        // a tiny page does not compress, so it is written exactly as without compression
+        DynamicSliceOutput compressedOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingManager, compressedOutput, true, ImmutableList.of(page));
+        assertEquals(compressedOutput.slice(), uncompressedOutput.slice());
+
+        PagesReader pagesReader = readPages(blockEncodingManager, compressedOutput.slice().getInput());
+        assertPageEquals(ImmutableList.of(BIGINT), pagesReader.next(), page);
+        assertFalse(pagesReader.hasNext());
+        assertEquals(pagesReader.getCompressedSizeInBytes(), pagesReader.getUncompressedSizeInBytes());
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
@@ -70,7 +148,7 @@ public class TestPagesSerde
         // empty page
         Page page = new Page(builder.build());
         int pageSize = serializedSize(ImmutableList.of(BIGINT), page);
-        assertEquals(pageSize, 35); // page overhead
+        assertEquals(pageSize, 36); // page overhead
 
         // page with one value
         BIGINT.writeLong(builder, 123);
@@ -93,7 +171,7 @@ public class TestPagesSerde
         // empty page
         Page page = new Page(builder.build());
         int pageSize = serializedSize(ImmutableList.of(VARCHAR), page);
-        assertEquals(pageSize, 34); // page overhead
+        assertEquals(pageSize, 35); // page overhead
 
         // page with one value
         VARCHAR.writeString(builder, "alice");
@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkSharedBuffer
+{
+    private static final TaskId TASK_ID = new TaskId("query", "stage", "task");
+    private static final DataSize MAX_BUFFER_SIZE = new DataSize(64, MEGABYTE);
+    private static final DataSize MAX_RESPONSE_SIZE = new DataSize(1, MEGABYTE);
+
+    @Benchmark
+    public long broadcast(BenchmarkData data)
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, data.executor, MAX_BUFFER_SIZE);
+        sharedBuffer.setOutputBuffers(data.outputBuffers);
+
+        // every consumer fetches (and acknowledges) each page as soon as it is added,
+        // so the cost of each enqueue and get grows with the number of consumers
+        long[] sequenceIds = new long[data.consumers];
+        long pagesRead = 0;
+        for (Page page : data.pages) {
+            sharedBuffer.enqueue(page);
+            for (int consumer = 0; consumer < data.consumers; consumer++) {
+                BufferResult result = sharedBuffer.get(data.bufferIds.get(consumer), sequenceIds[consumer], MAX_RESPONSE_SIZE).join();
+                sequenceIds[consumer] = result.getNextToken();
+                pagesRead += result.size();
+            }
+        }
+        sharedBuffer.destroy();
+        return pagesRead;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"1", "16", "128", "512"})
+        private int consumers;
+
+        private final int pageCount = 100;
+
+        private ExecutorService executor;
+        private List<TaskId> bufferIds;
+        private OutputBuffers outputBuffers;
+        private List<Page> pages;
+
+        @Setup
+        public void setup()
+        {
+            executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+
+            ImmutableList.Builder<TaskId> bufferIds = ImmutableList.builder();
+            OutputBuffers outputBuffers = INITIAL_EMPTY_OUTPUT_BUFFERS;
+            for (int consumer = 0; consumer < consumers; consumer++) {
+                TaskId bufferId = new TaskId("query", "stage", "consumer" + consumer);
+                bufferIds.add(bufferId);
+                outputBuffers = outputBuffers.withBuffer(bufferId, 0);
+            }
+            this.bufferIds = bufferIds.build();
+            this.outputBuffers = outputBuffers.withNoMoreBufferIds();
+
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
+            for (int i = 0; i < pageCount; i++) {
+                BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1024);
+                for (int position = 0; position < 1024; position++) {
+                    BIGINT.writeLong(blockBuilder, i + position);
+                }
+                pages.add(new Page(blockBuilder.build()));
+            }
+            this.pages = pages.build();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkSharedBuffer.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
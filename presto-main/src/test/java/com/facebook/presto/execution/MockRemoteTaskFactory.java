@@ -208,7 +208,8 @@ public class MockRemoteTaskFactory
                     sharedBuffer.getInfo(),
                     ImmutableSet.<PlanNodeId>of(),
                     taskContext.getTaskStats(),
-                    failures);
+                    failures,
+                    false);
         }
 
         public synchronized void finishSplits(int splits)
@@ -20,6 +20,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -30,8 +31,12 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
 import static com.facebook.presto.execution.BufferResult.emptyResults;
@@ -40,6 +45,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -856,6 +862,223 @@ public class TestSharedBuffer
         assertTrue(sharedBuffer.isFinished());
     }
 
+    @Test
+    public void testMultipleConsumerAcknowledgement()
+            throws Exception
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, stateNotificationExecutor, sizeOfPages(10));
+        sharedBuffer.setOutputBuffers(INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 0));
+
+        for (int i = 0; i < 3; i++) {
+            addPage(sharedBuffer, createPage(i));
+        }
+
+        // acknowledgements are recorded, but pages are kept until all buffers are known
+        sharedBuffer.get(FIRST, 3, sizeOfPages(10)).cancel(true);
+        sharedBuffer.get(SECOND, 3, sizeOfPages(10)).cancel(true);
+        assertQueueState(sharedBuffer, FIRST, 0, 0, 3, 3, 3, 0);
+        assertQueueState(sharedBuffer, SECOND, 0, 0, 3, 3, 3, 0);
+
+        // a late buffer still sees all pages
+        sharedBuffer.setOutputBuffers(INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 0)
+                .withBuffer(QUEUE, 0)
+                .withNoMoreBufferIds());
+        assertQueueState(sharedBuffer, QUEUE, 0, 3, 0, 3, 3, 0);
+        assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, QUEUE, 0, sizeOfPages(10), NO_WAIT), bufferResult(0, createPage(0), createPage(1), createPage(2)));
+
+        // pages are only dropped up to the slowest consumer
+        sharedBuffer.get(QUEUE, 1, sizeOfPages(10)).cancel(true);
+        assertQueueState(sharedBuffer, QUEUE, 0, 2, 1, 2, 3, 0);
+        sharedBuffer.get(QUEUE, 2, sizeOfPages(10)).cancel(true);
+        assertQueueState(sharedBuffer, QUEUE, 0, 1, 2, 1, 3, 0);
+
+        // the other consumers moving ahead does not drop more pages
+        addPage(sharedBuffer, createPage(3));
+        sharedBuffer.get(FIRST, 4, sizeOfPages(10)).cancel(true);
+        assertQueueState(sharedBuffer, FIRST, 0, 0, 4, 2, 4, 0);
+        sharedBuffer.get(SECOND, 4, sizeOfPages(10)).cancel(true);
+        assertQueueState(sharedBuffer, SECOND, 0, 0, 4, 2, 4, 0);
+
+        // once the slowest consumer catches up, all pages are dropped
+        sharedBuffer.get(QUEUE, 4, sizeOfPages(10)).cancel(true);
+        assertQueueState(sharedBuffer, QUEUE, 0, 0, 4, 0, 4, 0);
+    }
+
+    @Test
+    public void testGetBeforeCreateMultiplePartitions()
+            throws Exception
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, stateNotificationExecutor, sizeOfPages(10));
+
+        // get pages from buffers that don't exist yet
+        CompletableFuture<BufferResult> firstFuture = sharedBuffer.get(FIRST, 0, sizeOfPages(10));
+        CompletableFuture<BufferResult> secondFuture = sharedBuffer.get(SECOND, 0, sizeOfPages(10));
+        assertFalse(firstFuture.isDone());
+        assertFalse(secondFuture.isDone());
+
+        addPage(sharedBuffer, createPage(0), 0);
+        addPage(sharedBuffer, createPage(1), 1);
+        assertFalse(firstFuture.isDone());
+        assertFalse(secondFuture.isDone());
+
+        // creating one buffer only completes the reads of that buffer
+        OutputBuffers outputBuffers = INITIAL_EMPTY_OUTPUT_BUFFERS.withBuffer(FIRST, 0);
+        sharedBuffer.setOutputBuffers(outputBuffers);
+        assertBufferResultEquals(TYPES, getFuture(firstFuture, NO_WAIT), bufferResult(0, createPage(0)));
+        assertFalse(secondFuture.isDone());
+
+        // the remaining read is handed over to its buffer, and completes when it is created
+        sharedBuffer.setOutputBuffers(outputBuffers.withBuffer(SECOND, 1).withNoMoreBufferIds());
+        assertBufferResultEquals(TYPES, getFuture(secondFuture, NO_WAIT), bufferResult(0, createPage(1)));
+
+        // a read for a buffer that is not created before no more buffers is set is closed
+        assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, QUEUE, 0, sizeOfPages(10), NO_WAIT), emptyResults(0, true));
+    }
+
+    @Test
+    public void testDequeueAcrossPartitions()
+            throws Exception
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, stateNotificationExecutor, sizeOfPages(2));
+        sharedBuffer.setOutputBuffers(INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 1)
+                .withBuffer(QUEUE, 2)
+                .withNoMoreBufferIds());
+
+        // fill the buffer from the first partition
+        addPage(sharedBuffer, createPage(0), 0);
+        addPage(sharedBuffer, createPage(1), 0);
+
+        // the other partitions share the memory limit, so their pages are queued
+        ListenableFuture<?> secondEnqueuePage = enqueuePage(sharedBuffer, createPage(2), 1);
+        ListenableFuture<?> thirdEnqueuePage = enqueuePage(sharedBuffer, createPage(3), 2);
+        CompletableFuture<BufferResult> secondFuture = sharedBuffer.get(SECOND, 0, sizeOfPages(10));
+        CompletableFuture<BufferResult> thirdFuture = sharedBuffer.get(QUEUE, 0, sizeOfPages(10));
+        assertFalse(secondFuture.isDone());
+        assertFalse(thirdFuture.isDone());
+
+        // acknowledging the first partition frees space for both queued pages
+        assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, FIRST, 0, sizeOfPages(10), NO_WAIT), bufferResult(0, createPage(0), createPage(1)));
+        sharedBuffer.get(FIRST, 2, sizeOfPages(10)).cancel(true);
+        assertTrue(secondEnqueuePage.isDone());
+        assertTrue(thirdEnqueuePage.isDone());
+        assertQueueState(sharedBuffer, FIRST, 0, 0, 2, 0, 2, 0);
+        assertQueueState(sharedBuffer, SECOND, 1, 1, 0, 1, 1, 0);
+        assertQueueState(sharedBuffer, QUEUE, 2, 1, 0, 1, 1, 0);
+
+        // and the readers of those partitions are notified
+        assertBufferResultEquals(TYPES, getFuture(secondFuture, NO_WAIT), bufferResult(0, createPage(2)));
+        assertBufferResultEquals(TYPES, getFuture(thirdFuture, NO_WAIT), bufferResult(0, createPage(3)));
+    }
+
+    @Test
+    public void testPartitionBufferDropsPagesAfterNoMorePages()
+            throws Exception
+    {
+        AtomicBoolean pagesAllowed = new AtomicBoolean(true);
+        PartitionBuffer partitionBuffer = new PartitionBuffer(0, new SharedBufferMemoryManager(sizeOfPages(1).toBytes(), deltaMemory -> { }), pagesAllowed::get);
+
+        assertTrue(partitionBuffer.enqueuePage(createPage(0)).isDone());
+        ListenableFuture<?> future = partitionBuffer.enqueuePage(createPage(1));
+        assertFalse(future.isDone());
+        assertEquals(partitionBuffer.getQueuedPageCount(), 1);
+
+        // a queued page is not added to the buffer once pages are no longer allowed
+        pagesAllowed.set(false);
+        partitionBuffer.addConsumer(0);
+        partitionBuffer.acknowledge(0, 1);
+        partitionBuffer.advanceToConsumers();
+        assertFalse(partitionBuffer.dequeuePages());
+        assertTrue(future.isDone());
+        assertEquals(partitionBuffer.getQueuedPageCount(), 0);
+
+        // neither is a new page, even though the buffer has space
+        assertTrue(partitionBuffer.enqueuePage(createPage(2)).isDone());
+        assertEquals(partitionBuffer.getPageCount(), 1);
+        assertEquals(partitionBuffer.getBufferedPageCount(), 0);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testConcurrentEnqueueGetAndAbort()
+            throws Exception
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, stateNotificationExecutor, sizeOfPages(5));
+        sharedBuffer.setOutputBuffers(INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 1)
+                .withBuffer(QUEUE, 2)
+                .withNoMoreBufferIds());
+
+        ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-shared-buffer-%s"));
+        try {
+            AtomicLong pagesRead = new AtomicLong();
+            List<Future<?>> producers = new ArrayList<>();
+            List<Future<Integer>> consumers = new ArrayList<>();
+            for (int partition = 0; partition < 2; partition++) {
+                int producerPartition = partition;
+                producers.add(executor.submit(() -> {
+                    for (int i = 0; !sharedBuffer.getInfo().getState().isTerminal(); i++) {
+                        ListenableFuture<?> future = sharedBuffer.enqueue(producerPartition, createPage(i));
+                        future.get(10, TimeUnit.SECONDS);
+                        if (!sharedBuffer.getInfo().isCanAddPages()) {
+                            return null;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (TaskId outputId : ImmutableList.of(FIRST, SECOND)) {
+                consumers.add(executor.submit(() -> {
+                    long sequenceId = 0;
+                    while (true) {
+                        BufferResult result = sharedBuffer.get(outputId, sequenceId, sizeOfPages(3)).get(10, TimeUnit.SECONDS);
+                        assertEquals(result.getToken(), sequenceId);
+                        if (result.isBufferComplete()) {
+                            sharedBuffer.abort(outputId);
+                            return Ints.checkedCast(sequenceId);
+                        }
+                        // every page of the partition is read exactly once, in order
+                        for (Page page : result.getPages()) {
+                            assertEquals(BIGINT.getLong(page.getBlock(0), 0), sequenceId);
+                            sequenceId++;
+                        }
+                        pagesRead.addAndGet(result.getPages().size());
+                    }
+                }));
+            }
+
+            // a reader waiting on a partition without pages is freed by a concurrent abort
+            CompletableFuture<BufferResult> queueFuture = sharedBuffer.get(QUEUE, 0, sizeOfPages(1));
+            Future<?> abort = executor.submit(() -> sharedBuffer.abort(QUEUE));
+
+            while (pagesRead.get() < 1000) {
+                Thread.sleep(1);
+            }
+            sharedBuffer.setNoMorePages();
+
+            abort.get(10, TimeUnit.SECONDS);
+            assertBufferResultEquals(TYPES, getFuture(queueFuture, MAX_WAIT), emptyResults(0, true));
+            for (Future<?> producer : producers) {
+                producer.get(10, TimeUnit.SECONDS);
+            }
+
+            // no page is added after no more pages is set, so each consumer has read every page of its partition
+            int firstPagesRead = consumers.get(0).get(10, TimeUnit.SECONDS);
+            int secondPagesRead = consumers.get(1).get(10, TimeUnit.SECONDS);
+            assertEquals(firstPagesRead, getBufferInfo(sharedBuffer, FIRST).getPageBufferInfo().getPagesAdded());
+            assertEquals(secondPagesRead, getBufferInfo(sharedBuffer, SECOND).getPageBufferInfo().getPagesAdded());
+            assertFinished(sharedBuffer);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static ListenableFuture<?> enqueuePage(SharedBuffer sharedBuffer, Page page)
     {
         return enqueuePage(sharedBuffer, page, DEFAULT_PARTITION);
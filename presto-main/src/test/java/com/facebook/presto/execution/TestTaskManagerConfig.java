@@ -44,10 +44,12 @@ public class TestTaskManagerConfig
                 .setOperatorPreAllocatedMemory(new DataSize(16, Unit.MEGABYTE))
                 .setMaxPartialAggregationMemoryUsage(new DataSize(16, Unit.MEGABYTE))
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
+                .setSinkCompressionEnabled(false)
                 .setWriterCount(1)
                 .setTaskDefaultConcurrency(1)
                 .setHttpResponseThreads(100)
-                .setHttpTimeoutThreads(1));
+                .setHttpTimeoutThreads(1)
+                .setBinaryTransportEnabled(false));
     }
 
     @Test
@@ -66,10 +68,12 @@ public class TestTaskManagerConfig
                 .put("task.info.max-age", "22m")
                 .put("task.client.timeout", "10s")
                 .put("sink.max-buffer-size", "42MB")
+                .put("sink.compression-enabled", "true")
                 .put("task.writer-count", "3")
                 .put("task.default-concurrency", "7")
                 .put("task.http-response-threads", "4")
                 .put("task.http-timeout-threads", "10")
+                .put("task.binary-transport-enabled", "true")
                 .build();
 
         TaskManagerConfig expected = new TaskManagerConfig()
@@ -85,10 +89,12 @@ public class TestTaskManagerConfig
                 .setInfoMaxAge(new Duration(22, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE))
+                .setSinkCompressionEnabled(true)
                 .setWriterCount(3)
                 .setTaskDefaultConcurrency(7)
                 .setHttpResponseThreads(4)
-                .setHttpTimeoutThreads(10);
+                .setHttpTimeoutThreads(10)
+                .setBinaryTransportEnabled(true);
 
         assertFullMapping(properties, expected);
     }
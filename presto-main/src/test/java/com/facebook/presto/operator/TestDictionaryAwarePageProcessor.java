@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.operator.DictionaryAwarePageProcessor.DictionaryProjection;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.wrappedIntArray;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestDictionaryAwarePageProcessor
+{
+    private static final ConnectorSession SESSION = TEST_SESSION.toConnectorSession();
+
+    @Test
+    public void testProjectDictionary()
+            throws Exception
+    {
+        AtomicInteger evaluations = new AtomicInteger();
+        ProjectionFunction length = new LengthProjection(0, evaluations);
+
+        // select the rows with an even value in the second column
+        FilterFunction filter = new FilterFunction()
+        {
+            @Override
+            public boolean filter(int position, Block... blocks)
+            {
+                return BIGINT.getLong(blocks[1], position) % 2 == 0;
+            }
+
+            @Override
+            public boolean filter(RecordCursor cursor)
+            {
+                return cursor.getLong(1) % 2 == 0;
+            }
+        };
+
+        PageProcessor processor = new DictionaryAwarePageProcessor(
+                new GenericPageProcessor(filter, ImmutableList.of(singleColumn(VARCHAR, 0), length)),
+                ImmutableList.of(
+                        Optional.of(new DictionaryProjection(0, Optional.empty(), VARCHAR)),
+                        Optional.of(new DictionaryProjection(0, Optional.of(new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(length))), BIGINT))));
+
+        Block dictionary = createStringsBlock("a", "bb", "ccc");
+        Page page = new Page(new DictionaryBlock(8, dictionary, wrappedIntArray(2, 0, 1, 1, 0, 0, 2, 2)), createLongSequenceBlock(0, 8));
+        ProjectedDictionaryCache dictionaryCache = new ProjectedDictionaryCache();
+
+        Page output = processor.processColumnarDictionary(SESSION, page, dictionaryCache);
+        assertEquals(output.getPositionCount(), 4);
+        assertTrue(output.getBlock(0) instanceof DictionaryBlock);
+        assertSame(((DictionaryBlock) output.getBlock(0)).getDictionary(), dictionary);
+        assertTrue(output.getBlock(1) instanceof DictionaryBlock);
+        assertEquals(VARCHAR.getSlice(output.getBlock(0), 0).toStringUtf8(), "ccc");
+        assertEquals(VARCHAR.getSlice(output.getBlock(0), 1).toStringUtf8(), "bb");
+        assertEquals(BIGINT.getLong(output.getBlock(1), 0), 3);
+        assertEquals(BIGINT.getLong(output.getBlock(1), 1), 2);
+        assertEquals(BIGINT.getLong(output.getBlock(1), 2), 1);
+        assertEquals(BIGINT.getLong(output.getBlock(1), 3), 3);
+
+        // the projection is evaluated once per dictionary entry
+        assertEquals(evaluations.get(), 3);
+        assertTrue(dictionaryCache.getRetainedSizeInBytes() > 0);
+
+        // and not again for the next page with the same dictionary
+        page = new Page(new DictionaryBlock(4, dictionary, wrappedIntArray(1, 2, 0, 1)), createLongSequenceBlock(0, 4));
+        output = processor.processColumnarDictionary(SESSION, page, dictionaryCache);
+        assertEquals(output.getPositionCount(), 2);
+        assertEquals(BIGINT.getLong(output.getBlock(1), 0), 2);
+        assertEquals(BIGINT.getLong(output.getBlock(1), 1), 1);
+        assertEquals(evaluations.get(), 3);
+
+        // pages without dictionary are processed position by position
+        page = new Page(createStringsBlock("a", "bb"), createLongSequenceBlock(0, 2));
+        assertNull(processor.processColumnarDictionary(SESSION, page, dictionaryCache));
+    }
+
+    @Test
+    public void testProjectDictionaryFailure()
+            throws Exception
+    {
+        AtomicInteger evaluations = new AtomicInteger();
+        ProjectionFunction length = new LengthProjection(0, evaluations)
+        {
+            @Override
+            public void project(int position, Block[] blocks, BlockBuilder output)
+            {
+                if (blocks[0].getLength(position) == 0) {
+                    evaluations.incrementAndGet();
+                    throw new IllegalArgumentException("empty value");
+                }
+                super.project(position, blocks, output);
+            }
+        };
+
+        // select the rows with a value that is not empty
+        FilterFunction filter = new FilterFunction()
+        {
+            @Override
+            public boolean filter(int position, Block... blocks)
+            {
+                return blocks[0].getLength(position) > 0;
+            }
+
+            @Override
+            public boolean filter(RecordCursor cursor)
+            {
+                return cursor.getSlice(0).length() > 0;
+            }
+        };
+
+        PageProcessor processor = new DictionaryAwarePageProcessor(
+                new GenericPageProcessor(filter, ImmutableList.of(length)),
+                ImmutableList.of(Optional.of(new DictionaryProjection(0, Optional.of(new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(length))), BIGINT))));
+
+        Block dictionary = createStringsBlock("", "bb", "ccc");
+        Page page = new Page(new DictionaryBlock(6, dictionary, wrappedIntArray(2, 0, 1, 1, 2, 2)));
+        ProjectedDictionaryCache dictionaryCache = new ProjectedDictionaryCache();
+
+        // projecting the dictionary fails on the entry that is not selected, so the selected positions are projected
+        Page output = processor.processColumnarDictionary(SESSION, page, dictionaryCache);
+        assertEquals(output.getPositionCount(), 5);
+        assertEquals(BIGINT.getLong(output.getBlock(0), 0), 3);
+        assertEquals(BIGINT.getLong(output.getBlock(0), 1), 2);
+        assertEquals(evaluations.get(), 1 + 5);
+
+        // the failure is cached, so the dictionary is not projected again
+        output = processor.processColumnarDictionary(SESSION, page, dictionaryCache);
+        assertEquals(output.getPositionCount(), 5);
+        assertEquals(evaluations.get(), 1 + 5 + 5);
+    }
+
+    private static class LengthProjection
+            implements ProjectionFunction
+    {
+        private final int channel;
+        private final AtomicInteger evaluations;
+
+        public LengthProjection(int channel, AtomicInteger evaluations)
+        {
+            this.channel = channel;
+            this.evaluations = evaluations;
+        }
+
+        @Override
+        public Type getType()
+        {
+            return BIGINT;
+        }
+
+        @Override
+        public void project(int position, Block[] blocks, BlockBuilder output)
+        {
+            evaluations.incrementAndGet();
+            BIGINT.writeLong(output, blocks[channel].getLength(position));
+        }
+
+        @Override
+        public void project(RecordCursor cursor, BlockBuilder output)
+        {
+            BIGINT.writeLong(output, cursor.getSlice(channel).length());
+        }
+    }
+}
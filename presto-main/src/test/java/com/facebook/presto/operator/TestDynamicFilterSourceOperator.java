@@ -0,0 +1,137 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.operator.DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+@Test(singleThreaded = true)
+public class TestDynamicFilterSourceOperator
+{
+    private static final ColumnHandle COLUMN = new TestingColumnHandle("probe_key");
+
+    private ExecutorService executor;
+    private DriverContext driverContext;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+        driverContext = createTaskContext(executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testDistinctValues()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, BIGINT)
+                .row(3, 10)
+                .row(1, 11)
+                .row(null, 12)
+                .pageBreak()
+                .row(3, 13)
+                .build();
+
+        DynamicFilterSourceOperatorFactory operatorFactory = new DynamicFilterSourceOperatorFactory(0, ImmutableList.of(BIGINT, BIGINT), ImmutableMap.of(0, COLUMN), 10);
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        // pages are passed through unchanged
+        assertOperatorEquals(operator, input, input);
+
+        // the filter is only published once no more operators can be created
+        assertFalse(operatorFactory.getDynamicFilter().isDone());
+        operatorFactory.close();
+
+        assertEquals(getFutureValue(operatorFactory.getDynamicFilter()), TupleDomain.withColumnDomains(ImmutableMap.of(
+                COLUMN, Domain.create(ValueSet.of(BIGINT, 1L, 3L), false))));
+    }
+
+    @Test
+    public void testRangeAfterTooManyDistinctValues()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT)
+                .addSequencePage(100, 5)
+                .build();
+
+        DynamicFilterSourceOperatorFactory operatorFactory = new DynamicFilterSourceOperatorFactory(0, ImmutableList.of(BIGINT), ImmutableMap.of(0, COLUMN), 10);
+        Operator operator = operatorFactory.createOperator(driverContext);
+        assertOperatorEquals(operator, input, input);
+        operatorFactory.close();
+
+        assertEquals(getFutureValue(operatorFactory.getDynamicFilter()), TupleDomain.withColumnDomains(ImmutableMap.of(
+                COLUMN, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 5L, true, 104L, true)), false))));
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+            throws Exception
+    {
+        DynamicFilterSourceOperatorFactory operatorFactory = new DynamicFilterSourceOperatorFactory(0, ImmutableList.of(BIGINT), ImmutableMap.of(0, COLUMN), 10);
+        Operator operator = operatorFactory.createOperator(driverContext);
+        assertOperatorEquals(operator, ImmutableList.of(), ImmutableList.of());
+        operatorFactory.close();
+
+        assertEquals(getFutureValue(operatorFactory.getDynamicFilter()), TupleDomain.none());
+    }
+
+    @Test
+    public void testOperatorClosedBeforeFinishing()
+            throws Exception
+    {
+        DynamicFilterSourceOperatorFactory operatorFactory = new DynamicFilterSourceOperatorFactory(0, ImmutableList.of(BIGINT), ImmutableMap.of(0, COLUMN), 10);
+        Operator finished = operatorFactory.createOperator(driverContext);
+        Operator aborted = operatorFactory.createOperator(driverContext);
+        operatorFactory.close();
+
+        assertOperatorEquals(finished, rowPagesBuilder(BIGINT).row(1).build(), rowPagesBuilder(BIGINT).row(1).build());
+        assertFalse(operatorFactory.getDynamicFilter().isDone());
+
+        aborted.close();
+        assertEquals(getFutureValue(operatorFactory.getDynamicFilter()), TupleDomain.all());
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.block.BlockAssertions;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.type.TypeUtils;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.Test;
@@ -27,11 +28,13 @@ import java.util.Optional;
 
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.type.TypeUtils.getHashBlock;
+import static io.airlift.slice.Slices.wrappedIntArray;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -226,4 +229,39 @@ public class TestGroupByHash
             assertTrue(groupByHash.contains(i, new Page(valuesBlock, hashBlock)));
         }
     }
+
+    @Test
+    public void testDictionaryPages()
+            throws Exception
+    {
+        GroupByHash groupByHash = createGroupByHash(ImmutableList.of(VARCHAR), new int[] {0}, Optional.<Integer>empty(), Optional.empty(), 100);
+
+        Block dictionary = createStringsBlock("a", "b", null, "c");
+        Page page = new Page(new DictionaryBlock(6, dictionary, wrappedIntArray(1, 1, 2, 0, 2, 1)));
+        GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+        assertEquals(groupByHash.getGroupCount(), 3);
+        assertGroupIds(groupIds, 0, 0, 1, 2, 1, 0);
+
+        // a page with the same dictionary reuses the groups of the dictionary entries
+        page = new Page(new DictionaryBlock(3, dictionary, wrappedIntArray(3, 0, 2)));
+        groupIds = groupByHash.getGroupIds(page);
+        assertEquals(groupByHash.getGroupCount(), 4);
+        assertGroupIds(groupIds, 3, 2, 1);
+
+        // a different dictionary with the same values maps to the same groups
+        Block otherDictionary = createStringsBlock("c", "a", "d");
+        page = new Page(new DictionaryBlock(3, otherDictionary, wrappedIntArray(0, 1, 2)));
+        groupByHash.addPage(page);
+        groupIds = groupByHash.getGroupIds(page);
+        assertEquals(groupByHash.getGroupCount(), 5);
+        assertGroupIds(groupIds, 3, 2, 4);
+    }
+
+    private static void assertGroupIds(GroupByIdBlock groupIds, long... expectedGroupIds)
+    {
+        assertEquals(groupIds.getPositionCount(), expectedGroupIds.length);
+        for (int position = 0; position < expectedGroupIds.length; position++) {
+            assertEquals(groupIds.getGroupId(position), expectedGroupIds[position]);
+        }
+    }
 }
@@ -25,6 +25,7 @@ import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.PageBuilderStatus;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.TestingSpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
@@ -75,6 +76,7 @@ public class TestHashAggregationOperator
 {
     private ExecutorService executor;
     private DriverContext driverContext;
+    private TestingSpillerFactory spillerFactory;
 
     @BeforeMethod
     public void setUp()
@@ -84,6 +86,7 @@ public class TestHashAggregationOperator
         driverContext = createTaskContext(executor, TEST_SESSION)
                 .addPipelineContext(true, true)
                 .addDriverContext();
+        spillerFactory = new TestingSpillerFactory();
     }
 
     @DataProvider(name = "hashEnabledValues")
@@ -96,6 +99,7 @@ public class TestHashAggregationOperator
     public void tearDown()
     {
         executor.shutdownNow();
+        spillerFactory.close();
     }
 
     @Test(dataProvider = "hashEnabledValues")
@@ -148,6 +152,71 @@ public class TestHashAggregationOperator
         assertOperatorEqualsIgnoreOrder(operator, input, expected, hashEnabled, Optional.of(hashChannels.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testHashAggregationWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        MetadataManager metadata = MetadataManager.createTestMetadataManager();
+        InternalAggregationFunction maxVarcharColumn = metadata.getFunctionRegistry().getAggregateFunctionImplementation(new Signature("max", AGGREGATE, StandardTypes.VARCHAR, StandardTypes.VARCHAR));
+        List<Integer> hashChannels = Ints.asList(1);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, VARCHAR, VARCHAR, VARCHAR, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 100, 0, 100, 0)
+                .addSequencePage(10, 100, 0, 200, 0)
+                .addSequencePage(10, 100, 0, 300, 0)
+                .build();
+
+        // the memory limit is too small to hold any state, so every page is spilled
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(10, Unit.BYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                ImmutableList.of(VARCHAR),
+                hashChannels,
+                Step.SINGLE,
+                ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0),
+                        LONG_SUM.bind(ImmutableList.of(3), Optional.empty(), Optional.empty(), 1.0),
+                        LONG_AVERAGE.bind(ImmutableList.of(3), Optional.empty(), Optional.empty(), 1.0),
+                        maxVarcharColumn.bind(ImmutableList.of(2), Optional.empty(), Optional.empty(), 1.0)),
+                Optional.<Integer>empty(),
+                rowPagesBuilder.getHashChannel(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                Optional.of(spillerFactory));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, BIGINT, DOUBLE, VARCHAR)
+                .row("0", 3, 0, 0.0, "300")
+                .row("1", 3, 3, 1.0, "301")
+                .row("2", 3, 6, 2.0, "302")
+                .row("3", 3, 9, 3.0, "303")
+                .row("4", 3, 12, 4.0, "304")
+                .row("5", 3, 15, 5.0, "305")
+                .row("6", 3, 18, 6.0, "306")
+                .row("7", 3, 21, 7.0, "307")
+                .row("8", 3, 24, 8.0, "308")
+                .row("9", 3, 27, 9.0, "309")
+                .build();
+
+        try {
+            assertOperatorEqualsIgnoreOrder(operator, input, expected, hashEnabled, Optional.of(hashChannels.size()));
+
+            // the partial state of each page is spilled as a sorted run of the same spiller
+            OperatorStats stats = operator.getOperatorContext().getOperatorStats();
+            assertEquals(stats.getSpillCount(), 3);
+            assertEquals(spillerFactory.getSpillerCount(), 1);
+            assertEquals(spillerFactory.getSpilledRunCount(), 3);
+            assertTrue(stats.getSpilledDataSize().toBytes() > 0);
+        }
+        finally {
+            operator.close();
+        }
+        assertEquals(spillerFactory.getSpillFileCount(), 0);
+    }
+
     @Test(dataProvider = "hashEnabledValues", expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of 10B")
     public void testMemoryLimit(boolean hashEnabled)
     {
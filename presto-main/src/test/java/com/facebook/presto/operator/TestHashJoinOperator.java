@@ -19,28 +19,38 @@ import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFacto
 import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.TestingSpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingTaskContext;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.collect.Iterables.concat;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -48,6 +58,7 @@ public class TestHashJoinOperator
     private static final int PARTITION_COUNT = 4;
 
     private ExecutorService executor;
+    private TestingSpillerFactory spillerFactory;
 
     @BeforeClass
     public void setUp()
@@ -61,6 +72,18 @@ public class TestHashJoinOperator
         executor.shutdownNow();
     }
 
+    @BeforeMethod
+    public void createSpillerFactory()
+    {
+        spillerFactory = new TestingSpillerFactory();
+    }
+
+    @AfterMethod
+    public void closeSpillerFactory()
+    {
+        spillerFactory.close();
+    }
+
     @DataProvider(name = "hashEnabledValues")
     public static Object[][] hashEnabledValuesProvider()
     {
@@ -424,6 +447,177 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperator, probeInput, expected, true, getHashChannels(probePages, buildPages));
     }
 
+    @Test
+    public void testInnerJoinWithSpill()
+            throws Exception
+    {
+        // the build side does not fit in memory, but each of its partitions does
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, TEST_SESSION, new DataSize(1, MEGABYTE));
+
+        // build
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildTypes)
+                .addSequencePage(64_000, 0, 1_000_000);
+        DriverContext buildDriverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        ValuesOperatorFactory valuesOperatorFactory = new ValuesOperatorFactory(0, buildTypes, buildPages.build());
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildTypes, Ints.asList(0), Optional.empty(), 100, Optional.of(spillerFactory));
+        Operator hashBuilderOperator = hashBuilderOperatorFactory.createOperator(buildDriverContext);
+        Driver driver = new Driver(buildDriverContext, valuesOperatorFactory.createOperator(buildDriverContext), hashBuilderOperator);
+        while (!driver.isFinished()) {
+            driver.process();
+        }
+        LookupSourceSupplier lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
+
+        // the build rows are spread over all partitions, and every partition is spilled
+        assertEquals(spillerFactory.getSpillerCount(), HashBuilderOperator.SPILL_PARTITION_COUNT);
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        List<Page> probeInput = rowPagesBuilder(probeTypes)
+                .addSequencePage(64_000, 0, 2_000_000)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                lookupSourceSupplier,
+                probeTypes,
+                Ints.asList(0),
+                Optional.empty());
+        Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes));
+        for (int i = 0; i < 64_000; i++) {
+            expected.row(String.valueOf(i), 2_000_000L + i, String.valueOf(i), 1_000_000L + i);
+        }
+
+        try {
+            // spilled partitions are joined one at a time, so the output is not in probe order
+            assertOperatorEqualsIgnoreOrder(joinOperator, probeInput, expected.build());
+
+            // the probe rows of each spilled partition are spilled as well
+            OperatorStats buildStats = hashBuilderOperator.getOperatorContext().getOperatorStats();
+            OperatorStats probeStats = joinOperator.getOperatorContext().getOperatorStats();
+            assertEquals(spillerFactory.getSpillerCount(), 2 * HashBuilderOperator.SPILL_PARTITION_COUNT);
+            assertEquals(buildStats.getSpillCount() + probeStats.getSpillCount(), spillerFactory.getSpilledRunCount());
+            assertTrue(probeStats.getSpilledDataSize().toBytes() > 0);
+        }
+        finally {
+            joinOperator.close();
+            joinOperatorFactory.close();
+        }
+        assertEquals(spillerFactory.getSpillFileCount(), 0);
+    }
+
+    @Test
+    public void testInnerJoinWithParallelBuildSpill()
+            throws Exception
+    {
+        // the build side does not fit in memory, so the collector spills every partition
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, TEST_SESSION, new DataSize(1, MEGABYTE));
+
+        // build
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        RowPagesBuilder buildPages = rowPagesBuilder(buildTypes)
+                .addSequencePage(64_000, 0, 1_000_000);
+        ParallelHashBuilder parallelHashBuilder = new ParallelHashBuilder(buildTypes, Ints.asList(0), Optional.empty(), 100, PARTITION_COUNT, Optional.of(spillerFactory));
+
+        DriverContext collectDriverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        ValuesOperatorFactory valuesOperatorFactory = new ValuesOperatorFactory(0, buildTypes, buildPages.build());
+        Operator collectOperator = parallelHashBuilder.getCollectOperatorFactory(1).createOperator(collectDriverContext);
+        Driver driver = new Driver(collectDriverContext, valuesOperatorFactory.createOperator(collectDriverContext), collectOperator);
+        while (!driver.isFinished()) {
+            driver.process();
+        }
+
+        // the collector spills every partition of the build side
+        assertEquals(spillerFactory.getSpillerCount(), PARTITION_COUNT);
+        long buildSpillCount = collectOperator.getOperatorContext().getOperatorStats().getSpillCount();
+        assertEquals(buildSpillCount, spillerFactory.getSpilledRunCount());
+        assertTrue(buildSpillCount >= PARTITION_COUNT);
+
+        PipelineContext buildPipeline = taskContext.addPipelineContext(true, true);
+        OperatorFactory buildOperatorFactory = parallelHashBuilder.getBuildOperatorFactory();
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            DriverContext buildDriverContext = buildPipeline.addDriverContext();
+            Driver buildDriver = new Driver(buildDriverContext, buildOperatorFactory.createOperator(buildDriverContext));
+            while (!buildDriver.isFinished()) {
+                buildDriver.process();
+            }
+        }
+        LookupSourceSupplier lookupSourceSupplier = parallelHashBuilder.getLookupSourceSupplier();
+
+        // probe with two operators that share the spilled partitions
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        List<List<Page>> probeInputs = ImmutableList.of(
+                rowPagesBuilder(probeTypes).addSequencePage(32_000, 0, 2_000_000).build(),
+                rowPagesBuilder(probeTypes).addSequencePage(32_000, 32_000, 2_032_000).build());
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                lookupSourceSupplier,
+                probeTypes,
+                Ints.asList(0),
+                Optional.empty());
+        List<Operator> joinOperators = ImmutableList.of(
+                joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext()),
+                joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext()));
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes));
+        for (int i = 0; i < 64_000; i++) {
+            expected.row(String.valueOf(i), 2_000_000L + i, String.valueOf(i), 1_000_000L + i);
+        }
+
+        try {
+            ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
+            for (int i = 0; i < joinOperators.size(); i++) {
+                Operator joinOperator = joinOperators.get(i);
+                for (Page page : probeInputs.get(i)) {
+                    assertTrue(joinOperator.needsInput());
+                    joinOperator.addInput(page);
+                    while (!joinOperator.needsInput()) {
+                        Page output = joinOperator.getOutput();
+                        if (output != null) {
+                            outputPages.add(output);
+                        }
+                    }
+                }
+                joinOperator.finish();
+            }
+
+            // the operators join the shared partitions in lockstep
+            while (!joinOperators.stream().allMatch(Operator::isFinished)) {
+                assertTrue(joinOperators.stream().anyMatch(joinOperator -> !joinOperator.isFinished() && joinOperator.isBlocked().isDone()));
+                for (Operator joinOperator : joinOperators) {
+                    if (!joinOperator.isFinished() && joinOperator.isBlocked().isDone()) {
+                        Page output = joinOperator.getOutput();
+                        if (output != null) {
+                            outputPages.add(output);
+                        }
+                    }
+                }
+            }
+
+            MaterializedResult actual = toMaterializedResult(taskContext.getSession(), joinOperators.get(0).getTypes(), outputPages.build());
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+
+            // both probe operators spill their probe rows of the spilled partitions
+            long probeSpillCount = 0;
+            for (Operator joinOperator : joinOperators) {
+                long spillCount = joinOperator.getOperatorContext().getOperatorStats().getSpillCount();
+                assertTrue(spillCount > 0);
+                probeSpillCount += spillCount;
+            }
+            assertEquals(buildSpillCount + probeSpillCount, spillerFactory.getSpilledRunCount());
+        }
+        finally {
+            for (Operator joinOperator : joinOperators) {
+                joinOperator.close();
+            }
+            joinOperatorFactory.close();
+        }
+        assertEquals(spillerFactory.getSpillFileCount(), 0);
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of.*", dataProvider = "hashEnabledValues")
     public void testMemoryLimit(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
             throws Exception
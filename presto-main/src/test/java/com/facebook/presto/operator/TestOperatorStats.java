@@ -56,7 +56,11 @@ public class TestOperatorStats
             new DataSize(18, BYTE),
             new DataSize(19, BYTE),
             Optional.empty(),
-            "20");
+
+            new DataSize(20, BYTE),
+            21,
+
+            "22");
 
     public static final OperatorStats MERGEABLE = new OperatorStats(
             41,
@@ -86,7 +90,11 @@ public class TestOperatorStats
             new DataSize(18, BYTE),
             new DataSize(19, BYTE),
             Optional.empty(),
-            new LongMergeable(20));
+
+            new DataSize(20, BYTE),
+            21,
+
+            new LongMergeable(22));
 
     @Test
     public void testJson()
@@ -127,7 +135,9 @@ public class TestOperatorStats
 
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(18, BYTE));
         Assert.assertEquals(actual.getSystemMemoryReservation(), new DataSize(19, BYTE));
-        Assert.assertEquals(actual.getInfo(), "20");
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(20, BYTE));
+        Assert.assertEquals(actual.getSpillCount(), 21);
+        Assert.assertEquals(actual.getInfo(), "22");
     }
 
     @Test
@@ -160,6 +170,8 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
         Assert.assertEquals(actual.getSystemMemoryReservation(), new DataSize(3 * 19, BYTE));
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 20, BYTE));
+        Assert.assertEquals(actual.getSpillCount(), 3 * 21);
         Assert.assertEquals(actual.getInfo(), null);
     }
 
@@ -193,7 +205,9 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
         Assert.assertEquals(actual.getSystemMemoryReservation(), new DataSize(3 * 19, BYTE));
-        Assert.assertEquals(actual.getInfo(), new LongMergeable(20 * 3));
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 20, BYTE));
+        Assert.assertEquals(actual.getSpillCount(), 3 * 21);
+        Assert.assertEquals(actual.getInfo(), new LongMergeable(22 * 3));
     }
 
     private static class LongMergeable
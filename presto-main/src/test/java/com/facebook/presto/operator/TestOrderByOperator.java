@@ -14,8 +14,10 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spiller.TestingSpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
@@ -25,6 +27,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
@@ -39,13 +42,17 @@ import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestOrderByOperator
 {
     private ExecutorService executor;
     private DriverContext driverContext;
+    private TestingSpillerFactory spillerFactory;
 
     @BeforeMethod
     public void setUp()
@@ -54,12 +61,14 @@ public class TestOrderByOperator
         driverContext = createTaskContext(executor, TEST_SESSION)
                 .addPipelineContext(true, true)
                 .addDriverContext();
+        spillerFactory = new TestingSpillerFactory();
     }
 
     @AfterMethod
     public void tearDown()
     {
         executor.shutdownNow();
+        spillerFactory.close();
     }
 
     @Test
@@ -158,6 +167,53 @@ public class TestOrderByOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testSingleFieldKeyWithSpill()
+            throws Exception
+    {
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(VARCHAR, BIGINT);
+        for (int i = 0; i < 10; i++) {
+            rowPagesBuilder.addSequencePage(10_000, i * 10_000, i * 10_000);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        // the input is several times the memory limit
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(1, MEGABYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                ImmutableList.of(VARCHAR, BIGINT),
+                ImmutableList.of(1),
+                10,
+                ImmutableList.of(1),
+                ImmutableList.of(DESC_NULLS_LAST),
+                Optional.of(spillerFactory));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT);
+        for (int i = 99_999; i >= 0; i--) {
+            expected.row(i);
+        }
+
+        try {
+            assertOperatorEquals(operator, input, expected.build());
+
+            // each sorted run is spilled to the same spiller, and the output merges several runs
+            OperatorStats stats = operator.getOperatorContext().getOperatorStats();
+            assertEquals(spillerFactory.getSpillerCount(), 1);
+            assertEquals(stats.getSpillCount(), spillerFactory.getSpilledRunCount());
+            assertTrue(stats.getSpillCount() > 1);
+            assertTrue(stats.getSpilledDataSize().toBytes() > 0);
+        }
+        finally {
+            operator.close();
+        }
+        assertEquals(spillerFactory.getSpillFileCount(), 0);
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of 10B")
     public void testMemoryLimit()
             throws Exception
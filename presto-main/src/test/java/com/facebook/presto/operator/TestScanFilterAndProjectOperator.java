@@ -21,21 +21,30 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.LazyBlockLoader;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingSplit;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
 import org.testng.annotations.Test;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
 import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
@@ -118,6 +127,83 @@ public class TestScanFilterAndProjectOperator
         assertEquals(actual, expected);
     }
 
+    @Test
+    public void testFilterFirst()
+            throws Exception
+    {
+        Page input = SequencePageBuilder.createSequencePage(ImmutableList.of(BIGINT, BIGINT), 10_000, 0, 100_000);
+        AtomicInteger loadedPositions = new AtomicInteger();
+        Page lazyInput = new Page(lazyBlock(input.getBlock(0), loadedPositions), lazyBlock(input.getBlock(1), loadedPositions));
+        DriverContext driverContext = newDriverContext();
+
+        // select every tenth row
+        FilterFunction filterFunction = new FilterFunction()
+        {
+            @Override
+            public boolean filter(int position, Block... blocks)
+            {
+                return BIGINT.getLong(blocks[0], position) % 10 == 0;
+            }
+
+            @Override
+            public boolean filter(RecordCursor cursor)
+            {
+                return cursor.getLong(0) % 10 == 0;
+            }
+        };
+
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("0"),
+                new PageSourceProvider() {
+                    @Override
+                    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns)
+                    {
+                        return new FixedPageSource(ImmutableList.of(lazyInput));
+                    }
+                },
+                new GenericCursorProcessor(filterFunction, ImmutableList.of(singleColumn(BIGINT, 1))),
+                new GenericPageProcessor(filterFunction, ImmutableList.of(singleColumn(BIGINT, 1))),
+                Optional.of(new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 1)))),
+                ImmutableList.<ColumnHandle>of(),
+                ImmutableList.<Type>of(BIGINT),
+                Futures.immediateFuture(TupleDomain.all()));
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split("test", TestingSplit.createLocalSplit()));
+        operator.noMoreSplits();
+
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(driverContext.getSession(), BIGINT);
+        for (long value = 100_000; value < 110_000; value += 10) {
+            expected.row(value);
+        }
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.<Type>of(BIGINT), toPages(operator));
+
+        assertEquals(actual, expected.build());
+        // the filter column is loaded completely, the projected column only for the selected rows
+        assertEquals(loadedPositions.get(), 10_000 + 1_000);
+    }
+
+    private static LazyBlock lazyBlock(Block block, AtomicInteger loadedPositions)
+    {
+        return new LazyBlock(block.getPositionCount(), new LazyBlockLoader<LazyBlock>()
+        {
+            @Override
+            public void load(LazyBlock lazyBlock)
+            {
+                loadedPositions.addAndGet(block.getPositionCount());
+                lazyBlock.setBlock(block);
+            }
+
+            @Override
+            public Block loadPositions(LazyBlock lazyBlock, List<Integer> positions)
+            {
+                loadedPositions.addAndGet(positions.size());
+                return block.copyPositions(positions);
+            }
+        });
+    }
+
     public static List<Page> toPages(Operator operator)
     {
         ImmutableList.Builder<Page> outputPages = ImmutableList.builder();
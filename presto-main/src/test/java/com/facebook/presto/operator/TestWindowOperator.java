@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
 import com.facebook.presto.operator.window.FirstValueFunction;
 import com.facebook.presto.operator.window.FrameInfo;
@@ -26,6 +27,7 @@ import com.facebook.presto.operator.window.RowNumberFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.TestingSpillerFactory;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
@@ -55,7 +57,10 @@ import static com.facebook.presto.sql.tree.WindowFrame.Type.RANGE;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -86,6 +91,7 @@ public class TestWindowOperator
 
     private ExecutorService executor;
     private DriverContext driverContext;
+    private TestingSpillerFactory spillerFactory;
 
     @BeforeMethod
     public void setUp()
@@ -94,12 +100,14 @@ public class TestWindowOperator
         driverContext = createTaskContext(executor, TEST_SESSION)
                 .addPipelineContext(true, true)
                 .addDriverContext();
+        spillerFactory = new TestingSpillerFactory();
     }
 
     @AfterMethod
     public void tearDown()
     {
         executor.shutdownNow();
+        spillerFactory.close();
     }
 
     @Test
@@ -239,6 +247,61 @@ public class TestWindowOperator
         toPages(operator, input);
     }
 
+    @Test
+    public void testRowNumberPartitionWithSpill()
+            throws Exception
+    {
+        // every page holds one row of each of the 10,000 partitions
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(BIGINT, BIGINT);
+        for (int i = 0; i < 10; i++) {
+            rowPagesBuilder.addSequencePage(10_000, 0, i * 10_000);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        // the partitions do not fit in the memory limit, so the input is sorted in several runs
+        DriverContext driverContext = createTaskContext(executor, TEST_SESSION, new DataSize(1, MEGABYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                0,
+                ImmutableList.of(BIGINT, BIGINT),
+                Ints.asList(0, 1),
+                ROW_NUMBER,
+                Ints.asList(0),
+                Ints.asList(),
+                Ints.asList(1),
+                ImmutableList.of(SortOrder.DESC_NULLS_LAST),
+                0,
+                new FrameInfo(RANGE, UNBOUNDED_PRECEDING, Optional.empty(), UNBOUNDED_FOLLOWING, Optional.empty()),
+                10,
+                Optional.of(spillerFactory));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (int partition = 0; partition < 10_000; partition++) {
+            for (int i = 0; i < 10; i++) {
+                expected.row(partition, partition + i * 10_000, 10 - i);
+            }
+        }
+
+        try {
+            assertOperatorEqualsIgnoreOrder(operator, input, expected.build());
+
+            // the rows of each partition are spread over the runs, so the runs are merged to number the rows
+            OperatorStats stats = operator.getOperatorContext().getOperatorStats();
+            assertEquals(spillerFactory.getSpillerCount(), 1);
+            assertEquals(stats.getSpillCount(), spillerFactory.getSpilledRunCount());
+            assertTrue(stats.getSpillCount() > 1);
+            assertTrue(stats.getSpilledDataSize().toBytes() > 0);
+        }
+        finally {
+            operator.close();
+        }
+        assertEquals(spillerFactory.getSpillFileCount(), 0);
+    }
+
     @Test
     public void testFirstValuePartition()
             throws Exception
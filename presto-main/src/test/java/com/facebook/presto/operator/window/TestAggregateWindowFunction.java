@@ -301,6 +301,55 @@ public class TestAggregateWindowFunction
                         .build());
     }
 
+    @Test
+    public void testRollingWithNulls()
+    {
+        assertWindowQueryWithNulls("sum(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey " +
+                        "ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 8)
+                        .row(5, "F", 8)
+                        .row(null, "F", 5)
+                        .row(null, "F", null)
+                        .row(34, "O", 34)
+                        .row(null, "O", 34)
+                        .row(1, null, 8)
+                        .row(7, null, 8)
+                        .row(null, null, 7)
+                        .row(null, null, null)
+                        .build());
+
+        assertWindowQueryWithNulls("count(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey " +
+                        "ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 2)
+                        .row(5, "F", 2)
+                        .row(null, "F", 1)
+                        .row(null, "F", 0)
+                        .row(34, "O", 1)
+                        .row(null, "O", 1)
+                        .row(1, null, 2)
+                        .row(7, null, 2)
+                        .row(null, null, 1)
+                        .row(null, null, 0)
+                        .build());
+
+        assertWindowQueryWithNulls("max(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey " +
+                        "ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 5)
+                        .row(5, "F", 5)
+                        .row(null, "F", 5)
+                        .row(null, "F", null)
+                        .row(34, "O", 34)
+                        .row(null, "O", 34)
+                        .row(1, null, 7)
+                        .row(7, null, 7)
+                        .row(null, null, 7)
+                        .row(null, null, null)
+                        .build());
+    }
+
     @Test
     public void testSumCurrentRow()
             throws Exception
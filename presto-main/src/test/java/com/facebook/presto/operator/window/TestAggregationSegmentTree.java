@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.metadata.FunctionKind.AGGREGATE;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.operator.aggregation.LongSumAggregation.LONG_SUM;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestAggregationSegmentTree
+{
+    private static final int POSITIONS = 1000;
+
+    private final MetadataManager metadata = createTestMetadataManager();
+
+    @Test
+    public void testMax()
+    {
+        InternalAggregationFunction max = metadata.getFunctionRegistry().getAggregateFunctionImplementation(new Signature("max", AGGREGATE, StandardTypes.BIGINT, StandardTypes.BIGINT));
+        Long[] values = createValues();
+        AggregationSegmentTree tree = createTree(max, BIGINT, values).get();
+
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            int start = random.nextInt(POSITIONS);
+            int end = start + random.nextInt(POSITIONS - start);
+
+            Long expected = null;
+            for (int position = start; position <= end; position++) {
+                if (values[position] != null && (expected == null || values[position] > expected)) {
+                    expected = values[position];
+                }
+            }
+            assertEquals(evaluate(tree, start, end), expected);
+        }
+    }
+
+    @Test
+    public void testMaxVarchar()
+    {
+        InternalAggregationFunction max = metadata.getFunctionRegistry().getAggregateFunctionImplementation(new Signature("max", AGGREGATE, StandardTypes.VARCHAR, StandardTypes.VARCHAR));
+
+        // every other value is much longer, so each parent is as large as both of its children, but the states do not grow
+        String[] values = new String[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            values[i] = i % 2 == 0 ? "a" : Strings.repeat("z", 100 + i % 7) + i;
+        }
+        AggregationSegmentTree tree = createTree(max, VARCHAR, values).get();
+
+        Random random = new Random(2);
+        for (int i = 0; i < 1000; i++) {
+            int start = random.nextInt(POSITIONS);
+            int end = start + random.nextInt(POSITIONS - start);
+
+            String expected = null;
+            for (int position = start; position <= end; position++) {
+                if (expected == null || values[position].compareTo(expected) > 0) {
+                    expected = values[position];
+                }
+            }
+
+            BlockBuilder output = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1);
+            tree.evaluateFinal(start, end, output);
+            assertEquals(VARCHAR.getSlice(output.build(), 0).toStringUtf8(), expected);
+        }
+    }
+
+    @Test
+    public void testSum()
+    {
+        Long[] values = createValues();
+        AggregationSegmentTree tree = createTree(LONG_SUM, BIGINT, values).get();
+
+        // the tree holds about two states per row
+        assertTrue(tree.getRetainedSizeInBytes() >= 2 * POSITIONS * Long.BYTES);
+
+        for (int start = 0; start < POSITIONS; start += 7) {
+            Long expected = null;
+            for (int end = start; end < POSITIONS; end++) {
+                if (values[end] != null) {
+                    expected = (expected == null ? 0 : expected) + values[end];
+                }
+                assertEquals(evaluate(tree, start, end), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testGrowingState()
+    {
+        InternalAggregationFunction arrayAgg = metadata.getFunctionRegistry().getAggregateFunctionImplementation(new Signature("array_agg", AGGREGATE, "array<bigint>", StandardTypes.BIGINT));
+        assertFalse(createTree(arrayAgg, BIGINT, createValues()).isPresent());
+    }
+
+    @Test
+    public void testSingleRow()
+    {
+        Optional<AggregationSegmentTree> tree = createTree(LONG_SUM, BIGINT, new Long[] {42L});
+        assertTrue(tree.isPresent());
+        assertEquals(evaluate(tree.get(), 0, 0), (Long) 42L);
+    }
+
+    private static Long[] createValues()
+    {
+        Random random = new Random(0);
+        Long[] values = new Long[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            values[i] = random.nextInt(10) == 0 ? null : (long) random.nextInt(1_000_000);
+        }
+        return values;
+    }
+
+    private static Optional<AggregationSegmentTree> createTree(InternalAggregationFunction function, Type type, Object[] values)
+    {
+        PagesIndex pagesIndex = new PagesIndex(ImmutableList.of(type), values.length);
+        RowPagesBuilder pages = rowPagesBuilder(type);
+        for (Object value : values) {
+            pages.row(value);
+        }
+        pages.build().forEach(pagesIndex::addPage);
+
+        return AggregationSegmentTree.create(
+                function.bind(ImmutableList.of(0), Optional.empty(), Optional.empty(), 1.0),
+                function.getParameterTypes(),
+                function.getIntermediateType(),
+                new WindowIndex(pagesIndex, 0, values.length),
+                new int[] {0});
+    }
+
+    private static Long evaluate(AggregationSegmentTree tree, int start, int end)
+    {
+        BlockBuilder output = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1);
+        tree.evaluateFinal(start, end, output);
+        Block block = output.build();
+        return block.isNull(0) ? null : BIGINT.getLong(block, 0);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.codec;
+
+import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.execution.TaskId;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE_TYPE;
+import static com.facebook.presto.server.codec.JsonCodecWrapper.wrapJsonCodec;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSmileCodec
+{
+    private static final OutputBuffers OUTPUT_BUFFERS = INITIAL_EMPTY_OUTPUT_BUFFERS
+            .withBuffer(new TaskId("query", "stage", "0"), 0)
+            .withBuffer(new TaskId("query", "stage", "1"), 1)
+            .withNoMoreBufferIds();
+
+    @Test
+    public void testRoundTrip()
+    {
+        Codec<OutputBuffers> codec = new SmileCodecFactory(new ObjectMapperProvider().get()).smileCodec(OutputBuffers.class);
+        assertEquals(codec.getMediaType(), JACKSON_SMILE_TYPE);
+        assertEquals(codec.fromBytes(codec.toBytes(OUTPUT_BUFFERS)), OUTPUT_BUFFERS);
+    }
+
+    @Test
+    public void testSmallerThanJson()
+    {
+        Codec<OutputBuffers> smileCodec = new SmileCodecFactory(new ObjectMapperProvider().get()).smileCodec(OutputBuffers.class);
+        JsonCodec<OutputBuffers> jsonCodec = jsonCodec(OutputBuffers.class);
+        Codec<OutputBuffers> wrappedJsonCodec = wrapJsonCodec(jsonCodec);
+
+        byte[] json = wrappedJsonCodec.toBytes(OUTPUT_BUFFERS);
+        assertEquals(wrappedJsonCodec.fromBytes(json), OUTPUT_BUFFERS);
+        assertEquals(json, jsonCodec.toJsonBytes(OUTPUT_BUFFERS));
+        assertTrue(smileCodec.toBytes(OUTPUT_BUFFERS).length < json.length);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidInput()
+    {
+        Codec<OutputBuffers> codec = new SmileCodecFactory(new ObjectMapperProvider().get()).smileCodec(OutputBuffers.class);
+        codec.fromBytes(new byte[] {1, 2, 3});
+    }
+}
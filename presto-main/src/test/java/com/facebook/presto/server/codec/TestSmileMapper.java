@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.codec;
+
+import com.facebook.presto.OutputBuffers;
+import io.airlift.json.ObjectMapperProvider;
+import org.testng.annotations.Test;
+
+import javax.ws.rs.core.MediaType;
+
+import java.lang.annotation.Annotation;
+
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSmileMapper
+{
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Test
+    public void testOnlyExplicitSmileMediaType()
+    {
+        SmileMapper mapper = new SmileMapper(new ObjectMapperProvider().get());
+
+        assertTrue(mapper.isWriteable(OutputBuffers.class, OutputBuffers.class, NO_ANNOTATIONS, MediaType.valueOf(JACKSON_SMILE)));
+        assertTrue(mapper.isReadable(OutputBuffers.class, OutputBuffers.class, NO_ANNOTATIONS, MediaType.valueOf(JACKSON_SMILE)));
+
+        // clients that accept anything get JSON
+        assertFalse(mapper.isWriteable(OutputBuffers.class, OutputBuffers.class, NO_ANNOTATIONS, MediaType.WILDCARD_TYPE));
+        assertFalse(mapper.isWriteable(OutputBuffers.class, OutputBuffers.class, NO_ANNOTATIONS, MediaType.valueOf("application/*")));
+        assertFalse(mapper.isWriteable(OutputBuffers.class, OutputBuffers.class, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE));
+        assertFalse(mapper.isReadable(OutputBuffers.class, OutputBuffers.class, NO_ANNOTATIONS, MediaType.WILDCARD_TYPE));
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spiller;
+
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static io.airlift.testing.FileUtils.deleteRecursively;
+
+/**
+ * Spills to a temporary directory, which is deleted on close, and counts
+ * the spillers created and the runs spilled through it.
+ */
+public class TestingSpillerFactory
+        implements SpillerFactory, Closeable
+{
+    private final Path spillPath;
+    private final SpillerFactory delegate;
+    private final AtomicInteger spillerCount = new AtomicInteger();
+    private final AtomicInteger spilledRunCount = new AtomicInteger();
+
+    public TestingSpillerFactory()
+    {
+        try {
+            spillPath = Files.createTempDirectory("spill");
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        delegate = new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), spillPath);
+    }
+
+    @Override
+    public Spiller create(List<Type> types)
+    {
+        spillerCount.incrementAndGet();
+        Spiller spiller = delegate.create(types);
+        return new Spiller()
+        {
+            @Override
+            public long spill(Iterator<Page> pageIterator)
+            {
+                spilledRunCount.incrementAndGet();
+                return spiller.spill(pageIterator);
+            }
+
+            @Override
+            public List<Iterator<Page>> getSpills()
+            {
+                return spiller.getSpills();
+            }
+
+            @Override
+            public void close()
+            {
+                spiller.close();
+            }
+        };
+    }
+
+    public int getSpillerCount()
+    {
+        return spillerCount.get();
+    }
+
+    public int getSpilledRunCount()
+    {
+        return spilledRunCount.get();
+    }
+
+    /**
+     * Returns the number of spill files that have not been removed.
+     */
+    public long getSpillFileCount()
+    {
+        try (Stream<Path> files = Files.list(spillPath)) {
+            return files.count();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        deleteRecursively(spillPath.toFile());
+    }
+}
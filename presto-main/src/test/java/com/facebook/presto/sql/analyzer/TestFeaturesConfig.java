@@ -15,13 +15,17 @@ package com.facebook.presto.sql.analyzer;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
+import java.nio.file.Paths;
 import java.util.Map;
 
 import static io.airlift.configuration.testing.ConfigAssertions.assertDeprecatedEquivalence;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestFeaturesConfig
 {
@@ -32,11 +36,19 @@ public class TestFeaturesConfig
                 .setExperimentalSyntaxEnabled(false)
                 .setDistributedIndexJoinsEnabled(false)
                 .setDistributedJoinsEnabled(true)
+                .setAutomaticJoinDistribution(false)
+                .setJoinMaxBroadcastTableSize(new DataSize(100, MEGABYTE))
                 .setRedistributeWrites(true)
                 .setOptimizeMetadataQueries(false)
                 .setOptimizeHashGeneration(true)
                 .setOptimizeSingleDistinct(true)
-                .setIntermediateAggregationsEnabled(false));
+                .setReorderJoins(false)
+                .setIntermediateAggregationsEnabled(false)
+                .setSpillEnabled(false)
+                .setDynamicFilteringEnabled(false)
+                .setFilterFirstScanEnabled(false)
+                .setDictionaryProcessingEnabled(false)
+                .setSpillerSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString()));
     }
 
     @Test
@@ -46,32 +58,56 @@ public class TestFeaturesConfig
                 .put("analyzer.experimental-syntax-enabled", "true")
                 .put("distributed-index-joins-enabled", "true")
                 .put("distributed-joins-enabled", "false")
+                .put("optimizer.automatic-join-distribution", "true")
+                .put("join-max-broadcast-table-size", "1GB")
                 .put("redistribute-writes", "false")
                 .put("optimizer.optimize-metadata-queries", "true")
                 .put("optimizer.optimize-hash-generation", "false")
                 .put("optimizer.optimize-single-distinct", "false")
+                .put("optimizer.reorder-joins", "true")
                 .put("optimizer.use-intermediate-aggregations", "true")
+                .put("experimental.spill-enabled", "true")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("experimental.filter-first-scan-enabled", "true")
+                .put("experimental.dictionary-processing-enabled", "true")
+                .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental-syntax-enabled", "true")
                 .put("distributed-index-joins-enabled", "true")
                 .put("distributed-joins-enabled", "false")
+                .put("optimizer.automatic-join-distribution", "true")
+                .put("join-max-broadcast-table-size", "1GB")
                 .put("redistribute-writes", "false")
                 .put("optimizer.optimize-metadata-queries", "true")
                 .put("optimizer.optimize-hash-generation", "false")
                 .put("optimizer.optimize-single-distinct", "false")
+                .put("optimizer.reorder-joins", "true")
                 .put("optimizer.use-intermediate-aggregations", "true")
+                .put("experimental.spill-enabled", "true")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("experimental.filter-first-scan-enabled", "true")
+                .put("experimental.dictionary-processing-enabled", "true")
+                .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
                 .setExperimentalSyntaxEnabled(true)
                 .setDistributedIndexJoinsEnabled(true)
                 .setDistributedJoinsEnabled(false)
+                .setAutomaticJoinDistribution(true)
+                .setJoinMaxBroadcastTableSize(new DataSize(1, GIGABYTE))
                 .setRedistributeWrites(false)
                 .setOptimizeMetadataQueries(true)
                 .setOptimizeHashGeneration(false)
                 .setOptimizeSingleDistinct(false)
-                .setIntermediateAggregationsEnabled(true);
+                .setReorderJoins(true)
+                .setIntermediateAggregationsEnabled(true)
+                .setSpillEnabled(true)
+                .setDynamicFilteringEnabled(true)
+                .setFilterFirstScanEnabled(true)
+                .setDictionaryProcessingEnabled(true)
+                .setSpillerSpillPath("/tmp/custom/spill/path");
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
@@ -155,6 +155,20 @@ public class BenchmarkPageProcessor
             return position;
         }
 
+        @Override
+        public int filterPositions(ConnectorSession session, Page page, int[] selectedPositions)
+        {
+            Block discountBlock = page.getBlock(DISCOUNT);
+            int selectedCount = 0;
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                if (filter(position, discountBlock, page.getBlock(SHIP_DATE), page.getBlock(QUANTITY))) {
+                    selectedPositions[selectedCount] = position;
+                    selectedCount++;
+                }
+            }
+            return selectedCount;
+        }
+
         private static void project(int position, PageBuilder pageBuilder, Block extendedPriceBlock, Block discountBlock)
         {
             pageBuilder.declarePosition();
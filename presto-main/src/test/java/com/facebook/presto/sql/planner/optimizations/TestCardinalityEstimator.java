@@ -0,0 +1,253 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.QualifiedObjectName;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.optimizations.CardinalityEstimator.Estimate;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.tree.ComparisonExpression.Type.EQUAL;
+import static com.facebook.presto.sql.tree.ComparisonExpression.Type.GREATER_THAN;
+import static com.facebook.presto.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestCardinalityEstimator
+{
+    private static final double EPSILON = 0.000_001;
+
+    private final LocalQueryRunner runner;
+    private final Metadata metadata;
+    private final CardinalityEstimator estimator;
+    private final PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+
+    public TestCardinalityEstimator()
+    {
+        runner = new LocalQueryRunner(TEST_SESSION);
+        runner.createCatalog(TEST_SESSION.getCatalog().get(), new TpchConnectorFactory(runner.getNodeManager(), 1), ImmutableMap.<String, String>of());
+        metadata = runner.getMetadata();
+        estimator = new CardinalityEstimator(metadata);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void destroy()
+    {
+        runner.close();
+    }
+
+    @Test
+    public void testTpchTableStatistics()
+    {
+        // the tiny schema has a scale factor of 0.01
+        TableHandle lineitem = getTableHandle("lineitem");
+        Map<String, ColumnHandle> columns = metadata.getColumnHandles(TEST_SESSION, lineitem);
+        TableStatistics statistics = metadata.getTableStatistics(TEST_SESSION, lineitem, Optional.empty());
+        assertEquals(statistics.getRowCount(), OptionalLong.of(60_000));
+
+        // key columns have as many distinct values as the table they reference has rows
+        ColumnStatistics orderKey = statistics.getColumnStatistics(columns.get("orderkey"));
+        assertEquals(orderKey.getDistinctValuesCount(), OptionalLong.of(15_000));
+        assertEquals(orderKey.getNullsFraction(), OptionalDouble.of(0));
+        assertEquals(statistics.getColumnStatistics(columns.get("suppkey")).getDistinctValuesCount(), OptionalLong.of(100));
+        assertFalse(statistics.getColumnStatistics(columns.get("quantity")).getDistinctValuesCount().isPresent());
+
+        // nation does not grow with the scale factor
+        assertEquals(metadata.getTableStatistics(TEST_SESSION, getTableHandle("nation"), Optional.empty()).getRowCount(), OptionalLong.of(25));
+    }
+
+    @Test
+    public void testTableScan()
+    {
+        Estimate estimate = estimate(tableScan("orders", "orderkey", "custkey", "totalprice"));
+        assertEquals(estimate.getRowCount(), 15_000.0);
+        assertEquals(estimate.getDistinctValues(symbol("orders", "orderkey")), OptionalDouble.of(15_000));
+        assertEquals(estimate.getDistinctValues(symbol("orders", "custkey")), OptionalDouble.of(1_500));
+        assertEquals(estimate.getDistinctValues(symbol("orders", "totalprice")), OptionalDouble.empty());
+    }
+
+    @Test
+    public void testFilter()
+    {
+        TableScanNode orders = tableScan("orders", "custkey", "totalprice");
+
+        // an equality on a column with statistics selects one of its distinct values
+        Estimate estimate = estimate(filter(orders, new ComparisonExpression(EQUAL, symbol("orders", "custkey").toQualifiedNameReference(), new LongLiteral("42"))));
+        assertEquals(estimate.getRowCount(), 10.0, EPSILON);
+        assertEquals(estimate.getDistinctValues(symbol("orders", "custkey")), OptionalDouble.of(1));
+
+        // without statistics the default selectivities are used
+        estimate = estimate(filter(orders, new ComparisonExpression(EQUAL, symbol("orders", "totalprice").toQualifiedNameReference(), new LongLiteral("42"))));
+        assertEquals(estimate.getRowCount(), 1_500.0, EPSILON);
+        estimate = estimate(filter(orders, new ComparisonExpression(GREATER_THAN, symbol("orders", "totalprice").toQualifiedNameReference(), new LongLiteral("42"))));
+        assertEquals(estimate.getRowCount(), 4_950.0, EPSILON);
+
+        // a comparison of two columns is not a literal comparison
+        estimate = estimate(filter(orders, new ComparisonExpression(EQUAL, symbol("orders", "custkey").toQualifiedNameReference(), symbol("orders", "totalprice").toQualifiedNameReference())));
+        assertEquals(estimate.getRowCount(), 7_500.0, EPSILON);
+    }
+
+    @Test
+    public void testAggregationAndLimit()
+    {
+        TableScanNode orders = tableScan("orders", "custkey", "totalprice");
+
+        assertEquals(estimate(aggregation(orders, symbol("orders", "custkey"))).getRowCount(), 1_500.0);
+        // grouping on a column without statistics is assumed not to reduce the input
+        assertEquals(estimate(aggregation(orders, symbol("orders", "totalprice"))).getRowCount(), 15_000.0);
+        assertEquals(estimate(aggregation(orders)).getRowCount(), 1.0);
+
+        assertEquals(estimate(new LimitNode(idAllocator.getNextId(), orders, 10)).getRowCount(), 10.0);
+        assertEquals(estimate(new LimitNode(idAllocator.getNextId(), orders, 100_000)).getRowCount(), 15_000.0);
+    }
+
+    @Test
+    public void testJoin()
+    {
+        TableScanNode orders = tableScan("orders", "orderkey", "custkey");
+        TableScanNode customer = tableScan("customer", "custkey", "nationkey");
+
+        // every order matches a single customer
+        Estimate estimate = estimate(join(JoinNode.Type.INNER, orders, customer, symbol("orders", "custkey"), symbol("customer", "custkey")));
+        assertEquals(estimate.getRowCount(), 15_000.0, EPSILON);
+        assertEquals(estimate.getDistinctValues(symbol("customer", "nationkey")), OptionalDouble.of(25));
+
+        // a single customer matches ten orders, but an outer join produces at least the rows of its outer side
+        PlanNode filteredCustomer = filter(customer, new ComparisonExpression(EQUAL, symbol("customer", "custkey").toQualifiedNameReference(), new LongLiteral("42")));
+        estimate = estimate(join(JoinNode.Type.INNER, orders, filteredCustomer, symbol("orders", "custkey"), symbol("customer", "custkey")));
+        assertEquals(estimate.getRowCount(), 10.0, EPSILON);
+        estimate = estimate(join(JoinNode.Type.LEFT, orders, filteredCustomer, symbol("orders", "custkey"), symbol("customer", "custkey")));
+        assertEquals(estimate.getRowCount(), 15_000.0, EPSILON);
+    }
+
+    @Test
+    public void testDistinctValuesCappedByRowCount()
+    {
+        Estimate estimate = new Estimate(10, ImmutableMap.of(new Symbol("a"), 100.0, new Symbol("b"), 5.0));
+        assertEquals(estimate.getDistinctValues(new Symbol("a")), OptionalDouble.of(10));
+        assertEquals(estimate.getDistinctValues(new Symbol("b")), OptionalDouble.of(5));
+        assertEquals(estimate.getDistinctValues(new Symbol("c")), OptionalDouble.empty());
+    }
+
+    @Test
+    public void testUnknown()
+    {
+        ValuesNode values = new ValuesNode(idAllocator.getNextId(), ImmutableList.of(new Symbol("a")), ImmutableList.of());
+        assertFalse(estimator.estimate(values, TEST_SESSION).isPresent());
+
+        // a join with an input that cannot be estimated cannot be estimated either
+        TableScanNode orders = tableScan("orders", "custkey");
+        assertFalse(estimator.estimate(join(JoinNode.Type.INNER, orders, values, symbol("orders", "custkey"), new Symbol("a")), TEST_SESSION).isPresent());
+    }
+
+    @Test
+    public void testOutputSize()
+    {
+        TableScanNode orders = tableScan("orders", "custkey", "orderstatus");
+        Map<Symbol, Type> types = ImmutableMap.of(symbol("orders", "custkey"), BIGINT, symbol("orders", "orderstatus"), VARCHAR);
+
+        // a bigint takes 8 bytes and a varchar is assumed to take 32
+        assertEquals(estimator.estimateOutputSizeInBytes(orders, TEST_SESSION, types), OptionalDouble.of(15_000 * (8 + 32)));
+        assertFalse(estimator.estimateOutputSizeInBytes(new ValuesNode(idAllocator.getNextId(), ImmutableList.of(), ImmutableList.of()), TEST_SESSION, types).isPresent());
+    }
+
+    private Estimate estimate(PlanNode node)
+    {
+        Optional<Estimate> estimate = estimator.estimate(node, TEST_SESSION);
+        assertTrue(estimate.isPresent(), "no estimate for " + node);
+        return estimate.get();
+    }
+
+    private TableHandle getTableHandle(String tableName)
+    {
+        return metadata.getTableHandle(TEST_SESSION, new QualifiedObjectName(TEST_SESSION.getCatalog().get(), TINY_SCHEMA_NAME, tableName)).get();
+    }
+
+    private TableScanNode tableScan(String tableName, String... columnNames)
+    {
+        TableHandle table = getTableHandle(tableName);
+        Map<String, ColumnHandle> columns = metadata.getColumnHandles(TEST_SESSION, table);
+
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (String columnName : columnNames) {
+            assignments.put(symbol(tableName, columnName), columns.get(columnName));
+        }
+        Map<Symbol, ColumnHandle> assignmentMap = assignments.build();
+        return new TableScanNode(idAllocator.getNextId(), table, ImmutableList.copyOf(assignmentMap.keySet()), assignmentMap, Optional.empty(), TupleDomain.all(), null);
+    }
+
+    private FilterNode filter(PlanNode source, Expression predicate)
+    {
+        return new FilterNode(idAllocator.getNextId(), source, predicate);
+    }
+
+    private AggregationNode aggregation(PlanNode source, Symbol... groupBy)
+    {
+        return new AggregationNode(
+                idAllocator.getNextId(),
+                source,
+                ImmutableList.copyOf(groupBy),
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                SINGLE,
+                Optional.empty(),
+                1.0,
+                Optional.empty());
+    }
+
+    private JoinNode join(JoinNode.Type type, PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), type, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)), Optional.empty(), Optional.empty());
+    }
+
+    private static Symbol symbol(String tableName, String columnName)
+    {
+        return new Symbol(tableName + "_" + columnName);
+    }
+}
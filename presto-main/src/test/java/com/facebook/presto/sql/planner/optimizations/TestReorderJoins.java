@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.QualifiedObjectName;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.REORDER_JOINS;
+import static com.facebook.presto.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestReorderJoins
+{
+    private static final Session SESSION = TEST_SESSION.withSystemProperty(REORDER_JOINS, "true");
+
+    private final LocalQueryRunner runner;
+    private final Metadata metadata;
+    private final PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+
+    public TestReorderJoins()
+    {
+        runner = new LocalQueryRunner(TEST_SESSION);
+        runner.createCatalog(TEST_SESSION.getCatalog().get(), new TpchConnectorFactory(runner.getNodeManager(), 1), ImmutableMap.<String, String>of());
+        metadata = runner.getMetadata();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void destroy()
+    {
+        runner.close();
+    }
+
+    @Test
+    public void testSmallerInputOnBuildSide()
+    {
+        TableScanNode customer = tableScan("customer", "custkey", "name");
+        TableScanNode orders = tableScan("orders", "orderkey", "custkey");
+        JoinNode join = join(customer, orders, symbol("customer", "custkey"), symbol("orders", "custkey"));
+
+        PlanNode result = optimize(join, SESSION);
+
+        // the inputs are swapped and a projection restores the column order of the original join
+        assertTrue(result instanceof ProjectNode, result.toString());
+        assertEquals(result.getOutputSymbols(), join.getOutputSymbols());
+        JoinNode reordered = (JoinNode) ((ProjectNode) result).getSource();
+        assertSame(reordered.getLeft(), orders);
+        assertSame(reordered.getRight(), customer);
+        assertCriteria(reordered, symbol("orders", "custkey"), symbol("customer", "custkey"));
+    }
+
+    @Test
+    public void testBuildSideAlreadySmaller()
+    {
+        TableScanNode customer = tableScan("customer", "custkey", "name");
+        TableScanNode orders = tableScan("orders", "orderkey", "custkey");
+        JoinNode join = join(orders, customer, symbol("orders", "custkey"), symbol("customer", "custkey"));
+
+        PlanNode result = optimize(join, SESSION);
+
+        JoinNode reordered = (JoinNode) result;
+        assertSame(reordered.getLeft(), orders);
+        assertSame(reordered.getRight(), customer);
+        assertEquals(result.getOutputSymbols(), join.getOutputSymbols());
+    }
+
+    @Test
+    public void testJoinSmallInputsFirst()
+    {
+        TableScanNode nation = tableScan("nation", "nationkey", "name");
+        TableScanNode customer = tableScan("customer", "custkey", "nationkey");
+        TableScanNode orders = tableScan("orders", "orderkey", "custkey");
+
+        // (orders JOIN customer) JOIN nation reads the 15000 rows of the first join
+        // twice, so customer and nation are joined first and built into one hash table
+        JoinNode join = join(
+                join(orders, customer, symbol("orders", "custkey"), symbol("customer", "custkey")),
+                nation,
+                symbol("customer", "nationkey"),
+                symbol("nation", "nationkey"));
+
+        PlanNode result = optimize(join, SESSION);
+
+        // the bushy plan produces the columns in the original order, so no projection is needed
+        assertEquals(result.getOutputSymbols(), join.getOutputSymbols());
+        JoinNode top = (JoinNode) result;
+        assertSame(top.getLeft(), orders);
+        assertCriteria(top, symbol("orders", "custkey"), symbol("customer", "custkey"));
+
+        JoinNode build = (JoinNode) top.getRight();
+        assertSame(build.getLeft(), customer);
+        assertSame(build.getRight(), nation);
+        assertCriteria(build, symbol("customer", "nationkey"), symbol("nation", "nationkey"));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        JoinNode join = join(
+                tableScan("customer", "custkey"),
+                tableScan("orders", "custkey"),
+                symbol("customer", "custkey"),
+                symbol("orders", "custkey"));
+        assertSame(optimize(join, TEST_SESSION), join);
+    }
+
+    @Test
+    public void testInputWithoutEstimate()
+    {
+        ValuesNode values = new ValuesNode(idAllocator.getNextId(), ImmutableList.of(new Symbol("a")), ImmutableList.of());
+        JoinNode join = join(values, tableScan("orders", "custkey"), new Symbol("a"), symbol("orders", "custkey"));
+        assertSame(optimize(join, SESSION), join);
+    }
+
+    @Test
+    public void testOuterJoinNotReordered()
+    {
+        JoinNode join = new JoinNode(
+                idAllocator.getNextId(),
+                JoinNode.Type.LEFT,
+                tableScan("customer", "custkey"),
+                tableScan("orders", "custkey"),
+                ImmutableList.of(new JoinNode.EquiJoinClause(symbol("customer", "custkey"), symbol("orders", "custkey"))),
+                Optional.empty(),
+                Optional.empty());
+        assertSame(optimize(join, SESSION), join);
+    }
+
+    private static void assertCriteria(JoinNode join, Symbol left, Symbol right)
+    {
+        assertEquals(join.getCriteria().size(), 1);
+        assertEquals(join.getCriteria().get(0).getLeft(), left);
+        assertEquals(join.getCriteria().get(0).getRight(), right);
+    }
+
+    private PlanNode optimize(PlanNode plan, Session session)
+    {
+        return new ReorderJoins(metadata).optimize(plan, session, ImmutableMap.of(), new SymbolAllocator(), idAllocator);
+    }
+
+    private TableScanNode tableScan(String tableName, String... columnNames)
+    {
+        TableHandle table = metadata.getTableHandle(TEST_SESSION, new QualifiedObjectName(TEST_SESSION.getCatalog().get(), TINY_SCHEMA_NAME, tableName)).get();
+        Map<String, ColumnHandle> columns = metadata.getColumnHandles(TEST_SESSION, table);
+
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (String columnName : columnNames) {
+            assignments.put(symbol(tableName, columnName), columns.get(columnName));
+        }
+        Map<Symbol, ColumnHandle> assignmentMap = assignments.build();
+        return new TableScanNode(idAllocator.getNextId(), table, ImmutableList.copyOf(assignmentMap.keySet()), assignmentMap, Optional.empty(), TupleDomain.all(), null);
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)), Optional.empty(), Optional.empty());
+    }
+
+    private static Symbol symbol(String tableName, String columnName)
+    {
+        return new Symbol(tableName + "_" + columnName);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies a version of an ORC file for caching its metadata. A file that is
+ * rewritten in place gets a different size or modification time, so metadata
+ * cached for the old version is never used for the new one.
+ */
+public final class OrcFileId
+{
+    private final String path;
+    private final long size;
+    private final long modificationTime;
+
+    public OrcFileId(String path, long size, long modificationTime)
+    {
+        this.path = requireNonNull(path, "path is null");
+        this.size = size;
+        this.modificationTime = modificationTime;
+    }
+
+    public String getPath()
+    {
+        return path;
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    public long getModificationTime()
+    {
+        return modificationTime;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        OrcFileId other = (OrcFileId) obj;
+        return Objects.equals(this.path, other.path) &&
+                this.size == other.size &&
+                this.modificationTime == other.modificationTime;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(path, size, modificationTime);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("path", path)
+                .add("size", size)
+                .add("modificationTime", modificationTime)
+                .toString();
+    }
+}
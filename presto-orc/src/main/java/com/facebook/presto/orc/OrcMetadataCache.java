@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cache of the decoded file tails and stripe footers of ORC files, shared by
+ * all readers of a connector. Entries are weighed by an estimate of the heap
+ * retained by the decoded metadata, which is usually several times the size of
+ * the encoded metadata a hit saves reading.
+ */
+public class OrcMetadataCache
+{
+    private static final long FILE_TAIL = -1;
+
+    private static final OrcMetadataCache DISABLED = new OrcMetadataCache(new DataSize(0, BYTE));
+
+    private final long maxSize;
+    private final Cache<CacheKey, CacheEntry> cache;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    public OrcMetadataCache(DataSize maxSize)
+    {
+        this.maxSize = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(this.maxSize)
+                .weigher((CacheKey key, CacheEntry entry) -> Ints.saturatedCast(entry.getRetainedSize()))
+                .build();
+    }
+
+    public static OrcMetadataCache disabledOrcMetadataCache()
+    {
+        return DISABLED;
+    }
+
+    OrcFileTail getFileTail(Optional<OrcFileId> fileId, MetadataLoader<OrcFileTail> loader)
+            throws IOException
+    {
+        CacheKey key = fileId.map(id -> new CacheKey(id, FILE_TAIL)).orElse(null);
+        return get(key, loader, OrcFileTail::getEncodedSize, OrcFileTail::getRetainedSizeInBytes);
+    }
+
+    StripeFooter getStripeFooter(Optional<OrcFileId> fileId, StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+            throws IOException
+    {
+        CacheKey key = fileId.map(id -> new CacheKey(id, stripe.getOffset())).orElse(null);
+        int encodedSize = Ints.checkedCast(stripe.getFooterLength());
+        return get(key, loader, footer -> encodedSize, StripeFooter::getRetainedSizeInBytes);
+    }
+
+    private <T> T get(CacheKey key, MetadataLoader<T> loader, ToIntFunction<T> encodedSize, ToLongFunction<T> retainedSize)
+            throws IOException
+    {
+        if (maxSize == 0 || key == null) {
+            return loader.load();
+        }
+
+        CacheEntry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(entry.getEncodedSize());
+            @SuppressWarnings("unchecked")
+            T value = (T) entry.getValue();
+            return value;
+        }
+
+        // concurrent misses for the same key may both load, which is harmless for immutable metadata
+        T value = loader.load();
+        int size = encodedSize.applyAsInt(value);
+        misses.incrementAndGet();
+        bytesRead.addAndGet(size);
+        cache.put(key, new CacheEntry(value, size, retainedSize.applyAsLong(value)));
+        return value;
+    }
+
+    @Managed
+    public long getMaxSize()
+    {
+        return maxSize;
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return hits.get();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return misses.get();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        long hitCount = hits.get();
+        long requestCount = hitCount + misses.get();
+        if (requestCount == 0) {
+            return 0;
+        }
+        return (double) hitCount / requestCount;
+    }
+
+    @Managed
+    public long getBytesSaved()
+    {
+        return bytesSaved.get();
+    }
+
+    @Managed
+    public long getBytesRead()
+    {
+        return bytesRead.get();
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    interface MetadataLoader<T>
+    {
+        T load()
+                throws IOException;
+    }
+
+    private static final class CacheKey
+    {
+        private final OrcFileId fileId;
+        private final long offset;
+
+        public CacheKey(OrcFileId fileId, long offset)
+        {
+            this.fileId = requireNonNull(fileId, "fileId is null");
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return Objects.equals(this.fileId, other.fileId) &&
+                    this.offset == other.offset;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileId, offset);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("fileId", fileId)
+                    .add("offset", offset)
+                    .toString();
+        }
+    }
+
+    private static final class CacheEntry
+    {
+        private final Object value;
+        private final int encodedSize;
+        private final long retainedSize;
+
+        public CacheEntry(Object value, int encodedSize, long retainedSize)
+        {
+            this.value = requireNonNull(value, "value is null");
+            this.encodedSize = encodedSize;
+            this.retainedSize = retainedSize;
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+
+        public int getEncodedSize()
+        {
+            return encodedSize;
+        }
+
+        public long getRetainedSize()
+        {
+            return retainedSize;
+        }
+    }
+}
@@ -34,8 +34,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import static com.facebook.presto.orc.OrcMetadataCache.disabledOrcMetadataCache;
 import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 
@@ -58,17 +61,43 @@ public class OrcReader
     private final int bufferSize;
     private final Footer footer;
     private final Metadata metadata;
+    private final OrcMetadataCache metadataCache;
+    private final Optional<OrcFileId> fileId;
 
-    // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize)
             throws IOException
     {
-        orcDataSource = wrapWithCacheIfTiny(requireNonNull(orcDataSource, "orcDataSource is null"), maxMergeDistance);
-        this.orcDataSource = orcDataSource;
+        this(orcDataSource, metadataReader, maxMergeDistance, maxReadSize, disabledOrcMetadataCache(), Optional.empty());
+    }
+
+    public OrcReader(
+            OrcDataSource orcDataSource,
+            MetadataReader metadataReader,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            OrcMetadataCache metadataCache,
+            Optional<OrcFileId> fileId)
+            throws IOException
+    {
+        OrcDataSource dataSource = wrapWithCacheIfTiny(requireNonNull(orcDataSource, "orcDataSource is null"), maxMergeDistance);
+        this.orcDataSource = dataSource;
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
         this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
         this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+        this.fileId = requireNonNull(fileId, "fileId is null");
+
+        OrcFileTail fileTail = metadataCache.getFileTail(fileId, () -> readFileTail(dataSource, metadataReader));
+        this.compressionKind = fileTail.getCompressionKind();
+        this.bufferSize = fileTail.getBufferSize();
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
+    }
 
+    // This is based on the Apache Hive ORC code
+    private static OrcFileTail readFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
         //
         // Read the file tail:
         //
@@ -102,9 +131,9 @@ public class OrcReader
         checkOrcVersion(orcDataSource, postScript.getVersion());
 
         // check compression codec is supported
-        this.compressionKind = postScript.getCompression();
+        CompressionKind compressionKind = postScript.getCompression();
 
-        this.bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
+        int bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
 
         int footerSize = Ints.checkedCast(postScript.getFooterLength());
         int metadataSize = Ints.checkedCast(postScript.getMetadataLength());
@@ -129,16 +158,20 @@ public class OrcReader
         }
 
         // read metadata
+        Metadata metadata;
         Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
         try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.toString(), metadataSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.metadata = metadataReader.readMetadata(metadataInputStream);
+            metadata = metadataReader.readMetadata(metadataInputStream);
         }
 
         // read footer
+        Footer footer;
         Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
         try (InputStream footerInputStream = new OrcInputStream(orcDataSource.toString(), footerSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.footer = metadataReader.readFooter(footerInputStream);
+            footer = metadataReader.readFooter(footerInputStream);
         }
+
+        return new OrcFileTail(compressionKind, bufferSize, footer, metadata, max(buffer.length, completeFooterSize));
     }
 
     public List<String> getColumnNames()
@@ -199,6 +232,8 @@ public class OrcReader
                 metadataReader,
                 maxMergeDistance,
                 maxReadSize,
+                metadataCache,
+                fileId,
                 systemMemoryUsage);
     }
 
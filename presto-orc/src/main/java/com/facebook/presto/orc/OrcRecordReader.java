@@ -98,6 +98,8 @@ public class OrcRecordReader
             MetadataReader metadataReader,
             DataSize maxMergeDistance,
             DataSize maxReadSize,
+            OrcMetadataCache metadataCache,
+            Optional<OrcFileId> fileId,
             AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
     {
@@ -179,7 +181,9 @@ public class OrcRecordReader
                 this.presentColumns,
                 rowsInRowGroup,
                 predicate,
-                metadataReader);
+                metadataReader,
+                metadataCache,
+                fileId);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build());
     }
@@ -256,6 +260,25 @@ public class OrcRecordReader
         return totalRowCount;
     }
 
+    /**
+     * Returns the number of row groups of the stripes read so far that were
+     * skipped because their statistics do not match the predicate.
+     */
+    public long getRowGroupsSkippedByStatistics()
+    {
+        return stripeReader.getRowGroupsSkippedByStatistics();
+    }
+
+    /**
+     * Returns the number of row groups of the stripes read so far that were
+     * skipped because their bloom filters do not contain any value of the
+     * predicate.
+     */
+    public long getRowGroupsSkippedByBloomFilter()
+    {
+        return stripeReader.getRowGroupsSkippedByBloomFilter();
+    }
+
     public float getProgress()
     {
         return ((float) currentPosition) / totalRowCount;
@@ -311,6 +334,17 @@ public class OrcRecordReader
         return streamReaders[columnIndex].readBlock(type);
     }
 
+    /**
+     * Reads only the specified positions of the current batch of a column.
+     * The positions must be in increasing order. After this the column can
+     * not be read again until the next batch.
+     */
+    public Block readBlock(Type type, int columnIndex, int[] positions)
+            throws IOException
+    {
+        return streamReaders[columnIndex].readBlock(type, positions);
+    }
+
     public StreamReader getStreamReader(int index)
     {
         checkArgument(index < streamReaders.length, "index does not exist");
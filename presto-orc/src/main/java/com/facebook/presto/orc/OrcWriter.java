@@ -0,0 +1,340 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.MetadataWriter;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.ColumnWriter;
+import com.facebook.presto.orc.writer.ColumnWriters;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.CountingOutputStream;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowIndexStream;
+import static com.facebook.presto.orc.writer.ColumnWriters.isSupportedType;
+import static com.facebook.presto.orc.writer.ColumnWriters.toOrcType;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes pages to an ORC file. The columns are encoded directly from the
+ * blocks of the pages, and the file contains row group indexes and stripe
+ * statistics, so it can be read with predicate pushdown by both Presto and Hive.
+ */
+public class OrcWriter
+        implements Closeable
+{
+    public static final Slice MAGIC = Slices.utf8Slice("ORC");
+
+    public static final DataSize DEFAULT_STRIPE_MAX_SIZE = new DataSize(64, MEGABYTE);
+    public static final int DEFAULT_STRIPE_MAX_ROW_COUNT = 10_000_000;
+    public static final int DEFAULT_ROW_GROUP_MAX_ROW_COUNT = 10_000;
+    public static final DataSize DEFAULT_BUFFER_SIZE = new DataSize(256, KILOBYTE);
+    public static final DataSize DEFAULT_DICTIONARY_MAX_MEMORY = new DataSize(16, MEGABYTE);
+
+    private final CountingOutputStream output;
+    private final List<String> columnNames;
+    private final List<Type> types;
+    private final CompressionKind compression;
+    private final int bufferSize;
+    private final long stripeMaxBytes;
+    private final int stripeMaxRowCount;
+    private final int rowGroupMaxRowCount;
+    private final List<ColumnWriter> columnWriters;
+    private final MetadataWriter metadataWriter = new OrcMetadataWriter();
+
+    private final List<StripeInformation> stripes = new ArrayList<>();
+    private final List<StripeStatistics> stripeStatistics = new ArrayList<>();
+    private final List<Integer> rowGroupRowCounts = new ArrayList<>();
+    private long fileRowCount;
+    private int stripeRowCount;
+    private int rowGroupRowCount;
+    private boolean closed;
+
+    public OrcWriter(OutputStream output, List<String> columnNames, List<Type> types, CompressionKind compression)
+            throws IOException
+    {
+        this(output,
+                columnNames,
+                types,
+                compression,
+                DEFAULT_STRIPE_MAX_SIZE,
+                DEFAULT_STRIPE_MAX_ROW_COUNT,
+                DEFAULT_ROW_GROUP_MAX_ROW_COUNT,
+                DEFAULT_BUFFER_SIZE,
+                DEFAULT_DICTIONARY_MAX_MEMORY);
+    }
+
+    public OrcWriter(
+            OutputStream output,
+            List<String> columnNames,
+            List<Type> types,
+            CompressionKind compression,
+            DataSize stripeMaxSize,
+            int stripeMaxRowCount,
+            int rowGroupMaxRowCount,
+            DataSize bufferSize,
+            DataSize dictionaryMaxMemory)
+            throws IOException
+    {
+        this.output = new CountingOutputStream(requireNonNull(output, "output is null"));
+        this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        checkArgument(columnNames.size() == types.size(), "columnNames and types have different sizes");
+        for (Type type : types) {
+            checkArgument(isSupportedType(type), "Unsupported type: %s", type);
+        }
+        this.compression = requireNonNull(compression, "compression is null");
+        this.stripeMaxBytes = requireNonNull(stripeMaxSize, "stripeMaxSize is null").toBytes();
+        checkArgument(stripeMaxRowCount > 0, "stripeMaxRowCount must be positive");
+        this.stripeMaxRowCount = stripeMaxRowCount;
+        checkArgument(rowGroupMaxRowCount > 0, "rowGroupMaxRowCount must be positive");
+        this.rowGroupMaxRowCount = rowGroupMaxRowCount;
+        this.bufferSize = (int) requireNonNull(bufferSize, "bufferSize is null").toBytes();
+        requireNonNull(dictionaryMaxMemory, "dictionaryMaxMemory is null");
+
+        // column 0 is the root struct, so the column of the field n is n + 1
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            columnWriters.add(createColumnWriter(field + 1, types.get(field), compression, this.bufferSize, dictionaryMaxMemory));
+        }
+        this.columnWriters = columnWriters.build();
+
+        this.output.write(MAGIC.getBytes());
+    }
+
+    public static boolean isSupportedTypes(List<Type> types)
+    {
+        return types.stream().allMatch(ColumnWriters::isSupportedType);
+    }
+
+    public long getFileRowCount()
+    {
+        return fileRowCount + stripeRowCount;
+    }
+
+    /**
+     * Returns the number of bytes written to the output so far.
+     */
+    public long getWrittenBytes()
+    {
+        return output.getCount();
+    }
+
+    public long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            bufferedBytes += columnWriter.getBufferedBytes();
+        }
+        return bufferedBytes;
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkState(!closed, "Writer is closed");
+        checkArgument(page.getChannelCount() == columnWriters.size(), "Expected %s channels, but page has %s", columnWriters.size(), page.getChannelCount());
+
+        while (page.getPositionCount() > 0) {
+            if (rowGroupRowCount == 0) {
+                columnWriters.forEach(ColumnWriter::beginRowGroup);
+            }
+
+            // a page is split at the row group boundaries, so the row groups have exactly the configured size
+            int chunkRows = min(page.getPositionCount(), rowGroupMaxRowCount - rowGroupRowCount);
+            Page chunk = page.getRegion(0, chunkRows);
+            for (int channel = 0; channel < columnWriters.size(); channel++) {
+                columnWriters.get(channel).writeBlock(chunk.getBlock(channel));
+            }
+            rowGroupRowCount += chunkRows;
+            stripeRowCount += chunkRows;
+            page = page.getRegion(chunkRows, page.getPositionCount() - chunkRows);
+
+            if (rowGroupRowCount == rowGroupMaxRowCount) {
+                finishRowGroup();
+            }
+            if (stripeRowCount >= stripeMaxRowCount || getBufferedBytes() >= stripeMaxBytes) {
+                flushStripe();
+            }
+        }
+    }
+
+    private void finishRowGroup()
+    {
+        columnWriters.forEach(ColumnWriter::finishRowGroup);
+        rowGroupRowCounts.add(rowGroupRowCount);
+        rowGroupRowCount = 0;
+    }
+
+    private void flushStripe()
+            throws IOException
+    {
+        if (rowGroupRowCount > 0) {
+            finishRowGroup();
+        }
+        if (stripeRowCount == 0) {
+            return;
+        }
+        columnWriters.forEach(ColumnWriter::close);
+
+        long stripeOffset = output.getCount();
+        ImmutableList.Builder<Stream> streams = ImmutableList.builder();
+
+        // the index streams are written before the data streams, as the reader expects
+        List<StreamDataOutput> indexStreams = new ArrayList<>();
+        indexStreams.add(createRootRowIndexStream());
+        for (ColumnWriter columnWriter : columnWriters) {
+            indexStreams.addAll(columnWriter.getIndexStreams(metadataWriter));
+        }
+        for (StreamDataOutput indexStream : indexStreams) {
+            indexStream.writeData(output);
+            streams.add(indexStream.getStream());
+        }
+        long indexLength = output.getCount() - stripeOffset;
+
+        for (ColumnWriter columnWriter : columnWriters) {
+            for (StreamDataOutput dataStream : columnWriter.getDataStreams()) {
+                dataStream.writeData(output);
+                streams.add(dataStream.getStream());
+            }
+        }
+        long dataLength = output.getCount() - stripeOffset - indexLength;
+
+        ImmutableList.Builder<ColumnEncoding> columnEncodings = ImmutableList.builder();
+        columnEncodings.add(new ColumnEncoding(DIRECT, 0));
+        ImmutableList.Builder<ColumnStatistics> columnStatistics = ImmutableList.builder();
+        columnStatistics.add(createRootStatistics(stripeRowCount));
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnEncodings.add(columnWriter.getColumnEncoding());
+            columnStatistics.add(columnWriter.getColumnStripeStatistics());
+        }
+
+        long footerLength = writeCompressed(buffer -> metadataWriter.writeStripeFooter(buffer, new StripeFooter(streams.build(), columnEncodings.build())));
+
+        stripes.add(new StripeInformation(stripeRowCount, stripeOffset, indexLength, dataLength, footerLength));
+        stripeStatistics.add(new StripeStatistics(columnStatistics.build()));
+        fileRowCount += stripeRowCount;
+
+        columnWriters.forEach(ColumnWriter::reset);
+        rowGroupRowCounts.clear();
+        stripeRowCount = 0;
+    }
+
+    private StreamDataOutput createRootRowIndexStream()
+            throws IOException
+    {
+        // the root struct has no streams, so only the row counts are recorded
+        List<RowGroupIndex> rowGroupIndexes = rowGroupRowCounts.stream()
+                .map(rowCount -> new RowGroupIndex(ImmutableList.of(), createRootStatistics(rowCount)))
+                .collect(toList());
+        return createRowIndexStream(0, compression, bufferSize, metadataWriter, rowGroupIndexes);
+    }
+
+    private static ColumnStatistics createRootStatistics(long rowCount)
+    {
+        return new ColumnStatistics(rowCount, null, null, null, null, null);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushStripe();
+
+            long metadataLength = writeCompressed(buffer -> metadataWriter.writeMetadata(buffer, new Metadata(stripeStatistics)));
+
+            ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+            List<Integer> fieldTypeIndexes = IntStream.rangeClosed(1, types.size()).boxed().collect(toList());
+            orcTypes.add(new OrcType(OrcTypeKind.STRUCT, fieldTypeIndexes, columnNames));
+            for (Type type : types) {
+                orcTypes.add(toOrcType(type));
+            }
+
+            ImmutableList.Builder<ColumnStatistics> fileStatistics = ImmutableList.builder();
+            for (int column = 0; column <= types.size(); column++) {
+                int orcColumn = column;
+                fileStatistics.add(mergeColumnStatistics(stripeStatistics.stream()
+                        .map(statistics -> statistics.getColumnStatistics().get(orcColumn))
+                        .collect(toList())));
+            }
+
+            Footer footer = new Footer(fileRowCount, rowGroupMaxRowCount, ImmutableList.copyOf(stripes), orcTypes.build(), fileStatistics.build());
+            long footerLength = writeCompressed(buffer -> metadataWriter.writeFooter(buffer, footer));
+
+            // the postscript is never compressed, and its length is stored in the last byte of the file
+            int postscriptLength = metadataWriter.writePostscript(output, (int) footerLength, (int) metadataLength, compression, bufferSize);
+            checkState(postscriptLength < 256, "Postscript is too large: %s bytes", postscriptLength);
+            output.write(postscriptLength);
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    private long writeCompressed(MetadataSection section)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        section.write(buffer);
+        buffer.close();
+        buffer.writeDataTo(output);
+        return buffer.getOutputDataSize();
+    }
+
+    private interface MetadataSection
+    {
+        void write(OutputStream output)
+                throws IOException;
+    }
+}
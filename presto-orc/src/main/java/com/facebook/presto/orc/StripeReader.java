@@ -17,6 +17,7 @@ import com.facebook.presto.orc.checkpoint.InvalidCheckpointException;
 import com.facebook.presto.orc.checkpoint.StreamCheckpoint;
 import com.facebook.presto.orc.memory.AbstractAggregatedMemoryContext;
 import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.BloomFilter;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
@@ -51,12 +52,15 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.orc.checkpoint.Checkpoints.getDictionaryStreamCheckpoint;
 import static com.facebook.presto.orc.checkpoint.Checkpoints.getStreamCheckpoints;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER_UTF8;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_COUNT;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
@@ -75,6 +79,11 @@ public class StripeReader
     private final int rowsInRowGroup;
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
+    private final OrcMetadataCache metadataCache;
+    private final Optional<OrcFileId> fileId;
+
+    private long rowGroupsSkippedByStatistics;
+    private long rowGroupsSkippedByBloomFilter;
 
     public StripeReader(OrcDataSource orcDataSource,
             CompressionKind compressionKind,
@@ -83,7 +92,9 @@ public class StripeReader
             Set<Integer> includedColumns,
             int rowsInRowGroup,
             OrcPredicate predicate,
-            MetadataReader metadataReader)
+            MetadataReader metadataReader,
+            OrcMetadataCache metadataCache,
+            Optional<OrcFileId> fileId)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
         this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
@@ -93,6 +104,27 @@ public class StripeReader
         this.rowsInRowGroup = rowsInRowGroup;
         this.predicate = requireNonNull(predicate, "predicate is null");
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+        this.fileId = requireNonNull(fileId, "fileId is null");
+    }
+
+    /**
+     * Returns the number of row groups skipped because their minimum and maximum
+     * values do not match the predicate.
+     */
+    public long getRowGroupsSkippedByStatistics()
+    {
+        return rowGroupsSkippedByStatistics;
+    }
+
+    /**
+     * Returns the number of row groups skipped because their bloom filters do not
+     * contain any of the values of the predicate, even though their minimum and
+     * maximum values match it.
+     */
+    public long getRowGroupsSkippedByBloomFilter()
+    {
+        return rowGroupsSkippedByBloomFilter;
     }
 
     public Stripe readStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
@@ -170,7 +202,7 @@ public class StripeReader
         ImmutableMap.Builder<StreamId, DiskRange> diskRangesBuilder = ImmutableMap.builder();
         for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
             StreamId streamId = entry.getKey();
-            if (streamId.getStreamKind() != ROW_INDEX && streams.keySet().contains(streamId)) {
+            if (streamId.getStreamKind() != ROW_INDEX && !isBloomFilterStream(streamId.getStreamKind()) && streams.keySet().contains(streamId)) {
                 diskRangesBuilder.put(entry);
             }
         }
@@ -314,6 +346,12 @@ public class StripeReader
 
     public StripeFooter readStripeFooter(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
+    {
+        return metadataCache.getStripeFooter(fileId, stripe, () -> readStripeFooterFromFile(stripe, systemMemoryUsage));
+    }
+
+    private StripeFooter readStripeFooterFromFile(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
     {
         long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
         int tailLength = Ints.checkedCast(stripe.getFooterLength());
@@ -329,17 +367,64 @@ public class StripeReader
     private Map<Integer, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData)
             throws IOException
     {
+        // newer writers write both kinds of bloom filters, the UTF-8 one has the correct string hashes
+        Map<Integer, List<BloomFilter>> bloomFilterIndexes = new HashMap<>();
+        for (Entry<StreamId, Stream> entry : streams.entrySet()) {
+            Stream stream = entry.getValue();
+            if (stream.getStreamKind() == BLOOM_FILTER_UTF8 || (stream.getStreamKind() == BLOOM_FILTER && !bloomFilterIndexes.containsKey(stream.getColumn()))) {
+                OrcInputStream inputStream = streamsData.get(entry.getKey());
+                bloomFilterIndexes.put(stream.getColumn(), metadataReader.readBloomFilterIndexes(inputStream));
+            }
+        }
+
         ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
         for (Entry<StreamId, Stream> entry : streams.entrySet()) {
             Stream stream = entry.getValue();
             if (stream.getStreamKind() == ROW_INDEX) {
                 OrcInputStream inputStream = streamsData.get(entry.getKey());
-                columnIndexes.put(stream.getColumn(), metadataReader.readRowIndexes(inputStream));
+                List<RowGroupIndex> rowGroupIndexes = metadataReader.readRowIndexes(inputStream);
+
+                List<BloomFilter> bloomFilters = bloomFilterIndexes.get(stream.getColumn());
+                if (bloomFilters != null && bloomFilters.size() == rowGroupIndexes.size() && isBloomFilterSupported(types.get(stream.getColumn()).getOrcTypeKind())) {
+                    rowGroupIndexes = addBloomFilters(rowGroupIndexes, bloomFilters);
+                }
+                columnIndexes.put(stream.getColumn(), rowGroupIndexes);
             }
         }
         return columnIndexes.build();
     }
 
+    private static List<RowGroupIndex> addBloomFilters(List<RowGroupIndex> rowGroupIndexes, List<BloomFilter> bloomFilters)
+    {
+        ImmutableList.Builder<RowGroupIndex> newRowGroupIndexes = ImmutableList.builder();
+        for (int i = 0; i < rowGroupIndexes.size(); i++) {
+            RowGroupIndex rowGroupIndex = rowGroupIndexes.get(i);
+            ColumnStatistics statistics = rowGroupIndex.getColumnStatistics().withBloomFilter(bloomFilters.get(i));
+            newRowGroupIndexes.add(new RowGroupIndex(rowGroupIndex.getPositions(), statistics));
+        }
+        return newRowGroupIndexes.build();
+    }
+
+    private static boolean isBloomFilterSupported(OrcTypeKind orcTypeKind)
+    {
+        // these are the types whose values are hashed the same way by the writer and
+        // TupleDomainOrcPredicate; booleans and timestamps are hashed differently
+        switch (orcTypeKind) {
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case DATE:
+            case FLOAT:
+            case DOUBLE:
+            case STRING:
+            case BINARY:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     private Set<Integer> selectRowGroups(StripeInformation stripe,  Map<Integer, List<RowGroupIndex>> columnIndexes)
             throws IOException
     {
@@ -354,6 +439,12 @@ public class StripeReader
             if (predicate.matches(rows, statistics)) {
                 selectedRowGroups.add(rowGroup);
             }
+            else if (hasBloomFilter(statistics) && predicate.matches(rows, withoutBloomFilters(statistics))) {
+                rowGroupsSkippedByBloomFilter++;
+            }
+            else {
+                rowGroupsSkippedByStatistics++;
+            }
             remainingRows -= rows;
         }
         return selectedRowGroups.build();
@@ -376,9 +467,29 @@ public class StripeReader
         return statistics.build();
     }
 
+    private static boolean hasBloomFilter(Map<Integer, ColumnStatistics> statistics)
+    {
+        for (ColumnStatistics columnStatistics : statistics.values()) {
+            if (columnStatistics.getBloomFilter() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<Integer, ColumnStatistics> withoutBloomFilters(Map<Integer, ColumnStatistics> statistics)
+    {
+        return Maps.transformValues(statistics, columnStatistics -> columnStatistics.withBloomFilter(null));
+    }
+
     private static boolean isIndexStream(Stream stream)
     {
-        return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT;
+        return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT || isBloomFilterStream(stream.getStreamKind());
+    }
+
+    private static boolean isBloomFilterStream(StreamKind streamKind)
+    {
+        return streamKind == BLOOM_FILTER || streamKind == BLOOM_FILTER_UTF8;
     }
 
     private static boolean isDictionary(Stream stream, ColumnEncodingKind columnEncoding)
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.orc.metadata.BloomFilter;
 import com.facebook.presto.orc.metadata.BooleanStatistics;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.RangeStatistics;
@@ -28,8 +29,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -68,7 +71,69 @@ public class TupleDomainOrcPredicate<C>
         }
         TupleDomain<C> stripeDomain = TupleDomain.withColumnDomains(domains.build());
 
-        return effectivePredicate.overlaps(stripeDomain);
+        if (!effectivePredicate.overlaps(stripeDomain)) {
+            return false;
+        }
+
+        // the bloom filters can only prove that none of a set of discrete values is present
+        Map<C, Domain> predicateDomains = effectivePredicate.getDomains().get();
+        for (ColumnReference<C> columnReference : columnReferences) {
+            ColumnStatistics columnStatistics = statisticsByColumnIndex.get(columnReference.getOrdinal());
+            Domain predicateDomain = predicateDomains.get(columnReference.getColumn());
+            if (columnStatistics == null || columnStatistics.getBloomFilter() == null || predicateDomain == null) {
+                continue;
+            }
+            if (predicateDomain.isNullAllowed() && columnStatistics.getNumberOfValues() != numberOfRows) {
+                continue;
+            }
+            Optional<Collection<Object>> discreteValues = getDiscreteValues(predicateDomain.getValues());
+            if (discreteValues.isPresent() && !bloomFilterContainsAny(columnStatistics.getBloomFilter(), columnReference.getType(), discreteValues.get())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Optional<Collection<Object>> getDiscreteValues(ValueSet valueSet)
+    {
+        return valueSet.getValuesProcessor().transform(
+                ranges -> {
+                    ImmutableList.Builder<Object> values = ImmutableList.builder();
+                    for (Range range : ranges.getOrderedRanges()) {
+                        if (!range.isSingleValue()) {
+                            return Optional.empty();
+                        }
+                        values.add(range.getSingleValue());
+                    }
+                    return Optional.of(values.build());
+                },
+                discreteValues -> discreteValues.isWhiteList() ? Optional.of(discreteValues.getValues()) : Optional.empty(),
+                allOrNone -> Optional.empty());
+    }
+
+    private static boolean bloomFilterContainsAny(BloomFilter bloomFilter, Type type, Collection<Object> values)
+    {
+        for (Object value : values) {
+            if (bloomFilterMightContain(bloomFilter, type, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean bloomFilterMightContain(BloomFilter bloomFilter, Type type, Object value)
+    {
+        if (type.getJavaType() == long.class) {
+            return bloomFilter.testLong((long) value);
+        }
+        if (type.getJavaType() == double.class) {
+            return bloomFilter.testDouble((double) value);
+        }
+        if (type.getJavaType() == Slice.class) {
+            return bloomFilter.testSlice((Slice) value);
+        }
+        // the values of other types are not hashed into the bloom filter
+        return true;
     }
 
     @VisibleForTesting
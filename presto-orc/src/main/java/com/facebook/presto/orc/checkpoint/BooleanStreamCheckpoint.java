@@ -16,6 +16,9 @@ package com.facebook.presto.orc.checkpoint;
 import com.facebook.presto.orc.checkpoint.Checkpoints.ColumnPositionsList;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
@@ -47,6 +50,15 @@ public final class BooleanStreamCheckpoint
         return byteStreamCheckpoint;
     }
 
+    @Override
+    public List<Integer> toPositionList(boolean compressed)
+    {
+        return ImmutableList.<Integer>builder()
+                .addAll(byteStreamCheckpoint.toPositionList(compressed))
+                .add(offset)
+                .build();
+    }
+
     @Override
     public String toString()
     {
@@ -16,6 +16,9 @@ package com.facebook.presto.orc.checkpoint;
 import com.facebook.presto.orc.checkpoint.Checkpoints.ColumnPositionsList;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
 
@@ -43,6 +46,16 @@ public final class InputStreamCheckpoint
         return (((long) compressedBlockOffset) << 32) | decompressedOffset;
     }
 
+    public static List<Integer> createInputStreamPositionList(boolean compressed, long inputStreamCheckpoint)
+    {
+        if (compressed) {
+            return ImmutableList.of(decodeCompressedBlockOffset(inputStreamCheckpoint), decodeDecompressedOffset(inputStreamCheckpoint));
+        }
+        else {
+            return ImmutableList.of(decodeDecompressedOffset(inputStreamCheckpoint));
+        }
+    }
+
     public static int decodeCompressedBlockOffset(long inputStreamCheckpoint)
     {
         return ((int) (inputStreamCheckpoint >> 32));
@@ -16,6 +16,9 @@ package com.facebook.presto.orc.checkpoint;
 import com.facebook.presto.orc.checkpoint.Checkpoints.ColumnPositionsList;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.inputStreamCheckpointToString;
 
@@ -41,6 +44,15 @@ public final class RowGroupDictionaryLengthStreamCheckpoint
         return rowGroupDictionarySize;
     }
 
+    @Override
+    public List<Integer> toPositionList(boolean compressed)
+    {
+        return ImmutableList.<Integer>builder()
+                .addAll(super.toPositionList(compressed))
+                .add(rowGroupDictionarySize)
+                .build();
+    }
+
     @Override
     public String toString()
     {
@@ -13,6 +13,12 @@
  */
 package com.facebook.presto.orc.checkpoint;
 
+import java.util.List;
+
 public interface StreamCheckpoint
 {
+    /**
+     * Returns the positions of this checkpoint in the order they are stored in the row group index.
+     */
+    List<Integer> toPositionList(boolean compressed);
 }
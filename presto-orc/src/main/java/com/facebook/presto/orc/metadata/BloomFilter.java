@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import io.airlift.slice.Slice;
+
+import java.util.Arrays;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bloom filter of an ORC row group as written by the Hive ORC writer. Values
+ * are hashed exactly as the writer does it, so this class must not change the
+ * hash functions: strings and binaries use the 64-bit Murmur3 variant of Hive
+ * and integers, dates and doubles use the 64-bit integer hash of Thomas Wang.
+ */
+public class BloomFilter
+{
+    private static final long MURMUR3_C1 = 0x87c37b91114253d5L;
+    private static final long MURMUR3_C2 = 0x4cf5ad432745937fL;
+    private static final int MURMUR3_R1 = 31;
+    private static final int MURMUR3_R2 = 27;
+    private static final int MURMUR3_M = 5;
+    private static final int MURMUR3_N1 = 0x52dce729;
+    private static final int MURMUR3_SEED = 104729;
+
+    private final long[] bitset;
+    private final int numBits;
+    private final int numHashFunctions;
+
+    public BloomFilter(long[] bitset, int numHashFunctions)
+    {
+        requireNonNull(bitset, "bitset is null");
+        checkArgument(bitset.length > 0, "bitset is empty");
+        checkArgument(numHashFunctions > 0, "numHashFunctions must be greater than zero");
+        this.bitset = Arrays.copyOf(bitset, bitset.length);
+        this.numBits = bitset.length * Long.SIZE;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    public int getNumHashFunctions()
+    {
+        return numHashFunctions;
+    }
+
+    public long[] getBitset()
+    {
+        return Arrays.copyOf(bitset, bitset.length);
+    }
+
+    public void addLong(long value)
+    {
+        addHash(getLongHash(value));
+    }
+
+    public void addDouble(double value)
+    {
+        addLong(Double.doubleToLongBits(value));
+    }
+
+    public void addSlice(Slice value)
+    {
+        addHash(murmur3Hash64(value));
+    }
+
+    public boolean testLong(long value)
+    {
+        return testHash(getLongHash(value));
+    }
+
+    public boolean testDouble(double value)
+    {
+        return testLong(Double.doubleToLongBits(value));
+    }
+
+    public boolean testSlice(Slice value)
+    {
+        return testHash(murmur3Hash64(value));
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return bitset.length * Long.BYTES;
+    }
+
+    private void addHash(long hash64)
+    {
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int position = getBitPosition(hash1, hash2, i);
+            bitset[position >>> 6] |= (1L << position);
+        }
+    }
+
+    private boolean testHash(long hash64)
+    {
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int position = getBitPosition(hash1, hash2, i);
+            if ((bitset[position >>> 6] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int getBitPosition(int hash1, int hash2, int hashFunction)
+    {
+        // "Less Hashing, Same Performance: Building a Better Bloom Filter" by Kirsch and Mitzenmacher
+        int combinedHash = hash1 + (hashFunction * hash2);
+        if (combinedHash < 0) {
+            combinedHash = ~combinedHash;
+        }
+        return combinedHash % numBits;
+    }
+
+    private static long getLongHash(long key)
+    {
+        key = (~key) + (key << 21);
+        key = key ^ (key >> 24);
+        key = (key + (key << 3)) + (key << 8);
+        key = key ^ (key >> 14);
+        key = (key + (key << 2)) + (key << 4);
+        key = key ^ (key >> 28);
+        key = key + (key << 31);
+        return key;
+    }
+
+    private static long murmur3Hash64(Slice data)
+    {
+        int length = data.length();
+        long hash = MURMUR3_SEED;
+
+        int blocks = length >> 3;
+        for (int i = 0; i < blocks; i++) {
+            long k = data.getLong(i << 3);
+            k *= MURMUR3_C1;
+            k = Long.rotateLeft(k, MURMUR3_R1);
+            k *= MURMUR3_C2;
+            hash ^= k;
+            hash = Long.rotateLeft(hash, MURMUR3_R2) * MURMUR3_M + MURMUR3_N1;
+        }
+
+        int tailStart = blocks << 3;
+        int tailLength = length - tailStart;
+        if (tailLength > 0) {
+            long k = 0;
+            for (int i = tailLength - 1; i >= 0; i--) {
+                k ^= (data.getByte(tailStart + i) & 0xFFL) << (i * 8);
+            }
+            k *= MURMUR3_C1;
+            k = Long.rotateLeft(k, MURMUR3_R1);
+            k *= MURMUR3_C2;
+            hash ^= k;
+        }
+
+        hash ^= length;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("numBits", numBits)
+                .add("numHashFunctions", numHashFunctions)
+                .toString();
+    }
+}
@@ -13,14 +13,24 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.List;
+import java.util.function.Function;
+
 public class ColumnStatistics
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(ColumnStatistics.class).instanceSize();
+    private static final int LONG_INSTANCE_SIZE = ClassLayout.parseClass(Long.class).instanceSize();
+
     private final Long numberOfValues;
     private final BooleanStatistics booleanStatistics;
     private final IntegerStatistics integerStatistics;
     private final DoubleStatistics doubleStatistics;
     private final StringStatistics stringStatistics;
     private final DateStatistics dateStatistics;
+    private final BloomFilter bloomFilter;
 
     public ColumnStatistics(Long numberOfValues,
             BooleanStatistics booleanStatistics,
@@ -28,6 +38,17 @@ public class ColumnStatistics
             DoubleStatistics doubleStatistics,
             StringStatistics stringStatistics,
             DateStatistics dateStatistics)
+    {
+        this(numberOfValues, booleanStatistics, integerStatistics, doubleStatistics, stringStatistics, dateStatistics, null);
+    }
+
+    public ColumnStatistics(Long numberOfValues,
+            BooleanStatistics booleanStatistics,
+            IntegerStatistics integerStatistics,
+            DoubleStatistics doubleStatistics,
+            StringStatistics stringStatistics,
+            DateStatistics dateStatistics,
+            BloomFilter bloomFilter)
     {
         this.numberOfValues = numberOfValues;
         this.booleanStatistics = booleanStatistics;
@@ -35,6 +56,7 @@ public class ColumnStatistics
         this.doubleStatistics = doubleStatistics;
         this.stringStatistics = stringStatistics;
         this.dateStatistics = dateStatistics;
+        this.bloomFilter = bloomFilter;
     }
 
     public boolean hasNumberOfValues()
@@ -71,4 +93,130 @@ public class ColumnStatistics
     {
         return stringStatistics;
     }
+
+    /**
+     * Returns the bloom filter of the values of a row group, or null if the
+     * file does not contain a bloom filter for the column.
+     */
+    public BloomFilter getBloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE;
+        if (numberOfValues != null) {
+            size += LONG_INSTANCE_SIZE;
+        }
+        if (booleanStatistics != null) {
+            size += booleanStatistics.getRetainedSizeInBytes();
+        }
+        if (integerStatistics != null) {
+            size += integerStatistics.getRetainedSizeInBytes();
+        }
+        if (doubleStatistics != null) {
+            size += doubleStatistics.getRetainedSizeInBytes();
+        }
+        if (stringStatistics != null) {
+            size += stringStatistics.getRetainedSizeInBytes();
+        }
+        if (dateStatistics != null) {
+            size += dateStatistics.getRetainedSizeInBytes();
+        }
+        if (bloomFilter != null) {
+            size += bloomFilter.getRetainedSizeInBytes();
+        }
+        return size;
+    }
+
+    public ColumnStatistics withBloomFilter(BloomFilter bloomFilter)
+    {
+        return new ColumnStatistics(numberOfValues, booleanStatistics, integerStatistics, doubleStatistics, stringStatistics, dateStatistics, bloomFilter);
+    }
+
+    /**
+     * Merges the statistics of the row groups or stripes of a column. A minimum,
+     * maximum or count is only kept when it is known for every part with values.
+     */
+    public static ColumnStatistics mergeColumnStatistics(List<ColumnStatistics> statistics)
+    {
+        long numberOfValues = 0;
+        ImmutableList.Builder<ColumnStatistics> statisticsWithValues = ImmutableList.builder();
+        for (ColumnStatistics columnStatistics : statistics) {
+            numberOfValues += columnStatistics.getNumberOfValues();
+            if (columnStatistics.getNumberOfValues() > 0) {
+                statisticsWithValues.add(columnStatistics);
+            }
+        }
+        List<ColumnStatistics> merged = statisticsWithValues.build();
+
+        return new ColumnStatistics(
+                numberOfValues,
+                mergeBooleanStatistics(merged),
+                mergeRangeStatistics(merged, ColumnStatistics::getIntegerStatistics, IntegerStatistics::new),
+                mergeRangeStatistics(merged, ColumnStatistics::getDoubleStatistics, DoubleStatistics::new),
+                mergeRangeStatistics(merged, ColumnStatistics::getStringStatistics, StringStatistics::new),
+                mergeRangeStatistics(merged, ColumnStatistics::getDateStatistics, DateStatistics::new));
+    }
+
+    private static BooleanStatistics mergeBooleanStatistics(List<ColumnStatistics> statistics)
+    {
+        if (statistics.isEmpty()) {
+            return null;
+        }
+        long trueValueCount = 0;
+        for (ColumnStatistics columnStatistics : statistics) {
+            if (columnStatistics.getBooleanStatistics() == null) {
+                return null;
+            }
+            trueValueCount += columnStatistics.getBooleanStatistics().getTrueValueCount();
+        }
+        return new BooleanStatistics(trueValueCount);
+    }
+
+    private static <T extends Comparable<T>, S extends RangeStatistics<T>> S mergeRangeStatistics(
+            List<ColumnStatistics> statistics,
+            Function<ColumnStatistics, S> rangeStatisticsGetter,
+            RangeStatisticsFactory<T, S> rangeStatisticsFactory)
+    {
+        if (statistics.isEmpty()) {
+            return null;
+        }
+
+        T minimum = null;
+        T maximum = null;
+        boolean minimumKnown = true;
+        boolean maximumKnown = true;
+        for (ColumnStatistics columnStatistics : statistics) {
+            S rangeStatistics = rangeStatisticsGetter.apply(columnStatistics);
+            if (rangeStatistics == null) {
+                return null;
+            }
+            T min = rangeStatistics.getMin();
+            if (min == null) {
+                minimumKnown = false;
+            }
+            else if (minimum == null || min.compareTo(minimum) < 0) {
+                minimum = min;
+            }
+            T max = rangeStatistics.getMax();
+            if (max == null) {
+                maximumKnown = false;
+            }
+            else if (maximum == null || max.compareTo(maximum) > 0) {
+                maximum = max;
+            }
+        }
+
+        if (!minimumKnown && !maximumKnown) {
+            return null;
+        }
+        return rangeStatisticsFactory.create(minimumKnown ? minimum : null, maximumKnown ? maximum : null);
+    }
+
+    private interface RangeStatisticsFactory<T, S>
+    {
+        S create(T minimum, T maximum);
+    }
 }
@@ -13,11 +13,16 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import org.openjdk.jol.info.ClassLayout;
+
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 public class DateStatistics
         implements RangeStatistics<Integer>
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(DateStatistics.class).instanceSize();
+    private static final int INTEGER_INSTANCE_SIZE = ClassLayout.parseClass(Integer.class).instanceSize();
+
     private final Integer minimum;
     private final Integer maximum;
 
@@ -39,6 +44,11 @@ public class DateStatistics
         return maximum;
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + (minimum == null ? 0 : INTEGER_INSTANCE_SIZE) + (maximum == null ? 0 : INTEGER_INSTANCE_SIZE);
+    }
+
     @Override
     public String toString()
     {
@@ -14,14 +14,19 @@
 package com.facebook.presto.orc.metadata;
 
 import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class Footer
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Footer.class).instanceSize();
+    private static final int STRIPE_INSTANCE_SIZE = ClassLayout.parseClass(StripeInformation.class).instanceSize();
+
     private final long numberOfRows;
     private final int rowsInRowGroup;
     private final List<StripeInformation> stripes;
@@ -62,6 +67,23 @@ public class Footer
         return fileStats;
     }
 
+    /**
+     * Returns an estimate of the heap size retained by the decoded footer.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE + sizeOfObjectArray(stripes.size()) + (long) stripes.size() * STRIPE_INSTANCE_SIZE;
+        size += sizeOfObjectArray(types.size());
+        for (OrcType type : types) {
+            size += type.getRetainedSizeInBytes();
+        }
+        size += sizeOfObjectArray(fileStats.size());
+        for (ColumnStatistics statistics : fileStats) {
+            size += statistics.getRetainedSizeInBytes();
+        }
+        return size;
+    }
+
     @Override
     public String toString()
     {
@@ -13,11 +13,16 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import org.openjdk.jol.info.ClassLayout;
+
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 public class IntegerStatistics
         implements RangeStatistics<Long>
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(IntegerStatistics.class).instanceSize();
+    private static final int LONG_INSTANCE_SIZE = ClassLayout.parseClass(Long.class).instanceSize();
+
     private final Long minimum;
     private final Long maximum;
 
@@ -39,6 +44,11 @@ public class IntegerStatistics
         return maximum;
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + (minimum == null ? 0 : LONG_INSTANCE_SIZE) + (maximum == null ? 0 : LONG_INSTANCE_SIZE);
+    }
+
     @Override
     public String toString()
     {
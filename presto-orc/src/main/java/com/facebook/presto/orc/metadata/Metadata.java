@@ -13,10 +13,16 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import org.openjdk.jol.info.ClassLayout;
+
 import java.util.List;
 
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
+
 public class Metadata
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(Metadata.class).instanceSize();
+
     private final List<StripeStatistics> stripeStatistics;
 
     public Metadata(List<StripeStatistics> stripeStatistics)
@@ -28,4 +34,16 @@ public class Metadata
     {
         return stripeStatistics;
     }
+
+    /**
+     * Returns an estimate of the heap size retained by the decoded metadata.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE + sizeOfObjectArray(stripeStatistics.size());
+        for (StripeStatistics statistics : stripeStatistics) {
+            size += statistics.getRetainedSizeInBytes();
+        }
+        return size;
+    }
 }
@@ -14,6 +14,7 @@
 package com.facebook.presto.orc.metadata;
 
 import com.facebook.presto.hive.protobuf.CodedInputStream;
+import com.facebook.presto.hive.protobuf.UnknownFieldSet;
 import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
 import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
 import com.facebook.presto.orc.metadata.Stream.StreamKind;
@@ -21,6 +22,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.apache.hadoop.hive.ql.io.orc.OrcProto;
@@ -28,7 +30,9 @@ import org.apache.hadoop.hive.ql.io.orc.OrcProto.RowIndexEntry;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
 import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
@@ -41,6 +45,21 @@ public class OrcMetadataReader
 {
     private static final Slice MAX_BYTE = Slices.wrappedBuffer(new byte[] { (byte) 0xFF });
 
+    // The bundled ORC protobuf definition predates bloom filters, so the
+    // bloom filter stream kinds and messages are decoded by hand
+    private static final int STREAM_KIND_FIELD = 1;
+    private static final int BLOOM_FILTER_STREAM_KIND = 7;
+    private static final int BLOOM_FILTER_UTF8_STREAM_KIND = 8;
+
+    private static final int BLOOM_FILTER_INDEX_BLOOM_FILTER_FIELD = 1;
+    private static final int BLOOM_FILTER_NUM_HASH_FUNCTIONS_FIELD = 1;
+    private static final int BLOOM_FILTER_BITSET_FIELD = 2;
+    private static final int BLOOM_FILTER_UTF8_BITSET_FIELD = 3;
+
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_FIXED64 = 1;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
     @Override
     public PostScript readPostScript(byte[] data, int offset, int length)
             throws IOException
@@ -115,7 +134,29 @@ public class OrcMetadataReader
 
     private static Stream toStream(OrcProto.Stream stream)
     {
-        return new Stream(stream.getColumn(), toStreamKind(stream.getKind()), Ints.checkedCast(stream.getLength()), true);
+        return new Stream(stream.getColumn(), toStreamKind(stream), Ints.checkedCast(stream.getLength()), true);
+    }
+
+    private static StreamKind toStreamKind(OrcProto.Stream stream)
+    {
+        if (stream.hasKind()) {
+            return toStreamKind(stream.getKind());
+        }
+
+        // stream kinds unknown to the protobuf definition are kept as unknown fields
+        UnknownFieldSet unknownFields = stream.getUnknownFields();
+        if (!unknownFields.hasField(STREAM_KIND_FIELD)) {
+            return toStreamKind(stream.getKind());
+        }
+        List<Long> kinds = unknownFields.getField(STREAM_KIND_FIELD).getVarintList();
+        long kind = kinds.get(kinds.size() - 1);
+        if (kind == BLOOM_FILTER_STREAM_KIND) {
+            return StreamKind.BLOOM_FILTER;
+        }
+        if (kind == BLOOM_FILTER_UTF8_STREAM_KIND) {
+            return StreamKind.BLOOM_FILTER_UTF8;
+        }
+        throw new IllegalStateException(kind + " stream type not implemented yet");
     }
 
     private static List<Stream> toStream(List<OrcProto.Stream> streams)
@@ -142,6 +183,76 @@ public class OrcMetadataReader
         return ImmutableList.copyOf(Iterables.transform(rowIndex.getEntryList(), OrcMetadataReader::toRowGroupIndex));
     }
 
+    @Override
+    public List<BloomFilter> readBloomFilterIndexes(InputStream inputStream)
+            throws IOException
+    {
+        CodedInputStream input = CodedInputStream.newInstance(inputStream);
+        ImmutableList.Builder<BloomFilter> bloomFilters = ImmutableList.builder();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            if (getFieldNumber(tag) == BLOOM_FILTER_INDEX_BLOOM_FILTER_FIELD && getWireType(tag) == WIRETYPE_LENGTH_DELIMITED) {
+                int limit = input.pushLimit(input.readRawVarint32());
+                bloomFilters.add(readBloomFilter(input));
+                input.popLimit(limit);
+            }
+            else {
+                input.skipField(tag);
+            }
+        }
+        return bloomFilters.build();
+    }
+
+    private static BloomFilter readBloomFilter(CodedInputStream input)
+            throws IOException
+    {
+        int numHashFunctions = 0;
+        List<Long> bitset = new ArrayList<>();
+        Optional<long[]> utf8Bitset = Optional.empty();
+        for (int tag = input.readTag(); tag != 0; tag = input.readTag()) {
+            int field = getFieldNumber(tag);
+            int wireType = getWireType(tag);
+            if (field == BLOOM_FILTER_NUM_HASH_FUNCTIONS_FIELD && wireType == WIRETYPE_VARINT) {
+                numHashFunctions = input.readUInt32();
+            }
+            else if (field == BLOOM_FILTER_BITSET_FIELD && wireType == WIRETYPE_FIXED64) {
+                bitset.add(input.readFixed64());
+            }
+            else if (field == BLOOM_FILTER_BITSET_FIELD && wireType == WIRETYPE_LENGTH_DELIMITED) {
+                // packed encoding
+                int limit = input.pushLimit(input.readRawVarint32());
+                while (!input.isAtEnd()) {
+                    bitset.add(input.readFixed64());
+                }
+                input.popLimit(limit);
+            }
+            else if (field == BLOOM_FILTER_UTF8_BITSET_FIELD && wireType == WIRETYPE_LENGTH_DELIMITED) {
+                Slice bytes = Slices.wrappedBuffer(input.readBytes().toByteArray());
+                long[] values = new long[bytes.length() / Long.BYTES];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = bytes.getLong(i * Long.BYTES);
+                }
+                utf8Bitset = Optional.of(values);
+            }
+            else {
+                input.skipField(tag);
+            }
+        }
+
+        // the UTF-8 bitset is written by newer writers that fixed the hashing of strings
+        long[] values = utf8Bitset.orElseGet(() -> Longs.toArray(bitset));
+        return new BloomFilter(values, numHashFunctions);
+    }
+
+    private static int getFieldNumber(int tag)
+    {
+        return tag >>> 3;
+    }
+
+    private static int getWireType(int tag)
+    {
+        return tag & 0x7;
+    }
+
     private static RowGroupIndex toRowGroupIndex(RowIndexEntry rowIndexEntry)
     {
         List<Long> positionsList = rowIndexEntry.getPositionsList();
@@ -14,15 +14,21 @@
 package com.facebook.presto.orc.metadata;
 
 import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOfCharArray;
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class OrcType
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(OrcType.class).instanceSize();
+    private static final int STRING_INSTANCE_SIZE = ClassLayout.parseClass(String.class).instanceSize();
+
     public enum OrcTypeKind
     {
         BOOLEAN,
@@ -83,6 +89,11 @@ public class OrcType
         return fieldTypeIndexes.get(field);
     }
 
+    public List<Integer> getFieldTypeIndexes()
+    {
+        return fieldTypeIndexes;
+    }
+
     public String getFieldName(int field)
     {
         return fieldNames.get(field);
@@ -93,6 +104,18 @@ public class OrcType
         return fieldNames;
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE + sizeOfObjectArray(fieldTypeIndexes.size());
+        if (fieldNames != null) {
+            size += sizeOfObjectArray(fieldNames.size());
+            for (String fieldName : fieldNames) {
+                size += STRING_INSTANCE_SIZE + sizeOfCharArray(fieldName.length());
+            }
+        }
+        return size;
+    }
+
     @Override
     public String toString()
     {
@@ -30,6 +30,8 @@ public class Stream
         IN_DICTIONARY,
         ROW_GROUP_DICTIONARY,
         ROW_GROUP_DICTIONARY_LENGTH,
+        BLOOM_FILTER,
+        BLOOM_FILTER_UTF8,
     }
 
     private final int column;
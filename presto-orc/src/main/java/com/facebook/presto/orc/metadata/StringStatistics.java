@@ -14,12 +14,15 @@
 package com.facebook.presto.orc.metadata;
 
 import io.airlift.slice.Slice;
+import org.openjdk.jol.info.ClassLayout;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 
 public class StringStatistics
         implements RangeStatistics<Slice>
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(StringStatistics.class).instanceSize();
+
     private final Slice minimum;
     private final Slice maximum;
 
@@ -41,6 +44,11 @@ public class StringStatistics
         return maximum;
     }
 
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + (minimum == null ? 0 : minimum.getRetainedSize()) + (maximum == null ? 0 : maximum.getRetainedSize());
+    }
+
     @Override
     public String toString()
     {
@@ -14,13 +14,19 @@
 package com.facebook.presto.orc.metadata;
 
 import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class StripeFooter
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(StripeFooter.class).instanceSize();
+    private static final int STREAM_INSTANCE_SIZE = ClassLayout.parseClass(Stream.class).instanceSize();
+    private static final int COLUMN_ENCODING_INSTANCE_SIZE = ClassLayout.parseClass(ColumnEncoding.class).instanceSize();
+
     private final List<Stream> streams;
     private final List<ColumnEncoding> columnEncodings;
 
@@ -39,4 +45,14 @@ public class StripeFooter
     {
         return streams;
     }
+
+    /**
+     * Returns an estimate of the heap size retained by the decoded stripe footer.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE +
+                sizeOfObjectArray(streams.size()) + (long) streams.size() * STREAM_INSTANCE_SIZE +
+                sizeOfObjectArray(columnEncodings.size()) + (long) columnEncodings.size() * COLUMN_ENCODING_INSTANCE_SIZE;
+    }
 }
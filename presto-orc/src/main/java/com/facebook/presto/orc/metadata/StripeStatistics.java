@@ -14,13 +14,17 @@
 package com.facebook.presto.orc.metadata;
 
 import com.google.common.collect.ImmutableList;
+import org.openjdk.jol.info.ClassLayout;
 
 import java.util.List;
 
+import static io.airlift.slice.SizeOf.sizeOfObjectArray;
 import static java.util.Objects.requireNonNull;
 
 public class StripeStatistics
 {
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(StripeStatistics.class).instanceSize();
+
     private final List<ColumnStatistics> columnStatistics;
 
     public StripeStatistics(List<ColumnStatistics> columnStatistics)
@@ -32,4 +36,13 @@ public class StripeStatistics
     {
         return columnStatistics;
     }
+
+    public long getRetainedSizeInBytes()
+    {
+        long size = INSTANCE_SIZE + sizeOfObjectArray(columnStatistics.size());
+        for (ColumnStatistics statistics : columnStatistics) {
+            size += statistics.getRetainedSizeInBytes();
+        }
+        return size;
+    }
 }
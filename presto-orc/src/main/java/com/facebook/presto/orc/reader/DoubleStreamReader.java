@@ -78,19 +78,7 @@ public class DoubleStreamReader
             openRowGroup();
         }
 
-        if (readOffset > 0) {
-            if (presentStream != null) {
-                // skip ahead the present bit reader, but count the set bits
-                // and use this as the skip size for the data reader
-                readOffset = presentStream.countBitsSet(readOffset);
-            }
-            if (readOffset > 0) {
-                if (dataStream == null) {
-                    throw new OrcCorruptionException("Value is not null but data stream is not present");
-                }
-                dataStream.skip(readOffset);
-            }
-        }
+        skip(readOffset);
 
         BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), nextBatchSize);
         if (presentStream == null) {
@@ -123,6 +111,55 @@ public class DoubleStreamReader
         return builder.build();
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skip(readOffset);
+
+        BlockBuilder builder = type.createBlockBuilder(new BlockBuilderStatus(), positions.length);
+        int position = 0;
+        for (int selectedPosition : positions) {
+            skip(selectedPosition - position);
+            if (presentStream != null && !presentStream.nextBit()) {
+                builder.appendNull();
+            }
+            else {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException("Value is not null but data stream is not present");
+                }
+                type.writeDouble(builder, dataStream.next());
+            }
+            position = selectedPosition + 1;
+        }
+
+        // the rest of the batch is skipped by the next read
+        readOffset = nextBatchSize - position;
+        nextBatchSize = 0;
+
+        return builder.build();
+    }
+
+    private void skip(int items)
+            throws IOException
+    {
+        if (items > 0 && presentStream != null) {
+            // skip ahead the present bit reader, but count the set bits
+            // and use this as the skip size for the data reader
+            items = presentStream.countBitsSet(items);
+        }
+        if (items > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException("Value is not null but data stream is not present");
+            }
+            dataStream.skip(items);
+        }
+    }
+
     private void openRowGroup()
             throws IOException
     {
@@ -69,6 +69,9 @@ public class SliceDictionaryStreamReader
     private int dictionarySize;
     @Nonnull
     private Slice[] dictionary = new Slice[1];
+    // shared by all blocks of the stripe, so consumers can recognize the dictionary across blocks
+    @Nullable
+    private SliceArrayBlock dictionaryBlock;
 
     @Nonnull
     private StreamSource<LongStream> dictionaryLengthStreamSource = missingStreamSource(LongStream.class);
@@ -201,7 +204,10 @@ public class SliceDictionaryStreamReader
             }
             // copy ids into a private array for this block since data vector is reused
             Slice ids = Slices.wrappedIntArray(Arrays.copyOfRange(dataVector, 0, nextBatchSize));
-            block = new DictionaryBlock(nextBatchSize, new SliceArrayBlock(dictionarySize + 1, dictionary, true), ids);
+            if (dictionaryBlock == null) {
+                dictionaryBlock = new SliceArrayBlock(dictionarySize + 1, dictionary, true);
+            }
+            block = new DictionaryBlock(nextBatchSize, dictionaryBlock, ids);
         }
 
         readOffset = 0;
@@ -216,6 +222,7 @@ public class SliceDictionaryStreamReader
         if (!dictionaryOpen) {
             // We must always create a new dictionary array because we need the last slot to be null
             dictionary = new Slice[dictionarySize + 1];
+            dictionaryBlock = null;
             if (dictionarySize > 0) {
                 int[] dictionaryLength = new int[dictionarySize];
 
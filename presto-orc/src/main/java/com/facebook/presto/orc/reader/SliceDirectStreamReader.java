@@ -24,6 +24,7 @@ import com.facebook.presto.orc.stream.StreamSources;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SliceArrayBlock;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 
@@ -90,25 +91,7 @@ public class SliceDirectStreamReader
             openRowGroup();
         }
 
-        if (readOffset > 0) {
-            if (presentStream != null) {
-                // skip ahead the present bit reader, but count the set bits
-                // and use this as the skip size for the length reader
-                readOffset = presentStream.countBitsSet(readOffset);
-            }
-            if (readOffset > 0) {
-                if (lengthStream == null) {
-                    throw new OrcCorruptionException("Value is not null but length stream is not present");
-                }
-                long dataSkipSize = lengthStream.sum(readOffset);
-                if (dataSkipSize > 0) {
-                    if (dataStream == null) {
-                        throw new OrcCorruptionException("Value is not null but data stream is not present");
-                    }
-                    dataStream.skip(dataSkipSize);
-                }
-            }
-        }
+        skip(readOffset);
 
         if (isNullVector.length < nextBatchSize) {
             isNullVector = new boolean[nextBatchSize];
@@ -165,6 +148,66 @@ public class SliceDirectStreamReader
         return new SliceArrayBlock(sliceVector.length, sliceVector);
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+
+        skip(readOffset);
+
+        Slice[] sliceVector = new Slice[positions.length];
+        int position = 0;
+        for (int i = 0; i < positions.length; i++) {
+            skip(positions[i] - position);
+            if (presentStream == null || presentStream.nextBit()) {
+                if (lengthStream == null) {
+                    throw new OrcCorruptionException("Value is not null but length stream is not present");
+                }
+                int length = Ints.checkedCast(lengthStream.next());
+                byte[] data = EMPTY_BYTE_ARRAY;
+                if (length > 0) {
+                    if (dataStream == null) {
+                        throw new OrcCorruptionException("Value is not null but data stream is not present");
+                    }
+                    data = dataStream.next(length);
+                }
+                sliceVector[i] = Slices.wrappedBuffer(data);
+            }
+            position = positions[i] + 1;
+        }
+
+        // the rest of the batch is skipped by the next read
+        readOffset = nextBatchSize - position;
+        nextBatchSize = 0;
+
+        return new SliceArrayBlock(sliceVector.length, sliceVector);
+    }
+
+    private void skip(int items)
+            throws IOException
+    {
+        if (items > 0 && presentStream != null) {
+            // skip ahead the present bit reader, but count the set bits
+            // and use this as the skip size for the length reader
+            items = presentStream.countBitsSet(items);
+        }
+        if (items > 0) {
+            if (lengthStream == null) {
+                throw new OrcCorruptionException("Value is not null but length stream is not present");
+            }
+            long dataSkipSize = lengthStream.sum(items);
+            if (dataSkipSize > 0) {
+                if (dataStream == null) {
+                    throw new OrcCorruptionException("Value is not null but data stream is not present");
+                }
+                dataStream.skip(dataSkipSize);
+            }
+        }
+    }
+
     private void openRowGroup()
             throws IOException
     {
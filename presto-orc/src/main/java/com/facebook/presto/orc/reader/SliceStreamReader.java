@@ -53,6 +53,13 @@ public class SliceStreamReader
         return currentReader.readBlock(type);
     }
 
+    @Override
+    public Block readBlock(Type type, int[] positions)
+            throws IOException
+    {
+        return currentReader.readBlock(type, positions);
+    }
+
     @Override
     public void prepareNextRead(int batchSize)
     {
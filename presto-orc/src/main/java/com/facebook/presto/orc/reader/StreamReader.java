@@ -17,6 +17,7 @@ import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.stream.StreamSources;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.primitives.Ints;
 
 import java.io.IOException;
 import java.util.List;
@@ -26,6 +27,17 @@ public interface StreamReader
     Block readBlock(Type type)
             throws IOException;
 
+    /**
+     * Reads only the specified positions of the next batch. The positions
+     * must be in increasing order. The values of the other positions are
+     * skipped without being decoded into a block where the encoding allows it.
+     */
+    default Block readBlock(Type type, int[] positions)
+            throws IOException
+    {
+        return readBlock(type).copyPositions(Ints.asList(positions));
+    }
+
     void prepareNextRead(int batchSize);
 
     void startStripe(StreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.checkpoint.BooleanStreamCheckpoint;
+import com.facebook.presto.orc.checkpoint.ByteStreamCheckpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+public class BooleanOutputStream
+        implements ValueOutputStream<BooleanStreamCheckpoint>
+{
+    private final ByteOutputStream byteOutputStream;
+    private final List<Integer> checkpointBitOffsets = new ArrayList<>();
+
+    private int data;
+    private int bitsInData;
+    private boolean closed;
+
+    public BooleanOutputStream(StreamKind streamKind, CompressionKind compressionKind, int bufferSize)
+    {
+        this.byteOutputStream = new ByteOutputStream(streamKind, compressionKind, bufferSize);
+    }
+
+    public void writeBoolean(boolean value)
+    {
+        checkState(!closed, "Stream is closed");
+
+        // bits are stored starting with the most significant bit of each byte
+        data = (data << 1) | (value ? 1 : 0);
+        bitsInData++;
+        if (bitsInData == 8) {
+            byteOutputStream.writeByte((byte) data);
+            data = 0;
+            bitsInData = 0;
+        }
+    }
+
+    public void writeBooleans(int count, boolean value)
+    {
+        for (int i = 0; i < count; i++) {
+            writeBoolean(value);
+        }
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        // the partially filled byte is not written yet, so the reader seeks to
+        // it through the byte stream and skips the bits already in it
+        byteOutputStream.recordCheckpoint();
+        checkpointBitOffsets.add(bitsInData);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (bitsInData > 0) {
+            byteOutputStream.writeByte((byte) (data << (8 - bitsInData)));
+            data = 0;
+            bitsInData = 0;
+        }
+        byteOutputStream.close();
+    }
+
+    @Override
+    public List<BooleanStreamCheckpoint> getCheckpoints()
+    {
+        checkState(closed, "Stream must be closed before the checkpoints are read");
+        List<ByteStreamCheckpoint> byteStreamCheckpoints = byteOutputStream.getCheckpoints();
+        ImmutableList.Builder<BooleanStreamCheckpoint> checkpoints = ImmutableList.builder();
+        for (int i = 0; i < byteStreamCheckpoints.size(); i++) {
+            checkpoints.add(new BooleanStreamCheckpoint(checkpointBitOffsets.get(i), byteStreamCheckpoints.get(i)));
+        }
+        return checkpoints.build();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        return byteOutputStream.getStreamDataOutput(column);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return byteOutputStream.getBufferedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        data = 0;
+        bitsInData = 0;
+        checkpointBitOffsets.clear();
+        byteOutputStream.reset();
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.checkpoint.LongStreamV2Checkpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.stream.LongDecode.getClosestFixedBits;
+import static com.facebook.presto.orc.stream.OrcStreamUtils.MIN_REPEAT_SIZE;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes integers with the ORC run length encoding version 2, which is read by {@link LongStreamV2}.
+ * Runs of equal values are written as short repeats, runs of values with a
+ * fixed delta (including long runs of equal values) with the delta encoding,
+ * and everything else as bit packed direct values. Patched base runs are not written.
+ */
+public class LongOutputStreamV2
+        implements ValueOutputStream<LongStreamV2Checkpoint>
+{
+    private static final int MAX_LITERAL_SIZE = 512;
+    private static final int MAX_SHORT_REPEAT_SIZE = 10;
+    // below this length, a run with a non zero delta is cheaper as direct values
+    private static final int MIN_DELTA_RUN_SIZE = 8;
+
+    private enum EncodingType
+    {
+        SHORT_REPEAT, DIRECT, PATCHED_BASE, DELTA
+    }
+
+    private final StreamKind streamKind;
+    private final boolean signed;
+    private final OrcOutputBuffer buffer;
+    private final List<LongStreamV2Checkpoint> checkpoints = new ArrayList<>();
+
+    private final long[] literals = new long[MAX_LITERAL_SIZE];
+    // length of the fixed delta run starting at each literal
+    private final int[] runLengths = new int[MAX_LITERAL_SIZE];
+    private int numLiterals;
+
+    private boolean closed;
+
+    public LongOutputStreamV2(StreamKind streamKind, CompressionKind compressionKind, int bufferSize, boolean signed)
+    {
+        this.streamKind = requireNonNull(streamKind, "streamKind is null");
+        this.signed = signed;
+        this.buffer = new OrcOutputBuffer(compressionKind, bufferSize);
+    }
+
+    public void writeLong(long value)
+    {
+        checkState(!closed, "Stream is closed");
+
+        literals[numLiterals++] = value;
+        if (numLiterals == MAX_LITERAL_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush()
+    {
+        if (numLiterals == 0) {
+            return;
+        }
+
+        computeRunLengths();
+
+        int offset = 0;
+        while (offset < numLiterals) {
+            if (isRunStart(offset)) {
+                int length = runLengths[offset];
+                long delta = length > 1 ? literals[offset + 1] - literals[offset] : 0;
+                if (delta == 0 && length <= MAX_SHORT_REPEAT_SIZE) {
+                    writeShortRepeat(literals[offset], length);
+                }
+                else {
+                    writeFixedDelta(literals[offset], delta, length);
+                }
+                offset += length;
+            }
+            else {
+                int end = offset + 1;
+                while (end < numLiterals && !isRunStart(end)) {
+                    end++;
+                }
+                writeDirect(offset, end - offset);
+                offset = end;
+            }
+        }
+        numLiterals = 0;
+    }
+
+    private void computeRunLengths()
+    {
+        runLengths[numLiterals - 1] = 1;
+        if (numLiterals > 1) {
+            runLengths[numLiterals - 2] = 2;
+        }
+        for (int i = numLiterals - 3; i >= 0; i--) {
+            if (literals[i + 1] - literals[i] == literals[i + 2] - literals[i + 1]) {
+                runLengths[i] = runLengths[i + 1] + 1;
+            }
+            else {
+                runLengths[i] = 2;
+            }
+        }
+    }
+
+    private boolean isRunStart(int offset)
+    {
+        int length = runLengths[offset];
+        if (length < MIN_REPEAT_SIZE) {
+            return false;
+        }
+        return literals[offset + 1] == literals[offset] || length >= MIN_DELTA_RUN_SIZE;
+    }
+
+    private void writeShortRepeat(long value, int length)
+    {
+        long encoded = signed ? zigzagEncode(value) : value;
+        int bytes = Math.max(1, (bitsRequired(encoded) + 7) / 8);
+
+        buffer.write((EncodingType.SHORT_REPEAT.ordinal() << 6) | ((bytes - 1) << 3) | (length - MIN_REPEAT_SIZE));
+        for (int i = bytes - 1; i >= 0; i--) {
+            buffer.write((int) (encoded >>> (i * 8)));
+        }
+    }
+
+    private void writeFixedDelta(long base, long delta, int length)
+    {
+        // a bit width of zero means all values have the same delta
+        writeHeader(EncodingType.DELTA, 0, length);
+        if (signed) {
+            writeSignedVInt(base);
+        }
+        else {
+            writeUnsignedVInt(base);
+        }
+        writeSignedVInt(delta);
+    }
+
+    private void writeDirect(int offset, int length)
+    {
+        int bits = 0;
+        for (int i = offset; i < offset + length; i++) {
+            long value = signed ? zigzagEncode(literals[i]) : literals[i];
+            bits = Math.max(bits, bitsRequired(value));
+        }
+        int bitWidth = getClosestFixedBits(bits);
+
+        writeHeader(EncodingType.DIRECT, encodeBitWidth(bitWidth), length);
+
+        // values are bit packed starting with the most significant bit
+        int current = 0;
+        int bitsLeft = 8;
+        for (int i = offset; i < offset + length; i++) {
+            long value = signed ? zigzagEncode(literals[i]) : literals[i];
+            int bitsToWrite = bitWidth;
+            while (bitsToWrite > bitsLeft) {
+                current |= (int) (value >>> (bitsToWrite - bitsLeft)) & ((1 << bitsLeft) - 1);
+                bitsToWrite -= bitsLeft;
+                buffer.write(current);
+                current = 0;
+                bitsLeft = 8;
+            }
+            bitsLeft -= bitsToWrite;
+            current |= (int) (value & ((1L << bitsToWrite) - 1)) << bitsLeft;
+            if (bitsLeft == 0) {
+                buffer.write(current);
+                current = 0;
+                bitsLeft = 8;
+            }
+        }
+        if (bitsLeft != 8) {
+            buffer.write(current);
+        }
+    }
+
+    private void writeHeader(EncodingType encodingType, int encodedBitWidth, int length)
+    {
+        // the run length is stored one off in nine bits
+        int storedLength = length - 1;
+        buffer.write((encodingType.ordinal() << 6) | (encodedBitWidth << 1) | ((storedLength >>> 8) & 0x01));
+        buffer.write(storedLength & 0xFF);
+    }
+
+    private void writeSignedVInt(long value)
+    {
+        writeUnsignedVInt(zigzagEncode(value));
+    }
+
+    private void writeUnsignedVInt(long value)
+    {
+        while ((value & ~0x7FL) != 0) {
+            buffer.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.write((int) value);
+    }
+
+    private static long zigzagEncode(long value)
+    {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int bitsRequired(long value)
+    {
+        return Long.SIZE - Long.numberOfLeadingZeros(value);
+    }
+
+    /**
+     * Encodes a bit width returned by {@link LongDecode#getClosestFixedBits} as
+     * expected by {@link LongDecode#decodeBitWidth}.
+     */
+    private static int encodeBitWidth(int bitWidth)
+    {
+        if (bitWidth <= 24) {
+            return bitWidth - 1;
+        }
+        switch (bitWidth) {
+            case 26:
+                return 24;
+            case 28:
+                return 25;
+            case 30:
+                return 26;
+            case 32:
+                return 27;
+            case 40:
+                return 28;
+            case 48:
+                return 29;
+            case 56:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        checkpoints.add(new LongStreamV2Checkpoint(numLiterals, buffer.getCheckpoint()));
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        flush();
+        buffer.close();
+    }
+
+    @Override
+    public List<LongStreamV2Checkpoint> getCheckpoints()
+    {
+        checkState(closed, "Stream must be closed before the checkpoints are read");
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column)
+    {
+        checkState(closed, "Stream must be closed before the data is read");
+        return new StreamDataOutput(new Stream(column, streamKind, Ints.checkedCast(buffer.getOutputDataSize()), false), buffer);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getBufferedBytes() + (numLiterals * Long.BYTES);
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+        numLiterals = 0;
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.iq80.snappy.Snappy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import static com.facebook.presto.orc.checkpoint.InputStreamCheckpoint.createInputStreamCheckpoint;
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffers the bytes of a single stream. For compressed streams the data is
+ * split into chunks of at most {@code maxBufferSize} uncompressed bytes, and
+ * each chunk is stored behind a three byte header, as expected by {@link OrcInputStream}.
+ */
+// This is based on the Apache Hive ORC code
+public class OrcOutputBuffer
+        extends OutputStream
+{
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    // the chunk length is stored in 23 bits of the chunk header
+    private static final int MAX_CHUNK_SIZE = (1 << 23) - 1;
+
+    private final CompressionKind compressionKind;
+    private final int maxBufferSize;
+    private final DynamicSliceOutput compressedOutput = new DynamicSliceOutput(INITIAL_BUFFER_SIZE);
+
+    // uncompressed bytes of the current chunk, only used for compressed streams
+    private byte[] buffer = new byte[0];
+    private int bufferPosition;
+    private byte[] compressionBuffer = new byte[0];
+
+    public OrcOutputBuffer(CompressionKind compressionKind, int maxBufferSize)
+    {
+        this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
+        checkArgument(maxBufferSize > 0 && maxBufferSize <= MAX_CHUNK_SIZE, "maxBufferSize must be between 1 and %s", MAX_CHUNK_SIZE);
+        this.maxBufferSize = maxBufferSize;
+    }
+
+    /**
+     * Returns the position of the next byte written to this buffer as an
+     * {@link com.facebook.presto.orc.checkpoint.InputStreamCheckpoint}.
+     */
+    public long getCheckpoint()
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            return createInputStreamCheckpoint(0, compressedOutput.size());
+        }
+        return createInputStreamCheckpoint(compressedOutput.size(), bufferPosition);
+    }
+
+    @Override
+    public void write(int value)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutput.writeByte(value);
+            return;
+        }
+        ensureBufferCapacity(1);
+        buffer[bufferPosition++] = (byte) value;
+        flushBufferIfFull();
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutput.writeBytes(bytes, offset, length);
+            return;
+        }
+        while (length > 0) {
+            int chunkLength = ensureBufferCapacity(length);
+            System.arraycopy(bytes, offset, buffer, bufferPosition, chunkLength);
+            bufferPosition += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+            flushBufferIfFull();
+        }
+    }
+
+    public void writeBytes(Slice slice, int offset, int length)
+    {
+        if (compressionKind == UNCOMPRESSED) {
+            compressedOutput.writeBytes(slice, offset, length);
+            return;
+        }
+        while (length > 0) {
+            int chunkLength = ensureBufferCapacity(length);
+            slice.getBytes(offset, buffer, bufferPosition, chunkLength);
+            bufferPosition += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+            flushBufferIfFull();
+        }
+    }
+
+    public void writeLong(long value)
+    {
+        // ORC stores fixed width values in little endian order
+        for (int i = 0; i < 8; i++) {
+            write((int) (value >>> (i * 8)));
+        }
+    }
+
+    public void writeDouble(double value)
+    {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * Compresses the remaining buffered bytes. The buffer can not be written to after this.
+     */
+    @Override
+    public void close()
+    {
+        flushBuffer();
+    }
+
+    /**
+     * Returns the size of the stream in the file, which is only final after {@link #close()}.
+     */
+    public long getOutputDataSize()
+    {
+        return compressedOutput.size();
+    }
+
+    public long getBufferedBytes()
+    {
+        return compressedOutput.size() + buffer.length;
+    }
+
+    public void writeDataTo(OutputStream outputStream)
+            throws IOException
+    {
+        compressedOutput.slice().getBytes(0, outputStream, compressedOutput.size());
+    }
+
+    public void reset()
+    {
+        compressedOutput.reset();
+        bufferPosition = 0;
+    }
+
+    /**
+     * Makes room for up to {@code length} bytes in the chunk buffer, and returns
+     * the number of bytes that can be added to the current chunk.
+     */
+    private int ensureBufferCapacity(int length)
+    {
+        int chunkLength = min(length, maxBufferSize - bufferPosition);
+        if (bufferPosition + chunkLength > buffer.length) {
+            int newSize = Math.max(INITIAL_BUFFER_SIZE, buffer.length);
+            while (newSize < bufferPosition + chunkLength) {
+                newSize *= 2;
+            }
+            buffer = Arrays.copyOf(buffer, min(newSize, maxBufferSize));
+        }
+        return chunkLength;
+    }
+
+    private void flushBufferIfFull()
+    {
+        if (bufferPosition == maxBufferSize) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer()
+    {
+        if (bufferPosition == 0) {
+            return;
+        }
+
+        int compressedLength = compress();
+        if (compressedLength < bufferPosition) {
+            writeChunkHeader(compressedLength, false);
+            compressedOutput.writeBytes(compressionBuffer, 0, compressedLength);
+        }
+        else {
+            // data that does not compress is stored as is
+            writeChunkHeader(bufferPosition, true);
+            compressedOutput.writeBytes(buffer, 0, bufferPosition);
+        }
+        bufferPosition = 0;
+    }
+
+    /**
+     * Compresses the chunk buffer into the compression buffer, and returns the
+     * compressed length, or a length of at least the input length if the chunk
+     * does not compress.
+     */
+    private int compress()
+    {
+        if (compressionKind == SNAPPY) {
+            int maxCompressedLength = Snappy.maxCompressedLength(bufferPosition);
+            if (compressionBuffer.length < maxCompressedLength) {
+                compressionBuffer = new byte[maxCompressedLength];
+            }
+            return Snappy.compress(buffer, 0, bufferPosition, compressionBuffer, 0);
+        }
+
+        checkArgument(compressionKind == ZLIB, "Unsupported compression %s", compressionKind);
+        if (compressionBuffer.length < bufferPosition) {
+            compressionBuffer = new byte[bufferPosition];
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(buffer, 0, bufferPosition);
+            deflater.finish();
+            int compressedLength = 0;
+            while (!deflater.finished() && compressedLength < bufferPosition) {
+                compressedLength += deflater.deflate(compressionBuffer, compressedLength, bufferPosition - compressedLength);
+            }
+            if (!deflater.finished()) {
+                return bufferPosition;
+            }
+            return compressedLength;
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    private void writeChunkHeader(int length, boolean original)
+    {
+        int header = (length << 1) | (original ? 1 : 0);
+        compressedOutput.writeByte(header & 0xFF);
+        compressedOutput.writeByte((header >>> 8) & 0xFF);
+        compressedOutput.writeByte((header >>> 16) & 0xFF);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.Stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A finished stream of a stripe together with the buffer holding its data.
+ */
+public final class StreamDataOutput
+{
+    private final Stream stream;
+    private final OrcOutputBuffer buffer;
+
+    public StreamDataOutput(Stream stream, OrcOutputBuffer buffer)
+    {
+        this.stream = requireNonNull(stream, "stream is null");
+        this.buffer = requireNonNull(buffer, "buffer is null");
+    }
+
+    public Stream getStream()
+    {
+        return stream;
+    }
+
+    public void writeData(OutputStream outputStream)
+            throws IOException
+    {
+        buffer.writeDataTo(outputStream);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("stream", stream)
+                .toString();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.MetadataWriter;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes the values of a single column of a stripe. The writer of the file
+ * calls {@link #beginRowGroup()} and {@link #finishRowGroup()} around the
+ * blocks of every row group, and {@link #close()} at the end of the stripe,
+ * after which the streams of the stripe can be read. {@link #reset()}
+ * prepares the writer for the next stripe.
+ */
+public interface ColumnWriter
+{
+    void beginRowGroup();
+
+    void writeBlock(Block block);
+
+    void finishRowGroup();
+
+    void close();
+
+    ColumnEncoding getColumnEncoding();
+
+    ColumnStatistics getColumnStripeStatistics();
+
+    List<StreamDataOutput> getIndexStreams(MetadataWriter metadataWriter)
+            throws IOException;
+
+    List<StreamDataOutput> getDataStreams();
+
+    /**
+     * Returns the approximate size of the data buffered for the current stripe.
+     */
+    long getBufferedBytes();
+
+    void reset();
+}
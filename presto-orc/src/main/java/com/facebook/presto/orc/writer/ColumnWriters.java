@@ -0,0 +1,128 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.checkpoint.BooleanStreamCheckpoint;
+import com.facebook.presto.orc.checkpoint.StreamCheckpoint;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.MetadataWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+
+public final class ColumnWriters
+{
+    private ColumnWriters()
+    {
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        return type.equals(BOOLEAN) ||
+                type.equals(BIGINT) ||
+                type.equals(DATE) ||
+                type.equals(DOUBLE) ||
+                type.equals(VARCHAR) ||
+                type.equals(VARBINARY);
+    }
+
+    public static OrcType toOrcType(Type type)
+    {
+        if (type.equals(BOOLEAN)) {
+            return new OrcType(OrcTypeKind.BOOLEAN, ImmutableList.of(), ImmutableList.of());
+        }
+        if (type.equals(BIGINT)) {
+            return new OrcType(OrcTypeKind.LONG, ImmutableList.of(), ImmutableList.of());
+        }
+        if (type.equals(DATE)) {
+            return new OrcType(OrcTypeKind.DATE, ImmutableList.of(), ImmutableList.of());
+        }
+        if (type.equals(DOUBLE)) {
+            return new OrcType(OrcTypeKind.DOUBLE, ImmutableList.of(), ImmutableList.of());
+        }
+        if (type.equals(VARCHAR)) {
+            return new OrcType(OrcTypeKind.STRING, ImmutableList.of(), ImmutableList.of());
+        }
+        if (type.equals(VARBINARY)) {
+            return new OrcType(OrcTypeKind.BINARY, ImmutableList.of(), ImmutableList.of());
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    public static ColumnWriter createColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, DataSize stringDictionaryMaxMemory)
+    {
+        if (type.equals(BOOLEAN)) {
+            return new BooleanColumnWriter(column, compression, bufferSize);
+        }
+        if (type.equals(BIGINT) || type.equals(DATE)) {
+            return new LongColumnWriter(column, type, compression, bufferSize);
+        }
+        if (type.equals(DOUBLE)) {
+            return new DoubleColumnWriter(column, compression, bufferSize);
+        }
+        if (type.equals(VARCHAR)) {
+            return new SliceColumnWriter(column, type, compression, bufferSize, true, stringDictionaryMaxMemory);
+        }
+        if (type.equals(VARBINARY)) {
+            // binary values are rarely repeated, and have no statistics
+            return new SliceColumnWriter(column, type, compression, bufferSize, false, stringDictionaryMaxMemory);
+        }
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    /**
+     * Creates the position list of a row group in the order expected by
+     * {@link com.facebook.presto.orc.checkpoint.Checkpoints}: the present
+     * stream, if the stripe has one, followed by the data streams of the column.
+     */
+    static List<Integer> createPositionList(CompressionKind compression, Optional<BooleanStreamCheckpoint> presentCheckpoint, StreamCheckpoint... dataCheckpoints)
+    {
+        boolean compressed = compression != UNCOMPRESSED;
+        ImmutableList.Builder<Integer> positionList = ImmutableList.builder();
+        presentCheckpoint.ifPresent(checkpoint -> positionList.addAll(checkpoint.toPositionList(compressed)));
+        for (StreamCheckpoint dataCheckpoint : dataCheckpoints) {
+            positionList.addAll(dataCheckpoint.toPositionList(compressed));
+        }
+        return positionList.build();
+    }
+
+    static StreamDataOutput createRowIndexStream(int column, CompressionKind compression, int bufferSize, MetadataWriter metadataWriter, List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        OrcOutputBuffer buffer = new OrcOutputBuffer(compression, bufferSize);
+        metadataWriter.writeRowIndexes(buffer, rowGroupIndexes);
+        buffer.close();
+        return new StreamDataOutput(new Stream(column, ROW_INDEX, Ints.checkedCast(buffer.getOutputDataSize()), false), buffer);
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.checkpoint.BooleanStreamCheckpoint;
+import com.facebook.presto.orc.checkpoint.ByteArrayStreamCheckpoint;
+import com.facebook.presto.orc.checkpoint.LongStreamV2Checkpoint;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.MetadataWriter;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.stream.ByteArrayOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV2;
+import com.facebook.presto.orc.stream.PresentOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY_V2;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT_V2;
+import static com.facebook.presto.orc.metadata.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.facebook.presto.orc.writer.ColumnWriters.createPositionList;
+import static com.facebook.presto.orc.writer.ColumnWriters.createRowIndexStream;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes VARCHAR and VARBINARY columns. The values of a stripe are collected
+ * in a dictionary, and the stripe is written with the DICTIONARY_V2 encoding
+ * when enough values repeat. Otherwise, or when the dictionary grows beyond
+ * its memory limit, the values are written with the DIRECT_V2 encoding.
+ */
+public class SliceColumnWriter
+        implements ColumnWriter
+{
+    // same threshold as the Hive writer
+    private static final double DICTIONARY_MAX_DISTINCT_RATIO = 0.8;
+    // approximate size of a dictionary entry, in addition to the value itself
+    private static final int DICTIONARY_ENTRY_OVERHEAD = 48;
+
+    private final int column;
+    private final CompressionKind compression;
+    private final int bufferSize;
+    private final boolean statisticsEnabled;
+    private final long dictionaryMaxMemoryBytes;
+
+    private final PresentOutputStream presentStream;
+
+    private final ByteArrayOutputStream directDataStream;
+    private final LongOutputStreamV2 directLengthStream;
+
+    private final LongOutputStreamV2 dictionaryIdStream;
+    private final ByteArrayOutputStream dictionaryDataStream;
+    private final LongOutputStreamV2 dictionaryLengthStream;
+
+    // values of the current stripe, while it can still be written with a dictionary
+    private final Object2IntOpenHashMap<Slice> dictionary = new Object2IntOpenHashMap<>();
+    private final List<Slice> dictionaryValues = new ArrayList<>();
+    private final IntArrayList valueIds = new IntArrayList();
+    // index in valueIds of the first value of each row group of the stripe
+    private final IntArrayList rowGroupValueOffsets = new IntArrayList();
+    private long dictionaryMemoryBytes;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+    private long nonNullValueCount;
+    private Slice minimum;
+    private Slice maximum;
+
+    private final boolean dictionaryEnabled;
+    private boolean directEncoded;
+    private int dictionarySize;
+    private boolean closed;
+
+    public SliceColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, boolean dictionaryEnabled, DataSize dictionaryMaxMemory)
+    {
+        this.column = column;
+        this.compression = requireNonNull(compression, "compression is null");
+        this.bufferSize = bufferSize;
+        this.statisticsEnabled = requireNonNull(type, "type is null").equals(VARCHAR);
+        this.dictionaryEnabled = dictionaryEnabled;
+        this.dictionaryMaxMemoryBytes = requireNonNull(dictionaryMaxMemory, "dictionaryMaxMemory is null").toBytes();
+
+        this.presentStream = new PresentOutputStream(compression, bufferSize);
+        this.directDataStream = new ByteArrayOutputStream(DATA, compression, bufferSize);
+        this.directLengthStream = new LongOutputStreamV2(LENGTH, compression, bufferSize, false);
+        this.dictionaryIdStream = new LongOutputStreamV2(DATA, compression, bufferSize, false);
+        this.dictionaryDataStream = new ByteArrayOutputStream(DICTIONARY_DATA, compression, bufferSize);
+        this.dictionaryLengthStream = new LongOutputStreamV2(LENGTH, compression, bufferSize, false);
+
+        dictionary.defaultReturnValue(-1);
+        directEncoded = !dictionaryEnabled;
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        presentStream.recordCheckpoint();
+        if (directEncoded) {
+            recordDirectCheckpoint();
+        }
+        else {
+            rowGroupValueOffsets.add(valueIds.size());
+        }
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "Column writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                continue;
+            }
+            Slice value = block.getSlice(position, 0, block.getLength(position));
+            presentStream.writeBoolean(true);
+            if (directEncoded) {
+                writeDirectValue(value);
+            }
+            else {
+                addDictionaryValue(value);
+            }
+
+            nonNullValueCount++;
+            if (statisticsEnabled) {
+                if (minimum == null || value.compareTo(minimum) < 0) {
+                    minimum = Slices.copyOf(value);
+                }
+                if (maximum == null || value.compareTo(maximum) > 0) {
+                    maximum = Slices.copyOf(value);
+                }
+            }
+        }
+
+        if (!directEncoded && dictionaryMemoryBytes > dictionaryMaxMemoryBytes) {
+            convertToDirect();
+        }
+    }
+
+    private void addDictionaryValue(Slice value)
+    {
+        int id = dictionary.getInt(value);
+        if (id < 0) {
+            id = dictionaryValues.size();
+            // the value may be backed by a much larger block, so only a copy is retained
+            Slice copy = Slices.copyOf(value);
+            dictionary.put(copy, id);
+            dictionaryValues.add(copy);
+            dictionaryMemoryBytes += copy.length() + DICTIONARY_ENTRY_OVERHEAD;
+        }
+        valueIds.add(id);
+        dictionaryMemoryBytes += Integer.BYTES;
+    }
+
+    private void writeDirectValue(Slice value)
+    {
+        directDataStream.writeSlice(value);
+        directLengthStream.writeLong(value.length());
+    }
+
+    private void recordDirectCheckpoint()
+    {
+        directDataStream.recordCheckpoint();
+        directLengthStream.recordCheckpoint();
+    }
+
+    /**
+     * Writes the values collected so far with the direct encoding, including
+     * the checkpoints of the row groups they belong to.
+     */
+    private void convertToDirect()
+    {
+        int rowGroup = 0;
+        for (int valueIndex = 0; valueIndex < valueIds.size(); valueIndex++) {
+            while (rowGroup < rowGroupValueOffsets.size() && rowGroupValueOffsets.getInt(rowGroup) == valueIndex) {
+                recordDirectCheckpoint();
+                rowGroup++;
+            }
+            writeDirectValue(dictionaryValues.get(valueIds.getInt(valueIndex)));
+        }
+        for (; rowGroup < rowGroupValueOffsets.size(); rowGroup++) {
+            recordDirectCheckpoint();
+        }
+
+        clearDictionary();
+        directEncoded = true;
+    }
+
+    private void writeDictionary()
+    {
+        int[] sortedIds = new int[dictionaryValues.size()];
+        for (int id = 0; id < sortedIds.length; id++) {
+            sortedIds[id] = id;
+        }
+        IntArrays.quickSort(sortedIds, 0, sortedIds.length, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int left, int right)
+            {
+                return dictionaryValues.get(left).compareTo(dictionaryValues.get(right));
+            }
+        });
+
+        // the dictionary is stored in sorted order, so the ids are remapped to the sorted position
+        int[] sortedPositions = new int[sortedIds.length];
+        for (int sortedPosition = 0; sortedPosition < sortedIds.length; sortedPosition++) {
+            Slice value = dictionaryValues.get(sortedIds[sortedPosition]);
+            dictionaryDataStream.writeSlice(value);
+            dictionaryLengthStream.writeLong(value.length());
+            sortedPositions[sortedIds[sortedPosition]] = sortedPosition;
+        }
+
+        int rowGroup = 0;
+        for (int valueIndex = 0; valueIndex < valueIds.size(); valueIndex++) {
+            while (rowGroup < rowGroupValueOffsets.size() && rowGroupValueOffsets.getInt(rowGroup) == valueIndex) {
+                dictionaryIdStream.recordCheckpoint();
+                rowGroup++;
+            }
+            dictionaryIdStream.writeLong(sortedPositions[valueIds.getInt(valueIndex)]);
+        }
+        for (; rowGroup < rowGroupValueOffsets.size(); rowGroup++) {
+            dictionaryIdStream.recordCheckpoint();
+        }
+
+        dictionarySize = sortedIds.length;
+        clearDictionary();
+    }
+
+    private void clearDictionary()
+    {
+        dictionary.clear();
+        dictionaryValues.clear();
+        valueIds.clear();
+        rowGroupValueOffsets.clear();
+        dictionaryMemoryBytes = 0;
+    }
+
+    @Override
+    public void finishRowGroup()
+    {
+        checkState(!closed, "Column writer is closed");
+        StringStatistics stringStatistics = null;
+        if (statisticsEnabled && nonNullValueCount > 0) {
+            stringStatistics = new StringStatistics(minimum, maximum);
+        }
+        rowGroupColumnStatistics.add(new ColumnStatistics(nonNullValueCount, null, null, null, stringStatistics, null));
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+    }
+
+    @Override
+    public void close()
+    {
+        if (!directEncoded) {
+            if (!valueIds.isEmpty() && dictionaryValues.size() <= DICTIONARY_MAX_DISTINCT_RATIO * valueIds.size()) {
+                writeDictionary();
+            }
+            else {
+                convertToDirect();
+            }
+        }
+
+        closed = true;
+        presentStream.close();
+        if (directEncoded) {
+            directDataStream.close();
+            directLengthStream.close();
+        }
+        else {
+            dictionaryIdStream.close();
+            dictionaryDataStream.close();
+            dictionaryLengthStream.close();
+        }
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        checkState(closed, "Column writer must be closed before the encoding is read");
+        if (directEncoded) {
+            return new ColumnEncoding(DIRECT_V2, 0);
+        }
+        return new ColumnEncoding(DICTIONARY_V2, dictionarySize);
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed, "Column writer must be closed before the statistics are read");
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(MetadataWriter metadataWriter)
+            throws IOException
+    {
+        checkState(closed, "Column writer must be closed before the index is read");
+
+        Optional<List<BooleanStreamCheckpoint>> presentCheckpoints = presentStream.getCheckpoints();
+        List<ByteArrayStreamCheckpoint> directDataCheckpoints = directEncoded ? directDataStream.getCheckpoints() : ImmutableList.of();
+        List<LongStreamV2Checkpoint> directLengthCheckpoints = directEncoded ? directLengthStream.getCheckpoints() : ImmutableList.of();
+        List<LongStreamV2Checkpoint> dictionaryIdCheckpoints = directEncoded ? ImmutableList.of() : dictionaryIdStream.getCheckpoints();
+
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < rowGroupColumnStatistics.size(); rowGroup++) {
+            int groupId = rowGroup;
+            Optional<BooleanStreamCheckpoint> presentCheckpoint = presentCheckpoints.map(checkpoints -> checkpoints.get(groupId));
+            List<Integer> positions;
+            if (directEncoded) {
+                positions = createPositionList(compression, presentCheckpoint, directDataCheckpoints.get(groupId), directLengthCheckpoints.get(groupId));
+            }
+            else {
+                positions = createPositionList(compression, presentCheckpoint, dictionaryIdCheckpoints.get(groupId));
+            }
+            rowGroupIndexes.add(new RowGroupIndex(positions, rowGroupColumnStatistics.get(groupId)));
+        }
+        return ImmutableList.of(createRowIndexStream(column, compression, bufferSize, metadataWriter, rowGroupIndexes.build()));
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "Column writer must be closed before the data is read");
+
+        ImmutableList.Builder<StreamDataOutput> outputDataStreams = ImmutableList.builder();
+        presentStream.getStreamDataOutput(column).ifPresent(outputDataStreams::add);
+        if (directEncoded) {
+            outputDataStreams.add(directDataStream.getStreamDataOutput(column));
+            outputDataStreams.add(directLengthStream.getStreamDataOutput(column));
+        }
+        else {
+            outputDataStreams.add(dictionaryIdStream.getStreamDataOutput(column));
+            outputDataStreams.add(dictionaryDataStream.getStreamDataOutput(column));
+            outputDataStreams.add(dictionaryLengthStream.getStreamDataOutput(column));
+        }
+        return outputDataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return presentStream.getBufferedBytes() +
+                directDataStream.getBufferedBytes() +
+                directLengthStream.getBufferedBytes() +
+                dictionaryIdStream.getBufferedBytes() +
+                dictionaryDataStream.getBufferedBytes() +
+                dictionaryLengthStream.getBufferedBytes() +
+                dictionaryMemoryBytes;
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        directEncoded = !dictionaryEnabled;
+        dictionarySize = 0;
+        presentStream.reset();
+        directDataStream.reset();
+        directLengthStream.reset();
+        dictionaryIdStream.reset();
+        dictionaryDataStream.reset();
+        dictionaryLengthStream.reset();
+        clearDictionary();
+        rowGroupColumnStatistics.clear();
+        nonNullValueCount = 0;
+        minimum = null;
+        maximum = null;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.serde2.Serializer;
+import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+
+/**
+ * Compares the write throughput of the Presto ORC writer with the Hive ORC
+ * writer, which serializes every row through an object inspector.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkOrcWriter
+{
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("id", "price", "status", "comment");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, DOUBLE, VARCHAR, VARCHAR);
+    private static final int PAGE_COUNT = 100;
+    private static final int POSITIONS_PER_PAGE = 1024;
+
+    @Benchmark
+    public long prestoWriter(BenchmarkData data)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(new FileOutputStream(data.getOutputFile()), COLUMN_NAMES, TYPES, data.getCompression());
+        for (Page page : data.getPages()) {
+            writer.write(page);
+        }
+        writer.close();
+        return data.getOutputFile().length();
+    }
+
+    @Benchmark
+    public long hiveWriter(BenchmarkData data)
+            throws Exception
+    {
+        JobConf jobConf = new JobConf();
+        jobConf.set("hive.exec.orc.default.compress", data.getCompression() == CompressionKind.UNCOMPRESSED ? "NONE" : data.getCompression().name());
+
+        Properties tableProperties = new Properties();
+        tableProperties.setProperty("columns", String.join(",", COLUMN_NAMES));
+        tableProperties.setProperty("columns.types", "bigint:double:string:string");
+
+        RecordWriter recordWriter = new OrcOutputFormat().getHiveRecordWriter(
+                jobConf,
+                new Path(data.getOutputFile().toURI()),
+                Text.class,
+                data.getCompression() != CompressionKind.UNCOMPRESSED,
+                tableProperties,
+                () -> { });
+
+        SettableStructObjectInspector objectInspector = getStandardStructObjectInspector(
+                COLUMN_NAMES,
+                ImmutableList.of(javaLongObjectInspector, javaDoubleObjectInspector, javaStringObjectInspector, javaStringObjectInspector));
+        List<StructField> fields = ImmutableList.copyOf(objectInspector.getAllStructFieldRefs());
+        @SuppressWarnings("deprecation") Serializer serde = new OrcSerde();
+        Object row = objectInspector.create();
+
+        for (Page page : data.getPages()) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                for (int channel = 0; channel < TYPES.size(); channel++) {
+                    Type type = TYPES.get(channel);
+                    Block block = page.getBlock(channel);
+                    Object value;
+                    if (block.isNull(position)) {
+                        value = null;
+                    }
+                    else if (type.equals(BIGINT)) {
+                        value = BIGINT.getLong(block, position);
+                    }
+                    else if (type.equals(DOUBLE)) {
+                        value = DOUBLE.getDouble(block, position);
+                    }
+                    else {
+                        value = VARCHAR.getSlice(block, position).toStringUtf8();
+                    }
+                    objectInspector.setStructFieldData(row, fields.get(channel), value);
+                }
+                recordWriter.write(serde.serialize(row, objectInspector));
+            }
+        }
+        recordWriter.close(false);
+        return data.getOutputFile().length();
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"UNCOMPRESSED", "ZLIB", "SNAPPY"})
+        private CompressionKind compression;
+
+        private File temporaryDirectory;
+        private File outputFile;
+        private List<Page> pages;
+
+        @Setup
+        public void setup()
+                throws IOException
+        {
+            temporaryDirectory = Files.createTempDirectory("orc-writer").toFile();
+            outputFile = new File(temporaryDirectory, "data.orc");
+            pages = createPages();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            outputFile.delete();
+            temporaryDirectory.delete();
+        }
+
+        public CompressionKind getCompression()
+        {
+            return compression;
+        }
+
+        public File getOutputFile()
+        {
+            // the Hive writer does not overwrite existing files
+            outputFile.delete();
+            return outputFile;
+        }
+
+        public List<Page> getPages()
+        {
+            return pages;
+        }
+
+        private static List<Page> createPages()
+        {
+            Random random = new Random(0);
+            List<String> statuses = ImmutableList.of("OPEN", "PENDING", "SHIPPED", "RETURNED", "CANCELLED");
+
+            List<Page> pages = new ArrayList<>(PAGE_COUNT);
+            long id = 0;
+            for (int page = 0; page < PAGE_COUNT; page++) {
+                BlockBuilder ids = BIGINT.createBlockBuilder(new BlockBuilderStatus(), POSITIONS_PER_PAGE);
+                BlockBuilder prices = DOUBLE.createBlockBuilder(new BlockBuilderStatus(), POSITIONS_PER_PAGE);
+                BlockBuilder status = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), POSITIONS_PER_PAGE);
+                BlockBuilder comments = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), POSITIONS_PER_PAGE);
+                for (int position = 0; position < POSITIONS_PER_PAGE; position++) {
+                    BIGINT.writeLong(ids, id++);
+                    DOUBLE.writeDouble(prices, random.nextInt(100_000) / 100.0);
+                    VARCHAR.writeSlice(status, utf8Slice(statuses.get(random.nextInt(statuses.size()))));
+                    if (random.nextInt(10) == 0) {
+                        comments.appendNull();
+                    }
+                    else {
+                        VARCHAR.writeSlice(comments, utf8Slice("comment " + Long.toHexString(random.nextLong())));
+                    }
+                }
+                pages.add(new Page(ids.build(), prices.build(), status.build(), comments.build()));
+            }
+            return pages;
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkOrcWriter.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
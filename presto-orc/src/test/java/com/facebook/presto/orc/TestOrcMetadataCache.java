@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.orc.OrcMetadataCache.disabledOrcMetadataCache;
+import static com.facebook.presto.orc.OrcTester.Compression.ZLIB;
+import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumn;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcMetadataCache
+{
+    @Test
+    public void testFileTailAndStripeFooters()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeOrcColumn(tempFile.getFile(), ORC_12, ZLIB, javaLongObjectInspector, LongStream.range(0, 50_000).boxed().iterator());
+            File file = tempFile.getFile();
+            OrcFileId fileId = new OrcFileId(file.getPath(), file.length(), file.lastModified());
+
+            OrcMetadataCache cache = new OrcMetadataCache(new DataSize(1, MEGABYTE));
+
+            TestingOrcDataSource firstDataSource = createDataSource(file);
+            OrcReader first = createReader(firstDataSource, cache, fileId);
+            assertTrue(firstDataSource.getReadCount() > 0);
+            assertEquals(cache.getMissCount(), 1);
+            assertEquals(cache.getHitCount(), 0);
+            long stripeCount = first.getFooter().getStripes().size();
+            assertEquals(readAll(first), 50_000);
+            assertEquals(cache.getMissCount(), 1 + stripeCount);
+
+            TestingOrcDataSource secondDataSource = createDataSource(file);
+            OrcReader second = createReader(secondDataSource, cache, fileId);
+            assertEquals(secondDataSource.getReadCount(), 0);
+            assertSame(second.getFooter(), first.getFooter());
+            assertSame(second.getMetadata(), first.getMetadata());
+            assertEquals(cache.getHitCount(), 1);
+            assertTrue(cache.getBytesSaved() > 0);
+            assertEquals(readAll(second), 50_000);
+            assertEquals(cache.getHitCount(), 1 + stripeCount);
+            assertEquals(cache.getMissCount(), 1 + stripeCount);
+
+            // a different version of the file is read again
+            createReader(createDataSource(file), cache, new OrcFileId(file.getPath(), file.length(), file.lastModified() + 1));
+            assertEquals(cache.getMissCount(), 2 + stripeCount);
+        }
+    }
+
+    @Test
+    public void testRetainedSize()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeOrcColumn(tempFile.getFile(), ORC_12, ZLIB, javaLongObjectInspector, LongStream.range(0, 50_000).boxed().iterator());
+            File file = tempFile.getFile();
+            OrcFileId fileId = new OrcFileId(file.getPath(), file.length(), file.lastModified());
+
+            OrcMetadataCache cache = new OrcMetadataCache(new DataSize(1, MEGABYTE));
+            OrcReader reader = createReader(createDataSource(file), cache, fileId);
+            OrcFileTail fileTail = cache.getFileTail(Optional.of(fileId), () -> {
+                throw new AssertionError("file tail should be cached");
+            });
+            assertSame(fileTail.getFooter(), reader.getFooter());
+
+            Footer footer = fileTail.getFooter();
+            Metadata metadata = fileTail.getMetadata();
+            assertTrue(footer.getRetainedSizeInBytes() > 0);
+            assertTrue(metadata.getRetainedSizeInBytes() > 0);
+            assertTrue(fileTail.getRetainedSizeInBytes() > footer.getRetainedSizeInBytes() + metadata.getRetainedSizeInBytes());
+
+            // adding a stripe and its statistics grows the estimate
+            Footer largerFooter = new Footer(
+                    footer.getNumberOfRows(),
+                    footer.getRowsInRowGroup(),
+                    ImmutableList.<StripeInformation>builder().addAll(footer.getStripes()).add(footer.getStripes().get(0)).build(),
+                    footer.getTypes(),
+                    footer.getFileStats());
+            assertTrue(largerFooter.getRetainedSizeInBytes() > footer.getRetainedSizeInBytes());
+        }
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeOrcColumn(tempFile.getFile(), ORC_12, ZLIB, javaLongObjectInspector, LongStream.range(0, 1_000).boxed().iterator());
+            File file = tempFile.getFile();
+            OrcFileId fileId = new OrcFileId(file.getPath(), file.length(), file.lastModified());
+
+            OrcMetadataCache cache = disabledOrcMetadataCache();
+            for (int i = 0; i < 2; i++) {
+                TestingOrcDataSource dataSource = createDataSource(file);
+                createReader(dataSource, cache, fileId);
+                assertTrue(dataSource.getReadCount() > 0);
+            }
+            assertEquals(cache.getEntryCount(), 0);
+            assertEquals(cache.getHitCount(), 0);
+        }
+    }
+
+    private static TestingOrcDataSource createDataSource(File file)
+            throws IOException
+    {
+        // a tiny merge distance keeps the reader from caching the whole file
+        return new TestingOrcDataSource(new FileOrcDataSource(file, new DataSize(1, BYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE)));
+    }
+
+    private static OrcReader createReader(OrcDataSource dataSource, OrcMetadataCache cache, OrcFileId fileId)
+            throws IOException
+    {
+        return new OrcReader(dataSource, new OrcMetadataReader(), new DataSize(1, BYTE), new DataSize(1, MEGABYTE), cache, Optional.of(fileId));
+    }
+
+    private static long readAll(OrcReader reader)
+            throws IOException
+    {
+        OrcRecordReader recordReader = reader.createRecordReader(ImmutableMap.of(0, BIGINT), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, new AggregatedMemoryContext());
+        long rows = 0;
+        for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+            rows += batchSize;
+        }
+        recordReader.close();
+        return rows;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static com.facebook.presto.orc.OrcTester.Compression.ZLIB;
+import static com.facebook.presto.orc.OrcTester.Format.ORC_12;
+import static com.facebook.presto.orc.OrcTester.createCustomOrcRecordReader;
+import static com.facebook.presto.orc.OrcTester.writeOrcColumn;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcReaderSelectedPositions
+{
+    // more than two row groups, so that the skipped rows of a batch cross row group boundaries
+    private static final int ROW_COUNT = 25_000;
+
+    @Test
+    public void testLongDirect()
+            throws Exception
+    {
+        assertSelectedPositions(BIGINT, javaLongObjectInspector, i -> i * 3L - 1000);
+    }
+
+    @Test
+    public void testDouble()
+            throws Exception
+    {
+        assertSelectedPositions(DOUBLE, javaDoubleObjectInspector, i -> i * 0.5);
+    }
+
+    @Test
+    public void testSliceDirect()
+            throws Exception
+    {
+        // every value is distinct, so the writer does not use a dictionary
+        assertSelectedPositions(VARCHAR, javaStringObjectInspector, i -> "value " + i);
+    }
+
+    private static void assertSelectedPositions(Type type, ObjectInspector objectInspector, IntFunction<Object> valueFunction)
+            throws Exception
+    {
+        // without nulls the column has no present stream
+        assertSelectedPositions(type, objectInspector, valueFunction, false);
+        assertSelectedPositions(type, objectInspector, valueFunction, true);
+    }
+
+    private static void assertSelectedPositions(Type type, ObjectInspector objectInspector, IntFunction<Object> valueFunction, boolean withNulls)
+            throws Exception
+    {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            values.add(withNulls && i % 5 == 0 ? null : valueFunction.apply(i));
+        }
+
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeOrcColumn(tempFile.getFile(), ORC_12, ZLIB, objectInspector, values.iterator());
+
+            OrcRecordReader fullReader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(), OrcPredicate.TRUE, type);
+            OrcRecordReader selectedReader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(), OrcPredicate.TRUE, type);
+
+            int batch = 0;
+            long rowCount = 0;
+            for (int batchSize = fullReader.nextBatch(); batchSize >= 0; batchSize = fullReader.nextBatch()) {
+                assertEquals(selectedReader.nextBatch(), batchSize);
+                Block fullBlock = fullReader.readBlock(type, 0);
+                assertEquals(fullBlock.getPositionCount(), batchSize);
+
+                // batches in which the column is not read at all are skipped by the next read
+                int[] positions = getPositions(batch, batchSize);
+                if (positions != null) {
+                    Block selectedBlock = selectedReader.readBlock(type, 0, positions);
+                    assertEquals(selectedBlock.getPositionCount(), positions.length);
+                    for (int i = 0; i < positions.length; i++) {
+                        assertEquals(selectedBlock.isNull(i), fullBlock.isNull(positions[i]));
+                        if (!selectedBlock.isNull(i)) {
+                            assertTrue(type.equalTo(selectedBlock, i, fullBlock, positions[i]));
+                        }
+                    }
+                }
+                rowCount += batchSize;
+                batch++;
+            }
+            assertEquals(selectedReader.nextBatch(), -1);
+            assertEquals(rowCount, ROW_COUNT);
+
+            fullReader.close();
+            selectedReader.close();
+        }
+    }
+
+    private static int[] getPositions(int batch, int batchSize)
+    {
+        switch (batch % 5) {
+            case 0:
+                // every third position, with an offset that changes from batch to batch
+                List<Integer> positions = new ArrayList<>();
+                for (int position = batch % 3; position < batchSize; position += 3) {
+                    positions.add(position);
+                }
+                return positions.stream().mapToInt(Integer::intValue).toArray();
+            case 1:
+                return null;
+            case 2:
+                return batchSize == 1 ? new int[] {0} : new int[] {0, batchSize - 1};
+            case 3:
+                int[] all = new int[batchSize];
+                for (int position = 0; position < batchSize; position++) {
+                    all[position] = position;
+                }
+                return all;
+            default:
+                return new int[0];
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcWriter
+{
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("bigint", "dictionary", "direct", "double", "boolean", "date", "varbinary");
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, VARCHAR, DOUBLE, BOOLEAN, DATE, VARBINARY);
+    private static final int ROW_COUNT = 35_000;
+    private static final int PAGE_SIZE = 3_001;
+    private static final int STRIPE_MAX_ROW_COUNT = 20_000;
+    private static final int ROW_GROUP_MAX_ROW_COUNT = 10_000;
+
+    private final List<Page> pages = createPages();
+
+    @Test
+    public void testRoundTrip()
+            throws Exception
+    {
+        for (CompressionKind compression : CompressionKind.values()) {
+            try (TempFile tempFile = new TempFile("test", "orc")) {
+                writeFile(tempFile, compression, new DataSize(16, MEGABYTE));
+                assertFileContents(tempFile, OrcPredicate.TRUE, 0);
+            }
+        }
+    }
+
+    @Test
+    public void testDictionaryMemoryLimit()
+            throws Exception
+    {
+        // the dictionary of the low cardinality column is converted to the direct encoding in the middle of the stripe
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, CompressionKind.ZLIB, new DataSize(1, KILOBYTE));
+            assertFileContents(tempFile, OrcPredicate.TRUE, 0);
+        }
+    }
+
+    @Test
+    public void testRowGroupSkipping()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, CompressionKind.SNAPPY, new DataSize(16, MEGABYTE));
+
+            // only the last row group of the second stripe can contain values of at least 32,000
+            OrcPredicate predicate = (numberOfRows, statisticsByColumnIndex) -> {
+                IntegerStatistics statistics = statisticsByColumnIndex.get(0).getIntegerStatistics();
+                return statistics != null && statistics.getMax() != null && statistics.getMax() >= 32_000;
+            };
+            assertEquals(assertFileContents(tempFile, predicate, 30_000), ROW_COUNT - 30_000);
+        }
+    }
+
+    @Test
+    public void testStatistics()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, CompressionKind.ZLIB, new DataSize(16, MEGABYTE));
+
+            OrcReader orcReader = createOrcReader(tempFile);
+            assertEquals(orcReader.getColumnNames(), COLUMN_NAMES);
+            assertEquals(orcReader.getFooter().getNumberOfRows(), ROW_COUNT);
+            assertEquals(orcReader.getFooter().getStripes().size(), 2);
+            assertEquals(orcReader.getFooter().getRowsInRowGroup(), ROW_GROUP_MAX_ROW_COUNT);
+
+            List<ColumnStatistics> fileStatistics = orcReader.getFooter().getFileStats();
+            assertEquals(fileStatistics.get(0).getNumberOfValues(), ROW_COUNT);
+
+            ColumnStatistics bigintStatistics = fileStatistics.get(1);
+            assertEquals(bigintStatistics.getNumberOfValues(), IntStream.range(0, ROW_COUNT).filter(row -> row % 7 != 0).count());
+            assertEquals(bigintStatistics.getIntegerStatistics().getMin().longValue(), 1);
+            assertEquals(bigintStatistics.getIntegerStatistics().getMax().longValue(), ROW_COUNT - 1);
+
+            ColumnStatistics dictionaryStatistics = fileStatistics.get(2);
+            assertEquals(dictionaryStatistics.getStringStatistics().getMin(), utf8Slice("value0"));
+            assertEquals(dictionaryStatistics.getStringStatistics().getMax(), utf8Slice("value9"));
+
+            ColumnStatistics booleanStatistics = fileStatistics.get(5);
+            long trueValues = IntStream.range(0, ROW_COUNT).filter(row -> row % 17 != 0 && row % 3 == 0).count();
+            assertEquals(booleanStatistics.getBooleanStatistics().getTrueValueCount(), trueValues);
+
+            assertNull(fileStatistics.get(7).getStringStatistics());
+        }
+    }
+
+    @Test
+    public void testReadWithHive()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "orc")) {
+            writeFile(tempFile, CompressionKind.ZLIB, new DataSize(16, MEGABYTE));
+
+            Reader reader = OrcFile.createReader(new Path(tempFile.getFile().toURI()), OrcFile.readerOptions(new Configuration()));
+            assertEquals(reader.getNumberOfRows(), ROW_COUNT);
+
+            StructObjectInspector rowInspector = (StructObjectInspector) reader.getObjectInspector();
+            List<StructField> fields = ImmutableList.copyOf(rowInspector.getAllStructFieldRefs());
+
+            RecordReader rows = reader.rows();
+            Object row = null;
+            for (int position = 0; position < ROW_COUNT; position++) {
+                assertTrue(rows.hasNext());
+                row = rows.next(row);
+                Object bigint = rowInspector.getStructFieldData(row, fields.get(0));
+                if (position % 7 == 0) {
+                    assertNull(bigint);
+                }
+                else {
+                    assertEquals(bigint.toString(), String.valueOf(position));
+                }
+                Object dictionary = rowInspector.getStructFieldData(row, fields.get(1));
+                if (position % 11 == 0) {
+                    assertNull(dictionary);
+                }
+                else {
+                    assertEquals(dictionary.toString(), "value" + (position % 13));
+                }
+                assertEquals(rowInspector.getStructFieldData(row, fields.get(2)).toString(), "unique" + position);
+            }
+            assertFalse(rows.hasNext());
+            rows.close();
+        }
+    }
+
+    private void writeFile(TempFile tempFile, CompressionKind compression, DataSize dictionaryMaxMemory)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new FileOutputStream(tempFile.getFile()),
+                COLUMN_NAMES,
+                TYPES,
+                compression,
+                new DataSize(64, MEGABYTE),
+                STRIPE_MAX_ROW_COUNT,
+                ROW_GROUP_MAX_ROW_COUNT,
+                new DataSize(8, KILOBYTE),
+                dictionaryMaxMemory);
+        for (Page page : pages) {
+            writer.write(page);
+        }
+        writer.close();
+    }
+
+    private int assertFileContents(TempFile tempFile, OrcPredicate predicate, int firstRow)
+            throws IOException
+    {
+        OrcReader orcReader = createOrcReader(tempFile);
+        ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+        for (int column = 0; column < TYPES.size(); column++) {
+            includedColumns.put(column, TYPES.get(column));
+        }
+        OrcRecordReader recordReader = orcReader.createRecordReader(includedColumns.build(), predicate, HIVE_STORAGE_TIME_ZONE, new AggregatedMemoryContext());
+
+        int rowsRead = 0;
+        for (int batchSize = (int) recordReader.nextBatch(); batchSize >= 0; batchSize = (int) recordReader.nextBatch()) {
+            assertEquals(recordReader.getFilePosition(), firstRow + rowsRead);
+            for (int column = 0; column < TYPES.size(); column++) {
+                Type type = TYPES.get(column);
+                Block block = recordReader.readBlock(type, column);
+                for (int position = 0; position < batchSize; position++) {
+                    int row = firstRow + rowsRead + position;
+                    Block expectedBlock = pages.get(row / PAGE_SIZE).getBlock(column);
+                    Object expected = type.getObjectValue(SESSION, expectedBlock, row % PAGE_SIZE);
+                    assertEquals(type.getObjectValue(SESSION, block, position), expected, "row " + row + " of column " + column);
+                }
+            }
+            rowsRead += batchSize;
+        }
+        recordReader.close();
+        return rowsRead;
+    }
+
+    private static OrcReader createOrcReader(TempFile tempFile)
+            throws IOException
+    {
+        DataSize bufferSize = new DataSize(1, MEGABYTE);
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), bufferSize, bufferSize, bufferSize);
+        return new OrcReader(orcDataSource, new OrcMetadataReader(), bufferSize, bufferSize);
+    }
+
+    private static List<Page> createPages()
+    {
+        List<Page> pages = new ArrayList<>();
+        for (int pageStart = 0; pageStart < ROW_COUNT; pageStart += PAGE_SIZE) {
+            int pageEnd = Math.min(pageStart + PAGE_SIZE, ROW_COUNT);
+            BlockBuilder bigint = BIGINT.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            BlockBuilder dictionary = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            BlockBuilder direct = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            BlockBuilder doubles = DOUBLE.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            BlockBuilder booleans = BOOLEAN.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            BlockBuilder dates = DATE.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            BlockBuilder varbinary = VARBINARY.createBlockBuilder(new BlockBuilderStatus(), PAGE_SIZE);
+            for (int row = pageStart; row < pageEnd; row++) {
+                if (row % 7 == 0) {
+                    bigint.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(bigint, row);
+                }
+                if (row % 11 == 0) {
+                    dictionary.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(dictionary, utf8Slice("value" + (row % 13)));
+                }
+                VARCHAR.writeSlice(direct, utf8Slice("unique" + row));
+                if (row % 5 == 0) {
+                    doubles.appendNull();
+                }
+                else {
+                    DOUBLE.writeDouble(doubles, row * 0.5);
+                }
+                if (row % 17 == 0) {
+                    booleans.appendNull();
+                }
+                else {
+                    BOOLEAN.writeBoolean(booleans, row % 3 == 0);
+                }
+                DATE.writeLong(dates, row % 1000);
+                if (row % 2 == 0) {
+                    varbinary.appendNull();
+                }
+                else {
+                    VARBINARY.writeSlice(varbinary, wrappedBuffer(Longs.toByteArray(row)));
+                }
+            }
+            pages.add(new Page(bigint.build(), dictionary.build(), direct.build(), doubles.build(), booleans.build(), dates.build(), varbinary.build()));
+        }
+        return pages;
+    }
+}
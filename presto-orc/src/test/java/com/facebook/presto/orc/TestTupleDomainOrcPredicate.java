@@ -13,14 +13,21 @@
  */
 package com.facebook.presto.orc;
 
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.orc.metadata.BloomFilter;
 import com.facebook.presto.orc.metadata.BooleanStatistics;
 import com.facebook.presto.orc.metadata.ColumnStatistics;
 import com.facebook.presto.orc.metadata.DateStatistics;
 import com.facebook.presto.orc.metadata.DoubleStatistics;
 import com.facebook.presto.orc.metadata.IntegerStatistics;
 import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.orc.TupleDomainOrcPredicate.getDomain;
@@ -42,6 +49,8 @@ import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.slice.Slices.utf8Slice;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestTupleDomainOrcPredicate
 {
@@ -196,4 +205,51 @@ public class TestTupleDomainOrcPredicate
     {
         return new ColumnStatistics(numberOfValues, null, null, null, null, new DateStatistics(minimum, maximum));
     }
+
+    @Test
+    public void testBloomFilter()
+            throws Exception
+    {
+        BloomFilter stringBloomFilter = new BloomFilter(new long[64], 3);
+        stringBloomFilter.addSlice(utf8Slice("apple"));
+        stringBloomFilter.addSlice(utf8Slice("taco"));
+        ColumnStatistics stringStatistics = stringColumnStats(10L, "apple", "taco").withBloomFilter(stringBloomFilter);
+
+        assertTrue(matches(VARCHAR, 10, stringStatistics, singleValue(VARCHAR, utf8Slice("apple"))));
+        assertFalse(matches(VARCHAR, 10, stringStatistics, singleValue(VARCHAR, utf8Slice("banana"))));
+        assertTrue(matches(VARCHAR, 10, stringStatistics, create(ValueSet.of(VARCHAR, utf8Slice("banana"), utf8Slice("taco")), false)));
+        assertFalse(matches(VARCHAR, 10, stringStatistics, create(ValueSet.of(VARCHAR, utf8Slice("banana"), utf8Slice("cherry")), false)));
+        // ranges can not be checked with the bloom filter
+        assertTrue(matches(VARCHAR, 10, stringStatistics, create(ValueSet.ofRanges(range(VARCHAR, utf8Slice("banana"), true, utf8Slice("cherry"), true)), false)));
+        // the minimum and maximum are still checked
+        assertFalse(matches(VARCHAR, 10, stringStatistics, singleValue(VARCHAR, utf8Slice("zebra"))));
+
+        // nulls are not in the bloom filter
+        ColumnStatistics stringStatisticsWithNulls = stringColumnStats(5L, "apple", "taco").withBloomFilter(stringBloomFilter);
+        assertTrue(matches(VARCHAR, 10, stringStatisticsWithNulls, create(ValueSet.of(VARCHAR, utf8Slice("banana")), true)));
+        assertFalse(matches(VARCHAR, 10, stringStatisticsWithNulls, create(ValueSet.of(VARCHAR, utf8Slice("banana")), false)));
+        assertFalse(matches(VARCHAR, 10, stringStatistics, create(ValueSet.of(VARCHAR, utf8Slice("banana")), true)));
+
+        BloomFilter longBloomFilter = new BloomFilter(new long[64], 3);
+        longBloomFilter.addLong(0);
+        longBloomFilter.addLong(100);
+        ColumnStatistics longStatistics = integerColumnStats(10L, 0L, 100L).withBloomFilter(longBloomFilter);
+        assertTrue(matches(BIGINT, 10, longStatistics, singleValue(BIGINT, 100L)));
+        assertFalse(matches(BIGINT, 10, longStatistics, singleValue(BIGINT, 42L)));
+
+        BloomFilter doubleBloomFilter = new BloomFilter(new long[64], 3);
+        doubleBloomFilter.addDouble(3.3);
+        doubleBloomFilter.addDouble(42.24);
+        ColumnStatistics doubleStatistics = doubleColumnStats(10L, 3.3, 42.24).withBloomFilter(doubleBloomFilter);
+        assertTrue(matches(DOUBLE, 10, doubleStatistics, singleValue(DOUBLE, 3.3)));
+        assertFalse(matches(DOUBLE, 10, doubleStatistics, singleValue(DOUBLE, 4.4)));
+    }
+
+    private static boolean matches(Type type, long rowCount, ColumnStatistics columnStatistics, Domain domain)
+    {
+        TupleDomainOrcPredicate<String> predicate = new TupleDomainOrcPredicate<>(
+                TupleDomain.withColumnDomains(ImmutableMap.of("column", domain)),
+                ImmutableList.of(new ColumnReference<>("column", 0, type)));
+        return predicate.matches(rowCount, ImmutableMap.of(0, columnStatistics));
+    }
 }
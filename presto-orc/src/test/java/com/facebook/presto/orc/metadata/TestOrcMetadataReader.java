@@ -13,17 +13,29 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import com.facebook.presto.hive.protobuf.ByteString;
+import com.facebook.presto.hive.protobuf.CodedOutputStream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.concatSlices;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.firstSurrogateCharacter;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMaxSlice;
 import static com.facebook.presto.orc.metadata.OrcMetadataReader.getMinSlice;
+import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.Character.MAX_CODE_POINT;
 import static java.lang.Character.MIN_CODE_POINT;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestOrcMetadataReader
 {
@@ -89,4 +101,95 @@ public class TestOrcMetadataReader
             }
         }
     }
+
+    @Test
+    public void testReadBloomFilterIndexes()
+            throws Exception
+    {
+        BloomFilter first = new BloomFilter(new long[16], 3);
+        first.addSlice(utf8Slice("apple"));
+        first.addLong(42);
+        BloomFilter second = new BloomFilter(new long[16], 4);
+        second.addSlice(utf8Slice("taco"));
+        second.addDouble(3.3);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeBytes(1, serializeBloomFilter(first, false));
+        output.writeBytes(1, serializeBloomFilter(second, true));
+        output.flush();
+
+        List<BloomFilter> bloomFilters = new OrcMetadataReader().readBloomFilterIndexes(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(bloomFilters.size(), 2);
+
+        assertEquals(bloomFilters.get(0).getNumHashFunctions(), 3);
+        assertEquals(bloomFilters.get(0).getBitset(), first.getBitset());
+        assertTrue(bloomFilters.get(0).testSlice(utf8Slice("apple")));
+        assertTrue(bloomFilters.get(0).testLong(42));
+        assertFalse(bloomFilters.get(0).testSlice(utf8Slice("taco")));
+
+        assertEquals(bloomFilters.get(1).getNumHashFunctions(), 4);
+        assertEquals(bloomFilters.get(1).getBitset(), second.getBitset());
+        assertTrue(bloomFilters.get(1).testSlice(utf8Slice("taco")));
+        assertTrue(bloomFilters.get(1).testDouble(3.3));
+        assertFalse(bloomFilters.get(1).testSlice(utf8Slice("apple")));
+    }
+
+    @Test
+    public void testReadBloomFilterStreamKinds()
+            throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeBytes(1, serializeStream(1, 6, 10));
+        output.writeBytes(1, serializeStream(1, 7, 20));
+        output.writeBytes(1, serializeStream(1, 8, 30));
+        output.writeBytes(1, serializeStream(1, 1, 40));
+        output.flush();
+
+        StripeFooter stripeFooter = new OrcMetadataReader().readStripeFooter(ImmutableList.of(), new ByteArrayInputStream(bytes.toByteArray()));
+        List<Stream> streams = stripeFooter.getStreams();
+        assertEquals(streams.size(), 4);
+        assertEquals(streams.get(0).getStreamKind(), StreamKind.ROW_INDEX);
+        assertEquals(streams.get(1).getStreamKind(), StreamKind.BLOOM_FILTER);
+        assertEquals(streams.get(1).getLength(), 20);
+        assertEquals(streams.get(2).getStreamKind(), StreamKind.BLOOM_FILTER_UTF8);
+        assertEquals(streams.get(2).getLength(), 30);
+        assertEquals(streams.get(3).getStreamKind(), StreamKind.DATA);
+    }
+
+    private static ByteString serializeBloomFilter(BloomFilter bloomFilter, boolean utf8)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeUInt32(1, bloomFilter.getNumHashFunctions());
+        long[] bitset = bloomFilter.getBitset();
+        if (utf8) {
+            Slice slice = Slices.allocate(bitset.length * Long.BYTES);
+            for (int i = 0; i < bitset.length; i++) {
+                slice.setLong(i * Long.BYTES, bitset[i]);
+            }
+            output.writeBytes(3, ByteString.copyFrom(slice.getBytes()));
+        }
+        else {
+            for (long value : bitset) {
+                output.writeFixed64(2, value);
+            }
+        }
+        output.flush();
+        return ByteString.copyFrom(bytes.toByteArray());
+    }
+
+    private static ByteString serializeStream(int column, int kind, int length)
+            throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.writeEnum(1, kind);
+        output.writeUInt32(2, column);
+        output.writeUInt64(3, length);
+        output.flush();
+        return ByteString.copyFrom(bytes.toByteArray());
+    }
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.raptor;
 
+import com.facebook.presto.raptor.backup.BackupService;
 import com.facebook.presto.raptor.metadata.ColumnInfo;
 import com.facebook.presto.raptor.metadata.ForMetadata;
 import com.facebook.presto.raptor.metadata.MetadataDao;
@@ -35,10 +36,13 @@ import com.facebook.presto.spi.ConnectorTableLayoutResult;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.ConnectorViewDefinition;
 import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.LocalProperty;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.ViewNotFoundException;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
@@ -58,6 +62,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
@@ -69,6 +74,11 @@ import static com.facebook.presto.raptor.RaptorColumnHandle.shardRowIdHandle;
 import static com.facebook.presto.raptor.RaptorColumnHandle.shardUuidColumnHandle;
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
 import static com.facebook.presto.raptor.RaptorSessionProperties.getExternalBatchId;
+import static com.facebook.presto.raptor.RaptorSessionProperties.isOrderedScanEnabled;
+import static com.facebook.presto.raptor.RaptorTableProperties.BUCKETED_ON_PROPERTY;
+import static com.facebook.presto.raptor.RaptorTableProperties.BUCKET_COUNT_PROPERTY;
+import static com.facebook.presto.raptor.RaptorTableProperties.getBucketColumns;
+import static com.facebook.presto.raptor.RaptorTableProperties.getBucketCount;
 import static com.facebook.presto.raptor.RaptorTableProperties.getSortColumns;
 import static com.facebook.presto.raptor.RaptorTableProperties.getTemporalColumn;
 import static com.facebook.presto.raptor.metadata.SchemaDaoUtil.createTablesWithRetry;
@@ -76,9 +86,11 @@ import static com.facebook.presto.raptor.util.DatabaseUtil.onDemandDao;
 import static com.facebook.presto.raptor.util.DatabaseUtil.runTransaction;
 import static com.facebook.presto.raptor.util.Types.checkType;
 import static com.facebook.presto.spi.StandardErrorCode.ALREADY_EXISTS;
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_TABLE_PROPERTY;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
@@ -99,6 +111,7 @@ public class RaptorMetadata
     private final JsonCodec<ShardInfo> shardInfoCodec;
     private final JsonCodec<ShardDelta> shardDeltaCodec;
     private final String connectorId;
+    private final boolean backupAvailable;
 
     @Inject
     public RaptorMetadata(
@@ -106,7 +119,19 @@ public class RaptorMetadata
             @ForMetadata IDBI dbi,
             ShardManager shardManager,
             JsonCodec<ShardInfo> shardInfoCodec,
-            JsonCodec<ShardDelta> shardDeltaCodec)
+            JsonCodec<ShardDelta> shardDeltaCodec,
+            BackupService backupService)
+    {
+        this(connectorId, dbi, shardManager, shardInfoCodec, shardDeltaCodec, requireNonNull(backupService, "backupService is null").isBackupAvailable());
+    }
+
+    public RaptorMetadata(
+            RaptorConnectorId connectorId,
+            IDBI dbi,
+            ShardManager shardManager,
+            JsonCodec<ShardInfo> shardInfoCodec,
+            JsonCodec<ShardDelta> shardDeltaCodec,
+            boolean backupAvailable)
     {
         requireNonNull(connectorId, "connectorId is null");
 
@@ -116,6 +141,7 @@ public class RaptorMetadata
         this.shardManager = requireNonNull(shardManager, "shardManager is null");
         this.shardInfoCodec = requireNonNull(shardInfoCodec, "shardInfoCodec is null");
         this.shardDeltaCodec = requireNonNull(shardDeltaCodec, "shardDeltaCodec is null");
+        this.backupAvailable = backupAvailable;
 
         createTablesWithRetry(dbi);
     }
@@ -155,7 +181,8 @@ public class RaptorMetadata
                 tableName.getTableName(),
                 table.getTableId(),
                 OptionalLong.empty(),
-                Optional.ofNullable(sampleWeightColumnHandle));
+                Optional.ofNullable(sampleWeightColumnHandle),
+                table.getBucketCount());
     }
 
     @Override
@@ -247,14 +274,64 @@ public class RaptorMetadata
     public List<ConnectorTableLayoutResult> getTableLayouts(ConnectorSession session, ConnectorTableHandle table, Constraint<ColumnHandle> constraint, Optional<Set<ColumnHandle>> desiredColumns)
     {
         RaptorTableHandle handle = checkType(table, RaptorTableHandle.class, "table");
-        ConnectorTableLayout layout = new ConnectorTableLayout(new RaptorTableLayoutHandle(handle, constraint.getSummary()));
-        return ImmutableList.of(new ConnectorTableLayoutResult(layout, constraint.getSummary()));
+        TupleDomain<ColumnHandle> summary = constraint.getSummary();
+
+        // Buckets can only be read on their nodes once the bucket balancer has moved the newly written
+        // shards there. Until then, the table is read like an unbucketed table from the nodes of its shards.
+        List<RaptorColumnHandle> bucketColumns = ImmutableList.of();
+        if (handle.getBucketCount().isPresent() && shardManager.areShardsOnBucketNodes(handle.getTableId())) {
+            bucketColumns = getBucketColumnHandles(handle.getTableId());
+        }
+
+        ImmutableList.Builder<ConnectorTableLayoutResult> layouts = ImmutableList.builder();
+        layouts.add(new ConnectorTableLayoutResult(getTableLayout(new RaptorTableLayoutHandle(handle, summary, ImmutableList.of(), bucketColumns)), summary));
+
+        // an ordered scan reads all shards of a node in a single split, so it is only the second choice,
+        // and the engine picks it for any TopN over the ordering columns, which is why it is off by default
+        List<RaptorColumnHandle> sortColumns = isOrderedScanEnabled(session) ? getSortColumnHandles(handle.getTableId()) : ImmutableList.of();
+        if (!sortColumns.isEmpty()) {
+            layouts.add(new ConnectorTableLayoutResult(getTableLayout(new RaptorTableLayoutHandle(handle, summary, sortColumns, bucketColumns)), summary));
+        }
+        return layouts.build();
     }
 
     @Override
     public ConnectorTableLayout getTableLayout(ConnectorSession session, ConnectorTableLayoutHandle handle)
     {
-        return new ConnectorTableLayout(handle);
+        return getTableLayout(checkType(handle, RaptorTableLayoutHandle.class, "handle"));
+    }
+
+    private static ConnectorTableLayout getTableLayout(RaptorTableLayoutHandle handle)
+    {
+        List<RaptorColumnHandle> sortColumns = handle.getSortColumns();
+        List<RaptorColumnHandle> bucketColumns = handle.getBucketColumns();
+        if (sortColumns.isEmpty() && bucketColumns.isEmpty()) {
+            return new ConnectorTableLayout(handle);
+        }
+
+        // every bucket is read by a single split, so the rows of a bucket key are never split up
+        Optional<Set<ColumnHandle>> partitioningColumns = Optional.empty();
+        if (!bucketColumns.isEmpty()) {
+            partitioningColumns = Optional.of(ImmutableSet.copyOf(bucketColumns));
+        }
+
+        // shards are sorted with nulls first, but the merge returns the rows with
+        // a null first sort column last to match the default order of ORDER BY
+        ImmutableList.Builder<LocalProperty<ColumnHandle>> localProperties = ImmutableList.builder();
+        if (!sortColumns.isEmpty()) {
+            localProperties.add(new SortingProperty<>(sortColumns.get(0), ASC_NULLS_LAST));
+            for (RaptorColumnHandle column : sortColumns.subList(1, sortColumns.size())) {
+                localProperties.add(new SortingProperty<>(column, ASC_NULLS_FIRST));
+            }
+        }
+
+        return new ConnectorTableLayout(
+                handle,
+                Optional.empty(),
+                TupleDomain.all(),
+                partitioningColumns,
+                Optional.empty(),
+                localProperties.build());
     }
 
     @Override
@@ -294,7 +371,7 @@ public class RaptorMetadata
         int ordinalPosition = existingColumns.size();
 
         String type = column.getType().getTypeSignature().toString();
-        dao.insertColumn(table.getTableId(), columnId, column.getName(), ordinalPosition, type, null);
+        dao.insertColumn(table.getTableId(), columnId, column.getName(), ordinalPosition, type, null, null);
         shardManager.addColumn(table.getTableId(), new ColumnInfo(columnId, column.getType()));
     }
 
@@ -322,6 +399,8 @@ public class RaptorMetadata
 
         List<RaptorColumnHandle> sortColumnHandles = getSortColumnHandles(getSortColumns(tableMetadata.getProperties()), columnHandleMap);
         Optional<RaptorColumnHandle> temporalColumnHandle = getTemporalColumnHandle(getTemporalColumn(tableMetadata.getProperties()), columnHandleMap);
+        OptionalInt bucketCount = getBucketCount(tableMetadata.getProperties());
+        List<RaptorColumnHandle> bucketColumnHandles = getBucketColumnHandles(getBucketColumns(tableMetadata.getProperties()), columnHandleMap);
 
         if (temporalColumnHandle.isPresent()) {
             RaptorColumnHandle column = temporalColumnHandle.get();
@@ -330,6 +409,18 @@ public class RaptorMetadata
             }
         }
 
+        if (bucketCount.isPresent() != !bucketColumnHandles.isEmpty()) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("Table properties %s and %s must be set together", BUCKET_COUNT_PROPERTY, BUCKETED_ON_PROPERTY));
+        }
+        if (bucketCount.isPresent() && (bucketCount.getAsInt() <= 0)) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, "Bucket count must be greater than zero");
+        }
+
+        // shards are written on any node and moved to the node of their bucket through the backup store
+        if (bucketCount.isPresent() && !backupAvailable) {
+            throw new PrestoException(NOT_SUPPORTED, "Bucketed tables require a backup store");
+        }
+
         RaptorColumnHandle sampleWeightColumnHandle = null;
         if (tableMetadata.isSampled()) {
             sampleWeightColumnHandle = new RaptorColumnHandle(connectorId, SAMPLE_WEIGHT_COLUMN_NAME, columnId, BIGINT);
@@ -349,7 +440,9 @@ public class RaptorMetadata
                 Optional.ofNullable(sampleWeightColumnHandle),
                 sortColumnHandles,
                 nCopies(sortColumnHandles.size(), ASC_NULLS_FIRST),
-                temporalColumnHandle);
+                temporalColumnHandle,
+                bucketCount,
+                bucketColumnHandles);
     }
 
     private static Optional<RaptorColumnHandle> getTemporalColumnHandle(String temporalColumn, Map<String, RaptorColumnHandle> columnHandleMap)
@@ -377,6 +470,18 @@ public class RaptorMetadata
         return columnHandles.build();
     }
 
+    private static List<RaptorColumnHandle> getBucketColumnHandles(List<String> bucketColumns, Map<String, RaptorColumnHandle> columnHandleMap)
+    {
+        ImmutableList.Builder<RaptorColumnHandle> columnHandles = ImmutableList.builder();
+        for (String column : bucketColumns) {
+            if (!columnHandleMap.containsKey(column)) {
+                throw new PrestoException(NOT_FOUND, "Bucketing column does not exist: " + column);
+            }
+            columnHandles.add(columnHandleMap.get(column));
+        }
+        return columnHandles.build();
+    }
+
     @Override
     public void commitCreateTable(ConnectorSession session, ConnectorOutputTableHandle outputTableHandle, Collection<Slice> fragments)
     {
@@ -385,8 +490,11 @@ public class RaptorMetadata
 
         long newTableId = runTransaction(dbi, (dbiHandle, status) -> {
             MetadataDao dao = dbiHandle.attach(MetadataDao.class);
-            long tableId = dao.insertTable(table.getSchemaName(), table.getTableName(), true);
+            // compaction would merge shards of different buckets
+            boolean compactionEnabled = !table.getBucketCount().isPresent();
+            long tableId = dao.insertTable(table.getSchemaName(), table.getTableName(), compactionEnabled);
             List<RaptorColumnHandle> sortColumnHandles = table.getSortColumnHandles();
+            List<RaptorColumnHandle> bucketColumnHandles = table.getBucketColumnHandles();
 
             for (int i = 0; i < table.getColumnTypes().size(); i++) {
                 RaptorColumnHandle column = table.getColumnHandles().get(i);
@@ -394,13 +502,18 @@ public class RaptorMetadata
                 int columnId = i + 1;
                 String type = table.getColumnTypes().get(i).getTypeSignature().toString();
                 Integer sortPosition = sortColumnHandles.contains(column) ? sortColumnHandles.indexOf(column) : null;
-                dao.insertColumn(tableId, columnId, column.getColumnName(), i, type, sortPosition);
+                Integer bucketPosition = bucketColumnHandles.contains(column) ? bucketColumnHandles.indexOf(column) : null;
+                dao.insertColumn(tableId, columnId, column.getColumnName(), i, type, sortPosition, bucketPosition);
 
                 if (table.getTemporalColumnHandle().isPresent() && table.getTemporalColumnHandle().get().equals(column)) {
                     dao.updateTemporalColumnId(tableId, columnId);
                 }
             }
 
+            if (table.getBucketCount().isPresent()) {
+                dao.updateBucketCount(tableId, table.getBucketCount().getAsInt());
+            }
+
             return tableId;
         });
 
@@ -408,6 +521,9 @@ public class RaptorMetadata
 
         // TODO: refactor this to avoid creating an empty table on failure
         shardManager.createTable(newTableId, columns);
+        if (table.getBucketCount().isPresent()) {
+            shardManager.createBuckets(newTableId, table.getBucketCount().getAsInt());
+        }
         shardManager.commitShards(transactionId, newTableId, columns, parseFragments(fragments), Optional.empty());
     }
 
@@ -421,7 +537,8 @@ public class RaptorMetadata
     @Override
     public ConnectorInsertTableHandle beginInsert(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
-        long tableId = checkType(tableHandle, RaptorTableHandle.class, "tableHandle").getTableId();
+        RaptorTableHandle table = checkType(tableHandle, RaptorTableHandle.class, "tableHandle");
+        long tableId = table.getTableId();
 
         ImmutableList.Builder<RaptorColumnHandle> columnHandles = ImmutableList.builder();
         ImmutableList.Builder<Type> columnTypes = ImmutableList.builder();
@@ -434,6 +551,7 @@ public class RaptorMetadata
 
         Optional<String> externalBatchId = getExternalBatchId(session);
         List<RaptorColumnHandle> sortColumnHandles = getSortColumnHandles(tableId);
+        List<RaptorColumnHandle> bucketColumnHandles = getBucketColumnHandles(tableId);
         return new RaptorInsertTableHandle(connectorId,
                 transactionId,
                 tableId,
@@ -441,7 +559,9 @@ public class RaptorMetadata
                 columnTypes.build(),
                 externalBatchId,
                 sortColumnHandles,
-                nCopies(sortColumnHandles.size(), ASC_NULLS_FIRST));
+                nCopies(sortColumnHandles.size(), ASC_NULLS_FIRST),
+                table.getBucketCount(),
+                bucketColumnHandles);
     }
 
     private List<RaptorColumnHandle> getSortColumnHandles(long tableId)
@@ -451,6 +571,13 @@ public class RaptorMetadata
                 .collect(toList());
     }
 
+    private List<RaptorColumnHandle> getBucketColumnHandles(long tableId)
+    {
+        return dao.listBucketColumns(tableId).stream()
+                .map(this::getRaptorColumnHandle)
+                .collect(toList());
+    }
+
     @Override
     public void commitInsert(ConnectorSession session, ConnectorInsertTableHandle insertHandle, Collection<Slice> fragments)
     {
@@ -489,7 +616,8 @@ public class RaptorMetadata
                 handle.getTableName(),
                 handle.getTableId(),
                 OptionalLong.of(transactionId),
-                handle.getSampleWeightColumnHandle());
+                handle.getSampleWeightColumnHandle(),
+                handle.getBucketCount());
     }
 
     @Override
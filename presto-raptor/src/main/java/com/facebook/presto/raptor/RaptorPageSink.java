@@ -30,20 +30,28 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static java.util.Collections.nCopies;
+import static java.util.Comparator.comparingLong;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
 public class RaptorPageSink
         implements ConnectorPageSink
 {
-    private final StoragePageSink storagePageSink;
+    private final StorageManager storageManager;
     private final JsonCodec<ShardInfo> shardInfoCodec;
+    private final long transactionId;
+    private final List<Long> columnIds;
     private final int sampleWeightField;
 
     private final PageSorter pageSorter;
@@ -51,7 +59,9 @@ public class RaptorPageSink
     private final List<Integer> sortFields;
     private final List<SortOrder> sortOrders;
 
-    private final PageBuffer pageBuffer;
+    private final long maxBufferBytes;
+    private final List<Integer> bucketFields;
+    private final PageWriter[] writers;
 
     public RaptorPageSink(
             PageSorter pageSorter,
@@ -63,14 +73,16 @@ public class RaptorPageSink
             Optional<Long> sampleWeightColumnId,
             List<Long> sortColumnIds,
             List<SortOrder> sortOrders,
+            OptionalInt bucketCount,
+            List<Long> bucketColumnIds,
             DataSize maxBufferSize)
     {
         this.pageSorter = requireNonNull(pageSorter, "pageSorter is null");
         this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
-
-        requireNonNull(storageManager, "storageManager is null");
-        this.storagePageSink = storageManager.createStoragePageSink(transactionId, columnIds, columnTypes);
+        this.columnIds = ImmutableList.copyOf(requireNonNull(columnIds, "columnIds is null"));
+        this.storageManager = requireNonNull(storageManager, "storageManager is null");
         this.shardInfoCodec = requireNonNull(shardInfoCodec, "shardInfoCodec is null");
+        this.transactionId = transactionId;
 
         requireNonNull(sampleWeightColumnId, "sampleWeightColumnId is null");
         this.sampleWeightField = columnIds.indexOf(sampleWeightColumnId.orElse(-1L));
@@ -78,8 +90,17 @@ public class RaptorPageSink
         this.sortFields = ImmutableList.copyOf(sortColumnIds.stream().map(columnIds::indexOf).collect(toList()));
         this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
 
-        // allow only Integer.MAX_VALUE rows to be buffered as that is the max rows we can sort
-        this.pageBuffer = new PageBuffer(maxBufferSize.toBytes(), Integer.MAX_VALUE);
+        requireNonNull(bucketCount, "bucketCount is null");
+        this.bucketFields = ImmutableList.copyOf(bucketColumnIds.stream().map(columnIds::indexOf).collect(toList()));
+        checkArgument(bucketCount.isPresent() == !bucketFields.isEmpty(), "bucketCount and bucketColumnIds must be set together");
+
+        this.maxBufferBytes = maxBufferSize.toBytes();
+        if (bucketCount.isPresent()) {
+            this.writers = new PageWriter[bucketCount.getAsInt()];
+        }
+        else {
+            this.writers = new PageWriter[] {new PageWriter(OptionalInt.empty())};
+        }
     }
 
     @Override
@@ -89,24 +110,50 @@ public class RaptorPageSink
             return;
         }
 
-        flushPageBufferIfNecessary(page.getPositionCount());
-
         if (sampleWeightField >= 0) {
             page = createPageWithSampleWeightBlock(page, sampleWeightBlock);
         }
 
-        pageBuffer.add(page);
+        if (bucketFields.isEmpty()) {
+            writers[0].appendPage(page);
+            releaseMemoryIfNecessary();
+            return;
+        }
+
+        List<List<Integer>> bucketPositions = new ArrayList<>(nCopies(writers.length, null));
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int bucket = getBucket(page, position);
+            if (bucketPositions.get(bucket) == null) {
+                bucketPositions.set(bucket, new ArrayList<>());
+            }
+            bucketPositions.get(bucket).add(position);
+        }
+
+        for (int bucket = 0; bucket < writers.length; bucket++) {
+            List<Integer> positions = bucketPositions.get(bucket);
+            if (positions == null) {
+                continue;
+            }
+            if (writers[bucket] == null) {
+                writers[bucket] = new PageWriter(OptionalInt.of(bucket));
+            }
+            writers[bucket].appendPage(copyPositions(page, positions));
+        }
+
+        releaseMemoryIfNecessary();
     }
 
     @Override
     public Collection<Slice> commit()
     {
-        flushPages(pageBuffer.getPages());
-        List<ShardInfo> shards = storagePageSink.commit();
-
         ImmutableList.Builder<Slice> fragments = ImmutableList.builder();
-        for (ShardInfo shard : shards) {
-            fragments.add(Slices.wrappedBuffer(shardInfoCodec.toJsonBytes(shard)));
+        for (PageWriter writer : writers) {
+            if (writer == null) {
+                continue;
+            }
+            for (ShardInfo shard : writer.commit()) {
+                fragments.add(Slices.wrappedBuffer(shardInfoCodec.toJsonBytes(shard)));
+            }
         }
         return fragments.build();
     }
@@ -114,7 +161,11 @@ public class RaptorPageSink
     @Override
     public void rollback()
     {
-        storagePageSink.rollback();
+        for (PageWriter writer : writers) {
+            if (writer != null) {
+                writer.rollback();
+            }
+        }
     }
 
     /**
@@ -138,49 +189,148 @@ public class RaptorPageSink
         return new Page(blocks);
     }
 
-    private void flushPageBufferIfNecessary(int rowsToAdd)
+    private int getBucket(Page page, int position)
     {
-        if (shouldFlush(rowsToAdd)) {
-            flushPages(pageBuffer.getPages());
-            pageBuffer.reset();
-            storagePageSink.flush();
+        int hash = 0;
+        for (int field : bucketFields) {
+            Block block = page.getBlock(field);
+            int valueHash = block.isNull(position) ? 0 : columnTypes.get(field).hash(block, position);
+            hash = (31 * hash) + valueHash;
+        }
+        return (hash & Integer.MAX_VALUE) % writers.length;
+    }
+
+    private static Page copyPositions(Page page, List<Integer> positions)
+    {
+        if (positions.size() == page.getPositionCount()) {
+            return page;
         }
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positions);
+        }
+        return new Page(positions.size(), blocks);
     }
 
     /**
-     * Flushes pages in the PageBuffer to StoragePageSink if ANY of the following is true:
-     * <ul>
-     * <li>rows written to the StoragePageSink >= maxRowsCount</li>
-     * <li>pageBuffer has maximum allowable bytes</li>
-     * <li>pageBuffer has more than Integer.MAX_VALUE rows (PagesSorter.sort can sort Integer.MAX_VALUE rows at a time)</li>
-     * </ul>
+     * The buffers of all buckets share the maximum buffer size. When they exceed it, the
+     * largest buffers are written to the open shards of their buckets, so a tight budget
+     * or a large bucket count does not cut small shards.
      */
-    private boolean shouldFlush(int rowsToAdd)
+    private void releaseMemoryIfNecessary()
     {
-        return storagePageSink.isFull() || !pageBuffer.canAddRows(rowsToAdd);
+        long bufferedBytes = Arrays.stream(writers)
+                .filter(Objects::nonNull)
+                .mapToLong(PageWriter::getBufferedBytes)
+                .sum();
+        while (bufferedBytes >= maxBufferBytes) {
+            PageWriter largest = Arrays.stream(writers)
+                    .filter(Objects::nonNull)
+                    .max(comparingLong(PageWriter::getBufferedBytes))
+                    .get();
+            bufferedBytes -= largest.getBufferedBytes();
+            largest.releaseMemory();
+        }
     }
 
-    private void flushPages(List<Page> pages)
+    private class PageWriter
     {
-        if (pages.isEmpty()) {
-            return;
+        private final StoragePageSink storagePageSink;
+        private final PageBuffer pageBuffer;
+
+        public PageWriter(OptionalInt bucketNumber)
+        {
+            this.storagePageSink = storageManager.createStoragePageSink(transactionId, bucketNumber, columnIds, columnTypes);
+
+            // the memory of the buffers of all buckets is limited by the sink
+            // allow only Integer.MAX_VALUE rows to be buffered as that is the max rows we can sort
+            this.pageBuffer = new PageBuffer(Long.MAX_VALUE, Integer.MAX_VALUE);
         }
 
-        if (sortFields.isEmpty()) {
-            storagePageSink.appendPages(pages);
+        public void appendPage(Page page)
+        {
+            flushPageBufferIfNecessary(page.getPositionCount());
+            pageBuffer.add(page);
         }
-        else {
-            checkState(pageBuffer.getRowCount() <= Integer.MAX_VALUE);
-
-            long[] orderedAddresses = pageSorter.sort(columnTypes, pages, sortFields, sortOrders, Ints.checkedCast(pageBuffer.getRowCount()));
-            int[] orderedPageIndex = new int[orderedAddresses.length];
-            int[] orderedPositionIndex = new int[orderedAddresses.length];
-            for (int i = 0; i < orderedAddresses.length; i++) {
-                orderedPageIndex[i] = pageSorter.decodePageIndex(orderedAddresses[i]);
-                orderedPositionIndex[i] = pageSorter.decodePositionIndex(orderedAddresses[i]);
+
+        public long getBufferedBytes()
+        {
+            return pageBuffer.getUsedMemoryBytes();
+        }
+
+        public List<ShardInfo> commit()
+        {
+            flushPages(pageBuffer.getPages());
+            return storagePageSink.commit();
+        }
+
+        public void rollback()
+        {
+            storagePageSink.rollback();
+        }
+
+        public void flush()
+        {
+            flushPages(pageBuffer.getPages());
+            pageBuffer.reset();
+            storagePageSink.flush();
+        }
+
+        /**
+         * Writes the buffered pages to the open shard. A sorted shard must be written
+         * in a single sorted run, so the shard of a sorted table is finished instead.
+         */
+        public void releaseMemory()
+        {
+            if (!sortFields.isEmpty()) {
+                flush();
+                return;
+            }
+            flushPages(pageBuffer.getPages());
+            pageBuffer.reset();
+        }
+
+        private void flushPageBufferIfNecessary(int rowsToAdd)
+        {
+            if (shouldFlush(rowsToAdd)) {
+                flush();
             }
+        }
 
-            storagePageSink.appendPages(pages, orderedPageIndex, orderedPositionIndex);
+        /**
+         * Flushes pages in the PageBuffer to StoragePageSink if ANY of the following is true:
+         * <ul>
+         * <li>rows written to the StoragePageSink >= maxRowsCount</li>
+         * <li>pageBuffer has more than Integer.MAX_VALUE rows (PagesSorter.sort can sort Integer.MAX_VALUE rows at a time)</li>
+         * </ul>
+         */
+        private boolean shouldFlush(int rowsToAdd)
+        {
+            return storagePageSink.isFull() || !pageBuffer.canAddRows(rowsToAdd);
+        }
+
+        private void flushPages(List<Page> pages)
+        {
+            if (pages.isEmpty()) {
+                return;
+            }
+
+            if (sortFields.isEmpty()) {
+                storagePageSink.appendPages(pages);
+            }
+            else {
+                checkState(pageBuffer.getRowCount() <= Integer.MAX_VALUE);
+
+                long[] orderedAddresses = pageSorter.sort(columnTypes, pages, sortFields, sortOrders, Ints.checkedCast(pageBuffer.getRowCount()));
+                int[] orderedPageIndex = new int[orderedAddresses.length];
+                int[] orderedPositionIndex = new int[orderedAddresses.length];
+                for (int i = 0; i < orderedAddresses.length; i++) {
+                    orderedPageIndex[i] = pageSorter.decodePageIndex(orderedAddresses[i]);
+                    orderedPositionIndex[i] = pageSorter.decodePositionIndex(orderedAddresses[i]);
+                }
+
+                storagePageSink.appendPages(pages, orderedPageIndex, orderedPositionIndex);
+            }
         }
     }
 }
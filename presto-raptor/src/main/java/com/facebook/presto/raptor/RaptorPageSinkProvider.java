@@ -65,6 +65,8 @@ public class RaptorPageSinkProvider
                 handle.getSampleWeightColumnHandle().map(RaptorColumnHandle::getColumnId),
                 toColumnIds(handle.getSortColumnHandles()),
                 handle.getSortOrders(),
+                handle.getBucketCount(),
+                toColumnIds(handle.getBucketColumnHandles()),
                 maxBufferSize);
     }
 
@@ -82,6 +84,8 @@ public class RaptorPageSinkProvider
                 Optional.empty(),
                 toColumnIds(handle.getSortColumnHandles()),
                 handle.getSortOrders(),
+                handle.getBucketCount(),
+                toColumnIds(handle.getBucketColumnHandles()),
                 maxBufferSize);
     }
 
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.raptor;
 
+import com.facebook.presto.raptor.storage.ConcatPageSource;
+import com.facebook.presto.raptor.storage.MergingPageSource;
 import com.facebook.presto.raptor.storage.ReaderAttributes;
 import com.facebook.presto.raptor.storage.StorageManager;
 import com.facebook.presto.spi.ColumnHandle;
@@ -24,11 +26,13 @@ import com.facebook.presto.spi.type.Type;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.function.Function;
 
 import static com.facebook.presto.raptor.util.Types.checkType;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 
@@ -48,18 +52,50 @@ public class RaptorPageSourceProvider
     {
         RaptorSplit raptorSplit = checkType(split, RaptorSplit.class, "split");
 
-        UUID shardUuid = raptorSplit.getShardUuid();
         List<RaptorColumnHandle> columnHandles = columns.stream().map(toRaptorColumnHandle()).collect(toList());
+        ReaderAttributes readerAttributes = ReaderAttributes.from(session);
+
+        List<RaptorColumnHandle> sortColumns = raptorSplit.getSortColumns();
+        if (sortColumns.isEmpty()) {
+            List<UUID> shardUuids = raptorSplit.getShardUuids();
+            if (shardUuids.size() == 1) {
+                return createPageSource(getOnlyElement(shardUuids), columnHandles, raptorSplit, readerAttributes);
+            }
+            return new ConcatPageSource(shardUuids, shardUuid -> createPageSource(shardUuid, columnHandles, raptorSplit, readerAttributes));
+        }
+
+        // the merge needs the sort columns, read them after the requested columns if they are missing
+        List<RaptorColumnHandle> readColumns = new ArrayList<>(columnHandles);
+        sortColumns.stream()
+                .filter(column -> !readColumns.contains(column))
+                .forEach(readColumns::add);
+        List<Integer> sortChannels = sortColumns.stream()
+                .map(readColumns::indexOf)
+                .collect(toList());
+        List<Type> readTypes = readColumns.stream().map(RaptorColumnHandle::getColumnType).collect(toList());
+
+        return new MergingPageSource(
+                raptorSplit.getShardUuids(),
+                raptorSplit.getShardRanges(),
+                shardUuid -> createPageSource(shardUuid, readColumns, raptorSplit, readerAttributes),
+                readTypes,
+                columnHandles.size(),
+                sortChannels);
+    }
+
+    private ConnectorPageSource createPageSource(UUID shardUuid, List<RaptorColumnHandle> columnHandles, RaptorSplit split, ReaderAttributes readerAttributes)
+    {
         List<Long> columnIds = columnHandles.stream().map(RaptorColumnHandle::getColumnId).collect(toList());
         List<Type> columnTypes = columnHandles.stream().map(RaptorColumnHandle::getColumnType).collect(toList());
 
         return storageManager.getPageSource(
                 shardUuid,
+                split.getBucketNumber(),
                 columnIds,
                 columnTypes,
-                raptorSplit.getEffectivePredicate(),
-                ReaderAttributes.from(session),
-                raptorSplit.getTransactionId());
+                split.getEffectivePredicate(),
+                readerAttributes,
+                split.getTransactionId());
     }
 
     private static Function<ColumnHandle, RaptorColumnHandle> toRaptorColumnHandle()
@@ -24,6 +24,7 @@ import javax.inject.Inject;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.spi.session.PropertyMetadata.booleanSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringSessionProperty;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 
@@ -35,6 +36,8 @@ public class RaptorSessionProperties
     private static final String READER_MAX_READ_SIZE = "reader_max_read_size";
     private static final String READER_STREAM_BUFFER_SIZE = "reader_stream_buffer_size";
 
+    private static final String ORDERED_SCAN_ENABLED = "ordered_scan_enabled";
+
     private final List<PropertyMetadata<?>> sessionProperties;
 
     @Inject
@@ -60,6 +63,11 @@ public class RaptorSessionProperties
                         READER_STREAM_BUFFER_SIZE,
                         "Reader: Size of buffer for streaming reads",
                         config.getOrcStreamBufferSize(),
+                        false),
+                booleanSessionProperty(
+                        ORDERED_SCAN_ENABLED,
+                        "Merge the sorted shards of each node in a single split for a TopN over the ordering columns, at the cost of scan parallelism",
+                        config.isOrderedScanEnabled(),
                         false));
     }
 
@@ -88,6 +96,11 @@ public class RaptorSessionProperties
         return session.getProperty(READER_STREAM_BUFFER_SIZE, DataSize.class);
     }
 
+    public static boolean isOrderedScanEnabled(ConnectorSession session)
+    {
+        return session.getProperty(ORDERED_SCAN_ENABLED, Boolean.class);
+    }
+
     public static PropertyMetadata<DataSize> dataSizeSessionProperty(String name, String description, DataSize defaultValue, boolean hidden)
     {
         return new PropertyMetadata<>(
@@ -15,23 +15,31 @@ package com.facebook.presto.raptor;
 
 import com.facebook.presto.spi.ConnectorSplit;
 import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.UUID;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public class RaptorSplit
         implements ConnectorSplit
 {
     private final String connectorId;
-    private final UUID shardUuid;
+    private final List<UUID> shardUuids;
+    private final OptionalInt bucketNumber;
+    private final List<RaptorColumnHandle> sortColumns;
+    private final Map<UUID, Range> shardRanges;
     private final List<HostAddress> addresses;
     private final TupleDomain<RaptorColumnHandle> effectivePredicate;
     private final OptionalLong transactionId;
@@ -39,11 +47,14 @@ public class RaptorSplit
     @JsonCreator
     public RaptorSplit(
             @JsonProperty("connectorId") String connectorId,
-            @JsonProperty("shardUuid") UUID shardUuid,
+            @JsonProperty("shardUuids") List<UUID> shardUuids,
+            @JsonProperty("bucketNumber") OptionalInt bucketNumber,
+            @JsonProperty("sortColumns") List<RaptorColumnHandle> sortColumns,
+            @JsonProperty("shardRanges") Map<UUID, Range> shardRanges,
             @JsonProperty("effectivePredicate") TupleDomain<RaptorColumnHandle> effectivePredicate,
             @JsonProperty("transactionId") OptionalLong transactionId)
     {
-        this(connectorId, shardUuid, ImmutableList.of(), effectivePredicate, transactionId);
+        this(connectorId, shardUuids, bucketNumber, sortColumns, shardRanges, ImmutableList.of(), effectivePredicate, transactionId);
     }
 
     public RaptorSplit(
@@ -52,12 +63,30 @@ public class RaptorSplit
             List<HostAddress> addresses,
             TupleDomain<RaptorColumnHandle> effectivePredicate,
             OptionalLong transactionId)
+    {
+        this(connectorId, ImmutableList.of(shardUuid), OptionalInt.empty(), ImmutableList.of(), ImmutableMap.of(), addresses, effectivePredicate, transactionId);
+    }
+
+    public RaptorSplit(
+            String connectorId,
+            List<UUID> shardUuids,
+            OptionalInt bucketNumber,
+            List<RaptorColumnHandle> sortColumns,
+            Map<UUID, Range> shardRanges,
+            List<HostAddress> addresses,
+            TupleDomain<RaptorColumnHandle> effectivePredicate,
+            OptionalLong transactionId)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null");
-        this.shardUuid = requireNonNull(shardUuid, "shardUuid is null");
+        this.shardUuids = ImmutableList.copyOf(requireNonNull(shardUuids, "shardUuids is null"));
+        this.bucketNumber = requireNonNull(bucketNumber, "bucketNumber is null");
+        this.sortColumns = ImmutableList.copyOf(requireNonNull(sortColumns, "sortColumns is null"));
+        this.shardRanges = ImmutableMap.copyOf(requireNonNull(shardRanges, "shardRanges is null"));
         this.addresses = ImmutableList.copyOf(requireNonNull(addresses, "addresses is null"));
         this.effectivePredicate = requireNonNull(effectivePredicate, "effectivePredicate is null");
         this.transactionId = requireNonNull(transactionId, "transactionId is null");
+        checkArgument(!this.shardUuids.isEmpty(), "shardUuids is empty");
+        checkArgument(!this.sortColumns.isEmpty() || bucketNumber.isPresent() || this.shardUuids.size() == 1, "unordered split of an unbucketed table must have exactly one shard");
     }
 
     @Override
@@ -79,9 +108,36 @@ public class RaptorSplit
     }
 
     @JsonProperty
-    public UUID getShardUuid()
+    public List<UUID> getShardUuids()
+    {
+        return shardUuids;
+    }
+
+    /**
+     * Bucket of all shards of this split, if the table is bucketed.
+     */
+    @JsonProperty
+    public OptionalInt getBucketNumber()
+    {
+        return bucketNumber;
+    }
+
+    /**
+     * Sort columns the shards of this split are merged on, or empty if the shards are read one after another.
+     */
+    @JsonProperty
+    public List<RaptorColumnHandle> getSortColumns()
+    {
+        return sortColumns;
+    }
+
+    /**
+     * Known ranges of the values of the first sort column in each shard.
+     */
+    @JsonProperty
+    public Map<UUID, Range> getShardRanges()
     {
-        return shardUuid;
+        return shardRanges;
     }
 
     @JsonProperty
@@ -106,7 +162,8 @@ public class RaptorSplit
     public String toString()
     {
         return toStringHelper(this)
-                .add("shardUuid", shardUuid)
+                .add("shardUuids", shardUuids)
+                .add("bucketNumber", bucketNumber)
                 .add("hosts", addresses)
                 .toString();
     }
@@ -26,8 +26,12 @@ import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import org.skife.jdbi.v2.ResultIterator;
 
 import javax.annotation.PreDestroy;
@@ -35,8 +39,11 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
@@ -45,6 +52,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_NO_HOST_FOR_SHARD;
 import static com.facebook.presto.raptor.util.Types.checkType;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
@@ -92,7 +100,8 @@ public class RaptorSplitManager
         RaptorTableLayoutHandle handle = checkType(layout, RaptorTableLayoutHandle.class, "layout");
         RaptorTableHandle table = handle.getTable();
         TupleDomain<RaptorColumnHandle> effectivePredicate = toRaptorTupleDomain(handle.getConstraint());
-        return new RaptorSplitSource(table.getTableId(), effectivePredicate, table.getTransactionId());
+        boolean bucketed = !handle.getBucketColumns().isEmpty();
+        return new RaptorSplitSource(table.getTableId(), effectivePredicate, table.getTransactionId(), handle.getSortColumns(), bucketed);
     }
 
     private static List<HostAddress> getAddressesForNodes(Map<String, Node> nodeMap, Iterable<String> nodeIdentifiers)
@@ -119,6 +128,12 @@ public class RaptorSplitManager
         return list.get(ThreadLocalRandom.current().nextInt(list.size()));
     }
 
+    private static int getBucketNumber(ShardNodes shard)
+    {
+        return shard.getBucketNumber().orElseThrow(() ->
+                new PrestoException(RAPTOR_ERROR, "Shard of bucketed table does not have a bucket: " + shard.getShardUuid()));
+    }
+
     private class RaptorSplitSource
             implements ConnectorSplitSource
     {
@@ -126,17 +141,39 @@ public class RaptorSplitManager
         private final long tableId;
         private final TupleDomain<RaptorColumnHandle> effectivePredicate;
         private final OptionalLong transactionId;
+        private final List<RaptorColumnHandle> sortColumns;
+        private final boolean bucketed;
+        private final Map<Integer, String> bucketNodes;
         private final ResultIterator<ShardNodes> iterator;
 
+        private volatile ShardNodes pendingShard;
+
         @GuardedBy("this")
         private CompletableFuture<List<ConnectorSplit>> future;
 
-        public RaptorSplitSource(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, OptionalLong transactionId)
+        public RaptorSplitSource(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, OptionalLong transactionId, List<RaptorColumnHandle> sortColumns, boolean bucketed)
         {
             this.tableId = tableId;
             this.effectivePredicate = requireNonNull(effectivePredicate, "effectivePredicate is null");
             this.transactionId = requireNonNull(transactionId, "transactionId is null");
-            this.iterator = new SynchronizedResultIterator<>(shardManager.getShardNodes(tableId, effectivePredicate));
+            this.sortColumns = ImmutableList.copyOf(requireNonNull(sortColumns, "sortColumns is null"));
+            // a delete rewrites every shard on its own, so it does not need the bucket splits
+            this.bucketed = bucketed && !transactionId.isPresent();
+
+            ResultIterator<ShardNodes> shardNodes;
+            if (this.bucketed) {
+                this.bucketNodes = shardManager.getBucketNodes(tableId);
+                shardNodes = shardManager.getBucketedShardNodes(tableId, effectivePredicate, sortColumns.stream().findFirst());
+            }
+            else if (sortColumns.isEmpty()) {
+                this.bucketNodes = ImmutableMap.of();
+                shardNodes = shardManager.getShardNodes(tableId, effectivePredicate);
+            }
+            else {
+                this.bucketNodes = ImmutableMap.of();
+                shardNodes = shardManager.getShardNodes(tableId, effectivePredicate, sortColumns.get(0));
+            }
+            this.iterator = new SynchronizedResultIterator<>(shardNodes);
         }
 
         @Override
@@ -166,11 +203,17 @@ public class RaptorSplitManager
         @Override
         public boolean isFinished()
         {
-            return !iterator.hasNext();
+            return !iterator.hasNext() && (pendingShard == null);
         }
 
         private Supplier<List<ConnectorSplit>> batchSupplier(int maxSize)
         {
+            if (bucketed) {
+                return () -> createBucketSplits(maxSize);
+            }
+            if (!sortColumns.isEmpty()) {
+                return this::createOrderedSplits;
+            }
             return () -> {
                 ImmutableList.Builder<ConnectorSplit> list = ImmutableList.builder();
                 for (int i = 0; i < maxSize; i++) {
@@ -186,7 +229,121 @@ public class RaptorSplitManager
             };
         }
 
+        /**
+         * Creates one split per node that merges all shards of the node. The shards of
+         * a node must be read by a single split to produce a sorted stream, so all splits
+         * are created in one batch, regardless of the requested batch size.
+         */
+        private List<ConnectorSplit> createOrderedSplits()
+        {
+            Map<HostAddress, ImmutableList.Builder<UUID>> nodeShards = new LinkedHashMap<>();
+            ImmutableMap.Builder<UUID, Range> shardRanges = ImmutableMap.builder();
+            while (iterator.hasNext()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new RuntimeException("Split batch fetch was interrupted");
+                }
+                ShardNodes shard = iterator.next();
+                List<HostAddress> addresses = getShardAddresses(shard);
+
+                // prefer a node that already has shards to read
+                HostAddress address = addresses.stream()
+                        .filter(nodeShards::containsKey)
+                        .findFirst()
+                        .orElse(addresses.get(0));
+
+                nodeShards.computeIfAbsent(address, key -> ImmutableList.builder()).add(shard.getShardUuid());
+                shard.getColumnRange().ifPresent(range -> shardRanges.put(shard.getShardUuid(), range));
+            }
+
+            Map<UUID, Range> ranges = shardRanges.build();
+            ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
+            for (Entry<HostAddress, ImmutableList.Builder<UUID>> entry : nodeShards.entrySet()) {
+                List<UUID> shardUuids = entry.getValue().build();
+                Map<UUID, Range> splitRanges = Maps.filterKeys(ranges, ImmutableSet.copyOf(shardUuids)::contains);
+                splits.add(new RaptorSplit(connectorId, shardUuids, OptionalInt.empty(), sortColumns, splitRanges, ImmutableList.of(entry.getKey()), effectivePredicate, transactionId));
+            }
+            return splits.build();
+        }
+
+        /**
+         * Creates one split per bucket that reads all shards of the bucket on the node
+         * of the bucket. The shards are ordered by bucket, so a batch ends after the
+         * last shard of a bucket, and the first shard of the next bucket is kept for
+         * the next batch.
+         */
+        private List<ConnectorSplit> createBucketSplits(int maxSize)
+        {
+            ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
+            for (int i = 0; i < maxSize; i++) {
+                ShardNodes first = nextBucketShard();
+                if (first == null) {
+                    break;
+                }
+                int bucket = getBucketNumber(first);
+                String nodeId = getBucketNode(first, bucket);
+
+                ImmutableList.Builder<UUID> shardUuids = ImmutableList.builder();
+                ImmutableMap.Builder<UUID, Range> shardRanges = ImmutableMap.builder();
+                ShardNodes shard = first;
+                while (shard != null) {
+                    if (getBucketNumber(shard) != bucket) {
+                        pendingShard = shard;
+                        break;
+                    }
+                    if (!backupAvailable && !shard.getNodeIdentifiers().contains(nodeId)) {
+                        throw new PrestoException(RAPTOR_NO_HOST_FOR_SHARD, format("Shard %s is not on node %s of bucket %s", shard.getShardUuid(), nodeId, bucket));
+                    }
+                    UUID shardUuid = shard.getShardUuid();
+                    shardUuids.add(shardUuid);
+                    shard.getColumnRange().ifPresent(range -> shardRanges.put(shardUuid, range));
+                    shard = iterator.hasNext() ? iterator.next() : null;
+                }
+
+                HostAddress address = nodesById.get(nodeId).getHostAndPort();
+                splits.add(new RaptorSplit(connectorId, shardUuids.build(), OptionalInt.of(bucket), sortColumns, shardRanges.build(), ImmutableList.of(address), effectivePredicate, transactionId));
+            }
+            return splits.build();
+        }
+
+        private ShardNodes nextBucketShard()
+        {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("Split batch fetch was interrupted");
+            }
+            ShardNodes shard = pendingShard;
+            if (shard != null) {
+                pendingShard = null;
+                return shard;
+            }
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
+        private String getBucketNode(ShardNodes shard, int bucket)
+        {
+            String nodeId = bucketNodes.get(bucket);
+            if (nodeId == null) {
+                throw new PrestoException(RAPTOR_ERROR, format("No node for bucket %s of shard %s", bucket, shard.getShardUuid()));
+            }
+            if (!nodesById.containsKey(nodeId)) {
+                throw new PrestoException(NO_NODES_AVAILABLE, format("Node %s of bucket %s is not available", nodeId, bucket));
+            }
+            return nodeId;
+        }
+
         private ConnectorSplit createSplit(ShardNodes shard)
+        {
+            return new RaptorSplit(
+                    connectorId,
+                    ImmutableList.of(shard.getShardUuid()),
+                    shard.getBucketNumber(),
+                    ImmutableList.of(),
+                    ImmutableMap.of(),
+                    getShardAddresses(shard),
+                    effectivePredicate,
+                    transactionId);
+        }
+
+        private List<HostAddress> getShardAddresses(ShardNodes shard)
         {
             UUID shardId = shard.getShardUuid();
             Collection<String> nodeIds = shard.getNodeIdentifiers();
@@ -209,7 +366,7 @@ public class RaptorSplitManager
                 addresses = ImmutableList.of(node.getHostAndPort());
             }
 
-            return new RaptorSplit(connectorId, shardId, addresses, effectivePredicate, transactionId);
+            return addresses;
         }
     }
 }
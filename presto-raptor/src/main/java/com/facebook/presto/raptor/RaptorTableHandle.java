@@ -19,6 +19,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 
 import static com.facebook.presto.raptor.util.MetadataUtil.checkSchemaName;
@@ -35,6 +36,7 @@ public final class RaptorTableHandle
     private final long tableId;
     private final OptionalLong transactionId;
     private final Optional<RaptorColumnHandle> sampleWeightColumnHandle;
+    private final OptionalInt bucketCount;
 
     @JsonCreator
     public RaptorTableHandle(
@@ -43,7 +45,8 @@ public final class RaptorTableHandle
             @JsonProperty("tableName") String tableName,
             @JsonProperty("tableId") long tableId,
             @JsonProperty("transactionId") OptionalLong transactionId,
-            @JsonProperty("sampleWeightColumnHandle") Optional<RaptorColumnHandle> sampleWeightColumnHandle)
+            @JsonProperty("sampleWeightColumnHandle") Optional<RaptorColumnHandle> sampleWeightColumnHandle,
+            @JsonProperty("bucketCount") OptionalInt bucketCount)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null");
         this.schemaName = checkSchemaName(schemaName);
@@ -54,6 +57,7 @@ public final class RaptorTableHandle
 
         this.sampleWeightColumnHandle = requireNonNull(sampleWeightColumnHandle, "sampleWeightColumnHandle is null");
         this.transactionId = requireNonNull(transactionId, "transactionId is null");
+        this.bucketCount = requireNonNull(bucketCount, "bucketCount is null");
     }
 
     @JsonProperty
@@ -92,6 +96,12 @@ public final class RaptorTableHandle
         return sampleWeightColumnHandle;
     }
 
+    @JsonProperty
+    public OptionalInt getBucketCount()
+    {
+        return bucketCount;
+    }
+
     @Override
     public String toString()
     {
@@ -18,6 +18,9 @@ import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
@@ -26,14 +29,20 @@ public class RaptorTableLayoutHandle
 {
     private final RaptorTableHandle table;
     private final TupleDomain<ColumnHandle> constraint;
+    private final List<RaptorColumnHandle> sortColumns;
+    private final List<RaptorColumnHandle> bucketColumns;
 
     @JsonCreator
     public RaptorTableLayoutHandle(
             @JsonProperty("table") RaptorTableHandle table,
-            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint)
+            @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
+            @JsonProperty("sortColumns") List<RaptorColumnHandle> sortColumns,
+            @JsonProperty("bucketColumns") List<RaptorColumnHandle> bucketColumns)
     {
         this.table = requireNonNull(table, "table is null");
         this.constraint = requireNonNull(constraint, "constraint is null");
+        this.sortColumns = ImmutableList.copyOf(requireNonNull(sortColumns, "sortColumns is null"));
+        this.bucketColumns = ImmutableList.copyOf(requireNonNull(bucketColumns, "bucketColumns is null"));
     }
 
     @JsonProperty
@@ -48,6 +57,26 @@ public class RaptorTableLayoutHandle
         return constraint;
     }
 
+    /**
+     * Sort columns of the table for an ordered scan, which merges the shards
+     * of each node into a single sorted split, or empty for a regular scan.
+     */
+    @JsonProperty
+    public List<RaptorColumnHandle> getSortColumns()
+    {
+        return sortColumns;
+    }
+
+    /**
+     * Bucket columns of a bucketed table, whose scan reads all shards of a
+     * bucket in a single split on the node of the bucket, or empty.
+     */
+    @JsonProperty
+    public List<RaptorColumnHandle> getBucketColumns()
+    {
+        return bucketColumns;
+    }
+
     @Override
     public String toString()
     {
@@ -21,7 +21,9 @@ import javax.inject.Inject;
 
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 
+import static com.facebook.presto.spi.session.PropertyMetadata.integerSessionProperty;
 import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static java.util.Locale.ENGLISH;
@@ -31,6 +33,8 @@ public class RaptorTableProperties
 {
     public static final String ORDERING_PROPERTY = "ordering";
     public static final String TEMPORAL_COLUMN_PROPERTY = "temporal_column";
+    public static final String BUCKET_COUNT_PROPERTY = "bucket_count";
+    public static final String BUCKETED_ON_PROPERTY = "bucketed_on";
 
     private final List<PropertyMetadata<?>> tableProperties;
 
@@ -45,6 +49,15 @@ public class RaptorTableProperties
                 .add(lowerCaseStringSessionProperty(
                         TEMPORAL_COLUMN_PROPERTY,
                         "Temporal column of the table"))
+                .add(integerSessionProperty(
+                        BUCKET_COUNT_PROPERTY,
+                        "Number of buckets for the table",
+                        null,
+                        false))
+                .add(stringListSessionProperty(
+                        typeManager,
+                        BUCKETED_ON_PROPERTY,
+                        "Columns hashed to choose the bucket of a row"))
                 .build();
     }
 
@@ -63,6 +76,17 @@ public class RaptorTableProperties
         return (String) tableProperties.get(TEMPORAL_COLUMN_PROPERTY);
     }
 
+    public static OptionalInt getBucketCount(Map<String, Object> tableProperties)
+    {
+        Integer value = (Integer) tableProperties.get(BUCKET_COUNT_PROPERTY);
+        return (value == null) ? OptionalInt.empty() : OptionalInt.of(value);
+    }
+
+    public static List<String> getBucketColumns(Map<String, Object> tableProperties)
+    {
+        return stringList(tableProperties.get(BUCKETED_ON_PROPERTY));
+    }
+
     public static PropertyMetadata<String> lowerCaseStringSessionProperty(String name, String description)
     {
         return new PropertyMetadata<>(
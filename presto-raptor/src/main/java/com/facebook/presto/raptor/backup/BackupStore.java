@@ -14,6 +14,7 @@
 package com.facebook.presto.raptor.backup;
 
 import java.io.File;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface BackupStore
@@ -49,4 +50,16 @@ public interface BackupStore
      * @return if the shard exists
      */
     boolean shardExists(UUID uuid);
+
+    /**
+     * Get a file that the shard can be read from in place. This is only
+     * possible if the backup store is a file system mounted on this node.
+     *
+     * @param uuid shard UUID
+     * @return the backup file, if the shard can be read in place
+     */
+    default Optional<File> getShardFile(UUID uuid)
+    {
+        return Optional.empty();
+    }
 }
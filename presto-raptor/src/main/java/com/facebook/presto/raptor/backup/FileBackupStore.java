@@ -24,6 +24,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
 import java.util.UUID;
 
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
@@ -91,6 +92,16 @@ public class FileBackupStore
         return getBackupFile(uuid).isFile();
     }
 
+    @Override
+    public Optional<File> getShardFile(UUID uuid)
+    {
+        File file = getBackupFile(uuid);
+        if (!file.isFile()) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
     @VisibleForTesting
     public File getBackupFile(UUID uuid)
     {
@@ -22,6 +22,7 @@ import io.airlift.units.Duration;
 import javax.annotation.PreDestroy;
 
 import java.io.File;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 
@@ -96,6 +97,17 @@ public class TimeoutBackupStore
         }
     }
 
+    @Override
+    public Optional<File> getShardFile(UUID uuid)
+    {
+        try {
+            return store.getShardFile(uuid);
+        }
+        catch (UncheckedTimeoutException e) {
+            throw new PrestoException(RAPTOR_BACKUP_TIMEOUT, "Shard file lookup timed out");
+        }
+    }
+
     private static <T> T timeLimited(T target, Class<T> clazz, Duration timeout, ExecutorService executor)
     {
         TimeLimiter limiter = new SimpleTimeLimiter(executor);
@@ -15,6 +15,7 @@ package com.facebook.presto.raptor.metadata;
 
 import com.facebook.presto.raptor.NodeSupplier;
 import com.facebook.presto.raptor.RaptorColumnHandle;
+import com.facebook.presto.spi.Node;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
@@ -52,10 +53,12 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_EXTERNAL_BATCH_ALREADY_EXISTS;
 import static com.facebook.presto.raptor.metadata.SchemaDaoUtil.createTablesWithRetry;
+import static com.facebook.presto.raptor.metadata.SchemaDaoUtil.getColumnNames;
 import static com.facebook.presto.raptor.metadata.ShardPredicate.jdbcType;
 import static com.facebook.presto.raptor.storage.ShardStats.MAX_BINARY_INDEX_SIZE;
 import static com.facebook.presto.raptor.util.ArrayUtil.intArrayFromBytes;
@@ -67,14 +70,17 @@ import static com.facebook.presto.raptor.util.DatabaseUtil.runTransaction;
 import static com.facebook.presto.raptor.util.UuidUtil.uuidFromBytes;
 import static com.facebook.presto.raptor.util.UuidUtil.uuidToBytes;
 import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.spi.StandardErrorCode.TRANSACTION_CONFLICT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.partition;
 import static java.lang.String.format;
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
+import static java.sql.Types.INTEGER;
 import static java.util.Arrays.asList;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
 public class DatabaseShardManager
@@ -99,6 +105,18 @@ public class DatabaseShardManager
                 }
             });
 
+    // columns of the shard index tables, which lack the columns of types that were not indexed when the table was created
+    private final LoadingCache<Long, Set<String>> indexColumnsCache = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build(new CacheLoader<Long, Set<String>>()
+            {
+                @Override
+                public Set<String> load(Long tableId)
+                {
+                    return loadIndexColumns(tableId);
+                }
+            });
+
     @Inject
     public DatabaseShardManager(@ForMetadata IDBI dbi, NodeSupplier nodeSupplier)
     {
@@ -127,6 +145,7 @@ public class DatabaseShardManager
                 "  shard_id BIGINT NOT NULL PRIMARY KEY,\n" +
                 "  shard_uuid BINARY(16) NOT NULL,\n" +
                 "  node_ids VARBINARY(128) NOT NULL,\n" +
+                "  bucket_number INT,\n" +
                 tableColumns +
                 "  UNIQUE (shard_uuid)\n" +
                 ")";
@@ -137,6 +156,9 @@ public class DatabaseShardManager
         catch (DBIException e) {
             throw metadataError(e);
         }
+        finally {
+            indexColumnsCache.invalidate(tableId);
+        }
     }
 
     @Override
@@ -150,6 +172,7 @@ public class DatabaseShardManager
             shardManagerDao.insertDeletedShards(tableId);
             shardManagerDao.dropShardNodes(tableId);
             shardManagerDao.dropShards(tableId);
+            shardManagerDao.dropBuckets(tableId);
 
             MetadataDao dao = handle.attach(MetadataDao.class);
             dao.dropColumns(tableId);
@@ -165,6 +188,7 @@ public class DatabaseShardManager
         catch (DBIException e) {
             log.warn(e, "Failed to drop index table %s", shardIndexTable(tableId));
         }
+        indexColumnsCache.invalidate(tableId);
     }
 
     @Override
@@ -186,6 +210,9 @@ public class DatabaseShardManager
         catch (DBIException e) {
             throw metadataError(e);
         }
+        finally {
+            indexColumnsCache.invalidate(tableId);
+        }
     }
 
     @Override
@@ -204,7 +231,7 @@ public class DatabaseShardManager
             externalBatchId.ifPresent(dao::insertExternalBatch);
 
             lockTable(handle, tableId);
-            insertShardsAndIndex(tableId, columns, shards, nodeIds, handle);
+            insertShardsAndIndex(tableId, columns, getIndexColumns(tableId), shards, nodeIds, handle);
             return null;
         });
     }
@@ -218,7 +245,7 @@ public class DatabaseShardManager
             commitTransaction(handle.attach(ShardManagerDao.class), transactionId);
             lockTable(handle, tableId);
             for (List<ShardInfo> shards : partition(newShards, 1000)) {
-                insertShardsAndIndex(tableId, columns, shards, nodeIds, handle);
+                insertShardsAndIndex(tableId, columns, getIndexColumns(tableId), shards, nodeIds, handle);
             }
             for (List<UUID> uuids : partition(oldShardUuids, 1000)) {
                 deleteShardsAndIndex(tableId, ImmutableSet.copyOf(uuids), handle);
@@ -303,11 +330,11 @@ public class DatabaseShardManager
         }
     }
 
-    private static void insertShardsAndIndex(long tableId, List<ColumnInfo> columns, Collection<ShardInfo> shards, Map<String, Integer> nodeIds, Handle handle)
+    private static void insertShardsAndIndex(long tableId, List<ColumnInfo> columns, Set<String> indexColumns, Collection<ShardInfo> shards, Map<String, Integer> nodeIds, Handle handle)
             throws SQLException
     {
         Connection connection = handle.getConnection();
-        try (IndexInserter indexInserter = new IndexInserter(connection, tableId, columns)) {
+        try (IndexInserter indexInserter = new IndexInserter(connection, tableId, columns, indexColumns)) {
             for (List<ShardInfo> batch : partition(shards, batchSize(connection))) {
                 List<Long> shardIds = insertShards(connection, tableId, batch);
                 insertShardNodes(connection, nodeIds, shardIds, batch);
@@ -317,7 +344,7 @@ public class DatabaseShardManager
                     Set<Integer> shardNodes = shard.getNodeIdentifiers().stream()
                             .map(nodeIds::get)
                             .collect(toSet());
-                    indexInserter.insert(shardIds.get(i), shard.getShardUuid(), shardNodes, shard.getColumnStats());
+                    indexInserter.insert(shardIds.get(i), shard.getShardUuid(), shardNodes, shard.getBucketNumber(), shard.getColumnStats());
                 }
                 indexInserter.execute();
             }
@@ -349,7 +376,19 @@ public class DatabaseShardManager
     @Override
     public ResultIterator<ShardNodes> getShardNodes(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate)
     {
-        return new ShardIterator(tableId, effectivePredicate, dbi);
+        return new ShardIterator(tableId, effectivePredicate, Optional.empty(), false, getIndexColumns(tableId), dbi);
+    }
+
+    @Override
+    public ResultIterator<ShardNodes> getShardNodes(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, RaptorColumnHandle rangeColumn)
+    {
+        return new ShardIterator(tableId, effectivePredicate, Optional.of(rangeColumn), false, getIndexColumns(tableId), dbi);
+    }
+
+    @Override
+    public ResultIterator<ShardNodes> getBucketedShardNodes(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, Optional<RaptorColumnHandle> rangeColumn)
+    {
+        return new ShardIterator(tableId, effectivePredicate, rangeColumn, true, getIndexColumns(tableId), dbi);
     }
 
     @Override
@@ -389,6 +428,99 @@ public class DatabaseShardManager
         });
     }
 
+    @Override
+    public void replaceShardAssignment(long tableId, UUID shardUuid, String nodeIdentifier)
+    {
+        int nodeId = getOrCreateNodeId(nodeIdentifier);
+
+        runTransaction(dbi, (handle, status) -> {
+            ShardManagerDao dao = handle.attach(ShardManagerDao.class);
+
+            Set<Integer> oldNodes = new HashSet<>(fetchLockedNodeIds(handle, tableId, shardUuid));
+            if (oldNodes.equals(ImmutableSet.of(nodeId))) {
+                return null;
+            }
+            updateNodeIds(handle, tableId, shardUuid, ImmutableSet.of(nodeId));
+
+            if (!oldNodes.remove(nodeId)) {
+                dao.insertShardNode(shardUuid, nodeId);
+            }
+            if (!oldNodes.isEmpty()) {
+                for (int oldNodeId : oldNodes) {
+                    dao.deleteShardNode(shardUuid, oldNodeId);
+                }
+                dao.insertDeletedShardNodes(nCopies(oldNodes.size(), shardUuid), ImmutableList.copyOf(oldNodes));
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public void createBuckets(long tableId, int bucketCount)
+    {
+        List<String> nodes = nodeSupplier.getWorkerNodes().stream()
+                .map(Node::getNodeIdentifier)
+                .sorted()
+                .collect(toList());
+        if (nodes.isEmpty()) {
+            throw new PrestoException(NO_NODES_AVAILABLE, "No nodes available for bucket assignment");
+        }
+
+        // start at a random node so that the first buckets of every table do not share a node
+        int start = ThreadLocalRandom.current().nextInt(nodes.size());
+
+        ImmutableList.Builder<Integer> bucketNumbers = ImmutableList.builder();
+        ImmutableList.Builder<Integer> nodeIds = ImmutableList.builder();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            bucketNumbers.add(bucket);
+            nodeIds.add(getOrCreateNodeId(nodes.get((start + bucket) % nodes.size())));
+        }
+        dao.insertBuckets(tableId, bucketNumbers.build(), nodeIds.build());
+    }
+
+    @Override
+    public Map<Integer, String> getBucketNodes(long tableId)
+    {
+        ImmutableMap.Builder<Integer, String> map = ImmutableMap.builder();
+        for (BucketNode bucket : dao.getBucketNodes(tableId)) {
+            map.put(bucket.getBucketNumber(), bucket.getNodeIdentifier());
+        }
+        return map.build();
+    }
+
+    @Override
+    public void assignBucket(long tableId, int bucketNumber, String nodeIdentifier)
+    {
+        dao.updateBucketNode(tableId, bucketNumber, getOrCreateNodeId(nodeIdentifier));
+    }
+
+    @Override
+    public Set<Long> getBucketedTables()
+    {
+        return dao.getBucketedTableIds();
+    }
+
+    @Override
+    public List<ShardMetadata> getShardsNotOnBucketNodes(long tableId)
+    {
+        return dao.getShardsNotOnBucketNodes(tableId);
+    }
+
+    @Override
+    public boolean areShardsOnBucketNodes(long tableId)
+    {
+        Set<String> activeNodes = nodeSupplier.getWorkerNodes().stream()
+                .map(Node::getNodeIdentifier)
+                .collect(toSet());
+        for (BucketNode bucket : dao.getBucketNodes(tableId)) {
+            if (!activeNodes.contains(bucket.getNodeIdentifier())) {
+                return false;
+            }
+        }
+        return !dao.hasShardsNotOnBucketNodes(tableId);
+    }
+
     @Override
     public Map<String, Long> getNodeBytes()
     {
@@ -455,6 +587,26 @@ public class DatabaseShardManager
         }
     }
 
+    private Set<String> getIndexColumns(long tableId)
+    {
+        try {
+            return indexColumnsCache.getUnchecked(tableId);
+        }
+        catch (UncheckedExecutionException | ExecutionError e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private Set<String> loadIndexColumns(long tableId)
+    {
+        try (Handle handle = dbi.open()) {
+            return getColumnNames(handle, shardIndexTable(tableId));
+        }
+        catch (DBIException e) {
+            throw metadataError(e);
+        }
+    }
+
     private int loadNodeId(String nodeIdentifier)
     {
         Integer id = dao.getNodeId(nodeIdentifier);
@@ -476,8 +628,8 @@ public class DatabaseShardManager
             throws SQLException
     {
         String sql = "" +
-                "INSERT INTO shards (shard_uuid, table_id, create_time, row_count, compressed_size, uncompressed_size)\n" +
-                "VALUES (?, ?, CURRENT_TIMESTAMP, ?, ?, ?)";
+                "INSERT INTO shards (shard_uuid, table_id, create_time, row_count, compressed_size, uncompressed_size, bucket_number)\n" +
+                "VALUES (?, ?, CURRENT_TIMESTAMP, ?, ?, ?, ?)";
 
         try (PreparedStatement statement = connection.prepareStatement(sql, RETURN_GENERATED_KEYS)) {
             for (ShardInfo shard : shards) {
@@ -486,6 +638,12 @@ public class DatabaseShardManager
                 statement.setLong(3, shard.getRowCount());
                 statement.setLong(4, shard.getCompressedSize());
                 statement.setLong(5, shard.getUncompressedSize());
+                if (shard.getBucketNumber().isPresent()) {
+                    statement.setInt(6, shard.getBucketNumber().getAsInt());
+                }
+                else {
+                    statement.setNull(6, INTEGER);
+                }
                 statement.addBatch();
             }
             statement.executeBatch();
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.raptor.metadata;
 
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
@@ -20,8 +21,10 @@ import java.sql.Connection;
 import java.sql.JDBCType;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.UUID;
@@ -35,7 +38,10 @@ import static com.facebook.presto.raptor.metadata.ShardPredicate.bindValue;
 import static com.facebook.presto.raptor.metadata.ShardPredicate.jdbcType;
 import static com.facebook.presto.raptor.util.ArrayUtil.intArrayToBytes;
 import static com.facebook.presto.raptor.util.UuidUtil.uuidToBytes;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
 import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.sql.Types.INTEGER;
 
 class IndexInserter
         implements AutoCloseable
@@ -43,21 +49,23 @@ class IndexInserter
     private final List<ColumnInfo> columns;
     private final Map<Long, Integer> indexes;
     private final Map<Long, JDBCType> types;
+    private final Map<Long, Type> columnTypes;
     private final PreparedStatement statement;
 
-    public IndexInserter(Connection connection, long tableId, List<ColumnInfo> columns)
+    public IndexInserter(Connection connection, long tableId, List<ColumnInfo> columns, Set<String> indexColumns)
             throws SQLException
     {
         ImmutableList.Builder<ColumnInfo> columnBuilder = ImmutableList.builder();
         ImmutableMap.Builder<Long, Integer> indexBuilder = ImmutableMap.builder();
         ImmutableMap.Builder<Long, JDBCType> typeBuilder = ImmutableMap.builder();
+        ImmutableMap.Builder<Long, Type> columnTypeBuilder = ImmutableMap.builder();
         StringJoiner nameJoiner = new StringJoiner(", ");
         StringJoiner valueJoiner = new StringJoiner(", ");
         int index = 1;
 
-        nameJoiner.add("shard_id").add("shard_uuid").add("node_ids");
-        valueJoiner.add("?").add("?").add("?");
-        index += 3;
+        nameJoiner.add("shard_id").add("shard_uuid").add("node_ids").add("bucket_number");
+        valueJoiner.add("?").add("?").add("?").add("?");
+        index += 4;
 
         for (ColumnInfo column : columns) {
             JDBCType jdbcType = jdbcType(column.getType());
@@ -69,6 +77,10 @@ class IndexInserter
             if (isShardUuidColumn(columnId) || isShardRowIdColumn(columnId)) {
                 continue;
             }
+            if (!indexColumns.contains(minColumn(columnId))) {
+                // the index table was created before the type was indexed
+                continue;
+            }
 
             columnBuilder.add(column);
             nameJoiner.add(minColumn(columnId));
@@ -79,11 +91,13 @@ class IndexInserter
             index += 2;
 
             typeBuilder.put(columnId, jdbcType);
+            columnTypeBuilder.put(columnId, column.getType());
         }
 
         this.columns = columnBuilder.build();
         this.indexes = indexBuilder.build();
         this.types = typeBuilder.build();
+        this.columnTypes = columnTypeBuilder.build();
 
         String sql = "" +
                 "INSERT INTO " + shardIndexTable(tableId) + "\n" +
@@ -100,12 +114,18 @@ class IndexInserter
         statement.close();
     }
 
-    public void insert(long shardId, UUID shardUuid, Set<Integer> nodeIds, List<ColumnStats> stats)
+    public void insert(long shardId, UUID shardUuid, Set<Integer> nodeIds, OptionalInt bucketNumber, List<ColumnStats> stats)
             throws SQLException
     {
         statement.setLong(1, shardId);
         statement.setBytes(2, uuidToBytes(shardUuid));
         statement.setBytes(3, intArrayToBytes(nodeIds));
+        if (bucketNumber.isPresent()) {
+            statement.setInt(4, bucketNumber.getAsInt());
+        }
+        else {
+            statement.setNull(4, INTEGER);
+        }
 
         for (ColumnInfo column : columns) {
             int index = indexes.get(column.getColumnId());
@@ -115,10 +135,14 @@ class IndexInserter
         }
 
         for (ColumnStats column : stats) {
-            int index = indexes.get(column.getColumnId());
+            Integer index = indexes.get(column.getColumnId());
+            if (index == null) {
+                continue;
+            }
             JDBCType type = types.get(column.getColumnId());
-            bindValue(statement, type, convert(column.getMin()), index);
-            bindValue(statement, type, convert(column.getMax()), index + 1);
+            Type columnType = columnTypes.get(column.getColumnId());
+            bindValue(statement, type, convert(columnType, column.getMin()), index);
+            bindValue(statement, type, convert(columnType, column.getMax()), index + 1);
         }
 
         statement.addBatch();
@@ -130,9 +154,16 @@ class IndexInserter
         statement.executeBatch();
     }
 
-    private static Object convert(Object value)
+    private static Object convert(Type type, Object value)
     {
+        if (value instanceof byte[]) {
+            return wrappedBuffer((byte[]) value);
+        }
         if (value instanceof String) {
+            // binary values are encoded as base64 when the stats are sent as JSON
+            if (type.equals(VARBINARY)) {
+                return wrappedBuffer(Base64.getDecoder().decode((String) value));
+            }
             return utf8Slice((String) value);
         }
         return value;
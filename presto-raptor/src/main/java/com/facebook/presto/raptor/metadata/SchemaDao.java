@@ -23,6 +23,7 @@ public interface SchemaDao
             "  table_name VARCHAR(255) NOT NULL,\n" +
             "  temporal_column_id BIGINT,\n" +
             "  compaction_enabled BOOLEAN NOT NULL,\n" +
+            "  bucket_count INT,\n" +
             "  UNIQUE (schema_name, table_name)\n" +
             ")")
     void createTableTables();
@@ -34,10 +35,12 @@ public interface SchemaDao
             "  ordinal_position INT NOT NULL,\n" +
             "  data_type VARCHAR(255) NOT NULL,\n" +
             "  sort_ordinal_position INT,\n" +
+            "  bucket_ordinal_position INT,\n" +
             "  PRIMARY KEY (table_id, column_id),\n" +
             "  UNIQUE (table_id, column_name),\n" +
             "  UNIQUE (table_id, ordinal_position),\n" +
             "  UNIQUE (table_id, sort_ordinal_position),\n" +
+            "  UNIQUE (table_id, bucket_ordinal_position),\n" +
             "  FOREIGN KEY (table_id) REFERENCES tables (table_id)\n" +
             ")")
     void createTableColumns();
@@ -57,6 +60,16 @@ public interface SchemaDao
             ")")
     void createTableNodes();
 
+    @SqlUpdate("CREATE TABLE IF NOT EXISTS buckets (\n" +
+            "  table_id BIGINT NOT NULL,\n" +
+            "  bucket_number INT NOT NULL,\n" +
+            "  node_id INT NOT NULL,\n" +
+            "  PRIMARY KEY (table_id, bucket_number),\n" +
+            "  FOREIGN KEY (table_id) REFERENCES tables (table_id),\n" +
+            "  FOREIGN KEY (node_id) REFERENCES nodes (node_id)\n" +
+            ")")
+    void createTableBuckets();
+
     @SqlUpdate("CREATE TABLE IF NOT EXISTS shards (\n" +
             "  shard_id BIGINT PRIMARY KEY AUTO_INCREMENT,\n" +
             "  shard_uuid BINARY(16) NOT NULL,\n" +
@@ -65,6 +78,7 @@ public interface SchemaDao
             "  row_count BIGINT NOT NULL,\n" +
             "  compressed_size BIGINT NOT NULL,\n" +
             "  uncompressed_size BIGINT NOT NULL,\n" +
+            "  bucket_number INT,\n" +
             "  UNIQUE (shard_uuid),\n" +
             "  FOREIGN KEY (table_id) REFERENCES tables (table_id)\n" +
             ")")
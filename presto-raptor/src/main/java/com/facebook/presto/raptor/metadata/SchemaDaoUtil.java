@@ -14,14 +14,27 @@
 package com.facebook.presto.raptor.metadata;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import org.skife.jdbi.v2.Handle;
 import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.exceptions.DBIException;
 import org.skife.jdbi.v2.exceptions.UnableToObtainConnectionException;
+import org.skife.jdbi.v2.util.LongMapper;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import static com.facebook.presto.raptor.metadata.DatabaseShardManager.shardIndexTable;
+import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
+
 public final class SchemaDaoUtil
 {
     private static final Logger log = Logger.get(SchemaDaoUtil.class);
@@ -34,6 +47,7 @@ public final class SchemaDaoUtil
         while (true) {
             try (Handle handle = dbi.open()) {
                 createTables(handle.attach(SchemaDao.class));
+                upgradeTables(handle);
                 return;
             }
             catch (UnableToObtainConnectionException e) {
@@ -49,6 +63,7 @@ public final class SchemaDaoUtil
         dao.createTableColumns();
         dao.createTableViews();
         dao.createTableNodes();
+        dao.createTableBuckets();
         dao.createTableShards();
         dao.createTableShardNodes();
         dao.createTableExternalBatches();
@@ -59,6 +74,85 @@ public final class SchemaDaoUtil
         dao.createTableDeletedShardNodes();
     }
 
+    /**
+     * Adds the columns of bucketed tables to metastores that were created before them.
+     * The tables already exist there, so creating them does not add the columns.
+     */
+    private static void upgradeTables(Handle handle)
+    {
+        addColumn(handle, "tables", "bucket_count", "INT");
+        if (addColumn(handle, "columns", "bucket_ordinal_position", "INT")) {
+            handle.execute("ALTER TABLE columns ADD UNIQUE (table_id, bucket_ordinal_position)");
+        }
+        addColumn(handle, "shards", "bucket_number", "INT");
+
+        List<Long> tableIds = handle.createQuery("SELECT table_id FROM tables")
+                .map(LongMapper.FIRST)
+                .list();
+        for (long tableId : tableIds) {
+            String indexTable = shardIndexTable(tableId);
+            // the index table of a table that is being created or dropped might not exist
+            if (!getColumnNames(handle, indexTable).isEmpty()) {
+                addColumn(handle, indexTable, "bucket_number", "INT");
+            }
+        }
+    }
+
+    /**
+     * @return true if the column was added, false if it already exists
+     */
+    private static boolean addColumn(Handle handle, String table, String column, String type)
+    {
+        if (getColumnNames(handle, table).contains(column)) {
+            return false;
+        }
+        log.info("Adding column %s to table %s", column, table);
+        try {
+            handle.execute(format("ALTER TABLE %s ADD COLUMN %s %s", table, column, type));
+            return true;
+        }
+        catch (DBIException e) {
+            // another node might have added the column concurrently
+            if (getColumnNames(handle, table).contains(column)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the lower case names of the columns of the table, or an empty set if the table does not exist
+     */
+    public static Set<String> getColumnNames(Handle handle, String table)
+    {
+        try {
+            Connection connection = handle.getConnection();
+            DatabaseMetaData metaData = connection.getMetaData();
+            if (metaData.storesUpperCaseIdentifiers()) {
+                table = table.toUpperCase(ENGLISH);
+            }
+            String escape = metaData.getSearchStringEscape();
+            String pattern = table.replace(escape, escape + escape)
+                    .replace("_", escape + "_")
+                    .replace("%", escape + "%");
+
+            ImmutableSet.Builder<String> columns = ImmutableSet.builder();
+            try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), null, pattern, null)) {
+                while (resultSet.next()) {
+                    // H2 keeps its own tables and columns tables in the same catalog
+                    if ("information_schema".equalsIgnoreCase(resultSet.getString("TABLE_SCHEM"))) {
+                        continue;
+                    }
+                    columns.add(resultSet.getString("COLUMN_NAME").toLowerCase(ENGLISH));
+                }
+            }
+            return columns.build();
+        }
+        catch (SQLException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
     private static void sleep(Duration duration)
     {
         try {
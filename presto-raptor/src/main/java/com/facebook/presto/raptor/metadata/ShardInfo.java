@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.UUID;
 
@@ -34,6 +35,18 @@ public class ShardInfo
     private final long rowCount;
     private final long compressedSize;
     private final long uncompressedSize;
+    private final OptionalInt bucketNumber;
+
+    public ShardInfo(
+            UUID shardUuid,
+            Set<String> nodeIdentifiers,
+            List<ColumnStats> columnStats,
+            long rowCount,
+            long compressedSize,
+            long uncompressedSize)
+    {
+        this(shardUuid, nodeIdentifiers, columnStats, rowCount, compressedSize, uncompressedSize, OptionalInt.empty());
+    }
 
     @JsonCreator
     public ShardInfo(
@@ -42,7 +55,8 @@ public class ShardInfo
             @JsonProperty("columnStats") List<ColumnStats> columnStats,
             @JsonProperty("rowCount") long rowCount,
             @JsonProperty("compressedSize") long compressedSize,
-            @JsonProperty("uncompressedSize") long uncompressedSize)
+            @JsonProperty("uncompressedSize") long uncompressedSize,
+            @JsonProperty("bucketNumber") OptionalInt bucketNumber)
     {
         this.shardUuid = requireNonNull(shardUuid, "shardUuid is null");
         this.nodeIdentifiers = ImmutableSet.copyOf(requireNonNull(nodeIdentifiers, "nodeIdentifiers is null"));
@@ -54,6 +68,7 @@ public class ShardInfo
         this.rowCount = rowCount;
         this.compressedSize = compressedSize;
         this.uncompressedSize = uncompressedSize;
+        this.bucketNumber = requireNonNull(bucketNumber, "bucketNumber is null");
     }
 
     @JsonProperty
@@ -92,6 +107,12 @@ public class ShardInfo
         return uncompressedSize;
     }
 
+    @JsonProperty
+    public OptionalInt getBucketNumber()
+    {
+        return bucketNumber;
+    }
+
     @Override
     public String toString()
     {
@@ -102,6 +123,7 @@ public class ShardInfo
                 .add("rowCount", rowCount)
                 .add("compressedSize", compressedSize)
                 .add("uncompressedSize", uncompressedSize)
+                .add("bucketNumber", bucketNumber)
                 .toString();
     }
 }
@@ -15,13 +15,16 @@ package com.facebook.presto.raptor.metadata;
 
 import com.facebook.presto.raptor.RaptorColumnHandle;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.AbstractIterator;
 import io.airlift.log.Logger;
 import org.skife.jdbi.v2.IDBI;
 import org.skife.jdbi.v2.ResultIterator;
 
 import java.sql.Connection;
+import java.sql.JDBCType;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -29,16 +32,22 @@ import java.sql.Statement;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
 
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
+import static com.facebook.presto.raptor.metadata.DatabaseShardManager.minColumn;
 import static com.facebook.presto.raptor.metadata.DatabaseShardManager.shardIndexTable;
+import static com.facebook.presto.raptor.metadata.ShardPredicate.jdbcType;
+import static com.facebook.presto.raptor.storage.ShardStats.fromIndexValue;
 import static com.facebook.presto.raptor.util.ArrayUtil.intArrayFromBytes;
 import static com.facebook.presto.raptor.util.DatabaseUtil.metadataError;
 import static com.facebook.presto.raptor.util.DatabaseUtil.onDemandDao;
 import static com.facebook.presto.raptor.util.UuidUtil.uuidFromBytes;
+import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toSet;
 
@@ -49,19 +58,31 @@ final class ShardIterator
     private static final Logger log = Logger.get(ShardIterator.class);
     private final Map<Integer, String> nodeMap = new HashMap<>();
 
+    private final Optional<RaptorColumnHandle> rangeColumn;
     private final ShardManagerDao dao;
     private final Connection connection;
     private final PreparedStatement statement;
     private final ResultSet resultSet;
 
-    public ShardIterator(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, IDBI dbi)
+    public ShardIterator(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, Optional<RaptorColumnHandle> rangeColumn, boolean orderByBucket, Set<String> indexColumns, IDBI dbi)
     {
-        ShardPredicate predicate = ShardPredicate.create(effectivePredicate);
+        ShardPredicate predicate = ShardPredicate.create(effectivePredicate, indexColumns);
+
+        this.rangeColumn = rangeColumn.filter(column -> indexColumns.contains(minColumn(column.getColumnId())));
+        String columns = "shard_uuid, node_ids, bucket_number";
+        if (this.rangeColumn.isPresent()) {
+            // only the minimum is a safe bound, the stored maximum of a string is truncated
+            columns += ", " + minColumn(this.rangeColumn.get().getColumnId());
+        }
 
         String sql = format(
-                "SELECT shard_uuid, node_ids FROM %s WHERE %s",
+                "SELECT %s FROM %s WHERE %s",
+                columns,
                 shardIndexTable(tableId),
                 predicate.getPredicate());
+        if (orderByBucket) {
+            sql += " ORDER BY bucket_number";
+        }
 
         dao = onDemandDao(dbi, ShardManagerDao.class);
         fetchNodes();
@@ -120,7 +141,48 @@ final class ShardIterator
                 .map(id -> nodeMap.computeIfAbsent(id, fetchNode))
                 .collect(toSet());
 
-        return new ShardNodes(shardUuid, nodeIdentifiers);
+        int bucketNumber = resultSet.getInt("bucket_number");
+        OptionalInt bucket = resultSet.wasNull() ? OptionalInt.empty() : OptionalInt.of(bucketNumber);
+
+        return new ShardNodes(shardUuid, nodeIdentifiers, bucket, getColumnRange());
+    }
+
+    private Optional<Range> getColumnRange()
+            throws SQLException
+    {
+        if (!rangeColumn.isPresent()) {
+            return Optional.empty();
+        }
+
+        Type type = rangeColumn.get().getColumnType();
+        JDBCType jdbcType = jdbcType(type);
+        String column = minColumn(rangeColumn.get().getColumnId());
+
+        Object value;
+        switch (jdbcType) {
+            case BOOLEAN:
+                value = resultSet.getBoolean(column);
+                break;
+            case BIGINT:
+                value = fromIndexValue(type, resultSet.getLong(column));
+                break;
+            case INTEGER:
+                value = (long) resultSet.getInt(column);
+                break;
+            case DOUBLE:
+                value = resultSet.getDouble(column);
+                break;
+            case VARBINARY:
+                byte[] bytes = resultSet.getBytes(column);
+                value = (bytes == null) ? null : wrappedBuffer(bytes);
+                break;
+            default:
+                return Optional.empty();
+        }
+        if (resultSet.wasNull()) {
+            return Optional.empty();
+        }
+        return Optional.of(Range.greaterThanOrEqual(type, value));
     }
 
     private String fetchNode(int id, UUID shardUuid)
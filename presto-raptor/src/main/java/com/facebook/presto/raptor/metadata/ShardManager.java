@@ -61,6 +61,16 @@ public interface ShardManager
      */
     ResultIterator<ShardNodes> getShardNodes(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate);
 
+    /**
+     * Return the shard nodes for a given table along with the range of values of a column.
+     */
+    ResultIterator<ShardNodes> getShardNodes(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, RaptorColumnHandle rangeColumn);
+
+    /**
+     * Return the shard nodes for a given bucketed table, ordered by bucket number.
+     */
+    ResultIterator<ShardNodes> getBucketedShardNodes(long tableId, TupleDomain<RaptorColumnHandle> effectivePredicate, Optional<RaptorColumnHandle> rangeColumn);
+
     /**
      * Assign a shard to a node.
      */
@@ -71,6 +81,42 @@ public interface ShardManager
      */
     void unassignShard(long tableId, UUID shardUuid, String nodeIdentifier);
 
+    /**
+     * Assign a shard to a node and remove it from all other nodes.
+     */
+    void replaceShardAssignment(long tableId, UUID shardUuid, String nodeIdentifier);
+
+    /**
+     * Assign the buckets of a bucketed table to the active nodes.
+     */
+    void createBuckets(long tableId, int bucketCount);
+
+    /**
+     * Return the node assigned to each bucket of a table, by bucket number.
+     */
+    Map<Integer, String> getBucketNodes(long tableId);
+
+    /**
+     * Assign a bucket to a different node.
+     */
+    void assignBucket(long tableId, int bucketNumber, String nodeIdentifier);
+
+    /**
+     * Return the IDs of all bucketed tables.
+     */
+    Set<Long> getBucketedTables();
+
+    /**
+     * Return the shards of a bucketed table that are not assigned to the node of their bucket.
+     */
+    List<ShardMetadata> getShardsNotOnBucketNodes(long tableId);
+
+    /**
+     * Return true if every bucket of a bucketed table is assigned to an active node
+     * and every shard of the table is assigned to the node of its bucket.
+     */
+    boolean areShardsOnBucketNodes(long tableId);
+
     /**
      * Get the number of bytes used by assigned shards per node.
      */
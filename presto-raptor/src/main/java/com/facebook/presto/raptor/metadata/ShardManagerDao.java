@@ -74,7 +74,7 @@ public interface ShardManagerDao
     @SqlQuery("SELECT shard_uuid FROM shards WHERE table_id = :tableId")
     List<UUID> getShards(@Bind("tableId") long tableId);
 
-    @SqlQuery("SELECT s.table_id, s.shard_id, s.shard_uuid, s.row_count, s.compressed_size, s.uncompressed_size\n" +
+    @SqlQuery("SELECT s.table_id, s.shard_id, s.shard_uuid, s.row_count, s.compressed_size, s.uncompressed_size, s.bucket_number\n" +
             "FROM shards s\n" +
             "JOIN shard_nodes sn ON (s.shard_id = sn.shard_id)\n" +
             "JOIN nodes n ON (sn.node_id = n.node_id)\n" +
@@ -90,6 +90,56 @@ public interface ShardManagerDao
     @Mapper(ShardNode.Mapper.class)
     List<ShardNode> getShardNodes(@Bind("tableId") long tableId);
 
+    @SqlBatch("INSERT INTO buckets (table_id, bucket_number, node_id)\n" +
+            "VALUES (:tableId, :bucketNumber, :nodeId)")
+    void insertBuckets(
+            @Bind("tableId") long tableId,
+            @Bind("bucketNumber") List<Integer> bucketNumbers,
+            @Bind("nodeId") List<Integer> nodeIds);
+
+    @SqlQuery("SELECT b.bucket_number, n.node_identifier\n" +
+            "FROM buckets b\n" +
+            "JOIN nodes n ON (b.node_id = n.node_id)\n" +
+            "WHERE b.table_id = :tableId\n" +
+            "ORDER BY b.bucket_number")
+    @Mapper(BucketNode.Mapper.class)
+    List<BucketNode> getBucketNodes(@Bind("tableId") long tableId);
+
+    @SqlUpdate("UPDATE buckets SET node_id = :nodeId\n" +
+            "WHERE table_id = :tableId\n" +
+            "  AND bucket_number = :bucketNumber")
+    void updateBucketNode(
+            @Bind("tableId") long tableId,
+            @Bind("bucketNumber") int bucketNumber,
+            @Bind("nodeId") int nodeId);
+
+    @SqlQuery("SELECT DISTINCT table_id FROM buckets")
+    Set<Long> getBucketedTableIds();
+
+    @SqlQuery("SELECT s.table_id, s.shard_id, s.shard_uuid, s.row_count, s.compressed_size, s.uncompressed_size, s.bucket_number\n" +
+            "FROM shards s\n" +
+            "JOIN buckets b ON (s.table_id = b.table_id AND s.bucket_number = b.bucket_number)\n" +
+            "WHERE s.table_id = :tableId\n" +
+            "  AND NOT EXISTS (\n" +
+            "    SELECT 1 FROM shard_nodes sn\n" +
+            "    WHERE sn.shard_id = s.shard_id\n" +
+            "      AND sn.node_id = b.node_id)")
+    @Mapper(ShardMetadata.Mapper.class)
+    List<ShardMetadata> getShardsNotOnBucketNodes(@Bind("tableId") long tableId);
+
+    @SqlQuery("SELECT count(*)\n" +
+            "FROM shards s\n" +
+            "JOIN buckets b ON (s.table_id = b.table_id AND s.bucket_number = b.bucket_number)\n" +
+            "WHERE s.table_id = :tableId\n" +
+            "  AND NOT EXISTS (\n" +
+            "    SELECT 1 FROM shard_nodes sn\n" +
+            "    WHERE sn.shard_id = s.shard_id\n" +
+            "      AND sn.node_id = b.node_id)")
+    boolean hasShardsNotOnBucketNodes(@Bind("tableId") long tableId);
+
+    @SqlUpdate("DELETE FROM buckets WHERE table_id = :tableId")
+    void dropBuckets(@Bind("tableId") long tableId);
+
     @VisibleForTesting
     @SqlQuery("SELECT node_identifier FROM nodes")
     Set<String> getAllNodesInUse();
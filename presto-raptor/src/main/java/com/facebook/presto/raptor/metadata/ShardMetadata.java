@@ -20,6 +20,7 @@ import org.skife.jdbi.v2.tweak.ResultSetMapper;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Objects;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.UUID;
 
@@ -39,6 +40,7 @@ public class ShardMetadata
     private final long uncompressedSize;
     private final OptionalLong rangeStart;
     private final OptionalLong rangeEnd;
+    private final OptionalInt bucketNumber;
 
     public ShardMetadata(long tableId, long shardId, UUID shardUuid, long rowCount, long compressedSize, long uncompressedSize)
     {
@@ -46,6 +48,11 @@ public class ShardMetadata
     }
 
     public ShardMetadata(long tableId, long shardId, UUID shardUuid, long rowCount, long compressedSize, long uncompressedSize, OptionalLong rangeStart, OptionalLong rangeEnd)
+    {
+        this(tableId, shardId, shardUuid, rowCount, compressedSize, uncompressedSize, rangeStart, rangeEnd, OptionalInt.empty());
+    }
+
+    public ShardMetadata(long tableId, long shardId, UUID shardUuid, long rowCount, long compressedSize, long uncompressedSize, OptionalLong rangeStart, OptionalLong rangeEnd, OptionalInt bucketNumber)
     {
         checkArgument(tableId > 0, "tableId must be > 0");
         checkArgument(shardId > 0, "shardId must be > 0");
@@ -61,6 +68,7 @@ public class ShardMetadata
         this.uncompressedSize = uncompressedSize;
         this.rangeStart = requireNonNull(rangeStart, "rangeStart is null");
         this.rangeEnd = requireNonNull(rangeEnd, "rangeEnd is null");
+        this.bucketNumber = requireNonNull(bucketNumber, "bucketNumber is null");
     }
 
     public long getTableId()
@@ -103,6 +111,11 @@ public class ShardMetadata
         return rangeEnd;
     }
 
+    public OptionalInt getBucketNumber()
+    {
+        return bucketNumber;
+    }
+
     public ShardMetadata withTimeRange(long rangeStart, long rangeEnd)
     {
         return new ShardMetadata(
@@ -113,7 +126,8 @@ public class ShardMetadata
                 compressedSize,
                 uncompressedSize,
                 OptionalLong.of(rangeStart),
-                OptionalLong.of(rangeEnd));
+                OptionalLong.of(rangeEnd),
+                bucketNumber);
     }
     @Override
     public String toString()
@@ -132,6 +146,9 @@ public class ShardMetadata
         if (rangeEnd.isPresent()) {
             stringHelper.add("rangeEnd", rangeEnd.getAsLong());
         }
+        if (bucketNumber.isPresent()) {
+            stringHelper.add("bucketNumber", bucketNumber.getAsInt());
+        }
         return stringHelper.toString();
     }
 
@@ -152,13 +169,14 @@ public class ShardMetadata
                 Objects.equals(uncompressedSize, that.uncompressedSize) &&
                 Objects.equals(shardUuid, that.shardUuid) &&
                 Objects.equals(rangeStart, that.rangeStart) &&
-                Objects.equals(rangeEnd, that.rangeEnd);
+                Objects.equals(rangeEnd, that.rangeEnd) &&
+                Objects.equals(bucketNumber, that.bucketNumber);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(tableId, shardId, shardUuid, rowCount, compressedSize, uncompressedSize, rangeStart, rangeEnd);
+        return Objects.hash(tableId, shardId, shardUuid, rowCount, compressedSize, uncompressedSize, rangeStart, rangeEnd, bucketNumber);
     }
 
     public static class Mapper
@@ -168,13 +186,17 @@ public class ShardMetadata
         public ShardMetadata map(int index, ResultSet r, StatementContext ctx)
                 throws SQLException
         {
+            int bucketNumber = r.getInt("bucket_number");
             return new ShardMetadata(
                     r.getLong("table_id"),
                     r.getLong("shard_id"),
                     uuidFromBytes(r.getBytes("shard_uuid")),
                     r.getLong("row_count"),
                     r.getLong("compressed_size"),
-                    r.getLong("uncompressed_size"));
+                    r.getLong("uncompressed_size"),
+                    OptionalLong.empty(),
+                    OptionalLong.empty(),
+                    r.wasNull() ? OptionalInt.empty() : OptionalInt.of(bucketNumber));
         }
     }
 }
@@ -13,9 +13,12 @@
  */
 package com.facebook.presto.raptor.metadata;
 
+import com.facebook.presto.spi.predicate.Range;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.Set;
 import java.util.UUID;
 
@@ -26,11 +29,20 @@ public class ShardNodes
 {
     private final UUID shardUuid;
     private final Set<String> nodeIdentifiers;
+    private final OptionalInt bucketNumber;
+    private final Optional<Range> columnRange;
 
     public ShardNodes(UUID shardUuid, Set<String> nodeIdentifiers)
+    {
+        this(shardUuid, nodeIdentifiers, OptionalInt.empty(), Optional.empty());
+    }
+
+    public ShardNodes(UUID shardUuid, Set<String> nodeIdentifiers, OptionalInt bucketNumber, Optional<Range> columnRange)
     {
         this.shardUuid = requireNonNull(shardUuid, "shardUuid is null");
         this.nodeIdentifiers = ImmutableSet.copyOf(requireNonNull(nodeIdentifiers, "nodeIdentifiers is null"));
+        this.bucketNumber = requireNonNull(bucketNumber, "bucketNumber is null");
+        this.columnRange = requireNonNull(columnRange, "columnRange is null");
     }
 
     public UUID getShardUuid()
@@ -43,6 +55,19 @@ public class ShardNodes
         return nodeIdentifiers;
     }
 
+    public OptionalInt getBucketNumber()
+    {
+        return bucketNumber;
+    }
+
+    /**
+     * Range of the values of the column requested from the shard manager, if known.
+     */
+    public Optional<Range> getColumnRange()
+    {
+        return columnRange;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -54,13 +79,15 @@ public class ShardNodes
         }
         ShardNodes other = (ShardNodes) obj;
         return Objects.equals(this.shardUuid, other.shardUuid) &&
-                Objects.equals(this.nodeIdentifiers, other.nodeIdentifiers);
+                Objects.equals(this.nodeIdentifiers, other.nodeIdentifiers) &&
+                Objects.equals(this.bucketNumber, other.bucketNumber) &&
+                Objects.equals(this.columnRange, other.columnRange);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(shardUuid, nodeIdentifiers);
+        return Objects.hash(shardUuid, nodeIdentifiers, bucketNumber, columnRange);
     }
 
     @Override
@@ -69,6 +96,8 @@ public class ShardNodes
         return toStringHelper(this)
                 .add("shardUuid", shardUuid)
                 .add("nodeIdentifiers", nodeIdentifiers)
+                .add("bucketNumber", bucketNumber)
+                .add("columnRange", columnRange.orElse(null))
                 .toString();
     }
 }
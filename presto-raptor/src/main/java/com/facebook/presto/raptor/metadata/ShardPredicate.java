@@ -19,12 +19,11 @@ import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.Ranges;
 import com.facebook.presto.spi.predicate.TupleDomain;
-import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.BooleanType;
 import com.facebook.presto.spi.type.DateType;
 import com.facebook.presto.spi.type.DoubleType;
-import com.facebook.presto.spi.type.TimestampType;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
 import com.facebook.presto.spi.type.VarcharType;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
@@ -34,22 +33,28 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.StringJoiner;
 
 import static com.facebook.presto.raptor.metadata.DatabaseShardManager.maxColumn;
 import static com.facebook.presto.raptor.metadata.DatabaseShardManager.minColumn;
+import static com.facebook.presto.raptor.storage.ShardStats.toIndexValue;
 import static com.facebook.presto.raptor.storage.ShardStats.truncateIndexValue;
 import static com.facebook.presto.raptor.util.Types.checkType;
 import static com.facebook.presto.raptor.util.UuidUtil.uuidStringToBytes;
 import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.collect.Iterables.getOnlyElement;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 class ShardPredicate
 {
+    /**
+     * Domains with more ranges are pruned by the span of their ranges.
+     */
+    private static final int MAX_RANGES = 100;
+
     private final String predicate;
     private final List<JDBCType> types;
     private final List<Object> values;
@@ -85,7 +90,11 @@ class ShardPredicate
                 .toString();
     }
 
-    public static ShardPredicate create(TupleDomain<RaptorColumnHandle> tupleDomain)
+    /**
+     * @param indexColumns the columns of the shard index table, which only has the columns
+     * of the types that were indexed when the table was created
+     */
+    public static ShardPredicate create(TupleDomain<RaptorColumnHandle> tupleDomain, Set<String> indexColumns)
     {
         StringJoiner predicate = new StringJoiner(" AND ").setEmptyValue("true");
         ImmutableList.Builder<JDBCType> types = ImmutableList.builder();
@@ -104,14 +113,20 @@ class ShardPredicate
                 continue;
             }
 
+            Ranges ranges = domain.getValues().getRanges();
+
             if (handle.isShardUuid()) {
-                // TODO: support multiple shard UUIDs
-                if (domain.isSingleValue()) {
-                    predicate.add("shard_uuid = ?");
-                    types.add(jdbcType(type));
-                    Slice uuidSlice = checkType(entry.getValue().getSingleValue(), Slice.class, "value");
+                if ((ranges.getRangeCount() > MAX_RANGES) || !ranges.getOrderedRanges().stream().allMatch(Range::isSingleValue)) {
+                    continue;
+                }
+                StringJoiner uuids = new StringJoiner(", ", "shard_uuid IN (", ")");
+                for (Range range : ranges.getOrderedRanges()) {
+                    uuids.add("?");
+                    types.add(jdbcType);
+                    Slice uuidSlice = checkType(range.getSingleValue(), Slice.class, "value");
                     values.add(uuidStringToBytes(uuidSlice));
                 }
+                predicate.add(uuids.toString());
                 continue;
             }
 
@@ -119,42 +134,49 @@ class ShardPredicate
                 continue;
             }
 
-            Ranges ranges = domain.getValues().getRanges();
+            // a shard matches if its value range overlaps any of the ranges
+            List<Range> orderedRanges = ranges.getOrderedRanges();
+            if (orderedRanges.size() > MAX_RANGES) {
+                orderedRanges = ImmutableList.of(ranges.getSpan());
+            }
 
-            // TODO: support multiple ranges
-            if (ranges.getRangeCount() != 1) {
+            String min = minColumn(handle.getColumnId());
+            String max = maxColumn(handle.getColumnId());
+            if (!indexColumns.contains(min)) {
                 continue;
             }
-            Range range = getOnlyElement(ranges.getOrderedRanges());
 
-            Object minValue = null;
-            Object maxValue = null;
-            if (range.isSingleValue()) {
-                minValue = range.getSingleValue();
-                maxValue = range.getSingleValue();
-            }
-            else {
-                if (!range.getLow().isLowerUnbounded()) {
-                    minValue = range.getLow().getValue();
+            StringJoiner columnPredicate = new StringJoiner(" OR ", "(", ")");
+            for (Range range : orderedRanges) {
+                Object minValue = null;
+                Object maxValue = null;
+                if (range.isSingleValue()) {
+                    minValue = range.getSingleValue();
+                    maxValue = range.getSingleValue();
                 }
-                if (!range.getHigh().isUpperUnbounded()) {
-                    maxValue = range.getHigh().getValue();
+                else {
+                    if (!range.getLow().isLowerUnbounded()) {
+                        minValue = range.getLow().getValue();
+                    }
+                    if (!range.getHigh().isUpperUnbounded()) {
+                        maxValue = range.getHigh().getValue();
+                    }
                 }
-            }
 
-            String min = minColumn(handle.getColumnId());
-            String max = maxColumn(handle.getColumnId());
-
-            if (minValue != null) {
-                predicate.add(format("(%s >= ? OR %s IS NULL)", max, max));
-                types.add(jdbcType);
-                values.add(minValue);
-            }
-            if (maxValue != null) {
-                predicate.add(format("(%s <= ? OR %s IS NULL)", min, min));
-                types.add(jdbcType);
-                values.add(maxValue);
+                StringJoiner rangePredicate = new StringJoiner(" AND ", "(", ")");
+                if (minValue != null) {
+                    rangePredicate.add(format("(%s >= ? OR %s IS NULL)", max, max));
+                    types.add(jdbcType);
+                    values.add(indexValue(type, minValue));
+                }
+                if (maxValue != null) {
+                    rangePredicate.add(format("(%s <= ? OR %s IS NULL)", min, min));
+                    types.add(jdbcType);
+                    values.add(indexValue(type, maxValue));
+                }
+                columnPredicate.add(rangePredicate.toString());
             }
+            predicate.add(columnPredicate.toString());
         }
 
         return new ShardPredicate(predicate.toString(), types.build(), values.build());
@@ -190,21 +212,32 @@ class ShardPredicate
 
     public static JDBCType jdbcType(Type type)
     {
+        if (!type.isOrderable()) {
+            return null;
+        }
         if (type.equals(BooleanType.BOOLEAN)) {
             return JDBCType.BOOLEAN;
         }
-        if (type.equals(BigintType.BIGINT) || type.equals(TimestampType.TIMESTAMP)) {
+        if (type.equals(DateType.DATE)) {
+            return JDBCType.INTEGER;
+        }
+        if (type.getJavaType() == long.class) {
             return JDBCType.BIGINT;
         }
         if (type.equals(DoubleType.DOUBLE)) {
             return JDBCType.DOUBLE;
         }
-        if (type.equals(DateType.DATE)) {
-            return JDBCType.INTEGER;
-        }
-        if (type.equals(VarcharType.VARCHAR)) {
+        if (type.equals(VarcharType.VARCHAR) || type.equals(VarbinaryType.VARBINARY)) {
             return JDBCType.VARBINARY;
         }
         return null;
     }
+
+    private static Object indexValue(Type type, Object value)
+    {
+        if (value instanceof Long) {
+            return toIndexValue(type, (long) value);
+        }
+        return value;
+    }
 }
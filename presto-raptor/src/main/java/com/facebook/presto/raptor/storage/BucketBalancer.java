@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.storage;
+
+import com.facebook.presto.raptor.NodeSupplier;
+import com.facebook.presto.raptor.RaptorConnectorId;
+import com.facebook.presto.raptor.backup.BackupStore;
+import com.facebook.presto.raptor.metadata.ShardManager;
+import com.facebook.presto.raptor.metadata.ShardMetadata;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Keeps the shards of bucketed tables on the nodes of their buckets. It runs on the
+ * coordinator and only changes the metadata: shards that are assigned to a new node
+ * are restored from the backup store by the shard recovery of that node.
+ * <ul>
+ * <li>Buckets of nodes that are no longer active are reassigned to the active nodes
+ * with the fewest buckets of the table.</li>
+ * <li>Shards are written on the node of the writer, so they are readable right away.
+ * Afterwards, they are moved to the node of their bucket. Until then, the table is
+ * scanned like an unbucketed table.</li>
+ * </ul>
+ */
+public class BucketBalancer
+{
+    private static final Logger log = Logger.get(BucketBalancer.class);
+
+    private final NodeSupplier nodeSupplier;
+    private final ShardManager shardManager;
+    private final boolean enabled;
+    private final Duration interval;
+    private final ScheduledExecutorService executor;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private final CounterStat bucketsReassigned = new CounterStat();
+    private final CounterStat shardsMoved = new CounterStat();
+    private final CounterStat jobErrors = new CounterStat();
+
+    @Inject
+    public BucketBalancer(
+            NodeManager nodeManager,
+            NodeSupplier nodeSupplier,
+            ShardManager shardManager,
+            StorageManagerConfig config,
+            Optional<BackupStore> backupStore,
+            RaptorConnectorId connectorId)
+    {
+        this(nodeSupplier,
+                shardManager,
+                nodeManager.getCoordinators().contains(nodeManager.getCurrentNode()) && backupStore.isPresent(),
+                config.getBucketBalancerInterval(),
+                connectorId.toString());
+    }
+
+    public BucketBalancer(
+            NodeSupplier nodeSupplier,
+            ShardManager shardManager,
+            boolean enabled,
+            Duration interval,
+            String connectorId)
+    {
+        this.nodeSupplier = requireNonNull(nodeSupplier, "nodeSupplier is null");
+        this.shardManager = requireNonNull(shardManager, "shardManager is null");
+        this.enabled = enabled;
+        this.interval = requireNonNull(interval, "interval is null");
+        this.executor = newScheduledThreadPool(1, daemonThreadsNamed("bucket-balancer-" + connectorId));
+    }
+
+    @PostConstruct
+    public void start()
+    {
+        if (enabled && !started.getAndSet(true)) {
+            startJob();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBucketsReassigned()
+    {
+        return bucketsReassigned;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getShardsMoved()
+    {
+        return shardsMoved;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getJobErrors()
+    {
+        return jobErrors;
+    }
+
+    private void startJob()
+    {
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                process();
+            }
+            catch (Throwable t) {
+                log.error(t, "Error balancing buckets");
+                jobErrors.update(1);
+            }
+        }, interval.toMillis(), interval.toMillis(), MILLISECONDS);
+    }
+
+    @VisibleForTesting
+    void process()
+    {
+        List<String> activeNodes = nodeSupplier.getWorkerNodes().stream()
+                .map(Node::getNodeIdentifier)
+                .sorted()
+                .collect(toList());
+        if (activeNodes.isEmpty()) {
+            return;
+        }
+
+        for (long tableId : shardManager.getBucketedTables()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Map<Integer, String> bucketNodes = reassignBuckets(tableId, activeNodes);
+            moveShards(tableId, bucketNodes);
+        }
+    }
+
+    private Map<Integer, String> reassignBuckets(long tableId, List<String> activeNodes)
+    {
+        Map<Integer, String> bucketNodes = new HashMap<>(shardManager.getBucketNodes(tableId));
+
+        Multiset<String> nodeBuckets = HashMultiset.create();
+        for (String node : bucketNodes.values()) {
+            if (activeNodes.contains(node)) {
+                nodeBuckets.add(node);
+            }
+        }
+
+        for (Entry<Integer, String> entry : bucketNodes.entrySet()) {
+            if (activeNodes.contains(entry.getValue())) {
+                continue;
+            }
+            int bucket = entry.getKey();
+            String target = activeNodes.stream()
+                    .min(comparingInt(nodeBuckets::count))
+                    .get();
+
+            log.info("Moving bucket %s of table %s from node %s to node %s", bucket, tableId, entry.getValue(), target);
+            shardManager.assignBucket(tableId, bucket, target);
+            bucketsReassigned.update(1);
+
+            nodeBuckets.add(target);
+            entry.setValue(target);
+        }
+        return bucketNodes;
+    }
+
+    private void moveShards(long tableId, Map<Integer, String> bucketNodes)
+    {
+        for (ShardMetadata shard : shardManager.getShardsNotOnBucketNodes(tableId)) {
+            // the shard query only returns shards that have a bucket
+            String target = bucketNodes.get(shard.getBucketNumber().getAsInt());
+            if (target == null) {
+                continue;
+            }
+            shardManager.replaceShardAssignment(tableId, shard.getShardUuid(), target);
+            shardsMoved.update(1);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.storage;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads shards one after another. Only one shard is open at a time.
+ */
+public class ConcatPageSource
+        implements ConnectorPageSource
+{
+    private final List<UUID> shardUuids;
+    private final Iterator<UUID> remainingShards;
+    private final Function<UUID, ConnectorPageSource> pageSourceFactory;
+
+    private ConnectorPageSource current;
+    private boolean finished;
+
+    private long totalBytes;
+    private long completedBytes;
+    private long readTimeNanos;
+
+    public ConcatPageSource(List<UUID> shardUuids, Function<UUID, ConnectorPageSource> pageSourceFactory)
+    {
+        this.shardUuids = ImmutableList.copyOf(requireNonNull(shardUuids, "shardUuids is null"));
+        this.remainingShards = this.shardUuids.iterator();
+        this.pageSourceFactory = requireNonNull(pageSourceFactory, "pageSourceFactory is null");
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes + ((current == null) ? 0 : current.getTotalBytes());
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes + ((current == null) ? 0 : current.getCompletedBytes());
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos + ((current == null) ? 0 : current.getReadTimeNanos());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        while (!finished) {
+            if (current == null) {
+                if (!remainingShards.hasNext()) {
+                    finished = true;
+                    return null;
+                }
+                current = pageSourceFactory.apply(remainingShards.next());
+            }
+
+            if (!current.isFinished()) {
+                // a page source may return no page before it is finished
+                return current.getNextPage();
+            }
+            closeCurrent();
+        }
+        return null;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return (current == null) ? 0 : current.getSystemMemoryUsage();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        finished = true;
+        if (current != null) {
+            ConnectorPageSource pageSource = current;
+            current = null;
+            pageSource.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("shardUuids", shardUuids)
+                .toString();
+    }
+
+    private void closeCurrent()
+    {
+        totalBytes += current.getTotalBytes();
+        completedBytes += current.getCompletedBytes();
+        readTimeNanos += current.getReadTimeNanos();
+        try {
+            current.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to close shard", e);
+        }
+        finally {
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.storage;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Marker;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Closer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Merges shards that are sorted on the same columns into a single sorted stream.
+ * <p>
+ * Shards are sorted ascending with nulls first. The rows with a null first sort
+ * column are returned after all other rows, so the output is sorted on the first
+ * sort column with nulls last, as ORDER BY sorts by default. Those rows are a
+ * prefix of every shard and are merged in a second pass over the shards.
+ * <p>
+ * Shards are opened lazily, in the order of the minimum value of the first sort
+ * column, when the rows merged so far reach that minimum. The rows are merged one
+ * page at a time, so a query that stops early only reads the shards it needs.
+ */
+public class MergingPageSource
+        implements ConnectorPageSource
+{
+    private final List<UUID> shardUuids;
+    private final Function<UUID, ConnectorPageSource> pageSourceFactory;
+    private final List<Type> columnTypes;
+    private final List<Type> outputTypes;
+    private final List<Integer> sortChannels;
+    private final PageBuilder pageBuilder;
+
+    private final Queue<PendingShard> pendingShards;
+    private final Queue<ShardCursor> cursors;
+
+    private boolean nullPass;
+    private boolean finished;
+
+    private long totalBytes;
+    private long completedBytes;
+    private long readTimeNanos;
+
+    /**
+     * @param shardUuids shards to merge
+     * @param shardRanges known ranges of the values of the first sort column in each shard
+     * @param pageSourceFactory creates a page source for a shard that reads all {@code columnTypes}
+     * @param columnTypes types of the columns read from each shard
+     * @param outputChannelCount number of leading columns that are returned
+     * @param sortChannels channels of the sort columns
+     */
+    public MergingPageSource(
+            List<UUID> shardUuids,
+            Map<UUID, Range> shardRanges,
+            Function<UUID, ConnectorPageSource> pageSourceFactory,
+            List<Type> columnTypes,
+            int outputChannelCount,
+            List<Integer> sortChannels)
+    {
+        this.shardUuids = ImmutableList.copyOf(requireNonNull(shardUuids, "shardUuids is null"));
+        this.pageSourceFactory = requireNonNull(pageSourceFactory, "pageSourceFactory is null");
+        this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
+        this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
+        checkArgument(!sortChannels.isEmpty(), "sortChannels is empty");
+        checkArgument(outputChannelCount <= columnTypes.size(), "outputChannelCount is greater than the number of columns");
+
+        this.outputTypes = this.columnTypes.subList(0, outputChannelCount);
+        this.pageBuilder = new PageBuilder(outputTypes);
+        this.cursors = new PriorityQueue<>();
+
+        Map<UUID, Range> ranges = ImmutableMap.copyOf(requireNonNull(shardRanges, "shardRanges is null"));
+        this.pendingShards = new PriorityQueue<>(Comparator.comparing(PendingShard::getLowerBound, Comparator.nullsFirst(Comparator.<Marker>naturalOrder())));
+        for (UUID shardUuid : shardUuids) {
+            Range range = ranges.get(shardUuid);
+            Marker lowerBound = ((range == null) || range.getLow().isLowerUnbounded()) ? null : range.getLow();
+            pendingShards.add(new PendingShard(shardUuid, lowerBound));
+        }
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes + cursors.stream().mapToLong(cursor -> cursor.getPageSource().getTotalBytes()).sum();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes + cursors.stream().mapToLong(cursor -> cursor.getPageSource().getCompletedBytes()).sum();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos + cursors.stream().mapToLong(cursor -> cursor.getPageSource().getReadTimeNanos()).sum();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+
+        while (!pageBuilder.isFull()) {
+            ShardCursor cursor = nextCursor();
+            if (cursor == null) {
+                finished = true;
+                break;
+            }
+
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < outputTypes.size(); channel++) {
+                Type type = outputTypes.get(channel);
+                type.appendTo(cursor.getBlock(channel), cursor.getPosition(), pageBuilder.getBlockBuilder(channel));
+            }
+
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+            else {
+                closeCursor(cursor);
+            }
+        }
+
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        return page;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return cursors.stream().mapToLong(cursor -> cursor.getPageSource().getSystemMemoryUsage()).sum();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        finished = true;
+        pendingShards.clear();
+        try (Closer closer = Closer.create()) {
+            for (ShardCursor cursor : cursors) {
+                closer.register(cursor);
+            }
+            cursors.clear();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("shardUuids", shardUuids)
+                .add("sortChannels", sortChannels)
+                .toString();
+    }
+
+    /**
+     * Returns the cursor positioned on the next row, or null if all shards are merged.
+     */
+    private ShardCursor nextCursor()
+    {
+        while (true) {
+            openPendingShards();
+            if (!cursors.isEmpty()) {
+                return cursors.poll();
+            }
+            if (nullPass) {
+                return null;
+            }
+
+            // the ranges do not cover nulls, so every shard is read again in the second pass
+            nullPass = true;
+            for (UUID shardUuid : shardUuids) {
+                pendingShards.add(new PendingShard(shardUuid, null));
+            }
+        }
+    }
+
+    private void openPendingShards()
+    {
+        while (!pendingShards.isEmpty() && (cursors.isEmpty() || mayPrecede(pendingShards.peek(), cursors.peek()))) {
+            UUID shardUuid = pendingShards.poll().getShardUuid();
+            ShardCursor cursor = new ShardCursor(pageSourceFactory.apply(shardUuid), columnTypes, sortChannels, nullPass);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+            else {
+                closeCursor(cursor);
+            }
+        }
+    }
+
+    private boolean mayPrecede(PendingShard shard, ShardCursor cursor)
+    {
+        Marker lowerBound = shard.getLowerBound();
+        if (lowerBound == null) {
+            return true;
+        }
+        int channel = sortChannels.get(0);
+        Block value = lowerBound.getValueBlock().get();
+        return columnTypes.get(channel).compareTo(value, 0, cursor.getBlock(channel), cursor.getPosition()) <= 0;
+    }
+
+    private void closeCursor(ShardCursor cursor)
+    {
+        totalBytes += cursor.getPageSource().getTotalBytes();
+        completedBytes += cursor.getPageSource().getCompletedBytes();
+        readTimeNanos += cursor.getPageSource().getReadTimeNanos();
+        try {
+            cursor.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to close shard", e);
+        }
+    }
+
+    private static class PendingShard
+    {
+        private final UUID shardUuid;
+        private final Marker lowerBound;
+
+        public PendingShard(UUID shardUuid, Marker lowerBound)
+        {
+            this.shardUuid = requireNonNull(shardUuid, "shardUuid is null");
+            this.lowerBound = lowerBound;
+        }
+
+        public UUID getShardUuid()
+        {
+            return shardUuid;
+        }
+
+        public Marker getLowerBound()
+        {
+            return lowerBound;
+        }
+    }
+
+    private static class ShardCursor
+            implements Comparable<ShardCursor>, Closeable
+    {
+        private final ConnectorPageSource pageSource;
+        private final List<Type> sortTypes;
+        private final List<Integer> sortChannels;
+        private final boolean nullPass;
+
+        private Page currentPage;
+        private int currentPosition = -1;
+
+        public ShardCursor(ConnectorPageSource pageSource, List<Type> columnTypes, List<Integer> sortChannels, boolean nullPass)
+        {
+            this.pageSource = requireNonNull(pageSource, "pageSource is null");
+            this.sortTypes = sortChannels.stream().map(columnTypes::get).collect(toList());
+            this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
+            this.nullPass = nullPass;
+        }
+
+        public ConnectorPageSource getPageSource()
+        {
+            return pageSource;
+        }
+
+        public Block getBlock(int channel)
+        {
+            return currentPage.getBlock(channel);
+        }
+
+        public int getPosition()
+        {
+            return currentPosition;
+        }
+
+        /**
+         * Moves to the next row of the current pass. Returns false if the shard has no more rows for the pass.
+         */
+        public boolean advance()
+        {
+            currentPosition++;
+            while (true) {
+                if ((currentPage == null) || (currentPosition >= currentPage.getPositionCount())) {
+                    Optional<Page> page = getNextPage();
+                    if (!page.isPresent()) {
+                        return false;
+                    }
+                    currentPage = page.get();
+                    currentPosition = 0;
+                }
+
+                boolean nullKey = currentPage.getBlock(sortChannels.get(0)).isNull(currentPosition);
+                if (nullKey == nullPass) {
+                    return true;
+                }
+                if (nullPass) {
+                    // the rows with a null first sort column are a prefix of the shard
+                    return false;
+                }
+                currentPosition++;
+            }
+        }
+
+        private Optional<Page> getNextPage()
+        {
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if ((page != null) && (page.getPositionCount() > 0)) {
+                    page.assureLoaded();
+                    return Optional.of(page);
+                }
+            }
+            return Optional.empty();
+        }
+
+        @Override
+        public int compareTo(ShardCursor other)
+        {
+            for (int i = 0; i < sortChannels.size(); i++) {
+                int channel = sortChannels.get(i);
+                int compare = ASC_NULLS_FIRST.compareBlockValue(sortTypes.get(i), getBlock(channel), currentPosition, other.getBlock(channel), other.currentPosition);
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            pageSource.close();
+        }
+    }
+}
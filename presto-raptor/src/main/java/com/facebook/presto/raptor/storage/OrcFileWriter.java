@@ -13,16 +13,20 @@
  */
 package com.facebook.presto.raptor.storage;
 
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.raptor.util.SyncingFileOutputStream;
 import com.facebook.presto.raptor.util.SyncingFileSystem;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
 import com.facebook.presto.spi.type.Type;
-import com.facebook.presto.spi.type.VarbinaryType;
-import com.facebook.presto.spi.type.VarcharType;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
@@ -41,6 +45,7 @@ import org.apache.hadoop.hive.serde2.typeinfo.MapTypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -48,19 +53,28 @@ import java.lang.reflect.Constructor;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
 import static com.facebook.presto.raptor.storage.Row.extractRow;
+import static com.facebook.presto.raptor.storage.Row.getRowSizeInBytes;
 import static com.facebook.presto.raptor.storage.StorageType.arrayOf;
 import static com.facebook.presto.raptor.storage.StorageType.mapOf;
 import static com.facebook.presto.raptor.util.Types.isArrayType;
 import static com.facebook.presto.raptor.util.Types.isMapType;
 import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Functions.toStringFunction;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.Iterables.transform;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
@@ -82,13 +96,16 @@ public class OrcFileWriter
     private static final Configuration CONFIGURATION = new Configuration();
     private static final Constructor<? extends RecordWriter> WRITER_CONSTRUCTOR = getOrcWriterConstructor();
 
-    private final List<Type> columnTypes;
+    private static final Map<StorageType, Type> NATIVE_WRITER_TYPES = ImmutableMap.<StorageType, Type>builder()
+            .put(StorageType.BOOLEAN, BOOLEAN)
+            .put(StorageType.LONG, BIGINT)
+            .put(StorageType.DOUBLE, DOUBLE)
+            .put(StorageType.STRING, VARCHAR)
+            .put(StorageType.BYTES, VARBINARY)
+            .build();
 
-    private final OrcSerde serializer;
-    private final RecordWriter recordWriter;
-    private final SettableStructObjectInspector tableInspector;
-    private final List<StructField> structFields;
-    private final Object orcRow;
+    private final List<Type> columnTypes;
+    private final ShardFileWriter fileWriter;
 
     private long rowCount;
     private long uncompressedSize;
@@ -100,26 +117,25 @@ public class OrcFileWriter
         checkArgument(isUnique(columnIds), "ids must be unique");
 
         List<StorageType> storageTypes = ImmutableList.copyOf(toStorageTypes(columnTypes));
-        Iterable<String> hiveTypeNames = storageTypes.stream().map(StorageType::getHiveTypeName).collect(toList());
         List<String> columnNames = ImmutableList.copyOf(transform(columnIds, toStringFunction()));
 
-        Properties properties = new Properties();
-        properties.setProperty(META_TABLE_COLUMNS, Joiner.on(',').join(columnNames));
-        properties.setProperty(META_TABLE_COLUMN_TYPES, Joiner.on(':').join(hiveTypeNames));
-
-        serializer = createSerializer(CONFIGURATION, properties);
-        recordWriter = createRecordWriter(new Path(target.toURI()), CONFIGURATION);
-
-        tableInspector = getStandardStructObjectInspector(columnNames, getJavaObjectInspectors(storageTypes));
-        structFields = ImmutableList.copyOf(tableInspector.getAllStructFieldRefs());
-        orcRow = tableInspector.create();
+        // the native writer does not support nested types yet
+        if (storageTypes.stream().allMatch(NATIVE_WRITER_TYPES::containsKey)) {
+            List<Type> writerTypes = storageTypes.stream().map(NATIVE_WRITER_TYPES::get).collect(toList());
+            fileWriter = new NativeShardFileWriter(columnNames, this.columnTypes, writerTypes, target);
+        }
+        else {
+            fileWriter = new HiveShardFileWriter(columnNames, this.columnTypes, storageTypes, target);
+        }
     }
 
     public void appendPages(List<Page> pages)
     {
         for (Page page : pages) {
+            fileWriter.appendPage(page);
+            rowCount += page.getPositionCount();
             for (int position = 0; position < page.getPositionCount(); position++) {
-                appendRow(extractRow(page, position, columnTypes));
+                uncompressedSize += getRowSizeInBytes(page, position, columnTypes);
             }
         }
     }
@@ -129,23 +145,16 @@ public class OrcFileWriter
         checkArgument(pageIndexes.length == positionIndexes.length, "pageIndexes and positionIndexes do not match");
         for (int i = 0; i < pageIndexes.length; i++) {
             Page page = inputPages.get(pageIndexes[i]);
-            appendRow(extractRow(page, positionIndexes[i], columnTypes));
+            fileWriter.appendPosition(page, positionIndexes[i]);
+            rowCount++;
+            uncompressedSize += getRowSizeInBytes(page, positionIndexes[i], columnTypes);
         }
     }
 
     public void appendRow(Row row)
     {
-        List<Object> columns = row.getColumns();
-        checkArgument(columns.size() == columnTypes.size());
-        for (int channel = 0; channel < columns.size(); channel++) {
-            tableInspector.setStructFieldData(orcRow, structFields.get(channel), columns.get(channel));
-        }
-        try {
-            recordWriter.write(serializer.serialize(orcRow, tableInspector));
-        }
-        catch (IOException e) {
-            throw new PrestoException(RAPTOR_ERROR, "Failed to write record", e);
-        }
+        checkArgument(row.getColumns().size() == columnTypes.size());
+        fileWriter.appendRow(row);
         rowCount++;
         uncompressedSize += row.getSizeInBytes();
     }
@@ -154,7 +163,7 @@ public class OrcFileWriter
     public void close()
     {
         try {
-            recordWriter.close(false);
+            fileWriter.close();
         }
         catch (IOException e) {
             throw new PrestoException(RAPTOR_ERROR, "Failed to close writer", e);
@@ -171,6 +180,197 @@ public class OrcFileWriter
         return uncompressedSize;
     }
 
+    private interface ShardFileWriter
+            extends Closeable
+    {
+        void appendPage(Page page);
+
+        void appendPosition(Page page, int position);
+
+        void appendRow(Row row);
+    }
+
+    /**
+     * Encodes the pages directly with the Presto ORC writer.
+     */
+    private static class NativeShardFileWriter
+            implements ShardFileWriter
+    {
+        private final List<Type> writerTypes;
+        private final OrcWriter orcWriter;
+        private final PageBuilder pageBuilder;
+
+        public NativeShardFileWriter(List<String> columnNames, List<Type> columnTypes, List<Type> writerTypes, File target)
+        {
+            this.writerTypes = ImmutableList.copyOf(writerTypes);
+            this.pageBuilder = new PageBuilder(columnTypes);
+            try {
+                this.orcWriter = new OrcWriter(new BufferedOutputStream(new SyncingFileOutputStream(target)), columnNames, writerTypes, CompressionKind.SNAPPY);
+            }
+            catch (IOException e) {
+                throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
+            }
+        }
+
+        @Override
+        public void appendPage(Page page)
+        {
+            // keep the rows in order with the rows appended individually
+            flushPageBuilder();
+            writePage(page);
+        }
+
+        @Override
+        public void appendPosition(Page page, int position)
+        {
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < page.getChannelCount(); channel++) {
+                pageBuilder.getType(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+            flushPageBuilderIfFull();
+        }
+
+        @Override
+        public void appendRow(Row row)
+        {
+            List<Object> columns = row.getColumns();
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < columns.size(); channel++) {
+                appendOrcValue(writerTypes.get(channel), columns.get(channel), pageBuilder.getBlockBuilder(channel));
+            }
+            flushPageBuilderIfFull();
+        }
+
+        private static void appendOrcValue(Type type, Object value, BlockBuilder blockBuilder)
+        {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else if (type.equals(BOOLEAN)) {
+                BOOLEAN.writeBoolean(blockBuilder, (Boolean) value);
+            }
+            else if (type.equals(BIGINT)) {
+                BIGINT.writeLong(blockBuilder, (Long) value);
+            }
+            else if (type.equals(DOUBLE)) {
+                DOUBLE.writeDouble(blockBuilder, (Double) value);
+            }
+            else if (type.equals(VARCHAR)) {
+                VARCHAR.writeSlice(blockBuilder, utf8Slice((String) value));
+            }
+            else if (type.equals(VARBINARY)) {
+                VARBINARY.writeSlice(blockBuilder, wrappedBuffer((byte[]) value));
+            }
+            else {
+                throw new PrestoException(INTERNAL_ERROR, "Unhandled writer type: " + type);
+            }
+        }
+
+        private void flushPageBuilderIfFull()
+        {
+            if (pageBuilder.isFull()) {
+                flushPageBuilder();
+            }
+        }
+
+        private void flushPageBuilder()
+        {
+            if (!pageBuilder.isEmpty()) {
+                writePage(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+
+        private void writePage(Page page)
+        {
+            try {
+                orcWriter.write(page);
+            }
+            catch (IOException e) {
+                throw new PrestoException(RAPTOR_ERROR, "Failed to write data", e);
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            try {
+                flushPageBuilder();
+            }
+            finally {
+                orcWriter.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the rows with the Hive ORC writer, which supports all storage types.
+     */
+    private static class HiveShardFileWriter
+            implements ShardFileWriter
+    {
+        private final List<Type> columnTypes;
+        private final OrcSerde serializer;
+        private final RecordWriter recordWriter;
+        private final SettableStructObjectInspector tableInspector;
+        private final List<StructField> structFields;
+        private final Object orcRow;
+
+        public HiveShardFileWriter(List<String> columnNames, List<Type> columnTypes, List<StorageType> storageTypes, File target)
+        {
+            this.columnTypes = ImmutableList.copyOf(columnTypes);
+            Iterable<String> hiveTypeNames = storageTypes.stream().map(StorageType::getHiveTypeName).collect(toList());
+
+            Properties properties = new Properties();
+            properties.setProperty(META_TABLE_COLUMNS, Joiner.on(',').join(columnNames));
+            properties.setProperty(META_TABLE_COLUMN_TYPES, Joiner.on(':').join(hiveTypeNames));
+
+            serializer = createSerializer(CONFIGURATION, properties);
+            recordWriter = createRecordWriter(new Path(target.toURI()), CONFIGURATION);
+
+            tableInspector = getStandardStructObjectInspector(columnNames, getJavaObjectInspectors(storageTypes));
+            structFields = ImmutableList.copyOf(tableInspector.getAllStructFieldRefs());
+            orcRow = tableInspector.create();
+        }
+
+        @Override
+        public void appendPage(Page page)
+        {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                appendPosition(page, position);
+            }
+        }
+
+        @Override
+        public void appendPosition(Page page, int position)
+        {
+            appendRow(extractRow(page, position, columnTypes));
+        }
+
+        @Override
+        public void appendRow(Row row)
+        {
+            List<Object> columns = row.getColumns();
+            for (int channel = 0; channel < columns.size(); channel++) {
+                tableInspector.setStructFieldData(orcRow, structFields.get(channel), columns.get(channel));
+            }
+            try {
+                recordWriter.write(serializer.serialize(orcRow, tableInspector));
+            }
+            catch (IOException e) {
+                throw new PrestoException(RAPTOR_ERROR, "Failed to write record", e);
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            recordWriter.close(false);
+        }
+    }
+
     private static OrcSerde createSerializer(Configuration conf, Properties properties)
     {
         OrcSerde serde = new OrcSerde();
@@ -260,10 +460,10 @@ public class OrcFileWriter
             return StorageType.DOUBLE;
         }
         if (javaType == Slice.class) {
-            if (type.equals(VarcharType.VARCHAR)) {
+            if (type.equals(VARCHAR)) {
                 return StorageType.STRING;
             }
-            if (type.equals(VarbinaryType.VARBINARY)) {
+            if (type.equals(VARBINARY)) {
                 return StorageType.BYTES;
             }
         }
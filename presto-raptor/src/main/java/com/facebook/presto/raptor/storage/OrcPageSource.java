@@ -302,5 +302,36 @@ public class OrcPageSource
 
             loaded = true;
         }
+
+        @Override
+        public Block loadPositions(LazyBlock lazyBlock, List<Integer> positions)
+        {
+            if (loaded || !isIncreasing(positions)) {
+                return null;
+            }
+
+            checkState(batchId == expectedBatchId);
+
+            Block block;
+            try {
+                block = recordReader.readBlock(type, columnIndex, Ints.toArray(positions));
+            }
+            catch (IOException e) {
+                throw new PrestoException(RAPTOR_ERROR, e);
+            }
+
+            loaded = true;
+            return block;
+        }
+    }
+
+    private static boolean isIncreasing(List<Integer> positions)
+    {
+        for (int i = 1; i < positions.size(); i++) {
+            if (positions.get(i) <= positions.get(i - 1)) {
+                return false;
+            }
+        }
+        return true;
     }
 }
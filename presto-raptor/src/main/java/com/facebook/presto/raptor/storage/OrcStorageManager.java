@@ -15,6 +15,8 @@ package com.facebook.presto.raptor.storage;
 
 import com.facebook.presto.orc.FileOrcDataSource;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcFileId;
+import com.facebook.presto.orc.OrcMetadataCache;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -67,6 +69,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
@@ -115,6 +118,7 @@ public class OrcStorageManager
     private final long maxShardRows;
     private final DataSize maxShardSize;
     private final TypeManager typeManager;
+    private final OrcMetadataCache metadataCache;
     private final ExecutorService deletionExecutor;
 
     @Inject
@@ -129,7 +133,8 @@ public class OrcStorageManager
             BackupManager backgroundBackupManager,
             ShardRecoveryManager recoveryManager,
             ShardRecorder shardRecorder,
-            TypeManager typeManager)
+            TypeManager typeManager,
+            OrcMetadataCache metadataCache)
     {
         this(currentNodeId.toString(),
                 storageService,
@@ -140,6 +145,7 @@ public class OrcStorageManager
                 recoveryManager,
                 shardRecorder,
                 typeManager,
+                metadataCache,
                 connectorId.toString(),
                 config.getDeletionThreads(),
                 config.getShardRecoveryTimeout(),
@@ -157,6 +163,7 @@ public class OrcStorageManager
             ShardRecoveryManager recoveryManager,
             ShardRecorder shardRecorder,
             TypeManager typeManager,
+            OrcMetadataCache metadataCache,
             String connectorId,
             int deletionThreads,
             Duration shardRecoveryTimeout,
@@ -178,6 +185,7 @@ public class OrcStorageManager
         this.maxShardSize = requireNonNull(maxShardSize, "maxShardSize is null");
         this.shardRecorder = requireNonNull(shardRecorder, "shardRecorder is null");
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
         this.deletionExecutor = newFixedThreadPool(deletionThreads, daemonThreadsNamed("raptor-delete-" + connectorId + "-%s"));
     }
 
@@ -190,6 +198,7 @@ public class OrcStorageManager
     @Override
     public ConnectorPageSource getPageSource(
             UUID shardUuid,
+            OptionalInt bucketNumber,
             List<Long> columnIds,
             List<Type> columnTypes,
             TupleDomain<RaptorColumnHandle> effectivePredicate,
@@ -201,7 +210,15 @@ public class OrcStorageManager
         AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
 
         try {
-            OrcReader reader = new OrcReader(dataSource, new OrcMetadataReader(), readerAttributes.getMaxMergeDistance(), readerAttributes.getMaxReadSize());
+            // shard files are never modified, so the shard and the file size identify the file
+            OrcFileId fileId = new OrcFileId(shardUuid.toString(), dataSource.getSize(), 0);
+            OrcReader reader = new OrcReader(
+                    dataSource,
+                    new OrcMetadataReader(),
+                    readerAttributes.getMaxMergeDistance(),
+                    readerAttributes.getMaxReadSize(),
+                    metadataCache,
+                    Optional.of(fileId));
 
             Map<Long, Integer> indexMap = columnIdIndex(reader.getColumnNames());
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -233,7 +250,7 @@ public class OrcStorageManager
 
             Optional<ShardRewriter> shardRewriter = Optional.empty();
             if (transactionId.isPresent()) {
-                shardRewriter = Optional.of(createShardRewriter(transactionId.getAsLong(), shardUuid));
+                shardRewriter = Optional.of(createShardRewriter(transactionId.getAsLong(), bucketNumber, shardUuid));
             }
 
             return new OrcPageSource(shardRewriter, recordReader, dataSource, columnIds, columnTypes, columnIndexes.build(), shardUuid, systemMemoryUsage);
@@ -250,14 +267,14 @@ public class OrcStorageManager
     }
 
     @Override
-    public StoragePageSink createStoragePageSink(long transactionId, List<Long> columnIds, List<Type> columnTypes)
+    public StoragePageSink createStoragePageSink(long transactionId, OptionalInt bucketNumber, List<Long> columnIds, List<Type> columnTypes)
     {
-        return new OrcStoragePageSink(transactionId, columnIds, columnTypes);
+        return new OrcStoragePageSink(transactionId, bucketNumber, columnIds, columnTypes);
     }
 
-    private ShardRewriter createShardRewriter(long transactionId, UUID shardUuid)
+    private ShardRewriter createShardRewriter(long transactionId, OptionalInt bucketNumber, UUID shardUuid)
     {
-        return rowsToDelete -> supplyAsync(() -> rewriteShard(transactionId, shardUuid, rowsToDelete), deletionExecutor);
+        return rowsToDelete -> supplyAsync(() -> rewriteShard(transactionId, bucketNumber, shardUuid, rowsToDelete), deletionExecutor);
     }
 
     private void writeShard(UUID shardUuid)
@@ -287,7 +304,14 @@ public class OrcStorageManager
         if (!file.exists() && backupExists(shardUuid)) {
             try {
                 Future<?> future = recoveryManager.recoverShard(shardUuid);
-                future.get(recoveryTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                // read the backup in place while the shard is recovered in the background
+                Optional<File> backupFile = recoveryManager.getReadableBackupFile(shardUuid);
+                if (backupFile.isPresent()) {
+                    file = backupFile.get();
+                }
+                else {
+                    future.get(recoveryTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                }
             }
             catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -320,9 +344,9 @@ public class OrcStorageManager
         return backupStore.isPresent() && backupStore.get().shardExists(shardUuid);
     }
 
-    private ShardInfo createShardInfo(UUID shardUuid, File file, Set<String> nodes, long rowCount, long uncompressedSize)
+    private ShardInfo createShardInfo(UUID shardUuid, OptionalInt bucketNumber, File file, Set<String> nodes, long rowCount, long uncompressedSize)
     {
-        return new ShardInfo(shardUuid, nodes, computeShardStats(file), rowCount, file.length(), uncompressedSize);
+        return new ShardInfo(shardUuid, nodes, computeShardStats(file), rowCount, file.length(), uncompressedSize, bucketNumber);
     }
 
     private List<ColumnStats> computeShardStats(File file)
@@ -342,7 +366,7 @@ public class OrcStorageManager
     }
 
     @VisibleForTesting
-    Collection<Slice> rewriteShard(long transactionId, UUID shardUuid, BitSet rowsToDelete)
+    Collection<Slice> rewriteShard(long transactionId, OptionalInt bucketNumber, UUID shardUuid, BitSet rowsToDelete)
     {
         if (rowsToDelete.isEmpty()) {
             return ImmutableList.of();
@@ -367,7 +391,7 @@ public class OrcStorageManager
         Set<String> nodes = ImmutableSet.of(nodeId);
         long uncompressedSize = info.getUncompressedSize();
 
-        ShardInfo shard = createShardInfo(newShardUuid, output, nodes, rowCount, uncompressedSize);
+        ShardInfo shard = createShardInfo(newShardUuid, bucketNumber, output, nodes, rowCount, uncompressedSize);
 
         writeShard(newShardUuid);
 
@@ -465,6 +489,7 @@ public class OrcStorageManager
             implements StoragePageSink
     {
         private final long transactionId;
+        private final OptionalInt bucketNumber;
         private final List<Long> columnIds;
         private final List<Type> columnTypes;
 
@@ -476,9 +501,10 @@ public class OrcStorageManager
         private OrcFileWriter writer;
         private UUID shardUuid;
 
-        public OrcStoragePageSink(long transactionId, List<Long> columnIds, List<Type> columnTypes)
+        public OrcStoragePageSink(long transactionId, OptionalInt bucketNumber, List<Long> columnIds, List<Type> columnTypes)
         {
             this.transactionId = transactionId;
+            this.bucketNumber = requireNonNull(bucketNumber, "bucketNumber is null");
             this.columnIds = ImmutableList.copyOf(requireNonNull(columnIds, "columnIds is null"));
             this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
         }
@@ -528,7 +554,7 @@ public class OrcStorageManager
                 long rowCount = writer.getRowCount();
                 long uncompressedSize = writer.getUncompressedSize();
 
-                shards.add(createShardInfo(shardUuid, stagingFile, nodes, rowCount, uncompressedSize));
+                shards.add(createShardInfo(shardUuid, bucketNumber, stagingFile, nodes, rowCount, uncompressedSize));
 
                 writer = null;
                 shardUuid = null;
@@ -66,34 +66,66 @@ public class Row
         for (int channel = 0; channel < page.getChannelCount(); channel++) {
             Block block = page.getBlock(channel);
             Type type = types.get(channel);
-            int size;
             Object value = getNativeContainerValue(type, block, position);
-            if (value == null) {
-                size = SIZE_OF_BYTE;
-            }
-            else if (type.getJavaType() == boolean.class) {
-                size = SIZE_OF_BYTE;
-            }
-            else if (type.getJavaType() == long.class) {
-                size = SIZE_OF_LONG;
-            }
-            else if (type.getJavaType() == double.class) {
-                size = SIZE_OF_DOUBLE;
-            }
-            else if (type.getJavaType() == Slice.class) {
-                size = ((Slice) value).length();
+            int size = getValueSizeInBytes(type, value);
+            rowBuilder.add(nativeContainerToOrcValue(type, value), size);
+        }
+        Row row = rowBuilder.build();
+        verify(row.getColumns().size() == types.size(), "Column count in row: %s Expected column count: %s", row.getColumns().size(), types.size());
+        return row;
+    }
+
+    /**
+     * Returns the size of a row as counted by {@link #extractRow}, without extracting the values.
+     */
+    public static int getRowSizeInBytes(Page page, int position, List<Type> types)
+    {
+        int size = 0;
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            Type type = types.get(channel);
+            if (type.getJavaType() == Slice.class && !block.isNull(position)) {
+                size += block.getLength(position);
             }
             else if (type.getJavaType() == Block.class) {
-                size = ((Block) value).getSizeInBytes();
+                size += getValueSizeInBytes(type, getNativeContainerValue(type, block, position));
             }
             else {
-                throw new AssertionError("Unimplemented type: " + type);
+                size += getFixedValueSizeInBytes(type, block.isNull(position));
             }
-            rowBuilder.add(nativeContainerToOrcValue(type, value), size);
         }
-        Row row = rowBuilder.build();
-        verify(row.getColumns().size() == types.size(), "Column count in row: %s Expected column count: %s", row.getColumns().size(), types.size());
-        return row;
+        return size;
+    }
+
+    private static int getValueSizeInBytes(Type type, Object value)
+    {
+        if (value == null) {
+            return SIZE_OF_BYTE;
+        }
+        if (type.getJavaType() == Slice.class) {
+            return ((Slice) value).length();
+        }
+        if (type.getJavaType() == Block.class) {
+            return ((Block) value).getSizeInBytes();
+        }
+        return getFixedValueSizeInBytes(type, false);
+    }
+
+    private static int getFixedValueSizeInBytes(Type type, boolean isNull)
+    {
+        if (isNull) {
+            return SIZE_OF_BYTE;
+        }
+        if (type.getJavaType() == boolean.class) {
+            return SIZE_OF_BYTE;
+        }
+        if (type.getJavaType() == long.class) {
+            return SIZE_OF_LONG;
+        }
+        if (type.getJavaType() == double.class) {
+            return SIZE_OF_DOUBLE;
+        }
+        throw new AssertionError("Unimplemented type: " + type);
     }
 
     private static Object getNativeContainerValue(Type type, Block block, int position)
@@ -27,7 +27,6 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
@@ -46,18 +45,19 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.facebook.presto.raptor.metadata.DatabaseShardManager.maxColumn;
 import static com.facebook.presto.raptor.metadata.DatabaseShardManager.minColumn;
@@ -72,6 +72,8 @@ import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.lang.String.format;
 import static java.util.Collections.nCopies;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.reverseOrder;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.CompletableFuture.runAsync;
 import static java.util.concurrent.Executors.newFixedThreadPool;
@@ -86,6 +88,14 @@ public class ShardCompactionManager
     private static final Logger log = Logger.get(ShardCompactionManager.class);
     private static final int MAX_PENDING_COMPACTIONS = 500;
 
+    /**
+     * Sets that merge more shards are compacted first, as every small shard adds a split
+     * to each query of the table. Sets of the same shard count are compacted smallest first.
+     */
+    private static final Comparator<CompactionSet> COMPACTION_PRIORITY = Comparator
+            .comparing((CompactionSet compactionSet) -> compactionSet.getShardsToCompact().size(), reverseOrder())
+            .thenComparingLong(ShardCompactionManager::compressedSize);
+
     private final ScheduledExecutorService compactionDiscoveryService = newScheduledThreadPool(1, daemonThreadsNamed("shard-compaction-discovery"));
     private final ExecutorService compactionDriverService = newFixedThreadPool(1, daemonThreadsNamed("shard-compaction-driver"));
     private final ExecutorService compactionService;
@@ -96,7 +106,8 @@ public class ShardCompactionManager
 
     // Tracks shards that are scheduled for compaction so that we do not schedule them more than once
     private final Set<UUID> shardsInProgress = newConcurrentHashSet();
-    private final BlockingQueue<CompactionSet> compactionQueue = new LinkedBlockingQueue<>();
+    private final BlockingQueue<CompactionSet> compactionQueue = new PriorityBlockingQueue<>(11, COMPACTION_PRIORITY);
+    private final AtomicInteger runningCompactions = new AtomicInteger();
 
     private final MetadataDao metadataDao;
     private final ShardCompactor compactor;
@@ -111,6 +122,8 @@ public class ShardCompactionManager
 
     private final CounterStat compactionSuccessCount = new CounterStat();
     private final CounterStat compactionFailureCount = new CounterStat();
+    private final CounterStat compactedShards = new CounterStat();
+    private final CounterStat compactedBytes = new CounterStat();
 
     @Inject
     public ShardCompactionManager(@ForMetadata IDBI dbi, NodeManager nodeManager, ShardManager shardManager, ShardCompactor compactor, StorageManagerConfig config)
@@ -214,14 +227,21 @@ public class ShardCompactionManager
         }
 
         Set<ShardMetadata> allShards = shardManager.getNodeShards(currentNodeIdentifier);
-        ListMultimap<Long, ShardMetadata> tableShards = Multimaps.index(allShards, ShardMetadata::getTableId);
+        Map<Long, List<ShardMetadata>> tableShards = Multimaps.asMap(Multimaps.index(allShards, ShardMetadata::getTableId));
+
+        // tables with the most small shards are scheduled first when the pending limit is reached
+        List<Long> tableIds = tableShards.keySet().stream()
+                .sorted(comparing((Long tableId) -> tableShards.get(tableId).stream().filter(this::needsCompaction).count(), reverseOrder()))
+                .collect(toList());
 
-        for (Entry<Long, List<ShardMetadata>> entry : Multimaps.asMap(tableShards).entrySet()) {
-            long tableId = entry.getKey();
+        for (long tableId : tableIds) {
+            if (shardsInProgress.size() >= MAX_PENDING_COMPACTIONS) {
+                return;
+            }
             if (!metadataDao.isCompactionEnabled(tableId)) {
                 continue;
             }
-            List<ShardMetadata> shardMetadata = entry.getValue();
+            List<ShardMetadata> shardMetadata = tableShards.get(tableId);
 
             Set<ShardMetadata> shards = shardMetadata.stream()
                     .filter(this::needsCompaction)
@@ -371,13 +391,17 @@ public class ShardCompactionManager
         {
             Set<UUID> shardUuids = compactionSet.getShardsToCompact().stream().map(ShardMetadata::getShardUuid).collect(toSet());
 
+            runningCompactions.incrementAndGet();
             try {
                 compactShards(compactionSet.getTableId(), shardUuids);
+                compactedShards.update(shardUuids.size());
+                compactedBytes.update(compressedSize(compactionSet));
             }
             catch (IOException e) {
                 throw Throwables.propagate(e);
             }
             finally {
+                runningCompactions.decrementAndGet();
                 shardsInProgress.removeAll(shardUuids);
             }
         }
@@ -429,12 +453,61 @@ public class ShardCompactionManager
         return new TableMetadata(tableId, columns, sortColumnIds);
     }
 
+    private static long compressedSize(CompactionSet compactionSet)
+    {
+        return compactionSet.getShardsToCompact().stream()
+                .mapToLong(ShardMetadata::getCompressedSize)
+                .sum();
+    }
+
     @Managed
     public int getShardsInProgress()
     {
         return shardsInProgress.size();
     }
 
+    @Managed
+    public int getQueuedCompactions()
+    {
+        return compactionQueue.size();
+    }
+
+    @Managed
+    public long getQueuedShards()
+    {
+        return compactionQueue.stream()
+                .mapToLong(compactionSet -> compactionSet.getShardsToCompact().size())
+                .sum();
+    }
+
+    @Managed
+    public long getQueuedBytes()
+    {
+        return compactionQueue.stream()
+                .mapToLong(ShardCompactionManager::compressedSize)
+                .sum();
+    }
+
+    @Managed
+    public int getRunningCompactions()
+    {
+        return runningCompactions.get();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCompactedShards()
+    {
+        return compactedShards;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCompactedBytes()
+    {
+        return compactedBytes;
+    }
+
     @Managed
     @Nested
     public CounterStat getCompactionSuccessCount()
@@ -22,9 +22,13 @@ import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
 import io.airlift.stats.DistributionStat;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
@@ -34,6 +38,7 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
@@ -54,13 +59,24 @@ public final class ShardCompactor
     private final DistributionStat outputShardsPerCompaction = new DistributionStat();
     private final DistributionStat compactionLatencyMillis = new DistributionStat();
     private final DistributionStat sortedCompactionLatencyMillis = new DistributionStat();
+    private final CounterStat inputBytes = new CounterStat();
     private final ReaderAttributes readerAttributes;
+    private final Optional<RateLimiter> bandwidthLimiter;
 
     @Inject
-    public ShardCompactor(StorageManager storageManager, ReaderAttributes readerAttributes)
+    public ShardCompactor(StorageManager storageManager, ReaderAttributes readerAttributes, StorageManagerConfig config)
+    {
+        this(storageManager, readerAttributes, Optional.ofNullable(config.getCompactionMaxBandwidth()));
+    }
+
+    public ShardCompactor(StorageManager storageManager, ReaderAttributes readerAttributes, Optional<DataSize> maxBandwidth)
     {
         this.storageManager = requireNonNull(storageManager, "storageManager is null");
         this.readerAttributes = requireNonNull(readerAttributes, "readerAttributes is null");
+
+        requireNonNull(maxBandwidth, "maxBandwidth is null");
+        maxBandwidth.ifPresent(bandwidth -> checkArgument(bandwidth.toBytes() > 0, "maxBandwidth must be > 0"));
+        this.bandwidthLimiter = maxBandwidth.map(bandwidth -> RateLimiter.create(bandwidth.toBytes()));
     }
 
     public List<ShardInfo> compact(long transactionId, Set<UUID> uuids, List<ColumnInfo> columns)
@@ -92,7 +108,7 @@ public final class ShardCompactor
             throws IOException
     {
         for (UUID uuid : uuids) {
-            try (ConnectorPageSource pageSource = storageManager.getPageSource(uuid, columnIds, columnTypes, TupleDomain.all(), readerAttributes)) {
+            try (ConnectorPageSource pageSource = getPageSource(uuid, columnIds, columnTypes)) {
                 while (!pageSource.isFinished()) {
                     Page page = pageSource.getNextPage();
                     if (isNullOrEmptyPage(page)) {
@@ -128,7 +144,7 @@ public final class ShardCompactor
         StoragePageSink outputPageSink = storageManager.createStoragePageSink(transactionId, columnIds, columnTypes);
         try {
             for (UUID uuid : uuids) {
-                ConnectorPageSource pageSource = storageManager.getPageSource(uuid, columnIds, columnTypes, TupleDomain.all(), readerAttributes);
+                ConnectorPageSource pageSource = getPageSource(uuid, columnIds, columnTypes);
                 SortedRowSource rowSource = new SortedRowSource(pageSource, columnTypes, sortIndexes, sortOrders);
                 rowSources.add(rowSource);
             }
@@ -166,6 +182,82 @@ public final class ShardCompactor
         }
     }
 
+    private ConnectorPageSource getPageSource(UUID uuid, List<Long> columnIds, List<Type> columnTypes)
+    {
+        return new ThrottledPageSource(storageManager.getPageSource(uuid, columnIds, columnTypes, TupleDomain.all(), readerAttributes));
+    }
+
+    /**
+     * Counts the bytes read from a shard and waits for the bandwidth limit,
+     * so that compaction leaves the disks to queries.
+     */
+    private class ThrottledPageSource
+            implements ConnectorPageSource
+    {
+        private final ConnectorPageSource delegate;
+        private long completedBytes;
+
+        public ThrottledPageSource(ConnectorPageSource delegate)
+        {
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public long getTotalBytes()
+        {
+            return delegate.getTotalBytes();
+        }
+
+        @Override
+        public long getCompletedBytes()
+        {
+            return delegate.getCompletedBytes();
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            return delegate.getReadTimeNanos();
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return delegate.isFinished();
+        }
+
+        @Override
+        public Page getNextPage()
+        {
+            Page page = delegate.getNextPage();
+            if (page != null) {
+                // force lazy blocks to be read so that the bytes are accounted for now
+                page.assureLoaded();
+            }
+
+            long bytes = delegate.getCompletedBytes() - completedBytes;
+            completedBytes += bytes;
+            if (bytes > 0) {
+                inputBytes.update(bytes);
+                bandwidthLimiter.ifPresent(limiter -> limiter.acquire(Ints.saturatedCast(bytes)));
+            }
+            return page;
+        }
+
+        @Override
+        public long getSystemMemoryUsage()
+        {
+            return delegate.getSystemMemoryUsage();
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+
     private static class SortedRowSource
             implements Iterator<Row>, Comparable<SortedRowSource>, Closeable
     {
@@ -285,6 +377,13 @@ public final class ShardCompactor
         return nextPage == null || nextPage.getPositionCount() == 0;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getInputBytes()
+    {
+        return inputBytes;
+    }
+
     @Managed
     @Nested
     public DistributionStat getInputShardsPerCompaction()
@@ -201,7 +201,9 @@ public class ShardEjector
         nodes = new HashMap<>(filterValues(nodes, size -> size <= averageSize));
 
         // get node shards by size, largest to smallest
+        // shards of bucketed tables belong to the node of their bucket
         List<ShardMetadata> shards = shardManager.getNodeShards(currentNode).stream()
+                .filter(shard -> !shard.getBucketNumber().isPresent())
                 .sorted(comparingLong(ShardMetadata::getCompressedSize).reversed())
                 .collect(toList());
 
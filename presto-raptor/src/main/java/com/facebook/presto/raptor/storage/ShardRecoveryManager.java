@@ -173,6 +173,23 @@ public class ShardRecoveryManager
         return shardQueue.submit(MissingShard.createActiveMissingShard(shardUuid));
     }
 
+    /**
+     * Get the backup file of a shard if it can be read in place while the
+     * shard is recovered to local storage.
+     */
+    public Optional<File> getReadableBackupFile(UUID shardUuid)
+    {
+        requireNonNull(shardUuid, "shardUuid is null");
+        if (!backupStore.isPresent()) {
+            return Optional.empty();
+        }
+        Optional<File> file = backupStore.get().getShardFile(shardUuid);
+        if (file.isPresent()) {
+            stats.incrementShardOpenedFromBackup();
+        }
+        return file;
+    }
+
     @VisibleForTesting
     void restoreFromBackup(UUID shardUuid, OptionalLong shardSize)
     {
@@ -248,10 +265,19 @@ public class ShardRecoveryManager
         @Override
         public int compare(MissingShardRunnable shard1, MissingShardRunnable shard2)
         {
-            if (shard1.isActive() == shard2.isActive()) {
-                return 0;
+            if (shard1.isActive() != shard2.isActive()) {
+                return shard1.isActive() ? -1 : 1;
+            }
+            // recover small shards first, as they make the most shards available soonest
+            OptionalLong size1 = shard1.getShardSize();
+            OptionalLong size2 = shard2.getShardSize();
+            if (size1.isPresent() && size2.isPresent()) {
+                return Long.compare(size1.getAsLong(), size2.getAsLong());
             }
-            return shard1.isActive() ? -1 : 1;
+            if (size1.isPresent() != size2.isPresent()) {
+                return size1.isPresent() ? -1 : 1;
+            }
+            return 0;
         }
     }
 
@@ -259,6 +285,8 @@ public class ShardRecoveryManager
             extends Runnable
     {
         boolean isActive();
+
+        OptionalLong getShardSize();
     }
 
     private class MissingShardRecovery
@@ -286,6 +314,12 @@ public class ShardRecoveryManager
         {
             return active;
         }
+
+        @Override
+        public OptionalLong getShardSize()
+        {
+            return shardSize;
+        }
     }
 
     private static final class MissingShard
@@ -30,6 +30,8 @@ public class ShardRecoveryStats
     private final CounterStat shardRecoverySuccess = new CounterStat();
     private final CounterStat shardRecoveryFailure = new CounterStat();
     private final CounterStat shardRecoveryBackupNotFound = new CounterStat();
+    private final CounterStat shardRecoveryBytes = new CounterStat();
+    private final CounterStat shardOpenedFromBackup = new CounterStat();
 
     private final DistributionStat shardRecoveryShardSizeBytes = new DistributionStat();
     private final DistributionStat shardRecoveryTimeInMilliSeconds = new DistributionStat();
@@ -60,8 +62,14 @@ public class ShardRecoveryStats
         shardRecoverySuccess.update(1);
     }
 
+    public void incrementShardOpenedFromBackup()
+    {
+        shardOpenedFromBackup.update(1);
+    }
+
     public void addShardRecoveryDataRate(DataSize rate, DataSize size, Duration duration)
     {
+        shardRecoveryBytes.update(size.toBytes());
         shardRecoveryBytesPerSecond.add(Math.round(rate.toBytes()));
         shardRecoveryShardSizeBytes.add(size.toBytes());
         shardRecoveryTimeInMilliSeconds.add(duration.toMillis());
@@ -102,6 +110,20 @@ public class ShardRecoveryStats
         return shardRecoveryBackupNotFound;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getShardRecoveryBytes()
+    {
+        return shardRecoveryBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getShardOpenedFromBackup()
+    {
+        return shardOpenedFromBackup;
+    }
+
     @Managed
     @Nested
     public DistributionStat getShardRecoveryBytesPerSecond()
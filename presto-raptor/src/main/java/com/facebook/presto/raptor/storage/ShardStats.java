@@ -20,12 +20,12 @@ import com.facebook.presto.orc.memory.AggregatedMemoryContext;
 import com.facebook.presto.raptor.metadata.ColumnStats;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
-import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.BooleanType;
-import com.facebook.presto.spi.type.DateType;
 import com.facebook.presto.spi.type.DoubleType;
-import com.facebook.presto.spi.type.TimestampType;
+import com.facebook.presto.spi.type.TimeWithTimeZoneType;
+import com.facebook.presto.spi.type.TimestampWithTimeZoneType;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarbinaryType;
 import com.facebook.presto.spi.type.VarcharType;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
@@ -35,6 +35,9 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
+import static com.facebook.presto.spi.type.DateTimeEncoding.packDateTimeWithZone;
+import static com.facebook.presto.spi.type.DateTimeEncoding.unpackMillisUtc;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static java.lang.Double.isInfinite;
 import static java.lang.Double.isNaN;
 import static org.joda.time.DateTimeZone.UTC;
@@ -56,6 +59,31 @@ public final class ShardStats
         return slice;
     }
 
+    /**
+     * Values of types with a time zone have the zone packed into their low bits,
+     * so they do not sort by their numeric value. They are indexed by their UTC millis.
+     */
+    public static long toIndexValue(Type type, long value)
+    {
+        if (hasTimeZone(type)) {
+            return unpackMillisUtc(value);
+        }
+        return value;
+    }
+
+    public static long fromIndexValue(Type type, long indexValue)
+    {
+        if (hasTimeZone(type)) {
+            return packDateTimeWithZone(indexValue, UTC_KEY);
+        }
+        return indexValue;
+    }
+
+    private static boolean hasTimeZone(Type type)
+    {
+        return type.equals(TimestampWithTimeZoneType.TIMESTAMP_WITH_TIME_ZONE) || type.equals(TimeWithTimeZoneType.TIME_WITH_TIME_ZONE);
+    }
+
     public static Optional<ColumnStats> computeColumnStats(OrcReader orcReader, long columnId, Type type)
         throws IOException
     {
@@ -68,12 +96,13 @@ public final class ShardStats
         int columnIndex = columnIndex(orcReader.getColumnNames(), columnId);
         OrcRecordReader reader = orcReader.createRecordReader(ImmutableMap.of(columnIndex, type), OrcPredicate.TRUE, UTC, new AggregatedMemoryContext());
 
+        if (!type.isOrderable()) {
+            return null;
+        }
         if (type.equals(BooleanType.BOOLEAN)) {
             return indexBoolean(type, reader, columnIndex, columnId);
         }
-        if (type.equals(BigintType.BIGINT) ||
-                type.equals(DateType.DATE) ||
-                type.equals(TimestampType.TIMESTAMP)) {
+        if (type.getJavaType() == long.class) {
             return indexLong(type, reader, columnIndex, columnId);
         }
         if (type.equals(DoubleType.DOUBLE)) {
@@ -82,6 +111,9 @@ public final class ShardStats
         if (type.equals(VarcharType.VARCHAR)) {
             return indexString(type, reader, columnIndex, columnId);
         }
+        if (type.equals(VarbinaryType.VARBINARY)) {
+            return indexBinary(type, reader, columnIndex, columnId);
+        }
         return null;
     }
 
@@ -149,7 +181,7 @@ public final class ShardStats
                 if (block.isNull(i)) {
                     continue;
                 }
-                long value = type.getLong(block, i);
+                long value = toIndexValue(type, type.getLong(block, i));
                 if (!minSet || (value < min)) {
                     minSet = true;
                     min = value;
@@ -251,4 +283,36 @@ public final class ShardStats
                 minSet ? min.toStringUtf8() : null,
                 maxSet ? max.toStringUtf8() : null);
     }
+
+    private static ColumnStats indexBinary(Type type, OrcRecordReader reader, int columnIndex, long columnId)
+            throws IOException
+    {
+        Slice min = null;
+        Slice max = null;
+
+        while (true) {
+            int batchSize = reader.nextBatch();
+            if (batchSize <= 0) {
+                break;
+            }
+            Block block = reader.readBlock(type, columnIndex);
+
+            for (int i = 0; i < batchSize; i++) {
+                if (block.isNull(i)) {
+                    continue;
+                }
+                Slice slice = truncateIndexValue(type.getSlice(block, i));
+                if ((min == null) || (slice.compareTo(min) < 0)) {
+                    min = slice;
+                }
+                if ((max == null) || (slice.compareTo(max) > 0)) {
+                    max = slice;
+                }
+            }
+        }
+
+        return new ColumnStats(columnId,
+                (min == null) ? null : min.getBytes(),
+                (max == null) ? null : max.getBytes());
+    }
 }
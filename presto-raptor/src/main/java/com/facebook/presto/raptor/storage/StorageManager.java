@@ -19,6 +19,7 @@ import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 
 import java.util.List;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.UUID;
 
@@ -31,16 +32,26 @@ public interface StorageManager
             TupleDomain<RaptorColumnHandle> effectivePredicate,
             ReaderAttributes readerAttributes)
     {
-        return getPageSource(shardUuid, columnIds, columnTypes, effectivePredicate, readerAttributes, OptionalLong.empty());
+        return getPageSource(shardUuid, OptionalInt.empty(), columnIds, columnTypes, effectivePredicate, readerAttributes, OptionalLong.empty());
     }
 
     ConnectorPageSource getPageSource(
             UUID shardUuid,
+            OptionalInt bucketNumber,
             List<Long> columnIds,
             List<Type> columnTypes,
             TupleDomain<RaptorColumnHandle> effectivePredicate,
             ReaderAttributes readerAttributes,
             OptionalLong transactionId);
 
-    StoragePageSink createStoragePageSink(long transactionId, List<Long> columnIds, List<Type> columnTypes);
+    default StoragePageSink createStoragePageSink(long transactionId, List<Long> columnIds, List<Type> columnTypes)
+    {
+        return createStoragePageSink(transactionId, OptionalInt.empty(), columnIds, columnTypes);
+    }
+
+    /**
+     * Create a page sink for the shards of a bucket. The shards are stored on this
+     * node and are later moved to the node of the bucket by the {@link BucketBalancer}.
+     */
+    StoragePageSink createStoragePageSink(long transactionId, OptionalInt bucketNumber, List<Long> columnIds, List<Type> columnTypes);
 }
@@ -42,12 +42,16 @@ public class StorageManagerConfig
     private boolean compactionEnabled = true;
     private Duration compactionInterval = new Duration(1, TimeUnit.HOURS);
     private Duration shardEjectorInterval = new Duration(4, TimeUnit.HOURS);
+    private Duration bucketBalancerInterval = new Duration(5, TimeUnit.MINUTES);
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxReadSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
+    private DataSize orcMetadataCacheSize = new DataSize(16, MEGABYTE);
+    private boolean orderedScanEnabled;
     private int deletionThreads = max(1, getRuntime().availableProcessors() / 2);
     private int recoveryThreads = 10;
     private int compactionThreads = 5;
+    private DataSize compactionMaxBandwidth;
 
     private long maxShardRows = 1_000_000;
     private DataSize maxShardSize = new DataSize(256, MEGABYTE);
@@ -106,6 +110,34 @@ public class StorageManagerConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getOrcMetadataCacheSize()
+    {
+        return orcMetadataCacheSize;
+    }
+
+    @Config("storage.orc.metadata-cache-size")
+    @ConfigDescription("Maximum estimated heap size of the cached ORC file footers and stripe footers of shards, zero disables the cache")
+    public StorageManagerConfig setOrcMetadataCacheSize(DataSize orcMetadataCacheSize)
+    {
+        this.orcMetadataCacheSize = orcMetadataCacheSize;
+        return this;
+    }
+
+    public boolean isOrderedScanEnabled()
+    {
+        return orderedScanEnabled;
+    }
+
+    @Config("storage.ordered-scan-enabled")
+    @ConfigDescription("Allow a TopN over the ordering columns to merge the sorted shards of each node in a single split. " +
+            "This stops the scan early for a small limit, but scans each node with a single thread")
+    public StorageManagerConfig setOrderedScanEnabled(boolean orderedScanEnabled)
+    {
+        this.orderedScanEnabled = orderedScanEnabled;
+        return this;
+    }
+
     @Min(1)
     public int getDeletionThreads()
     {
@@ -173,6 +205,20 @@ public class StorageManagerConfig
         return this;
     }
 
+    @MinDuration("1s")
+    public Duration getBucketBalancerInterval()
+    {
+        return bucketBalancerInterval;
+    }
+
+    @Config("storage.bucket-balancer-interval")
+    @ConfigDescription("How often to move the shards of bucketed tables to the nodes of their buckets")
+    public StorageManagerConfig setBucketBalancerInterval(Duration bucketBalancerInterval)
+    {
+        this.bucketBalancerInterval = bucketBalancerInterval;
+        return this;
+    }
+
     @Min(1)
     public int getRecoveryThreads()
     {
@@ -201,6 +247,19 @@ public class StorageManagerConfig
         return compactionThreads;
     }
 
+    public DataSize getCompactionMaxBandwidth()
+    {
+        return compactionMaxBandwidth;
+    }
+
+    @Config("storage.compaction-max-bandwidth")
+    @ConfigDescription("Maximum shard data read per second by compaction on each node, unlimited if not set")
+    public StorageManagerConfig setCompactionMaxBandwidth(DataSize compactionMaxBandwidth)
+    {
+        this.compactionMaxBandwidth = compactionMaxBandwidth;
+        return this;
+    }
+
     @Min(1)
     @Max(1_000_000_000)
     public long getMaxShardRows()
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.systemtables;
+
+import com.facebook.presto.raptor.storage.ShardCompactionManager;
+import com.facebook.presto.raptor.storage.ShardCompactor;
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorTableMetadata;
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.NodeManager;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.SystemTable;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.ImmutableList;
+
+import javax.inject.Inject;
+
+import static com.facebook.presto.spi.SystemTable.Distribution.ALL_NODES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compaction backlog and throughput of every node.
+ */
+public class CompactionSystemTable
+        implements SystemTable
+{
+    public static final SchemaTableName COMPACTIONS_TABLE_NAME = new SchemaTableName("system", "compactions");
+    public static final ConnectorTableMetadata COMPACTIONS = new ConnectorTableMetadata(
+            COMPACTIONS_TABLE_NAME,
+            ImmutableList.of(
+                    new ColumnMetadata("node_identifier", VARCHAR, false),
+                    new ColumnMetadata("queued_compactions", BIGINT, false),
+                    new ColumnMetadata("queued_shards", BIGINT, false),
+                    new ColumnMetadata("queued_bytes", BIGINT, false),
+                    new ColumnMetadata("running_compactions", BIGINT, false),
+                    new ColumnMetadata("completed_compactions", BIGINT, false),
+                    new ColumnMetadata("failed_compactions", BIGINT, false),
+                    new ColumnMetadata("compacted_shards", BIGINT, false),
+                    new ColumnMetadata("compacted_bytes", BIGINT, false),
+                    new ColumnMetadata("read_bytes_per_second", DOUBLE, false)));
+
+    private final ShardCompactionManager compactionManager;
+    private final ShardCompactor compactor;
+    private final String nodeIdentifier;
+
+    @Inject
+    public CompactionSystemTable(ShardCompactionManager compactionManager, ShardCompactor compactor, NodeManager nodeManager)
+    {
+        this.compactionManager = requireNonNull(compactionManager, "compactionManager is null");
+        this.compactor = requireNonNull(compactor, "compactor is null");
+        this.nodeIdentifier = requireNonNull(nodeManager, "nodeManager is null").getCurrentNode().getNodeIdentifier();
+    }
+
+    @Override
+    public Distribution getDistribution()
+    {
+        return ALL_NODES;
+    }
+
+    @Override
+    public ConnectorTableMetadata getTableMetadata()
+    {
+        return COMPACTIONS;
+    }
+
+    @Override
+    public RecordCursor cursor(ConnectorSession session, TupleDomain<Integer> constraint)
+    {
+        return InMemoryRecordSet.builder(COMPACTIONS)
+                .addRow(
+                        nodeIdentifier,
+                        (long) compactionManager.getQueuedCompactions(),
+                        compactionManager.getQueuedShards(),
+                        compactionManager.getQueuedBytes(),
+                        (long) compactionManager.getRunningCompactions(),
+                        compactionManager.getCompactionSuccessCount().getTotalCount(),
+                        compactionManager.getCompactionFailureCount().getTotalCount(),
+                        compactionManager.getCompactedShards().getTotalCount(),
+                        compactionManager.getCompactedBytes().getTotalCount(),
+                        compactor.getInputBytes().getOneMinute().getRate())
+                .build()
+                .cursor();
+    }
+}
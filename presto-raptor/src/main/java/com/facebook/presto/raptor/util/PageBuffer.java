@@ -73,4 +73,9 @@ public class PageBuffer
     {
         return rowCount;
     }
+
+    public long getUsedMemoryBytes()
+    {
+        return usedMemoryBytes;
+    }
 }
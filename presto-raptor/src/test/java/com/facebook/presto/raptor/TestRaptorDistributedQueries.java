@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.raptor;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.MaterializedRow;
 import com.facebook.presto.tests.AbstractTestDistributedQueries;
@@ -27,6 +28,7 @@ import static com.facebook.presto.raptor.RaptorQueryRunner.createSampledSession;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.testing.Assertions.assertInstanceOf;
 import static io.airlift.tpch.TpchTable.getTables;
 import static org.testng.Assert.assertEquals;
@@ -82,4 +84,79 @@ public class TestRaptorDistributedQueries
         computeActual("CREATE TABLE test_table_properties_1 (foo BIGINT, bar BIGINT, ds DATE) WITH (ordering=array['foo','bar'], temporal_column='ds')");
         computeActual("CREATE TABLE test_table_properties_2 (foo BIGINT, bar BIGINT, ds DATE) WITH (ORDERING=array['foo','bar'], TEMPORAL_COLUMN='ds')");
     }
+
+    @Test
+    public void testOrderedScan()
+            throws Exception
+    {
+        assertUpdate("CREATE TABLE test_ordered_scan (orderkey BIGINT, custkey BIGINT) WITH (ordering=array['custkey', 'orderkey'])");
+        assertUpdate("INSERT INTO test_ordered_scan SELECT orderkey, custkey FROM orders WHERE orderkey % 3 = 0", "SELECT count(*) FROM orders WHERE orderkey % 3 = 0");
+        assertUpdate("INSERT INTO test_ordered_scan SELECT orderkey, custkey FROM orders WHERE orderkey % 3 <> 0", "SELECT count(*) FROM orders WHERE orderkey % 3 <> 0");
+        assertUpdate("INSERT INTO test_ordered_scan SELECT orderkey, CAST(NULL AS BIGINT) FROM orders WHERE orderkey < 100", "SELECT count(*) FROM orders WHERE orderkey < 100");
+
+        Session enabled = getSession().withCatalogProperty("raptor", "ordered_scan_enabled", "true");
+        assertQueryOrdered(
+                enabled,
+                "SELECT custkey, orderkey FROM test_ordered_scan ORDER BY custkey, orderkey NULLS FIRST LIMIT 10",
+                "SELECT custkey, orderkey FROM orders ORDER BY custkey, orderkey LIMIT 10");
+
+        // rows with a null first sort column are returned after all other rows
+        assertQuery(
+                enabled,
+                "SELECT orderkey FROM (SELECT custkey, orderkey FROM test_ordered_scan ORDER BY custkey, orderkey NULLS FIRST LIMIT 15010) WHERE custkey IS NULL",
+                "SELECT orderkey FROM orders WHERE orderkey < 100 ORDER BY orderkey LIMIT 10");
+
+        // over the ordered scan a partial limit replaces the partial TopN
+        String query = "SELECT custkey, orderkey FROM test_ordered_scan ORDER BY custkey, orderkey NULLS FIRST LIMIT 10";
+        assertEquals(countTopN(enabled, query), 1);
+
+        // the ordered scan is off by default, as it scans each node in a single split
+        assertEquals(countTopN(getSession(), query), 2);
+        assertQueryOrdered(
+                query,
+                "SELECT custkey, orderkey FROM orders ORDER BY custkey, orderkey LIMIT 10");
+
+        assertUpdate("DROP TABLE test_ordered_scan");
+    }
+
+    @Test
+    public void testBucketedTable()
+            throws Exception
+    {
+        assertUpdate("CREATE TABLE test_bucketed (orderkey BIGINT, custkey BIGINT, totalprice DOUBLE) WITH (bucket_count=7, bucketed_on=array['custkey'])");
+        assertUpdate("INSERT INTO test_bucketed SELECT orderkey, custkey, totalprice FROM orders WHERE orderkey % 2 = 0", "SELECT count(*) FROM orders WHERE orderkey % 2 = 0");
+        assertUpdate("INSERT INTO test_bucketed SELECT orderkey, custkey, totalprice FROM orders WHERE orderkey % 2 <> 0", "SELECT count(*) FROM orders WHERE orderkey % 2 <> 0");
+
+        assertQuery("SELECT count(*), sum(totalprice) FROM test_bucketed", "SELECT count(*), sum(totalprice) FROM orders");
+        assertQuery(
+                "SELECT custkey, count(*), sum(totalprice) FROM test_bucketed GROUP BY custkey",
+                "SELECT custkey, count(*), sum(totalprice) FROM orders GROUP BY custkey");
+
+        assertUpdate("DELETE FROM test_bucketed WHERE custkey % 3 = 0", "SELECT count(*) FROM orders WHERE custkey % 3 = 0");
+        assertQuery(
+                "SELECT custkey, count(*) FROM test_bucketed GROUP BY custkey",
+                "SELECT custkey, count(*) FROM orders WHERE custkey % 3 <> 0 GROUP BY custkey");
+
+        assertUpdate("DROP TABLE test_bucketed");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = "Table properties bucket_count and bucketed_on must be set together")
+    public void testBucketCountWithoutBucketColumns()
+            throws Exception
+    {
+        computeActual("CREATE TABLE test_bucketed_invalid (foo BIGINT) WITH (bucket_count=3)");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = "Bucketing column does not exist: bar")
+    public void testBucketedOnMissingColumn()
+            throws Exception
+    {
+        computeActual("CREATE TABLE test_bucketed_invalid (foo BIGINT) WITH (bucket_count=3, bucketed_on=array['bar'])");
+    }
+
+    private int countTopN(Session session, String query)
+    {
+        String plan = (String) getOnlyElement(computeActual(session, "EXPLAIN (TYPE DISTRIBUTED) " + query).getMaterializedRows()).getField(0);
+        return plan.split("- TopN\\[", -1).length - 1;
+    }
 }
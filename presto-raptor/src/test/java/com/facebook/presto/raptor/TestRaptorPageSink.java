@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor;
+
+import com.facebook.presto.PagesIndexPageSorter;
+import com.facebook.presto.raptor.metadata.ShardInfo;
+import com.facebook.presto.raptor.storage.StorageManager;
+import com.facebook.presto.spi.ConnectorPageSink;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+
+import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.raptor.metadata.TestDatabaseShardManager.createShardManager;
+import static com.facebook.presto.raptor.storage.TestOrcStorageManager.createOrcStorageManager;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.io.Files.createTempDir;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestRaptorPageSink
+{
+    private static final JsonCodec<ShardInfo> SHARD_INFO_CODEC = jsonCodec(ShardInfo.class);
+    private static final List<Long> COLUMN_IDS = ImmutableList.of(1L, 2L);
+    private static final List<Type> COLUMN_TYPES = ImmutableList.of(BIGINT, BIGINT);
+    private static final int BUCKET_COUNT = 50;
+    private static final int PAGES = 100;
+    private static final int ROWS_PER_PAGE = 100;
+
+    private IDBI dbi;
+    private Handle dummyHandle;
+    private File temporary;
+    private StorageManager storageManager;
+    private long transactionId;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        temporary = createTempDir();
+        dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
+        dummyHandle = dbi.open();
+        storageManager = createOrcStorageManager(dbi, temporary);
+        transactionId = createShardManager(dbi).beginTransaction();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        if (dummyHandle != null) {
+            dummyHandle.close();
+        }
+        deleteRecursively(temporary);
+    }
+
+    @Test
+    public void testManyBucketsWithSmallBuffer()
+    {
+        // every page exceeds the buffer, so the buffers are written out after each page
+        ConnectorPageSink sink = createPageSink(ImmutableList.of(), ImmutableList.of());
+        appendPages(sink);
+
+        List<ShardInfo> shards = commit(sink);
+
+        // the buffers are written to the open shards, so each bucket has a single shard
+        assertEquals(shards.size(), BUCKET_COUNT);
+        Set<Integer> buckets = new HashSet<>();
+        for (ShardInfo shard : shards) {
+            assertTrue(buckets.add(shard.getBucketNumber().getAsInt()));
+        }
+        assertEquals(shards.stream().mapToLong(ShardInfo::getRowCount).sum(), PAGES * ROWS_PER_PAGE);
+    }
+
+    @Test
+    public void testSortedBucketsWithSmallBuffer()
+    {
+        ConnectorPageSink sink = createPageSink(ImmutableList.of(2L), ImmutableList.of(ASC_NULLS_FIRST));
+        appendPages(sink);
+
+        List<ShardInfo> shards = commit(sink);
+
+        // sorted shards are written in a single run, so the largest buffers are written as their own shards
+        assertTrue(shards.size() >= BUCKET_COUNT);
+        assertEquals(shards.stream().mapToLong(ShardInfo::getRowCount).sum(), PAGES * ROWS_PER_PAGE);
+    }
+
+    private ConnectorPageSink createPageSink(List<Long> sortColumnIds, List<SortOrder> sortOrders)
+    {
+        return new RaptorPageSink(
+                new PagesIndexPageSorter(),
+                storageManager,
+                SHARD_INFO_CODEC,
+                transactionId,
+                COLUMN_IDS,
+                COLUMN_TYPES,
+                Optional.empty(),
+                sortColumnIds,
+                sortOrders,
+                OptionalInt.of(BUCKET_COUNT),
+                ImmutableList.of(1L),
+                new DataSize(1, KILOBYTE));
+    }
+
+    private static void appendPages(ConnectorPageSink sink)
+    {
+        for (int page = 0; page < PAGES; page++) {
+            sink.appendPage(createSequencePage(COLUMN_TYPES, ROWS_PER_PAGE, page * ROWS_PER_PAGE, 0), null);
+        }
+    }
+
+    private static List<ShardInfo> commit(ConnectorPageSink sink)
+    {
+        ImmutableList.Builder<ShardInfo> shards = ImmutableList.builder();
+        for (Slice fragment : sink.commit()) {
+            shards.add(SHARD_INFO_CODEC.fromJson(fragment.getBytes()));
+        }
+        return shards.build();
+    }
+}
@@ -19,6 +19,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.io.File;
+import java.util.Optional;
 import java.util.UUID;
 
 import static com.google.common.io.Files.createTempDir;
@@ -100,4 +101,26 @@ public class TestFileBackupStore
         // delete random UUID
         store.deleteShard(randomUUID());
     }
+
+    @Test
+    public void testGetShardFile()
+            throws Exception
+    {
+        File file = new File(temporary, "file3");
+        Files.write("shard file", file, UTF_8);
+        UUID uuid = randomUUID();
+
+        assertFalse(store.getShardFile(uuid).isPresent());
+
+        store.backupShard(uuid, file);
+
+        // the shard file is the backup file itself, so it can be read in place
+        Optional<File> shardFile = store.getShardFile(uuid);
+        assertTrue(shardFile.isPresent());
+        assertEquals(shardFile.get(), store.getBackupFile(uuid));
+        assertEquals(readAllBytes(shardFile.get().toPath()), readAllBytes(file.toPath()));
+
+        store.deleteShard(uuid);
+        assertFalse(store.getShardFile(uuid).isPresent());
+    }
 }
@@ -50,19 +50,23 @@ import java.util.UUID;
 import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_EXTERNAL_BATCH_ALREADY_EXISTS;
 import static com.facebook.presto.raptor.storage.ShardStats.MAX_BINARY_INDEX_SIZE;
 import static com.facebook.presto.spi.StandardErrorCode.TRANSACTION_CONFLICT;
+import static com.facebook.presto.spi.predicate.Range.equal;
 import static com.facebook.presto.spi.predicate.Range.greaterThan;
 import static com.facebook.presto.spi.predicate.Range.greaterThanOrEqual;
 import static com.facebook.presto.spi.predicate.Range.lessThan;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateTimeEncoding.packDateTimeWithZone;
 import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TimestampWithTimeZoneType.TIMESTAMP_WITH_TIME_ZONE;
 import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Strings.repeat;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.time.ZoneOffset.UTC;
 import static java.util.stream.Collectors.toSet;
 import static org.testng.Assert.assertEquals;
@@ -442,10 +446,69 @@ public class TestDatabaseShardManager
         shardAssertion(tableId).range(c6, lessThan(BOOLEAN, true)).expected(shards);
         shardAssertion(tableId).range(c6, lessThan(BOOLEAN, false)).expected(shard1, shard3);
 
-        // TODO: support multiple ranges
         shardAssertion(tableId)
                 .domain(c1, createDomain(lessThan(BIGINT, 0L), greaterThan(BIGINT, 25L)))
-                .expected(shards);
+                .expected();
+        shardAssertion(tableId)
+                .domain(c1, createDomain(lessThan(BIGINT, 3L), greaterThan(BIGINT, 18L)))
+                .expected(shard2, shard3);
+        shardAssertion(tableId)
+                .domain(c1, createDomain(equal(BIGINT, 3L), equal(BIGINT, 9L)))
+                .expected(shard1, shard2);
+        shardAssertion(tableId)
+                .domain(c1, createDomain(equal(BIGINT, 1L), equal(BIGINT, 12L), equal(BIGINT, 30L)))
+                .expected();
+        shardAssertion(tableId)
+                .domain(c5, createDomain(equal(VARCHAR, utf8Slice("cat")), equal(VARCHAR, utf8Slice("pear"))))
+                .expected(shard1, shard2);
+    }
+
+    @Test
+    public void testShardPruningBinaryAndTimeZone()
+            throws Exception
+    {
+        ShardInfo shard1 = shardInfo(
+                UUID.randomUUID(),
+                "node1",
+                ImmutableList.<ColumnStats>builder()
+                        .add(new ColumnStats(1, new byte[] {0x01}, new byte[] {0x05}))
+                        .add(new ColumnStats(2, 1000L, 2000L))
+                        .build());
+
+        ShardInfo shard2 = shardInfo(
+                UUID.randomUUID(),
+                "node2",
+                ImmutableList.<ColumnStats>builder()
+                        .add(new ColumnStats(1, new byte[] {0x10}, new byte[] {0x20}))
+                        .add(new ColumnStats(2, 5000L, 6000L))
+                        .build());
+
+        List<ShardInfo> shards = ImmutableList.of(shard1, shard2);
+
+        List<ColumnInfo> columns = ImmutableList.of(
+                new ColumnInfo(1, VARBINARY),
+                new ColumnInfo(2, TIMESTAMP_WITH_TIME_ZONE));
+
+        RaptorColumnHandle c1 = new RaptorColumnHandle("raptor", "c1", 1, VARBINARY);
+        RaptorColumnHandle c2 = new RaptorColumnHandle("raptor", "c2", 2, TIMESTAMP_WITH_TIME_ZONE);
+
+        long tableId = createTable("test");
+        shardManager.createTable(tableId, columns);
+
+        long transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, tableId, columns, shards, Optional.empty());
+
+        shardAssertion(tableId).expected(shards);
+
+        shardAssertion(tableId).equal(c1, VARBINARY, wrappedBuffer(new byte[] {0x03})).expected(shard1);
+        shardAssertion(tableId).equal(c1, VARBINARY, wrappedBuffer(new byte[] {0x10, 0x01})).expected(shard2);
+        shardAssertion(tableId).equal(c1, VARBINARY, wrappedBuffer(new byte[] {0x07})).expected();
+        shardAssertion(tableId).range(c1, greaterThan(VARBINARY, wrappedBuffer(new byte[] {0x06}))).expected(shard2);
+
+        // values are compared by their UTC millis, regardless of the time zone
+        shardAssertion(tableId).equal(c2, TIMESTAMP_WITH_TIME_ZONE, packDateTimeWithZone(2000, "Asia/Kolkata")).expected(shard1);
+        shardAssertion(tableId).equal(c2, TIMESTAMP_WITH_TIME_ZONE, packDateTimeWithZone(5000, "America/Los_Angeles")).expected(shard2);
+        shardAssertion(tableId).between(c2, TIMESTAMP_WITH_TIME_ZONE, packDateTimeWithZone(2500, "UTC"), packDateTimeWithZone(4500, "UTC")).expected();
     }
 
     @Test
@@ -53,7 +53,7 @@ public class TestMetadataDao
     {
         Long columnId = 1L;
         long tableId = dao.insertTable("schema1", "table1", true);
-        dao.insertColumn(tableId, columnId, "col1", 1, "bigint", null);
+        dao.insertColumn(tableId, columnId, "col1", 1, "bigint", null, null);
         Long temporalColumnId = dao.getTemporalColumnId(tableId);
         assertNull(temporalColumnId);
 
@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.metadata;
+
+import com.facebook.presto.client.NodeVersion;
+import com.facebook.presto.metadata.PrestoNode;
+import com.facebook.presto.raptor.RaptorColumnHandle;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.skife.jdbi.v2.ResultIterator;
+import org.skife.jdbi.v2.util.LongMapper;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.facebook.presto.raptor.metadata.DatabaseShardManager.shardIndexTable;
+import static com.facebook.presto.raptor.metadata.SchemaDaoUtil.createTablesWithRetry;
+import static com.facebook.presto.raptor.metadata.SchemaDaoUtil.getColumnNames;
+import static com.facebook.presto.raptor.metadata.TestDatabaseShardManager.createShardManager;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.UUID.randomUUID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSchemaUpgrade
+{
+    private IDBI dbi;
+    private Handle dummyHandle;
+
+    @BeforeMethod
+    public void setup()
+    {
+        dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
+        dummyHandle = dbi.open();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void teardown()
+    {
+        if (dummyHandle != null) {
+            dummyHandle.close();
+        }
+    }
+
+    @Test
+    public void testUpgradeBucketColumns()
+    {
+        long tableId = createSchemaWithoutBuckets();
+        assertFalse(getColumnNames(dummyHandle, "shards").contains("bucket_number"));
+
+        // the upgrade must be idempotent, as it runs on every start
+        createTablesWithRetry(dbi);
+        createTablesWithRetry(dbi);
+
+        assertTrue(getColumnNames(dummyHandle, "tables").contains("bucket_count"));
+        assertTrue(getColumnNames(dummyHandle, "columns").contains("bucket_ordinal_position"));
+        assertTrue(getColumnNames(dummyHandle, "shards").contains("bucket_number"));
+        assertTrue(getColumnNames(dummyHandle, shardIndexTable(tableId)).contains("bucket_number"));
+
+        // the table created before the upgrade can be written and scanned
+        Set<Node> nodes = ImmutableSet.of(new PrestoNode("node1", URI.create("http://127.0.0.1/"), NodeVersion.UNKNOWN));
+        ShardManager shardManager = new DatabaseShardManager(dbi, () -> nodes);
+        List<ColumnInfo> columns = ImmutableList.of(new ColumnInfo(1, BIGINT));
+        List<ShardInfo> shards = ImmutableList.of(
+                shardInfo(randomUUID(), 5, 10),
+                shardInfo(randomUUID(), 20, 30));
+
+        long transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, tableId, columns, shards, Optional.empty());
+
+        assertEquals(getShardUuids(shardManager, tableId, TupleDomain.all()), ImmutableSet.of(shards.get(0).getShardUuid(), shards.get(1).getShardUuid()));
+
+        RaptorColumnHandle column = new RaptorColumnHandle("raptor", "c1", 1, BIGINT);
+        TupleDomain<RaptorColumnHandle> predicate = TupleDomain.withColumnDomains(ImmutableMap.of(column, Domain.singleValue(BIGINT, 25L)));
+        assertEquals(getShardUuids(shardManager, tableId, predicate), ImmutableSet.of(shards.get(1).getShardUuid()));
+
+        // a bucketed table can be created in the upgraded schema
+        MetadataDao dao = dbi.onDemand(MetadataDao.class);
+        long bucketedTableId = dao.insertTable("test", "bucketed", false);
+        dao.insertColumn(bucketedTableId, 1, "c1", 1, BIGINT.getTypeSignature().toString(), null, 0);
+        dao.updateBucketCount(bucketedTableId, 2);
+        shardManager.createTable(bucketedTableId, columns);
+        shardManager.createBuckets(bucketedTableId, 2);
+
+        List<ShardInfo> bucketedShards = ImmutableList.of(
+                new ShardInfo(randomUUID(), ImmutableSet.of("node1"), ImmutableList.of(), 1, 10, 20, OptionalInt.of(0)),
+                new ShardInfo(randomUUID(), ImmutableSet.of("node1"), ImmutableList.of(), 1, 10, 20, OptionalInt.of(1)));
+        transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, bucketedTableId, columns, bucketedShards, Optional.empty());
+
+        try (ResultIterator<ShardNodes> iterator = shardManager.getBucketedShardNodes(bucketedTableId, TupleDomain.all(), Optional.empty())) {
+            List<ShardNodes> actual = ImmutableList.copyOf(iterator);
+            assertEquals(actual.size(), 2);
+            assertEquals(actual.get(0).getBucketNumber(), OptionalInt.of(0));
+            assertEquals(actual.get(1).getBucketNumber(), OptionalInt.of(1));
+        }
+    }
+
+    @Test
+    public void testTypesNotIndexedBeforeUpgrade()
+    {
+        long tableId = createSchemaWithoutBuckets();
+        ShardManager shardManager = createShardManager(dbi);
+
+        List<ColumnInfo> columns = ImmutableList.of(new ColumnInfo(1, BIGINT), new ColumnInfo(2, VARBINARY));
+        UUID first = randomUUID();
+        UUID second = randomUUID();
+        List<ShardInfo> shards = ImmutableList.of(
+                new ShardInfo(first, ImmutableSet.of("node1"), ImmutableList.of(new ColumnStats(1, 5L, 10L), new ColumnStats(2, new byte[] {1}, new byte[] {2})), 1, 10, 20),
+                new ShardInfo(second, ImmutableSet.of("node1"), ImmutableList.of(new ColumnStats(1, 20L, 30L), new ColumnStats(2, new byte[] {3}, new byte[] {4})), 1, 10, 20));
+
+        long transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, tableId, columns, shards, Optional.empty());
+
+        RaptorColumnHandle c1 = new RaptorColumnHandle("raptor", "c1", 1, BIGINT);
+        RaptorColumnHandle c2 = new RaptorColumnHandle("raptor", "c2", 2, VARBINARY);
+        Domain c1Domain = Domain.singleValue(BIGINT, 25L);
+        Domain c2Domain = Domain.singleValue(VARBINARY, wrappedBuffer(new byte[] {1}));
+
+        // the column without index columns is not used for pruning
+        assertEquals(getShardUuids(shardManager, tableId, TupleDomain.withColumnDomains(ImmutableMap.of(c2, c2Domain))), ImmutableSet.of(first, second));
+        assertEquals(getShardUuids(shardManager, tableId, TupleDomain.withColumnDomains(ImmutableMap.of(c1, c1Domain, c2, c2Domain))), ImmutableSet.of(second));
+
+        // nor for the ranges of an ordered scan
+        try (ResultIterator<ShardNodes> iterator = shardManager.getShardNodes(tableId, TupleDomain.all(), c2)) {
+            iterator.forEachRemaining(shard -> assertFalse(shard.getColumnRange().isPresent()));
+        }
+
+        // a column that is added after the upgrade is indexed
+        shardManager.addColumn(tableId, new ColumnInfo(3, VARBINARY));
+        assertTrue(getColumnNames(dummyHandle, shardIndexTable(tableId)).contains("c3_min"));
+
+        UUID third = randomUUID();
+        transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(
+                transactionId,
+                tableId,
+                ImmutableList.<ColumnInfo>builder().addAll(columns).add(new ColumnInfo(3, VARBINARY)).build(),
+                ImmutableList.of(new ShardInfo(third, ImmutableSet.of("node1"), ImmutableList.of(new ColumnStats(3, new byte[] {5}, new byte[] {6})), 1, 10, 20)),
+                Optional.empty());
+
+        RaptorColumnHandle c3 = new RaptorColumnHandle("raptor", "c3", 3, VARBINARY);
+        Domain c3Domain = Domain.singleValue(VARBINARY, wrappedBuffer(new byte[] {7}));
+        // the shards written before the column was added have no index values, so they might match
+        assertEquals(getShardUuids(shardManager, tableId, TupleDomain.withColumnDomains(ImmutableMap.of(c3, c3Domain))), ImmutableSet.of(first, second));
+    }
+
+    private long createSchemaWithoutBuckets()
+    {
+        // the metastore schema before bucketed tables were added
+        dummyHandle.execute("CREATE TABLE tables (\n" +
+                "  table_id BIGINT PRIMARY KEY AUTO_INCREMENT,\n" +
+                "  schema_name VARCHAR(255) NOT NULL,\n" +
+                "  table_name VARCHAR(255) NOT NULL,\n" +
+                "  temporal_column_id BIGINT,\n" +
+                "  compaction_enabled BOOLEAN NOT NULL,\n" +
+                "  UNIQUE (schema_name, table_name)\n" +
+                ")");
+        dummyHandle.execute("CREATE TABLE columns (\n" +
+                "  table_id BIGINT NOT NULL,\n" +
+                "  column_id BIGINT NOT NULL,\n" +
+                "  column_name VARCHAR(255) NOT NULL,\n" +
+                "  ordinal_position INT NOT NULL,\n" +
+                "  data_type VARCHAR(255) NOT NULL,\n" +
+                "  sort_ordinal_position INT,\n" +
+                "  PRIMARY KEY (table_id, column_id),\n" +
+                "  UNIQUE (table_id, column_name),\n" +
+                "  UNIQUE (table_id, ordinal_position),\n" +
+                "  UNIQUE (table_id, sort_ordinal_position),\n" +
+                "  FOREIGN KEY (table_id) REFERENCES tables (table_id)\n" +
+                ")");
+        dummyHandle.execute("CREATE TABLE shards (\n" +
+                "  shard_id BIGINT PRIMARY KEY AUTO_INCREMENT,\n" +
+                "  shard_uuid BINARY(16) NOT NULL,\n" +
+                "  table_id BIGINT NOT NULL,\n" +
+                "  create_time DATETIME NOT NULL,\n" +
+                "  row_count BIGINT NOT NULL,\n" +
+                "  compressed_size BIGINT NOT NULL,\n" +
+                "  uncompressed_size BIGINT NOT NULL,\n" +
+                "  UNIQUE (shard_uuid),\n" +
+                "  FOREIGN KEY (table_id) REFERENCES tables (table_id)\n" +
+                ")");
+
+        dummyHandle.execute("INSERT INTO tables (schema_name, table_name, compaction_enabled) VALUES ('test', 'old', TRUE)");
+        long tableId = dummyHandle.createQuery("SELECT table_id FROM tables").map(LongMapper.FIRST).first();
+        dummyHandle.execute("INSERT INTO columns (table_id, column_id, column_name, ordinal_position, data_type) VALUES (?, 1, 'c1', 1, 'bigint')", tableId);
+        dummyHandle.execute("INSERT INTO columns (table_id, column_id, column_name, ordinal_position, data_type) VALUES (?, 2, 'c2', 2, 'varbinary')", tableId);
+        // varbinary columns were not indexed
+        dummyHandle.execute("CREATE TABLE " + shardIndexTable(tableId) + " (\n" +
+                "  shard_id BIGINT NOT NULL PRIMARY KEY,\n" +
+                "  shard_uuid BINARY(16) NOT NULL,\n" +
+                "  node_ids VARBINARY(128) NOT NULL,\n" +
+                "  c1_min BIGINT,\n" +
+                "  c1_max BIGINT,\n" +
+                "  UNIQUE (shard_uuid)\n" +
+                ")");
+        return tableId;
+    }
+
+    private static ShardInfo shardInfo(UUID shardUuid, long min, long max)
+    {
+        return new ShardInfo(shardUuid, ImmutableSet.of("node1"), ImmutableList.of(new ColumnStats(1, min, max)), 1, 10, 20);
+    }
+
+    private static Set<UUID> getShardUuids(ShardManager shardManager, long tableId, TupleDomain<RaptorColumnHandle> predicate)
+    {
+        ImmutableSet.Builder<UUID> uuids = ImmutableSet.builder();
+        try (ResultIterator<ShardNodes> iterator = shardManager.getShardNodes(tableId, predicate)) {
+            iterator.forEachRemaining(shard -> uuids.add(shard.getShardUuid()));
+        }
+        return uuids.build();
+    }
+}
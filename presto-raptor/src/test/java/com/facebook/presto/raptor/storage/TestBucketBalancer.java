@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.storage;
+
+import com.facebook.presto.raptor.metadata.ColumnInfo;
+import com.facebook.presto.raptor.metadata.DatabaseShardManager;
+import com.facebook.presto.raptor.metadata.MetadataDao;
+import com.facebook.presto.raptor.metadata.ShardInfo;
+import com.facebook.presto.raptor.metadata.ShardManager;
+import com.facebook.presto.raptor.metadata.ShardMetadata;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.Duration;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.skife.jdbi.v2.IDBI;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.stream.Collectors.toSet;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestBucketBalancer
+{
+    private static final int BUCKET_COUNT = 4;
+
+    private IDBI dbi;
+    private Handle dummyHandle;
+    private Set<Node> activeNodes;
+    private ShardManager shardManager;
+    private BucketBalancer balancer;
+
+    @BeforeMethod
+    public void setup()
+    {
+        dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
+        dummyHandle = dbi.open();
+        activeNodes = ImmutableSet.of(new TestingNode("node1"), new TestingNode("node2"));
+        shardManager = new DatabaseShardManager(dbi, () -> activeNodes);
+        balancer = new BucketBalancer(() -> activeNodes, shardManager, true, new Duration(1, HOURS), "test");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void teardown()
+    {
+        if (dummyHandle != null) {
+            dummyHandle.close();
+        }
+    }
+
+    @Test
+    public void testMoveShardsToBucketNodes()
+    {
+        long tableId = createBucketedTable("test");
+        List<ShardInfo> shards = commitShards(tableId, "node1");
+
+        assertEquals(ImmutableMultiset.copyOf(shardManager.getBucketNodes(tableId).values()), ImmutableMultiset.of("node1", "node1", "node2", "node2"));
+        assertFalse(shardManager.areShardsOnBucketNodes(tableId));
+        assertEquals(shardManager.getShardsNotOnBucketNodes(tableId).size(), 2);
+
+        balancer.process();
+
+        assertEquals(balancer.getShardsMoved().getTotalCount(), 2);
+        assertEquals(balancer.getBucketsReassigned().getTotalCount(), 0);
+        assertTrue(shardManager.areShardsOnBucketNodes(tableId));
+        assertShardsOnBucketNodes(tableId, shards);
+
+        // the shards are only moved once
+        balancer.process();
+        assertEquals(balancer.getShardsMoved().getTotalCount(), 2);
+    }
+
+    @Test
+    public void testReassignBucketsOfInactiveNode()
+    {
+        long tableId = createBucketedTable("test");
+        List<ShardInfo> shards = commitShards(tableId, "node1");
+        balancer.process();
+        assertTrue(shardManager.areShardsOnBucketNodes(tableId));
+
+        activeNodes = ImmutableSet.of(new TestingNode("node1"), new TestingNode("node3"));
+        assertFalse(shardManager.areShardsOnBucketNodes(tableId));
+
+        balancer.process();
+
+        assertEquals(balancer.getBucketsReassigned().getTotalCount(), 2);
+        assertEquals(ImmutableMultiset.copyOf(shardManager.getBucketNodes(tableId).values()), ImmutableMultiset.of("node1", "node1", "node3", "node3"));
+        assertTrue(shardManager.areShardsOnBucketNodes(tableId));
+        assertShardsOnBucketNodes(tableId, shards);
+    }
+
+    private void assertShardsOnBucketNodes(long tableId, List<ShardInfo> shards)
+    {
+        Map<Integer, String> bucketNodes = shardManager.getBucketNodes(tableId);
+        HashMultiset<String> expected = HashMultiset.create();
+        for (ShardInfo shard : shards) {
+            expected.add(bucketNodes.get(shard.getBucketNumber().getAsInt()));
+        }
+        for (String node : expected.elementSet()) {
+            assertEquals(shardManager.getNodeShards(node).size(), expected.count(node));
+        }
+        for (ShardInfo shard : shards) {
+            String node = bucketNodes.get(shard.getBucketNumber().getAsInt());
+            assertTrue(uuids(shardManager.getNodeShards(node)).contains(shard.getShardUuid()));
+        }
+    }
+
+    private long createBucketedTable(String name)
+    {
+        long tableId = dbi.onDemand(MetadataDao.class).insertTable("test", name, false);
+        shardManager.createTable(tableId, ImmutableList.of(new ColumnInfo(1, BIGINT)));
+        shardManager.createBuckets(tableId, BUCKET_COUNT);
+        return tableId;
+    }
+
+    private List<ShardInfo> commitShards(long tableId, String writerNode)
+    {
+        ImmutableList.Builder<ShardInfo> shards = ImmutableList.builder();
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            shards.add(new ShardInfo(randomUUID(), ImmutableSet.of(writerNode), ImmutableList.of(), 1, 10, 20, OptionalInt.of(bucket)));
+        }
+        List<ShardInfo> result = shards.build();
+
+        long transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, tableId, ImmutableList.of(new ColumnInfo(1, BIGINT)), result, Optional.empty());
+        return result;
+    }
+
+    private static Set<UUID> uuids(Set<ShardMetadata> metadata)
+    {
+        return metadata.stream()
+                .map(ShardMetadata::getShardUuid)
+                .collect(toSet());
+    }
+
+    private static class TestingNode
+            implements Node
+    {
+        private final String identifier;
+
+        public TestingNode(String identifier)
+        {
+            this.identifier = requireNonNull(identifier, "identifier is null");
+        }
+
+        @Override
+        public HostAddress getHostAndPort()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public URI getHttpUri()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String getNodeIdentifier()
+        {
+            return identifier;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return (obj instanceof TestingNode) && identifier.equals(((TestingNode) obj).identifier);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return identifier.hashCode();
+        }
+    }
+}
@@ -15,6 +15,8 @@ package com.facebook.presto.raptor.storage;
 
 import org.testng.annotations.Test;
 
+import java.util.OptionalLong;
+
 import static com.facebook.presto.raptor.storage.ShardRecoveryManager.MissingShardComparator;
 import static com.facebook.presto.raptor.storage.ShardRecoveryManager.MissingShardRunnable;
 import static org.testng.Assert.assertEquals;
@@ -32,14 +34,36 @@ public class TestMissingShardComparator
         assertEquals(comparator.compare(new DummyMissingShardRunnable(true), new DummyMissingShardRunnable(true)), 0);
     }
 
+    @Test
+    public void testOrderingBySize()
+            throws Exception
+    {
+        MissingShardComparator comparator = new MissingShardComparator();
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(false, 10), new DummyMissingShardRunnable(false, 20)), -1);
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(false, 20), new DummyMissingShardRunnable(false, 10)), 1);
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(false, 10), new DummyMissingShardRunnable(false, 10)), 0);
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(false, 10), new DummyMissingShardRunnable(false)), -1);
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(false), new DummyMissingShardRunnable(false, 10)), 1);
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(true), new DummyMissingShardRunnable(false, 10)), -1);
+        assertEquals(comparator.compare(new DummyMissingShardRunnable(false, 10), new DummyMissingShardRunnable(true)), 1);
+    }
+
     private static class DummyMissingShardRunnable
         implements MissingShardRunnable
     {
         private final boolean active;
+        private final OptionalLong shardSize;
 
         DummyMissingShardRunnable(boolean active)
         {
             this.active = active;
+            this.shardSize = OptionalLong.empty();
+        }
+
+        DummyMissingShardRunnable(boolean active, long shardSize)
+        {
+            this.active = active;
+            this.shardSize = OptionalLong.of(shardSize);
         }
 
         @Override
@@ -48,6 +72,12 @@ public class TestMissingShardComparator
             return active;
         }
 
+        @Override
+        public OptionalLong getShardSize()
+        {
+            return shardSize;
+        }
+
         @Override
         public void run()
         {
@@ -15,6 +15,7 @@ package com.facebook.presto.raptor.storage;
 
 import com.facebook.presto.metadata.InMemoryNodeManager;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcMetadataCache;
 import com.facebook.presto.orc.OrcRecordReader;
 import com.facebook.presto.raptor.RaptorColumnHandle;
 import com.facebook.presto.raptor.backup.BackupManager;
@@ -61,6 +62,7 @@ import java.util.BitSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -71,10 +73,12 @@ import static com.facebook.presto.raptor.storage.OrcTestingUtil.createReader;
 import static com.facebook.presto.raptor.storage.OrcTestingUtil.octets;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateTimeEncoding.packDateTimeWithZone;
 import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TimestampWithTimeZoneType.TIMESTAMP_WITH_TIME_ZONE;
 import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.materializeSourceDataStream;
@@ -90,10 +94,10 @@ import static io.airlift.testing.FileUtils.deleteRecursively;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.joda.time.DateTimeZone.UTC;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
-import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import static org.testng.FileAssert.assertFile;
@@ -248,6 +252,57 @@ public class TestOrcStorageManager
         }
     }
 
+    @Test
+    public void testReadFromBackupWhileRecovering()
+            throws Exception
+    {
+        OrcStorageManager manager = createOrcStorageManager();
+
+        List<Long> columnIds = ImmutableList.of(3L);
+        List<Type> columnTypes = ImmutableList.<Type>of(BIGINT);
+
+        StoragePageSink sink = createStoragePageSink(manager, columnIds, columnTypes);
+        sink.appendPages(rowPagesBuilder(columnTypes)
+                .row(123)
+                .row(456)
+                .build());
+        UUID shardUuid = Iterables.getOnlyElement(sink.commit()).getShardUuid();
+
+        // remove primary shard so that it is opened from backup
+        File file = storageService.getStorageFile(shardUuid);
+        File backupFile = fileBackupStore.getBackupFile(shardUuid);
+        assertTrue(file.delete());
+        assertFalse(file.exists());
+
+        try (OrcDataSource dataSource = manager.openShard(shardUuid, READER_ATTRIBUTES)) {
+            // the shard is read from the backup path
+            assertEquals(dataSource.toString(), backupFile.getAbsolutePath());
+
+            OrcRecordReader reader = createReader(dataSource, columnIds, columnTypes);
+            assertEquals(reader.nextBatch(), 2);
+            Block column = reader.readBlock(BIGINT, 0);
+            assertEquals(BIGINT.getLong(column, 0), 123L);
+            assertEquals(BIGINT.getLong(column, 1), 456L);
+        }
+        assertEquals(recoveryManager.getStats().getShardOpenedFromBackup().getTotalCount(), 1);
+
+        // the shard is recovered to local storage in the background
+        long deadline = System.nanoTime() + SHARD_RECOVERY_TIMEOUT.roundTo(TimeUnit.NANOSECONDS);
+        while (recoveryManager.getStats().getShardRecoverySuccess().getTotalCount() == 0) {
+            assertTrue(System.nanoTime() < deadline, "shard was not recovered");
+            MILLISECONDS.sleep(10);
+        }
+        assertEquals(recoveryManager.getStats().getActiveShardRecovery().getTotalCount(), 1);
+        assertFile(file, "recovered shard");
+        assertFileEquals(file, backupFile);
+
+        // the recovered shard is read locally
+        try (OrcDataSource dataSource = manager.openShard(shardUuid, READER_ATTRIBUTES)) {
+            assertEquals(dataSource.toString(), file.getAbsolutePath());
+        }
+        assertEquals(recoveryManager.getStats().getShardOpenedFromBackup().getTotalCount(), 1);
+    }
+
     @Test
     public void testReader()
             throws Exception
@@ -346,7 +401,7 @@ public class TestOrcStorageManager
         // delete one row
         BitSet rowsToDelete = new BitSet();
         rowsToDelete.set(0);
-        Collection<Slice> fragments = manager.rewriteShard(transactionId, shards.get(0).getShardUuid(), rowsToDelete);
+        Collection<Slice> fragments = manager.rewriteShard(transactionId, OptionalInt.empty(), shards.get(0).getShardUuid(), rowsToDelete);
 
         Slice shardDelta = Iterables.getOnlyElement(fragments);
         ShardDelta shardDeltas = jsonCodec(ShardDelta.class).fromJson(shardDelta.getBytes());
@@ -488,7 +543,19 @@ public class TestOrcStorageManager
                 row(5L, wrappedBuffer(octets(0x00))),
                 row(3L, wrappedBuffer(octets(0x01))));
         assertColumnStats(stats, 1, 3L, 5L);
-        assertNoColumnStats(stats, 2);
+        assertBinaryColumnStats(stats, 2, octets(0x00), octets(0x01));
+    }
+
+    @Test
+    public void testShardStatsTimestampWithTimeZone()
+    {
+        long min = sqlTimestamp(2001, 3, 15, 9, 10, 11).getMillisUtc();
+        long max = sqlTimestamp(2002, 4, 13, 6, 7, 8).getMillisUtc();
+
+        List<ColumnStats> stats = columnStats(types(TIMESTAMP_WITH_TIME_ZONE),
+                row(packDateTimeWithZone(max, "Asia/Kolkata")),
+                row(packDateTimeWithZone(min, "America/Los_Angeles")));
+        assertColumnStats(stats, 1, min, max);
     }
 
     @Test
@@ -612,6 +679,7 @@ public class TestOrcStorageManager
                 recoveryManager,
                 shardRecorder,
                 new TypeRegistry(),
+                new OrcMetadataCache(new DataSize(1, MEGABYTE)),
                 CONNECTOR_ID,
                 DELETION_THREADS,
                 SHARD_RECOVERY_TIMEOUT,
@@ -637,11 +705,16 @@ public class TestOrcStorageManager
         fail(format("no stats for column: %s: %s", columnId, list));
     }
 
-    private static void assertNoColumnStats(List<ColumnStats> list, long columnId)
+    private static void assertBinaryColumnStats(List<ColumnStats> list, long columnId, byte[] min, byte[] max)
     {
         for (ColumnStats stats : list) {
-            assertNotEquals(stats.getColumnId(), columnId);
+            if (stats.getColumnId() == columnId) {
+                assertEquals((byte[]) stats.getMin(), min);
+                assertEquals((byte[]) stats.getMax(), max);
+                return;
+            }
         }
+        fail(format("no stats for column: %s: %s", columnId, list));
     }
 
     private static List<Type> types(Type... types)
@@ -115,7 +115,7 @@ public class TestShardCompactionDiscovery
                 dbi,
                 "node1",
                 shardManager,
-                new ShardCompactor(storageManager, READER_ATTRIBUTES),
+                new ShardCompactor(storageManager, READER_ATTRIBUTES, Optional.empty()),
                 new Duration(1, TimeUnit.HOURS),
                 ONE_MEGABYTE,
                 100,
@@ -38,6 +38,7 @@ import org.testng.annotations.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -58,6 +59,7 @@ import static java.util.Collections.nCopies;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestShardCompactor
@@ -79,7 +81,7 @@ public class TestShardCompactor
         IDBI dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
         dummyHandle = dbi.open();
         storageManager = createOrcStorageManager(dbi, temporary, MAX_SHARD_ROWS);
-        compactor = new ShardCompactor(storageManager, READER_ATTRIBUTES);
+        compactor = new ShardCompactor(storageManager, READER_ATTRIBUTES, Optional.empty());
     }
 
     @AfterMethod(alwaysRun = true)
@@ -117,6 +119,24 @@ public class TestShardCompactor
         assertShardEqualsIgnoreOrder(inputUuids, outputUuids, columnIds, columnTypes);
     }
 
+    @Test
+    public void testShardCompactorThrottled()
+            throws Exception
+    {
+        List<Long> columnIds = ImmutableList.of(3L, 7L);
+        List<Type> columnTypes = ImmutableList.of(BIGINT, VARCHAR);
+
+        List<ShardInfo> inputShards = createShards(storageManager, columnIds, columnTypes, 3);
+        Set<UUID> inputUuids = inputShards.stream().map(ShardInfo::getShardUuid).collect(toSet());
+
+        ShardCompactor throttledCompactor = new ShardCompactor(storageManager, READER_ATTRIBUTES, Optional.of(new DataSize(100, MEGABYTE)));
+        List<ShardInfo> outputShards = throttledCompactor.compact(1, inputUuids, getColumnInfo(columnIds, columnTypes));
+
+        Set<UUID> outputUuids = outputShards.stream().map(ShardInfo::getShardUuid).collect(toSet());
+        assertShardEqualsIgnoreOrder(inputUuids, outputUuids, columnIds, columnTypes);
+        assertTrue(throttledCompactor.getInputBytes().getTotalCount() > 0);
+    }
+
     @Test
     public void testShardCompactorSorted()
             throws Exception
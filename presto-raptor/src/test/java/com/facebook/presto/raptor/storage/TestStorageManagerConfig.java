@@ -45,13 +45,17 @@ public class TestStorageManagerConfig
                 .setOrcMaxMergeDistance(new DataSize(1, MEGABYTE))
                 .setOrcMaxReadSize(new DataSize(8, MEGABYTE))
                 .setOrcStreamBufferSize(new DataSize(8, MEGABYTE))
+                .setOrcMetadataCacheSize(new DataSize(16, MEGABYTE))
+                .setOrderedScanEnabled(false)
                 .setDeletionThreads(max(1, getRuntime().availableProcessors() / 2))
                 .setShardRecoveryTimeout(new Duration(30, SECONDS))
                 .setMissingShardDiscoveryInterval(new Duration(5, MINUTES))
                 .setCompactionInterval(new Duration(1, HOURS))
                 .setShardEjectorInterval(new Duration(4, HOURS))
+                .setBucketBalancerInterval(new Duration(5, MINUTES))
                 .setRecoveryThreads(10)
                 .setCompactionThreads(5)
+                .setCompactionMaxBandwidth(null)
                 .setCompactionEnabled(true)
                 .setMaxShardRows(1_000_000)
                 .setMaxShardSize(new DataSize(256, MEGABYTE))
@@ -66,14 +70,18 @@ public class TestStorageManagerConfig
                 .put("storage.orc.max-merge-distance", "16kB")
                 .put("storage.orc.max-read-size", "16kB")
                 .put("storage.orc.stream-buffer-size", "16kB")
+                .put("storage.orc.metadata-cache-size", "32MB")
+                .put("storage.ordered-scan-enabled", "true")
                 .put("storage.max-deletion-threads", "999")
                 .put("storage.shard-recovery-timeout", "1m")
                 .put("storage.missing-shard-discovery-interval", "4m")
                 .put("storage.compaction-enabled", "false")
                 .put("storage.compaction-interval", "4h")
                 .put("storage.ejector-interval", "9h")
+                .put("storage.bucket-balancer-interval", "7m")
                 .put("storage.max-recovery-threads", "12")
                 .put("storage.max-compaction-threads", "12")
+                .put("storage.compaction-max-bandwidth", "64MB")
                 .put("storage.max-shard-rows", "10000")
                 .put("storage.max-shard-size", "10MB")
                 .put("storage.max-buffer-size", "512MB")
@@ -84,14 +92,18 @@ public class TestStorageManagerConfig
                 .setOrcMaxMergeDistance(new DataSize(16, KILOBYTE))
                 .setOrcMaxReadSize(new DataSize(16, KILOBYTE))
                 .setOrcStreamBufferSize(new DataSize(16, KILOBYTE))
+                .setOrcMetadataCacheSize(new DataSize(32, MEGABYTE))
+                .setOrderedScanEnabled(true)
                 .setDeletionThreads(999)
                 .setShardRecoveryTimeout(new Duration(1, MINUTES))
                 .setMissingShardDiscoveryInterval(new Duration(4, MINUTES))
                 .setCompactionEnabled(false)
                 .setCompactionInterval(new Duration(4, HOURS))
                 .setShardEjectorInterval(new Duration(9, HOURS))
+                .setBucketBalancerInterval(new Duration(7, MINUTES))
                 .setRecoveryThreads(12)
                 .setCompactionThreads(12)
+                .setCompactionMaxBandwidth(new DataSize(64, MEGABYTE))
                 .setMaxShardRows(10_000)
                 .setMaxShardSize(new DataSize(10, MEGABYTE))
                 .setMaxBufferSize(new DataSize(512, MEGABYTE));
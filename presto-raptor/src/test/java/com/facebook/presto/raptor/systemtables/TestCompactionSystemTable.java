@@ -0,0 +1,220 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.systemtables;
+
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.raptor.metadata.ColumnInfo;
+import com.facebook.presto.raptor.metadata.MetadataDao;
+import com.facebook.presto.raptor.metadata.ShardInfo;
+import com.facebook.presto.raptor.metadata.ShardManager;
+import com.facebook.presto.raptor.metadata.TableColumn;
+import com.facebook.presto.raptor.storage.OrcStorageManager;
+import com.facebook.presto.raptor.storage.ReaderAttributes;
+import com.facebook.presto.raptor.storage.ShardCompactionManager;
+import com.facebook.presto.raptor.storage.ShardCompactor;
+import com.facebook.presto.raptor.storage.StoragePageSink;
+import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.NodeManager;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.skife.jdbi.v2.DBI;
+import org.skife.jdbi.v2.Handle;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.raptor.metadata.TestDatabaseShardManager.createShardManager;
+import static com.facebook.presto.raptor.storage.TestOrcStorageManager.createOrcStorageManager;
+import static com.facebook.presto.raptor.systemtables.CompactionSystemTable.COMPACTIONS;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.io.Files.createTempDir;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestCompactionSystemTable
+{
+    private static final int MAX_SHARD_ROWS = 1000;
+    private static final DataSize ONE_MEGABYTE = new DataSize(1, MEGABYTE);
+    private static final ReaderAttributes READER_ATTRIBUTES = new ReaderAttributes(ONE_MEGABYTE, ONE_MEGABYTE, ONE_MEGABYTE);
+
+    private DBI dbi;
+    private Handle dummyHandle;
+    private File temporary;
+    private ShardManager shardManager;
+    private OrcStorageManager storageManager;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        temporary = createTempDir();
+        dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
+        dbi.registerMapper(new TableColumn.Mapper(new TypeRegistry()));
+        dummyHandle = dbi.open();
+        shardManager = createShardManager(dbi);
+        storageManager = createOrcStorageManager(dbi, temporary, MAX_SHARD_ROWS);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+    {
+        if (dummyHandle != null) {
+            dummyHandle.close();
+        }
+        deleteRecursively(temporary);
+    }
+
+    @Test(timeOut = 60_000)
+    public void testCompactions()
+            throws Exception
+    {
+        long tableId = createTable("test");
+        List<ColumnInfo> columns = ImmutableList.of(new ColumnInfo(1, BIGINT));
+        List<ShardInfo> shards = createShards(ImmutableList.of(1L), ImmutableList.of(BIGINT), 2);
+
+        long transactionId = shardManager.beginTransaction();
+        shardManager.commitShards(transactionId, tableId, columns, shards, Optional.empty());
+
+        String nodeIdentifier = getOnlyElement(shards.get(0).getNodeIdentifiers());
+        ShardCompactor compactor = new ShardCompactor(storageManager, READER_ATTRIBUTES, Optional.empty());
+        ShardCompactionManager compactionManager = new ShardCompactionManager(
+                dbi,
+                nodeIdentifier,
+                shardManager,
+                compactor,
+                new Duration(2, SECONDS),
+                ONE_MEGABYTE,
+                MAX_SHARD_ROWS,
+                1,
+                true);
+
+        NodeManager nodeManager = new InMemoryNodeManager();
+        CompactionSystemTable table = new CompactionSystemTable(compactionManager, compactor, nodeManager);
+
+        List<String> columnNames = COMPACTIONS.getColumns().stream()
+                .map(ColumnMetadata::getName)
+                .collect(toList());
+        assertEquals(columnNames, ImmutableList.of(
+                "node_identifier",
+                "queued_compactions",
+                "queued_shards",
+                "queued_bytes",
+                "running_compactions",
+                "completed_compactions",
+                "failed_compactions",
+                "compacted_shards",
+                "compacted_bytes",
+                "read_bytes_per_second"));
+
+        List<Object> row = getOnlyRow(table);
+        assertEquals(row.get(0), nodeManager.getCurrentNode().getNodeIdentifier());
+        for (int column = 1; column <= 8; column++) {
+            assertEquals(row.get(column), 0L, columnNames.get(column));
+        }
+
+        compactionManager.start();
+        try {
+            while (compactionManager.getCompactionSuccessCount().getTotalCount() == 0) {
+                assertEquals(compactionManager.getCompactionFailureCount().getTotalCount(), 0);
+                MILLISECONDS.sleep(10);
+            }
+        }
+        finally {
+            compactionManager.shutdown();
+        }
+
+        long compressedSize = shards.stream()
+                .mapToLong(ShardInfo::getCompressedSize)
+                .sum();
+
+        row = getOnlyRow(table);
+        assertEquals(row.get(0), nodeManager.getCurrentNode().getNodeIdentifier());
+        assertEquals(row.get(1), 0L, "queued_compactions");
+        assertEquals(row.get(2), 0L, "queued_shards");
+        assertEquals(row.get(3), 0L, "queued_bytes");
+        assertEquals(row.get(4), 0L, "running_compactions");
+        assertEquals(row.get(5), 1L, "completed_compactions");
+        assertEquals(row.get(6), 0L, "failed_compactions");
+        assertEquals(row.get(7), 2L, "compacted_shards");
+        assertEquals(row.get(8), compressedSize, "compacted_bytes");
+        assertTrue((double) row.get(9) >= 0, "read_bytes_per_second");
+
+        // the compacted shards are replaced by a single shard
+        assertEquals(shardManager.getNodeShards(nodeIdentifier).size(), 1);
+    }
+
+    private static List<Object> getOnlyRow(CompactionSystemTable table)
+    {
+        List<Object> row = new ArrayList<>();
+        try (RecordCursor cursor = table.cursor(SESSION, TupleDomain.all())) {
+            assertTrue(cursor.advanceNextPosition());
+            for (int column = 0; column < COMPACTIONS.getColumns().size(); column++) {
+                Type type = COMPACTIONS.getColumns().get(column).getType();
+                if (type.getJavaType() == long.class) {
+                    row.add(cursor.getLong(column));
+                }
+                else if (type.getJavaType() == double.class) {
+                    row.add(cursor.getDouble(column));
+                }
+                else {
+                    row.add(cursor.getSlice(column).toStringUtf8());
+                }
+            }
+            assertFalse(cursor.advanceNextPosition());
+        }
+        return row;
+    }
+
+    private List<ShardInfo> createShards(List<Long> columnIds, List<Type> columnTypes, int shardCount)
+    {
+        StoragePageSink sink = storageManager.createStoragePageSink(1, columnIds, columnTypes);
+        for (int i = 0; i < shardCount; i++) {
+            sink.appendPages(rowPagesBuilder(columnTypes)
+                    .row((long) i)
+                    .row((long) i + 10)
+                    .build());
+            sink.flush();
+        }
+        return sink.commit();
+    }
+
+    private long createTable(String name)
+    {
+        MetadataDao dao = dbi.onDemand(MetadataDao.class);
+        long tableId = dao.insertTable("test", name, true);
+        dao.insertColumn(tableId, 1, "x", 1, BIGINT.getTypeSignature().toString(), null, null);
+        shardManager.createTable(tableId, ImmutableList.of(new ColumnInfo(1, BIGINT)));
+        return tableId;
+    }
+}
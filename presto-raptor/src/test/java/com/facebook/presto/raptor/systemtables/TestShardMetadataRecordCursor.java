@@ -79,7 +79,7 @@ public class TestShardMetadataRecordCursor
     {
         this.dbi = new DBI("jdbc:h2:mem:test" + System.nanoTime());
         this.dummyHandle = dbi.open();
-        this.metadata = new RaptorMetadata(new RaptorConnectorId("default"), dbi, createShardManager(dbi), SHARD_INFO_CODEC, SHARD_DELTA_CODEC);
+        this.metadata = new RaptorMetadata(new RaptorConnectorId("default"), dbi, createShardManager(dbi), SHARD_INFO_CODEC, SHARD_DELTA_CODEC, false);
         // Create table
         metadata.createTable(SESSION, tableMetadataBuilder(DEFAULT_TEST_ORDERS)
                 .column("orderkey", BIGINT)
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.spi;
 
+import com.facebook.presto.spi.statistics.TableStatistics;
 import io.airlift.slice.Slice;
 
 import java.util.Collection;
@@ -70,6 +71,28 @@ public interface ConnectorMetadata
      */
     List<SchemaTableName> listTables(ConnectorSession session, String schemaNameOrNull);
 
+    /**
+     * Returns the estimated statistics of the specified table.  The returned statistics may be
+     * incomplete, and connectors without statistics should return {@link TableStatistics#empty()}.
+     *
+     * @throws RuntimeException if the table handle is no longer valid
+     */
+    default TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return TableStatistics.empty();
+    }
+
+    /**
+     * Returns the estimated statistics of the data of the specified table layout, such as the
+     * partitions that remain after pruning.  By default these are the statistics of the whole table.
+     *
+     * @throws RuntimeException if the table handle or the layout handle is no longer valid
+     */
+    default TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle layoutHandle)
+    {
+        return getTableStatistics(session, tableHandle);
+    }
+
     /**
      * Returns the handle for the sample weight column, or null if the table does not contain sampled data.
      *
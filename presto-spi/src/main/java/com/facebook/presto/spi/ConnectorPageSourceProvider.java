@@ -13,9 +13,23 @@
  */
 package com.facebook.presto.spi;
 
+import com.facebook.presto.spi.predicate.TupleDomain;
+
 import java.util.List;
 
 public interface ConnectorPageSourceProvider
 {
     ConnectorPageSource createPageSource(ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns);
+
+    /**
+     * Creates a page source for a split whose rows are only needed if they match
+     * the dynamic filter. The dynamic filter is computed while the query runs,
+     * for example from the keys of the build side of a join, and connectors may
+     * use it to skip data. Rows that do not match the filter may still be
+     * returned, as the engine does not rely on them being removed.
+     */
+    default ConnectorPageSource createPageSource(ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(session, split, columns);
+    }
 }
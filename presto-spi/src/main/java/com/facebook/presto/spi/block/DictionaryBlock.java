@@ -25,7 +25,6 @@ import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 import static io.airlift.slice.Slices.copyOf;
 import static io.airlift.slice.Slices.wrappedIntArray;
 import static java.util.Objects.requireNonNull;
-import static java.util.stream.Collectors.toList;
 
 public class DictionaryBlock
         implements Block
@@ -188,17 +187,21 @@ public class DictionaryBlock
     {
         checkValidPositions(positions, positionCount);
 
-        List<Integer> distinctPositions = positions.stream().distinct().collect(toList());
-        List<Integer> currentDictionaryIndexes = distinctPositions.stream().map(this::getIndex).collect(toList());
-
-        List<Integer> positionsToCopy = currentDictionaryIndexes.stream().distinct().collect(toList());
-        Block dictionaryBlock = dictionary.copyPositions(positionsToCopy);
+        // copy the referenced dictionary entries in the order of their first reference
+        int[] remapIndex = new int[dictionary.getPositionCount()];
+        Arrays.fill(remapIndex, -1);
+        List<Integer> positionsToCopy = new ArrayList<>();
 
         int[] newIds = new int[positions.size()];
         for (int i = 0; i < positions.size(); i++) {
-            int oldIndex = currentDictionaryIndexes.get(distinctPositions.indexOf(positions.get(i)));
-            newIds[i] = positionsToCopy.indexOf(oldIndex);
+            int oldIndex = getIndex(positions.get(i));
+            if (remapIndex[oldIndex] == -1) {
+                remapIndex[oldIndex] = positionsToCopy.size();
+                positionsToCopy.add(oldIndex);
+            }
+            newIds[i] = remapIndex[oldIndex];
         }
+        Block dictionaryBlock = dictionary.copyPositions(positionsToCopy);
         return new DictionaryBlock(positions.size(), dictionaryBlock, wrappedIntArray(newIds));
     }
 
@@ -243,6 +246,11 @@ public class DictionaryBlock
         return ids;
     }
 
+    public int getId(int position)
+    {
+        return getIndex(position);
+    }
+
     private int getIndex(int position)
     {
         return ids.getInt(position * SIZE_OF_INT);
@@ -201,6 +201,12 @@ public class LazyBlock
     @Override
     public Block copyPositions(List<Integer> positions)
     {
+        if (block == null) {
+            Block positionsBlock = loader.loadPositions(this, positions);
+            if (positionsBlock != null) {
+                return positionsBlock;
+            }
+        }
         assureLoaded();
         return block.copyPositions(positions);
     }
@@ -226,6 +232,11 @@ public class LazyBlock
         return block.isNull(position);
     }
 
+    public boolean isLoaded()
+    {
+        return block != null;
+    }
+
     public Block getBlock()
     {
         assureLoaded();
@@ -13,7 +13,20 @@
  */
 package com.facebook.presto.spi.block;
 
+import java.util.List;
+
 public interface LazyBlockLoader<T extends Block>
 {
     void load(T block);
+
+    /**
+     * Loads only the specified positions of the block, without loading the
+     * rest of it, and returns them as a new block. After this the block can
+     * not be loaded anymore. Returns null if the loader does not support
+     * loading a subset of the positions.
+     */
+    default Block loadPositions(T block, List<Integer> positions)
+    {
+        return null;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated statistics of a single column.  The minimum and maximum values are
+ * in the stack representation of the column type (e.g., {@code Long} for
+ * {@code BIGINT} and {@code Slice} for {@code VARCHAR}).
+ */
+public final class ColumnStatistics
+{
+    private static final ColumnStatistics UNKNOWN = new ColumnStatistics(OptionalLong.empty(), OptionalDouble.empty(), Optional.empty(), Optional.empty());
+
+    private final OptionalLong distinctValuesCount;
+    private final OptionalDouble nullsFraction;
+    private final Optional<Object> min;
+    private final Optional<Object> max;
+
+    public static ColumnStatistics unknown()
+    {
+        return UNKNOWN;
+    }
+
+    public ColumnStatistics(OptionalLong distinctValuesCount, OptionalDouble nullsFraction, Optional<Object> min, Optional<Object> max)
+    {
+        this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+        if (distinctValuesCount.isPresent() && distinctValuesCount.getAsLong() < 0) {
+            throw new IllegalArgumentException("distinctValuesCount is negative");
+        }
+        this.nullsFraction = requireNonNull(nullsFraction, "nullsFraction is null");
+        if (nullsFraction.isPresent() && (nullsFraction.getAsDouble() < 0 || nullsFraction.getAsDouble() > 1)) {
+            throw new IllegalArgumentException("nullsFraction must be between 0 and 1");
+        }
+        this.min = requireNonNull(min, "min is null");
+        this.max = requireNonNull(max, "max is null");
+    }
+
+    public OptionalLong getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    public OptionalDouble getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    public Optional<Object> getMin()
+    {
+        return min;
+    }
+
+    public Optional<Object> getMax()
+    {
+        return max;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ColumnStatistics other = (ColumnStatistics) obj;
+        return Objects.equals(this.distinctValuesCount, other.distinctValuesCount) &&
+                Objects.equals(this.nullsFraction, other.nullsFraction) &&
+                Objects.equals(this.min, other.min) &&
+                Objects.equals(this.max, other.max);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(distinctValuesCount, nullsFraction, min, max);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ColumnStatistics{" +
+                "distinctValuesCount=" + distinctValuesCount +
+                ", nullsFraction=" + nullsFraction +
+                ", min=" + min +
+                ", max=" + max +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import com.facebook.presto.spi.ColumnHandle;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated statistics of a table, used by the planner to compare the cost of alternative plans.
+ * Every value is optional, and connectors should only report the values they know.
+ */
+public final class TableStatistics
+{
+    private static final TableStatistics EMPTY = new TableStatistics(OptionalLong.empty(), Collections.emptyMap());
+
+    private final OptionalLong rowCount;
+    private final Map<ColumnHandle, ColumnStatistics> columnStatistics;
+
+    public static TableStatistics empty()
+    {
+        return EMPTY;
+    }
+
+    public TableStatistics(OptionalLong rowCount, Map<ColumnHandle, ColumnStatistics> columnStatistics)
+    {
+        this.rowCount = requireNonNull(rowCount, "rowCount is null");
+        if (rowCount.isPresent() && rowCount.getAsLong() < 0) {
+            throw new IllegalArgumentException("rowCount is negative");
+        }
+        requireNonNull(columnStatistics, "columnStatistics is null");
+        this.columnStatistics = Collections.unmodifiableMap(new HashMap<>(columnStatistics));
+    }
+
+    public OptionalLong getRowCount()
+    {
+        return rowCount;
+    }
+
+    public Map<ColumnHandle, ColumnStatistics> getColumnStatistics()
+    {
+        return columnStatistics;
+    }
+
+    public ColumnStatistics getColumnStatistics(ColumnHandle columnHandle)
+    {
+        return columnStatistics.getOrDefault(columnHandle, ColumnStatistics.unknown());
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        TableStatistics other = (TableStatistics) obj;
+        return Objects.equals(this.rowCount, other.rowCount) &&
+                Objects.equals(this.columnStatistics, other.columnStatistics);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rowCount, columnStatistics);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TableStatistics{" +
+                "rowCount=" + rowCount +
+                ", columnStatistics=" + columnStatistics +
+                '}';
+    }
+}
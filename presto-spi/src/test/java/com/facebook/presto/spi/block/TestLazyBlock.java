@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLazyBlock
+{
+    private static final int POSITION_COUNT = 10;
+
+    @Test
+    public void testCopyPositionsLoadsOnlyPositions()
+    {
+        TestingLoader loader = new TestingLoader(true);
+        LazyBlock lazyBlock = new LazyBlock(POSITION_COUNT, loader);
+
+        Block block = lazyBlock.copyPositions(ImmutableList.of(1, 4, 9));
+        assertBlock(block, 1, 4, 9);
+        assertEquals(loader.getLoadedPositions(), ImmutableList.of(ImmutableList.of(1, 4, 9)));
+        assertEquals(loader.getLoadCount(), 0);
+        assertFalse(lazyBlock.isLoaded());
+    }
+
+    @Test
+    public void testCopyPositionsWithoutPositionsLoader()
+    {
+        // the whole block is loaded if the loader can not load a subset of the positions
+        TestingLoader loader = new TestingLoader(false);
+        LazyBlock lazyBlock = new LazyBlock(POSITION_COUNT, loader);
+
+        Block block = lazyBlock.copyPositions(ImmutableList.of(0, 5));
+        assertBlock(block, 0, 5);
+        assertEquals(loader.getLoadedPositions().size(), 1);
+        assertEquals(loader.getLoadCount(), 1);
+        assertTrue(lazyBlock.isLoaded());
+    }
+
+    @Test
+    public void testCopyPositionsOfLoadedBlock()
+    {
+        TestingLoader loader = new TestingLoader(true);
+        LazyBlock lazyBlock = new LazyBlock(POSITION_COUNT, loader);
+        lazyBlock.assureLoaded();
+
+        Block block = lazyBlock.copyPositions(ImmutableList.of(2, 3));
+        assertBlock(block, 2, 3);
+        assertTrue(loader.getLoadedPositions().isEmpty());
+        assertEquals(loader.getLoadCount(), 1);
+    }
+
+    private static void assertBlock(Block block, int... positions)
+    {
+        assertEquals(block.getPositionCount(), positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            assertEquals(BIGINT.getLong(block, i), positions[i] * 10L);
+        }
+    }
+
+    private static Block createBlock(List<Integer> positions)
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), positions.size());
+        for (int position : positions) {
+            BIGINT.writeLong(blockBuilder, position * 10L);
+        }
+        return blockBuilder.build();
+    }
+
+    private static class TestingLoader
+            implements LazyBlockLoader<LazyBlock>
+    {
+        private final boolean supportsPositions;
+        private final List<List<Integer>> loadedPositions = new ArrayList<>();
+        private int loadCount;
+
+        public TestingLoader(boolean supportsPositions)
+        {
+            this.supportsPositions = supportsPositions;
+        }
+
+        @Override
+        public void load(LazyBlock block)
+        {
+            List<Integer> positions = new ArrayList<>();
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                positions.add(position);
+            }
+            block.setBlock(createBlock(positions));
+            loadCount++;
+        }
+
+        @Override
+        public Block loadPositions(LazyBlock block, List<Integer> positions)
+        {
+            loadedPositions.add(ImmutableList.copyOf(positions));
+            if (!supportsPositions) {
+                return null;
+            }
+            return createBlock(positions);
+        }
+
+        public List<List<Integer>> getLoadedPositions()
+        {
+            return loadedPositions;
+        }
+
+        public int getLoadCount()
+        {
+            return loadCount;
+        }
+    }
+}
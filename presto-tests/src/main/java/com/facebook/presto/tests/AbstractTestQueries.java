@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.tests;
 
+import com.facebook.presto.Session;
 import com.facebook.presto.metadata.FunctionListBuilder;
 import com.facebook.presto.metadata.SqlFunction;
 import com.facebook.presto.operator.scalar.TestingRowConstructor;
@@ -48,6 +49,10 @@ import java.sql.Timestamp;
 import java.util.List;
 import java.util.Set;
 
+import static com.facebook.presto.SystemSessionProperties.DICTIONARY_PROCESSING_ENABLED;
+import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_JOIN;
+import static com.facebook.presto.SystemSessionProperties.DYNAMIC_FILTERING_ENABLED;
+import static com.facebook.presto.SystemSessionProperties.FILTER_FIRST_SCAN_ENABLED;
 import static com.facebook.presto.connector.informationSchema.InformationSchemaMetadata.INFORMATION_SCHEMA;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -1452,6 +1457,63 @@ public abstract class AbstractTestQueries
         assertQuery("SELECT lines, COUNT(*) FROM (SELECT orderkey, COUNT(*) lines FROM lineitem GROUP BY orderkey) U GROUP BY lines");
     }
 
+    @Test
+    public void testJoinWithDynamicFiltering()
+            throws Exception
+    {
+        Session session = getSession().withSystemProperty(DYNAMIC_FILTERING_ENABLED, "true");
+
+        // the build side is small, so the probe side scan only returns the matching customers
+        assertQuery(session, "SELECT o.orderkey, o.totalprice, c.name FROM orders o JOIN customer c ON o.custkey = c.custkey WHERE c.acctbal > 9900");
+        // an empty build side filters out all rows of the probe side
+        assertQuery(session, "SELECT o.orderkey FROM orders o JOIN customer c ON o.custkey = c.custkey WHERE c.acctbal > 100000");
+        // the build side has too many distinct values to be collected, so the probe side is not filtered
+        assertQuery(session, "SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey WHERE l.quantity > 45");
+        // rows of the probe side of an outer join must not be filtered out
+        assertQuery(session, "SELECT o.orderkey, c.name FROM orders o LEFT JOIN customer c ON o.custkey = c.custkey AND c.acctbal > 9900");
+        assertQuery(session, "SELECT o.orderkey, c.name FROM customer c RIGHT JOIN orders o ON o.custkey = c.custkey AND c.acctbal > 9900");
+    }
+
+    @Test
+    public void testFilterFirstScan()
+            throws Exception
+    {
+        Session enabled = getSession().withSystemProperty(FILTER_FIRST_SCAN_ENABLED, "true");
+        Session disabled = getSession().withSystemProperty(FILTER_FIRST_SCAN_ENABLED, "false");
+
+        // selective filter, so the projected columns are only loaded for the matching rows
+        assertSameResults(enabled, disabled, "SELECT orderkey, totalprice, comment FROM orders WHERE custkey < 50");
+        // the filter and the projections read the same column
+        assertSameResults(enabled, disabled, "SELECT orderkey, custkey * 2 FROM orders WHERE custkey % 100 = 7");
+        // most rows pass the filter, so the scan stops filtering first
+        assertSameResults(enabled, disabled, "SELECT orderkey, orderpriority FROM orders WHERE orderkey > 10");
+        // no row passes the filter
+        assertSameResults(enabled, disabled, "SELECT orderkey, comment FROM orders WHERE totalprice < 0");
+        assertSameResults(enabled, disabled, "SELECT l.orderkey, l.comment, o.orderpriority FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE l.quantity > 49");
+    }
+
+    @Test
+    public void testDictionaryProcessing()
+            throws Exception
+    {
+        Session enabled = getSession().withSystemProperty(DICTIONARY_PROCESSING_ENABLED, "true");
+        Session disabled = getSession().withSystemProperty(DICTIONARY_PROCESSING_ENABLED, "false");
+
+        // low cardinality string columns, which columnar storage keeps dictionary encoded
+        assertSameResults(enabled, disabled, "SELECT upper(orderpriority), lower(orderstatus), orderkey FROM orders");
+        assertSameResults(enabled, disabled, "SELECT substr(shipmode, 1, 3), count(*) FROM lineitem GROUP BY substr(shipmode, 1, 3)");
+        assertSameResults(enabled, disabled, "SELECT orderpriority, orderstatus, count(*), sum(totalprice) FROM orders GROUP BY orderpriority, orderstatus");
+        assertSameResults(enabled, disabled, "SELECT concat(orderpriority, orderstatus) FROM orders WHERE orderstatus <> 'F'");
+        assertSameResults(enabled, disabled, "SELECT length(returnflag), linenumber FROM lineitem WHERE linestatus = 'O'");
+    }
+
+    private void assertSameResults(Session actualSession, Session expectedSession, @Language("SQL") String sql)
+    {
+        MaterializedResult actual = computeActual(actualSession, sql);
+        MaterializedResult expected = computeActual(expectedSession, sql);
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
     @Test
     public void testSimpleJoin()
             throws Exception
@@ -3739,6 +3801,25 @@ public abstract class AbstractTestQueries
         assertEquals(actual, getGraphvizExplainPlan(query, DISTRIBUTED));
     }
 
+    @Test
+    public void testDistributedExplainJoinDistribution()
+    {
+        Session distributedJoin = getSession().withSystemProperty(DISTRIBUTED_JOIN, "true");
+        Session broadcastJoin = getSession().withSystemProperty(DISTRIBUTED_JOIN, "false");
+
+        assertExplainJoinDistribution(distributedJoin, "SELECT * FROM orders o JOIN customer c ON o.custkey = c.custkey", "PARTITIONED");
+        assertExplainJoinDistribution(broadcastJoin, "SELECT * FROM orders o JOIN customer c ON o.custkey = c.custkey", "REPLICATED");
+        // the probe side runs on a single node, so the build side is gathered to it instead of replicated
+        assertExplainJoinDistribution(broadcastJoin, "SELECT * FROM (VALUES 1, 2) t(a) JOIN orders o ON t.a = o.orderkey", "SINGLE");
+    }
+
+    protected void assertExplainJoinDistribution(Session session, @Language("SQL") String query, String distributionType)
+    {
+        MaterializedResult result = computeActual(session, "EXPLAIN (TYPE DISTRIBUTED) " + query);
+        String actual = Iterables.getOnlyElement(transform(result.getMaterializedRows(), onlyColumnGetter()));
+        assertTrue(actual.contains("DISTRIBUTION: " + distributionType), actual);
+    }
+
     @Test
     public void testExplainOfExplain()
     {
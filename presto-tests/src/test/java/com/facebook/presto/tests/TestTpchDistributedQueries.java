@@ -16,7 +16,12 @@ package com.facebook.presto.tests;
 import com.facebook.presto.Session;
 import com.facebook.presto.tpch.TpchPlugin;
 import com.facebook.presto.tpch.testing.SampledTpchPlugin;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.Test;
 
+import static com.facebook.presto.SystemSessionProperties.AUTOMATIC_JOIN_DISTRIBUTION;
+import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_JOIN;
+import static com.facebook.presto.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
 import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
 
 public class TestTpchDistributedQueries
@@ -28,6 +33,35 @@ public class TestTpchDistributedQueries
         super(createQueryRunner());
     }
 
+    @Test
+    public void testAutomaticJoinDistribution()
+    {
+        // the tpch connector reports the row counts of its tables, so the estimated size of the
+        // build side decides the distribution instead of the distributed_join session property
+        @Language("SQL") String query = "SELECT * FROM orders o JOIN customer c ON o.custkey = c.custkey";
+        assertExplainJoinDistribution(automaticJoinDistribution("1kB", "false"), query, "PARTITIONED");
+        assertExplainJoinDistribution(automaticJoinDistribution("100MB", "true"), query, "REPLICATED");
+
+        // the estimated size of customer is about 280kB, and a third of that with a range filter
+        assertExplainJoinDistribution(automaticJoinDistribution("200kB", "false"), query, "PARTITIONED");
+        query = "SELECT * FROM orders o JOIN (SELECT * FROM customer WHERE acctbal > 9000.0) c ON o.custkey = c.custkey";
+        assertExplainJoinDistribution(automaticJoinDistribution("200kB", "true"), query, "REPLICATED");
+
+        // without automatic join distribution the session property decides
+        assertExplainJoinDistribution(getSession()
+                .withSystemProperty(AUTOMATIC_JOIN_DISTRIBUTION, "false")
+                .withSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, "100MB")
+                .withSystemProperty(DISTRIBUTED_JOIN, "true"), query, "PARTITIONED");
+    }
+
+    private Session automaticJoinDistribution(String maxBroadcastTableSize, String distributedJoin)
+    {
+        return getSession()
+                .withSystemProperty(AUTOMATIC_JOIN_DISTRIBUTION, "true")
+                .withSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, maxBroadcastTableSize)
+                .withSystemProperty(DISTRIBUTED_JOIN, distributedJoin);
+    }
+
     private static DistributedQueryRunner createQueryRunner()
             throws Exception
     {
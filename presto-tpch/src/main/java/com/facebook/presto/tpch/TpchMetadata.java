@@ -29,6 +29,8 @@ import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -43,6 +45,8 @@ import io.airlift.tpch.TpchTable;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -63,6 +67,28 @@ public class TpchMetadata
 
     public static final String ROW_NUMBER_COLUMN_NAME = "row_number";
 
+    // rows at scale factor 1, as defined by the TPC-H specification (lineitem is approximate)
+    private static final Map<String, Long> BASE_ROW_COUNTS = ImmutableMap.<String, Long>builder()
+            .put(TpchTable.REGION.getTableName(), 5L)
+            .put(TpchTable.NATION.getTableName(), 25L)
+            .put(TpchTable.SUPPLIER.getTableName(), 10_000L)
+            .put(TpchTable.CUSTOMER.getTableName(), 150_000L)
+            .put(TpchTable.PART.getTableName(), 200_000L)
+            .put(TpchTable.PART_SUPPLIER.getTableName(), 800_000L)
+            .put(TpchTable.ORDERS.getTableName(), 1_500_000L)
+            .put(TpchTable.LINE_ITEM.getTableName(), 6_000_000L)
+            .build();
+
+    // key columns have the same name in every table, and reference the table with the same key
+    private static final Map<String, String> KEY_COLUMN_TABLES = ImmutableMap.<String, String>builder()
+            .put("regionkey", TpchTable.REGION.getTableName())
+            .put("nationkey", TpchTable.NATION.getTableName())
+            .put("suppkey", TpchTable.SUPPLIER.getTableName())
+            .put("custkey", TpchTable.CUSTOMER.getTableName())
+            .put("partkey", TpchTable.PART.getTableName())
+            .put("orderkey", TpchTable.ORDERS.getTableName())
+            .build();
+
     private final String connectorId;
     private final Set<String> tableNames;
 
@@ -167,6 +193,40 @@ public class TpchMetadata
         return new ConnectorTableMetadata(tableName, columns.build());
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        TpchTableHandle tpchTableHandle = checkType(tableHandle, TpchTableHandle.class, "tableHandle");
+        long rowCount = getRowCount(tpchTableHandle.getTableName(), tpchTableHandle.getScaleFactor());
+
+        // the generated data never contains nulls
+        ImmutableMap.Builder<ColumnHandle, ColumnStatistics> columnStatistics = ImmutableMap.builder();
+        for (ColumnHandle columnHandle : getColumnHandles(session, tpchTableHandle).values()) {
+            String columnName = checkType(columnHandle, TpchColumnHandle.class, "columnHandle").getColumnName();
+
+            OptionalLong distinctValuesCount = OptionalLong.empty();
+            if (columnName.equals(ROW_NUMBER_COLUMN_NAME)) {
+                distinctValuesCount = OptionalLong.of(rowCount);
+            }
+            else if (KEY_COLUMN_TABLES.containsKey(columnName)) {
+                long keyCount = getRowCount(KEY_COLUMN_TABLES.get(columnName), tpchTableHandle.getScaleFactor());
+                distinctValuesCount = OptionalLong.of(Math.min(keyCount, rowCount));
+            }
+            columnStatistics.put(columnHandle, new ColumnStatistics(distinctValuesCount, OptionalDouble.of(0), Optional.empty(), Optional.empty()));
+        }
+        return new TableStatistics(OptionalLong.of(rowCount), columnStatistics.build());
+    }
+
+    private static long getRowCount(String tableName, double scaleFactor)
+    {
+        long baseRowCount = BASE_ROW_COUNTS.get(tableName);
+        // region and nation do not grow with the scale factor
+        if (tableName.equals(TpchTable.REGION.getTableName()) || tableName.equals(TpchTable.NATION.getTableName())) {
+            return baseRowCount;
+        }
+        return Math.max((long) (baseRowCount * scaleFactor), 1);
+    }
+
     @Override
     public Map<String, ColumnHandle> getColumnHandles(ConnectorSession session, ConnectorTableHandle tableHandle)
     {